@@ -30,6 +30,8 @@ public final class CertificateManagementConfig {
     private CertificateManagementRepository certificateManagementRepository;
     private CertificateKeystoreConfig certificateKeystoreConfig;
     private int defaultPageSize;
+    private CertificateCacheConfig certificateCacheConfig;
+    private boolean migrateLegacyCertificates;
 
     public void setCertificateManagementRepository(CertificateManagementRepository certificateManagementRepository) {
         this.certificateManagementRepository = certificateManagementRepository;
@@ -57,4 +59,22 @@ public final class CertificateManagementConfig {
     public void setDefaultPageSize(int defaultPageSize) {
         this.defaultPageSize = defaultPageSize;
     }
+
+    @XmlElement(name = "CertificateCache")
+    public CertificateCacheConfig getCertificateCacheConfig() {
+        return certificateCacheConfig;
+    }
+
+    public void setCertificateCacheConfig(CertificateCacheConfig certificateCacheConfig) {
+        this.certificateCacheConfig = certificateCacheConfig;
+    }
+
+    @XmlElement(name = "MigrateLegacyCertificates")
+    public boolean isMigrateLegacyCertificates() {
+        return migrateLegacyCertificates;
+    }
+
+    public void setMigrateLegacyCertificates(boolean migrateLegacyCertificates) {
+        this.migrateLegacyCertificates = migrateLegacyCertificates;
+    }
 }
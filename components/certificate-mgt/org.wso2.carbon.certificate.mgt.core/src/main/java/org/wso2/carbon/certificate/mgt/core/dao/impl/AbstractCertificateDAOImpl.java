@@ -27,10 +27,10 @@ import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOFactory;
 import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOUtil;
 import org.wso2.carbon.certificate.mgt.core.dto.CertificateResponse;
 import org.wso2.carbon.certificate.mgt.core.impl.CertificateGenerator;
-import org.wso2.carbon.certificate.mgt.core.util.Serializer;
+import org.wso2.carbon.certificate.mgt.core.util.CertificateCodec;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 
-import java.io.IOException;
+import java.security.cert.CertificateEncodingException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -64,7 +64,7 @@ public abstract class AbstractCertificateDAOImpl implements CertificateDAO{
                 if (serialNumber == null || serialNumber.isEmpty()) {
                     serialNumber = String.valueOf(certificate.getCertificate().getSerialNumber());
                 }
-                byte[] bytes = Serializer.serialize(certificate.getCertificate());
+                byte[] bytes = CertificateCodec.encode(certificate.getCertificate());
 
                 stmt.setString(1, serialNumber);
                 stmt.setBytes(2, bytes);
@@ -73,7 +73,7 @@ public abstract class AbstractCertificateDAOImpl implements CertificateDAO{
                 stmt.addBatch();
             }
             stmt.executeBatch();
-        } catch (SQLException | IOException e) {
+        } catch (SQLException | CertificateEncodingException e) {
             throw new CertificateManagementDAOException("Error occurred while saving certificates. "
                     , e);
         } finally {
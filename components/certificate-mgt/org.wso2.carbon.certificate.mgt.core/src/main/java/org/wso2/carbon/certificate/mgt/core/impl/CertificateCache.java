@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.certificate.mgt.core.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.certificate.mgt.core.config.CertificateCacheConfig;
+import org.wso2.carbon.certificate.mgt.core.config.CertificateConfigurationManager;
+import org.wso2.carbon.certificate.mgt.core.dto.CertificateResponse;
+import org.wso2.carbon.certificate.mgt.core.exception.CertificateManagementException;
+import org.wso2.carbon.certificate.mgt.core.util.CertificateManagementConstants;
+import org.wso2.carbon.device.mgt.core.cache.ExpiringLRUCache;
+
+/**
+ * Bounded, least recently used ordered cache of the certificates looked up by their serial numbers, which saves the
+ * repository lookup and the decoding of the certificate on every mutually authenticated request. Only certificates
+ * found in the repository are cached, and an entry is dropped when its certificate is removed or replaced through
+ * this node. The cache is per node, so it is disabled unless enabled through the configuration.
+ */
+public class CertificateCache {
+
+    private static final Log log = LogFactory.getLog(CertificateCache.class);
+
+    private static volatile CertificateCache certificateCache;
+
+    private final boolean enabled;
+    private final ExpiringLRUCache<String, CertificateResponse> entries;
+
+    /**
+     * @param enabled    Whether certificates are cached at all.
+     * @param capacity   Maximum number of certificates kept.
+     * @param expiryTime Time in milliseconds for which a certificate is kept.
+     */
+    public CertificateCache(boolean enabled, int capacity, long expiryTime) {
+        this.enabled = enabled;
+        this.entries = new ExpiringLRUCache<>(capacity, expiryTime);
+    }
+
+    public static CertificateCache getInstance() {
+        if (certificateCache == null) {
+            synchronized (CertificateCache.class) {
+                if (certificateCache == null) {
+                    certificateCache = createCache();
+                }
+            }
+        }
+        return certificateCache;
+    }
+
+    private static CertificateCache createCache() {
+        CertificateCacheConfig cacheConfig = null;
+        try {
+            cacheConfig = CertificateConfigurationManager.getInstance().getCertificateManagementConfig().
+                    getCertificateCacheConfig();
+        } catch (CertificateManagementException e) {
+            log.warn("Error occurred while reading the certificate cache configuration, hence the defaults are " +
+                    "used", e);
+        }
+        if (cacheConfig == null) {
+            return new CertificateCache(false, CertificateManagementConstants.DEFAULT_CERTIFICATE_CACHE_CAPACITY,
+                    CertificateManagementConstants.DEFAULT_CERTIFICATE_CACHE_EXPIRY_TIME * 1000L);
+        }
+        int capacity = cacheConfig.getCapacity() > 0 ? cacheConfig.getCapacity() :
+                CertificateManagementConstants.DEFAULT_CERTIFICATE_CACHE_CAPACITY;
+        int expiryTime = cacheConfig.getExpiryTime() > 0 ? cacheConfig.getExpiryTime() :
+                CertificateManagementConstants.DEFAULT_CERTIFICATE_CACHE_EXPIRY_TIME;
+        return new CertificateCache(cacheConfig.isEnabled(), capacity, expiryTime * 1000L);
+    }
+
+    /**
+     * @return The cached certificate of the tenant carrying the serial number, or null if there is none.
+     */
+    public CertificateResponse get(int tenantId, String serialNumber) {
+        if (!enabled) {
+            return null;
+        }
+        return entries.get(getKey(tenantId, serialNumber));
+    }
+
+    public void put(int tenantId, String serialNumber, CertificateResponse certificateResponse) {
+        if (!enabled || certificateResponse == null) {
+            return;
+        }
+        entries.put(getKey(tenantId, serialNumber), certificateResponse);
+    }
+
+    public void invalidate(int tenantId, String serialNumber) {
+        if (!enabled) {
+            return;
+        }
+        entries.remove(getKey(tenantId, serialNumber));
+    }
+
+    public int getSize() {
+        return entries.getSize();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    private static String getKey(int tenantId, String serialNumber) {
+        return tenantId + ":" + serialNumber;
+    }
+
+}
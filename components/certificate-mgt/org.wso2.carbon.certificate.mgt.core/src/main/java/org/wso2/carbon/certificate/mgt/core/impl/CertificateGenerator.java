@@ -60,7 +60,7 @@ import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
 import org.wso2.carbon.certificate.mgt.core.exception.TransactionManagementException;
 import org.wso2.carbon.certificate.mgt.core.util.CertificateManagementConstants;
 import org.wso2.carbon.certificate.mgt.core.util.CommonUtil;
-import org.wso2.carbon.certificate.mgt.core.util.Serializer;
+import org.wso2.carbon.certificate.mgt.core.util.CertificateCodec;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 
 import javax.security.auth.x500.X500Principal;
@@ -101,8 +101,7 @@ public class CertificateGenerator {
             throws CertificateManagementDAOException {
         try {
             if (certificateBytes != null) {
-                java.security.cert.Certificate x509Certificate =
-                        (java.security.cert.Certificate) Serializer.deserialize(certificateBytes);
+                java.security.cert.Certificate x509Certificate = CertificateCodec.decode(certificateBytes);
                 if (x509Certificate instanceof X509Certificate) {
                     X509Certificate certificate = (X509Certificate) x509Certificate;
                     certificateResponse.setNotAfter(certificate.getNotAfter().getTime());
@@ -113,8 +112,8 @@ public class CertificateGenerator {
                     certificateResponse.setCertificateVersion(certificate.getVersion());
                 }
             }
-        } catch (ClassNotFoundException | IOException e) {
-            String errorMsg = "Error while deserializing the certificate.";
+        } catch (CertificateException e) {
+            String errorMsg = "Error while decoding the certificate.";
             throw new CertificateManagementDAOException(errorMsg, e);
         }
 
@@ -635,6 +634,15 @@ public class CertificateGenerator {
             CertificateManagementDAOFactory.beginTransaction();
             certificateDAO.addCertificate(certificate);
             CertificateManagementDAOFactory.commitTransaction();
+            // a replaced certificate must not be served from the cache.
+            CertificateCache certificateCache = CertificateCache.getInstance();
+            for (org.wso2.carbon.certificate.mgt.core.bean.Certificate cert : certificate) {
+                String serialNumber = cert.getSerial();
+                if (serialNumber == null || serialNumber.isEmpty()) {
+                    serialNumber = String.valueOf(cert.getCertificate().getSerialNumber());
+                }
+                certificateCache.invalidate(cert.getTenantId(), serialNumber);
+            }
         } catch (CertificateManagementDAOException e) {
             String errorMsg = "Error occurred when saving the generated certificate";
             CertificateManagementDAOFactory.rollbackTransaction();
@@ -27,8 +27,10 @@ import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOFactory;
 import org.wso2.carbon.certificate.mgt.core.dto.CertificateResponse;
 import org.wso2.carbon.certificate.mgt.core.exception.CertificateManagementException;
 import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
-import org.wso2.carbon.certificate.mgt.core.util.Serializer;
+import org.wso2.carbon.certificate.mgt.core.util.CertificateCodec;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -39,15 +41,38 @@ import java.security.cert.Certificate;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class KeyStoreReader {
 
     private static final Log log = LogFactory.getLog(KeyStoreReader.class);
+    private static final long KEYSTORE_MODIFICATION_CHECK_INTERVAL = 5000;
+
+    /**
+     * Certificate KeyStore shared by all the readers, so that the CA and RA material is read from disk only once.
+     * It is replaced as a whole, never modified, when the KeyStore file changes or is saved.
+     */
+    private static volatile CachedKeyStore cachedKeyStore;
 
     private CertificateDAO certDao;
+    private CertificateKeystoreConfig certificateKeystoreConfig;
+    private long keyStoreModificationCheckInterval;
 
     public KeyStoreReader() {
-        this.certDao = CertificateManagementDAOFactory.getCertificateDAO();
+        this(CertificateManagementDAOFactory.getCertificateDAO(), null, KEYSTORE_MODIFICATION_CHECK_INTERVAL);
+    }
+
+    /**
+     * Creates a reader with the given KeyStore configuration instead of the one in certificate-mgt.config, which
+     * checks the KeyStore file for modifications at most once every given number of milliseconds.
+     */
+    KeyStoreReader(CertificateDAO certDao, CertificateKeystoreConfig certificateKeystoreConfig,
+                   long keyStoreModificationCheckInterval) {
+        this.certDao = certDao;
+        this.certificateKeystoreConfig = certificateKeystoreConfig;
+        this.keyStoreModificationCheckInterval = keyStoreModificationCheckInterval;
     }
 
     private KeyStore loadKeyStore(
@@ -87,7 +112,7 @@ public class KeyStoreReader {
         return keystore;
     }
 
-    private synchronized void saveKeyStore(KeyStore keyStore, String configEntryKeyStorePath,
+    private void saveKeyStore(KeyStore keyStore, String configEntryKeyStorePath,
                                            String configEntryKeyStorePassword) throws KeystoreException {
         FileOutputStream os = null;
         try {
@@ -120,27 +145,72 @@ public class KeyStoreReader {
     }
 
 
+    /**
+     * Loads a private copy of the certificate KeyStore from disk, which can be modified and then written back
+     * with {@link #saveCertificateKeyStore(KeyStore)}. Read only access should go through the cached KeyStore.
+     */
     KeyStore loadCertificateKeyStore() throws KeystoreException {
-        KeyStore keyStore = null;
-        try {
-            CertificateKeystoreConfig certificateKeystoreConfig = CertificateConfigurationManager.getInstance().
-                    getCertificateKeyStoreConfig();
-            keyStore = loadKeyStore(certificateKeystoreConfig.getCertificateKeystoreType(),
-                                    certificateKeystoreConfig.getCertificateKeystoreLocation(),
-                                    certificateKeystoreConfig.getCertificateKeystorePassword());
-        } catch (CertificateManagementException e) {
-            String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
-            throw new KeystoreException(errorMsg, e);
-        }
-        return keyStore;
+        CertificateKeystoreConfig certificateKeystoreConfig = getCertificateKeystoreConfig();
+        return loadKeyStore(certificateKeystoreConfig.getCertificateKeystoreType(),
+                            certificateKeystoreConfig.getCertificateKeystoreLocation(),
+                            certificateKeystoreConfig.getCertificateKeystorePassword());
     }
 
     void saveCertificateKeyStore(KeyStore keyStore) throws KeystoreException {
-        try {
-            CertificateKeystoreConfig certificateKeystoreConfig = CertificateConfigurationManager.getInstance().
-                    getCertificateKeyStoreConfig();
+        CertificateKeystoreConfig certificateKeystoreConfig = getCertificateKeystoreConfig();
+        synchronized (KeyStoreReader.class) {
             saveKeyStore(keyStore, certificateKeystoreConfig.getCertificateKeystoreLocation(),
                          certificateKeystoreConfig.getCertificateKeystorePassword());
+            // Readers keep using the previous KeyStore until the saved one has been loaded, and the caller's
+            // KeyStore is never shared with them.
+            cachedKeyStore = loadCachedKeyStore(certificateKeystoreConfig);
+        }
+    }
+
+    /**
+     * Returns the cached certificate KeyStore, loading it again if the KeyStore file has been modified since it
+     * was loaded. The file is checked at most once every {@link #KEYSTORE_MODIFICATION_CHECK_INTERVAL}
+     * milliseconds by default.
+     */
+    private CachedKeyStore getCachedKeyStore() throws KeystoreException {
+        CertificateKeystoreConfig certificateKeystoreConfig = getCertificateKeystoreConfig();
+        CachedKeyStore keyStore = cachedKeyStore;
+        if (keyStore != null && keyStore.nextModificationCheckTime > System.currentTimeMillis() &&
+                keyStore.location.equals(certificateKeystoreConfig.getCertificateKeystoreLocation())) {
+            return keyStore;
+        }
+        synchronized (KeyStoreReader.class) {
+            keyStore = cachedKeyStore;
+            if (keyStore == null || keyStore.isModified(certificateKeystoreConfig.getCertificateKeystoreLocation(),
+                                                        keyStoreModificationCheckInterval)) {
+                if (keyStore != null && log.isDebugEnabled()) {
+                    log.debug("Certificate KeyStore has been modified. Therefore, reloading it");
+                }
+                keyStore = loadCachedKeyStore(certificateKeystoreConfig);
+                cachedKeyStore = keyStore;
+            }
+            return keyStore;
+        }
+    }
+
+    private CachedKeyStore loadCachedKeyStore(CertificateKeystoreConfig certificateKeystoreConfig)
+            throws KeystoreException {
+        String location = certificateKeystoreConfig.getCertificateKeystoreLocation();
+        File keyStoreFile = new File(location);
+        // File attributes are read before the file, so that a write in between causes another reload
+        long lastModified = keyStoreFile.lastModified();
+        long length = keyStoreFile.length();
+        KeyStore keyStore = loadKeyStore(certificateKeystoreConfig.getCertificateKeystoreType(), location,
+                                         certificateKeystoreConfig.getCertificateKeystorePassword());
+        return new CachedKeyStore(keyStore, location, lastModified, length, keyStoreModificationCheckInterval);
+    }
+
+    private CertificateKeystoreConfig getCertificateKeystoreConfig() throws KeystoreException {
+        if (certificateKeystoreConfig != null) {
+            return certificateKeystoreConfig;
+        }
+        try {
+            return CertificateConfigurationManager.getInstance().getCertificateKeyStoreConfig();
         } catch (CertificateManagementException e) {
             String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
             throw new KeystoreException(errorMsg, e);
@@ -148,18 +218,14 @@ public class KeyStoreReader {
     }
 
     public Certificate getCACertificate() throws KeystoreException {
-        KeyStore keystore = loadCertificateKeyStore();
+        CachedKeyStore keystore = getCachedKeyStore();
         Certificate caCertificate;
         try {
-            CertificateKeystoreConfig certificateKeystoreConfig = CertificateConfigurationManager.getInstance().
-                    getCertificateKeyStoreConfig();
+            CertificateKeystoreConfig certificateKeystoreConfig = getCertificateKeystoreConfig();
             caCertificate = keystore.getCertificate(certificateKeystoreConfig.getCACertAlias());
         } catch (KeyStoreException e) {
             String errorMsg = "KeyStore issue occurred when loading KeyStore";
             throw new KeystoreException(errorMsg, e);
-        } catch (CertificateManagementException e) {
-            String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
-            throw new KeystoreException(errorMsg, e);
         }
 
         if (caCertificate == null) {
@@ -170,14 +236,12 @@ public class KeyStoreReader {
     }
 
     PrivateKey getCAPrivateKey() throws KeystoreException {
-        KeyStore keyStore = loadCertificateKeyStore();
+        CachedKeyStore keyStore = getCachedKeyStore();
         PrivateKey caPrivateKey;
         try {
-            CertificateKeystoreConfig certificateKeystoreConfig = CertificateConfigurationManager.getInstance().
-                    getCertificateKeyStoreConfig();
-            caPrivateKey = (PrivateKey) keyStore.getKey(certificateKeystoreConfig.getCACertAlias(), certificateKeystoreConfig
-                    .
-                            getCAPrivateKeyPassword().toCharArray());
+            CertificateKeystoreConfig certificateKeystoreConfig = getCertificateKeystoreConfig();
+            caPrivateKey = keyStore.getPrivateKey(certificateKeystoreConfig.getCACertAlias(),
+                                                  certificateKeystoreConfig.getCAPrivateKeyPassword());
         } catch (UnrecoverableKeyException e) {
             String errorMsg = "Key is unrecoverable when retrieving CA private key";
             throw new KeystoreException(errorMsg, e);
@@ -187,9 +251,6 @@ public class KeyStoreReader {
         } catch (NoSuchAlgorithmException e) {
             String errorMsg = "Algorithm not found when retrieving CA private key";
             throw new KeystoreException(errorMsg, e);
-        } catch (CertificateManagementException e) {
-            String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
-            throw new KeystoreException(errorMsg, e);
         }
 
         if (caPrivateKey == null) {
@@ -200,18 +261,14 @@ public class KeyStoreReader {
     }
 
     public Certificate getRACertificate() throws KeystoreException {
-        KeyStore keystore = loadCertificateKeyStore();
+        CachedKeyStore keystore = getCachedKeyStore();
         Certificate raCertificate;
         try {
-            CertificateKeystoreConfig certificateKeystoreConfig = CertificateConfigurationManager.getInstance().
-                    getCertificateKeyStoreConfig();
+            CertificateKeystoreConfig certificateKeystoreConfig = getCertificateKeystoreConfig();
             raCertificate = keystore.getCertificate(certificateKeystoreConfig.getRACertAlias());
         } catch (KeyStoreException e) {
             String errorMsg = "KeyStore issue occurred when retrieving RA private key";
             throw new KeystoreException(errorMsg, e);
-        } catch (CertificateManagementException e) {
-            String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
-            throw new KeystoreException(errorMsg, e);
         }
 
         if (raCertificate == null) {
@@ -227,13 +284,13 @@ public class KeyStoreReader {
             CertificateManagementDAOFactory.openConnection();
             CertificateResponse certificateResponse = certDao.retrieveCertificate(alias);
             if (certificateResponse != null) {
-                raCertificate = (Certificate) Serializer.deserialize(certificateResponse.getCertificate());
+                raCertificate = CertificateCodec.decode(certificateResponse.getCertificate());
             }
         } catch (CertificateManagementDAOException e) {
             String errorMsg = "Error when retrieving certificate the the database for the alias " + alias;
             throw new KeystoreException(errorMsg, e);
-        } catch (ClassNotFoundException | IOException e) {
-            String errorMsg = "Error when de-serializing saved certificate.";
+        } catch (CertificateException e) {
+            String errorMsg = "Error when decoding saved certificate.";
             throw new KeystoreException(errorMsg, e);
         } catch (SQLException e) {
             String errorMsg = "Error when making a connection to the database.";
@@ -245,13 +302,12 @@ public class KeyStoreReader {
     }
 
     public PrivateKey getRAPrivateKey() throws KeystoreException {
-        KeyStore keystore = loadCertificateKeyStore();
+        CachedKeyStore keystore = getCachedKeyStore();
         PrivateKey raPrivateKey;
         try {
-            CertificateKeystoreConfig certificateKeystoreConfig = CertificateConfigurationManager.getInstance().
-                    getCertificateKeyStoreConfig();
-            raPrivateKey = (PrivateKey) keystore.getKey(certificateKeystoreConfig.getRACertAlias(),
-                                                        certificateKeystoreConfig.getRAPrivateKeyPassword().toCharArray());
+            CertificateKeystoreConfig certificateKeystoreConfig = getCertificateKeystoreConfig();
+            raPrivateKey = keystore.getPrivateKey(certificateKeystoreConfig.getRACertAlias(),
+                                                  certificateKeystoreConfig.getRAPrivateKeyPassword());
         } catch (UnrecoverableKeyException e) {
             String errorMsg = "Key is unrecoverable when retrieving RA private key";
             throw new KeystoreException(errorMsg, e);
@@ -261,9 +317,6 @@ public class KeyStoreReader {
         } catch (NoSuchAlgorithmException e) {
             String errorMsg = "Algorithm not found when retrieving RA private key";
             throw new KeystoreException(errorMsg, e);
-        } catch (CertificateManagementException e) {
-            String errorMsg = "Unable to find KeyStore configuration in certificate-mgt.config file.";
-            throw new KeystoreException(errorMsg, e);
         }
 
         if (raPrivateKey == null) {
@@ -274,12 +327,17 @@ public class KeyStoreReader {
     }
 
     public CertificateResponse getCertificateBySerial(String serialNumber) throws KeystoreException {
-        CertificateResponse certificateResponse = null;
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        CertificateCache certificateCache = CertificateCache.getInstance();
+        CertificateResponse certificateResponse = certificateCache.get(tenantId, serialNumber);
+        if (certificateResponse != null) {
+            return certificateResponse;
+        }
         try {
             CertificateManagementDAOFactory.openConnection();
             certificateResponse = certDao.retrieveCertificate(serialNumber);
             if (certificateResponse != null && certificateResponse.getCertificate() != null) {
-                Certificate certificate = (Certificate) Serializer.deserialize(certificateResponse.getCertificate());
+                Certificate certificate = CertificateCodec.decode(certificateResponse.getCertificate());
                 if (certificate instanceof X509Certificate) {
                     X509Certificate x509cert = (X509Certificate) certificate;
                     String commonName = CertificateGenerator.getCommonName(x509cert);
@@ -293,12 +351,93 @@ public class KeyStoreReader {
         } catch (SQLException e) {
             String errorMsg = "Error when making a connection to the database.";
             throw new KeystoreException(errorMsg, e);
-        } catch (ClassNotFoundException | IOException e) {
-            String errorMsg = "Error when de-serializing saved certificate.";
+        } catch (CertificateException e) {
+            String errorMsg = "Error when decoding saved certificate.";
             throw new KeystoreException(errorMsg, e);
         } finally {
             CertificateManagementDAOFactory.closeConnection();
         }
+        certificateCache.put(tenantId, serialNumber, certificateResponse);
         return certificateResponse;
     }
+
+    /**
+     * Certificate KeyStore loaded from disk along with the certificates and private keys read from it. The
+     * KeyStore is never modified once loaded, and a private key is recovered again only when it is asked for with a
+     * password other than the one it was recovered with.
+     */
+    private static class CachedKeyStore {
+
+        private final KeyStore keyStore;
+        private final String location;
+        private final long lastModified;
+        private final long length;
+        private final ConcurrentMap<String, Certificate> certificates = new ConcurrentHashMap<>();
+        private final ConcurrentMap<String, RecoveredKey> privateKeys = new ConcurrentHashMap<>();
+        private volatile long nextModificationCheckTime;
+
+        CachedKeyStore(KeyStore keyStore, String location, long lastModified, long length,
+                       long modificationCheckInterval) {
+            this.keyStore = keyStore;
+            this.location = location;
+            this.lastModified = lastModified;
+            this.length = length;
+            this.nextModificationCheckTime = System.currentTimeMillis() + modificationCheckInterval;
+        }
+
+        boolean isModified(String currentLocation, long modificationCheckInterval) {
+            File keyStoreFile = new File(location);
+            if (!location.equals(currentLocation) || keyStoreFile.lastModified() != lastModified ||
+                    keyStoreFile.length() != length) {
+                return true;
+            }
+            nextModificationCheckTime = System.currentTimeMillis() + modificationCheckInterval;
+            return false;
+        }
+
+        Certificate getCertificate(String alias) throws KeyStoreException {
+            Certificate certificate = certificates.get(alias);
+            if (certificate == null) {
+                synchronized (keyStore) {
+                    certificate = keyStore.getCertificate(alias);
+                }
+                if (certificate != null) {
+                    certificates.put(alias, certificate);
+                }
+            }
+            return certificate;
+        }
+
+        PrivateKey getPrivateKey(String alias, String password)
+                throws KeyStoreException, NoSuchAlgorithmException, UnrecoverableKeyException {
+            char[] passwordChars = password.toCharArray();
+            RecoveredKey recoveredKey = privateKeys.get(alias);
+            if (recoveredKey != null && Arrays.equals(recoveredKey.password, passwordChars)) {
+                return recoveredKey.privateKey;
+            }
+            PrivateKey privateKey;
+            synchronized (keyStore) {
+                // Recovering the key checks the password, so a key is never handed out for a wrong password
+                privateKey = (PrivateKey) keyStore.getKey(alias, passwordChars);
+            }
+            if (privateKey != null) {
+                privateKeys.put(alias, new RecoveredKey(privateKey, passwordChars));
+            }
+            return privateKey;
+        }
+    }
+
+    /**
+     * Private key along with the password it was recovered with.
+     */
+    private static class RecoveredKey {
+
+        private final PrivateKey privateKey;
+        private final char[] password;
+
+        RecoveredKey(PrivateKey privateKey, char[] password) {
+            this.privateKey = privateKey;
+            this.password = password;
+        }
+    }
 }
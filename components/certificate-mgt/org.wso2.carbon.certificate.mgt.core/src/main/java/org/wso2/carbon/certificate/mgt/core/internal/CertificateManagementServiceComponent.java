@@ -33,6 +33,7 @@ import org.wso2.carbon.certificate.mgt.core.service.CertificateManagementService
 import org.wso2.carbon.certificate.mgt.core.service.CertificateManagementServiceImpl;
 import org.wso2.carbon.certificate.mgt.core.util.CertificateManagementConstants;
 import org.wso2.carbon.certificate.mgt.core.util.CertificateMgtSchemaInitializer;
+import org.wso2.carbon.certificate.mgt.core.util.LegacyCertificateMigrator;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 
 /**
@@ -71,6 +72,7 @@ public class CertificateManagementServiceComponent {
                 }
                 this.setupDeviceManagementSchema(dsConfig);
             }
+            this.migrateLegacyCertificates(config);
             bundleContext.registerService(CertificateManagementService.class.getName(),
                     CertificateManagementServiceImpl.getInstance(), null);
 
@@ -104,6 +106,15 @@ public class CertificateManagementServiceComponent {
         CertificateManagementDataHolder.getInstance().setDeviceManagementService(null);
     }
 
+    private void migrateLegacyCertificates(CertificateManagementConfig config) {
+        if (config.isMigrateLegacyCertificates()) {
+            Thread migratorThread = new Thread(new LegacyCertificateMigrator(
+                    CertificateManagementConstants.CERTIFICATE_MIGRATION_BATCH_SIZE), "LegacyCertificateMigrator");
+            migratorThread.setDaemon(true);
+            migratorThread.start();
+        }
+    }
+
     private void setupDeviceManagementSchema(DataSourceConfig config) throws CertificateManagementException {
         CertificateMgtSchemaInitializer initializer = new CertificateMgtSchemaInitializer(config);
         String checkSql = "select * from DM_DEVICE_CERTIFICATE";
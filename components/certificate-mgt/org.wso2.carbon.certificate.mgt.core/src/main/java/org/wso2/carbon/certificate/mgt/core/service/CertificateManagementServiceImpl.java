@@ -28,10 +28,12 @@ import org.wso2.carbon.certificate.mgt.core.dto.SCEPResponse;
 import org.wso2.carbon.certificate.mgt.core.exception.CertificateManagementException;
 import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
 import org.wso2.carbon.certificate.mgt.core.exception.TransactionManagementException;
+import org.wso2.carbon.certificate.mgt.core.impl.CertificateCache;
 import org.wso2.carbon.certificate.mgt.core.impl.CertificateGenerator;
 import org.wso2.carbon.certificate.mgt.core.impl.KeyStoreReader;
 import org.wso2.carbon.certificate.mgt.core.util.CertificateManagementConstants;
 import org.wso2.carbon.certificate.mgt.core.util.CertificateManagerUtil;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 
 import java.io.InputStream;
 import java.security.PrivateKey;
@@ -180,6 +182,8 @@ public class CertificateManagementServiceImpl implements CertificateManagementSe
             CertificateDAO certificateDAO = CertificateManagementDAOFactory.getCertificateDAO();
             boolean status = certificateDAO.removeCertificate(serialNumber);
             CertificateManagementDAOFactory.commitTransaction();
+            CertificateCache.getInstance().invalidate(
+                    PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId(), serialNumber);
             return status;
         } catch (TransactionManagementException e) {
             String msg = "Error occurred while removing certificate carrying serial number '" + serialNumber + "'";
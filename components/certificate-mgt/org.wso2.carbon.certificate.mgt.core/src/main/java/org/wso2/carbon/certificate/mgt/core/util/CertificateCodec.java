@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.certificate.mgt.core.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+
+/**
+ * Encodes the certificates kept in the certificate repository as DER bytes and decodes them back. Certificates
+ * stored as Java serialized objects by earlier versions are still decoded, so that they can be read until they are
+ * rewritten by the {@link LegacyCertificateMigrator}.
+ */
+public final class CertificateCodec {
+
+    private static final byte[] SERIALIZATION_MAGIC = {(byte) 0xAC, (byte) 0xED};
+
+    private CertificateCodec() {
+        throw new AssertionError();
+    }
+
+    /**
+     * @param certificate Certificate to be stored.
+     * @return DER encoding of the certificate.
+     * @throws CertificateEncodingException If the certificate cannot be encoded.
+     */
+    public static byte[] encode(Certificate certificate) throws CertificateEncodingException {
+        return certificate.getEncoded();
+    }
+
+    /**
+     * @param bytes Stored certificate, either DER encoded or Java serialized.
+     * @return Decoded certificate.
+     * @throws CertificateException If the bytes do not make up a certificate.
+     */
+    public static Certificate decode(byte[] bytes) throws CertificateException {
+        if (isLegacyFormat(bytes)) {
+            try {
+                return (Certificate) Serializer.deserialize(bytes);
+            } catch (ClassNotFoundException | IOException | ClassCastException e) {
+                throw new CertificateException("Error while deserializing the certificate", e);
+            }
+        }
+        return CertificateFactory.getInstance(CertificateManagementConstants.X_509).generateCertificate(
+                new ByteArrayInputStream(bytes));
+    }
+
+    /**
+     * @return true if the bytes are a Java serialized certificate stored by an earlier version.
+     */
+    public static boolean isLegacyFormat(byte[] bytes) {
+        return bytes != null && bytes.length > SERIALIZATION_MAGIC.length &&
+                bytes[0] == SERIALIZATION_MAGIC[0] && bytes[1] == SERIALIZATION_MAGIC[1];
+    }
+
+}
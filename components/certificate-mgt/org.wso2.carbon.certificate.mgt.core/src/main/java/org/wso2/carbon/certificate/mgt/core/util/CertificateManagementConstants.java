@@ -39,6 +39,9 @@ public final class CertificateManagementConstants {
     public static final String RSA_PRIVATE_KEY_END_TEXT = "-----END RSA PRIVATE KEY-----";
     public static final String EMPTY_TEXT = "";
     public static final int RSA_KEY_LENGTH = 1024;
+    public static final int DEFAULT_CERTIFICATE_CACHE_CAPACITY = 10000;
+    public static final int DEFAULT_CERTIFICATE_CACHE_EXPIRY_TIME = 60;
+    public static final int CERTIFICATE_MIGRATION_BATCH_SIZE = 100;
 
     public static final class DataBaseTypes {
         private DataBaseTypes() {
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.certificate.mgt.core.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOException;
+import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOFactory;
+import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOUtil;
+import org.wso2.carbon.certificate.mgt.core.exception.TransactionManagementException;
+
+import java.security.cert.CertificateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Rewrites the certificates stored as Java serialized objects by earlier versions as DER bytes. Rows are walked in
+ * the order of their ids and each batch is rewritten in its own transaction, so an interrupted migration is resumed
+ * by simply running it again.
+ */
+public class LegacyCertificateMigrator implements Runnable {
+
+    private static final Log log = LogFactory.getLog(LegacyCertificateMigrator.class);
+
+    private static final String SELECT_SQL = "SELECT ID, CERTIFICATE FROM DM_DEVICE_CERTIFICATE WHERE ID > ? " +
+            "ORDER BY ID";
+    private static final String UPDATE_SQL = "UPDATE DM_DEVICE_CERTIFICATE SET CERTIFICATE = ? WHERE ID = ?";
+
+    private int batchSize;
+
+    public LegacyCertificateMigrator(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run() {
+        try {
+            int count = this.migrate();
+            log.info("Rewrote " + count + " legacy certificates of 'DM_DEVICE_CERTIFICATE'");
+        } catch (CertificateManagementDAOException e) {
+            log.error("Error occurred while migrating the legacy certificates of 'DM_DEVICE_CERTIFICATE'", e);
+        }
+    }
+
+    /**
+     * Method to rewrite the certificates which are not DER encoded.
+     *
+     * @return Number of rewritten certificates.
+     * @throws CertificateManagementDAOException If reading or updating a batch of rows fails.
+     */
+    public int migrate() throws CertificateManagementDAOException {
+        int lastId = 0;
+        int migratedCount = 0;
+        int rowCount;
+        do {
+            rowCount = 0;
+            try {
+                CertificateManagementDAOFactory.beginTransaction();
+                PreparedStatement selectStmt = null;
+                PreparedStatement updateStmt = null;
+                ResultSet rs = null;
+                int batchCount = 0;
+                try {
+                    Connection conn = CertificateManagementDAOFactory.getConnection();
+                    selectStmt = conn.prepareStatement(SELECT_SQL);
+                    selectStmt.setMaxRows(batchSize);
+                    selectStmt.setInt(1, lastId);
+                    rs = selectStmt.executeQuery();
+                    updateStmt = conn.prepareStatement(UPDATE_SQL);
+                    while (rs.next()) {
+                        rowCount++;
+                        lastId = rs.getInt("ID");
+                        byte[] certificate = rs.getBytes("CERTIFICATE");
+                        if (!CertificateCodec.isLegacyFormat(certificate)) {
+                            continue;
+                        }
+                        try {
+                            updateStmt.setBytes(1, CertificateCodec.encode(CertificateCodec.decode(certificate)));
+                        } catch (CertificateException e) {
+                            log.warn("Certificate of row '" + lastId + "' cannot be decoded, hence it is left as " +
+                                    "it is", e);
+                            continue;
+                        }
+                        updateStmt.setInt(2, lastId);
+                        updateStmt.addBatch();
+                        batchCount++;
+                    }
+                    if (batchCount > 0) {
+                        updateStmt.executeBatch();
+                    }
+                } finally {
+                    CertificateManagementDAOUtil.cleanupResources(updateStmt, null);
+                    CertificateManagementDAOUtil.cleanupResources(selectStmt, rs);
+                }
+                // Committing or rolling back the transaction closes the connection as well
+                CertificateManagementDAOFactory.commitTransaction();
+                migratedCount += batchCount;
+            } catch (TransactionManagementException e) {
+                throw new CertificateManagementDAOException("Error occurred while initiating the transaction to " +
+                        "migrate the legacy certificates", e);
+            } catch (SQLException e) {
+                CertificateManagementDAOFactory.rollbackTransaction();
+                throw new CertificateManagementDAOException("Error occurred while migrating the legacy certificates " +
+                        "after the row '" + lastId + "'", e);
+            }
+        } while (rowCount == batchSize);
+        return migratedCount;
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.certificate.mgt.core.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.certificate.mgt.core.config.CertificateKeystoreConfig;
+
+import java.io.File;
+import java.security.Key;
+import java.security.KeyStore;
+import java.security.cert.Certificate;
+
+/**
+ * Compares the time taken to get the CA certificate and the RA private key from the cached KeyStore with loading the
+ * KeyStore from disk for every call, as was done before the KeyStore was cached. This is not part of the default
+ * test suite, run it with {@code mvn test -Dtest=KeyStoreReaderBenchmark [-Dkeystore.benchmark.iterations=1000]}.
+ */
+public class KeyStoreReaderBenchmark {
+
+    private static final Log log = LogFactory.getLog(KeyStoreReaderBenchmark.class);
+    private static final String KEYSTORE_PATH = "src/test/resources/wso2certs.jks";
+    private static final int ITERATIONS = Integer.getInteger("keystore.benchmark.iterations", 1000);
+    private static final int WARM_UP_ITERATIONS = 100;
+
+    private File keyStoreFile;
+    private CertificateKeystoreConfig config;
+
+    @BeforeClass
+    public void init() throws Exception {
+        keyStoreFile = File.createTempFile("wso2certs", ".jks");
+        FileUtils.copyFile(new File(KEYSTORE_PATH), keyStoreFile);
+        config = new CertificateKeystoreConfig();
+        config.setCertificateKeystoreLocation(keyStoreFile.getAbsolutePath());
+        config.setCertificateKeystoreType("JKS");
+        config.setCertificateKeystorePassword("wso2carbon");
+        config.setCACertAlias("cacert");
+        config.setCAPrivateKeyPassword("cacert");
+        config.setRACertAlias("racert");
+        config.setRAPrivateKeyPassword("racert");
+    }
+
+    @Test
+    public void benchmarkKeyStoreReads() throws Exception {
+        KeyStoreReader keyStoreReader = new KeyStoreReader(null, config, 5000);
+        Assert.assertEquals(keyStoreReader.getCACertificate(), this.loadCACertificate(keyStoreReader),
+                "Cached KeyStore returned a different CA certificate");
+        Assert.assertEquals(keyStoreReader.getRAPrivateKey(), this.loadRAPrivateKey(keyStoreReader),
+                "Cached KeyStore returned a different RA private key");
+
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            keyStoreReader.getCACertificate();
+            keyStoreReader.getRAPrivateKey();
+            this.loadCACertificate(keyStoreReader);
+            this.loadRAPrivateKey(keyStoreReader);
+        }
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            keyStoreReader.getCACertificate();
+        }
+        double cachedCertificateTime = this.getAverageTime(startTime);
+        startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            this.loadCACertificate(keyStoreReader);
+        }
+        double loadedCertificateTime = this.getAverageTime(startTime);
+        log.info(String.format("getCACertificate : cached %.4fms, loaded from disk %.4fms per call",
+                cachedCertificateTime, loadedCertificateTime));
+
+        startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            keyStoreReader.getRAPrivateKey();
+        }
+        double cachedKeyTime = this.getAverageTime(startTime);
+        startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            this.loadRAPrivateKey(keyStoreReader);
+        }
+        double loadedKeyTime = this.getAverageTime(startTime);
+        log.info(String.format("getRAPrivateKey : cached %.4fms, loaded from disk %.4fms per call",
+                cachedKeyTime, loadedKeyTime));
+    }
+
+    @AfterClass
+    public void cleanup() {
+        FileUtils.deleteQuietly(keyStoreFile);
+    }
+
+    private Certificate loadCACertificate(KeyStoreReader keyStoreReader) throws Exception {
+        return keyStoreReader.loadCertificateKeyStore().getCertificate(config.getCACertAlias());
+    }
+
+    private Key loadRAPrivateKey(KeyStoreReader keyStoreReader) throws Exception {
+        KeyStore keyStore = keyStoreReader.loadCertificateKeyStore();
+        return keyStore.getKey(config.getRACertAlias(), config.getRAPrivateKeyPassword().toCharArray());
+    }
+
+    private double getAverageTime(long startTime) {
+        return (System.nanoTime() - startTime) / 1000000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.certificate.mgt.core.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.certificate.mgt.core.config.CertificateKeystoreConfig;
+import org.wso2.carbon.certificate.mgt.core.exception.KeystoreException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.Certificate;
+
+public class KeyStoreReaderTest {
+
+    private static final String KEYSTORE_PATH = "src/test/resources/wso2certs.jks";
+    private static final String KEYSTORE_TYPE = "JKS";
+    private static final String KEYSTORE_PASSWORD = "wso2carbon";
+    private static final String CA_ALIAS = "cacert";
+    private static final String CA_PASSWORD = "cacert";
+    private static final String RA_ALIAS = "racert";
+    private static final String RA_PASSWORD = "racert";
+    private static final long NO_MODIFICATION_CHECK_INTERVAL = 0;
+    private static final long LONG_MODIFICATION_CHECK_INTERVAL = 60 * 60 * 1000;
+
+    private File keyStoreFile;
+
+    @BeforeMethod
+    public void copyKeyStore() throws Exception {
+        // Every test gets a KeyStore file of its own, which makes the shared cached KeyStore load again
+        keyStoreFile = File.createTempFile("wso2certs", ".jks");
+        FileUtils.copyFile(new File(KEYSTORE_PATH), keyStoreFile);
+    }
+
+    @AfterMethod
+    public void deleteKeyStore() {
+        FileUtils.deleteQuietly(keyStoreFile);
+    }
+
+    @Test
+    public void testCertificatesAndKeysAreReadFromKeyStore() throws Exception {
+        KeyStoreReader keyStoreReader = this.getKeyStoreReader(RA_PASSWORD, LONG_MODIFICATION_CHECK_INTERVAL);
+        KeyStore keyStore = this.readKeyStore();
+
+        Assert.assertEquals(keyStoreReader.getCACertificate(), keyStore.getCertificate(CA_ALIAS),
+                "CA certificate is not the one in the KeyStore");
+        Assert.assertEquals(keyStoreReader.getRACertificate(), keyStore.getCertificate(RA_ALIAS),
+                "RA certificate is not the one in the KeyStore");
+        Assert.assertEquals(keyStoreReader.getCAPrivateKey(), keyStore.getKey(CA_ALIAS, CA_PASSWORD.toCharArray()),
+                "CA private key is not the one in the KeyStore");
+        Assert.assertEquals(keyStoreReader.getRAPrivateKey(), keyStore.getKey(RA_ALIAS, RA_PASSWORD.toCharArray()),
+                "RA private key is not the one in the KeyStore");
+
+        Assert.assertSame(keyStoreReader.getCACertificate(), keyStoreReader.getCACertificate(),
+                "CA certificate is read from the KeyStore again");
+        Assert.assertSame(keyStoreReader.getRAPrivateKey(), keyStoreReader.getRAPrivateKey(),
+                "RA private key is recovered from the KeyStore again");
+    }
+
+    @Test
+    public void testWrongPrivateKeyPasswordIsRejected() throws Exception {
+        PrivateKey raPrivateKey = this.getKeyStoreReader(RA_PASSWORD, LONG_MODIFICATION_CHECK_INTERVAL)
+                .getRAPrivateKey();
+
+        // The RA private key is already cached, and must not be handed out for a wrong password
+        try {
+            this.getKeyStoreReader("wrong-password", LONG_MODIFICATION_CHECK_INTERVAL).getRAPrivateKey();
+            Assert.fail("RA private key was returned for a wrong password");
+        } catch (KeystoreException e) {
+            Assert.assertTrue(e.getMessage().contains("unrecoverable"), "Unexpected error: " + e.getMessage());
+        }
+
+        Assert.assertEquals(this.getKeyStoreReader(RA_PASSWORD, LONG_MODIFICATION_CHECK_INTERVAL).getRAPrivateKey(),
+                raPrivateKey, "RA private key is not returned for the right password");
+    }
+
+    @Test
+    public void testKeyStoreIsReloadedWhenFileIsRewritten() throws Exception {
+        KeyStoreReader keyStoreReader = this.getKeyStoreReader(RA_PASSWORD, NO_MODIFICATION_CHECK_INTERVAL);
+        KeyStore keyStore = this.readKeyStore();
+        Assert.assertEquals(keyStoreReader.getCACertificate(), keyStore.getCertificate(CA_ALIAS));
+
+        this.writeKeyStore(this.replaceCAWithRA(keyStore));
+
+        Assert.assertEquals(keyStoreReader.getCACertificate(), keyStore.getCertificate(RA_ALIAS),
+                "Rewritten KeyStore file has not been loaded");
+        Assert.assertEquals(keyStoreReader.getCAPrivateKey(), keyStore.getKey(RA_ALIAS, RA_PASSWORD.toCharArray()),
+                "Private key of the previous KeyStore file is still returned");
+    }
+
+    @Test
+    public void testKeyStoreFileIsCheckedAtMostOncePerInterval() throws Exception {
+        KeyStoreReader keyStoreReader = this.getKeyStoreReader(RA_PASSWORD, LONG_MODIFICATION_CHECK_INTERVAL);
+        KeyStore keyStore = this.readKeyStore();
+        Certificate caCertificate = keyStoreReader.getCACertificate();
+
+        this.writeKeyStore(this.replaceCAWithRA(keyStore));
+
+        Assert.assertSame(keyStoreReader.getCACertificate(), caCertificate,
+                "KeyStore file has been checked again before the modification check interval elapsed");
+    }
+
+    @Test
+    public void testSavedKeyStoreIsSwappedIn() throws Exception {
+        KeyStoreReader keyStoreReader = this.getKeyStoreReader(RA_PASSWORD, LONG_MODIFICATION_CHECK_INTERVAL);
+        Certificate raCertificate = keyStoreReader.getRACertificate();
+
+        KeyStore keyStore = keyStoreReader.loadCertificateKeyStore();
+        keyStoreReader.saveCertificateKeyStore(this.replaceCAWithRA(keyStore));
+
+        Assert.assertEquals(keyStoreReader.getCACertificate(), raCertificate,
+                "Saved KeyStore has not been swapped in");
+
+        // The caller's KeyStore is not shared with the readers
+        keyStore.deleteEntry(RA_ALIAS);
+        Assert.assertEquals(keyStoreReader.getRACertificate(), raCertificate,
+                "Modifying the saved KeyStore changed the cached one");
+        Assert.assertTrue(this.readKeyStore().containsAlias(RA_ALIAS), "KeyStore file has been modified");
+    }
+
+    private KeyStoreReader getKeyStoreReader(String raPrivateKeyPassword, long modificationCheckInterval) {
+        CertificateKeystoreConfig config = new CertificateKeystoreConfig();
+        config.setCertificateKeystoreLocation(keyStoreFile.getAbsolutePath());
+        config.setCertificateKeystoreType(KEYSTORE_TYPE);
+        config.setCertificateKeystorePassword(KEYSTORE_PASSWORD);
+        config.setCACertAlias(CA_ALIAS);
+        config.setCAPrivateKeyPassword(CA_PASSWORD);
+        config.setRACertAlias(RA_ALIAS);
+        config.setRAPrivateKeyPassword(raPrivateKeyPassword);
+        return new KeyStoreReader(null, config, modificationCheckInterval);
+    }
+
+    /**
+     * Makes the CA alias hold the RA key and certificate, using the CA private key password.
+     */
+    private KeyStore replaceCAWithRA(KeyStore keyStore) throws Exception {
+        PrivateKey raPrivateKey = (PrivateKey) keyStore.getKey(RA_ALIAS, RA_PASSWORD.toCharArray());
+        keyStore.setKeyEntry(CA_ALIAS, raPrivateKey, CA_PASSWORD.toCharArray(),
+                keyStore.getCertificateChain(RA_ALIAS));
+        return keyStore;
+    }
+
+    private KeyStore readKeyStore() throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(KEYSTORE_TYPE);
+        try (InputStream inputStream = new FileInputStream(keyStoreFile)) {
+            keyStore.load(inputStream, KEYSTORE_PASSWORD.toCharArray());
+        }
+        return keyStore;
+    }
+
+    private void writeKeyStore(KeyStore keyStore) throws Exception {
+        long lastModified = keyStoreFile.lastModified();
+        try (OutputStream outputStream = new FileOutputStream(keyStoreFile)) {
+            keyStore.store(outputStream, KEYSTORE_PASSWORD.toCharArray());
+        }
+        // The length of the file may not change, and its modification time may not change within the same second
+        Assert.assertTrue(keyStoreFile.setLastModified(lastModified + 2000), "Unable to touch the KeyStore file");
+    }
+}
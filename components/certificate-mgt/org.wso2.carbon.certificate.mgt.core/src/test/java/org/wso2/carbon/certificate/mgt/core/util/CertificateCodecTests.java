@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.certificate.mgt.core.util;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+
+public class CertificateCodecTests {
+
+    private static final String CA_CERT_PEM = "src/test/resources/ca_cert.pem";
+
+    private Certificate certificate;
+
+    @BeforeClass
+    public void loadCertificate() throws IOException, CertificateException {
+        try (InputStream in = new FileInputStream(CA_CERT_PEM)) {
+            certificate = CertificateFactory.getInstance(CertificateManagementConstants.X_509).generateCertificate(in);
+        }
+    }
+
+    @Test
+    public void testDerEncodedCertificateIsDecoded() throws CertificateException {
+        byte[] bytes = CertificateCodec.encode(certificate);
+        Assert.assertFalse(CertificateCodec.isLegacyFormat(bytes), "DER encoded certificate is taken as serialized");
+        Assert.assertEquals(CertificateCodec.decode(bytes), certificate);
+    }
+
+    @Test
+    public void testSerializedCertificateIsDecoded() throws IOException, CertificateException {
+        byte[] bytes = Serializer.serialize(certificate);
+        Assert.assertTrue(CertificateCodec.isLegacyFormat(bytes), "Serialized certificate is not detected");
+        Assert.assertEquals(CertificateCodec.decode(bytes), certificate);
+    }
+
+    @Test
+    public void testLegacyFormatDetection() {
+        Assert.assertFalse(CertificateCodec.isLegacyFormat(null));
+        Assert.assertFalse(CertificateCodec.isLegacyFormat(new byte[0]));
+        Assert.assertFalse(CertificateCodec.isLegacyFormat(new byte[]{(byte) 0xAC, (byte) 0xED}),
+                "Serialization magic without a stream is taken as a serialized certificate");
+        Assert.assertFalse(CertificateCodec.isLegacyFormat(new byte[]{(byte) 0xAC, 0x00, 0x00, 0x05}));
+        Assert.assertTrue(CertificateCodec.isLegacyFormat(new byte[]{(byte) 0xAC, (byte) 0xED, 0x00, 0x05}));
+    }
+
+    @Test(expectedExceptions = CertificateException.class)
+    public void testCorruptedSerializedCertificate() throws CertificateException {
+        CertificateCodec.decode(new byte[]{(byte) 0xAC, (byte) 0xED, 0x00, 0x05, 0x01});
+    }
+
+    @Test(expectedExceptions = CertificateException.class)
+    public void testSerializedObjectOtherThanCertificate() throws IOException, CertificateException {
+        CertificateCodec.decode(Serializer.serialize("certificate"));
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.certificate.mgt.core.util;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOException;
+import org.wso2.carbon.certificate.mgt.core.dao.CertificateManagementDAOFactory;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.cert.Certificate;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+public class LegacyCertificateMigratorTests {
+
+    private static final String CA_CERT_PEM = "src/test/resources/ca_cert.pem";
+    private static final String CREATE_TABLE_SQL = "CREATE TABLE DM_DEVICE_CERTIFICATE (ID INTEGER AUTO_INCREMENT " +
+            "NOT NULL, SERIAL_NUMBER VARCHAR(500) DEFAULT NULL, CERTIFICATE BLOB DEFAULT NULL, TENANT_ID INTEGER " +
+            "DEFAULT 0, USERNAME VARCHAR(500) DEFAULT NULL, PRIMARY KEY (ID))";
+    private static final byte[] CORRUPTED_CERTIFICATE = {(byte) 0xAC, (byte) 0xED, 0x00, 0x05, 0x01};
+
+    private JdbcDataSource dataSource;
+    private Certificate certificate;
+
+    @BeforeClass
+    public void init() throws IOException, CertificateException, SQLException {
+        try (InputStream in = new FileInputStream(CA_CERT_PEM)) {
+            certificate = CertificateFactory.getInstance(CertificateManagementConstants.X_509).generateCertificate(in);
+        }
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:LegacyCertificateMigratorTests;DB_CLOSE_DELAY=-1");
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(CREATE_TABLE_SQL);
+        }
+        CertificateManagementDAOFactory.init(dataSource);
+    }
+
+    @Test
+    public void testLegacyCertificatesAreRewritten() throws IOException, CertificateException, SQLException,
+            CertificateManagementDAOException {
+        byte[] derCertificate = CertificateCodec.encode(certificate);
+        int legacyId = this.addCertificate(Serializer.serialize(certificate));
+        int derId = this.addCertificate(derCertificate);
+        int corruptedId = this.addCertificate(CORRUPTED_CERTIFICATE);
+        int emptyId = this.addCertificate(null);
+        int otherLegacyId = this.addCertificate(Serializer.serialize(certificate));
+
+        // A batch size smaller than the number of rows makes the migration span several transactions
+        LegacyCertificateMigrator migrator = new LegacyCertificateMigrator(2);
+        Assert.assertEquals(migrator.migrate(), 2);
+        Assert.assertTrue(Arrays.equals(this.getCertificate(legacyId), derCertificate),
+                "Serialized certificate is not rewritten as DER bytes");
+        Assert.assertTrue(Arrays.equals(this.getCertificate(otherLegacyId), derCertificate),
+                "Serialized certificate of a later batch is not rewritten as DER bytes");
+        Assert.assertTrue(Arrays.equals(this.getCertificate(derId), derCertificate));
+        Assert.assertTrue(Arrays.equals(this.getCertificate(corruptedId), CORRUPTED_CERTIFICATE),
+                "Certificate which cannot be decoded is modified");
+        Assert.assertNull(this.getCertificate(emptyId));
+
+        Assert.assertEquals(migrator.migrate(), 0, "Certificates are rewritten more than once");
+    }
+
+    private int addCertificate(byte[] certificate) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("INSERT INTO DM_DEVICE_CERTIFICATE (SERIAL_NUMBER, " +
+                     "CERTIFICATE) VALUES (?, ?)", Statement.RETURN_GENERATED_KEYS)) {
+            stmt.setString(1, "serial");
+            stmt.setBytes(2, certificate);
+            stmt.executeUpdate();
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                Assert.assertTrue(rs.next());
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    private byte[] getCertificate(int id) throws SQLException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement("SELECT CERTIFICATE FROM DM_DEVICE_CERTIFICATE " +
+                     "WHERE ID = ?")) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                Assert.assertTrue(rs.next());
+                return rs.getBytes("CERTIFICATE");
+            }
+        }
+    }
+
+}
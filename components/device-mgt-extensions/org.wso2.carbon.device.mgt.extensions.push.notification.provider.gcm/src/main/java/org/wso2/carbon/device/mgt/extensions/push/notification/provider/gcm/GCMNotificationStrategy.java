@@ -19,33 +19,58 @@
 package org.wso2.carbon.device.mgt.extensions.push.notification.provider.gcm;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
+import org.wso2.carbon.device.mgt.common.push.notification.BatchNotificationStrategy;
 import org.wso2.carbon.device.mgt.common.push.notification.NotificationContext;
-import org.wso2.carbon.device.mgt.common.push.notification.NotificationStrategy;
 import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationConfig;
 import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationExecutionFailedException;
+import org.wso2.carbon.device.mgt.common.push.notification.TokenBasedNotificationStrategy;
 import org.wso2.carbon.device.mgt.extensions.push.notification.provider.gcm.internal.GCMDataHolder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
-public class GCMNotificationStrategy implements NotificationStrategy {
+/**
+ * Sends wake up calls to Android devices through GCM, addressing each device by the GCM token it registered. The
+ * devices to be woken up for the same operation are addressed in multicast requests of up to
+ * {@value #MAX_REGISTRATION_IDS} registration ids. Responses are always read to the end so that the underlying
+ * connections are kept alive and reused for the subsequent requests.
+ */
+public class GCMNotificationStrategy implements BatchNotificationStrategy, TokenBasedNotificationStrategy {
 
+    private static final Log log = LogFactory.getLog(GCMNotificationStrategy.class);
     private static final String GCM_TOKEN = "GCM_TOKEN";
     private final static String GCM_ENDPOINT = "https://gcm-http.googleapis.com/gcm/send";
+    private static final String GCM_ENDPOINT_PROPERTY = "gcmEndpoint";
     private static final String GCM_API_KEY = "gcmAPIKey";
     private static final int TIME_TO_LIVE = 60;
     private static final int HTTP_STATUS_CODE_OK = 200;
+    static final int MAX_REGISTRATION_IDS = 1000;
     private PushNotificationConfig config;
+    private String endpoint;
 
     public GCMNotificationStrategy(PushNotificationConfig config) {
         this.config = config;
+        String endpoint = config.getProperty(GCM_ENDPOINT_PROPERTY);
+        this.endpoint = (endpoint != null && !endpoint.isEmpty()) ? endpoint : GCM_ENDPOINT;
     }
 
     @Override
@@ -55,37 +80,79 @@ public class GCMNotificationStrategy implements NotificationStrategy {
 
     @Override
     public void execute(NotificationContext ctx) throws PushNotificationExecutionFailedException {
+        this.execute(Collections.singletonList(ctx));
+    }
+
+    @Override
+    public void execute(List<NotificationContext> contexts) throws PushNotificationExecutionFailedException {
+        Map<String, List<String>> registrationIds = new LinkedHashMap<>();
         try {
-            Device device =
-                    GCMDataHolder.getInstance().getDeviceManagementProviderService().getDevice(ctx.getDeviceId());
-            this.sendWakeUpCall(ctx.getOperation().getCode(), device);
+            for (NotificationContext ctx : contexts) {
+                String gcmToken = ctx.getToken();
+                if (gcmToken == null) {
+                    //Devices enrolled before push tokens were registered are still looked up one by one
+                    Device device = GCMDataHolder.getInstance().getDeviceManagementProviderService().
+                            getDevice(ctx.getDeviceId());
+                    gcmToken = (device != null && device.getProperties() != null) ?
+                            getGCMToken(device.getProperties()) : null;
+                }
+                if (gcmToken == null) {
+                    log.warn("GCM token is not available for device '" + ctx.getDeviceId() + "', hence the wake " +
+                            "up call is not sent");
+                    continue;
+                }
+                String message = ctx.getOperation().getCode();
+                List<String> messageRegistrationIds = registrationIds.get(message);
+                if (messageRegistrationIds == null) {
+                    messageRegistrationIds = new ArrayList<>();
+                    registrationIds.put(message, messageRegistrationIds);
+                }
+                messageRegistrationIds.add(gcmToken);
+            }
         } catch (DeviceManagementException e) {
             throw new PushNotificationExecutionFailedException("Error occurred while retrieving device information", e);
+        }
+        try {
+            for (Map.Entry<String, List<String>> entry : registrationIds.entrySet()) {
+                List<String> messageRegistrationIds = entry.getValue();
+                for (int from = 0; from < messageRegistrationIds.size(); from += MAX_REGISTRATION_IDS) {
+                    this.sendWakeUpCall(entry.getKey(), messageRegistrationIds.subList(from,
+                            Math.min(from + MAX_REGISTRATION_IDS, messageRegistrationIds.size())));
+                }
+            }
         } catch (IOException e) {
             throw new PushNotificationExecutionFailedException("Error occurred while sending push notification", e);
         }
     }
 
+    @Override
+    public String getTokenProperty() {
+        return GCM_TOKEN;
+    }
+
     @Override
     public NotificationContext buildContext() {
         return null;
     }
 
-    private void sendWakeUpCall(String message,
-                                Device device) throws IOException, PushNotificationExecutionFailedException {
+    /**
+     * Sends a single multicast request addressing the given registration ids.
+     *
+     * @return Number of registration ids the message could not be delivered to.
+     */
+    int sendWakeUpCall(String message,
+                       List<String> registrationIds) throws IOException, PushNotificationExecutionFailedException {
         OutputStream os = null;
-        byte[] bytes = getGCMRequest(message, getGCMToken(device.getProperties())).getBytes();
-
-        HttpURLConnection conn = null;
+        byte[] bytes = getGCMRequest(message, registrationIds).getBytes(StandardCharsets.UTF_8);
+
+        HttpURLConnection conn = (HttpURLConnection) new URL(endpoint).openConnection();
+        conn.setDoOutput(true);
+        conn.setUseCaches(false);
+        conn.setFixedLengthStreamingMode(bytes.length);
+        conn.setRequestMethod("POST");
+        conn.setRequestProperty("Content-Type", "application/json");
+        conn.setRequestProperty("Authorization", "key=" + config.getProperty(GCM_API_KEY));
         try {
-            conn = (HttpURLConnection) new URL(GCM_ENDPOINT).openConnection();
-            conn.setDoOutput(true);
-            conn.setUseCaches(false);
-            conn.setFixedLengthStreamingMode(bytes.length);
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setRequestProperty("Authorization", "key=" + config.getProperty(GCM_API_KEY));
-
             os = conn.getOutputStream();
             os.write(bytes);
         } finally {
@@ -94,13 +161,56 @@ public class GCMNotificationStrategy implements NotificationStrategy {
             }
         }
         int status = conn.getResponseCode();
+        String response = readResponse(status == HTTP_STATUS_CODE_OK ? conn.getInputStream() : conn.getErrorStream());
         if (status != HTTP_STATUS_CODE_OK) {
             throw new PushNotificationExecutionFailedException("Push notification sending failed with the HTTP " +
                     "error code '" + status + "'");
         }
+        return getFailureCount(response, registrationIds);
     }
 
-    private static String getGCMRequest(String message, String registrationId) {
+    private static String readResponse(InputStream is) throws IOException {
+        if (is == null) {
+            return null;
+        }
+        try {
+            ByteArrayOutputStream response = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                response.write(buffer, 0, read);
+            }
+            return new String(response.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            is.close();
+        }
+    }
+
+    private static int getFailureCount(String response, List<String> registrationIds) {
+        if (response == null || response.isEmpty()) {
+            return 0;
+        }
+        try {
+            JsonObject gcmResponse = new JsonParser().parse(response).getAsJsonObject();
+            int failure = gcmResponse.has("failure") ? gcmResponse.get("failure").getAsInt() : 0;
+            if (failure > 0 && gcmResponse.has("results")) {
+                JsonArray results = gcmResponse.getAsJsonArray("results");
+                for (int i = 0; i < results.size() && i < registrationIds.size(); i++) {
+                    JsonElement error = results.get(i).getAsJsonObject().get("error");
+                    if (error != null) {
+                        log.warn("GCM could not deliver the wake up call to registration id '" +
+                                registrationIds.get(i) + "': " + error.getAsString());
+                    }
+                }
+            }
+            return failure;
+        } catch (JsonParseException | IllegalStateException e) {
+            log.warn("Unable to parse the GCM response: " + response, e);
+            return 0;
+        }
+    }
+
+    private static String getGCMRequest(String message, List<String> registrationIds) {
         JsonObject gcmRequest = new JsonObject();
         gcmRequest.addProperty("delay_while_idle", false);
         gcmRequest.addProperty("time_to_live", TIME_TO_LIVE);
@@ -112,9 +222,11 @@ public class GCMNotificationStrategy implements NotificationStrategy {
             gcmRequest.add("data", data);
         }
 
-        //Set device reg-id
+        //Set device reg-ids
         JsonArray regIds = new JsonArray();
-        regIds.add(new JsonPrimitive(registrationId));
+        for (String registrationId : registrationIds) {
+            regIds.add(new JsonPrimitive(registrationId));
+        }
 
         gcmRequest.add("registration_ids", regIds);
         return gcmRequest.toString();
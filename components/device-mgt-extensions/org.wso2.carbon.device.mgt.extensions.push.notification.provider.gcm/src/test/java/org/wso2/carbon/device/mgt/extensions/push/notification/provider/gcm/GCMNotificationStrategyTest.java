@@ -0,0 +1,152 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.extensions.push.notification.provider.gcm;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationConfig;
+import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationExecutionFailedException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends wake up calls to a local HTTP stub standing in for the GCM endpoint.
+ */
+public class GCMNotificationStrategyTest {
+
+    private HttpServer server;
+    private GCMNotificationStrategy strategy;
+    private volatile int responseStatus;
+    private volatile String responseBody;
+    private final List<JsonObject> requests = Collections.synchronizedList(new ArrayList<JsonObject>());
+    private final List<InetSocketAddress> clients = Collections.synchronizedList(new ArrayList<InetSocketAddress>());
+
+    @BeforeClass
+    public void init() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/gcm/send", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                requests.add(new JsonParser().parse(read(exchange.getRequestBody())).getAsJsonObject());
+                clients.add(exchange.getRemoteAddress());
+                byte[] response = responseBody.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(responseStatus, response.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(response);
+                os.close();
+            }
+        });
+        server.start();
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put("gcmAPIKey", "test-api-key");
+        properties.put("gcmEndpoint", "http://localhost:" + server.getAddress().getPort() + "/gcm/send");
+        strategy = new GCMNotificationStrategy(new PushNotificationConfig("GCM", properties));
+    }
+
+    @AfterClass
+    public void cleanup() {
+        server.stop(0);
+    }
+
+    @BeforeMethod
+    public void reset() {
+        requests.clear();
+        clients.clear();
+        responseStatus = 200;
+        responseBody = "{\"multicast_id\":1,\"success\":1,\"failure\":0,\"results\":[{\"message_id\":\"1\"}]}";
+    }
+
+    @Test
+    public void testMulticastRequest() throws Exception {
+        List<String> registrationIds = getRegistrationIds(GCMNotificationStrategy.MAX_REGISTRATION_IDS);
+        int failures = strategy.sendWakeUpCall("DEVICE_LOCK", registrationIds);
+
+        Assert.assertEquals(failures, 0);
+        Assert.assertEquals(requests.size(), 1, "All registration ids should be addressed in a single request.");
+        JsonObject request = requests.get(0);
+        Assert.assertEquals(request.getAsJsonArray("registration_ids").size(), registrationIds.size());
+        Assert.assertEquals(request.getAsJsonObject("data").get("data").getAsString(), "DEVICE_LOCK");
+    }
+
+    @Test
+    public void testFailedRegistrationIds() throws Exception {
+        responseBody = "{\"multicast_id\":1,\"success\":1,\"failure\":1,\"results\":[{\"message_id\":\"1\"}," +
+                "{\"error\":\"NotRegistered\"}]}";
+        int failures = strategy.sendWakeUpCall("DEVICE_LOCK", getRegistrationIds(2));
+        Assert.assertEquals(failures, 1);
+    }
+
+    @Test(expectedExceptions = PushNotificationExecutionFailedException.class)
+    public void testErrorResponse() throws Exception {
+        responseStatus = 503;
+        responseBody = "";
+        strategy.sendWakeUpCall("DEVICE_LOCK", getRegistrationIds(1));
+    }
+
+    @Test
+    public void testConnectionReuse() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            strategy.sendWakeUpCall("DEVICE_RING", getRegistrationIds(10));
+        }
+        Assert.assertEquals(requests.size(), 5);
+        Assert.assertEquals(new HashSet<>(clients).size(), 1,
+                "Consecutive requests should be sent over the same keep-alive connection.");
+    }
+
+    private static List<String> getRegistrationIds(int count) {
+        List<String> registrationIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            registrationIds.add("registration-id-" + i);
+        }
+        return registrationIds;
+    }
+
+    private static String read(InputStream is) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            content.write(buffer, 0, read);
+        }
+        is.close();
+        return new String(content.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
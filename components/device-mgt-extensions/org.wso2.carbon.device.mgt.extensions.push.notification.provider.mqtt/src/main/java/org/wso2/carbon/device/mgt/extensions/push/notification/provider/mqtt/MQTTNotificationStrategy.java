@@ -22,8 +22,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.common.push.notification.BatchNotificationStrategy;
 import org.wso2.carbon.device.mgt.common.push.notification.NotificationContext;
-import org.wso2.carbon.device.mgt.common.push.notification.NotificationStrategy;
 import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationConfig;
 import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationExecutionFailedException;
 import org.wso2.carbon.device.mgt.extensions.push.notification.provider.mqtt.internal.MQTTDataHolder;
@@ -33,10 +33,11 @@ import org.wso2.carbon.event.output.adapter.core.OutputEventAdapterConfiguration
 import org.wso2.carbon.event.output.adapter.core.exception.OutputEventAdapterException;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
-public class MQTTNotificationStrategy implements NotificationStrategy {
+public class MQTTNotificationStrategy implements BatchNotificationStrategy {
 
     private static final String MQTT_ADAPTER_TOPIC = "mqtt.adapter.topic";
     private String mqttAdapterName;
@@ -77,15 +78,26 @@ public class MQTTNotificationStrategy implements NotificationStrategy {
 
     @Override
     public void execute(NotificationContext ctx) throws PushNotificationExecutionFailedException {
+        this.publish(ctx, PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain(true));
+    }
+
+    @Override
+    public void execute(List<NotificationContext> contexts) throws PushNotificationExecutionFailedException {
+        String tenantDomain = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain(true);
+        for (NotificationContext ctx : contexts) {
+            this.publish(ctx, tenantDomain);
+        }
+    }
+
+    private void publish(NotificationContext ctx, String tenantDomain) {
         Map<String, String> dynamicProperties = new HashMap<>();
         Operation operation = ctx.getOperation();
         Properties properties = operation.getProperties();
         if (properties != null && properties.get(MQTT_ADAPTER_TOPIC) != null) {
             dynamicProperties.put("topic", (String) properties.get(MQTT_ADAPTER_TOPIC));
         } else {
-            String topic = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantDomain(true) + "/"
-                    + ctx.getDeviceId().getType() + "/" + ctx.getDeviceId().getId() + "/" + operation.getType()
-                    + "/" + operation.getCode();
+            String topic = tenantDomain + "/" + ctx.getDeviceId().getType() + "/" + ctx.getDeviceId().getId() + "/"
+                    + operation.getType() + "/" + operation.getCode();
             dynamicProperties.put("topic", topic);
             if (operation.getPayLoad() == null) {
                 operation.setPayLoad("");
@@ -20,8 +20,8 @@ package org.wso2.carbon.device.mgt.extensions.push.notification.provider.xmpp;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.common.push.notification.BatchNotificationStrategy;
 import org.wso2.carbon.device.mgt.common.push.notification.NotificationContext;
-import org.wso2.carbon.device.mgt.common.push.notification.NotificationStrategy;
 import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationConfig;
 import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationExecutionFailedException;
 import org.wso2.carbon.device.mgt.extensions.push.notification.provider.xmpp.internal.XMPPDataHolder;
@@ -31,10 +31,11 @@ import org.wso2.carbon.event.output.adapter.core.OutputEventAdapterConfiguration
 import org.wso2.carbon.event.output.adapter.core.exception.OutputEventAdapterException;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
-public class XMPPNotificationStrategy implements NotificationStrategy {
+public class XMPPNotificationStrategy implements BatchNotificationStrategy {
 
     private static final String XMPP_CLIENT_JID = "xmpp.client.jid";
     private static final String XMPP_CLIENT_SUBJECT = "xmpp.client.subject";
@@ -75,6 +76,17 @@ public class XMPPNotificationStrategy implements NotificationStrategy {
 
     @Override
     public void execute(NotificationContext ctx) throws PushNotificationExecutionFailedException {
+        this.publish(ctx);
+    }
+
+    @Override
+    public void execute(List<NotificationContext> contexts) throws PushNotificationExecutionFailedException {
+        for (NotificationContext ctx : contexts) {
+            this.publish(ctx);
+        }
+    }
+
+    private void publish(NotificationContext ctx) {
         Map<String, String> dynamicProperties = new HashMap<>();
         Properties properties = ctx.getOperation().getProperties();
         dynamicProperties.put("jid", properties.getProperty(XMPP_CLIENT_JID));
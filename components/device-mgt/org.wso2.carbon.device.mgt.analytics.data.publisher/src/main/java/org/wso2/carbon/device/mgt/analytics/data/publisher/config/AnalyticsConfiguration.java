@@ -42,6 +42,7 @@ public class AnalyticsConfiguration {
     private String adminUsername;
     private String adminPassword;
     private boolean enable;
+    private EventSpoolConfiguration eventSpoolConfiguration;
 
     private static AnalyticsConfiguration config;
 
@@ -97,6 +98,15 @@ public class AnalyticsConfiguration {
         this.enable = status;
     }
 
+    @XmlElement(name = "EventSpool")
+    public EventSpoolConfiguration getEventSpoolConfiguration() {
+        return eventSpoolConfiguration;
+    }
+
+    public void setEventSpoolConfiguration(EventSpoolConfiguration eventSpoolConfiguration) {
+        this.eventSpoolConfiguration = eventSpoolConfiguration;
+    }
+
     public static void init() throws DataPublisherConfigurationException {
         try {
             File authConfig = new File(AnalyticsConfiguration.DEVICE_ANALYTICS_CONFIG_PATH);
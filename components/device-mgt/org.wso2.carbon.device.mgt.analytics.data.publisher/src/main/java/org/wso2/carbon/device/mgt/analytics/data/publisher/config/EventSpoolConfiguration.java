@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.analytics.data.publisher.config;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Configurations of the local spool which keeps the published events until the analytics server accepts them.
+ */
+@XmlRootElement(name = "EventSpool")
+public class EventSpoolConfiguration {
+
+    public static final String CARBON_HOME_ENTRY = "${carbon.home}";
+    public static final String DEFAULT_DIRECTORY = CARBON_HOME_ENTRY + "/repository/data/device-analytics-spool";
+    public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+    public static final long DEFAULT_MAX_TENANT_SPOOL_SIZE = 256 * 1024 * 1024L;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_DRAIN_INTERVAL = 1000;
+
+    private boolean enabled;
+    private String directory;
+    private int segmentSize;
+    private long maxTenantSpoolSize;
+    private int batchSize;
+    private int drainInterval;
+
+    @XmlElement(name = "Enabled")
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return Directory holding the spool files of all the tenants, with the carbon home resolved.
+     */
+    @XmlElement(name = "Directory")
+    public String getDirectory() {
+        String spoolDirectory = (directory == null || directory.isEmpty()) ? DEFAULT_DIRECTORY : directory;
+        if (spoolDirectory.contains(CARBON_HOME_ENTRY)) {
+            spoolDirectory = spoolDirectory.replace(CARBON_HOME_ENTRY, System.getProperty("carbon.home"));
+        }
+        return spoolDirectory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return Size in bytes of each memory mapped spool file.
+     */
+    @XmlElement(name = "SegmentSize")
+    public int getSegmentSize() {
+        return segmentSize > 0 ? segmentSize : DEFAULT_SEGMENT_SIZE;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * @return Maximum number of bytes spooled for a tenant. Events of a tenant are rejected once its spool is full,
+     * without affecting the other tenants.
+     */
+    @XmlElement(name = "MaxTenantSpoolSize")
+    public long getMaxTenantSpoolSize() {
+        return maxTenantSpoolSize > 0 ? maxTenantSpoolSize : DEFAULT_MAX_TENANT_SPOOL_SIZE;
+    }
+
+    public void setMaxTenantSpoolSize(long maxTenantSpoolSize) {
+        this.maxTenantSpoolSize = maxTenantSpoolSize;
+    }
+
+    /**
+     * @return Maximum number of events of a tenant handed over to the data publisher at once.
+     */
+    @XmlElement(name = "BatchSize")
+    public int getBatchSize() {
+        return batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return Time in milliseconds between two drains of the spool.
+     */
+    @XmlElement(name = "DrainInterval")
+    public int getDrainInterval() {
+        return drainInterval > 0 ? drainInterval : DEFAULT_DRAIN_INTERVAL;
+    }
+
+    public void setDrainInterval(int drainInterval) {
+        this.drainInterval = drainInterval;
+    }
+
+}
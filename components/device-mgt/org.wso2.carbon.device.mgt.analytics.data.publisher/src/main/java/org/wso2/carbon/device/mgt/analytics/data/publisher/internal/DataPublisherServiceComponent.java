@@ -24,12 +24,23 @@ import org.osgi.framework.BundleContext;
 import org.osgi.framework.ServiceRegistration;
 import org.osgi.service.component.ComponentContext;
 import org.wso2.carbon.device.mgt.analytics.data.publisher.config.AnalyticsConfiguration;
+import org.wso2.carbon.device.mgt.analytics.data.publisher.config.EventSpoolConfiguration;
 import org.wso2.carbon.device.mgt.analytics.data.publisher.service.EventsPublisherService;
 import org.wso2.carbon.device.mgt.analytics.data.publisher.service.EventsPublisherServiceImpl;
+import org.wso2.carbon.device.mgt.analytics.data.publisher.spool.DataBridgeEventPublisher;
+import org.wso2.carbon.device.mgt.analytics.data.publisher.spool.EventSpoolManager;
+import org.wso2.carbon.device.mgt.analytics.data.publisher.spool.EventSpoolStatisticsMBean;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.registry.core.service.TenantRegistryLoader;
 import org.wso2.carbon.registry.indexing.service.TenantIndexingLoader;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
 /**
  * @scr.component name="org.wso2.carbon.device.mgt.analytics.data.publisher.internal.DataPublisherServiceComponent"
  * immediate="true"
@@ -53,6 +64,9 @@ import org.wso2.carbon.registry.indexing.service.TenantIndexingLoader;
  */
 public class DataPublisherServiceComponent {
 
+    private static final String EVENT_SPOOL_STATISTICS_MBEAN_NAME =
+            "org.wso2.carbon.device.mgt.analytics:type=EventSpoolStatistics";
+
     private ServiceRegistration analyticsServiceRef;
     private static Log log = LogFactory.getLog(DataPublisherServiceComponent.class);
 
@@ -62,6 +76,7 @@ public class DataPublisherServiceComponent {
                 log.debug("Initializing device analytics bundle");
             }
             AnalyticsConfiguration.init();
+            this.initEventSpool(AnalyticsConfiguration.getInstance());
 
             BundleContext bundleCtx = componentCtx.getBundleContext();
             this.analyticsServiceRef =
@@ -82,11 +97,50 @@ public class DataPublisherServiceComponent {
         if (analyticsServiceRef != null) {
             analyticsServiceRef.unregister();
         }
+        if (EventSpoolManager.getInstance() != null) {
+            this.unregisterStatisticsMBean();
+            EventSpoolManager.destroy();
+        }
         if (log.isDebugEnabled()) {
             log.debug("Device analytics bundle has been successfully deactivated");
         }
     }
 
+    private void initEventSpool(AnalyticsConfiguration analyticsConfig) {
+        EventSpoolConfiguration spoolConfig = analyticsConfig.getEventSpoolConfiguration();
+        if (!analyticsConfig.isEnable() || spoolConfig == null || !spoolConfig.isEnabled()) {
+            return;
+        }
+        try {
+            EventSpoolManager spoolManager = EventSpoolManager.init(spoolConfig, new DataBridgeEventPublisher());
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(EVENT_SPOOL_STATISTICS_MBEAN_NAME);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(new StandardMBean(spoolManager, EventSpoolStatisticsMBean.class, false),
+                        objectName);
+            }
+        } catch (IOException e) {
+            log.error("Error occurred while initializing the analytics event spool, hence events are published " +
+                    "without being spooled", e);
+        } catch (JMException e) {
+            log.error("Error occurred while registering the statistics MBean '" + EVENT_SPOOL_STATISTICS_MBEAN_NAME +
+                    "'", e);
+        }
+    }
+
+    private void unregisterStatisticsMBean() {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(EVENT_SPOOL_STATISTICS_MBEAN_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error occurred while unregistering the statistics MBean '" +
+                    EVENT_SPOOL_STATISTICS_MBEAN_NAME + "'", e);
+        }
+    }
+
     protected void setRegistryService(RegistryService registryService) {
         if (registryService != null && log.isDebugEnabled()) {
             log.debug("Registry service initialized");
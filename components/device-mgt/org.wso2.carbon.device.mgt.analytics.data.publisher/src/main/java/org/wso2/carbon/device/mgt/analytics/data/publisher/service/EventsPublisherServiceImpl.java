@@ -21,10 +21,13 @@ package org.wso2.carbon.device.mgt.analytics.data.publisher.service;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.databridge.agent.DataPublisher;
 import org.wso2.carbon.databridge.commons.utils.DataBridgeCommonsUtils;
 import org.wso2.carbon.device.mgt.analytics.data.publisher.DeviceDataPublisher;
 import org.wso2.carbon.device.mgt.analytics.data.publisher.exception.DataPublisherConfigurationException;
+import org.wso2.carbon.device.mgt.analytics.data.publisher.spool.EventSpoolManager;
+import org.wso2.carbon.device.mgt.analytics.data.publisher.spool.SpooledEvent;
 
 /**
  * This is the implementation of Osgi Service which can be used to publish and retireved
@@ -34,12 +37,15 @@ public class EventsPublisherServiceImpl implements EventsPublisherService {
 	private static Log log = LogFactory.getLog(EventsPublisherServiceImpl.class);
 
 	/**
+	 * Publishes an event to DAS. When the event spool is enabled the event is spooled and published in the
+	 * background, so that it is not lost while DAS is unreachable.
+	 *
 	 * @param streamName           is the name of the stream that the data needs to pushed
 	 * @param version              is the version of the stream
 	 * @param metaDataArray        - meta data that needs to pushed
 	 * @param correlationDataArray - correlation data that needs to be pushed
 	 * @param payloadDataArray     - payload data that needs to be pushed
-	 * @return
+	 * @return false if the event could not be published or spooled
 	 * @throws DataPublisherConfigurationException
 	 */
 	@Override
@@ -49,6 +55,12 @@ public class EventsPublisherServiceImpl implements EventsPublisherService {
 		DataPublisher dataPublisher = DeviceDataPublisher.getInstance().getDataPublisher();
 		if (dataPublisher != null) {
 			String streamId = DataBridgeCommonsUtils.generateStreamId(streamName, version);
+			EventSpoolManager eventSpoolManager = EventSpoolManager.getInstance();
+			if (eventSpoolManager != null) {
+				int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+				return eventSpoolManager.spool(tenantId, new SpooledEvent(streamId, System.currentTimeMillis(),
+						metaDataArray, correlationDataArray, payloadDataArray));
+			}
 			return dataPublisher.tryPublish(streamId, System.currentTimeMillis(), metaDataArray, correlationDataArray,
 											payloadDataArray);
 		} else {
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.analytics.data.publisher.spool;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.databridge.agent.DataPublisher;
+import org.wso2.carbon.device.mgt.analytics.data.publisher.DeviceDataPublisher;
+import org.wso2.carbon.device.mgt.analytics.data.publisher.exception.DataPublisherConfigurationException;
+
+import java.util.List;
+
+/**
+ * Publishes spooled events through the data publisher of their tenant. An event is not accepted when the queue of
+ * the data publisher is full, which is the case while the analytics server is unreachable.
+ */
+public class DataBridgeEventPublisher implements SpooledEventPublisher {
+
+    private static final Log log = LogFactory.getLog(DataBridgeEventPublisher.class);
+
+    @Override
+    public int publish(int tenantId, List<SpooledEvent> events) {
+        int publishedCount = 0;
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId, true);
+            DataPublisher dataPublisher = DeviceDataPublisher.getInstance().getDataPublisher();
+            if (dataPublisher == null) {
+                return 0;
+            }
+            for (SpooledEvent event : events) {
+                if (!dataPublisher.tryPublish(event.getStreamId(), event.getTimestamp(), event.getMetaData(),
+                        event.getCorrelationData(), event.getPayloadData())) {
+                    break;
+                }
+                publishedCount++;
+            }
+        } catch (DataPublisherConfigurationException e) {
+            log.error("Error occurred while retrieving the data publisher of the tenant '" + tenantId + "'", e);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+        return publishedCount;
+    }
+
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.analytics.data.publisher.spool;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Durable, append only queue of the events of a tenant, kept in a directory of memory mapped segment files.
+ * <p>
+ * Each event is written as its length followed by its encoding. The length is written after the encoding, so a
+ * length of zero marks the end of the spooled events, and a length of {@link #END_OF_SEGMENT} marks a segment which
+ * has been filled. Events are read in the order they were appended and are removed only when acknowledged, at which
+ * point the read position is written to a checkpoint file and the segments read completely are unmapped and deleted.
+ * Events which cannot be decoded are moved to quarantine files next to the segments. Since the segments are memory
+ * mapped, appended events survive a crash of the server, and are also written to the disk when the spool is
+ * {@link #force() forced}.
+ */
+public class EventSpool {
+
+    private static final Log log = LogFactory.getLog(EventSpool.class);
+
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String QUARANTINE_SUFFIX = ".quarantine";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int CHECKPOINT_SIZE = 12;
+    private static final int LENGTH_SIZE = 4;
+    private static final int END_OF_SEGMENT = -1;
+
+    private final int tenantId;
+    private final File directory;
+    private final int segmentSize;
+    private final long maxSize;
+    private final LinkedList<Segment> segments = new LinkedList<>();
+    private MappedByteBuffer checkpoint;
+    private int readPosition;
+    private long size;
+    private long eventCount;
+    private long quarantinedEventCount;
+
+    /**
+     * Opens the spool in the given directory, recovering the events spooled and not acknowledged before.
+     *
+     * @param tenantId    Tenant whose events are spooled.
+     * @param directory   Directory holding the spool files.
+     * @param segmentSize Size in bytes of each segment file.
+     * @param maxSize     Maximum number of bytes spooled.
+     * @throws IOException If the spool files cannot be created or read.
+     */
+    public EventSpool(int tenantId, File directory, int segmentSize, long maxSize) throws IOException {
+        this.tenantId = tenantId;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSize = maxSize;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the event spool directory '" + directory + "'");
+        }
+        this.recover();
+    }
+
+    public int getTenantId() {
+        return tenantId;
+    }
+
+    /**
+     * Appends an event to the spool.
+     *
+     * @return false if the event was not appended since the spool is full.
+     * @throws IOException If the event cannot be encoded, is larger than a segment or a new segment cannot be
+     *                     created.
+     */
+    public synchronized boolean append(SpooledEvent event) throws IOException {
+        byte[] bytes = event.toBytes();
+        int recordSize = LENGTH_SIZE + bytes.length;
+        if (recordSize + LENGTH_SIZE > segmentSize) {
+            throw new IOException("Event of " + bytes.length + " bytes does not fit in an event spool segment of " +
+                    segmentSize + " bytes");
+        }
+        if (size + recordSize > maxSize) {
+            return false;
+        }
+        Segment segment = segments.getLast();
+        if (segment.writePosition + recordSize + LENGTH_SIZE > segmentSize) {
+            segment.buffer.putInt(segment.writePosition, END_OF_SEGMENT);
+            segment = this.createSegment(segment.sequence + 1);
+            segments.add(segment);
+        }
+        int position = segment.writePosition;
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(position + LENGTH_SIZE);
+        buffer.put(bytes);
+        // Clearing the following length keeps a partly written event of an earlier run from being read as an
+        // event, and writing the length last keeps this event from being read before it has been written completely.
+        if (position + recordSize + LENGTH_SIZE <= segmentSize) {
+            segment.buffer.putInt(position + recordSize, 0);
+        }
+        segment.buffer.putInt(position, bytes.length);
+        segment.writePosition = position + recordSize;
+        size += recordSize;
+        eventCount++;
+        return true;
+    }
+
+    /**
+     * Reads the oldest events of the spool without removing them. An event which cannot be decoded is moved to a
+     * quarantine file in the spool directory and removed, so that it does not keep the following events from being
+     * read.
+     *
+     * @param maxEvents Maximum number of events read.
+     * @return Events in the order they were appended.
+     */
+    public synchronized List<SpooledEvent> read(int maxEvents) {
+        List<SpooledEvent> events = new ArrayList<>();
+        int segmentIndex = 0;
+        int position = readPosition;
+        while (events.size() < maxEvents && segmentIndex < segments.size()) {
+            Segment segment = segments.get(segmentIndex);
+            int length = segment.getLength(position);
+            if (length <= 0) {
+                segmentIndex++;
+                position = 0;
+                continue;
+            }
+            byte[] bytes = new byte[length];
+            ByteBuffer buffer = segment.buffer.duplicate();
+            buffer.position(position + LENGTH_SIZE);
+            buffer.get(bytes);
+            try {
+                events.add(SpooledEvent.fromBytes(bytes));
+            } catch (IOException | RuntimeException e) {
+                if (!events.isEmpty()) {
+                    // The event can only be removed once the events read before it have been acknowledged
+                    break;
+                }
+                this.quarantine(segment.sequence, position, bytes, e);
+                this.acknowledge(1);
+                segmentIndex = 0;
+                position = readPosition;
+                continue;
+            }
+            position += LENGTH_SIZE + length;
+        }
+        return events;
+    }
+
+    /**
+     * Removes the given number of the oldest events from the spool, deleting the segments which have been read
+     * completely.
+     *
+     * @param count Number of events to be removed.
+     */
+    public synchronized void acknowledge(int count) {
+        int removed = 0;
+        while (true) {
+            Segment segment = segments.getFirst();
+            int length = segment.getLength(readPosition);
+            if (length <= 0) {
+                if (segments.size() == 1) {
+                    break;
+                }
+                segments.removeFirst();
+                this.deleteSegment(segment);
+                readPosition = 0;
+                continue;
+            }
+            if (removed == count) {
+                break;
+            }
+            readPosition += LENGTH_SIZE + length;
+            size -= LENGTH_SIZE + length;
+            eventCount--;
+            removed++;
+        }
+        this.writeCheckpoint();
+    }
+
+    /**
+     * @return Number of events which could not be decoded and have been moved to quarantine files.
+     */
+    public synchronized long getQuarantinedEventCount() {
+        return quarantinedEventCount;
+    }
+
+    /**
+     * @return Time at which the oldest spooled event was published, or 0 if the spool is empty.
+     */
+    public synchronized long getOldestEventTime() {
+        int position = readPosition;
+        for (Segment segment : segments) {
+            int length = segment.getLength(position);
+            if (length > 0) {
+                return segment.buffer.getLong(position + LENGTH_SIZE);
+            }
+            position = 0;
+        }
+        return 0;
+    }
+
+    /**
+     * @return Number of bytes spooled.
+     */
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized long getEventCount() {
+        return eventCount;
+    }
+
+    /**
+     * Writes the spooled events and the read position to the disk.
+     */
+    public synchronized void force() {
+        for (Segment segment : segments) {
+            segment.buffer.force();
+        }
+        checkpoint.force();
+    }
+
+    private void recover() throws IOException {
+        File[] segmentFiles = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SEGMENT_SUFFIX);
+            }
+        });
+        List<Long> sequences = new ArrayList<>();
+        if (segmentFiles != null) {
+            for (File segmentFile : segmentFiles) {
+                String name = segmentFile.getName();
+                try {
+                    sequences.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring the unknown file '" + segmentFile + "' in the event spool directory");
+                }
+            }
+        }
+        Collections.sort(sequences);
+
+        checkpoint = map(new File(directory, CHECKPOINT_FILE), CHECKPOINT_SIZE);
+        long checkpointSequence = checkpoint.getLong(0);
+        int checkpointPosition = checkpoint.getInt(8);
+        for (long sequence : sequences) {
+            if (sequence < checkpointSequence) {
+                this.deleteSegment(new Segment(sequence, null));
+            } else {
+                segments.add(this.createSegment(sequence));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.add(this.createSegment(checkpointSequence));
+        }
+        readPosition = segments.getFirst().sequence == checkpointSequence ? checkpointPosition : 0;
+
+        int position = readPosition;
+        for (Segment segment : segments) {
+            int length = segment.getLength(position);
+            while (length > 0) {
+                position += LENGTH_SIZE + length;
+                size += LENGTH_SIZE + length;
+                eventCount++;
+                length = segment.getLength(position);
+            }
+            segment.writePosition = position;
+            position = 0;
+        }
+        if (eventCount > 0) {
+            log.info("Recovered " + eventCount + " spooled analytics events of the tenant '" + tenantId + "'");
+        }
+    }
+
+    private void writeCheckpoint() {
+        checkpoint.putLong(0, segments.getFirst().sequence);
+        checkpoint.putInt(8, readPosition);
+    }
+
+    private Segment createSegment(long sequence) throws IOException {
+        return new Segment(sequence, map(this.getSegmentFile(sequence), segmentSize));
+    }
+
+    private void quarantine(long sequence, int position, byte[] bytes, Exception cause) {
+        File quarantineFile = new File(directory, String.format("%020d", sequence) + "-" + position +
+                QUARANTINE_SUFFIX);
+        quarantinedEventCount++;
+        try (FileOutputStream out = new FileOutputStream(quarantineFile)) {
+            out.write(bytes);
+            log.error("Moved an analytics event of the tenant '" + tenantId + "' which cannot be decoded to '" +
+                    quarantineFile + "'", cause);
+        } catch (IOException e) {
+            log.error("Dropping an analytics event of the tenant '" + tenantId + "' which cannot be decoded, since " +
+                    "it cannot be written to '" + quarantineFile + "'", cause);
+        }
+    }
+
+    private void deleteSegment(Segment segment) {
+        if (segment.buffer != null) {
+            unmap(segment.buffer);
+        }
+        File segmentFile = this.getSegmentFile(segment.sequence);
+        if (!segmentFile.delete()) {
+            // A segment which is still mapped cannot be deleted on some platforms.
+            segmentFile.deleteOnExit();
+        }
+    }
+
+    private File getSegmentFile(long sequence) {
+        return new File(directory, String.format("%020d", sequence) + SEGMENT_SUFFIX);
+    }
+
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Releases the memory mapping of a buffer which is no longer used, rather than leaving it to the garbage
+     * collector, so that the file of a deleted segment does not keep occupying the disk and the address space.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            // Java 9 and later
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            invokeCleaner.invoke(theUnsafe.get(null), buffer);
+            return;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // Not available before Java 9
+        }
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Unable to unmap an event spool segment, hence it is left to the garbage collector", e);
+            }
+        }
+    }
+
+    private static class Segment {
+
+        private final long sequence;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        Segment(long sequence, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.buffer = buffer;
+        }
+
+        /**
+         * @return Length of the event at the position, 0 if there is no event at the position, or
+         * {@link #END_OF_SEGMENT} if the segment has been filled.
+         */
+        int getLength(int position) {
+            if (position + LENGTH_SIZE > buffer.capacity()) {
+                return END_OF_SEGMENT;
+            }
+            int length = buffer.getInt(position);
+            if (length > buffer.capacity() - position - LENGTH_SIZE) {
+                return END_OF_SEGMENT;
+            }
+            return length;
+        }
+    }
+
+}
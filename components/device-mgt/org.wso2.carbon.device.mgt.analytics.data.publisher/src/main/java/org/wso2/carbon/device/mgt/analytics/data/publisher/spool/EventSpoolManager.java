@@ -0,0 +1,329 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.analytics.data.publisher.spool;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.analytics.data.publisher.config.EventSpoolConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the published events in a durable {@link EventSpool} per tenant and drains the spools into a
+ * {@link SpooledEventPublisher} from a single background thread. Events are therefore not lost while the analytics
+ * server is slow or unreachable, and are published in the order they were spooled once it accepts them again.
+ * <p>
+ * Each tenant spool is bounded on its own, so a tenant which publishes faster than the server accepts is pushed
+ * back without affecting the other tenants. The spools are drained one batch at a time in turn, so a large backlog
+ * of a tenant does not hold back the events of the others either.
+ */
+public class EventSpoolManager implements EventSpoolStatisticsMBean {
+
+    private static final Log log = LogFactory.getLog(EventSpoolManager.class);
+    private static final long SHUTDOWN_TIMEOUT = 30;
+    private static volatile EventSpoolManager eventSpoolManager;
+
+    private final File directory;
+    private final int segmentSize;
+    private final long maxTenantSpoolSize;
+    private final int batchSize;
+    private final long drainInterval;
+    private final SpooledEventPublisher publisher;
+    private final Map<Integer, EventSpool> spools = new ConcurrentHashMap<>();
+    private ScheduledExecutorService drainExecutor;
+    private volatile boolean shutdown;
+
+    private final AtomicLong acceptedEventCount = new AtomicLong();
+    private final AtomicLong rejectedEventCount = new AtomicLong();
+    private final AtomicLong publishedEventCount = new AtomicLong();
+    private final AtomicLong batchCount = new AtomicLong();
+
+    public EventSpoolManager(EventSpoolConfiguration config, SpooledEventPublisher publisher) {
+        this.directory = new File(config.getDirectory());
+        this.segmentSize = config.getSegmentSize();
+        this.maxTenantSpoolSize = config.getMaxTenantSpoolSize();
+        this.batchSize = config.getBatchSize();
+        this.drainInterval = config.getDrainInterval();
+        this.publisher = publisher;
+    }
+
+    /**
+     * Starts the spool manager used by the events publisher service.
+     */
+    public static synchronized EventSpoolManager init(EventSpoolConfiguration config,
+                                                      SpooledEventPublisher publisher) throws IOException {
+        if (eventSpoolManager == null) {
+            EventSpoolManager spoolManager = new EventSpoolManager(config, publisher);
+            spoolManager.start();
+            eventSpoolManager = spoolManager;
+        }
+        return eventSpoolManager;
+    }
+
+    /**
+     * @return The spool manager used by the events publisher service, or null if events are not spooled.
+     */
+    public static EventSpoolManager getInstance() {
+        return eventSpoolManager;
+    }
+
+    public static synchronized void destroy() {
+        if (eventSpoolManager != null) {
+            eventSpoolManager.shutdown();
+            eventSpoolManager = null;
+        }
+    }
+
+    /**
+     * Opens the spools left by an earlier run, so that their events are published, and starts draining.
+     *
+     * @throws IOException If a spool cannot be opened.
+     */
+    public void start() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the event spool directory '" + directory + "'");
+        }
+        File[] tenantDirectories = directory.listFiles();
+        if (tenantDirectories != null) {
+            for (File tenantDirectory : tenantDirectories) {
+                if (!tenantDirectory.isDirectory()) {
+                    continue;
+                }
+                try {
+                    this.getSpool(Integer.parseInt(tenantDirectory.getName()));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring the unknown directory '" + tenantDirectory + "' in the event spool directory");
+                }
+            }
+        }
+        drainExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "AnalyticsEventSpoolDrainer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        drainExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    drain();
+                } catch (RuntimeException e) {
+                    log.error("Error occurred while draining the analytics event spool", e);
+                }
+            }
+        }, drainInterval, drainInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops draining and writes the spooled events to the disk. Events which have not been published yet are
+     * published when the spools are opened again.
+     */
+    public void shutdown() {
+        shutdown = true;
+        if (drainExecutor != null) {
+            drainExecutor.shutdown();
+            try {
+                if (!drainExecutor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                    drainExecutor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (EventSpool spool : spools.values()) {
+            spool.force();
+        }
+        long spooledEventCount = this.getSpooledEventCount();
+        if (spooledEventCount > 0) {
+            log.info(spooledEventCount + " spooled analytics events will be published after the restart");
+        }
+    }
+
+    /**
+     * Spools an event of a tenant to be published.
+     *
+     * @return false if the event was not spooled since the spool of the tenant is full or cannot be written.
+     */
+    public boolean spool(int tenantId, SpooledEvent event) {
+        try {
+            if (this.getSpool(tenantId).append(event)) {
+                acceptedEventCount.incrementAndGet();
+                return true;
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Analytics event spool of the tenant '" + tenantId + "' is full, hence an event of the " +
+                        "stream '" + event.getStreamId() + "' is rejected");
+            }
+        } catch (IOException e) {
+            log.error("Error occurred while spooling an event of the stream '" + event.getStreamId() + "'", e);
+        }
+        rejectedEventCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Publishes the spooled events, a batch of each tenant in turn, until all the spools are empty or the publisher
+     * stops accepting events.
+     */
+    public synchronized void drain() {
+        boolean pending = true;
+        while (pending && !shutdown) {
+            pending = false;
+            for (EventSpool spool : spools.values()) {
+                if (this.drain(spool)) {
+                    pending = true;
+                }
+            }
+        }
+        for (EventSpool spool : spools.values()) {
+            spool.force();
+        }
+    }
+
+    /**
+     * @return true if a whole batch was published and there are more events in the spool.
+     */
+    private boolean drain(EventSpool spool) {
+        List<SpooledEvent> events = spool.read(batchSize);
+        if (events.isEmpty()) {
+            return false;
+        }
+        int publishedCount = publisher.publish(spool.getTenantId(), events);
+        spool.acknowledge(publishedCount);
+        batchCount.incrementAndGet();
+        publishedEventCount.addAndGet(publishedCount);
+        if (log.isDebugEnabled()) {
+            log.debug("Published " + publishedCount + " of a batch of " + events.size() + " spooled analytics " +
+                    "events of the tenant '" + spool.getTenantId() + "'");
+        }
+        return publishedCount == events.size() && spool.getEventCount() > 0;
+    }
+
+    private EventSpool getSpool(int tenantId) throws IOException {
+        EventSpool spool = spools.get(tenantId);
+        if (spool == null) {
+            synchronized (spools) {
+                spool = spools.get(tenantId);
+                if (spool == null) {
+                    spool = new EventSpool(tenantId, new File(directory, String.valueOf(tenantId)), segmentSize,
+                            maxTenantSpoolSize);
+                    spools.put(tenantId, spool);
+                }
+            }
+        }
+        return spool;
+    }
+
+    @Override
+    public int getTenantCount() {
+        return spools.size();
+    }
+
+    @Override
+    public long getSpoolSize() {
+        long size = 0;
+        for (EventSpool spool : spools.values()) {
+            size += spool.getSize();
+        }
+        return size;
+    }
+
+    @Override
+    public long getSpooledEventCount() {
+        long count = 0;
+        for (EventSpool spool : spools.values()) {
+            count += spool.getEventCount();
+        }
+        return count;
+    }
+
+    /**
+     * @return Age in milliseconds of the oldest spooled event of all the tenants.
+     */
+    @Override
+    public long getLag() {
+        long now = System.currentTimeMillis();
+        long lag = 0;
+        for (EventSpool spool : spools.values()) {
+            long oldestEventTime = spool.getOldestEventTime();
+            if (oldestEventTime > 0) {
+                lag = Math.max(lag, now - oldestEventTime);
+            }
+        }
+        return lag;
+    }
+
+    @Override
+    public long getAcceptedEventCount() {
+        return acceptedEventCount.get();
+    }
+
+    @Override
+    public long getRejectedEventCount() {
+        return rejectedEventCount.get();
+    }
+
+    @Override
+    public long getPublishedEventCount() {
+        return publishedEventCount.get();
+    }
+
+    @Override
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    /**
+     * @return Number of spooled events which could not be decoded and have been moved to quarantine files since the
+     * spools were opened.
+     */
+    @Override
+    public long getQuarantinedEventCount() {
+        long count = 0;
+        for (EventSpool spool : spools.values()) {
+            count += spool.getQuarantinedEventCount();
+        }
+        return count;
+    }
+
+    @Override
+    public double getAverageBatchSize() {
+        long count = batchCount.get();
+        return count > 0 ? (double) publishedEventCount.get() / count : 0;
+    }
+
+    @Override
+    public void resetStatistics() {
+        acceptedEventCount.set(0);
+        rejectedEventCount.set(0);
+        publishedEventCount.set(0);
+        batchCount.set(0);
+    }
+
+}
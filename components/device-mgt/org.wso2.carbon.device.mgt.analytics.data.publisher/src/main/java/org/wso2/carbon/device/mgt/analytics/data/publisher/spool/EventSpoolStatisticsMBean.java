@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.analytics.data.publisher.spool;
+
+/**
+ * Management interface exposing the analytics event spool statistics over JMX.
+ */
+public interface EventSpoolStatisticsMBean {
+
+    int getTenantCount();
+
+    long getSpoolSize();
+
+    long getSpooledEventCount();
+
+    long getLag();
+
+    long getAcceptedEventCount();
+
+    long getRejectedEventCount();
+
+    long getPublishedEventCount();
+
+    long getBatchCount();
+
+    long getQuarantinedEventCount();
+
+    double getAverageBatchSize();
+
+    void resetStatistics();
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.analytics.data.publisher.spool;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Event kept in an {@link EventSpool} until it is accepted by the analytics server. Event attributes are stored
+ * with the types supported by the data bridge, and any other attribute is stored as its string value.
+ */
+public class SpooledEvent {
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte INT = 2;
+    private static final byte LONG = 3;
+    private static final byte FLOAT = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte BOOL = 6;
+
+    private final String streamId;
+    private final long timestamp;
+    private final Object[] metaData;
+    private final Object[] correlationData;
+    private final Object[] payloadData;
+
+    public SpooledEvent(String streamId, long timestamp, Object[] metaData, Object[] correlationData,
+                        Object[] payloadData) {
+        this.streamId = streamId;
+        this.timestamp = timestamp;
+        this.metaData = metaData;
+        this.correlationData = correlationData;
+        this.payloadData = payloadData;
+    }
+
+    public String getStreamId() {
+        return streamId;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Object[] getMetaData() {
+        return metaData;
+    }
+
+    public Object[] getCorrelationData() {
+        return correlationData;
+    }
+
+    public Object[] getPayloadData() {
+        return payloadData;
+    }
+
+    /**
+     * Encodes the event. The encoding starts with the timestamp, so that the age of a spooled event can be read
+     * without decoding it.
+     */
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(timestamp);
+        writeString(out, streamId);
+        writeAttributes(out, metaData);
+        writeAttributes(out, correlationData);
+        writeAttributes(out, payloadData);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static SpooledEvent fromBytes(byte[] bytes) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        long timestamp = in.readLong();
+        String streamId = readString(in);
+        Object[] metaData = readAttributes(in);
+        Object[] correlationData = readAttributes(in);
+        Object[] payloadData = readAttributes(in);
+        return new SpooledEvent(streamId, timestamp, metaData, correlationData, payloadData);
+    }
+
+    private static void writeAttributes(DataOutputStream out, Object[] attributes) throws IOException {
+        if (attributes == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(attributes.length);
+        for (Object attribute : attributes) {
+            if (attribute == null) {
+                out.writeByte(NULL);
+            } else if (attribute instanceof Integer) {
+                out.writeByte(INT);
+                out.writeInt((Integer) attribute);
+            } else if (attribute instanceof Long) {
+                out.writeByte(LONG);
+                out.writeLong((Long) attribute);
+            } else if (attribute instanceof Float) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) attribute);
+            } else if (attribute instanceof Double) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) attribute);
+            } else if (attribute instanceof Boolean) {
+                out.writeByte(BOOL);
+                out.writeBoolean((Boolean) attribute);
+            } else {
+                out.writeByte(STRING);
+                writeString(out, attribute.toString());
+            }
+        }
+    }
+
+    private static Object[] readAttributes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        checkLength(in, length);
+        Object[] attributes = new Object[length];
+        for (int i = 0; i < length; i++) {
+            byte type = in.readByte();
+            switch (type) {
+                case NULL:
+                    break;
+                case STRING:
+                    attributes[i] = readString(in);
+                    break;
+                case INT:
+                    attributes[i] = in.readInt();
+                    break;
+                case LONG:
+                    attributes[i] = in.readLong();
+                    break;
+                case FLOAT:
+                    attributes[i] = in.readFloat();
+                    break;
+                case DOUBLE:
+                    attributes[i] = in.readDouble();
+                    break;
+                case BOOL:
+                    attributes[i] = in.readBoolean();
+                    break;
+                default:
+                    throw new IOException("Unknown attribute type '" + type + "' in spooled event");
+            }
+        }
+        return attributes;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        checkLength(in, length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Keeps a corrupted length from allocating more than the remaining encoding, since every element takes at least
+     * a byte.
+     */
+    private static void checkLength(DataInputStream in, int length) throws IOException {
+        if (length > in.available()) {
+            throw new IOException("Encoded length " + length + " exceeds the remaining " + in.available() +
+                    " bytes of the event");
+        }
+    }
+
+}
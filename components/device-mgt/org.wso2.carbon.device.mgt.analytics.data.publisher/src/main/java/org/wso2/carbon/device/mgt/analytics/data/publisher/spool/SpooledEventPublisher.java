@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.analytics.data.publisher.spool;
+
+import java.util.List;
+
+/**
+ * Publishes the events drained from an {@link EventSpool} to the analytics server.
+ */
+public interface SpooledEventPublisher {
+
+    /**
+     * Publishes the given events of a tenant in order, stopping at the first event which is not accepted.
+     *
+     * @param tenantId Tenant whose events are published.
+     * @param events   Events to be published.
+     * @return Number of events accepted, all of which precede the events which were not accepted.
+     */
+    int publish(int tenantId, List<SpooledEvent> events);
+
+}
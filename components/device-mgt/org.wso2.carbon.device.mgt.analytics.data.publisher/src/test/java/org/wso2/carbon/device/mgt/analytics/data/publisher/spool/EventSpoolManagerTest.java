@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.analytics.data.publisher.spool;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.analytics.data.publisher.config.EventSpoolConfiguration;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventSpoolManagerTest {
+
+    private static final String STREAM_ID = "org.wso2.iot.LocationStream:1.0.0";
+    private static final int TENANT_ID = -1234;
+    private static final int OTHER_TENANT_ID = 1;
+
+    private File directory;
+    private StubEventReceiver receiver;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = File.createTempFile("event-spool", "");
+        Assert.assertTrue(directory.delete());
+        receiver = new StubEventReceiver();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        delete(directory);
+    }
+
+    @Test
+    public void testEventsAreReplayedInOrderAfterOutage() throws IOException {
+        EventSpoolManager spoolManager = this.createSpoolManager(256, 1024 * 1024);
+        receiver.available = false;
+        for (int i = 0; i < 50; i++) {
+            Assert.assertTrue(spoolManager.spool(TENANT_ID, createEvent(i)));
+        }
+        spoolManager.drain();
+        Assert.assertEquals(spoolManager.getSpooledEventCount(), 50);
+        Assert.assertTrue(spoolManager.getSpoolSize() > 0);
+        Assert.assertTrue(spoolManager.getLag() > 0, "Lag of the undelivered events is not reported");
+
+        receiver.available = true;
+        spoolManager.drain();
+        assertReceivedInOrder(receiver.events, 0, 50);
+        Assert.assertEquals(spoolManager.getSpooledEventCount(), 0);
+        Assert.assertEquals(spoolManager.getSpoolSize(), 0);
+        Assert.assertEquals(spoolManager.getLag(), 0);
+        Assert.assertEquals(spoolManager.getPublishedEventCount(), 50);
+        spoolManager.shutdown();
+    }
+
+    @Test
+    public void testPartiallyAcceptedBatchesAreResumed() throws IOException {
+        EventSpoolManager spoolManager = this.createSpoolManager(1024, 1024 * 1024);
+        for (int i = 0; i < 20; i++) {
+            spoolManager.spool(TENANT_ID, createEvent(i));
+        }
+        receiver.capacity = 7;
+        spoolManager.drain();
+        Assert.assertEquals(receiver.events.size(), 7);
+        Assert.assertEquals(spoolManager.getSpooledEventCount(), 13);
+
+        receiver.capacity = Integer.MAX_VALUE;
+        spoolManager.drain();
+        assertReceivedInOrder(receiver.events, 0, 20);
+        spoolManager.shutdown();
+    }
+
+    @Test
+    public void testSpoolIsBoundedPerTenant() throws IOException {
+        EventSpoolManager spoolManager = this.createSpoolManager(1024, 512);
+        receiver.available = false;
+        int accepted = 0;
+        while (spoolManager.spool(TENANT_ID, createEvent(accepted))) {
+            accepted++;
+        }
+        Assert.assertTrue(accepted > 0);
+        Assert.assertEquals(spoolManager.getRejectedEventCount(), 1);
+        Assert.assertTrue(spoolManager.spool(OTHER_TENANT_ID, createEvent(0)),
+                "Events of a tenant are rejected since the spool of another tenant is full");
+
+        receiver.available = true;
+        spoolManager.drain();
+        Assert.assertTrue(spoolManager.spool(TENANT_ID, createEvent(accepted)));
+        spoolManager.shutdown();
+    }
+
+    @Test
+    public void testSpooledEventsSurviveRestart() throws IOException {
+        EventSpoolManager spoolManager = this.createSpoolManager(256, 1024 * 1024);
+        receiver.available = false;
+        for (int i = 0; i < 30; i++) {
+            spoolManager.spool(TENANT_ID, createEvent(i));
+        }
+        receiver.available = true;
+        receiver.capacity = 10;
+        spoolManager.drain();
+        spoolManager.shutdown();
+
+        StubEventReceiver restartedReceiver = new StubEventReceiver();
+        receiver = restartedReceiver;
+        EventSpoolManager restartedSpoolManager = this.createSpoolManager(256, 1024 * 1024);
+        restartedSpoolManager.start();
+        try {
+            Assert.assertEquals(restartedSpoolManager.getSpooledEventCount(), 20);
+            restartedSpoolManager.drain();
+            assertReceivedInOrder(restartedReceiver.events, 10, 30);
+        } finally {
+            restartedSpoolManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testUndecodableEventIsQuarantined() throws IOException {
+        EventSpoolManager spoolManager = this.createSpoolManager(4096, 1024 * 1024);
+        receiver.available = false;
+        for (int i = 0; i < 10; i++) {
+            spoolManager.spool(TENANT_ID, createEvent(i));
+        }
+        spoolManager.shutdown();
+
+        File tenantDirectory = new File(directory, String.valueOf(TENANT_ID));
+        File[] segmentFiles = tenantDirectory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".spool");
+            }
+        });
+        Assert.assertNotNull(segmentFiles);
+        Assert.assertEquals(segmentFiles.length, 1);
+        try (RandomAccessFile segment = new RandomAccessFile(segmentFiles[0], "rw")) {
+            int recordSize = 4 + segment.readInt();
+            // Corrupts the length of the stream id of the fourth event, which follows its length and timestamp
+            segment.seek(3 * recordSize + 4 + 8);
+            segment.writeInt(Integer.MAX_VALUE);
+        }
+
+        receiver = new StubEventReceiver();
+        EventSpoolManager restartedSpoolManager = this.createSpoolManager(4096, 1024 * 1024);
+        restartedSpoolManager.start();
+        try {
+            restartedSpoolManager.drain();
+            Assert.assertEquals(receiver.events.size(), 9, "Events following an undecodable event are not published");
+            for (int i = 0; i < 9; i++) {
+                Assert.assertEquals(receiver.events.get(i).getPayloadData()[0], i < 3 ? i : i + 1);
+            }
+            Assert.assertEquals(restartedSpoolManager.getSpooledEventCount(), 0);
+            Assert.assertEquals(restartedSpoolManager.getQuarantinedEventCount(), 1);
+            File[] quarantineFiles = tenantDirectory.listFiles(new FilenameFilter() {
+                @Override
+                public boolean accept(File dir, String name) {
+                    return name.endsWith(".quarantine");
+                }
+            });
+            Assert.assertNotNull(quarantineFiles);
+            Assert.assertEquals(quarantineFiles.length, 1, "Undecodable event is not kept in a quarantine file");
+        } finally {
+            restartedSpoolManager.shutdown();
+        }
+    }
+
+    @Test
+    public void testEventAttributesAreKept() throws IOException {
+        SpooledEvent event = new SpooledEvent(STREAM_ID, 1000L, new Object[]{"device", null},
+                null, new Object[]{1, 2L, 3.0f, 4.0d, true, "text"});
+        SpooledEvent decodedEvent = SpooledEvent.fromBytes(event.toBytes());
+        Assert.assertEquals(decodedEvent.getStreamId(), STREAM_ID);
+        Assert.assertEquals(decodedEvent.getTimestamp(), 1000L);
+        Assert.assertEquals(decodedEvent.getMetaData(), event.getMetaData());
+        Assert.assertNull(decodedEvent.getCorrelationData());
+        Assert.assertEquals(decodedEvent.getPayloadData(), event.getPayloadData());
+    }
+
+    private EventSpoolManager createSpoolManager(int segmentSize, long maxTenantSpoolSize) {
+        EventSpoolConfiguration config = new EventSpoolConfiguration();
+        config.setDirectory(directory.getAbsolutePath());
+        config.setSegmentSize(segmentSize);
+        config.setMaxTenantSpoolSize(maxTenantSpoolSize);
+        config.setBatchSize(8);
+        return new EventSpoolManager(config, receiver);
+    }
+
+    private static SpooledEvent createEvent(int sequence) {
+        return new SpooledEvent(STREAM_ID, System.currentTimeMillis() - 1, new Object[]{"device-" + sequence},
+                null, new Object[]{sequence, 6.9271, 79.8612});
+    }
+
+    private static void assertReceivedInOrder(List<SpooledEvent> events, int from, int to) {
+        Assert.assertEquals(events.size(), to - from);
+        for (int i = from; i < to; i++) {
+            Assert.assertEquals(events.get(i - from).getPayloadData()[0], i, "Events are not replayed in order");
+        }
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    /**
+     * Receiver standing in for the analytics server, which accepts a limited number of events while it is
+     * available.
+     */
+    private static class StubEventReceiver implements SpooledEventPublisher {
+
+        private final List<SpooledEvent> events = new ArrayList<>();
+        private boolean available = true;
+        private int capacity = Integer.MAX_VALUE;
+
+        @Override
+        public int publish(int tenantId, List<SpooledEvent> batch) {
+            int publishedCount = 0;
+            for (SpooledEvent event : batch) {
+                if (!available || capacity <= 0) {
+                    break;
+                }
+                events.add(event);
+                capacity--;
+                publishedCount++;
+            }
+            return publishedCount;
+        }
+    }
+
+}
@@ -28,6 +28,7 @@ import java.util.List;
 public class DeviceList extends BasePaginatedResult {
 
     private List<Device> devices = new ArrayList<>();
+    private String continuationToken;
 
     @ApiModelProperty(value = "List of devices returned")
     @JsonProperty("devices")
@@ -39,6 +40,18 @@ public class DeviceList extends BasePaginatedResult {
         this.devices = devices;
     }
 
+    @ApiModelProperty(value = "Token to be sent with the next request in order to retrieve the following page. It is "
+            + "returned only when the request carried a continuationToken, and is absent once the last page has been "
+            + "retrieved")
+    @JsonProperty("continuationToken")
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -46,7 +59,9 @@ public class DeviceList extends BasePaginatedResult {
 
         sb.append("  count: ").append(getCount()).append(",\n");
         sb.append("  devices: [").append(devices).append("\n");
-        sb.append("]}\n");
+        sb.append("],\n");
+        sb.append("  continuationToken: ").append(continuationToken).append("\n");
+        sb.append("}\n");
         return sb.toString();
     }
 
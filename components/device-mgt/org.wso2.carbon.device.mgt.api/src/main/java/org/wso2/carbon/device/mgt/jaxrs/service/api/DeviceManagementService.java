@@ -157,7 +157,15 @@ public interface DeviceManagementService {
                     required = false,
                     defaultValue = "5")
             @QueryParam("limit")
-            int limit);
+            int limit,
+            @ApiParam(
+                    name = "continuationToken",
+                    value = "The continuationToken returned with the previous page, in order to retrieve the page "
+                            + "following it instead of skipping offset devices. Provide an empty value to retrieve "
+                            + "the first page along with its continuationToken.",
+                    required = false)
+            @QueryParam("continuationToken")
+            String continuationToken);
 
 
     @GET
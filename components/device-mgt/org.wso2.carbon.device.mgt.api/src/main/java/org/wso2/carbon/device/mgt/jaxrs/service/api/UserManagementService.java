@@ -319,7 +319,8 @@ public interface UserManagementService {
             httpMethod = "GET",
             value = "Getting Details of Users",
             notes = "You are able to manage users in WSO2 EMM by adding, updating and removing users. If you wish to get the list of users registered with WSO2 EMM, you can do so "
-                    + "using this REST API",
+                    + "using this REST API. Users added or removed other than through this API may take up to 30 "
+                    + "seconds to be reflected in the list.",
             tags = "User Management")
     @ApiResponses(value = {
             @ApiResponse(
@@ -384,7 +385,8 @@ public interface UserManagementService {
             produces = MediaType.APPLICATION_JSON,
             httpMethod = "GET",
             value = "Getting the User Count",
-            notes = "Get the number of users in WSO2 EMM via this REST API.",
+            notes = "Get the number of users in WSO2 EMM via this REST API. Users added or removed other than "
+                    + "through this API may take up to 30 seconds to be reflected in the count.",
             tags = "User Management")
     @ApiResponses(value = {
             @ApiResponse(
@@ -34,6 +34,7 @@ import org.wso2.carbon.device.mgt.core.app.mgt.ApplicationManagementProviderServ
 import org.wso2.carbon.device.mgt.core.search.mgt.SearchManagerService;
 import org.wso2.carbon.device.mgt.core.search.mgt.SearchMgtException;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
 import org.wso2.carbon.device.mgt.jaxrs.beans.DeviceCompliance;
 import org.wso2.carbon.device.mgt.jaxrs.beans.DeviceList;
 import org.wso2.carbon.device.mgt.jaxrs.beans.ErrorResponse;
@@ -75,7 +76,8 @@ public class DeviceManagementServiceImpl implements DeviceManagementService {
             @QueryParam("since") String since,
             @HeaderParam("If-Modified-Since") String ifModifiedSince,
             @QueryParam("offset") int offset,
-            @QueryParam("limit") int limit) {
+            @QueryParam("limit") int limit,
+            @QueryParam("continuationToken") String continuationToken) {
         try {
 //            RequestValidationUtil.validateSelectionCriteria(type, user, roleName, ownership, status);
             RequestValidationUtil.validatePaginationParameters(offset, limit);
@@ -108,6 +110,8 @@ public class DeviceManagementServiceImpl implements DeviceManagementService {
                 RequestValidationUtil.validateStatus(status);
                 request.setStatus(status);
             }
+            RequestValidationUtil.validateContinuationToken(continuationToken);
+            request.setContinuationToken(continuationToken);
 
             // this is the user who initiates the request
             String authorizedUser = CarbonContext.getThreadLocalCarbonContext().getUsername();
@@ -176,6 +180,7 @@ public class DeviceManagementServiceImpl implements DeviceManagementService {
 
             devices.setList((List<Device>) result.getData());
             devices.setCount(result.getRecordsTotal());
+            devices.setContinuationToken(result.getContinuationToken());
             return Response.status(Response.Status.OK).entity(devices).build();
         } catch (DeviceManagementException e) {
             String msg = "Error occurred while fetching all enrolled devices";
@@ -332,6 +337,11 @@ public class DeviceManagementServiceImpl implements DeviceManagementService {
         DeviceList deviceList = new DeviceList();
         try {
             searchManagerService = DeviceMgtAPIUtils.getSearchManagerService();
+            if (limit > 0) {
+                searchContext.setOffset(offset);
+                searchContext.setLimit(limit);
+            }
+            RequestValidationUtil.validateContinuationToken(searchContext.getContinuationToken());
             devices = searchManagerService.search(searchContext);
         } catch (SearchMgtException e) {
             String msg = "Error occurred while searching for devices that matches the provided selection criteria";
@@ -340,6 +350,10 @@ public class DeviceManagementServiceImpl implements DeviceManagementService {
                     new ErrorResponse.ErrorResponseBuilder().setMessage(msg).build()).build();
         }
         deviceList.setList(devices);
+        if (searchContext.getContinuationToken() != null && searchContext.getLimit() > 0 &&
+                devices.size() == searchContext.getLimit()) {
+            deviceList.setContinuationToken(DeviceManagerUtil.getContinuationToken(devices.get(devices.size() - 1)));
+        }
         return Response.status(Response.Status.OK).entity(deviceList).build();
     }
 
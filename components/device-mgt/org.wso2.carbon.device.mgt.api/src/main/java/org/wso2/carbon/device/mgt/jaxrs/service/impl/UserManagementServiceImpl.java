@@ -22,12 +22,15 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.eclipse.wst.common.uriresolver.internal.util.URIEncoder;
+import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.device.mgt.core.service.EmailMetaInfo;
 import org.wso2.carbon.device.mgt.jaxrs.beans.*;
 import org.wso2.carbon.device.mgt.jaxrs.service.api.UserManagementService;
+import org.wso2.carbon.device.mgt.jaxrs.service.impl.util.FilteringUtil;
 import org.wso2.carbon.device.mgt.jaxrs.service.impl.util.RequestValidationUtil;
+import org.wso2.carbon.device.mgt.jaxrs.service.impl.util.UserNameIndexCache;
 import org.wso2.carbon.device.mgt.jaxrs.util.Constants;
 import org.wso2.carbon.device.mgt.jaxrs.util.CredentialManagementResponseBuilder;
 import org.wso2.carbon.device.mgt.jaxrs.util.DeviceMgtAPIUtils;
@@ -50,13 +53,15 @@ public class UserManagementServiceImpl implements UserManagementService {
 
     private static final String ROLE_EVERYONE = "Internal/everyone";
     private static final String API_BASE_PATH = "/users";
+    private static final String[] BASIC_USER_CLAIMS = {Constants.USER_CLAIM_EMAIL_ADDRESS,
+            Constants.USER_CLAIM_FIRST_NAME, Constants.USER_CLAIM_LAST_NAME};
     private static final Log log = LogFactory.getLog(UserManagementServiceImpl.class);
 
     @POST
     @Override
     public Response addUser(UserInfo userInfo) {
         try {
-            UserStoreManager userStoreManager = DeviceMgtAPIUtils.getUserStoreManager();
+            UserStoreManager userStoreManager = this.getUserStoreManager();
             if (userStoreManager.isExistingUser(userInfo.getUsername())) {
                 // if user already exists
                 if (log.isDebugEnabled()) {
@@ -77,6 +82,7 @@ public class UserManagementServiceImpl implements UserManagementService {
             // calling addUser method of carbon user api
             userStoreManager.addUser(userInfo.getUsername(), initialUserPassword,
                     userInfo.getRoles(), defaultUserClaims, null);
+            UserNameIndexCache.getInstance().invalidate(this.getTenantId());
             // Outputting debug message upon successful addition of user
             if (log.isDebugEnabled()) {
                 log.debug("User '" + userInfo.getUsername() + "' has successfully been added.");
@@ -120,7 +126,7 @@ public class UserManagementServiceImpl implements UserManagementService {
             username = domain + '/' + username;
         }
         try {
-            UserStoreManager userStoreManager = DeviceMgtAPIUtils.getUserStoreManager();
+            UserStoreManager userStoreManager = this.getUserStoreManager();
             if (!userStoreManager.isExistingUser(username)) {
                 if (log.isDebugEnabled()) {
                     log.debug("User by username: " + username + " does not exist.");
@@ -148,7 +154,7 @@ public class UserManagementServiceImpl implements UserManagementService {
             username = domain + '/' + username;
         }
         try {
-            UserStoreManager userStoreManager = DeviceMgtAPIUtils.getUserStoreManager();
+            UserStoreManager userStoreManager = this.getUserStoreManager();
             if (!userStoreManager.isExistingUser(username)) {
                 if (log.isDebugEnabled()) {
                     log.debug("User by username: " + username +
@@ -225,7 +231,7 @@ public class UserManagementServiceImpl implements UserManagementService {
             username = domain + '/' + username;
         }
         try {
-            UserStoreManager userStoreManager = DeviceMgtAPIUtils.getUserStoreManager();
+            UserStoreManager userStoreManager = this.getUserStoreManager();
             if (!userStoreManager.isExistingUser(username)) {
                 if (log.isDebugEnabled()) {
                     log.debug("User by username: " + username + " does not exist for removal.");
@@ -236,6 +242,7 @@ public class UserManagementServiceImpl implements UserManagementService {
             }
 
             userStoreManager.deleteUser(username);
+            UserNameIndexCache.getInstance().invalidate(this.getTenantId());
             if (log.isDebugEnabled()) {
                 log.debug("User '" + username + "' was successfully removed.");
             }
@@ -256,7 +263,7 @@ public class UserManagementServiceImpl implements UserManagementService {
             username = domain + '/' + username;
         }
         try {
-            UserStoreManager userStoreManager = DeviceMgtAPIUtils.getUserStoreManager();
+            UserStoreManager userStoreManager = this.getUserStoreManager();
             if (!userStoreManager.isExistingUser(username)) {
                 if (log.isDebugEnabled()) {
                     log.debug("User by username: " + username + " does not exist for role retrieval.");
@@ -288,45 +295,24 @@ public class UserManagementServiceImpl implements UserManagementService {
 
         RequestValidationUtil.validatePaginationParameters(offset, limit);
 
-        List<BasicUserInfo> userList, offsetList;
         String appliedFilter = ((filter == null) || filter.isEmpty() ? "*" : filter + "*");
-        // to get whole set of users, appliedLimit is set to -1
-        // by default, this whole set is limited to 100 - MaxUserNameListLength of user-mgt.xml
-        int appliedLimit = -1;
 
         try {
-            UserStoreManager userStoreManager = DeviceMgtAPIUtils.getUserStoreManager();
-
-            //As the listUsers function accepts limit only to accommodate offset we are passing offset + limit
-            String[] users = userStoreManager.listUsers(appliedFilter, appliedLimit);
-            userList = new ArrayList<>(users.length);
-            BasicUserInfo user;
-            for (String username : users) {
-                user = new BasicUserInfo();
-                user.setUsername(username);
-                user.setEmailAddress(getClaimValue(username, Constants.USER_CLAIM_EMAIL_ADDRESS));
-                user.setFirstname(getClaimValue(username, Constants.USER_CLAIM_FIRST_NAME));
-                user.setLastname(getClaimValue(username, Constants.USER_CLAIM_LAST_NAME));
-                userList.add(user);
-            }
-
-            int toIndex = offset + limit;
-            int listSize = userList.size();
-            int lastIndex = listSize - 1;
-
-            if (offset <= lastIndex) {
-                if (toIndex <= listSize) {
-                    offsetList = userList.subList(offset, toIndex);
-                } else {
-                    offsetList = userList.subList(offset, listSize);
-                }
-            } else {
-                offsetList = new ArrayList<>();
+            UserStoreManager userStoreManager = this.getUserStoreManager();
+
+            // the user store cannot skip users, hence the page is taken from a short lived index of the user names
+            // and only the claims of the users in the page are retrieved
+            List<String> users = UserNameIndexCache.getInstance().getUserNames(userStoreManager,
+                    this.getTenantId(), appliedFilter);
+            List<String> page = FilteringUtil.getFilteredList(users, offset, limit);
+            List<BasicUserInfo> userList = new ArrayList<>(page.size());
+            for (String username : page) {
+                userList.add(this.getBasicUserInfo(username));
             }
 
             BasicUserInfoList result = new BasicUserInfoList();
-            result.setList(offsetList);
-            result.setCount(users.length);
+            result.setList(userList);
+            result.setCount(users.size());
 
             return Response.status(Response.Status.OK).entity(result).build();
         } catch (UserStoreException e) {
@@ -346,8 +332,9 @@ public class UserManagementServiceImpl implements UserManagementService {
         }
 
         try {
-            UserStoreManager userStoreManager = DeviceMgtAPIUtils.getUserStoreManager();
-            int userCount = userStoreManager.listUsers("*", -1).length;
+            UserStoreManager userStoreManager = this.getUserStoreManager();
+            int userCount = UserNameIndexCache.getInstance().getUserNames(userStoreManager,
+                    this.getTenantId(), "*").size();
             BasicUserInfoList result = new BasicUserInfoList();
             result.setCount(userCount);
             return Response.status(Response.Status.OK).entity(result).build();
@@ -374,7 +361,7 @@ public class UserManagementServiceImpl implements UserManagementService {
         }
         List<UserInfo> userList;
         try {
-            UserStoreManager userStoreManager = DeviceMgtAPIUtils.getUserStoreManager();
+            UserStoreManager userStoreManager = this.getUserStoreManager();
             String[] users = userStoreManager.listUsers(userStoreDomain + "/*", -1);
             userList = new ArrayList<>();
             UserInfo user;
@@ -472,17 +459,33 @@ public class UserManagementServiceImpl implements UserManagementService {
         return initialUserPassword.toString();
     }
 
+    /**
+     * @return User store manager of the tenant of the request.
+     */
+    UserStoreManager getUserStoreManager() throws UserStoreException {
+        return DeviceMgtAPIUtils.getUserStoreManager();
+    }
+
+    /**
+     * @return Id of the tenant of the request.
+     */
+    int getTenantId() {
+        return CarbonContext.getThreadLocalCarbonContext().getTenantId();
+    }
+
     private BasicUserInfo getBasicUserInfo(String username) throws UserStoreException {
+        UserStoreManager userStoreManager = this.getUserStoreManager();
+        Map<String, String> claims = userStoreManager.getUserClaimValues(username, BASIC_USER_CLAIMS, null);
         BasicUserInfo userInfo = new BasicUserInfo();
         userInfo.setUsername(username);
-        userInfo.setEmailAddress(getClaimValue(username, Constants.USER_CLAIM_EMAIL_ADDRESS));
-        userInfo.setFirstname(getClaimValue(username, Constants.USER_CLAIM_FIRST_NAME));
-        userInfo.setLastname(getClaimValue(username, Constants.USER_CLAIM_LAST_NAME));
+        userInfo.setEmailAddress(claims.get(Constants.USER_CLAIM_EMAIL_ADDRESS));
+        userInfo.setFirstname(claims.get(Constants.USER_CLAIM_FIRST_NAME));
+        userInfo.setLastname(claims.get(Constants.USER_CLAIM_LAST_NAME));
         return userInfo;
     }
 
     private String getClaimValue(String username, String claimUri) throws UserStoreException {
-        UserStoreManager userStoreManager = DeviceMgtAPIUtils.getUserStoreManager();
+        UserStoreManager userStoreManager = this.getUserStoreManager();
         return userStoreManager.getUserClaimValue(username, claimUri, null);
     }
 
@@ -20,8 +20,10 @@ package org.wso2.carbon.device.mgt.jaxrs.service.impl.util;
 
 import org.wso2.carbon.device.mgt.jaxrs.beans.Scope;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.common.configuration.mgt.PlatformConfiguration;
 import org.wso2.carbon.device.mgt.common.notification.mgt.Notification;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
 import org.wso2.carbon.device.mgt.jaxrs.beans.*;
 
 import java.util.ArrayList;
@@ -345,6 +347,19 @@ public class RequestValidationUtil {
 
     }
 
+    public static void validateContinuationToken(String continuationToken) {
+        if (continuationToken == null || continuationToken.isEmpty()) {
+            return;
+        }
+        try {
+            DeviceManagerUtil.parseContinuationToken(continuationToken);
+        } catch (DeviceManagementException e) {
+            throw new InputValidationException(
+                    new ErrorResponse.ErrorResponseBuilder().setCode(400l).setMessage("Request parameter " +
+                            "continuationToken is not a token returned with a previous page.").build());
+        }
+    }
+
     public static void validateOwnerParameter(String owner) {
         if (owner == null || owner.isEmpty()) {
             throw new InputValidationException(
@@ -0,0 +1,108 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.jaxrs.service.impl.util;
+
+import org.wso2.carbon.device.mgt.core.cache.ExpiringLRUCache;
+import org.wso2.carbon.user.api.UserStoreException;
+import org.wso2.carbon.user.api.UserStoreManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Short lived cache of the sorted user names of each tenant and filter, so that paginated user listings do not have
+ * to list the whole user store for every page. The user store API does not support offsets, hence the user names
+ * are listed once and the pages are served from the cached index until it expires or users of the tenant are added
+ * or removed through the user management API. Users added or removed in any other way, such as through the
+ * management console, another node or directly in the user store, are not listed or are still listed until the index
+ * expires, which is at most 30 seconds later.
+ */
+public class UserNameIndexCache {
+
+    private static final int DEFAULT_CAPACITY = 100;
+    private static final long DEFAULT_EXPIRY_TIME = 30000;
+    private static volatile UserNameIndexCache instance;
+
+    private final ExpiringLRUCache<String, List<String>> entries;
+
+    /**
+     * @param capacity   Maximum number of user name indexes kept.
+     * @param expiryTime Time in milliseconds for which an index is kept.
+     */
+    public UserNameIndexCache(int capacity, long expiryTime) {
+        this.entries = new ExpiringLRUCache<>(capacity, expiryTime);
+    }
+
+    public static UserNameIndexCache getInstance() {
+        if (instance == null) {
+            synchronized (UserNameIndexCache.class) {
+                if (instance == null) {
+                    instance = new UserNameIndexCache(DEFAULT_CAPACITY, DEFAULT_EXPIRY_TIME);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Returns the sorted user names matching the filter, listing them from the user store only if they have not
+     * been listed recently.
+     *
+     * @param userStoreManager User store manager of the tenant.
+     * @param tenantId         Id of the tenant.
+     * @param filter           User name filter accepted by {@link UserStoreManager#listUsers(String, int)}.
+     * @return Unmodifiable, sorted list of user names.
+     * @throws UserStoreException If the user names cannot be listed.
+     */
+    public List<String> getUserNames(UserStoreManager userStoreManager, int tenantId, String filter)
+            throws UserStoreException {
+        String key = getKey(tenantId, filter);
+        List<String> cachedIndex = entries.get(key);
+        if (cachedIndex != null) {
+            return cachedIndex;
+        }
+        String[] userNames = userStoreManager.listUsers(filter, -1);
+        Arrays.sort(userNames, String.CASE_INSENSITIVE_ORDER);
+        List<String> index = Collections.unmodifiableList(Arrays.asList(userNames));
+        entries.put(key, index);
+        return index;
+    }
+
+    /**
+     * Drops the user name indexes of the tenant. This has to be called when users of the tenant are added or
+     * removed.
+     *
+     * @param tenantId Id of the tenant.
+     */
+    public void invalidate(int tenantId) {
+        final String prefix = tenantId + ":";
+        entries.removeAll(new ExpiringLRUCache.KeyFilter<String>() {
+            @Override
+            public boolean accept(String key) {
+                return key.startsWith(prefix);
+            }
+        });
+    }
+
+    private static String getKey(int tenantId, String filter) {
+        return tenantId + ":" + filter;
+    }
+
+}
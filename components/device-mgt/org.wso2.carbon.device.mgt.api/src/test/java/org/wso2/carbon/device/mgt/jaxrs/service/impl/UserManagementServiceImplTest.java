@@ -0,0 +1,149 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.jaxrs.service.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.jaxrs.beans.BasicUserInfo;
+import org.wso2.carbon.device.mgt.jaxrs.beans.BasicUserInfoList;
+import org.wso2.carbon.device.mgt.jaxrs.beans.UserInfo;
+import org.wso2.carbon.device.mgt.jaxrs.service.impl.util.TestUserStore;
+import org.wso2.carbon.device.mgt.jaxrs.service.impl.util.UserNameIndexCache;
+import org.wso2.carbon.user.api.UserStoreManager;
+
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tests the paginated user listing, which is served from the user name index of the tenant and filter, and the
+ * invalidation of the index when users are added or removed through the API.
+ */
+public class UserManagementServiceImplTest {
+
+    private static final int TENANT_ID = 7021;
+
+    private TestUserStore userStore;
+    private UserManagementServiceImpl userManagementService;
+
+    @BeforeMethod
+    public void init() {
+        UserNameIndexCache.getInstance().invalidate(TENANT_ID);
+        userStore = new TestUserStore("user-05", "user-03", "admin", "user-01", "user-04", "user-02");
+        userManagementService = new UserManagementServiceImpl() {
+            @Override
+            UserStoreManager getUserStoreManager() {
+                return userStore.getUserStoreManager();
+            }
+
+            @Override
+            int getTenantId() {
+                return TENANT_ID;
+            }
+        };
+    }
+
+    @Test
+    public void testGetUsersReturnsPageAndTotalCount() {
+        BasicUserInfoList users = this.getUsers(null, 1, 2);
+        Assert.assertEquals(this.getUserNames(users), Arrays.asList("user-01", "user-02"),
+                "Page is not taken at the offset of the sorted user names");
+        Assert.assertEquals(users.getCount(), 6, "Count is not the number of all matching users");
+        Assert.assertEquals(users.getList().get(0).getEmailAddress(), "user-01@wso2.com");
+        Assert.assertEquals(userStore.getClaimReads(), Arrays.asList("user-01", "user-02"),
+                "Claims are read for users outside the page");
+
+        users = this.getUsers("user", 3, 10);
+        Assert.assertEquals(this.getUserNames(users), Arrays.asList("user-04", "user-05"),
+                "Last page is not cut at the end of the user names");
+        Assert.assertEquals(users.getCount(), 5, "Count does not apply the filter");
+
+        users = this.getUsers("user", 10, 10);
+        Assert.assertTrue(users.getList().isEmpty(), "Users are returned for an offset past the last user");
+        Assert.assertEquals(users.getCount(), 5);
+    }
+
+    @Test
+    public void testPagesAreServedFromIndexOfTenantAndFilter() {
+        this.getUsers(null, 0, 2);
+        this.getUsers(null, 2, 2);
+        this.getUsers("", 4, 2);
+        Assert.assertEquals(userStore.getListUsersCalls(), Collections.singletonList("*"),
+                "Users are listed again for the pages of the same filter");
+
+        this.getUsers("user", 0, 2);
+        this.getUsers("user", 2, 2);
+        Assert.assertEquals(userStore.getListUsersCalls(), Arrays.asList("*", "user*"),
+                "Users are not listed once for another filter");
+    }
+
+    @Test
+    public void testAddUserInvalidatesIndex() {
+        Assert.assertEquals(this.getUsers(null, 0, 10).getCount(), 6);
+
+        UserInfo userInfo = new UserInfo();
+        userInfo.setUsername("user-00");
+        userInfo.setFirstname("First name");
+        userInfo.setLastname("Last name");
+        userInfo.setEmailAddress("user-00@wso2.com");
+        userInfo.setRoles(new String[0]);
+        Response response = userManagementService.addUser(userInfo);
+        Assert.assertEquals(response.getStatus(), Response.Status.CREATED.getStatusCode());
+
+        BasicUserInfoList users = this.getUsers(null, 0, 2);
+        Assert.assertEquals(this.getUserNames(users), Arrays.asList("admin", "user-00"),
+                "Added user is not listed");
+        Assert.assertEquals(users.getCount(), 7);
+        Assert.assertEquals(userStore.getListUsersCalls(), Arrays.asList("*", "*"),
+                "Users are not listed again after a user is added");
+    }
+
+    @Test
+    public void testRemoveUserInvalidatesIndex() {
+        Assert.assertEquals(this.getUsers("user", 0, 10).getCount(), 5);
+
+        Response response = userManagementService.removeUser("user-01", null);
+        Assert.assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+
+        BasicUserInfoList users = this.getUsers("user", 0, 2);
+        Assert.assertEquals(this.getUserNames(users), Arrays.asList("user-02", "user-03"),
+                "Removed user is still listed");
+        Assert.assertEquals(users.getCount(), 4);
+        Assert.assertEquals(userStore.getListUsersCalls(), Arrays.asList("user*", "user*"),
+                "Users are not listed again after a user is removed");
+    }
+
+    private BasicUserInfoList getUsers(String filter, int offset, int limit) {
+        Response response = userManagementService.getUsers(filter, null, offset, limit);
+        Assert.assertEquals(response.getStatus(), Response.Status.OK.getStatusCode());
+        return (BasicUserInfoList) response.getEntity();
+    }
+
+    private List<String> getUserNames(BasicUserInfoList users) {
+        List<String> userNames = new ArrayList<>();
+        for (BasicUserInfo user : users.getList()) {
+            userNames.add(user.getUsername());
+        }
+        return userNames;
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.jaxrs.service.impl.util;
+
+import org.wso2.carbon.device.mgt.jaxrs.util.Constants;
+import org.wso2.carbon.user.api.UserStoreManager;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In memory user store of a tenant. Its user store manager supports listing, adding, removing and reading the claims
+ * of users, and records the filters users are listed with and the users whose claims are read.
+ */
+public class TestUserStore {
+
+    private final Set<String> userNames = Collections.synchronizedSet(new LinkedHashSet<String>());
+    private final List<String> listUsersCalls = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> claimReads = Collections.synchronizedList(new ArrayList<String>());
+    private final UserStoreManager userStoreManager;
+
+    public TestUserStore(String... userNames) {
+        Collections.addAll(this.userNames, userNames);
+        this.userStoreManager = (UserStoreManager) Proxy.newProxyInstance(UserStoreManager.class.getClassLoader(),
+                new Class<?>[]{UserStoreManager.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        return TestUserStore.this.invoke(method, args);
+                    }
+                });
+    }
+
+    public UserStoreManager getUserStoreManager() {
+        return userStoreManager;
+    }
+
+    /**
+     * @return the filters passed to {@link UserStoreManager#listUsers(String, int)}, in call order.
+     */
+    public List<String> getListUsersCalls() {
+        return listUsersCalls;
+    }
+
+    /**
+     * @return the users whose claims have been read, in call order.
+     */
+    public List<String> getClaimReads() {
+        return claimReads;
+    }
+
+    public void reset() {
+        listUsersCalls.clear();
+        claimReads.clear();
+    }
+
+    private Object invoke(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "listUsers":
+                return this.listUsers((String) args[0]);
+            case "isExistingUser":
+                return userNames.contains(args[0]);
+            case "addUser":
+                userNames.add((String) args[0]);
+                return null;
+            case "deleteUser":
+                userNames.remove(args[0]);
+                return null;
+            case "getUserClaimValues":
+                return this.getClaims((String) args[0]);
+            case "hashCode":
+                return System.identityHashCode(this);
+            case "equals":
+                return args[0] == userStoreManager;
+            case "toString":
+                return "TestUserStore" + userNames;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private String[] listUsers(String filter) {
+        listUsersCalls.add(filter);
+        String prefix = filter.endsWith("*") ? filter.substring(0, filter.length() - 1) : filter;
+        List<String> matchingUserNames = new ArrayList<>();
+        synchronized (userNames) {
+            for (String userName : userNames) {
+                if (filter.endsWith("*") ? userName.startsWith(prefix) : userName.equals(prefix)) {
+                    matchingUserNames.add(userName);
+                }
+            }
+        }
+        return matchingUserNames.toArray(new String[matchingUserNames.size()]);
+    }
+
+    private Map<String, String> getClaims(String userName) {
+        claimReads.add(userName);
+        Map<String, String> claims = new HashMap<>();
+        claims.put(Constants.USER_CLAIM_EMAIL_ADDRESS, userName + "@wso2.com");
+        claims.put(Constants.USER_CLAIM_FIRST_NAME, "First name of " + userName);
+        claims.put(Constants.USER_CLAIM_LAST_NAME, "Last name of " + userName);
+        return claims;
+    }
+
+}
@@ -0,0 +1,96 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.jaxrs.service.impl.util;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class UserNameIndexCacheTest {
+
+    private static final int TENANT_ID = 1;
+    private static final int OTHER_TENANT_ID = 2;
+
+    private TestUserStore userStore;
+    private TestUserStore otherUserStore;
+    private UserNameIndexCache cache;
+
+    @BeforeMethod
+    public void init() {
+        userStore = new TestUserStore("kim", "Alex", "admin", "bob");
+        otherUserStore = new TestUserStore("sam");
+        cache = new UserNameIndexCache(10, 60000);
+    }
+
+    @Test
+    public void testUserNamesAreSorted() throws Exception {
+        List<String> userNames = cache.getUserNames(userStore.getUserStoreManager(), TENANT_ID, "*");
+        Assert.assertEquals(userNames, Arrays.asList("admin", "Alex", "bob", "kim"),
+                "User names are not sorted ignoring case");
+    }
+
+    @Test
+    public void testIndexIsReusedForTenantAndFilter() throws Exception {
+        List<String> userNames = cache.getUserNames(userStore.getUserStoreManager(), TENANT_ID, "a*");
+        Assert.assertSame(cache.getUserNames(userStore.getUserStoreManager(), TENANT_ID, "a*"), userNames);
+        Assert.assertEquals(userStore.getListUsersCalls(), Collections.singletonList("a*"),
+                "Users are listed again for a cached tenant and filter");
+
+        Assert.assertEquals(cache.getUserNames(userStore.getUserStoreManager(), TENANT_ID, "*").size(), 4);
+        Assert.assertEquals(cache.getUserNames(otherUserStore.getUserStoreManager(), OTHER_TENANT_ID, "a*"),
+                Collections.emptyList());
+        Assert.assertEquals(userStore.getListUsersCalls(), Arrays.asList("a*", "*"),
+                "Users are not listed for a filter without an index");
+        Assert.assertEquals(otherUserStore.getListUsersCalls(), Collections.singletonList("a*"),
+                "Index of another tenant is served for the same filter");
+    }
+
+    @Test
+    public void testInvalidateDropsOnlyIndexesOfTenant() throws Exception {
+        cache.getUserNames(userStore.getUserStoreManager(), TENANT_ID, "*");
+        cache.getUserNames(userStore.getUserStoreManager(), TENANT_ID, "a*");
+        cache.getUserNames(otherUserStore.getUserStoreManager(), OTHER_TENANT_ID, "*");
+        userStore.reset();
+        otherUserStore.reset();
+
+        cache.invalidate(TENANT_ID);
+        cache.getUserNames(userStore.getUserStoreManager(), TENANT_ID, "*");
+        cache.getUserNames(userStore.getUserStoreManager(), TENANT_ID, "a*");
+        cache.getUserNames(otherUserStore.getUserStoreManager(), OTHER_TENANT_ID, "*");
+        Assert.assertEquals(userStore.getListUsersCalls(), Arrays.asList("*", "a*"),
+                "Indexes of the invalidated tenant are still served");
+        Assert.assertTrue(otherUserStore.getListUsersCalls().isEmpty(),
+                "Indexes of another tenant are dropped");
+    }
+
+    @Test
+    public void testIndexExpires() throws Exception {
+        cache = new UserNameIndexCache(10, 50);
+        cache.getUserNames(userStore.getUserStoreManager(), TENANT_ID, "*");
+        Thread.sleep(100);
+        cache.getUserNames(userStore.getUserStoreManager(), TENANT_ID, "*");
+        Assert.assertEquals(userStore.getListUsersCalls(), Arrays.asList("*", "*"),
+                "Expired index is still served");
+    }
+
+}
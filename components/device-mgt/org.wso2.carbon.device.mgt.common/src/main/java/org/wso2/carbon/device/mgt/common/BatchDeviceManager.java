@@ -0,0 +1,39 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.common;
+
+import java.util.List;
+
+/**
+ * Device manager which is able to retrieve the metadata of many devices at once. Device lists of plugins providing
+ * such a device manager are populated in batches instead of calling {@link #getDevice(DeviceIdentifier)} for each
+ * device.
+ */
+public interface BatchDeviceManager extends DeviceManager {
+
+    /**
+     * Method to retrieve metadata of a set of devices corresponding to the particular type.
+     *
+     * @param deviceIds Fully qualified device identifiers
+     * @return Metadata of the devices which are found, each carrying its device identifier
+     * @throws DeviceManagementException If some unusual behaviour is observed obtaining the device objects
+     */
+    List<Device> getDevices(List<DeviceIdentifier> deviceIds) throws DeviceManagementException;
+
+}
@@ -23,6 +23,7 @@ import org.wso2.carbon.device.mgt.common.app.mgt.Application;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 @ApiModel(value = "Device", description = "This class carries all information related to a managed device.")
@@ -83,6 +84,39 @@ public class Device implements Serializable {
         this.properties = properties;
     }
 
+    /**
+     * Creates a copy of the given device, which shares no mutable state with it.
+     *
+     * @param device Device to be copied.
+     */
+    public Device(Device device) {
+        this.id = device.id;
+        this.name = device.name;
+        this.type = device.type;
+        this.description = device.description;
+        this.deviceIdentifier = device.deviceIdentifier;
+        this.enrolmentInfo = (device.enrolmentInfo != null) ? new EnrolmentInfo(device.enrolmentInfo) : null;
+        if (device.features != null) {
+            this.features = new ArrayList<>(device.features.size());
+            for (Feature feature : device.features) {
+                this.features.add((feature != null) ? new Feature(feature) : null);
+            }
+        }
+        if (device.properties != null) {
+            this.properties = new ArrayList<>(device.properties.size());
+            for (Property property : device.properties) {
+                this.properties.add((property != null) ? new Property(property) : null);
+            }
+        }
+        this.deviceInfo = (device.deviceInfo != null) ? new DeviceInfo(device.deviceInfo) : null;
+        if (device.applications != null) {
+            this.applications = new ArrayList<>(device.applications.size());
+            for (Application application : device.applications) {
+                this.applications.add((application != null) ? new Application(application) : null);
+            }
+        }
+    }
+
     public int getId() {
         return id;
     }
@@ -163,11 +197,21 @@ public class Device implements Serializable {
         this.applications = applications;
     }
 
-    public static class Property {
+    public static class Property implements Serializable {
+
+        private static final long serialVersionUID = 1998101718L;
 
         private String name;
         private String value;
 
+        public Property() {
+        }
+
+        public Property(Property property) {
+            this.name = property.name;
+            this.value = property.value;
+        }
+
         public String getName() {
             return name;
         }
@@ -64,6 +64,15 @@ public class EnrolmentInfo implements Serializable {
         this.status = status;
     }
 
+    public EnrolmentInfo(EnrolmentInfo enrolmentInfo) {
+        this.id = enrolmentInfo.id;
+        this.dateOfEnrolment = enrolmentInfo.dateOfEnrolment;
+        this.dateOfLastUpdate = enrolmentInfo.dateOfLastUpdate;
+        this.ownership = enrolmentInfo.ownership;
+        this.status = enrolmentInfo.status;
+        this.owner = enrolmentInfo.owner;
+    }
+
     public int getId() {
         return id;
     }
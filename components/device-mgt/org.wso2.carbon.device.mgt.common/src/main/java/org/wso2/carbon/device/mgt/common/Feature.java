@@ -19,6 +19,7 @@ package org.wso2.carbon.device.mgt.common;
 
 import javax.xml.bind.annotation.XmlElement;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 import io.swagger.annotations.*;
 
@@ -43,6 +44,28 @@ public class Feature implements Serializable {
     @ApiModelProperty(name = "metadataEntries", value = "Properties related to features.", required = true )
     private List<MetadataEntry> metadataEntries;
 
+    public Feature() {
+    }
+
+    /**
+     * Creates a copy of the given feature. The values of the metadata entries are shared with the given feature.
+     *
+     * @param feature Feature to be copied.
+     */
+    public Feature(Feature feature) {
+        this.id = feature.id;
+        this.code = feature.code;
+        this.name = feature.name;
+        this.description = feature.description;
+        this.deviceType = feature.deviceType;
+        if (feature.metadataEntries != null) {
+            this.metadataEntries = new ArrayList<>(feature.metadataEntries.size());
+            for (MetadataEntry metadataEntry : feature.metadataEntries) {
+                this.metadataEntries.add((metadataEntry != null) ? new MetadataEntry(metadataEntry) : null);
+            }
+        }
+    }
+
     @XmlElement
     public int getId() {
         return id;
@@ -101,6 +124,14 @@ public class Feature implements Serializable {
         private int id;
         private Object value;
 
+        public MetadataEntry() {
+        }
+
+        public MetadataEntry(MetadataEntry metadataEntry) {
+            this.id = metadataEntry.id;
+            this.value = metadataEntry.value;
+        }
+
         public int getId() {
             return id;
         }
@@ -33,6 +33,7 @@ public class PaginationRequest {
     private String deviceName;
     private String ownership;
     private Date since;
+    private String continuationToken;
 
     public PaginationRequest(int start, int rowCount) {
         this.startIndex = start;
@@ -103,4 +104,16 @@ public class PaginationRequest {
         this.since = since;
     }
 
+    /**
+     * @return Token returned along with the previous page, from which the next page is continued instead of skipping
+     * the start index. An empty token retrieves the first page in this mode, while null falls back to the start index.
+     */
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
 }
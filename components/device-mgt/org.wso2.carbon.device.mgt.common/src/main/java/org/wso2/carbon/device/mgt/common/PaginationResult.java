@@ -44,6 +44,9 @@ public class PaginationResult implements Serializable {
     @ApiModelProperty(name = "data", value = "This holds the database records that matches given criteria", required = true)
     private List<?> data;
 
+    @ApiModelProperty(name = "continuationToken", value = "The token to be sent with the next request in order to retrieve the following page, which is null once the last page has been retrieved")
+    private String continuationToken;
+
     public int getRecordsTotal() {
         return recordsTotal;
     }
@@ -76,4 +79,12 @@ public class PaginationResult implements Serializable {
     public void setDraw(int draw) {
         this.draw = draw;
     }
+
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
 }
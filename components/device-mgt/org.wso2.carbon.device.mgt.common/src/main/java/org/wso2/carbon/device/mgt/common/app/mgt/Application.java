@@ -54,6 +54,25 @@ public class Application implements Serializable {
     @ApiModelProperty(name = "isActive", value = "Is the application actively running", required = true)
     private boolean isActive;
 
+    public Application() {
+    }
+
+    public Application(Application application) {
+        this.id = application.id;
+        this.platform = application.platform;
+        this.category = application.category;
+        this.name = application.name;
+        this.locationUrl = application.locationUrl;
+        this.imageUrl = application.imageUrl;
+        this.version = application.version;
+        this.type = application.type;
+        if (application.appProperties != null) {
+            this.appProperties = (Properties) application.appProperties.clone();
+        }
+        this.applicationIdentifier = application.applicationIdentifier;
+        this.memoryUsage = application.memoryUsage;
+        this.isActive = application.isActive;
+    }
 
     public String getType() {
         return type;
@@ -111,6 +111,35 @@ public class DeviceInfo implements Serializable {
     @ApiModelProperty(name = "deviceDetailsMap", value = ".", required = true)
     private Map<String, String> deviceDetailsMap = new HashMap<>();
 
+    public DeviceInfo() {
+    }
+
+    public DeviceInfo(DeviceInfo deviceInfo) {
+        this.IMEI = deviceInfo.IMEI;
+        this.IMSI = deviceInfo.IMSI;
+        this.deviceModel = deviceInfo.deviceModel;
+        this.vendor = deviceInfo.vendor;
+        this.osVersion = deviceInfo.osVersion;
+        this.osBuildDate = deviceInfo.osBuildDate;
+        this.batteryLevel = deviceInfo.batteryLevel;
+        this.internalTotalMemory = deviceInfo.internalTotalMemory;
+        this.internalAvailableMemory = deviceInfo.internalAvailableMemory;
+        this.externalTotalMemory = deviceInfo.externalTotalMemory;
+        this.externalAvailableMemory = deviceInfo.externalAvailableMemory;
+        this.operator = deviceInfo.operator;
+        this.connectionType = deviceInfo.connectionType;
+        this.mobileSignalStrength = deviceInfo.mobileSignalStrength;
+        this.ssid = deviceInfo.ssid;
+        this.cpuUsage = deviceInfo.cpuUsage;
+        this.totalRAMMemory = deviceInfo.totalRAMMemory;
+        this.availableRAMMemory = deviceInfo.availableRAMMemory;
+        this.pluggedIn = deviceInfo.pluggedIn;
+        this.updatedTime = (deviceInfo.updatedTime != null) ? new Date(deviceInfo.updatedTime.getTime()) : null;
+        this.location = (deviceInfo.location != null) ? new DeviceLocation(deviceInfo.location) : null;
+        this.deviceDetailsMap = (deviceInfo.deviceDetailsMap != null) ?
+                new HashMap<>(deviceInfo.deviceDetailsMap) : null;
+    }
+
 //    public int getDeviceId() {
 //        return deviceId;
 //    }
@@ -56,6 +56,24 @@ public class DeviceLocation implements Serializable {
     @ApiModelProperty(name = "updatedTime", value = "Update time of the device.", required = true)
     private Date updatedTime;
 
+    public DeviceLocation() {
+    }
+
+    public DeviceLocation(DeviceLocation location) {
+        this.deviceId = location.deviceId;
+        this.deviceIdentifier = (location.deviceIdentifier != null) ?
+                new DeviceIdentifier(location.deviceIdentifier.getId(), location.deviceIdentifier.getType()) : null;
+        this.latitude = location.latitude;
+        this.longitude = location.longitude;
+        this.street1 = location.street1;
+        this.street2 = location.street2;
+        this.city = location.city;
+        this.state = location.state;
+        this.zip = location.zip;
+        this.country = location.country;
+        this.updatedTime = (location.updatedTime != null) ? new Date(location.updatedTime.getTime()) : null;
+    }
+
     public int getDeviceId() {
         return deviceId;
     }
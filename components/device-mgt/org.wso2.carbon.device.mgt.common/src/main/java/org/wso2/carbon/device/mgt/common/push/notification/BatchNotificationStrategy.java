@@ -0,0 +1,38 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.common.push.notification;
+
+import java.util.List;
+
+/**
+ * Notification strategy which is able to send the notifications of many devices at once. Notifications queued for
+ * such a strategy are handed over in batches instead of one by one.
+ */
+public interface BatchNotificationStrategy extends NotificationStrategy {
+
+    /**
+     * Sends a batch of notifications. Failures of individual devices which are not worth retrying are expected to be
+     * handled by the strategy itself, while an exception causes the whole batch to be retried.
+     *
+     * @param contexts notifications to be sent.
+     * @throws PushNotificationExecutionFailedException if the batch could not be sent.
+     */
+    void execute(List<NotificationContext> contexts) throws PushNotificationExecutionFailedException;
+
+}
@@ -31,6 +31,8 @@ public class NotificationContext {
 
     private Map<String, String> properties;
 
+    private String token;
+
     public NotificationContext(DeviceIdentifier deviceId) {
         this.deviceId = deviceId;
     }
@@ -52,4 +54,15 @@ public class NotificationContext {
         return operation;
     }
 
+    /**
+     * @return Push token of the device, or null if the device has not registered one.
+     */
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
 }
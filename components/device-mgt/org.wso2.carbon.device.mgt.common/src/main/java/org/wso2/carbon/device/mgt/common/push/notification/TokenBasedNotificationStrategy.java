@@ -0,0 +1,33 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.common.push.notification;
+
+/**
+ * Notification strategy which addresses devices by a push token registered by the device. The token is read from
+ * the device property named by {@link #getTokenProperty()} whenever a device is enrolled or its enrolment is
+ * modified, and is kept in the push token registry so that notification contexts carry the token of the device.
+ */
+public interface TokenBasedNotificationStrategy extends NotificationStrategy {
+
+    /**
+     * @return Name of the device property holding the push token.
+     */
+    String getTokenProperty();
+
+}
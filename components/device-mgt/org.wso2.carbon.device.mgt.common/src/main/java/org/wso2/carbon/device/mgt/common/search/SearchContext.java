@@ -31,8 +31,19 @@ public class SearchContext {
     @ApiModelProperty(name = "conditions", value = "Contains the advance search parameters.",
                       required = true)
     private List<Condition> conditions;
-//    private int start;
-//    private int end;
+
+    @ApiModelProperty(name = "offset", value = "The starting pagination index for the complete list of matching "
+                                              + "devices. Ignored when a continuation token is provided.")
+    private int offset;
+
+    @ApiModelProperty(name = "limit", value = "Maximum number of devices to return. All the matching devices are "
+                                             + "returned when the limit is not provided.")
+    private int limit;
+
+    @ApiModelProperty(name = "continuationToken", value = "Token returned along with the previous page of the search "
+                                                         + "results. When provided, the search resumes right after "
+                                                         + "the last device of that page.")
+    private String continuationToken;
 
     public List<Condition> getConditions() {
         return conditions;
@@ -42,20 +53,27 @@ public class SearchContext {
         this.conditions = conditions;
     }
 
-//    public int getStart() {
-//        return start;
-//    }
-//
-//    public void setStart(int start) {
-//        this.start = start;
-//    }
-//
-//    public int getEnd() {
-//        return end;
-//    }
-//
-//    public void setEnd(int end) {
-//        this.end = end;
-//    }
-}
+    public int getOffset() {
+        return offset;
+    }
+
+    public void setOffset(int offset) {
+        this.offset = offset;
+    }
 
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public String getContinuationToken() {
+        return continuationToken;
+    }
+
+    public void setContinuationToken(String continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+}
@@ -42,6 +42,32 @@ public final class DeviceManagementConstants {
 		public final static String OAUTH_ADMIN_SERVICE = "/services/OAuthAdminService";
 	}
 
+    public static final class DeviceCache {
+        private DeviceCache() {
+            throw new AssertionError();
+        }
+
+        public static final String STATISTICS_MBEAN_NAME = "org.wso2.carbon.device.mgt:type=DeviceCacheStatistics";
+    }
+
+    public static final class CheckInUpdates {
+        private CheckInUpdates() {
+            throw new AssertionError();
+        }
+
+        public static final String STATISTICS_MBEAN_NAME =
+                "org.wso2.carbon.device.mgt:type=CheckInUpdateBufferStatistics";
+    }
+
+    public static final class PushNotifications {
+        private PushNotifications() {
+            throw new AssertionError();
+        }
+
+        public static final String STATISTICS_MBEAN_NAME =
+                "org.wso2.carbon.device.mgt:type=PushNotificationDispatcherStatistics";
+    }
+
     public static final class EmailNotifications {
         private EmailNotifications() {
             throw new AssertionError();
@@ -27,6 +27,7 @@ import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManager;
 import org.wso2.carbon.device.mgt.common.push.notification.NotificationStrategy;
 import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationConfig;
 import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationProvider;
+import org.wso2.carbon.device.mgt.common.push.notification.TokenBasedNotificationStrategy;
 import org.wso2.carbon.device.mgt.common.spi.DeviceManagementService;
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagementServiceComponent;
@@ -169,6 +170,22 @@ public class DeviceManagementPluginRepository implements DeviceManagerStartupLis
         return operationManager;
     }
 
+    /**
+     * @return Name of the device property holding the push token of the devices of the given type, or null if the
+     * push notification strategy of the device type does not address devices by push tokens.
+     */
+    public String getPushTokenProperty(String deviceType, int tenantId) {
+        OperationManager operationManager = this.getOperationManager(deviceType, tenantId);
+        if (operationManager instanceof OperationManagerImpl) {
+            NotificationStrategy notificationStrategy =
+                    ((OperationManagerImpl) operationManager).getNotificationStrategy();
+            if (notificationStrategy instanceof TokenBasedNotificationStrategy) {
+                return ((TokenBasedNotificationStrategy) notificationStrategy).getTokenProperty();
+            }
+        }
+        return null;
+    }
+
     @Override
     public void notifyObserver() {
         String deviceTypeName;
@@ -28,6 +28,7 @@ import org.wso2.carbon.device.mgt.common.operation.mgt.Activity;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementException;
 import org.wso2.carbon.device.mgt.core.app.mgt.config.AppManagementConfig;
+import org.wso2.carbon.device.mgt.core.cache.impl.DeviceCacheManagerImpl;
 import org.wso2.carbon.device.mgt.core.dao.*;
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
 
@@ -189,8 +190,8 @@ public class ApplicationManagerProviderServiceImpl implements ApplicationManagem
             DeviceIdentifier deviceIdentifier,
             List<Application> applications) throws ApplicationManagementException {
         List<Application> installedAppList = getApplicationListForDevice(deviceIdentifier);
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
         try {
-            int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
             DeviceManagementDAOFactory.beginTransaction();
             Device device = deviceDAO.getDevice(deviceIdentifier, tenantId);
 
@@ -249,6 +250,7 @@ public class ApplicationManagerProviderServiceImpl implements ApplicationManagem
             throw new ApplicationManagementException("Error occurred while initializing transaction", e);
         } finally {
             DeviceManagementDAOFactory.closeConnection();
+            DeviceCacheManagerImpl.getInstance().removeDeviceFromCache(deviceIdentifier, tenantId);
         }
     }
 
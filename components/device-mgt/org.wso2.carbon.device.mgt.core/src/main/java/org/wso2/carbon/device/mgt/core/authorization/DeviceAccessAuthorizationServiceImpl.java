@@ -28,19 +28,22 @@ import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
 import org.wso2.carbon.device.mgt.common.authorization.DeviceAccessAuthorizationException;
 import org.wso2.carbon.device.mgt.common.authorization.DeviceAccessAuthorizationService;
 import org.wso2.carbon.device.mgt.common.authorization.DeviceAuthorizationResult;
-import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
 import org.wso2.carbon.device.mgt.common.group.mgt.GroupManagementException;
 import org.wso2.carbon.device.mgt.common.permission.mgt.Permission;
 import org.wso2.carbon.device.mgt.common.permission.mgt.PermissionManagementException;
+import org.wso2.carbon.device.mgt.core.cache.ExpiringLRUCache;
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
 import org.wso2.carbon.device.mgt.core.permission.mgt.PermissionUtils;
 import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Implementation of DeviceAccessAuthorization service.
@@ -49,8 +52,17 @@ public class DeviceAccessAuthorizationServiceImpl implements DeviceAccessAuthori
 
     private final static String CDM_ADMIN_PERMISSION = "/device-mgt/devices/any-device/permitted-actions-under-owning-device";
     private final static String CDM_ADMIN = "Device Management Administrator";
+    private final static long DECISION_CACHE_TTL = 30000;
+    private final static int DECISION_CACHE_CAPACITY = 10000;
     private static Log log = LogFactory.getLog(DeviceAccessAuthorizationServiceImpl.class);
 
+    // Short lived caches of the authorization decisions of users. Entries expire after DECISION_CACHE_TTL
+    // milliseconds, so that changes to the permissions of a user take effect shortly.
+    private final ExpiringLRUCache<String, Boolean> adminDecisionCache =
+            new ExpiringLRUCache<>(DECISION_CACHE_CAPACITY, DECISION_CACHE_TTL);
+    private final ExpiringLRUCache<String, List<Integer>> groupDecisionCache =
+            new ExpiringLRUCache<>(DECISION_CACHE_CAPACITY, DECISION_CACHE_TTL);
+
     public DeviceAccessAuthorizationServiceImpl() {
         try {
             this.addAdminPermissionToRegistry();
@@ -71,18 +83,25 @@ public class DeviceAccessAuthorizationServiceImpl implements DeviceAccessAuthori
             return true;
         }
         //check for group permissions
+        if (groupPermissions == null || groupPermissions.length == 0) {
+            return false;
+        }
         try {
-            if (groupPermissions == null || groupPermissions.length == 0) {
+            List<Integer> groupsWithDevice = DeviceManagementDataHolder.getInstance()
+                    .getGroupManagementProviderService().getGroupIds(Collections.singletonList(deviceIdentifier))
+                    .get(deviceIdentifier);
+            if (groupsWithDevice == null) {
                 return false;
             }
             for (String groupPermission : groupPermissions) {
-                if (!isAuthorizedViaGroup(username, deviceIdentifier, groupPermission)) {
+                if (Collections.disjoint(getAuthorizedGroupIds(username, tenantId, groupPermission),
+                                         groupsWithDevice)) {
                     //if at least one fails, authorization fails
                     return false;
                 }
             }
             return true;
-        } catch (GroupManagementException | UserStoreException e) {
+        } catch (GroupManagementException e) {
             throw new DeviceAccessAuthorizationException("Unable to authorize the access to device : " +
                                                          deviceIdentifier.getId() + " for the user : " +
                                                          username, e);
@@ -118,46 +137,80 @@ public class DeviceAccessAuthorizationServiceImpl implements DeviceAccessAuthori
         }
     }
 
+    /**
+     * Authorizes the access to many devices at once. The admin permission is checked once for the whole list,
+     * ownership of all the devices is resolved in bulk, and the groups permitted to the user are intersected with
+     * the groups of the devices loaded in bulk.
+     */
     @Override
     public DeviceAuthorizationResult isUserAuthorized(List<DeviceIdentifier> deviceIdentifiers, String username,
                                                       String[] groupPermissions)
             throws DeviceAccessAuthorizationException {
         int tenantId = this.getTenantId();
+        DeviceAuthorizationResult deviceAuthorizationResult = new DeviceAuthorizationResult();
         if (username == null || username.isEmpty()) {
-            return null;
+            for (DeviceIdentifier deviceIdentifier : deviceIdentifiers) {
+                if (DeviceManagementDataHolder.getInstance().requireDeviceAuthorization(deviceIdentifier.getType())) {
+                    deviceAuthorizationResult.addUnauthorizedDevice(deviceIdentifier);
+                } else {
+                    deviceAuthorizationResult.addAuthorizedDevice(deviceIdentifier);
+                }
+            }
+            return deviceAuthorizationResult;
         }
-        DeviceAuthorizationResult deviceAuthorizationResult = new DeviceAuthorizationResult();
-        for (DeviceIdentifier deviceIdentifier : deviceIdentifiers) {
-            //check for admin and ownership permissions
-            if (isAdminOrDeviceOwner(username, tenantId, deviceIdentifier)) {
-                deviceAuthorizationResult.addAuthorizedDevice(deviceIdentifier);
-            } else {
-                try {
-                    if (groupPermissions == null || groupPermissions.length == 0) {
-                        return null;
-                    }
-                    //check for group permissions
-                    boolean isAuthorized = true;
-                    for (String groupPermission : groupPermissions) {
-                        if (!isAuthorizedViaGroup(username, deviceIdentifier, groupPermission)) {
-                            //if at least one failed, authorizations fails and break the loop
-                            isAuthorized = false;
-                            break;
-                        }
-                    }
-                    if (isAuthorized) {
-                        deviceAuthorizationResult.addAuthorizedDevice(deviceIdentifier);
-                    } else {
-                        deviceAuthorizationResult.addUnauthorizedDevice(deviceIdentifier);
-                    }
-                } catch (GroupManagementException | UserStoreException e) {
-                    throw new DeviceAccessAuthorizationException("Unable to authorize the access to device : " +
-                                                                 deviceIdentifier.getId() + " for the user : " +
-                                                                 username, e);
+        try {
+            //First Check for admin users. If the user is an admin user we authorize the access to all the devices.
+            if (isAdminUser(username, tenantId)) {
+                deviceAuthorizationResult.setAuthorizedDevices(new ArrayList<>(deviceIdentifiers));
+                return deviceAuthorizationResult;
+            }
+            //Secondly Check for device ownership. If the user is the owner of a device we allow the access.
+            Set<DeviceIdentifier> ownedDevices = Collections.newSetFromMap(new IdentityHashMap<DeviceIdentifier,
+                    Boolean>());
+            ownedDevices.addAll(DeviceManagementDataHolder.getInstance().getDeviceManagementProvider()
+                                        .getEnrolledDevices(deviceIdentifiers, username));
+            List<DeviceIdentifier> notOwnedDevices = new ArrayList<>();
+            for (DeviceIdentifier deviceIdentifier : deviceIdentifiers) {
+                if (ownedDevices.contains(deviceIdentifier)) {
+                    deviceAuthorizationResult.addAuthorizedDevice(deviceIdentifier);
+                } else {
+                    notOwnedDevices.add(deviceIdentifier);
+                }
+            }
+            if (notOwnedDevices.isEmpty()) {
+                return deviceAuthorizationResult;
+            }
+            if (groupPermissions == null || groupPermissions.length == 0) {
+                for (DeviceIdentifier deviceIdentifier : notOwnedDevices) {
+                    deviceAuthorizationResult.addUnauthorizedDevice(deviceIdentifier);
+                }
+                return deviceAuthorizationResult;
+            }
+            //check for group permissions
+            List<List<Integer>> authorizedGroupIds = new ArrayList<>(groupPermissions.length);
+            for (String groupPermission : groupPermissions) {
+                authorizedGroupIds.add(getAuthorizedGroupIds(username, tenantId, groupPermission));
+            }
+            Map<DeviceIdentifier, List<Integer>> groupsWithDevices = DeviceManagementDataHolder.getInstance()
+                    .getGroupManagementProviderService().getGroupIds(notOwnedDevices);
+            for (DeviceIdentifier deviceIdentifier : notOwnedDevices) {
+                List<Integer> groupsWithDevice = groupsWithDevices.get(deviceIdentifier);
+                boolean isAuthorized = groupsWithDevice != null;
+                for (int i = 0; isAuthorized && i < authorizedGroupIds.size(); i++) {
+                    //if at least one failed, authorization fails
+                    isAuthorized = !Collections.disjoint(authorizedGroupIds.get(i), groupsWithDevice);
+                }
+                if (isAuthorized) {
+                    deviceAuthorizationResult.addAuthorizedDevice(deviceIdentifier);
+                } else {
+                    deviceAuthorizationResult.addUnauthorizedDevice(deviceIdentifier);
                 }
             }
+            return deviceAuthorizationResult;
+        } catch (UserStoreException | DeviceManagementException | GroupManagementException e) {
+            throw new DeviceAccessAuthorizationException("Unable to authorize the access to devices for the user : " +
+                                                         username, e);
         }
-        return deviceAuthorizationResult;
     }
 
     @Override
@@ -191,24 +244,20 @@ public class DeviceAccessAuthorizationServiceImpl implements DeviceAccessAuthori
         }
     }
 
-    private boolean isAuthorizedViaGroup(String username, DeviceIdentifier deviceIdentifier, String groupPermission)
-            throws GroupManagementException, UserStoreException {
-        List<DeviceGroup> authorizedGroups =
-                DeviceManagementDataHolder.getInstance().getGroupManagementProviderService()
-                        .getGroups(username, groupPermission);
-        List<DeviceGroup> groupsWithDevice =
-                DeviceManagementDataHolder.getInstance().getGroupManagementProviderService()
-                        .getGroups(deviceIdentifier);
-        for (DeviceGroup group : authorizedGroups) {
-            Iterator<DeviceGroup> groupsWithDeviceIterator = groupsWithDevice.iterator();
-            while (groupsWithDeviceIterator.hasNext()) {
-                DeviceGroup deviceGroup = groupsWithDeviceIterator.next();
-                if (deviceGroup.getId() == group.getId()) {
-                    return true;
-                }
-            }
+    /**
+     * Returns the ids of the groups in which the user has been granted the given permission. Results are cached
+     * for a short while, as the user store is walked to find them.
+     */
+    private List<Integer> getAuthorizedGroupIds(String username, int tenantId, String groupPermission)
+            throws GroupManagementException {
+        String key = tenantId + "/" + username + "/" + groupPermission;
+        List<Integer> groupIds = groupDecisionCache.get(key);
+        if (groupIds == null) {
+            groupIds = DeviceManagementDataHolder.getInstance().getGroupManagementProviderService()
+                    .getGroupIds(username, groupPermission);
+            groupDecisionCache.put(key, groupIds);
         }
-        return false;
+        return groupIds;
     }
 
     private boolean isDeviceOwner(DeviceIdentifier deviceIdentifier, String username)
@@ -225,14 +274,21 @@ public class DeviceAccessAuthorizationServiceImpl implements DeviceAccessAuthori
     }
 
     private boolean isAdminUser(String username, int tenantId) throws UserStoreException {
+        String key = tenantId + "/" + username;
+        Boolean isAdmin = adminDecisionCache.get(key);
+        if (isAdmin != null) {
+            return isAdmin;
+        }
+        isAdmin = false;
         UserRealm userRealm = DeviceManagementDataHolder.getInstance().getRealmService().getTenantUserRealm(tenantId);
         if (userRealm != null && userRealm.getAuthorizationManager() != null) {
-            return userRealm.getAuthorizationManager()
+            isAdmin = userRealm.getAuthorizationManager()
                     .isUserAuthorized(removeTenantDomain(username),
                                       PermissionUtils.getAbsolutePermissionPath(CDM_ADMIN_PERMISSION),
                                       PermissionMethod.UI_EXECUTE);
         }
-        return false;
+        adminDecisionCache.put(key, isAdmin);
+        return isAdmin;
     }
 
     private String getUserName() {
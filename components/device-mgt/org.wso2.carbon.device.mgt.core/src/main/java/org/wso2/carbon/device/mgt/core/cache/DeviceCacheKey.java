@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.cache;
+
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+
+/**
+ * Key of the device cache. Entries are partitioned by tenant, therefore the key only carries the device identifier
+ * and the device type.
+ */
+public class DeviceCacheKey {
+
+    private String deviceId;
+    private String deviceType;
+
+    public DeviceCacheKey(DeviceIdentifier deviceIdentifier) {
+        this.deviceId = deviceIdentifier.getId();
+        this.deviceType = deviceIdentifier.getType();
+    }
+
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof DeviceCacheKey)) {
+            return false;
+        }
+        DeviceCacheKey that = (DeviceCacheKey) obj;
+        return (deviceId != null ? deviceId.equals(that.deviceId) : that.deviceId == null) &&
+                (deviceType != null ? deviceType.equals(that.deviceType) : that.deviceType == null);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = deviceId != null ? deviceId.hashCode() : 0;
+        result = 31 * result + (deviceType != null ? deviceType.hashCode() : 0);
+        return result;
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.cache;
+
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+
+/**
+ * Read-through cache of fully assembled devices, partitioned by tenant. Every device returned from the cache is a
+ * new copy, so callers may change it freely, and any component that changes the persisted state of a device must
+ * remove it from the cache. The cache is kept per node and changes made through other nodes do not invalidate it,
+ * hence a cached device can lag behind such changes by up to the configured expiry time.
+ */
+public interface DeviceCacheManager {
+
+    /**
+     * Method to retrieve a cached device.
+     *
+     * @param deviceIdentifier Identifier of the device.
+     * @param tenantId         Tenant the device belongs to.
+     * @return Copy of the cached device, or null if the device is not cached or the cached entry has expired.
+     */
+    Device getDevice(DeviceIdentifier deviceIdentifier, int tenantId);
+
+    /**
+     * Method to retrieve the current version of a device. The version changes every time the device is removed from
+     * the cache, and it has to be obtained before loading a device that is going to be added to the cache.
+     *
+     * @param deviceIdentifier Identifier of the device.
+     * @param tenantId         Tenant the device belongs to.
+     * @return Current version of the device.
+     */
+    long getVersion(DeviceIdentifier deviceIdentifier, int tenantId);
+
+    /**
+     * Method to add a copy of a device to the cache. The device is not cached if it has been removed from the cache
+     * after the given version was obtained, since the loaded device might then be stale.
+     *
+     * @param deviceIdentifier Identifier of the device.
+     * @param device           Fully assembled device.
+     * @param tenantId         Tenant the device belongs to.
+     * @param version          Device version obtained before the device was loaded.
+     */
+    void addDeviceToCache(DeviceIdentifier deviceIdentifier, Device device, int tenantId, long version);
+
+    /**
+     * Method to remove a device from the cache.
+     *
+     * @param deviceIdentifier Identifier of the device.
+     * @param tenantId         Tenant the device belongs to.
+     */
+    void removeDeviceFromCache(DeviceIdentifier deviceIdentifier, int tenantId);
+
+    /**
+     * Method to remove all the cached devices of a tenant.
+     *
+     * @param tenantId Tenant whose devices should be removed.
+     */
+    void removeDevicesFromCache(int tenantId);
+
+    /**
+     * Method to remove all the cached devices.
+     */
+    void clearCache();
+
+}
@@ -4,7 +4,7 @@
  * WSO2 Inc. licenses this file to you under the Apache License,
  * Version 2.0 (the "License"); you may not use this file except
  * in compliance with the License.
- * You may obtain a copy of the License at
+ * you may obtain a copy of the License at
  *
  *   http://www.apache.org/licenses/LICENSE-2.0
  *
@@ -15,17 +15,25 @@
  * specific language governing permissions and limitations
  * under the License.
  */
+package org.wso2.carbon.device.mgt.core.cache;
 
+/**
+ * Management interface exposing the device cache statistics over JMX.
+ */
+public interface DeviceCacheStatisticsMBean {
+
+    long getHitCount();
+
+    long getMissCount();
 
-package org.wso2.carbon.device.mgt.core.search.mgt;
+    long getEvictionCount();
 
-import org.wso2.carbon.device.mgt.common.Device;
+    long getExpiredCount();
 
-import java.util.List;
-import java.util.Map;
+    int getSize();
 
-public interface ResultSetAggregator {
+    void clearCache();
 
-    List<Device> aggregate(Map<String, List<Device>> devices);
+    void resetStatistics();
 
 }
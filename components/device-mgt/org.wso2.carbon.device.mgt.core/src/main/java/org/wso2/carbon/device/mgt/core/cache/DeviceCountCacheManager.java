@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.cache;
+
+import org.wso2.carbon.device.mgt.common.PaginationRequest;
+
+/**
+ * Short lived cache of the number of devices matching the filters of paginated device listings, so that paging
+ * through a large device list does not count all the matching devices again for every page. The cache is kept per
+ * node and is only invalidated by changes made through the same node, hence cached counts may lag behind changes
+ * made through other nodes by up to the configured expiry time.
+ */
+public interface DeviceCountCacheManager {
+
+    /**
+     * Method to check whether device counts are cached.
+     *
+     * @return true if the cache is enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * Method to retrieve the cached number of devices matching the filters of a pagination request.
+     *
+     * @param request  Pagination request carrying the filters. The start index and the row count are ignored.
+     * @param tenantId Id of the tenant.
+     * @return Number of matching devices, or null if it is not cached or its entry has expired.
+     */
+    Integer getDeviceCount(PaginationRequest request, int tenantId);
+
+    /**
+     * Method to add the number of devices matching the filters of a pagination request to the cache.
+     *
+     * @param request  Pagination request carrying the filters.
+     * @param tenantId Id of the tenant.
+     * @param count    Number of matching devices.
+     */
+    void addDeviceCount(PaginationRequest request, int tenantId, int count);
+
+    /**
+     * Method to remove all the cached device counts of a tenant. This has to be called when devices of the tenant
+     * are enrolled or dis-enrolled, or when any of the attributes the listings are filtered by changes.
+     *
+     * @param tenantId Id of the tenant.
+     */
+    void removeDeviceCounts(int tenantId);
+
+    /**
+     * Method to remove all the cached device counts.
+     */
+    void clearCache();
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, least recently used ordered cache of values which expire a fixed time after they are added. Once the
+ * cache reaches its capacity, adding a value evicts the least recently used one, so a full cache keeps its most used
+ * entries instead of being emptied. All the methods are thread safe.
+ * <p>
+ * The cache is local to the node it is created on. Values changed through another node are dropped only when they
+ * expire, hence the expiry time bounds how stale a value served from the cache can be in a cluster.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the cached values.
+ */
+public class ExpiringLRUCache<K, V> {
+
+    private final int capacity;
+    private final long expiryTime;
+    private final Map<K, CacheEntry<V>> entries;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+
+    /**
+     * @param capacity   Maximum number of values kept.
+     * @param expiryTime Time in milliseconds for which a value is kept.
+     */
+    public ExpiringLRUCache(int capacity, long expiryTime) {
+        this.capacity = capacity;
+        this.expiryTime = expiryTime;
+        this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                if (size() > ExpiringLRUCache.this.capacity) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * @return The cached value of the key, or null if there is none or it has expired.
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            CacheEntry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > System.currentTimeMillis()) {
+                    hitCount.incrementAndGet();
+                    return entry.value;
+                }
+                entries.remove(key);
+                expiredCount.incrementAndGet();
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches the value of the key for the expiry time of the cache.
+     */
+    public void put(K key, V value) {
+        this.put(key, value, System.currentTimeMillis() + expiryTime);
+    }
+
+    /**
+     * Caches the value of the key until the given time, or until the expiry time of the cache elapses if that comes
+     * first. A value which has already expired is not cached, and drops the value previously cached for the key.
+     *
+     * @param expiresAt Time in milliseconds since the epoch at which the value expires.
+     */
+    public void put(K key, V value, long expiresAt) {
+        long now = System.currentTimeMillis();
+        expiresAt = Math.min(expiresAt, now + expiryTime);
+        synchronized (entries) {
+            if (expiresAt <= now) {
+                entries.remove(key);
+                return;
+            }
+            entries.put(key, new CacheEntry<>(value, expiresAt));
+        }
+    }
+
+    /**
+     * Drops the cached value of the key.
+     */
+    public void remove(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    /**
+     * Drops the cached values of all the keys accepted by the filter.
+     */
+    public void removeAll(KeyFilter<K> filter) {
+        synchronized (entries) {
+            Iterator<K> keys = entries.keySet().iterator();
+            while (keys.hasNext()) {
+                if (filter.accept(keys.next())) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    public void resetStatistics() {
+        hitCount.set(0);
+        missCount.set(0);
+        evictionCount.set(0);
+        expiredCount.set(0);
+    }
+
+    /**
+     * Selects the keys whose values are dropped by {@link #removeAll(KeyFilter)}.
+     */
+    public interface KeyFilter<K> {
+
+        boolean accept(K key);
+    }
+
+    private static class CacheEntry<V> {
+
+        private final V value;
+        private final long expiresAt;
+
+        CacheEntry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.cache;
+
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+
+import java.util.List;
+
+/**
+ * Per node index of the pending operations of enrolments, in the order they have to be delivered to the device.
+ * Only complete pending operation lists are kept, so that an enrolment which is not cached, or whose cached list is
+ * empty, has to be looked up from the database. Any component that changes the status of an operation mapping of an
+ * enrolment must update or remove the enrolment from the cache.
+ */
+public interface PendingOperationCacheManager {
+
+    /**
+     * Method to check whether pending operations are cached.
+     *
+     * @return true if the cache is enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * Method to retrieve the cached pending operations of an enrolment.
+     *
+     * @param enrolmentId Id of the enrolment.
+     * @return Unmodifiable list of the pending operations ordered by their creation, which is empty if the enrolment
+     * does not have any cached pending operations, or null if the enrolment is not cached or its entry has expired.
+     */
+    List<Operation> getPendingOperations(int enrolmentId);
+
+    /**
+     * Method to retrieve the current version of an enrolment. The version changes every time the pending operations of
+     * the enrolment are modified, and it has to be obtained before loading the pending operations that are going to be
+     * added to the cache.
+     *
+     * @param enrolmentId Id of the enrolment.
+     * @return Current version of the enrolment.
+     */
+    long getVersion(int enrolmentId);
+
+    /**
+     * Method to add the complete list of pending operations of an enrolment to the cache. The operations are not
+     * cached if the enrolment has been modified after the given version was obtained.
+     *
+     * @param enrolmentId Id of the enrolment.
+     * @param operations  All the pending operations of the enrolment, ordered by their creation.
+     * @param version     Enrolment version obtained before the operations were loaded.
+     */
+    void addPendingOperations(int enrolmentId, List<? extends Operation> operations, long version);
+
+    /**
+     * Method to append a newly added operation to the cached pending operations of the given enrolments. Each
+     * enrolment gets its own copy of the operation.
+     *
+     * @param enrolmentIds Ids of the enrolments the operation has been assigned to.
+     * @param operation    Newly added operation.
+     */
+    void addPendingOperation(List<Integer> enrolmentIds, Operation operation);
+
+    /**
+     * Method to remove an operation from the cached pending operations of an enrolment once it is no longer pending.
+     *
+     * @param enrolmentId Id of the enrolment.
+     * @param operationId Id of the operation.
+     */
+    void removePendingOperation(int enrolmentId, int operationId);
+
+    /**
+     * Method to remove the pending operations carrying the given operation code from the given enrolments.
+     *
+     * @param enrolmentIds  Ids of the enrolments.
+     * @param operationCode Code of the operations to be removed.
+     */
+    void removePendingOperations(List<Integer> enrolmentIds, String operationCode);
+
+    /**
+     * Method to remove an operation from the cached pending operations of all the enrolments.
+     *
+     * @param operationId Id of the operation.
+     */
+    void removePendingOperation(int operationId);
+
+    /**
+     * Method to remove all the cached pending operations of an enrolment.
+     *
+     * @param enrolmentId Id of the enrolment.
+     */
+    void removeEnrolmentFromCache(int enrolmentId);
+
+    /**
+     * Method to remove all the cached pending operations.
+     */
+    void clearCache();
+
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.cache.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.core.cache.DeviceCacheKey;
+import org.wso2.carbon.device.mgt.core.cache.DeviceCacheManager;
+import org.wso2.carbon.device.mgt.core.cache.DeviceCacheStatisticsMBean;
+import org.wso2.carbon.device.mgt.core.cache.ExpiringLRUCache;
+import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
+import org.wso2.carbon.device.mgt.core.config.cache.DeviceCacheConfiguration;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Device cache which keeps a bounded, least recently used ordered partition per tenant. Entries are dropped once
+ * their expiry time has elapsed or once the partition reaches its capacity. The cache keeps its own copy of every
+ * added device and hands out a new copy on every read, so that the cached state cannot be changed by callers. Every
+ * device has a version, taken from a fixed number of stripes shared by the tenant and device identifier hashes.
+ */
+public class DeviceCacheManagerImpl implements DeviceCacheManager, DeviceCacheStatisticsMBean {
+
+    private static final Log log = LogFactory.getLog(DeviceCacheManagerImpl.class);
+    private static final int VERSION_STRIPES = 4096;
+    private static volatile DeviceCacheManagerImpl deviceCacheManager;
+
+    private boolean enabled;
+    private long expiryTime;
+    private int capacity;
+    private ConcurrentMap<Integer, TenantDeviceCache> tenantCaches = new ConcurrentHashMap<>();
+    private AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private DeviceCacheManagerImpl() {
+        DeviceManagementConfig config = DeviceConfigurationManager.getInstance().getDeviceManagementConfig();
+        DeviceCacheConfiguration cacheConfig = (config != null) ? config.getDeviceCacheConfiguration() : null;
+        if (cacheConfig != null) {
+            this.init(cacheConfig.isEnabled(), cacheConfig.getExpiryTime(), cacheConfig.getCapacity());
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Device cache is " + (enabled ? "enabled with expiry time of " + expiryTime +
+                    "ms and a capacity of " + capacity + " devices per tenant" : "disabled"));
+        }
+    }
+
+    DeviceCacheManagerImpl(boolean enabled, int expiryTime, int capacity) {
+        this.init(enabled, expiryTime, capacity);
+    }
+
+    private void init(boolean enabled, int expiryTime, int capacity) {
+        this.enabled = enabled;
+        this.expiryTime = TimeUnit.SECONDS.toMillis(expiryTime);
+        this.capacity = capacity;
+    }
+
+    public static DeviceCacheManagerImpl getInstance() {
+        if (deviceCacheManager == null) {
+            synchronized (DeviceCacheManagerImpl.class) {
+                if (deviceCacheManager == null) {
+                    deviceCacheManager = new DeviceCacheManagerImpl();
+                }
+            }
+        }
+        return deviceCacheManager;
+    }
+
+    @Override
+    public Device getDevice(DeviceIdentifier deviceIdentifier, int tenantId) {
+        if (!enabled) {
+            return null;
+        }
+        Device device = this.getTenantCache(tenantId).devices.get(new DeviceCacheKey(deviceIdentifier));
+        return (device != null) ? new Device(device) : null;
+    }
+
+    @Override
+    public long getVersion(DeviceIdentifier deviceIdentifier, int tenantId) {
+        if (!enabled) {
+            return 0;
+        }
+        return versions.get(this.getStripe(new DeviceCacheKey(deviceIdentifier), tenantId));
+    }
+
+    @Override
+    public void addDeviceToCache(DeviceIdentifier deviceIdentifier, Device device, int tenantId, long version) {
+        if (!enabled || device == null) {
+            return;
+        }
+        DeviceCacheKey key = new DeviceCacheKey(deviceIdentifier);
+        int stripe = this.getStripe(key, tenantId);
+        if (versions.get(stripe) != version) {
+            if (log.isDebugEnabled()) {
+                log.debug("Device '" + deviceIdentifier.getId() + "' of type '" + deviceIdentifier.getType() +
+                        "' has been modified while it was loaded. Therefore, not caching the device");
+            }
+            return;
+        }
+        ExpiringLRUCache<DeviceCacheKey, Device> devices = this.getTenantCache(tenantId).devices;
+        devices.put(key, new Device(device));
+        // The device could have been modified while the entry was being added, in which case the loaded device
+        // might be stale.
+        if (versions.get(stripe) != version) {
+            devices.remove(key);
+        }
+    }
+
+    @Override
+    public void removeDeviceFromCache(DeviceIdentifier deviceIdentifier, int tenantId) {
+        if (!enabled) {
+            return;
+        }
+        DeviceCacheKey key = new DeviceCacheKey(deviceIdentifier);
+        versions.incrementAndGet(this.getStripe(key, tenantId));
+        TenantDeviceCache tenantCache = tenantCaches.get(tenantId);
+        if (tenantCache != null) {
+            tenantCache.devices.remove(key);
+        }
+    }
+
+    @Override
+    public void removeDevicesFromCache(int tenantId) {
+        if (!enabled) {
+            return;
+        }
+        // Devices of the tenant share their stripes with devices of other tenants, hence all the versions change.
+        this.incrementVersions();
+        TenantDeviceCache tenantCache = tenantCaches.get(tenantId);
+        if (tenantCache != null) {
+            tenantCache.devices.clear();
+        }
+    }
+
+    @Override
+    public void clearCache() {
+        this.incrementVersions();
+        for (TenantDeviceCache tenantCache : tenantCaches.values()) {
+            tenantCache.devices.clear();
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        long hitCount = 0;
+        for (TenantDeviceCache tenantCache : tenantCaches.values()) {
+            hitCount += tenantCache.devices.getHitCount();
+        }
+        return hitCount;
+    }
+
+    @Override
+    public long getMissCount() {
+        long missCount = 0;
+        for (TenantDeviceCache tenantCache : tenantCaches.values()) {
+            missCount += tenantCache.devices.getMissCount();
+        }
+        return missCount;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        long evictionCount = 0;
+        for (TenantDeviceCache tenantCache : tenantCaches.values()) {
+            evictionCount += tenantCache.devices.getEvictionCount();
+        }
+        return evictionCount;
+    }
+
+    @Override
+    public long getExpiredCount() {
+        long expiredCount = 0;
+        for (TenantDeviceCache tenantCache : tenantCaches.values()) {
+            expiredCount += tenantCache.devices.getExpiredCount();
+        }
+        return expiredCount;
+    }
+
+    @Override
+    public int getSize() {
+        int size = 0;
+        for (TenantDeviceCache tenantCache : tenantCaches.values()) {
+            size += tenantCache.devices.getSize();
+        }
+        return size;
+    }
+
+    @Override
+    public void resetStatistics() {
+        for (TenantDeviceCache tenantCache : tenantCaches.values()) {
+            tenantCache.devices.resetStatistics();
+        }
+    }
+
+    private TenantDeviceCache getTenantCache(int tenantId) {
+        TenantDeviceCache tenantCache = tenantCaches.get(tenantId);
+        if (tenantCache == null) {
+            TenantDeviceCache newTenantCache = new TenantDeviceCache();
+            tenantCache = tenantCaches.putIfAbsent(tenantId, newTenantCache);
+            if (tenantCache == null) {
+                tenantCache = newTenantCache;
+            }
+        }
+        return tenantCache;
+    }
+
+    private void incrementVersions() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+    }
+
+    private int getStripe(DeviceCacheKey key, int tenantId) {
+        return ((31 * tenantId + key.hashCode()) & Integer.MAX_VALUE) % VERSION_STRIPES;
+    }
+
+    /**
+     * Cached devices of a single tenant.
+     */
+    private class TenantDeviceCache {
+
+        private final ExpiringLRUCache<DeviceCacheKey, Device> devices = new ExpiringLRUCache<>(capacity, expiryTime);
+    }
+
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.cache.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.common.PaginationRequest;
+import org.wso2.carbon.device.mgt.core.cache.DeviceCountCacheManager;
+import org.wso2.carbon.device.mgt.core.cache.ExpiringLRUCache;
+import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
+import org.wso2.carbon.device.mgt.core.config.cache.DeviceCountCacheConfiguration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Device count cache which keeps a bounded, least recently used ordered cache of counts keyed by the tenant and the
+ * filters of the pagination request. Entries are dropped once their expiry time has elapsed, which bounds how stale
+ * a count served by this node can be.
+ */
+public class DeviceCountCacheManagerImpl implements DeviceCountCacheManager {
+
+    private static final Log log = LogFactory.getLog(DeviceCountCacheManagerImpl.class);
+    private static final char SEPARATOR = '\u0000';
+    private static volatile DeviceCountCacheManagerImpl deviceCountCacheManager;
+
+    private boolean enabled;
+    private long expiryTime;
+    private int capacity;
+    private ExpiringLRUCache<String, Integer> counts;
+
+    private DeviceCountCacheManagerImpl() {
+        DeviceManagementConfig config = DeviceConfigurationManager.getInstance().getDeviceManagementConfig();
+        DeviceCountCacheConfiguration cacheConfig = (config != null) ? config.getDeviceCountCacheConfiguration() : null;
+        if (cacheConfig != null) {
+            this.init(cacheConfig.isEnabled(), cacheConfig.getExpiryTime(), cacheConfig.getCapacity());
+        } else {
+            this.init(false, DeviceCountCacheConfiguration.DEFAULT_EXPIRY_TIME,
+                    DeviceCountCacheConfiguration.DEFAULT_CAPACITY);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Device count cache is " + (enabled ? "enabled with expiry time of " + expiryTime +
+                    "ms and a capacity of " + capacity + " counts" : "disabled"));
+        }
+    }
+
+    DeviceCountCacheManagerImpl(boolean enabled, int expiryTime, int capacity) {
+        this.init(enabled, expiryTime, capacity);
+    }
+
+    private void init(boolean enabled, int expiryTime, int capacity) {
+        this.enabled = enabled;
+        this.expiryTime = TimeUnit.SECONDS.toMillis(expiryTime);
+        this.capacity = capacity;
+        this.counts = new ExpiringLRUCache<>(capacity, this.expiryTime);
+    }
+
+    public static DeviceCountCacheManagerImpl getInstance() {
+        if (deviceCountCacheManager == null) {
+            synchronized (DeviceCountCacheManagerImpl.class) {
+                if (deviceCountCacheManager == null) {
+                    deviceCountCacheManager = new DeviceCountCacheManagerImpl();
+                }
+            }
+        }
+        return deviceCountCacheManager;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Integer getDeviceCount(PaginationRequest request, int tenantId) {
+        if (!enabled) {
+            return null;
+        }
+        return counts.get(this.getKey(request, tenantId));
+    }
+
+    @Override
+    public void addDeviceCount(PaginationRequest request, int tenantId, int count) {
+        if (!enabled) {
+            return;
+        }
+        counts.put(this.getKey(request, tenantId), count);
+    }
+
+    @Override
+    public void removeDeviceCounts(int tenantId) {
+        if (!enabled) {
+            return;
+        }
+        final String prefix = String.valueOf(tenantId) + SEPARATOR;
+        counts.removeAll(new ExpiringLRUCache.KeyFilter<String>() {
+            @Override
+            public boolean accept(String key) {
+                return key.startsWith(prefix);
+            }
+        });
+    }
+
+    @Override
+    public void clearCache() {
+        counts.clear();
+    }
+
+    private String getKey(PaginationRequest request, int tenantId) {
+        StringBuilder key = new StringBuilder();
+        key.append(tenantId).append(SEPARATOR).append(request.getDeviceType()).append(SEPARATOR).
+                append(request.getDeviceName()).append(SEPARATOR).append(request.getOwner()).append(SEPARATOR).
+                append(request.getOwnership()).append(SEPARATOR).append(request.getStatus()).append(SEPARATOR).
+                append(request.getSince() != null ? request.getSince().getTime() : null);
+        return key.toString();
+    }
+
+}
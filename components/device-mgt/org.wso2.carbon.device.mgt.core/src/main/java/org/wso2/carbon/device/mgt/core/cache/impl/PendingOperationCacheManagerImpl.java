@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.cache.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.core.cache.PendingOperationCacheManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
+import org.wso2.carbon.device.mgt.core.config.cache.PendingOperationCacheConfiguration;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Pending operation cache which keeps an immutable, creation ordered array of pending operations per enrolment. Every
+ * modification replaces the array of an enrolment with a compare and set, so that readers never block. Entries are
+ * dropped once their expiry time has elapsed, which bounds how long operations updated through another node can be
+ * served from this node. Operations added to several enrolments are copied per enrolment, so that cached operations
+ * are never shared between enrolments.
+ */
+public class PendingOperationCacheManagerImpl implements PendingOperationCacheManager {
+
+    private static final Log log = LogFactory.getLog(PendingOperationCacheManagerImpl.class);
+    private static final int VERSION_STRIPES = 4096;
+    private static volatile PendingOperationCacheManagerImpl pendingOperationCacheManager;
+
+    private boolean enabled;
+    private long expiryTime;
+    private int capacity;
+    private ConcurrentMap<Integer, PendingOperations> enrolments = new ConcurrentHashMap<>();
+    private AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private PendingOperationCacheManagerImpl() {
+        DeviceManagementConfig config = DeviceConfigurationManager.getInstance().getDeviceManagementConfig();
+        PendingOperationCacheConfiguration cacheConfig =
+                (config != null) ? config.getPendingOperationCacheConfiguration() : null;
+        if (cacheConfig != null) {
+            this.init(cacheConfig.isEnabled(), cacheConfig.getExpiryTime(), cacheConfig.getCapacity());
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Pending operation cache is " + (enabled ? "enabled with expiry time of " + expiryTime +
+                    "ms and a capacity of " + capacity + " enrolments" : "disabled"));
+        }
+    }
+
+    PendingOperationCacheManagerImpl(boolean enabled, int expiryTime, int capacity) {
+        this.init(enabled, expiryTime, capacity);
+    }
+
+    private void init(boolean enabled, int expiryTime, int capacity) {
+        this.enabled = enabled;
+        this.expiryTime = TimeUnit.SECONDS.toMillis(expiryTime);
+        this.capacity = capacity;
+    }
+
+    public static PendingOperationCacheManagerImpl getInstance() {
+        if (pendingOperationCacheManager == null) {
+            synchronized (PendingOperationCacheManagerImpl.class) {
+                if (pendingOperationCacheManager == null) {
+                    pendingOperationCacheManager = new PendingOperationCacheManagerImpl();
+                }
+            }
+        }
+        return pendingOperationCacheManager;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public List<Operation> getPendingOperations(int enrolmentId) {
+        if (!enabled) {
+            return null;
+        }
+        PendingOperations entry = enrolments.get(enrolmentId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            enrolments.remove(enrolmentId, entry);
+            return null;
+        }
+        return Collections.unmodifiableList(Arrays.asList(entry.operations));
+    }
+
+    @Override
+    public long getVersion(int enrolmentId) {
+        if (!enabled) {
+            return 0;
+        }
+        return versions.get(this.getStripe(enrolmentId));
+    }
+
+    @Override
+    public void addPendingOperations(int enrolmentId, List<? extends Operation> operations, long version) {
+        if (!enabled || operations == null) {
+            return;
+        }
+        int stripe = this.getStripe(enrolmentId);
+        if (versions.get(stripe) != version) {
+            return;
+        }
+        if (enrolments.size() >= capacity && !enrolments.containsKey(enrolmentId)) {
+            this.removeExpiredEntries();
+            if (enrolments.size() >= capacity) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Pending operation cache is full. Therefore, not caching the pending operations of " +
+                            "enrolment '" + enrolmentId + "'");
+                }
+                return;
+            }
+        }
+        PendingOperations entry = new PendingOperations(operations.toArray(new Operation[operations.size()]),
+                System.currentTimeMillis() + expiryTime);
+        enrolments.put(enrolmentId, entry);
+        // The enrolment could have been modified while the entry was being added, in which case the loaded
+        // operations might be stale.
+        if (versions.get(stripe) != version) {
+            enrolments.remove(enrolmentId, entry);
+        }
+    }
+
+    @Override
+    public void addPendingOperation(List<Integer> enrolmentIds, final Operation operation) {
+        if (!enabled) {
+            return;
+        }
+        final byte[] serializedOperation = this.serialize(operation);
+        for (Integer enrolmentId : enrolmentIds) {
+            if (serializedOperation == null) {
+                // Only complete pending operation lists can be cached
+                this.removeEnrolmentFromCache(enrolmentId);
+                continue;
+            }
+            this.update(enrolmentId, new EntryUpdate() {
+                @Override
+                Operation[] apply(Operation[] operations) {
+                    for (Operation pendingOperation : operations) {
+                        if (pendingOperation.getId() == operation.getId()) {
+                            return operations;
+                        }
+                    }
+                    Operation operationCopy = deserialize(serializedOperation);
+                    if (operationCopy == null) {
+                        return null;
+                    }
+                    Operation[] updatedOperations = new Operation[operations.length + 1];
+                    System.arraycopy(operations, 0, updatedOperations, 0, operations.length);
+                    updatedOperations[operations.length] = operationCopy;
+                    return updatedOperations;
+                }
+            });
+        }
+    }
+
+    @Override
+    public void removePendingOperation(int enrolmentId, final int operationId) {
+        if (!enabled) {
+            return;
+        }
+        this.update(enrolmentId, new EntryUpdate() {
+            @Override
+            Operation[] apply(Operation[] operations) {
+                List<Operation> updatedOperations = new ArrayList<>(operations.length);
+                for (Operation pendingOperation : operations) {
+                    if (pendingOperation.getId() != operationId) {
+                        updatedOperations.add(pendingOperation);
+                    }
+                }
+                return updatedOperations.toArray(new Operation[updatedOperations.size()]);
+            }
+        });
+    }
+
+    @Override
+    public void removePendingOperations(List<Integer> enrolmentIds, final String operationCode) {
+        if (!enabled) {
+            return;
+        }
+        for (Integer enrolmentId : enrolmentIds) {
+            this.update(enrolmentId, new EntryUpdate() {
+                @Override
+                Operation[] apply(Operation[] operations) {
+                    List<Operation> updatedOperations = new ArrayList<>(operations.length);
+                    for (Operation pendingOperation : operations) {
+                        if (!operationCode.equals(pendingOperation.getCode())) {
+                            updatedOperations.add(pendingOperation);
+                        }
+                    }
+                    return updatedOperations.toArray(new Operation[updatedOperations.size()]);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void removePendingOperation(int operationId) {
+        if (!enabled) {
+            return;
+        }
+        for (Integer enrolmentId : enrolments.keySet()) {
+            this.removePendingOperation(enrolmentId, operationId);
+        }
+    }
+
+    @Override
+    public void removeEnrolmentFromCache(int enrolmentId) {
+        if (!enabled) {
+            return;
+        }
+        versions.incrementAndGet(this.getStripe(enrolmentId));
+        enrolments.remove(enrolmentId);
+    }
+
+    @Override
+    public void clearCache() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        enrolments.clear();
+    }
+
+    /**
+     * Replaces the cached operations of an enrolment with the result of the given update. The enrolment version is
+     * changed before the entry is touched so that a concurrent load of the same enrolment is discarded.
+     */
+    private void update(int enrolmentId, EntryUpdate entryUpdate) {
+        versions.incrementAndGet(this.getStripe(enrolmentId));
+        while (true) {
+            PendingOperations entry = enrolments.get(enrolmentId);
+            if (entry == null) {
+                return;
+            }
+            if (entry.isExpired()) {
+                enrolments.remove(enrolmentId, entry);
+                return;
+            }
+            Operation[] operations = entryUpdate.apply(entry.operations);
+            if (operations == null) {
+                enrolments.remove(enrolmentId, entry);
+                return;
+            }
+            if (operations == entry.operations ||
+                    enrolments.replace(enrolmentId, entry, new PendingOperations(operations, entry.expiresAt))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Serializes an operation so that every enrolment it is assigned to can be given its own copy of it.
+     */
+    private byte[] serialize(Operation operation) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOut = new ObjectOutputStream(out)) {
+            objectOut.writeObject(operation);
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Operation '" + operation.getId() + "' cannot be serialized. Therefore, removing the " +
+                        "enrolments it is assigned to from the pending operation cache", e);
+            }
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    private Operation deserialize(byte[] serializedOperation) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(serializedOperation))) {
+            return (Operation) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            log.error("Error occurred while copying an operation to be added to the pending operation cache", e);
+            return null;
+        }
+    }
+
+    private void removeExpiredEntries() {
+        Iterator<Map.Entry<Integer, PendingOperations>> iterator = enrolments.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().isExpired()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private int getStripe(int enrolmentId) {
+        return (enrolmentId & Integer.MAX_VALUE) % VERSION_STRIPES;
+    }
+
+    /**
+     * Update of the cached operations of an enrolment, which returns null if the enrolment has to be dropped.
+     */
+    private abstract static class EntryUpdate {
+
+        abstract Operation[] apply(Operation[] operations);
+    }
+
+    private static class PendingOperations {
+
+        private final Operation[] operations;
+        private final long expiresAt;
+
+        PendingOperations(Operation[] operations, long expiresAt) {
+            this.operations = operations;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired() {
+            return expiresAt <= System.currentTimeMillis();
+        }
+    }
+
+}
@@ -17,9 +17,14 @@
  */
 package org.wso2.carbon.device.mgt.core.config;
 
+import org.wso2.carbon.device.mgt.core.config.cache.DeviceCacheConfiguration;
+import org.wso2.carbon.device.mgt.core.config.cache.DeviceCountCacheConfiguration;
+import org.wso2.carbon.device.mgt.core.config.cache.PendingOperationCacheConfiguration;
 import org.wso2.carbon.device.mgt.core.config.identity.IdentityConfigurations;
+import org.wso2.carbon.device.mgt.core.config.operation.OperationConfiguration;
 import org.wso2.carbon.device.mgt.core.config.pagination.PaginationConfiguration;
 import org.wso2.carbon.device.mgt.core.config.policy.PolicyConfiguration;
+import org.wso2.carbon.device.mgt.core.config.search.DeviceSearchIndexConfiguration;
 import org.wso2.carbon.device.mgt.core.config.task.TaskConfiguration;
 
 import javax.xml.bind.annotation.XmlElement;
@@ -39,6 +44,11 @@ public final class DeviceManagementConfig {
     private IdentityConfigurations identityConfigurations;
     private PolicyConfiguration policyConfiguration;
     private PaginationConfiguration paginationConfiguration;
+    private OperationConfiguration operationConfiguration;
+    private DeviceCacheConfiguration deviceCacheConfiguration;
+    private PendingOperationCacheConfiguration pendingOperationCacheConfiguration;
+    private DeviceCountCacheConfiguration deviceCountCacheConfiguration;
+    private DeviceSearchIndexConfiguration deviceSearchIndexConfiguration;
     private List<String> pushNotificationProviders;
 
 
@@ -98,5 +108,50 @@ public final class DeviceManagementConfig {
         this.paginationConfiguration = paginationConfiguration;
     }
 
-}
+    @XmlElement(name = "OperationConfiguration")
+    public OperationConfiguration getOperationConfiguration() {
+        return operationConfiguration;
+    }
+
+    public void setOperationConfiguration(OperationConfiguration operationConfiguration) {
+        this.operationConfiguration = operationConfiguration;
+    }
+
+    @XmlElement(name = "DeviceCacheConfiguration")
+    public DeviceCacheConfiguration getDeviceCacheConfiguration() {
+        return deviceCacheConfiguration;
+    }
 
+    public void setDeviceCacheConfiguration(DeviceCacheConfiguration deviceCacheConfiguration) {
+        this.deviceCacheConfiguration = deviceCacheConfiguration;
+    }
+
+    @XmlElement(name = "PendingOperationCacheConfiguration")
+    public PendingOperationCacheConfiguration getPendingOperationCacheConfiguration() {
+        return pendingOperationCacheConfiguration;
+    }
+
+    public void setPendingOperationCacheConfiguration(
+            PendingOperationCacheConfiguration pendingOperationCacheConfiguration) {
+        this.pendingOperationCacheConfiguration = pendingOperationCacheConfiguration;
+    }
+
+    @XmlElement(name = "DeviceCountCacheConfiguration")
+    public DeviceCountCacheConfiguration getDeviceCountCacheConfiguration() {
+        return deviceCountCacheConfiguration;
+    }
+
+    public void setDeviceCountCacheConfiguration(DeviceCountCacheConfiguration deviceCountCacheConfiguration) {
+        this.deviceCountCacheConfiguration = deviceCountCacheConfiguration;
+    }
+
+    @XmlElement(name = "DeviceSearchIndexConfiguration")
+    public DeviceSearchIndexConfiguration getDeviceSearchIndexConfiguration() {
+        return deviceSearchIndexConfiguration;
+    }
+
+    public void setDeviceSearchIndexConfiguration(DeviceSearchIndexConfiguration deviceSearchIndexConfiguration) {
+        this.deviceSearchIndexConfiguration = deviceSearchIndexConfiguration;
+    }
+
+}
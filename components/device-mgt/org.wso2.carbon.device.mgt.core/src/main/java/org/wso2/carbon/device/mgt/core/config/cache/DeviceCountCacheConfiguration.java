@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.config.cache;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * This class represents the information related to the device count cache configuration.
+ */
+@XmlRootElement(name = "DeviceCountCacheConfiguration")
+public class DeviceCountCacheConfiguration {
+
+    public static final int DEFAULT_EXPIRY_TIME = 30;
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    private boolean enabled;
+    private int expiryTime;
+    private int capacity;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @XmlElement(name = "Enable", required = true)
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return Time in seconds a device count is served from memory before it is counted again.
+     */
+    public int getExpiryTime() {
+        return expiryTime > 0 ? expiryTime : DEFAULT_EXPIRY_TIME;
+    }
+
+    @XmlElement(name = "ExpiryTime")
+    public void setExpiryTime(int expiryTime) {
+        this.expiryTime = expiryTime;
+    }
+
+    /**
+     * @return Maximum number of device counts kept in memory, each of a tenant and a set of filters.
+     */
+    public int getCapacity() {
+        return capacity > 0 ? capacity : DEFAULT_CAPACITY;
+    }
+
+    @XmlElement(name = "Capacity")
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+}
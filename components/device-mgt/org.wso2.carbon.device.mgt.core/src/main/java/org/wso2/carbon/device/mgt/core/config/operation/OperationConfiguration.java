@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.config.operation;
+
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * This class represents the information related to bulk operation handling configuration.
+ */
+@XmlRootElement(name = "OperationConfiguration")
+public class OperationConfiguration {
+
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final int DEFAULT_NOTIFIER_THREAD_POOL_SIZE = 4;
+    public static final int DEFAULT_NOTIFIER_QUEUE_CAPACITY = 10000;
+    public static final int DEFAULT_NOTIFIER_BATCH_SIZE = 1000;
+    public static final int DEFAULT_NOTIFIER_MAX_RETRIES = 3;
+    public static final int DEFAULT_NOTIFIER_RETRY_DELAY = 1000;
+    public static final String PAYLOAD_FORMAT_COMPACT = "compact";
+    public static final String PAYLOAD_FORMAT_JAVA = "java";
+    public static final String DEFAULT_PAYLOAD_FORMAT = PAYLOAD_FORMAT_JAVA;
+    public static final int DEFAULT_CHECK_IN_UPDATE_FLUSH_INTERVAL = 5000;
+    public static final int DEFAULT_CHECK_IN_UPDATE_FLUSH_THRESHOLD = 1000;
+
+    private int batchSize;
+    private int notifierThreadPoolSize;
+    private int notifierQueueCapacity;
+    private int notifierBatchSize;
+    private int notifierMaxRetries = -1;
+    private int notifierRetryDelay;
+    private String payloadFormat;
+    private boolean migrateLegacyPayloads;
+    private int checkInUpdateFlushInterval;
+    private int checkInUpdateFlushThreshold;
+
+    public int getBatchSize() {
+        return batchSize > 0 ? batchSize : DEFAULT_BATCH_SIZE;
+    }
+
+    @XmlElement(name = "BatchSize")
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getNotifierThreadPoolSize() {
+        return notifierThreadPoolSize > 0 ? notifierThreadPoolSize : DEFAULT_NOTIFIER_THREAD_POOL_SIZE;
+    }
+
+    @XmlElement(name = "NotifierThreadPoolSize")
+    public void setNotifierThreadPoolSize(int notifierThreadPoolSize) {
+        this.notifierThreadPoolSize = notifierThreadPoolSize;
+    }
+
+    public int getNotifierQueueCapacity() {
+        return notifierQueueCapacity > 0 ? notifierQueueCapacity : DEFAULT_NOTIFIER_QUEUE_CAPACITY;
+    }
+
+    @XmlElement(name = "NotifierQueueCapacity")
+    public void setNotifierQueueCapacity(int notifierQueueCapacity) {
+        this.notifierQueueCapacity = notifierQueueCapacity;
+    }
+
+    /**
+     * @return Maximum number of queued push notifications handed over to a notification strategy at once.
+     */
+    public int getNotifierBatchSize() {
+        return notifierBatchSize > 0 ? notifierBatchSize : DEFAULT_NOTIFIER_BATCH_SIZE;
+    }
+
+    @XmlElement(name = "NotifierBatchSize")
+    public void setNotifierBatchSize(int notifierBatchSize) {
+        this.notifierBatchSize = notifierBatchSize;
+    }
+
+    /**
+     * @return Number of times a push notification which could not be sent is retried.
+     */
+    public int getNotifierMaxRetries() {
+        return notifierMaxRetries >= 0 ? notifierMaxRetries : DEFAULT_NOTIFIER_MAX_RETRIES;
+    }
+
+    @XmlElement(name = "NotifierMaxRetries")
+    public void setNotifierMaxRetries(int notifierMaxRetries) {
+        this.notifierMaxRetries = notifierMaxRetries;
+    }
+
+    /**
+     * @return Time in milliseconds before the first retry of a push notification, which doubles with every retry.
+     */
+    public int getNotifierRetryDelay() {
+        return notifierRetryDelay > 0 ? notifierRetryDelay : DEFAULT_NOTIFIER_RETRY_DELAY;
+    }
+
+    @XmlElement(name = "NotifierRetryDelay")
+    public void setNotifierRetryDelay(int notifierRetryDelay) {
+        this.notifierRetryDelay = notifierRetryDelay;
+    }
+
+    /**
+     * @return Format new operation and policy payloads are written in. Defaults to the Java serialization format that
+     * nodes of earlier releases can read, and should be changed to the compact format once every node is upgraded.
+     */
+    public String getPayloadFormat() {
+        return payloadFormat != null ? payloadFormat : DEFAULT_PAYLOAD_FORMAT;
+    }
+
+    @XmlElement(name = "PayloadFormat")
+    public void setPayloadFormat(String payloadFormat) {
+        this.payloadFormat = payloadFormat;
+    }
+
+    public boolean isMigrateLegacyPayloads() {
+        return migrateLegacyPayloads;
+    }
+
+    @XmlElement(name = "MigrateLegacyPayloads")
+    public void setMigrateLegacyPayloads(boolean migrateLegacyPayloads) {
+        this.migrateLegacyPayloads = migrateLegacyPayloads;
+    }
+
+    /**
+     * @return Time in milliseconds between two flushes of the updates buffered while devices check in.
+     */
+    public int getCheckInUpdateFlushInterval() {
+        return checkInUpdateFlushInterval > 0 ? checkInUpdateFlushInterval : DEFAULT_CHECK_IN_UPDATE_FLUSH_INTERVAL;
+    }
+
+    @XmlElement(name = "CheckInUpdateFlushInterval")
+    public void setCheckInUpdateFlushInterval(int checkInUpdateFlushInterval) {
+        this.checkInUpdateFlushInterval = checkInUpdateFlushInterval;
+    }
+
+    /**
+     * @return Number of buffered check-in updates that triggers a flush before the flush interval has elapsed.
+     */
+    public int getCheckInUpdateFlushThreshold() {
+        return checkInUpdateFlushThreshold > 0 ? checkInUpdateFlushThreshold : DEFAULT_CHECK_IN_UPDATE_FLUSH_THRESHOLD;
+    }
+
+    @XmlElement(name = "CheckInUpdateFlushThreshold")
+    public void setCheckInUpdateFlushThreshold(int checkInUpdateFlushThreshold) {
+        this.checkInUpdateFlushThreshold = checkInUpdateFlushThreshold;
+    }
+
+}
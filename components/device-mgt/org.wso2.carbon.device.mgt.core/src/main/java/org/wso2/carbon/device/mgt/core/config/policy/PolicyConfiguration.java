@@ -26,12 +26,19 @@ import java.util.List;
 @XmlRootElement(name = "PolicyConfiguration")
 public class PolicyConfiguration {
 
+    public static final int DEFAULT_MONITORING_SHARD_COUNT = 4;
+    public static final int DEFAULT_MONITORING_THREAD_POOL_SIZE = 4;
+    public static final int DEFAULT_MONITORING_LEASE_DURATION = 600000;
+
     private String monitoringClass;
     private boolean monitoringEnable;
     private int monitoringFrequency;
     private int maxRetries;
     private int minRetriesToMarkUnreachable;
     private int minRetriesToMarkInactive;
+    private int monitoringShardCount;
+    private int monitoringThreadPoolSize;
+    private int monitoringLeaseDuration;
     private List<String> platforms;
 
     @XmlElement(name = "MonitoringClass", required = true)
@@ -88,6 +95,43 @@ public class PolicyConfiguration {
         this.monitoringFrequency = monitoringFrequency;
     }
 
+    /**
+     * @return Number of shards the devices of each device type are split into by the monitoring task.
+     */
+    @XmlElement(name = "MonitoringShardCount")
+    public int getMonitoringShardCount() {
+        return monitoringShardCount > 0 ? monitoringShardCount : DEFAULT_MONITORING_SHARD_COUNT;
+    }
+
+    public void setMonitoringShardCount(int monitoringShardCount) {
+        this.monitoringShardCount = monitoringShardCount;
+    }
+
+    /**
+     * @return Number of shards monitored in parallel by a node.
+     */
+    @XmlElement(name = "MonitoringThreadPoolSize")
+    public int getMonitoringThreadPoolSize() {
+        return monitoringThreadPoolSize > 0 ? monitoringThreadPoolSize : DEFAULT_MONITORING_THREAD_POOL_SIZE;
+    }
+
+    public void setMonitoringThreadPoolSize(int monitoringThreadPoolSize) {
+        this.monitoringThreadPoolSize = monitoringThreadPoolSize;
+    }
+
+    /**
+     * @return Time in milliseconds a node holds a shard without reporting progress before other nodes may take the
+     * shard over.
+     */
+    @XmlElement(name = "MonitoringLeaseDuration")
+    public int getMonitoringLeaseDuration() {
+        return monitoringLeaseDuration > 0 ? monitoringLeaseDuration : DEFAULT_MONITORING_LEASE_DURATION;
+    }
+
+    public void setMonitoringLeaseDuration(int monitoringLeaseDuration) {
+        this.monitoringLeaseDuration = monitoringLeaseDuration;
+    }
+
     @XmlElementWrapper(name = "Platforms", required = true)
     @XmlElement(name = "Platform", required = true)
     public List<String> getPlatforms() {
@@ -28,6 +28,7 @@ import org.wso2.carbon.device.mgt.core.dto.DeviceType;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class represents the key operations associated with persisting device related information.
@@ -186,6 +187,22 @@ public interface DeviceDAO {
      */
     List<Device> getDevices(PaginationRequest request, int tenantId) throws DeviceManagementDAOException;
 
+    /**
+     * This method is used to retrieve the devices of a given tenant as a paginated result, continuing from the last
+     * device of the previous page instead of skipping the start index of the request. Devices are ordered by the
+     * device id and then the enrolment id, so that the cost of a page does not depend on its position.
+     *
+     * @param request  PaginationRequest object holding the filters and the row count.
+     * @param lastDeviceId id of the last device of the previous page, or 0 to retrieve the first page.
+     * @param lastEnrolmentId id of the enrolment of the last device of the previous page, or 0 to retrieve the first
+     *                        page.
+     * @param tenantId tenant id.
+     * @return returns the next page of devices, which is empty once all the devices have been retrieved.
+     * @throws DeviceManagementDAOException
+     */
+    List<Device> getDevices(PaginationRequest request, int lastDeviceId, int lastEnrolmentId,
+                            int tenantId) throws DeviceManagementDAOException;
+
     /**
      * This method is used to retrieve the devices of a given tenant and type as a paginated result.
      *
@@ -206,6 +223,45 @@ public interface DeviceDAO {
      */
     List<Device> getDevices(String type, int tenantId) throws DeviceManagementDAOException;
 
+    /**
+     * This method is used to iterate over the devices of a given tenant and device type in chunks. Devices are
+     * ordered by the device id and then the enrolment id, and a chunk starts right after the given device
+     * enrolment. Only the device identity and the enrolment information are populated.
+     *
+     * @param type device type.
+     * @param statuses enrolment statuses to be included.
+     * @param lastDeviceId id of the last device of the previous chunk, or 0 to retrieve the first chunk.
+     * @param lastEnrolmentId id of the enrolment of the last device of the previous chunk, or 0 to retrieve the
+     *                        first chunk.
+     * @param limit maximum number of devices to be returned.
+     * @param tenantId tenant id.
+     * @return returns the next chunk of devices, which is empty once all the devices have been retrieved.
+     * @throws DeviceManagementDAOException
+     */
+    List<Device> getDevices(String type, List<EnrolmentInfo.Status> statuses, int lastDeviceId, int lastEnrolmentId,
+                            int limit, int tenantId) throws DeviceManagementDAOException;
+
+    /**
+     * This method is used to iterate over a shard of the devices of a given tenant and device type in chunks. The
+     * devices are split into shards by the remainder of their id divided by the number of shards, and chunks are
+     * retrieved the same way as {@link #getDevices(String, List, int, int, int, int)}.
+     *
+     * @param type device type.
+     * @param statuses enrolment statuses to be included.
+     * @param shardCount number of shards the devices are split into.
+     * @param shardIndex index of the shard to be retrieved, starting from 0.
+     * @param lastDeviceId id of the last device of the previous chunk, or 0 to retrieve the first chunk.
+     * @param lastEnrolmentId id of the enrolment of the last device of the previous chunk, or 0 to retrieve the
+     *                        first chunk.
+     * @param limit maximum number of devices to be returned.
+     * @param tenantId tenant id.
+     * @return returns the next chunk of devices of the shard, which is empty once all of them have been retrieved.
+     * @throws DeviceManagementDAOException
+     */
+    List<Device> getDevices(String type, List<EnrolmentInfo.Status> statuses, int shardCount, int shardIndex,
+                            int lastDeviceId, int lastEnrolmentId, int limit,
+                            int tenantId) throws DeviceManagementDAOException;
+
     List<Device> getDevices(long timestamp, int tenantId) throws DeviceManagementDAOException;
 
     /**
@@ -409,5 +465,29 @@ public interface DeviceDAO {
      */
     List<EnrolmentInfo> getEnrolmentsByStatus(List<DeviceIdentifier> deviceIds, Status status,
                                               int tenantId) throws DeviceManagementDAOException;
-}
 
+    /**
+     * This method is used to retrieve the matching enrollment of each device in a given set of devices of a single
+     * device type using a single query. When a device has multiple enrollments, the active one is preferred.
+     *
+     * @param type                  device type of the given devices.
+     * @param deviceIdentifications A list of device identifications.
+     * @param tenantId              tenant id.
+     * @return returns a map of enrolment info objects keyed by the device identification.
+     * @throws DeviceManagementDAOException
+     */
+    Map<String, EnrolmentInfo> getMatchingEnrolments(String type, List<String> deviceIdentifications,
+                                                     int tenantId) throws DeviceManagementDAOException;
+
+    /**
+     * This method is used to resolve the ids of a given list of devices of any device type using a single query.
+     *
+     * @param deviceIdentifiers A list of device identifiers.
+     * @param tenantId          tenant id.
+     * @return returns the device ids keyed by the device type and then by the device identification. Devices which
+     * do not exist are not included.
+     * @throws DeviceManagementDAOException
+     */
+    Map<String, Map<String, Integer>> getDeviceIds(List<DeviceIdentifier> deviceIdentifiers,
+                                                   int tenantId) throws DeviceManagementDAOException;
+}
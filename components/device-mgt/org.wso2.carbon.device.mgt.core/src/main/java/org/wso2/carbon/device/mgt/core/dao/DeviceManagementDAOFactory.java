@@ -123,6 +123,10 @@ public class DeviceManagementDAOFactory {
         return new EnrollmentDAOImpl();
     }
 
+    public static PushTokenDAO getPushTokenDAO() {
+        return new PushTokenDAOImpl();
+    }
+
     public static ApplicationDAO getApplicationDAO() {
         return new ApplicationDAOImpl();
     }
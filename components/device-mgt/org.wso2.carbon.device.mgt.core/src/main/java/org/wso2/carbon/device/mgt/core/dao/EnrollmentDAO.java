@@ -37,6 +37,9 @@ public interface EnrollmentDAO {
     boolean setStatus(int enrolmentId, String currentOwner, Status status,
                       int tenantId) throws DeviceManagementDAOException;
 
+    boolean setStatus(List<Integer> enrolmentIds, List<Status> currentStatuses, Status status,
+                      int tenantId) throws DeviceManagementDAOException;
+
     Status getStatus(int deviceId, String currentOwner, int tenantId) throws DeviceManagementDAOException;
 
     EnrolmentInfo getEnrollment(int deviceId, String currentUser, int tenantId) throws DeviceManagementDAOException;
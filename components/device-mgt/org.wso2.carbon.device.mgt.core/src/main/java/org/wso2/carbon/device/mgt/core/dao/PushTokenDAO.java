@@ -0,0 +1,42 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.dao;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registry of the push tokens devices have registered for their enrolments.
+ */
+public interface PushTokenDAO {
+
+    /**
+     * Adds the push token of an enrolment, replacing the token registered earlier if there is one.
+     */
+    void updatePushToken(int enrolmentId, String token, int tenantId) throws DeviceManagementDAOException;
+
+    void removePushToken(int enrolmentId, int tenantId) throws DeviceManagementDAOException;
+
+    /**
+     * @return Push tokens of the given enrolments keyed by enrolment id. Enrolments without a push token are left
+     * out.
+     */
+    Map<Integer, String> getPushTokens(List<Integer> enrolmentIds, int tenantId) throws DeviceManagementDAOException;
+
+}
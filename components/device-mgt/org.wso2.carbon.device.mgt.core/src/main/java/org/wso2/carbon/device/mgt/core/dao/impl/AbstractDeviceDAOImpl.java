@@ -40,6 +40,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 public abstract class AbstractDeviceDAOImpl implements DeviceDAO {
 
@@ -337,6 +338,187 @@ public abstract class AbstractDeviceDAOImpl implements DeviceDAO {
         return devices;
     }
 
+    @Override
+    public List<Device> getDevices(String type, List<Status> statuses, int lastDeviceId, int lastEnrolmentId,
+                                   int limit, int tenantId) throws DeviceManagementDAOException {
+        return this.getDevices(type, statuses, 1, 0, lastDeviceId, lastEnrolmentId, limit, tenantId);
+    }
+
+    @Override
+    public List<Device> getDevices(String type, List<Status> statuses, int shardCount, int shardIndex,
+                                   int lastDeviceId, int lastEnrolmentId, int limit,
+                                   int tenantId) throws DeviceManagementDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        List<Device> devices = new ArrayList<>();
+        try {
+            conn = this.getConnection();
+            String sql = "SELECT d.ID AS DEVICE_ID, d.DESCRIPTION, d.NAME AS DEVICE_NAME, t.NAME AS DEVICE_TYPE, " +
+                    "d.DEVICE_IDENTIFICATION, e.OWNER, e.OWNERSHIP, e.STATUS, e.DATE_OF_LAST_UPDATE, " +
+                    "e.DATE_OF_ENROLMENT, e.ID AS ENROLMENT_ID FROM DM_DEVICE d, DM_ENROLMENT e, DM_DEVICE_TYPE t " +
+                    "WHERE d.DEVICE_TYPE_ID = t.ID AND t.NAME = ? AND d.TENANT_ID = ? AND e.DEVICE_ID = d.ID " +
+                    "AND e.TENANT_ID = ? AND (d.ID > ? OR (d.ID = ? AND e.ID > ?))";
+            if (statuses != null && !statuses.isEmpty()) {
+                sql = sql + " AND e.STATUS IN (" + DeviceManagementDAOUtil.getPlaceholders(statuses.size()) + ")";
+            }
+            if (shardCount > 1) {
+                sql = sql + this.getShardClause();
+            }
+            sql = sql + " ORDER BY d.ID, e.ID" + this.getRowLimitClause();
+
+            stmt = conn.prepareStatement(sql);
+            stmt.setFetchSize(limit);
+            int paramIdx = 1;
+            stmt.setString(paramIdx++, type);
+            stmt.setInt(paramIdx++, tenantId);
+            stmt.setInt(paramIdx++, tenantId);
+            stmt.setInt(paramIdx++, lastDeviceId);
+            stmt.setInt(paramIdx++, lastDeviceId);
+            stmt.setInt(paramIdx++, lastEnrolmentId);
+            if (statuses != null) {
+                for (Status status : statuses) {
+                    stmt.setString(paramIdx++, status.toString());
+                }
+            }
+            if (shardCount > 1) {
+                stmt.setInt(paramIdx++, shardCount);
+                stmt.setInt(paramIdx++, shardIndex);
+            }
+            stmt.setInt(paramIdx, limit);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                devices.add(DeviceManagementDAOUtil.loadDevice(rs));
+            }
+        } catch (SQLException e) {
+            throw new DeviceManagementDAOException("Error occurred while listing a chunk of devices for type '" +
+                    type + "'", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+        return devices;
+    }
+
+    @Override
+    public List<Device> getDevices(PaginationRequest request, int lastDeviceId, int lastEnrolmentId,
+                                   int tenantId) throws DeviceManagementDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        List<Device> devices = new ArrayList<>();
+        String deviceType = request.getDeviceType();
+        boolean isDeviceTypeProvided = false;
+        String deviceName = request.getDeviceName();
+        boolean isDeviceNameProvided = false;
+        String owner = request.getOwner();
+        boolean isOwnerProvided = false;
+        String ownership = request.getOwnership();
+        boolean isOwnershipProvided = false;
+        String status = request.getStatus();
+        boolean isStatusProvided = false;
+        Date since = request.getSince();
+        boolean isSinceProvided = false;
+        try {
+            conn = this.getConnection();
+            String sql = "SELECT d.ID AS DEVICE_ID, d.DESCRIPTION, d.NAME AS DEVICE_NAME, t.NAME AS DEVICE_TYPE, " +
+                    "d.DEVICE_IDENTIFICATION, e.OWNER, e.OWNERSHIP, e.STATUS, e.DATE_OF_LAST_UPDATE, " +
+                    "e.DATE_OF_ENROLMENT, e.ID AS ENROLMENT_ID FROM DM_DEVICE d, DM_ENROLMENT e, DM_DEVICE_TYPE t";
+
+            //Add the query to filter active devices on timestamp
+            if (since != null) {
+                sql = sql + ", DM_DEVICE_DETAIL dt";
+                isSinceProvided = true;
+            }
+
+            sql = sql + " WHERE d.DEVICE_TYPE_ID = t.ID AND d.TENANT_ID = ? AND e.DEVICE_ID = d.ID " +
+                    "AND e.TENANT_ID = ? AND (d.ID > ? OR (d.ID = ? AND e.ID > ?))";
+
+            //Add query for last updated timestamp
+            if (isSinceProvided) {
+                sql = sql + " AND dt.DEVICE_ID = d.ID AND dt.UPDATE_TIMESTAMP > ?";
+            }
+            //Add the query for device-type
+            if (deviceType != null && !deviceType.isEmpty()) {
+                sql = sql + " AND t.NAME = ?";
+                isDeviceTypeProvided = true;
+            }
+            //Add the query for device-name
+            if (deviceName != null && !deviceName.isEmpty()) {
+                sql = sql + " AND d.NAME LIKE ?";
+                isDeviceNameProvided = true;
+            }
+            //Add the query for ownership
+            if (ownership != null && !ownership.isEmpty()) {
+                sql = sql + " AND e.OWNERSHIP = ?";
+                isOwnershipProvided = true;
+            }
+            //Add the query for owner
+            if (owner != null && !owner.isEmpty()) {
+                sql = sql + " AND e.OWNER LIKE ?";
+                isOwnerProvided = true;
+            }
+            //Add the query for status
+            if (status != null && !status.isEmpty()) {
+                sql = sql + " AND e.STATUS = ?";
+                isStatusProvided = true;
+            }
+            sql = sql + " ORDER BY d.ID, e.ID" + this.getRowLimitClause();
+
+            stmt = conn.prepareStatement(sql);
+            int paramIdx = 1;
+            stmt.setInt(paramIdx++, tenantId);
+            stmt.setInt(paramIdx++, tenantId);
+            stmt.setInt(paramIdx++, lastDeviceId);
+            stmt.setInt(paramIdx++, lastDeviceId);
+            stmt.setInt(paramIdx++, lastEnrolmentId);
+            if (isSinceProvided) {
+                stmt.setLong(paramIdx++, since.getTime());
+            }
+            if (isDeviceTypeProvided) {
+                stmt.setString(paramIdx++, deviceType);
+            }
+            if (isDeviceNameProvided) {
+                stmt.setString(paramIdx++, deviceName + "%");
+            }
+            if (isOwnershipProvided) {
+                stmt.setString(paramIdx++, ownership);
+            }
+            if (isOwnerProvided) {
+                stmt.setString(paramIdx++, owner + "%");
+            }
+            if (isStatusProvided) {
+                stmt.setString(paramIdx++, status);
+            }
+            stmt.setInt(paramIdx, request.getRowCount());
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                devices.add(DeviceManagementDAOUtil.loadDevice(rs));
+            }
+        } catch (SQLException e) {
+            throw new DeviceManagementDAOException("Error occurred while retrieving a page of the registered " +
+                    "devices", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+        return devices;
+    }
+
+    /**
+     * Returns the clause appended to a query in order to limit the number of rows returned. The clause carries a
+     * single parameter, which is the maximum number of rows.
+     */
+    protected String getRowLimitClause() {
+        return " LIMIT ?";
+    }
+
+    /**
+     * Returns the condition appended to a query in order to select a shard of the devices. The condition carries two
+     * parameters, which are the number of shards and the index of the shard.
+     */
+    protected String getShardClause() {
+        return " AND MOD(d.ID, ?) = ?";
+    }
+
     @Override
     public List<Device> getDevicesOfUser(String username, int tenantId) throws DeviceManagementDAOException {
         Connection conn;
@@ -932,6 +1114,112 @@ public abstract class AbstractDeviceDAOImpl implements DeviceDAO {
         }
     }
 
+    @Override
+    public Map<String, EnrolmentInfo> getMatchingEnrolments(String type, List<String> deviceIdentifications,
+                                                            int tenantId) throws DeviceManagementDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        Map<String, EnrolmentInfo> enrolments = new HashMap<>();
+        if (deviceIdentifications == null || deviceIdentifications.isEmpty()) {
+            return enrolments;
+        }
+        try {
+            conn = this.getConnection();
+            StringBuilder sql = new StringBuilder();
+            sql.append("SELECT e.ID AS ENROLMENT_ID, e.OWNER, e.OWNERSHIP, e.DATE_OF_ENROLMENT, " +
+                    "e.DATE_OF_LAST_UPDATE, e.STATUS, d.DEVICE_IDENTIFICATION FROM DM_ENROLMENT e, DM_DEVICE d, " +
+                    "DM_DEVICE_TYPE t WHERE e.DEVICE_ID = d.ID AND d.DEVICE_TYPE_ID = t.ID AND t.NAME = ? " +
+                    "AND d.DEVICE_IDENTIFICATION IN (");
+            sql.append(DeviceManagementDAOUtil.getPlaceholders(deviceIdentifications.size()));
+            sql.append(") AND d.TENANT_ID = ? AND e.TENANT_ID = ?");
+
+            stmt = conn.prepareStatement(sql.toString());
+            int index = 1;
+            stmt.setString(index++, type);
+            for (String deviceIdentification : deviceIdentifications) {
+                stmt.setString(index++, deviceIdentification);
+            }
+            stmt.setInt(index++, tenantId);
+            stmt.setInt(index, tenantId);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                String deviceIdentification = rs.getString("DEVICE_IDENTIFICATION");
+                EnrolmentInfo enrolmentInfo = DeviceManagementDAOUtil.loadEnrolment(rs);
+                enrolments.put(deviceIdentification, DeviceManagementDAOUtil.getMatchingEnrolment(
+                        enrolments.get(deviceIdentification), enrolmentInfo));
+            }
+            return enrolments;
+        } catch (SQLException e) {
+            throw new DeviceManagementDAOException("Error occurred while retrieving the enrolments of '" +
+                    type + "' devices", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+    }
+
+    @Override
+    public Map<String, Map<String, Integer>> getDeviceIds(List<DeviceIdentifier> deviceIdentifiers,
+                                                          int tenantId) throws DeviceManagementDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        Map<String, Map<String, Integer>> deviceIds = new HashMap<>();
+        if (deviceIdentifiers == null || deviceIdentifiers.isEmpty()) {
+            return deviceIds;
+        }
+        Map<String, List<String>> deviceIdentifications = new HashMap<>();
+        for (DeviceIdentifier deviceIdentifier : deviceIdentifiers) {
+            List<String> identifications = deviceIdentifications.get(deviceIdentifier.getType());
+            if (identifications == null) {
+                identifications = new ArrayList<>();
+                deviceIdentifications.put(deviceIdentifier.getType(), identifications);
+            }
+            identifications.add(deviceIdentifier.getId());
+        }
+        try {
+            conn = this.getConnection();
+            StringBuilder sql = new StringBuilder();
+            sql.append("SELECT d.ID, d.DEVICE_IDENTIFICATION, t.NAME AS DEVICE_TYPE FROM DM_DEVICE d, " +
+                    "DM_DEVICE_TYPE t WHERE d.DEVICE_TYPE_ID = t.ID AND d.TENANT_ID = ? AND (");
+            Iterator<List<String>> iterator = deviceIdentifications.values().iterator();
+            while (iterator.hasNext()) {
+                sql.append("(t.NAME = ? AND d.DEVICE_IDENTIFICATION IN (");
+                sql.append(DeviceManagementDAOUtil.getPlaceholders(iterator.next().size()));
+                sql.append("))");
+                if (iterator.hasNext()) {
+                    sql.append(" OR ");
+                }
+            }
+            sql.append(")");
+
+            stmt = conn.prepareStatement(sql.toString());
+            int index = 1;
+            stmt.setInt(index++, tenantId);
+            for (Map.Entry<String, List<String>> entry : deviceIdentifications.entrySet()) {
+                stmt.setString(index++, entry.getKey());
+                for (String deviceIdentification : entry.getValue()) {
+                    stmt.setString(index++, deviceIdentification);
+                }
+            }
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                String type = rs.getString("DEVICE_TYPE");
+                Map<String, Integer> ids = deviceIds.get(type);
+                if (ids == null) {
+                    ids = new HashMap<>();
+                    deviceIds.put(type, ids);
+                }
+                ids.put(rs.getString("DEVICE_IDENTIFICATION"), rs.getInt("ID"));
+            }
+            return deviceIds;
+        } catch (SQLException e) {
+            throw new DeviceManagementDAOException("Error occurred while retrieving the ids of devices", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+    }
+
     public List<Device> getDevicesByStatus(EnrolmentInfo.Status status, int tenantId)
             throws DeviceManagementDAOException {
         Connection conn;
@@ -29,7 +29,9 @@ import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
 import java.io.*;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 public class ApplicationDAOImpl implements ApplicationDAO {
@@ -292,6 +294,47 @@ public class ApplicationDAOImpl implements ApplicationDAO {
         return applications;
     }
 
+    @Override
+    public Map<Integer, List<Application>> getInstalledApplications(List<Integer> deviceIds)
+            throws DeviceManagementDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        Map<Integer, List<Application>> applications = new HashMap<>();
+        if (deviceIds == null || deviceIds.isEmpty()) {
+            return applications;
+        }
+        try {
+            conn = this.getConnection();
+            stmt = conn.prepareStatement("SELECT app.ID, app.NAME, app.APP_IDENTIFIER, app.PLATFORM, app.CATEGORY, " +
+                    "app.VERSION, app.TYPE, app.LOCATION_URL, app.IMAGE_URL, app.APP_PROPERTIES, app.MEMORY_USAGE, " +
+                    "app.IS_ACTIVE, app.TENANT_ID, APPMAP.DEVICE_ID FROM DM_APPLICATION app INNER JOIN " +
+                    "DM_DEVICE_APPLICATION_MAPPING APPMAP ON app.ID = APPMAP.APPLICATION_ID WHERE APPMAP.DEVICE_ID IN (" +
+                    DeviceManagementDAOUtil.getPlaceholders(deviceIds.size()) + ")");
+            int index = 1;
+            for (Integer deviceId : deviceIds) {
+                stmt.setInt(index++, deviceId);
+            }
+            rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                int deviceId = rs.getInt("DEVICE_ID");
+                List<Application> installedApplications = applications.get(deviceId);
+                if (installedApplications == null) {
+                    installedApplications = new ArrayList<>();
+                    applications.put(deviceId, installedApplications);
+                }
+                installedApplications.add(loadApplication(rs));
+            }
+        } catch (SQLException e) {
+            throw new DeviceManagementDAOException("SQL Error occurred while retrieving the list of Applications " +
+                    "installed in devices", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+        return applications;
+    }
+
     private Application loadApplication(ResultSet rs) throws DeviceManagementDAOException {
         ByteArrayInputStream bais;
         ObjectInputStream ois;
@@ -166,6 +166,38 @@ public class EnrollmentDAOImpl implements EnrollmentDAO {
         return true;
     }
 
+    @Override
+    public boolean setStatus(List<Integer> enrolmentIds, List<EnrolmentInfo.Status> currentStatuses,
+                             EnrolmentInfo.Status status, int tenantId) throws DeviceManagementDAOException {
+        if (enrolmentIds == null || enrolmentIds.isEmpty() || currentStatuses == null || currentStatuses.isEmpty()) {
+            return false;
+        }
+        Connection conn;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getConnection();
+            String sql = "UPDATE DM_ENROLMENT SET STATUS = ? WHERE TENANT_ID = ? AND STATUS IN (" +
+                    DeviceManagementDAOUtil.getPlaceholders(currentStatuses.size()) + ") AND ID IN (" +
+                    DeviceManagementDAOUtil.getPlaceholders(enrolmentIds.size()) + ")";
+            stmt = conn.prepareStatement(sql);
+            int index = 1;
+            stmt.setString(index++, status.toString());
+            stmt.setInt(index++, tenantId);
+            for (EnrolmentInfo.Status currentStatus : currentStatuses) {
+                stmt.setString(index++, currentStatus.toString());
+            }
+            for (Integer enrolmentId : enrolmentIds) {
+                stmt.setInt(index++, enrolmentId);
+            }
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DeviceManagementDAOException("Error occurred while setting the status of device enrolments", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, null);
+        }
+        return true;
+    }
+
     @Override
     public EnrolmentInfo.Status getStatus(int deviceId, String currentOwner,
                                           int tenantId) throws DeviceManagementDAOException {
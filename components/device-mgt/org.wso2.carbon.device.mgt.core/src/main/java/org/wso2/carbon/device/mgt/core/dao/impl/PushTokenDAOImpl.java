@@ -0,0 +1,122 @@
+/*
+ *   Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *   WSO2 Inc. licenses this file to you under the Apache License,
+ *   Version 2.0 (the "License"); you may not use this file except
+ *   in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+package org.wso2.carbon.device.mgt.core.dao.impl;
+
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.PushTokenDAO;
+import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PushTokenDAOImpl implements PushTokenDAO {
+
+    @Override
+    public void updatePushToken(int enrolmentId, String token, int tenantId) throws DeviceManagementDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getConnection();
+            String sql = "UPDATE DM_DEVICE_PUSH_TOKEN SET TOKEN = ? WHERE ENROLMENT_ID = ? AND TENANT_ID = ?";
+            stmt = conn.prepareStatement(sql);
+            stmt.setString(1, token);
+            stmt.setInt(2, enrolmentId);
+            stmt.setInt(3, tenantId);
+            if (stmt.executeUpdate() > 0) {
+                return;
+            }
+            DeviceManagementDAOUtil.cleanupResources(stmt, null);
+
+            sql = "INSERT INTO DM_DEVICE_PUSH_TOKEN(ENROLMENT_ID, TOKEN, TENANT_ID) VALUES (?, ?, ?)";
+            stmt = conn.prepareStatement(sql);
+            stmt.setInt(1, enrolmentId);
+            stmt.setString(2, token);
+            stmt.setInt(3, tenantId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DeviceManagementDAOException("Error occurred while updating the push token of the enrolment '" +
+                    enrolmentId + "'", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
+    @Override
+    public void removePushToken(int enrolmentId, int tenantId) throws DeviceManagementDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getConnection();
+            String sql = "DELETE FROM DM_DEVICE_PUSH_TOKEN WHERE ENROLMENT_ID = ? AND TENANT_ID = ?";
+            stmt = conn.prepareStatement(sql);
+            stmt.setInt(1, enrolmentId);
+            stmt.setInt(2, tenantId);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new DeviceManagementDAOException("Error occurred while removing the push token of the enrolment '" +
+                    enrolmentId + "'", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
+    @Override
+    public Map<Integer, String> getPushTokens(List<Integer> enrolmentIds,
+                                              int tenantId) throws DeviceManagementDAOException {
+        Map<Integer, String> tokens = new HashMap<>();
+        if (enrolmentIds == null || enrolmentIds.isEmpty()) {
+            return tokens;
+        }
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = this.getConnection();
+            String sql = "SELECT ENROLMENT_ID, TOKEN FROM DM_DEVICE_PUSH_TOKEN WHERE TENANT_ID = ? AND " +
+                    "ENROLMENT_ID IN (" + DeviceManagementDAOUtil.getPlaceholders(enrolmentIds.size()) + ")";
+            stmt = conn.prepareStatement(sql);
+            int index = 1;
+            stmt.setInt(index++, tenantId);
+            for (Integer enrolmentId : enrolmentIds) {
+                stmt.setInt(index++, enrolmentId);
+            }
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                tokens.put(rs.getInt("ENROLMENT_ID"), rs.getString("TOKEN"));
+            }
+            return tokens;
+        } catch (SQLException e) {
+            throw new DeviceManagementDAOException("Error occurred while retrieving the push tokens of " +
+                    enrolmentIds.size() + " enrolments", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+    }
+
+    private Connection getConnection() throws SQLException {
+        return DeviceManagementDAOFactory.getConnection();
+    }
+
+}
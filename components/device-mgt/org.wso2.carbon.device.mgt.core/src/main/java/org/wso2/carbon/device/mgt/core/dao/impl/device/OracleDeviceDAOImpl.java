@@ -426,4 +426,10 @@ public class OracleDeviceDAOImpl extends AbstractDeviceDAOImpl {
     private Connection getConnection() throws SQLException {
         return DeviceManagementDAOFactory.getConnection();
     }
-}
\ No newline at end of file
+
+    @Override
+    protected String getRowLimitClause() {
+        return " OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+    }
+
+}
@@ -394,4 +394,15 @@ public class SQLServerDeviceDAOImpl extends AbstractDeviceDAOImpl {
     private Connection getConnection() throws SQLException {
         return DeviceManagementDAOFactory.getConnection();
     }
-}
\ No newline at end of file
+
+    @Override
+    protected String getRowLimitClause() {
+        return " OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY";
+    }
+
+    @Override
+    protected String getShardClause() {
+        return " AND d.ID % ? = ?";
+    }
+
+}
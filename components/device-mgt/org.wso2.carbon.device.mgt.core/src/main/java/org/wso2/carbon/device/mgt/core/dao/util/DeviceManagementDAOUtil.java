@@ -43,6 +43,10 @@ import java.util.Map;
 public final class DeviceManagementDAOUtil {
 
     private static final Log log = LogFactory.getLog(DeviceManagementDAOUtil.class);
+    private static final EnrolmentInfo.Status[] ENROLMENT_STATUS_PRECEDENCE = {
+            EnrolmentInfo.Status.ACTIVE, EnrolmentInfo.Status.UNREACHABLE, EnrolmentInfo.Status.INACTIVE,
+            EnrolmentInfo.Status.DISENROLLMENT_REQUESTED, EnrolmentInfo.Status.CREATED, EnrolmentInfo.Status.REMOVED,
+            EnrolmentInfo.Status.UNCLAIMED, EnrolmentInfo.Status.SUSPENDED, EnrolmentInfo.Status.BLOCKED};
 
     public static void cleanupResources(Connection conn, PreparedStatement stmt, ResultSet rs) {
         if (rs != null) {
@@ -147,6 +151,35 @@ public final class DeviceManagementDAOUtil {
         return enrolmentInfo;
     }
 
+    /**
+     * Picks the enrolment that should represent a device out of two of its enrolments, using the same status
+     * precedence applied by {@link #loadMatchingEnrolment(ResultSet)}. Out of two enrolments having the same status,
+     * the latest one is picked.
+     *
+     * @param current   enrolment selected so far, may be null.
+     * @param candidate enrolment to be compared against the current selection.
+     * @return the enrolment having the higher precedence.
+     */
+    public static EnrolmentInfo getMatchingEnrolment(EnrolmentInfo current, EnrolmentInfo candidate) {
+        if (current == null) {
+            return candidate;
+        }
+        int precedence = getEnrolmentPrecedence(candidate.getStatus()) - getEnrolmentPrecedence(current.getStatus());
+        if (precedence == 0) {
+            return candidate.getId() > current.getId() ? candidate : current;
+        }
+        return precedence < 0 ? candidate : current;
+    }
+
+    private static int getEnrolmentPrecedence(EnrolmentInfo.Status status) {
+        for (int i = 0; i < ENROLMENT_STATUS_PRECEDENCE.length; i++) {
+            if (ENROLMENT_STATUS_PRECEDENCE[i] == status) {
+                return i;
+            }
+        }
+        return ENROLMENT_STATUS_PRECEDENCE.length;
+    }
+
     public static EnrolmentInfo loadMatchingEnrolment(ResultSet rs) throws SQLException {
         Map<EnrolmentInfo.Status, EnrolmentInfo> enrolmentInfos = new HashMap<>();
         EnrolmentInfo enrolmentInfo = loadEnrolment(rs);
@@ -273,6 +306,20 @@ public final class DeviceManagementDAOUtil {
         return device;
     }
 
+    /**
+     * Builds a comma separated list of JDBC parameter placeholders to be used within an IN clause.
+     *
+     * @param count number of placeholders required.
+     * @return placeholders in the form of "?, ?, ?".
+     */
+    public static String getPlaceholders(int count) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        return placeholders.toString();
+    }
+
     public static DeviceType loadDeviceType(ResultSet rs) throws SQLException {
         DeviceType deviceType = new DeviceType();
         deviceType.setId(rs.getInt("ID"));
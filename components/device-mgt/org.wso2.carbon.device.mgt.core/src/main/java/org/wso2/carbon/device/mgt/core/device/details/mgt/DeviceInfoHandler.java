@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.core.device.details.mgt;
+
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+
+/**
+ * Receives the device information retrieved by {@link DeviceInformationManager#getDevicesInfo(java.util.List,
+ * DeviceInfoHandler)} one device at a time, so that the information of large device lists does not have to be kept
+ * in memory at once.
+ */
+public interface DeviceInfoHandler {
+
+    /**
+     * This method will be called with the information of each of the requested devices which has reported it.
+     * @param deviceIdentifier - Device identifier, device type.
+     * @param deviceInfo - Device info object along with the device properties.
+     * @throws DeviceDetailsMgtException
+     */
+    void handle(DeviceIdentifier deviceIdentifier, DeviceInfo deviceInfo) throws DeviceDetailsMgtException;
+
+}
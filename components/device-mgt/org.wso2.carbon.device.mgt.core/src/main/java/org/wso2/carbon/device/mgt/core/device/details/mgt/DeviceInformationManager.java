@@ -58,6 +58,17 @@ public interface DeviceInformationManager {
      */
     List<DeviceInfo> getDevicesInfo(List<DeviceIdentifier> deviceIdentifiers) throws DeviceDetailsMgtException;
 
+    /**
+     * This method will pass the device information of the supplied devices list to the handler, batch by batch, so
+     * that large device lists can be processed without loading the information of all the devices at once. Devices
+     * which do not exist or have not reported their information are skipped.
+     * @param deviceIdentifiers - List of Device identifier and device type.
+     * @param handler - Handler receiving the device information of each device.
+     * @throws DeviceDetailsMgtException
+     */
+    void getDevicesInfo(List<DeviceIdentifier> deviceIdentifiers,
+                        DeviceInfoHandler handler) throws DeviceDetailsMgtException;
+
     /**
      * This method will manage storing the device location as latitude, longitude, address, zip, country etc..
      * @param deviceLocation - Device location object.
@@ -22,6 +22,7 @@ package org.wso2.carbon.device.mgt.core.device.details.mgt.dao;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -55,6 +56,14 @@ public interface DeviceDetailsDAO {
      */
     DeviceInfo getDeviceInformation(int deviceId) throws DeviceDetailsMgtDAOException;
 
+    /**
+     * This method will return the device information of a set of devices in a single query.
+     * @param deviceIds - ids of the devices.
+     * @return - device information mapped against the device id. Devices without information are not included.
+     * @throws DeviceDetailsMgtDAOException
+     */
+    Map<Integer, DeviceInfo> getDevicesInformation(List<Integer> deviceIds) throws DeviceDetailsMgtDAOException;
+
     /**
      * This method will return the device properties from database.
      * @param deviceId
@@ -63,6 +72,15 @@ public interface DeviceDetailsDAO {
      */
     Map<String, String> getDeviceProperties(int deviceId) throws DeviceDetailsMgtDAOException;
 
+    /**
+     * This method will return the device properties of a set of devices in a single query.
+     * @param deviceIds - ids of the devices.
+     * @return - device properties maps mapped against the device id. Devices without properties are not included.
+     * @throws DeviceDetailsMgtDAOException
+     */
+    Map<Integer, Map<String, String>> getDevicesProperties(List<Integer> deviceIds)
+            throws DeviceDetailsMgtDAOException;
+
     /**
      * This method will delete the device information from the database.
      * @param deviceId - Integer.
@@ -92,6 +110,14 @@ public interface DeviceDetailsDAO {
      */
     DeviceLocation getDeviceLocation(int deviceId) throws DeviceDetailsMgtDAOException;
 
+    /**
+     * This method will return the locations of a set of devices in a single query.
+     * @param deviceIds - ids of the devices.
+     * @return - device locations mapped against the device id. Devices without a location are not included.
+     * @throws DeviceDetailsMgtDAOException
+     */
+    Map<Integer, DeviceLocation> getDeviceLocations(List<Integer> deviceIds) throws DeviceDetailsMgtDAOException;
+
     /**
      * This method will delete the device location from the database.
      * @param deviceId
@@ -33,6 +33,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
@@ -126,27 +127,7 @@ public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
             rs = stmt.executeQuery();
 
             if (rs.next()) {
-                deviceInfo = new DeviceInfo();
-//                deviceInfo.setIMEI(rs.getString("IMEI"));
-//                deviceInfo.setIMSI(rs.getString("IMSI"));
-                deviceInfo.setDeviceModel(rs.getString("DEVICE_MODEL"));
-                deviceInfo.setVendor(rs.getString("VENDOR"));
-                deviceInfo.setOsVersion(rs.getString("OS_VERSION"));
-                deviceInfo.setOsBuildDate(rs.getString("OS_BUILD_DATE"));
-                deviceInfo.setBatteryLevel(rs.getDouble("BATTERY_LEVEL"));
-                deviceInfo.setInternalTotalMemory(rs.getDouble("INTERNAL_TOTAL_MEMORY"));
-                deviceInfo.setInternalAvailableMemory(rs.getDouble("INTERNAL_AVAILABLE_MEMORY"));
-                deviceInfo.setExternalTotalMemory(rs.getDouble("EXTERNAL_TOTAL_MEMORY"));
-                deviceInfo.setExternalAvailableMemory(rs.getDouble("EXTERNAL_AVAILABLE_MEMORY"));
-//                deviceInfo.setOperator(rs.getString("OPERATOR"));
-                deviceInfo.setConnectionType(rs.getString("CONNECTION_TYPE"));
-//                deviceInfo.setMobileSignalStrength(rs.getDouble("MOBILE_SIGNAL_STRENGTH"));
-                deviceInfo.setSsid(rs.getString("SSID"));
-                deviceInfo.setCpuUsage(rs.getDouble("CPU_USAGE"));
-                deviceInfo.setTotalRAMMemory(rs.getDouble("TOTAL_RAM_MEMORY"));
-                deviceInfo.setAvailableRAMMemory(rs.getDouble("AVAILABLE_RAM_MEMORY"));
-                deviceInfo.setPluggedIn(rs.getBoolean("PLUGGED_IN"));
-                deviceInfo.setUpdatedTime(new java.util.Date(rs.getLong("UPDATE_TIMESTAMP")));
+                deviceInfo = DeviceManagementDAOUtil.loadDeviceInfo(rs);
             }
 
             return deviceInfo;
@@ -157,6 +138,38 @@ public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
         }
     }
 
+    @Override
+    public Map<Integer, DeviceInfo> getDevicesInformation(List<Integer> deviceIds)
+            throws DeviceDetailsMgtDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        Map<Integer, DeviceInfo> deviceInfos = new HashMap<>();
+        if (deviceIds == null || deviceIds.isEmpty()) {
+            return deviceInfos;
+        }
+        try {
+            conn = this.getConnection();
+            String sql = "SELECT * FROM DM_DEVICE_DETAIL WHERE DEVICE_ID IN (" +
+                    DeviceManagementDAOUtil.getPlaceholders(deviceIds.size()) + ")";
+            stmt = conn.prepareStatement(sql);
+            int index = 1;
+            for (Integer deviceId : deviceIds) {
+                stmt.setInt(index++, deviceId);
+            }
+            rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                deviceInfos.put(rs.getInt("DEVICE_ID"), DeviceManagementDAOUtil.loadDeviceInfo(rs));
+            }
+            return deviceInfos;
+        } catch (SQLException e) {
+            throw new DeviceDetailsMgtDAOException("Error occurred while fetching the details of the registered devices.", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+    }
+
     @Override
     public Map<String, String> getDeviceProperties(int deviceId) throws DeviceDetailsMgtDAOException {
 
@@ -182,6 +195,45 @@ public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
         return map;
     }
 
+    @Override
+    public Map<Integer, Map<String, String>> getDevicesProperties(List<Integer> deviceIds)
+            throws DeviceDetailsMgtDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        Map<Integer, Map<String, String>> properties = new HashMap<>();
+        if (deviceIds == null || deviceIds.isEmpty()) {
+            return properties;
+        }
+        try {
+            conn = this.getConnection();
+            String sql = "SELECT DEVICE_ID, KEY_FIELD, VALUE_FIELD FROM DM_DEVICE_INFO WHERE DEVICE_ID IN (" +
+                    DeviceManagementDAOUtil.getPlaceholders(deviceIds.size()) + ")";
+            stmt = conn.prepareStatement(sql);
+            int index = 1;
+            for (Integer deviceId : deviceIds) {
+                stmt.setInt(index++, deviceId);
+            }
+            rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                int deviceId = rs.getInt("DEVICE_ID");
+                Map<String, String> map = properties.get(deviceId);
+                if (map == null) {
+                    map = new HashMap<>();
+                    properties.put(deviceId, map);
+                }
+                map.put(rs.getString("KEY_FIELD"), rs.getString("VALUE_FIELD"));
+            }
+            return properties;
+        } catch (SQLException e) {
+            throw new DeviceDetailsMgtDAOException("Error occurred while fetching the properties of the registered " +
+                    "devices.", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+    }
+
     @Override
     public void deleteDeviceInformation(int deviceId) throws DeviceDetailsMgtDAOException {
 
@@ -262,16 +314,7 @@ public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
             rs = stmt.executeQuery();
 
             while (rs.next()) {
-                location.setDeviceId(deviceId);
-                location.setLatitude(rs.getDouble("LATITUDE"));
-                location.setLongitude(rs.getDouble("LONGITUDE"));
-                location.setStreet1(rs.getString("STREET1"));
-                location.setStreet2(rs.getString("STREET2"));
-                location.setCity(rs.getString("CITY"));
-                location.setZip(rs.getString("ZIP"));
-                location.setState(rs.getString("STATE"));
-                location.setCountry(rs.getString("COUNTRY"));
-                location.setUpdatedTime(new java.util.Date(rs.getLong("UPDATE_TIMESTAMP")));
+                location = this.loadDeviceLocation(rs);
             }
             location.setDeviceId(deviceId);
 
@@ -283,6 +326,40 @@ public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
         }
     }
 
+    @Override
+    public Map<Integer, DeviceLocation> getDeviceLocations(List<Integer> deviceIds)
+            throws DeviceDetailsMgtDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        Map<Integer, DeviceLocation> locations = new HashMap<>();
+        if (deviceIds == null || deviceIds.isEmpty()) {
+            return locations;
+        }
+        try {
+            conn = this.getConnection();
+            String sql = "SELECT * FROM DM_DEVICE_LOCATION WHERE DEVICE_ID IN (" +
+                    DeviceManagementDAOUtil.getPlaceholders(deviceIds.size()) + ")";
+            stmt = conn.prepareStatement(sql);
+            int index = 1;
+            for (Integer deviceId : deviceIds) {
+                stmt.setInt(index++, deviceId);
+            }
+            rs = stmt.executeQuery();
+
+            while (rs.next()) {
+                DeviceLocation location = this.loadDeviceLocation(rs);
+                locations.put(location.getDeviceId(), location);
+            }
+            return locations;
+        } catch (SQLException e) {
+            throw new DeviceDetailsMgtDAOException("Error occurred while fetching the locations of the registered " +
+                    "devices.", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+    }
+
     @Override
     public void deleteDeviceLocation(int deviceId) throws DeviceDetailsMgtDAOException {
 
@@ -306,6 +383,21 @@ public class DeviceDetailsDAOImpl implements DeviceDetailsDAO {
         return DeviceManagementDAOFactory.getConnection();
     }
 
+    private DeviceLocation loadDeviceLocation(ResultSet rs) throws SQLException {
+        DeviceLocation location = new DeviceLocation();
+        location.setDeviceId(rs.getInt("DEVICE_ID"));
+        location.setLatitude(rs.getDouble("LATITUDE"));
+        location.setLongitude(rs.getDouble("LONGITUDE"));
+        location.setStreet1(rs.getString("STREET1"));
+        location.setStreet2(rs.getString("STREET2"));
+        location.setCity(rs.getString("CITY"));
+        location.setZip(rs.getString("ZIP"));
+        location.setState(rs.getString("STATE"));
+        location.setCountry(rs.getString("COUNTRY"));
+        location.setUpdatedTime(new java.util.Date(rs.getLong("UPDATE_TIMESTAMP")));
+        return location;
+    }
+
 
 //    @Override
 //    public void addDeviceApplications(DeviceApplication deviceApplication) throws DeviceDetailsMgtDAOException {
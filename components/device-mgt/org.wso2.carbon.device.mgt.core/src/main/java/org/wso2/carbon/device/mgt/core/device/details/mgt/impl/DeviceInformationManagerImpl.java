@@ -25,14 +25,18 @@ import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.device.mgt.common.*;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.core.cache.impl.DeviceCacheManagerImpl;
 import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.DeviceDetailsMgtException;
+import org.wso2.carbon.device.mgt.core.device.details.mgt.DeviceInfoHandler;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.DeviceInformationManager;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsMgtDAOException;
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
+import org.wso2.carbon.device.mgt.core.search.mgt.impl.DeviceSearchIndexManagerImpl;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
@@ -64,6 +68,8 @@ public class DeviceInformationManagerImpl implements DeviceInformationManager {
             deviceDetailsDAO.addDeviceInformation(device.getId(), deviceInfo);
             deviceDetailsDAO.addDeviceProperties(deviceInfo.getDeviceDetailsMap(), device.getId());
             DeviceManagementDAOFactory.commitTransaction();
+            DeviceSearchIndexManagerImpl.getInstance().updateDeviceInfo(
+                    CarbonContext.getThreadLocalCarbonContext().getTenantId(), device.getId(), deviceInfo);
         } catch (TransactionManagementException e) {
             DeviceManagementDAOFactory.rollbackTransaction();
             throw new DeviceDetailsMgtException("Transactional error occurred while adding the device information.", e);
@@ -79,6 +85,8 @@ public class DeviceInformationManagerImpl implements DeviceInformationManager {
                     "device", e);
         } finally {
             DeviceManagementDAOFactory.closeConnection();
+            DeviceCacheManagerImpl.getInstance().removeDeviceFromCache(deviceId,
+                    CarbonContext.getThreadLocalCarbonContext().getTenantId());
         }
     }
 
@@ -115,38 +123,67 @@ public class DeviceInformationManagerImpl implements DeviceInformationManager {
 
     @Override
     public List<DeviceInfo> getDevicesInfo(List<DeviceIdentifier> deviceIdentifiers) throws DeviceDetailsMgtException {
-        List<DeviceInfo> deviceInfos = new ArrayList<>();
+        final List<DeviceInfo> deviceInfos = new ArrayList<>();
+        this.getDevicesInfo(deviceIdentifiers, new DeviceInfoHandler() {
+            @Override
+            public void handle(DeviceIdentifier deviceIdentifier, DeviceInfo deviceInfo) {
+                deviceInfos.add(deviceInfo);
+            }
+        });
+        return deviceInfos;
+    }
 
-        Map<String, DeviceIdentifier> identifierMap = new HashMap<>();
-        for (DeviceIdentifier identifier : deviceIdentifiers) {
-            identifierMap.put(identifier.getId(), identifier);
+    @Override
+    public void getDevicesInfo(List<DeviceIdentifier> deviceIdentifiers,
+                               DeviceInfoHandler handler) throws DeviceDetailsMgtException {
+        if (deviceIdentifiers == null || deviceIdentifiers.isEmpty()) {
+            return;
         }
-        try {
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        for (List<DeviceIdentifier> batch : DeviceManagerUtil.getBatches(deviceIdentifiers,
+                DeviceManagerUtil.getBatchSize())) {
             List<Integer> deviceIds = new ArrayList<>();
-            List<Device> devices = DeviceManagementDataHolder.getInstance().
-                    getDeviceManagementProvider().getAllDevices();
-            for (Device device : devices) {
-                if (identifierMap.containsKey(device.getDeviceIdentifier()) &&
-                        device.getType().equals(identifierMap.get(device.getDeviceIdentifier()).getType())) {
-                    deviceIds.add(device.getId());
+            List<DeviceIdentifier> identifiers = new ArrayList<>();
+            Map<Integer, DeviceInfo> deviceInfos;
+            Map<Integer, Map<String, String>> deviceProperties;
+            try {
+                DeviceManagementDAOFactory.openConnection();
+                Map<String, Map<String, Integer>> ids = deviceDAO.getDeviceIds(batch, tenantId);
+                for (DeviceIdentifier identifier : batch) {
+                    Map<String, Integer> idsOfType = ids.get(identifier.getType());
+                    Integer id = (idsOfType == null) ? null : idsOfType.get(identifier.getId());
+                    if (id == null) {
+                        if (log.isDebugEnabled()) {
+                            log.debug("No device is found upon the device identifier '" + identifier.getId() +
+                                    "' and type '" + identifier.getType() + "'. Therefore skipping it");
+                        }
+                        continue;
+                    }
+                    deviceIds.add(id);
+                    identifiers.add(identifier);
                 }
+                deviceInfos = deviceDetailsDAO.getDevicesInformation(deviceIds);
+                deviceProperties = deviceDetailsDAO.getDevicesProperties(deviceIds);
+            } catch (SQLException e) {
+                throw new DeviceDetailsMgtException("SQL error occurred while retrieving devices from database.", e);
+            } catch (DeviceManagementDAOException e) {
+                throw new DeviceDetailsMgtException("Exception occurred while retrieving the devices.", e);
+            } catch (DeviceDetailsMgtDAOException e) {
+                throw new DeviceDetailsMgtException("Exception occurred while retrieving devices details.", e);
+            } finally {
+                DeviceManagementDAOFactory.closeConnection();
             }
-            DeviceManagementDAOFactory.openConnection();
-            for (Integer id : deviceIds) {
-                DeviceInfo deviceInfo = deviceDetailsDAO.getDeviceInformation(id);
-                deviceInfo.setDeviceDetailsMap(deviceDetailsDAO.getDeviceProperties(id));
-                deviceInfos.add(deviceInfo);
+
+            for (int i = 0; i < deviceIds.size(); i++) {
+                DeviceInfo deviceInfo = deviceInfos.get(deviceIds.get(i));
+                if (deviceInfo == null) {
+                    continue;
+                }
+                Map<String, String> properties = deviceProperties.get(deviceIds.get(i));
+                deviceInfo.setDeviceDetailsMap(properties == null ? new HashMap<String, String>() : properties);
+                handler.handle(identifiers.get(i), deviceInfo);
             }
-        } catch (SQLException e) {
-            throw new DeviceDetailsMgtException("SQL error occurred while retrieving devices from database.", e);
-        } catch (DeviceManagementException e) {
-            throw new DeviceDetailsMgtException("Exception occurred while retrieving the devices.", e);
-        } catch (DeviceDetailsMgtDAOException e) {
-            throw new DeviceDetailsMgtException("Exception occurred while retrieving devices details.", e);
-        } finally {
-            DeviceManagementDAOFactory.closeConnection();
         }
-        return deviceInfos;
     }
 
     @Override
@@ -161,6 +198,8 @@ public class DeviceInformationManagerImpl implements DeviceInformationManager {
             deviceDetailsDAO.deleteDeviceLocation(deviceLocation.getDeviceId());
             deviceDetailsDAO.addDeviceLocation(deviceLocation);
             DeviceManagementDAOFactory.commitTransaction();
+            DeviceSearchIndexManagerImpl.getInstance().updateDeviceLocation(
+                    CarbonContext.getThreadLocalCarbonContext().getTenantId(), deviceLocation);
         } catch (TransactionManagementException e) {
             throw new DeviceDetailsMgtException("Transactional error occurred while adding the device location " +
                     "information.", e);
@@ -176,6 +215,8 @@ public class DeviceInformationManagerImpl implements DeviceInformationManager {
                     "the device", e);
         } finally {
             DeviceManagementDAOFactory.closeConnection();
+            DeviceCacheManagerImpl.getInstance().removeDeviceFromCache(deviceLocation.getDeviceIdentifier(),
+                    CarbonContext.getThreadLocalCarbonContext().getTenantId());
         }
     }
 
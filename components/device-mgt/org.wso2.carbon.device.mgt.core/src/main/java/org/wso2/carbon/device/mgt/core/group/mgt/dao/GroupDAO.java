@@ -23,6 +23,7 @@ import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
 import org.wso2.carbon.device.mgt.core.group.mgt.DeviceGroupBuilder;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * This interface represents the key operations associated with persisting group related information.
@@ -90,6 +91,18 @@ public interface GroupDAO {
      */
     List<DeviceGroupBuilder> getGroups(int deviceId, int tenantId) throws GroupManagementDAOException;
 
+    /**
+     * Get the ids of the groups of many devices of a device type at once.
+     *
+     * @param type                  device type of the devices.
+     * @param deviceIdentifications identifiers of the devices.
+     * @param tenantId              tenant of the devices.
+     * @return group ids keyed by device identifier. Devices which do not belong to any group are left out.
+     * @throws GroupManagementDAOException
+     */
+    Map<String, List<Integer>> getGroupIds(String type, List<String> deviceIdentifications,
+                                           int tenantId) throws GroupManagementDAOException;
+
     /**
      * Get the list of Device Groups in tenant.
      *
@@ -29,7 +29,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class represents implementation of GroupDAO
@@ -204,6 +206,49 @@ public class GroupDAOImpl implements GroupDAO {
         return deviceGroupBuilders;
     }
 
+    @Override
+    public Map<String, List<Integer>> getGroupIds(String type, List<String> deviceIdentifications,
+                                                  int tenantId) throws GroupManagementDAOException {
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        Map<String, List<Integer>> groupIds = new HashMap<>();
+        if (deviceIdentifications == null || deviceIdentifications.isEmpty()) {
+            return groupIds;
+        }
+        try {
+            Connection conn = GroupManagementDAOFactory.getConnection();
+            String sql = "SELECT d.DEVICE_IDENTIFICATION, GM.GROUP_ID FROM DM_DEVICE_GROUP_MAP GM INNER JOIN " +
+                    "DM_DEVICE d ON GM.DEVICE_ID = d.ID INNER JOIN DM_DEVICE_TYPE t ON d.DEVICE_TYPE_ID = t.ID " +
+                    "WHERE t.NAME = ? AND d.DEVICE_IDENTIFICATION IN (" +
+                    DeviceManagementDAOUtil.getPlaceholders(deviceIdentifications.size()) + ") AND " +
+                    "d.TENANT_ID = ? AND GM.TENANT_ID = ?";
+            stmt = conn.prepareStatement(sql);
+            int index = 1;
+            stmt.setString(index++, type);
+            for (String deviceIdentification : deviceIdentifications) {
+                stmt.setString(index++, deviceIdentification);
+            }
+            stmt.setInt(index++, tenantId);
+            stmt.setInt(index, tenantId);
+            resultSet = stmt.executeQuery();
+            while (resultSet.next()) {
+                String deviceIdentification = resultSet.getString("DEVICE_IDENTIFICATION");
+                List<Integer> deviceGroupIds = groupIds.get(deviceIdentification);
+                if (deviceGroupIds == null) {
+                    deviceGroupIds = new ArrayList<>();
+                    groupIds.put(deviceIdentification, deviceGroupIds);
+                }
+                deviceGroupIds.add(resultSet.getInt("GROUP_ID"));
+            }
+        } catch (SQLException e) {
+            throw new GroupManagementDAOException("Error occurred while obtaining the groups of '" + type +
+                    "' devices", e);
+        } finally {
+            GroupManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+        return groupIds;
+    }
+
     @Override
     public List<DeviceGroupBuilder> getGroups(int startIndex, int rowCount, int tenantId)
             throws GroupManagementDAOException {
@@ -37,18 +37,28 @@ import org.wso2.carbon.device.mgt.core.app.mgt.ApplicationManagerProviderService
 import org.wso2.carbon.device.mgt.core.app.mgt.config.AppManagementConfig;
 import org.wso2.carbon.device.mgt.core.app.mgt.config.AppManagementConfigurationManager;
 import org.wso2.carbon.device.mgt.core.authorization.DeviceAccessAuthorizationServiceImpl;
+import org.wso2.carbon.device.mgt.core.cache.DeviceCacheStatisticsMBean;
+import org.wso2.carbon.device.mgt.core.cache.impl.DeviceCacheManagerImpl;
 import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
 import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
 import org.wso2.carbon.device.mgt.core.config.datasource.DataSourceConfig;
+import org.wso2.carbon.device.mgt.core.config.operation.OperationConfiguration;
 import org.wso2.carbon.device.mgt.core.config.tenant.PlatformConfigurationManagementServiceImpl;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.notification.mgt.NotificationManagementServiceImpl;
 import org.wso2.carbon.device.mgt.core.notification.mgt.dao.NotificationManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.operation.mgt.CheckInUpdateBuffer;
+import org.wso2.carbon.device.mgt.core.operation.mgt.CheckInUpdateBufferStatisticsMBean;
 import org.wso2.carbon.device.mgt.core.operation.mgt.OperationManagerImpl;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.operation.mgt.payload.OperationPayloadMigrator;
 import org.wso2.carbon.device.mgt.core.permission.mgt.PermissionManagerServiceImpl;
+import org.wso2.carbon.device.mgt.core.push.notification.mgt.PushNotificationDispatcher;
+import org.wso2.carbon.device.mgt.core.push.notification.mgt.PushNotificationDispatcherStatisticsMBean;
 import org.wso2.carbon.device.mgt.core.push.notification.mgt.PushNotificationProviderRepository;
+import org.wso2.carbon.device.mgt.core.search.mgt.SearchMgtException;
+import org.wso2.carbon.device.mgt.core.search.mgt.impl.DeviceSearchIndexManagerImpl;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderServiceImpl;
 import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService;
@@ -60,6 +70,11 @@ import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.user.core.service.RealmService;
 import org.wso2.carbon.utils.ConfigurationContextService;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -175,9 +190,12 @@ public class DeviceManagementServiceComponent {
                 }
                 this.setupDeviceManagementSchema(dsConfig);
             }
+            this.migrateLegacyPayloads(config);
+            this.loadSearchIndex();
 
             /* Registering declarative service instances exposed by DeviceManagementServiceComponent */
             this.registerServices(componentContext);
+            this.registerStatistics();
 
             /* This is a workaround to initialize all Device Management Service Providers after the initialization
              * of Device Management Service component in order to avoid bundle start up order related complications */
@@ -192,7 +210,78 @@ public class DeviceManagementServiceComponent {
 
     @SuppressWarnings("unused")
     protected void deactivate(ComponentContext componentContext) {
-        //do nothing
+        PushNotificationDispatcher.getInstance().shutdown();
+        CheckInUpdateBuffer.getInstance().shutdown();
+        this.unregisterStatistics();
+    }
+
+    private void registerStatistics() {
+        this.registerStatisticsMBean(new StandardMBean(DeviceCacheManagerImpl.getInstance(),
+                DeviceCacheStatisticsMBean.class, false), DeviceManagementConstants.DeviceCache.STATISTICS_MBEAN_NAME);
+        this.registerStatisticsMBean(new StandardMBean(CheckInUpdateBuffer.getInstance(),
+                CheckInUpdateBufferStatisticsMBean.class, false),
+                DeviceManagementConstants.CheckInUpdates.STATISTICS_MBEAN_NAME);
+        this.registerStatisticsMBean(new StandardMBean(PushNotificationDispatcher.getInstance(),
+                PushNotificationDispatcherStatisticsMBean.class, false),
+                DeviceManagementConstants.PushNotifications.STATISTICS_MBEAN_NAME);
+    }
+
+    private void unregisterStatistics() {
+        this.unregisterStatisticsMBean(DeviceManagementConstants.DeviceCache.STATISTICS_MBEAN_NAME);
+        this.unregisterStatisticsMBean(DeviceManagementConstants.CheckInUpdates.STATISTICS_MBEAN_NAME);
+        this.unregisterStatisticsMBean(DeviceManagementConstants.PushNotifications.STATISTICS_MBEAN_NAME);
+    }
+
+    private void registerStatisticsMBean(StandardMBean mBean, String name) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (!mBeanServer.isRegistered(objectName)) {
+                mBeanServer.registerMBean(mBean, objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error occurred while registering the statistics MBean '" + name + "'", e);
+        }
+    }
+
+    private void unregisterStatisticsMBean(String name) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException e) {
+            log.error("Error occurred while unregistering the statistics MBean '" + name + "'", e);
+        }
+    }
+
+    private void migrateLegacyPayloads(DeviceManagementConfig config) {
+        OperationConfiguration operationConfig = config.getOperationConfiguration();
+        if (operationConfig != null && operationConfig.isMigrateLegacyPayloads()) {
+            Thread migratorThread = new Thread(new OperationPayloadMigrator(operationConfig.getBatchSize()),
+                    "OperationPayloadMigrator");
+            migratorThread.setDaemon(true);
+            migratorThread.start();
+        }
+    }
+
+    private void loadSearchIndex() {
+        if (DeviceSearchIndexManagerImpl.getInstance().isEnabled()) {
+            /* Searches are answered by the database until the index has been loaded */
+            Thread loaderThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        DeviceSearchIndexManagerImpl.getInstance().loadIndex();
+                    } catch (SearchMgtException e) {
+                        log.error("Error occurred while loading the device search index", e);
+                    }
+                }
+            }, "DeviceSearchIndexLoader");
+            loaderThread.setDaemon(true);
+            loaderThread.start();
+        }
     }
 
     private void initOperationsManager() throws OperationManagementException {
@@ -0,0 +1,374 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND,
+ * either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.common.TransactionManagementException;
+import org.wso2.carbon.device.mgt.core.cache.impl.DeviceCacheManagerImpl;
+import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
+import org.wso2.carbon.device.mgt.core.config.operation.OperationConfiguration;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.EnrollmentDAO;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationDAO;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOException;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for the updates issued while devices check in for their pending operations, which are the
+ * policy compliance attempt count resets and the reactivation of inactive or unreachable enrolments. Repeated updates
+ * of the same enrolment are coalesced, and the buffered updates are written with a single statement per tenant and
+ * batch once the flush interval elapses or the buffer reaches the flush threshold.
+ */
+public class CheckInUpdateBuffer implements CheckInUpdateBufferStatisticsMBean {
+
+    private static final Log log = LogFactory.getLog(CheckInUpdateBuffer.class);
+    private static final long SHUTDOWN_TIMEOUT = 30;
+    private static final List<EnrolmentInfo.Status> REACTIVATED_STATUSES =
+            Arrays.asList(EnrolmentInfo.Status.INACTIVE, EnrolmentInfo.Status.UNREACHABLE);
+    private static volatile CheckInUpdateBuffer checkInUpdateBuffer;
+
+    private OperationDAO operationDAO;
+    private EnrollmentDAO enrollmentDAO;
+    private int flushThreshold;
+    private volatile boolean shutdown;
+    private ConcurrentMap<Integer, Integer> attemptCountResets = new ConcurrentHashMap<>();
+    private ConcurrentMap<Integer, EnrolmentActivation> enrolmentActivations = new ConcurrentHashMap<>();
+    private AtomicInteger bufferDepth = new AtomicInteger();
+    private AtomicBoolean flushRequested = new AtomicBoolean();
+    private ScheduledExecutorService flushExecutor;
+    private Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushRequested.set(false);
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                log.error("Error occurred while flushing the buffered check-in updates", e);
+            }
+        }
+    };
+
+    private AtomicLong flushCount = new AtomicLong();
+    private AtomicLong failedFlushCount = new AtomicLong();
+    private AtomicLong flushedUpdateCount = new AtomicLong();
+    private AtomicLong totalFlushLatency = new AtomicLong();
+    private AtomicLong lastFlushLatency = new AtomicLong();
+    private AtomicLong maxFlushLatency = new AtomicLong();
+
+    private CheckInUpdateBuffer() {
+        int flushInterval = OperationConfiguration.DEFAULT_CHECK_IN_UPDATE_FLUSH_INTERVAL;
+        int flushThreshold = OperationConfiguration.DEFAULT_CHECK_IN_UPDATE_FLUSH_THRESHOLD;
+        DeviceManagementConfig config = DeviceConfigurationManager.getInstance().getDeviceManagementConfig();
+        if (config != null && config.getOperationConfiguration() != null) {
+            flushInterval = config.getOperationConfiguration().getCheckInUpdateFlushInterval();
+            flushThreshold = config.getOperationConfiguration().getCheckInUpdateFlushThreshold();
+        }
+        this.init(flushInterval, flushThreshold);
+    }
+
+    CheckInUpdateBuffer(OperationDAO operationDAO, EnrollmentDAO enrollmentDAO, int flushInterval,
+                        int flushThreshold) {
+        this.operationDAO = operationDAO;
+        this.enrollmentDAO = enrollmentDAO;
+        this.init(flushInterval, flushThreshold);
+    }
+
+    private void init(int flushInterval, int flushThreshold) {
+        this.flushThreshold = flushThreshold;
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "CheckInUpdateBuffer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        flushExecutor.scheduleWithFixedDelay(flushTask, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    public static CheckInUpdateBuffer getInstance() {
+        if (checkInUpdateBuffer == null) {
+            synchronized (CheckInUpdateBuffer.class) {
+                if (checkInUpdateBuffer == null) {
+                    checkInUpdateBuffer = new CheckInUpdateBuffer();
+                }
+            }
+        }
+        return checkInUpdateBuffer;
+    }
+
+    public void resetAttemptCount(int enrolmentId, int tenantId) {
+        if (attemptCountResets.put(enrolmentId, tenantId) == null) {
+            this.onUpdateBuffered();
+        }
+    }
+
+    /**
+     * Buffers setting an inactive or unreachable enrolment back to active. The enrolment is left untouched if its
+     * status has been changed to anything else by the time the update is written.
+     */
+    public void activateEnrolment(DeviceIdentifier deviceId, int enrolmentId, int tenantId) {
+        if (enrolmentActivations.put(enrolmentId, new EnrolmentActivation(deviceId, tenantId)) == null) {
+            this.onUpdateBuffered();
+        }
+    }
+
+    /**
+     * Writes all the buffered updates. Updates that could not be written are buffered again, unless a newer update of
+     * the same enrolment has been buffered meanwhile, so that they are retried with the next flush.
+     */
+    @Override
+    public synchronized void flush() {
+        Map<Integer, List<Integer>> tenantResets = new HashMap<>();
+        for (Map.Entry<Integer, Integer> reset : attemptCountResets.entrySet()) {
+            if (attemptCountResets.remove(reset.getKey(), reset.getValue())) {
+                bufferDepth.decrementAndGet();
+                this.getTenantEntries(tenantResets, reset.getValue()).add(reset.getKey());
+            }
+        }
+        Map<Integer, List<Integer>> tenantActivations = new HashMap<>();
+        Map<Integer, EnrolmentActivation> activations = new HashMap<>();
+        for (Map.Entry<Integer, EnrolmentActivation> activation : enrolmentActivations.entrySet()) {
+            if (enrolmentActivations.remove(activation.getKey(), activation.getValue())) {
+                bufferDepth.decrementAndGet();
+                this.getTenantEntries(tenantActivations, activation.getValue().tenantId).add(activation.getKey());
+                activations.put(activation.getKey(), activation.getValue());
+            }
+        }
+        if (tenantResets.isEmpty() && tenantActivations.isEmpty()) {
+            return;
+        }
+
+        long startTime = System.currentTimeMillis();
+        int batchSize = DeviceManagerUtil.getBatchSize();
+        boolean failed = false;
+        for (Map.Entry<Integer, List<Integer>> resets : tenantResets.entrySet()) {
+            for (List<Integer> batch : DeviceManagerUtil.getBatches(resets.getValue(), batchSize)) {
+                if (!this.writeAttemptCountResets(batch, resets.getKey())) {
+                    failed = true;
+                }
+            }
+        }
+        for (Map.Entry<Integer, List<Integer>> enrolmentIds : tenantActivations.entrySet()) {
+            for (List<Integer> batch : DeviceManagerUtil.getBatches(enrolmentIds.getValue(), batchSize)) {
+                if (!this.writeEnrolmentActivations(batch, enrolmentIds.getKey(), activations)) {
+                    failed = true;
+                }
+            }
+        }
+        long latency = System.currentTimeMillis() - startTime;
+
+        flushCount.incrementAndGet();
+        if (failed) {
+            failedFlushCount.incrementAndGet();
+        }
+        totalFlushLatency.addAndGet(latency);
+        lastFlushLatency.set(latency);
+        long maxLatency = maxFlushLatency.get();
+        while (latency > maxLatency && !maxFlushLatency.compareAndSet(maxLatency, latency)) {
+            maxLatency = maxFlushLatency.get();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Flushed buffered check-in updates in " + latency + "ms");
+        }
+    }
+
+    /**
+     * Stops the periodic flushing and writes the remaining buffered updates. Updates buffered after the shutdown are
+     * written immediately.
+     */
+    public void shutdown() {
+        shutdown = true;
+        flushExecutor.shutdown();
+        try {
+            if (!flushExecutor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                log.warn("Timed out while waiting for the in progress check-in update flush to complete");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        this.flush();
+        if (bufferDepth.get() > 0) {
+            // Retry once, since the failed updates have been buffered again by the previous flush
+            this.flush();
+        }
+        if (bufferDepth.get() > 0) {
+            log.error(bufferDepth.get() + " buffered check-in updates could not be written during shutdown");
+        }
+    }
+
+    @Override
+    public int getBufferDepth() {
+        return bufferDepth.get();
+    }
+
+    @Override
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    @Override
+    public long getFailedFlushCount() {
+        return failedFlushCount.get();
+    }
+
+    @Override
+    public long getFlushedUpdateCount() {
+        return flushedUpdateCount.get();
+    }
+
+    @Override
+    public long getLastFlushLatency() {
+        return lastFlushLatency.get();
+    }
+
+    @Override
+    public long getMaxFlushLatency() {
+        return maxFlushLatency.get();
+    }
+
+    @Override
+    public double getAverageFlushLatency() {
+        long count = flushCount.get();
+        return count > 0 ? (double) totalFlushLatency.get() / count : 0;
+    }
+
+    @Override
+    public void resetStatistics() {
+        flushCount.set(0);
+        failedFlushCount.set(0);
+        flushedUpdateCount.set(0);
+        totalFlushLatency.set(0);
+        lastFlushLatency.set(0);
+        maxFlushLatency.set(0);
+    }
+
+    private void onUpdateBuffered() {
+        int depth = bufferDepth.incrementAndGet();
+        if (shutdown) {
+            this.flush();
+        } else if (depth >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(flushTask);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+                this.flush();
+            }
+        }
+    }
+
+    private boolean writeAttemptCountResets(List<Integer> enrolmentIds, int tenantId) {
+        OperationDAO operationDAO = (this.operationDAO != null) ? this.operationDAO :
+                OperationManagementDAOFactory.getOperationDAO();
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            operationDAO.resetAttemptCount(enrolmentIds, tenantId);
+            OperationManagementDAOFactory.commitTransaction();
+            flushedUpdateCount.addAndGet(enrolmentIds.size());
+            return true;
+        } catch (OperationManagementDAOException e) {
+            OperationManagementDAOFactory.rollbackTransaction();
+            log.error("Error occurred while resetting the attempt count of " + enrolmentIds.size() +
+                    " enrolments of tenant '" + tenantId + "'", e);
+        } catch (TransactionManagementException e) {
+            log.error("Error occurred while initiating a transaction to reset attempt counts", e);
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+        for (Integer enrolmentId : enrolmentIds) {
+            if (attemptCountResets.putIfAbsent(enrolmentId, tenantId) == null) {
+                bufferDepth.incrementAndGet();
+            }
+        }
+        return false;
+    }
+
+    private boolean writeEnrolmentActivations(List<Integer> enrolmentIds, int tenantId,
+                                              Map<Integer, EnrolmentActivation> activations) {
+        EnrollmentDAO enrollmentDAO = (this.enrollmentDAO != null) ? this.enrollmentDAO :
+                DeviceManagementDAOFactory.getEnrollmentDAO();
+        boolean written = false;
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            enrollmentDAO.setStatus(enrolmentIds, REACTIVATED_STATUSES, EnrolmentInfo.Status.ACTIVE, tenantId);
+            DeviceManagementDAOFactory.commitTransaction();
+            flushedUpdateCount.addAndGet(enrolmentIds.size());
+            written = true;
+        } catch (DeviceManagementDAOException e) {
+            DeviceManagementDAOFactory.rollbackTransaction();
+            log.error("Error occurred while activating " + enrolmentIds.size() + " enrolments of tenant '" +
+                    tenantId + "'", e);
+        } catch (TransactionManagementException e) {
+            log.error("Error occurred while initiating a transaction to activate enrolments", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        for (Integer enrolmentId : enrolmentIds) {
+            EnrolmentActivation activation = activations.get(enrolmentId);
+            if (written) {
+                DeviceCacheManagerImpl.getInstance().removeDeviceFromCache(activation.deviceId, tenantId);
+            } else if (enrolmentActivations.putIfAbsent(enrolmentId, activation) == null) {
+                bufferDepth.incrementAndGet();
+            }
+        }
+        return written;
+    }
+
+    private List<Integer> getTenantEntries(Map<Integer, List<Integer>> tenantEntries, int tenantId) {
+        List<Integer> entries = tenantEntries.get(tenantId);
+        if (entries == null) {
+            entries = new ArrayList<>();
+            tenantEntries.put(tenantId, entries);
+        }
+        return entries;
+    }
+
+    private static class EnrolmentActivation {
+
+        private DeviceIdentifier deviceId;
+        private int tenantId;
+
+        EnrolmentActivation(DeviceIdentifier deviceId, int tenantId) {
+            this.deviceId = deviceId;
+            this.tenantId = tenantId;
+        }
+    }
+
+}
@@ -23,18 +23,21 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.CarbonContext;
 import org.wso2.carbon.device.mgt.common.*;
 import org.wso2.carbon.device.mgt.common.authorization.DeviceAccessAuthorizationException;
+import org.wso2.carbon.device.mgt.common.authorization.DeviceAuthorizationResult;
 import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroupConstants;
 import org.wso2.carbon.device.mgt.common.operation.mgt.*;
 import org.wso2.carbon.device.mgt.common.push.notification.NotificationContext;
 import org.wso2.carbon.device.mgt.common.push.notification.NotificationStrategy;
-import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationExecutionFailedException;
+import org.wso2.carbon.device.mgt.common.push.notification.TokenBasedNotificationStrategy;
 import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
+import org.wso2.carbon.device.mgt.core.cache.PendingOperationCacheManager;
+import org.wso2.carbon.device.mgt.core.cache.impl.PendingOperationCacheManagerImpl;
 import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
 import org.wso2.carbon.device.mgt.core.config.task.TaskConfiguration;
 import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
-import org.wso2.carbon.device.mgt.core.dao.EnrollmentDAO;
+import org.wso2.carbon.device.mgt.core.dao.PushTokenDAO;
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationDAO;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOException;
@@ -43,15 +46,22 @@ import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationMappingDAO;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.util.OperationDAOUtil;
 import org.wso2.carbon.device.mgt.core.operation.mgt.util.DeviceIDHolder;
 import org.wso2.carbon.device.mgt.core.operation.mgt.util.OperationCreateTimeComparator;
+import org.wso2.carbon.device.mgt.core.push.notification.mgt.PushNotificationDispatcher;
 import org.wso2.carbon.device.mgt.core.task.DeviceTaskManager;
 import org.wso2.carbon.device.mgt.core.task.impl.DeviceTaskManagerImpl;
 import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
 
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * This class implements all the functionality exposed as part of the OperationManager. Any transaction initiated
@@ -69,7 +79,7 @@ public class OperationManagerImpl implements OperationManager {
     private OperationMappingDAO operationMappingDAO;
     private OperationDAO operationDAO;
     private DeviceDAO deviceDAO;
-    private EnrollmentDAO enrollmentDAO;
+    private PushTokenDAO pushTokenDAO;
     private NotificationStrategy notificationStrategy;
 
     public OperationManagerImpl() {
@@ -80,7 +90,7 @@ public class OperationManagerImpl implements OperationManager {
         operationMappingDAO = OperationManagementDAOFactory.getOperationMappingDAO();
         operationDAO = OperationManagementDAOFactory.getOperationDAO();
         deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
-        enrollmentDAO = DeviceManagementDAOFactory.getEnrollmentDAO();
+        pushTokenDAO = DeviceManagementDAOFactory.getPushTokenDAO();
     }
 
     public OperationManagerImpl(NotificationStrategy notificationStrategy) {
@@ -88,6 +98,10 @@ public class OperationManagerImpl implements OperationManager {
         this.notificationStrategy = notificationStrategy;
     }
 
+    public NotificationStrategy getNotificationStrategy() {
+        return notificationStrategy;
+    }
+
     @Override
     public Activity addOperation(Operation operation,
                                  List<DeviceIdentifier> deviceIds)
@@ -100,7 +114,8 @@ public class OperationManagerImpl implements OperationManager {
             }
         }
         try {
-            DeviceIDHolder deviceValidationResult = DeviceManagerUtil.validateDeviceIdentifiers(deviceIds);
+            Map<DeviceIdentifier, EnrolmentInfo> enrolments = this.getMatchingEnrolments(deviceIds);
+            DeviceIDHolder deviceValidationResult = DeviceManagerUtil.validateDeviceIdentifiers(deviceIds, enrolments);
             List<DeviceIdentifier> validDeviceIds = deviceValidationResult.getValidDeviceIDList();
             if (validDeviceIds.size() > 0) {
                 DeviceIDHolder deviceAuthorizationResult = this.authorizeDevices(operation, validDeviceIds);
@@ -115,52 +130,68 @@ public class OperationManagerImpl implements OperationManager {
                     return activity;
                 }
 
+                List<Integer> enrolmentIds = new ArrayList<>(authorizedDeviceList.size());
+                List<NotificationContext> notificationContexts = new ArrayList<>(authorizedDeviceList.size());
+                for (DeviceIdentifier deviceId : authorizedDeviceList) {
+                    enrolmentIds.add(enrolments.get(deviceId).getId());
+                    notificationContexts.add(new NotificationContext(deviceId, operation));
+                }
+                if (notificationStrategy instanceof TokenBasedNotificationStrategy) {
+                    this.setPushTokens(notificationContexts, enrolmentIds);
+                }
+
                 OperationManagementDAOFactory.beginTransaction();
                 org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation operationDto =
                         OperationDAOUtil.convertOperation(operation);
                 int operationId = this.lookupOperationDAO(operation).addOperation(operationDto);
                 boolean isScheduledOperation = this.isTaskScheduledOperation(operation);
                 boolean isNotRepeated = false;
-                boolean hasExistingTaskOperation;
-                int enrolmentId;
                 if (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Control.NO_REPEAT == operationDto.
                                                                                                          getControl()) {
                     isNotRepeated = true;
                 }
 
-                //TODO have to create a sql to load device details from deviceDAO using single query.
                 String operationCode = operationDto.getCode();
-                for (DeviceIdentifier deviceId : authorizedDeviceList) {
-                    Device device = getDevice(deviceId);
-                    enrolmentId = device.getEnrolmentInfo().getId();
-                    //Do not repeat the task operations
-                    if (isScheduledOperation) {
-                        hasExistingTaskOperation = operationDAO.updateTaskOperation(enrolmentId, operationCode);
-                        if (!hasExistingTaskOperation) {
-                            operationMappingDAO.addOperationMapping(operationId, enrolmentId);
+                int batchSize = DeviceManagerUtil.getBatchSize();
+                List<Integer> mappedEnrolmentIds;
+                //Do not repeat the task operations
+                if (isScheduledOperation) {
+                    mappedEnrolmentIds = new ArrayList<>();
+                    for (List<Integer> batch : DeviceManagerUtil.getBatches(enrolmentIds, batchSize)) {
+                        Set<Integer> pendingEnrolmentIds =
+                                new HashSet<>(operationDAO.updateTaskOperations(batch, operationCode));
+                        for (Integer enrolmentId : batch) {
+                            if (!pendingEnrolmentIds.contains(enrolmentId)) {
+                                mappedEnrolmentIds.add(enrolmentId);
+                            }
                         }
-                    } else if (isNotRepeated) {
-                        operationDAO.updateEnrollmentOperationsStatus(enrolmentId, operationCode,
-                                                                      org.wso2.carbon.device.mgt.core.dto.operation.mgt.
-                                                                              Operation.Status.PENDING,
-                                                                      org.wso2.carbon.device.mgt.core.dto.operation.mgt.
-                                                                              Operation.Status.REPEATED);
-                        operationMappingDAO.addOperationMapping(operationId, enrolmentId);
-                    } else {
-                        operationMappingDAO.addOperationMapping(operationId, enrolmentId);
                     }
-                    if (notificationStrategy != null) {
-                        try {
-                            notificationStrategy.execute(new NotificationContext(deviceId, operation));
-                        } catch (PushNotificationExecutionFailedException e) {
-                            log.error("Error occurred while sending push notifications to " +
-                                      deviceId.getType() + " device carrying id '" +
-                                      deviceId + "'", e);
+                } else {
+                    if (isNotRepeated) {
+                        for (List<Integer> batch : DeviceManagerUtil.getBatches(enrolmentIds, batchSize)) {
+                            operationDAO.updateEnrollmentOperationsStatus(batch, operationCode,
+                                                                          org.wso2.carbon.device.mgt.core.dto.
+                                                                                  operation.mgt.Operation.Status.PENDING,
+                                                                          org.wso2.carbon.device.mgt.core.dto.
+                                                                                  operation.mgt.Operation.Status.REPEATED);
                         }
                     }
+                    mappedEnrolmentIds = enrolmentIds;
+                }
+                for (List<Integer> batch : DeviceManagerUtil.getBatches(mappedEnrolmentIds, batchSize)) {
+                    operationMappingDAO.addOperationMapping(operationId, batch);
                 }
 
                 OperationManagementDAOFactory.commitTransaction();
+                PendingOperationCacheManager pendingOperationCache = PendingOperationCacheManagerImpl.getInstance();
+                if (isNotRepeated && !isScheduledOperation) {
+                    pendingOperationCache.removePendingOperations(enrolmentIds, operationCode);
+                }
+                pendingOperationCache.addPendingOperation(mappedEnrolmentIds,
+                                                          this.getPendingOperation(operationDto, operationId));
+                if (notificationStrategy != null) {
+                    PushNotificationDispatcher.getInstance().dispatch(notificationStrategy, notificationContexts);
+                }
                 Activity activity = new Activity();
                 activity.setActivityId(DeviceManagementConstants.OperationAttributes.ACTIVITY + operationId);
                 activity.setCode(operationCode);
@@ -226,16 +257,11 @@ public class OperationManagerImpl implements OperationManager {
             if (operation != null && isAuthenticationSkippedOperation(operation)) {
                 authorizedDeviceList = deviceIds;
             } else {
-                boolean isAuthorized;
-                authorizedDeviceList = new ArrayList<>();
-                for (DeviceIdentifier devId : deviceIds) {
-                    isAuthorized = DeviceManagementDataHolder.getInstance().getDeviceAccessAuthorizationService().
-                            isUserAuthorized(devId);
-                    if (isAuthorized) {
-                        authorizedDeviceList.add(devId);
-                    } else {
-                        unAuthorizedDeviceList.add(devId.getId());
-                    }
+                DeviceAuthorizationResult authorizationResult = DeviceManagementDataHolder.getInstance().
+                        getDeviceAccessAuthorizationService().isUserAuthorized(deviceIds);
+                authorizedDeviceList = authorizationResult.getAuthorizedDevices();
+                for (DeviceIdentifier devId : authorizationResult.getUnauthorizedDevices()) {
+                    unAuthorizedDeviceList.add(devId.getId());
                 }
             }
         } catch (DeviceAccessAuthorizationException e) {
@@ -247,21 +273,81 @@ public class OperationManagerImpl implements OperationManager {
         return deviceIDHolder;
     }
 
-    private Device getDevice(DeviceIdentifier deviceId) throws OperationManagementException {
+    private Map<DeviceIdentifier, EnrolmentInfo> getMatchingEnrolments(
+            List<DeviceIdentifier> deviceIds) throws OperationManagementException {
         int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        Map<String, List<DeviceIdentifier>> deviceIdsByType = new HashMap<>();
+        for (DeviceIdentifier deviceId : deviceIds) {
+            if (deviceId.getId() == null || deviceId.getId().isEmpty()) {
+                continue;
+            }
+            List<DeviceIdentifier> ids = deviceIdsByType.get(deviceId.getType());
+            if (ids == null) {
+                ids = new ArrayList<>();
+                deviceIdsByType.put(deviceId.getType(), ids);
+            }
+            ids.add(deviceId);
+        }
+        Map<DeviceIdentifier, EnrolmentInfo> enrolments = new HashMap<>();
         try {
             DeviceManagementDAOFactory.openConnection();
-            return deviceDAO.getDevice(deviceId, tenantId);
+            int batchSize = DeviceManagerUtil.getBatchSize();
+            for (Map.Entry<String, List<DeviceIdentifier>> entry : deviceIdsByType.entrySet()) {
+                for (List<DeviceIdentifier> batch : DeviceManagerUtil.getBatches(entry.getValue(), batchSize)) {
+                    List<String> deviceIdentifications = new ArrayList<>(batch.size());
+                    for (DeviceIdentifier deviceId : batch) {
+                        deviceIdentifications.add(deviceId.getId());
+                    }
+                    Map<String, EnrolmentInfo> matchingEnrolments =
+                            deviceDAO.getMatchingEnrolments(entry.getKey(), deviceIdentifications, tenantId);
+                    for (DeviceIdentifier deviceId : batch) {
+                        EnrolmentInfo enrolmentInfo = matchingEnrolments.get(deviceId.getId());
+                        if (enrolmentInfo != null) {
+                            enrolments.put(deviceId, enrolmentInfo);
+                        }
+                    }
+                }
+            }
         } catch (SQLException e) {
             throw new OperationManagementException("Error occurred while opening a connection the data " +
                                                    "source", e);
         } catch (DeviceManagementDAOException e) {
-            OperationManagementDAOFactory.rollbackTransaction();
-            throw new OperationManagementException(
-                    "Error occurred while retrieving device info", e);
+            throw new OperationManagementException("Error occurred while retrieving enrollment data of the " +
+                                                   "devices", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        return enrolments;
+    }
+
+    /**
+     * Sets the registered push tokens of the devices on their notification contexts, so that the notification
+     * strategy does not need to look the devices up one by one.
+     *
+     * @param notificationContexts Notification contexts of the devices.
+     * @param enrolmentIds         Enrolment ids of the devices, in the same order as the notification contexts.
+     */
+    private void setPushTokens(List<NotificationContext> notificationContexts,
+                               List<Integer> enrolmentIds) throws OperationManagementException {
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        Map<Integer, String> tokens = new HashMap<>();
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            for (List<Integer> batch : DeviceManagerUtil.getBatches(enrolmentIds, DeviceManagerUtil.getBatchSize())) {
+                tokens.putAll(pushTokenDAO.getPushTokens(batch, tenantId));
+            }
+        } catch (SQLException e) {
+            throw new OperationManagementException("Error occurred while opening a connection the data " +
+                                                   "source", e);
+        } catch (DeviceManagementDAOException e) {
+            throw new OperationManagementException("Error occurred while retrieving push tokens of the " +
+                                                   "devices", e);
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
+        for (int i = 0; i < notificationContexts.size(); i++) {
+            notificationContexts.get(i).setToken(tokens.get(enrolmentIds.get(i)));
+        }
     }
 
     @Override
@@ -371,28 +457,31 @@ public class OperationManagerImpl implements OperationManager {
                                                    deviceId.getType());
         }
         int enrolmentId = enrolmentInfo.getId();
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
         //Changing the enrollment status & attempt count if the device is marked as inactive or unreachable
         switch (enrolmentInfo.getStatus()) {
             case ACTIVE:
-                this.resetAttemptCount(enrolmentId);
+                CheckInUpdateBuffer.getInstance().resetAttemptCount(enrolmentId, tenantId);
                 break;
             case INACTIVE:
             case UNREACHABLE:
-                this.resetAttemptCount(enrolmentId);
-                this.setEnrolmentStatus(enrolmentId, EnrolmentInfo.Status.ACTIVE);
+                CheckInUpdateBuffer.getInstance().resetAttemptCount(enrolmentId, tenantId);
+                CheckInUpdateBuffer.getInstance().activateEnrolment(deviceId, enrolmentId, tenantId);
                 break;
         }
 
+        PendingOperationCacheManager pendingOperationCache = PendingOperationCacheManagerImpl.getInstance();
         try {
-            OperationManagementDAOFactory.openConnection();
-            dtoOperationList.addAll(commandOperationDAO.getOperationsByDeviceAndStatus(
-                    enrolmentId, org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING));
-            dtoOperationList.addAll(configOperationDAO.getOperationsByDeviceAndStatus(
-                    enrolmentId, org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING));
-            dtoOperationList.addAll(profileOperationDAO.getOperationsByDeviceAndStatus(
-                    enrolmentId, org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING));
-            dtoOperationList.addAll(policyOperationDAO.getOperationsByDeviceAndStatus(
-                    enrolmentId, org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING));
+            List<org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation> cachedOperations =
+                    pendingOperationCache.getPendingOperations(enrolmentId);
+            if (cachedOperations != null) {
+                dtoOperationList.addAll(cachedOperations);
+            } else {
+                OperationManagementDAOFactory.openConnection();
+                long version = pendingOperationCache.getVersion(enrolmentId);
+                dtoOperationList.addAll(this.loadPendingOperations(enrolmentId));
+                pendingOperationCache.addPendingOperations(enrolmentId, dtoOperationList, version);
+            }
             Operation operation;
             for (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation dtoOperation : dtoOperationList) {
                 operation = OperationDAOUtil.convertOperation(dtoOperation);
@@ -432,23 +521,45 @@ public class OperationManagerImpl implements OperationManager {
                                                    deviceId.getType());
         }
         int enrolmentId = enrolmentInfo.getId();
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
         //Changing the enrollment status & attempt count if the device is marked as inactive or unreachable
         switch (enrolmentInfo.getStatus()) {
             case ACTIVE:
-                this.resetAttemptCount(enrolmentId);
+                CheckInUpdateBuffer.getInstance().resetAttemptCount(enrolmentId, tenantId);
                 break;
             case INACTIVE:
             case UNREACHABLE:
-                this.resetAttemptCount(enrolmentId);
-                this.setEnrolmentStatus(enrolmentId, EnrolmentInfo.Status.ACTIVE);
+                CheckInUpdateBuffer.getInstance().resetAttemptCount(enrolmentId, tenantId);
+                CheckInUpdateBuffer.getInstance().activateEnrolment(deviceId, enrolmentId, tenantId);
                 break;
         }
 
+        PendingOperationCacheManager pendingOperationCache = PendingOperationCacheManagerImpl.getInstance();
+        List<org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation> cachedOperations =
+                pendingOperationCache.getPendingOperations(enrolmentId);
+        if (cachedOperations != null && !cachedOperations.isEmpty()) {
+            return OperationDAOUtil.convertOperation(cachedOperations.get(0));
+        }
+
         try {
             OperationManagementDAOFactory.openConnection();
+            if (cachedOperations == null && pendingOperationCache.isEnabled()) {
+                long version = pendingOperationCache.getVersion(enrolmentId);
+                List<org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation> pendingOperations =
+                        this.loadPendingOperations(enrolmentId);
+                pendingOperationCache.addPendingOperations(enrolmentId, pendingOperations, version);
+                if (!pendingOperations.isEmpty()) {
+                    operation = OperationDAOUtil.convertOperation(pendingOperations.get(0));
+                }
+                return operation;
+            }
             org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation dtoOperation = operationDAO.getNextOperation(
                                                                                                     enrolmentInfo.getId());
             if (dtoOperation != null) {
+                if (cachedOperations != null) {
+                    // An operation has been added through another node, hence the complete list has to be reloaded
+                    pendingOperationCache.removeEnrolmentFromCache(enrolmentId);
+                }
                 if (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Type.COMMAND.equals(dtoOperation.getType()
                 )) {
                     org.wso2.carbon.device.mgt.core.dto.operation.mgt.CommandOperation commandOperation;
@@ -513,6 +624,13 @@ public class OperationManagerImpl implements OperationManager {
                 operationDAO.addOperationResponse(enrolmentId, operationId, operation.getOperationResponse());
             }
             OperationManagementDAOFactory.commitTransaction();
+            if (isUpdated) {
+                if (Operation.Status.PENDING == operation.getStatus()) {
+                    PendingOperationCacheManagerImpl.getInstance().removeEnrolmentFromCache(enrolmentId);
+                } else {
+                    PendingOperationCacheManagerImpl.getInstance().removePendingOperation(enrolmentId, operationId);
+                }
+            }
         } catch (OperationManagementDAOException e) {
             OperationManagementDAOFactory.rollbackTransaction();
             throw new OperationManagementException(
@@ -536,6 +654,7 @@ public class OperationManagerImpl implements OperationManager {
             }
             lookupOperationDAO(operation).deleteOperation(operationId);
             OperationManagementDAOFactory.commitTransaction();
+            PendingOperationCacheManagerImpl.getInstance().removePendingOperation(operationId);
         } catch (OperationManagementDAOException e) {
             OperationManagementDAOFactory.rollbackTransaction();
             throw new OperationManagementException("Error occurred while deleting the operation: " + operationId, e);
@@ -975,42 +1094,50 @@ public class OperationManagerImpl implements OperationManager {
         return enrolmentInfo;
     }
 
-    private boolean setEnrolmentStatus(int enrolmentId, EnrolmentInfo.Status status) throws OperationManagementException {
-        boolean updateStatus;
-        try {
-            DeviceManagementDAOFactory.beginTransaction();
-            int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
-            String user = this.getUser();
-            updateStatus = enrollmentDAO.setStatus(enrolmentId, user, status, tenantId);
-            DeviceManagementDAOFactory.commitTransaction();
-        } catch (DeviceManagementDAOException e) {
-            DeviceManagementDAOFactory.rollbackTransaction();
-            throw new OperationManagementException("Error occurred while updating enrollment status of device of " +
-                                                   "enrolment-id '" + enrolmentId + "'", e);
-        } catch (TransactionManagementException e) {
-            throw new OperationManagementException("Error occurred while initiating a transaction", e);
-        } finally {
-            DeviceManagementDAOFactory.closeConnection();
+    private List<org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation> loadPendingOperations(int enrolmentId)
+            throws OperationManagementDAOException {
+        List<org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation> dtoOperationList = new ArrayList<>();
+        dtoOperationList.addAll(commandOperationDAO.getOperationsByDeviceAndStatus(
+                enrolmentId, org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING));
+        dtoOperationList.addAll(configOperationDAO.getOperationsByDeviceAndStatus(
+                enrolmentId, org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING));
+        dtoOperationList.addAll(profileOperationDAO.getOperationsByDeviceAndStatus(
+                enrolmentId, org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING));
+        dtoOperationList.addAll(policyOperationDAO.getOperationsByDeviceAndStatus(
+                enrolmentId, org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING));
+        for (org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation dtoOperation : dtoOperationList) {
+            if (dtoOperation.getActivityId() == null) {
+                OperationDAOUtil.setActivityId(dtoOperation, dtoOperation.getId());
+            }
         }
-        return updateStatus;
+        // Operation ids are generated in the order the operations are created
+        Collections.sort(dtoOperationList,
+                         new Comparator<org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation>() {
+                             @Override
+                             public int compare(org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation o1,
+                                                org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation o2) {
+                                 return o1.getId() < o2.getId() ? -1 : (o1.getId() == o2.getId() ? 0 : 1);
+                             }
+                         });
+        return dtoOperationList;
     }
 
-    private boolean resetAttemptCount(int enrolmentId) throws OperationManagementException {
-        boolean resetStatus;
-        try {
-            OperationManagementDAOFactory.beginTransaction();
-            resetStatus = operationDAO.resetAttemptCount(enrolmentId);
-            OperationManagementDAOFactory.commitTransaction();
-        } catch (OperationManagementDAOException e) {
-            OperationManagementDAOFactory.rollbackTransaction();
-            throw new OperationManagementException("Error occurred while resetting attempt count of device id : '" +
-                                                   enrolmentId + "'", e);
-        } catch (TransactionManagementException e) {
-            throw new OperationManagementException("Error occurred while initiating a transaction", e);
-        } finally {
-            OperationManagementDAOFactory.closeConnection();
+    /**
+     * Completes a newly persisted operation with the attributes that are returned for it while it is pending.
+     * Command operations are served from their metadata, while the others are served as they were serialized.
+     */
+    private org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation getPendingOperation(
+            org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation operationDto, int operationId) {
+        operationDto.setId(operationId);
+        if (!(operationDto instanceof org.wso2.carbon.device.mgt.core.dto.operation.mgt.ConfigOperation ||
+                operationDto instanceof org.wso2.carbon.device.mgt.core.dto.operation.mgt.ProfileOperation ||
+                operationDto instanceof org.wso2.carbon.device.mgt.core.dto.operation.mgt.PolicyOperation)) {
+            operationDto.setCreatedTimeStamp(new Timestamp(new Date().getTime()).toString());
+            operationDto.setReceivedTimeStamp("");
+            operationDto.setStatus(org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation.Status.PENDING);
+            OperationDAOUtil.setActivityId(operationDto, operationId);
         }
-        return resetStatus;
+        return operationDto;
     }
 
     private boolean isTaskScheduledOperation(Operation operation) {
@@ -60,8 +60,15 @@ public interface OperationDAO {
     void updateEnrollmentOperationsStatus(int enrolmentId, String operationCode, Operation.Status existingStatus,
                                           Operation.Status newStatus) throws OperationManagementDAOException;
 
+    void updateEnrollmentOperationsStatus(List<Integer> enrolmentIds, String operationCode,
+                                          Operation.Status existingStatus, Operation.Status newStatus)
+            throws OperationManagementDAOException;
+
     boolean updateTaskOperation(int enrolmentId, String operationCode) throws OperationManagementDAOException;
 
+    List<Integer> updateTaskOperations(List<Integer> enrolmentIds, String operationCode)
+            throws OperationManagementDAOException;
+
     void addOperationResponse(int enrolmentId, int operationId, Object operationResponse)
             throws OperationManagementDAOException;
 
@@ -81,4 +88,6 @@ public interface OperationDAO {
 
     boolean resetAttemptCount(int enrolmentId) throws OperationManagementDAOException;
 
+    boolean resetAttemptCount(List<Integer> enrolmentIds, int tenantId) throws OperationManagementDAOException;
+
 }
\ No newline at end of file
@@ -18,10 +18,14 @@
  */
 package org.wso2.carbon.device.mgt.core.operation.mgt.dao;
 
+import java.util.List;
+
 public interface OperationMappingDAO {
 
     void addOperationMapping(int operationId, Integer deviceIds) throws OperationManagementDAOException;
 
+    void addOperationMapping(int operationId, List<Integer> enrolmentIds) throws OperationManagementDAOException;
+
     void removeOperationMapping(int operationId, Integer deviceIds) throws OperationManagementDAOException;
 
 }
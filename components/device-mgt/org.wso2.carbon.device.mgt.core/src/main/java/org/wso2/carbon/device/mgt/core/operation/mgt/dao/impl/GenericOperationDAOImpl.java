@@ -27,19 +27,23 @@ import org.wso2.carbon.device.mgt.common.operation.mgt.Activity;
 import org.wso2.carbon.device.mgt.common.operation.mgt.ActivityStatus;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationResponse;
 import org.wso2.carbon.device.mgt.core.DeviceManagementConstants;
+import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
 import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationDAO;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOException;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOUtil;
 import org.wso2.carbon.device.mgt.core.operation.mgt.dao.util.OperationDAOUtil;
+import org.wso2.carbon.device.mgt.core.operation.mgt.payload.OperationPayloadCodecManager;
 
 import java.io.*;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class holds the generic implementation of OperationDAO which can be used to support ANSI db syntax.
@@ -155,6 +159,34 @@ public class GenericOperationDAOImpl implements OperationDAO {
         }
     }
 
+    @Override
+    public void updateEnrollmentOperationsStatus(List<java.lang.Integer> enrolmentIds, String operationCode,
+                                                 Operation.Status existingStatus, Operation.Status newStatus)
+            throws OperationManagementDAOException {
+        PreparedStatement stmt = null;
+        try {
+            Connection connection = OperationManagementDAOFactory.getConnection();
+            stmt = connection.prepareStatement("UPDATE DM_ENROLMENT_OP_MAPPING SET STATUS = ?, UPDATED_TIMESTAMP = ? " +
+                    "WHERE ENROLMENT_ID = ? AND STATUS = ? AND OPERATION_ID IN (SELECT ID FROM DM_OPERATION " +
+                    "WHERE OPERATION_CODE = ?)");
+            long time = System.currentTimeMillis() / 1000;
+            for (java.lang.Integer enrolmentId : enrolmentIds) {
+                stmt.setString(1, newStatus.toString());
+                stmt.setLong(2, time);
+                stmt.setInt(3, enrolmentId);
+                stmt.setString(4, existingStatus.toString());
+                stmt.setString(5, operationCode);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new OperationManagementDAOException("Error occurred while update device mapping operation status " +
+                    "metadata", e);
+        } finally {
+            OperationManagementDAOUtil.cleanupResources(stmt);
+        }
+    }
+
     @Override
     public boolean updateTaskOperation(int enrolmentId, String operationCode)
             throws OperationManagementDAOException {
@@ -193,23 +225,75 @@ public class GenericOperationDAOImpl implements OperationDAO {
         return result;
     }
 
+    @Override
+    public List<java.lang.Integer> updateTaskOperations(List<java.lang.Integer> enrolmentIds, String operationCode)
+            throws OperationManagementDAOException {
+        List<java.lang.Integer> updatedEnrolmentIds = new ArrayList<>();
+        if (enrolmentIds == null || enrolmentIds.isEmpty()) {
+            return updatedEnrolmentIds;
+        }
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            Connection connection = OperationManagementDAOFactory.getConnection();
+            String query = "SELECT EOM.ID, EOM.ENROLMENT_ID FROM DM_ENROLMENT_OP_MAPPING EOM INNER JOIN " +
+                    "DM_OPERATION DM ON DM.ID = EOM.OPERATION_ID WHERE DM.OPERATION_CODE = ? AND EOM.STATUS = ? " +
+                    "AND EOM.ENROLMENT_ID IN (" + DeviceManagementDAOUtil.getPlaceholders(enrolmentIds.size()) + ")";
+            stmt = connection.prepareStatement(query);
+            stmt.setString(1, operationCode);
+            stmt.setString(2, Operation.Status.PENDING.toString());
+            int index = 3;
+            for (java.lang.Integer enrolmentId : enrolmentIds) {
+                stmt.setInt(index++, enrolmentId);
+            }
+            rs = stmt.executeQuery();
+            // Only a single pending mapping of each enrolment is touched, as done for a single enrolment
+            Map<java.lang.Integer, java.lang.Integer> mappingIds = new HashMap<>();
+            while (rs.next()) {
+                if (!mappingIds.containsKey(rs.getInt("ENROLMENT_ID"))) {
+                    mappingIds.put(rs.getInt("ENROLMENT_ID"), rs.getInt("ID"));
+                }
+            }
+            OperationManagementDAOUtil.cleanupResources(stmt, rs);
+            rs = null;
+            if (mappingIds.isEmpty()) {
+                return updatedEnrolmentIds;
+            }
+
+            stmt = connection.prepareStatement("UPDATE DM_ENROLMENT_OP_MAPPING SET UPDATED_TIMESTAMP = ? " +
+                    "WHERE ID IN (" + DeviceManagementDAOUtil.getPlaceholders(mappingIds.size()) + ")");
+            stmt.setLong(1, System.currentTimeMillis() / 1000);
+            index = 2;
+            for (java.lang.Integer mappingId : mappingIds.values()) {
+                stmt.setInt(index++, mappingId);
+            }
+            stmt.executeUpdate();
+            for (java.lang.Integer enrolmentId : enrolmentIds) {
+                if (mappingIds.containsKey(enrolmentId)) {
+                    updatedEnrolmentIds.add(enrolmentId);
+                }
+            }
+            return updatedEnrolmentIds;
+        } catch (SQLException e) {
+            throw new OperationManagementDAOException("Error occurred while update device mapping operation status " +
+                    "metadata", e);
+        } finally {
+            OperationManagementDAOUtil.cleanupResources(stmt, rs);
+        }
+    }
+
     @Override
     public void addOperationResponse(int enrolmentId, int operationId, Object operationResponse)
             throws OperationManagementDAOException {
         PreparedStatement stmt = null;
-        ByteArrayOutputStream bao = null;
-        ObjectOutputStream oos = null;
         try {
             Connection connection = OperationManagementDAOFactory.getConnection();
             stmt = connection.prepareStatement("INSERT INTO DM_DEVICE_OPERATION_RESPONSE(OPERATION_ID,ENROLMENT_ID," +
                     "OPERATION_RESPONSE, RECEIVED_TIMESTAMP) VALUES(?, ?, ?, ?)");
-            bao = new ByteArrayOutputStream();
-            oos = new ObjectOutputStream(bao);
-            oos.writeObject(operationResponse);
 
             stmt.setInt(1, operationId);
             stmt.setInt(2, enrolmentId);
-            stmt.setBytes(3, bao.toByteArray());
+            stmt.setBytes(3, OperationPayloadCodecManager.getInstance().encode(operationResponse));
             stmt.setTimestamp(4, new Timestamp(new Date().getTime()));
             stmt.executeUpdate();
         } catch (SQLException e) {
@@ -217,20 +301,6 @@ public class GenericOperationDAOImpl implements OperationDAO {
         } catch (IOException e) {
             throw new OperationManagementDAOException("Error occurred while serializing policy operation object", e);
         } finally {
-            if (bao != null) {
-                try {
-                    bao.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ByteArrayOutputStream", e);
-                }
-            }
-            if (oos != null) {
-                try {
-                    oos.close();
-                } catch (IOException e) {
-                    log.warn("Error occurred while closing ObjectOutputStream", e);
-                }
-            }
             OperationManagementDAOUtil.cleanupResources(stmt);
         }
     }
@@ -253,31 +323,8 @@ public class GenericOperationDAOImpl implements OperationDAO {
             while (rs.next()) {
                 OperationResponse response = new OperationResponse();
                 response.setReceivedTimeStamp(rs.getTimestamp("RECEIVED_TIMESTAMP").toString());
-                ByteArrayInputStream bais = null;
-                ObjectInputStream ois = null;
-                byte[] contentBytes;
-                try {
-                    contentBytes = (byte[]) rs.getBytes("OPERATION_RESPONSE");
-                    bais = new ByteArrayInputStream(contentBytes);
-                    ois = new ObjectInputStream(bais);
-                    response.setResponse(ois.readObject().toString());
-
-                } finally {
-                    if (bais != null) {
-                        try {
-                            bais.close();
-                        } catch (IOException e) {
-                            log.warn("Error occurred while closing ByteArrayOutputStream", e);
-                        }
-                    }
-                    if (ois != null) {
-                        try {
-                            ois.close();
-                        } catch (IOException e) {
-                            log.warn("Error occurred while closing ObjectOutputStream", e);
-                        }
-                    }
-                }
+                byte[] contentBytes = rs.getBytes("OPERATION_RESPONSE");
+                response.setResponse(OperationPayloadCodecManager.getInstance().decode(contentBytes).toString());
                 responces.add(response);
             }
 
@@ -1098,4 +1145,35 @@ public class GenericOperationDAOImpl implements OperationDAO {
         }
         return status;
     }
+
+    @Override
+    public boolean resetAttemptCount(List<java.lang.Integer> enrolmentIds, int tenantId)
+            throws OperationManagementDAOException {
+        if (enrolmentIds == null || enrolmentIds.isEmpty()) {
+            return false;
+        }
+        Connection conn;
+        PreparedStatement stmt = null;
+        Timestamp currentTimestamp = new Timestamp(Calendar.getInstance().getTime().getTime());
+        try {
+            conn = OperationManagementDAOFactory.getConnection();
+            String query = "UPDATE DM_POLICY_COMPLIANCE_STATUS SET ATTEMPTS = 0, LAST_REQUESTED_TIME = ? " +
+                    "WHERE TENANT_ID = ? AND ENROLMENT_ID IN (" +
+                    DeviceManagementDAOUtil.getPlaceholders(enrolmentIds.size()) + ")";
+            stmt = conn.prepareStatement(query);
+            stmt.setTimestamp(1, currentTimestamp);
+            stmt.setInt(2, tenantId);
+            int index = 3;
+            for (java.lang.Integer enrolmentId : enrolmentIds) {
+                stmt.setInt(index++, enrolmentId);
+            }
+            stmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            throw new OperationManagementDAOException("Unable to reset the attempt count of enrolments of tenant '" +
+                    tenantId + "' in database.", e);
+        } finally {
+            OperationManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
 }
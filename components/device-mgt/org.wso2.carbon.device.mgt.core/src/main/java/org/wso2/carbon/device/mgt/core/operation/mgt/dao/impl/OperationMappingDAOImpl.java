@@ -27,6 +27,7 @@ import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationMappingDAO;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.List;
 
 public class OperationMappingDAOImpl implements OperationMappingDAO {
 
@@ -52,6 +53,32 @@ public class OperationMappingDAOImpl implements OperationMappingDAO {
         }
     }
 
+    @Override
+    public void addOperationMapping(int operationId, List<Integer> enrolmentIds)
+            throws OperationManagementDAOException {
+        PreparedStatement stmt = null;
+        try {
+            long time = System.currentTimeMillis()/1000;
+            Connection conn = OperationManagementDAOFactory.getConnection();
+            String sql = "INSERT INTO DM_ENROLMENT_OP_MAPPING(ENROLMENT_ID, OPERATION_ID, STATUS, CREATED_TIMESTAMP, " +
+                    "UPDATED_TIMESTAMP) VALUES (?, ?, ?, ?, ?)";
+            stmt = conn.prepareStatement(sql);
+            for (Integer enrolmentId : enrolmentIds) {
+                stmt.setInt(1, enrolmentId);
+                stmt.setInt(2, operationId);
+                stmt.setString(3, Operation.Status.PENDING.toString());
+                stmt.setLong(4, time);
+                stmt.setLong(5, time);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+        } catch (SQLException e) {
+            throw new OperationManagementDAOException("Error occurred while persisting device operation mappings", e);
+        } finally {
+            OperationManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
     @Override
     public void removeOperationMapping(int operationId,
                                        Integer deviceIds) throws OperationManagementDAOException {
@@ -0,0 +1,771 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.payload;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.NotSerializableException;
+import java.io.Serializable;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compact binary codec of operation and policy payloads. Objects are written field by field with tagged values, and
+ * class names and field layouts are written once per payload instead of once per object as Java serialization does.
+ * Fields are matched by name when decoding, so fields added to or removed from a class do not break existing rows.
+ * Values of classes that customize their Java serialization are embedded in Java serialized form, except for the
+ * common java.util collections, which are written element by element (the defaults of a Properties are not kept).
+ */
+public class CompactPayloadCodec implements OperationPayloadCodec {
+
+    public static final byte FORMAT = 0x01;
+
+    private static final byte NULL = 0;
+    private static final byte REFERENCE = 1;
+    private static final byte STRING = 2;
+    private static final byte INTEGER = 3;
+    private static final byte LONG = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+    private static final byte DOUBLE = 7;
+    private static final byte FLOAT = 8;
+    private static final byte SHORT = 9;
+    private static final byte BYTE = 10;
+    private static final byte CHARACTER = 11;
+    private static final byte BYTES = 12;
+    private static final byte ENUM = 13;
+    private static final byte DATE = 14;
+    private static final byte COLLECTION = 15;
+    private static final byte MAP = 16;
+    private static final byte ARRAY = 17;
+    private static final byte OBJECT = 18;
+    private static final byte SERIALIZED = 19;
+
+    private static final char REFERENCE_FIELD = 'L';
+
+    private static final Set<String> COLLECTION_TYPES = new HashSet<>(Arrays.asList(
+            "java.util.ArrayList", "java.util.LinkedList", "java.util.Vector", "java.util.HashSet",
+            "java.util.LinkedHashSet", "java.util.TreeSet"));
+    private static final Set<String> MAP_TYPES = new HashSet<>(Arrays.asList(
+            "java.util.HashMap", "java.util.LinkedHashMap", "java.util.TreeMap", "java.util.Hashtable",
+            "java.util.Properties"));
+    private static final Set<String> SERIALIZATION_HOOKS = new HashSet<>(Arrays.asList(
+            "writeObject", "readObject", "readObjectNoData", "writeReplace", "readResolve"));
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+
+    static {
+        Class<?>[] primitiveTypes = {boolean.class, byte.class, char.class, short.class, int.class, long.class,
+                float.class, double.class};
+        for (Class<?> primitiveType : primitiveTypes) {
+            PRIMITIVE_TYPES.put(primitiveType.getName(), primitiveType);
+        }
+    }
+
+    private final JavaSerializationPayloadCodec serializationCodec = new JavaSerializationPayloadCodec();
+    private final ConcurrentMap<Class<?>, ClassLayout> layouts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+    @Override
+    public byte getFormat() {
+        return FORMAT;
+    }
+
+    @Override
+    public byte[] encode(Object payload) throws IOException {
+        ByteArrayOutputStream bao = new ByteArrayOutputStream(256);
+        bao.write(FORMAT);
+        DataOutputStream out = new DataOutputStream(bao);
+        new Encoder(out).writeValue(payload);
+        out.flush();
+        return bao.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] payload) throws IOException, ClassNotFoundException {
+        if (payload.length == 0 || payload[0] != FORMAT) {
+            throw new StreamCorruptedException("Payload is not encoded in the compact payload format");
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, 1, payload.length - 1));
+        return new Decoder(in).readValue();
+    }
+
+    private ClassLayout getLayout(Class<?> type) {
+        ClassLayout layout = layouts.get(type);
+        if (layout == null) {
+            layout = new ClassLayout(type);
+            ClassLayout existing = layouts.putIfAbsent(type, layout);
+            if (existing != null) {
+                layout = existing;
+            }
+        }
+        return layout;
+    }
+
+    private Class<?> resolveClass(String name) throws ClassNotFoundException {
+        Class<?> type = PRIMITIVE_TYPES.get(name);
+        if (type == null) {
+            type = classes.get(name);
+        }
+        if (type == null) {
+            try {
+                type = Class.forName(name, false, CompactPayloadCodec.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+                if (contextClassLoader == null) {
+                    throw e;
+                }
+                type = Class.forName(name, false, contextClassLoader);
+            }
+            classes.putIfAbsent(name, type);
+        }
+        return type;
+    }
+
+    private static char getTypeCode(Class<?> type) {
+        if (type == boolean.class) {
+            return 'Z';
+        } else if (type == byte.class) {
+            return 'B';
+        } else if (type == char.class) {
+            return 'C';
+        } else if (type == short.class) {
+            return 'S';
+        } else if (type == int.class) {
+            return 'I';
+        } else if (type == long.class) {
+            return 'J';
+        } else if (type == float.class) {
+            return 'F';
+        } else if (type == double.class) {
+            return 'D';
+        }
+        return REFERENCE_FIELD;
+    }
+
+    private static boolean isSortedWithComparator(Object value) {
+        Comparator<?> comparator = null;
+        if (value instanceof SortedSet) {
+            comparator = ((SortedSet<?>) value).comparator();
+        } else if (value instanceof SortedMap) {
+            comparator = ((SortedMap<?, ?>) value).comparator();
+        }
+        return comparator != null;
+    }
+
+    private static Object instantiate(Constructor<?> constructor) throws IOException {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IOException("Error occurred while instantiating '" + constructor.getDeclaringClass().getName() +
+                    "'", e);
+        }
+    }
+
+    /**
+     * Serializable fields and no-arg constructor of a class. Only classes that rely on the default Java serialization
+     * are written field by field, since custom serialization hooks cannot be honoured by this codec. Fields shadowed
+     * by a field of the same name in a subclass are named after their declaring class to tell them apart.
+     */
+    private static class ClassLayout {
+
+        private final Class<?> type;
+        private final Field[] fields;
+        private final String[] fieldNames;
+        private final char[] typeCodes;
+        private final Map<String, Field> fieldsByName = new HashMap<>();
+        private Constructor<?> constructor;
+        private boolean compact;
+
+        ClassLayout(Class<?> type) {
+            this.type = type;
+            compact = Serializable.class.isAssignableFrom(type) && !Externalizable.class.isAssignableFrom(type) &&
+                    !Proxy.isProxyClass(type);
+            List<Class<?>> hierarchy = new ArrayList<>();
+            for (Class<?> current = type; current != null && Serializable.class.isAssignableFrom(current);
+                 current = current.getSuperclass()) {
+                hierarchy.add(0, current);
+                if (hasSerializationHooks(current)) {
+                    compact = false;
+                }
+            }
+            List<Field> serializableFields = new ArrayList<>();
+            Set<String> names = new HashSet<>();
+            Set<String> shadowedNames = new HashSet<>();
+            try {
+                for (Class<?> current : hierarchy) {
+                    Field[] declaredFields = current.getDeclaredFields();
+                    Arrays.sort(declaredFields, new Comparator<Field>() {
+                        @Override
+                        public int compare(Field field, Field other) {
+                            return field.getName().compareTo(other.getName());
+                        }
+                    });
+                    for (Field field : declaredFields) {
+                        int modifiers = field.getModifiers();
+                        if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers)) {
+                            continue;
+                        }
+                        field.setAccessible(true);
+                        if (!names.add(field.getName())) {
+                            shadowedNames.add(field.getName());
+                        }
+                        serializableFields.add(field);
+                    }
+                }
+                constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException | RuntimeException e) {
+                // Classes without a no-arg constructor or with inaccessible fields are embedded in serialized form.
+                compact = false;
+                constructor = null;
+                serializableFields.clear();
+            }
+            fields = serializableFields.toArray(new Field[serializableFields.size()]);
+            fieldNames = new String[fields.length];
+            typeCodes = new char[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                Field field = fields[i];
+                fieldNames[i] = shadowedNames.contains(field.getName()) ?
+                        field.getDeclaringClass().getSimpleName() + "." + field.getName() : field.getName();
+                typeCodes[i] = getTypeCode(field.getType());
+                fieldsByName.put(fieldNames[i], field);
+            }
+        }
+
+        private static boolean hasSerializationHooks(Class<?> type) {
+            try {
+                type.getDeclaredField("serialPersistentFields");
+                return true;
+            } catch (NoSuchFieldException e) {
+                // Default serializable fields are used.
+            }
+            for (Method method : type.getDeclaredMethods()) {
+                if (!Modifier.isStatic(method.getModifiers()) && SERIALIZATION_HOOKS.contains(method.getName())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+    private class Encoder {
+
+        private final DataOutputStream out;
+        private final Map<Object, Integer> handles = new IdentityHashMap<>();
+        private final Map<String, Integer> names = new HashMap<>();
+        private final Map<Class<?>, Integer> layoutHandles = new HashMap<>();
+
+        Encoder(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+                return;
+            }
+            Integer handle = handles.get(value);
+            if (handle != null) {
+                out.writeByte(REFERENCE);
+                writeVarLong(handle);
+                return;
+            }
+            Class<?> type = value.getClass();
+            if (type == String.class) {
+                out.writeByte(STRING);
+                writeString((String) value);
+            } else if (type == Integer.class) {
+                out.writeByte(INTEGER);
+                writeSignedVarLong((Integer) value);
+            } else if (type == Long.class) {
+                out.writeByte(LONG);
+                writeSignedVarLong((Long) value);
+            } else if (type == Boolean.class) {
+                out.writeByte((Boolean) value ? TRUE : FALSE);
+            } else if (type == Double.class) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (type == Float.class) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) value);
+            } else if (type == Short.class) {
+                out.writeByte(SHORT);
+                writeSignedVarLong((Short) value);
+            } else if (type == Byte.class) {
+                out.writeByte(BYTE);
+                out.writeByte((Byte) value);
+            } else if (type == Character.class) {
+                out.writeByte(CHARACTER);
+                out.writeChar((Character) value);
+            } else if (type == byte[].class) {
+                byte[] bytes = (byte[]) value;
+                out.writeByte(BYTES);
+                writeVarLong(bytes.length);
+                out.write(bytes);
+            } else if (value instanceof Enum) {
+                handles.put(value, handles.size());
+                out.writeByte(ENUM);
+                writeName(((Enum<?>) value).getDeclaringClass().getName());
+                writeString(((Enum<?>) value).name());
+            } else if (type == Date.class || type == Timestamp.class) {
+                out.writeByte(DATE);
+                writeName(type.getName());
+                out.writeLong(((Date) value).getTime());
+                if (type == Timestamp.class) {
+                    writeVarLong(((Timestamp) value).getNanos());
+                }
+            } else if (COLLECTION_TYPES.contains(type.getName()) && !isSortedWithComparator(value)) {
+                Collection<?> collection = (Collection<?>) value;
+                handles.put(value, handles.size());
+                out.writeByte(COLLECTION);
+                writeName(type.getName());
+                writeVarLong(collection.size());
+                for (Object element : collection) {
+                    writeValue(element);
+                }
+            } else if (MAP_TYPES.contains(type.getName()) && !isSortedWithComparator(value)) {
+                Map<?, ?> map = (Map<?, ?>) value;
+                handles.put(value, handles.size());
+                out.writeByte(MAP);
+                writeName(type.getName());
+                writeVarLong(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeValue(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else if (type.isArray()) {
+                int length = Array.getLength(value);
+                handles.put(value, handles.size());
+                out.writeByte(ARRAY);
+                writeName(type.getComponentType().getName());
+                writeVarLong(length);
+                for (int i = 0; i < length; i++) {
+                    writeValue(Array.get(value, i));
+                }
+            } else {
+                ClassLayout layout = getLayout(type);
+                if (layout.compact) {
+                    handles.put(value, handles.size());
+                    out.writeByte(OBJECT);
+                    writeLayout(layout);
+                    writeFields(layout, value);
+                } else if (value instanceof Serializable) {
+                    byte[] bytes = serializationCodec.encode(value);
+                    out.writeByte(SERIALIZED);
+                    writeVarLong(bytes.length);
+                    out.write(bytes);
+                } else {
+                    throw new NotSerializableException(type.getName());
+                }
+            }
+        }
+
+        private void writeFields(ClassLayout layout, Object value) throws IOException {
+            try {
+                for (int i = 0; i < layout.fields.length; i++) {
+                    Field field = layout.fields[i];
+                    switch (layout.typeCodes[i]) {
+                        case 'Z':
+                            out.writeBoolean(field.getBoolean(value));
+                            break;
+                        case 'B':
+                            out.writeByte(field.getByte(value));
+                            break;
+                        case 'C':
+                            out.writeChar(field.getChar(value));
+                            break;
+                        case 'S':
+                            writeSignedVarLong(field.getShort(value));
+                            break;
+                        case 'I':
+                            writeSignedVarLong(field.getInt(value));
+                            break;
+                        case 'J':
+                            writeSignedVarLong(field.getLong(value));
+                            break;
+                        case 'F':
+                            out.writeFloat(field.getFloat(value));
+                            break;
+                        case 'D':
+                            out.writeDouble(field.getDouble(value));
+                            break;
+                        default:
+                            writeValue(field.get(value));
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IOException("Error occurred while reading the fields of '" + layout.type.getName() + "'", e);
+            }
+        }
+
+        private void writeLayout(ClassLayout layout) throws IOException {
+            Integer handle = layoutHandles.get(layout.type);
+            if (handle != null) {
+                writeVarLong(handle + 1);
+                return;
+            }
+            layoutHandles.put(layout.type, layoutHandles.size());
+            writeVarLong(0);
+            writeName(layout.type.getName());
+            writeVarLong(layout.fields.length);
+            for (int i = 0; i < layout.fields.length; i++) {
+                writeString(layout.fieldNames[i]);
+                out.writeByte(layout.typeCodes[i]);
+            }
+        }
+
+        private void writeName(String name) throws IOException {
+            Integer handle = names.get(name);
+            if (handle != null) {
+                writeVarLong(handle + 1);
+                return;
+            }
+            names.put(name, names.size());
+            writeVarLong(0);
+            writeString(name);
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeSignedVarLong(long value) throws IOException {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+    }
+
+    private class Decoder {
+
+        private final DataInputStream in;
+        private final List<Object> handles = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<RemoteLayout> layouts = new ArrayList<>();
+
+        Decoder(DataInputStream in) {
+            this.in = in;
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Object readValue() throws IOException, ClassNotFoundException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case REFERENCE:
+                    int handle = readLength();
+                    if (handle >= handles.size()) {
+                        throw new StreamCorruptedException("Invalid object reference '" + handle + "'");
+                    }
+                    return handles.get(handle);
+                case STRING:
+                    return readString();
+                case INTEGER:
+                    return (int) readSignedVarLong();
+                case LONG:
+                    return readSignedVarLong();
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                case DOUBLE:
+                    return in.readDouble();
+                case FLOAT:
+                    return in.readFloat();
+                case SHORT:
+                    return (short) readSignedVarLong();
+                case BYTE:
+                    return in.readByte();
+                case CHARACTER:
+                    return in.readChar();
+                case BYTES:
+                    byte[] bytes = new byte[readLength()];
+                    in.readFully(bytes);
+                    return bytes;
+                case ENUM:
+                    Class<?> enumType = resolveClass(readName());
+                    if (!enumType.isEnum()) {
+                        throw new InvalidClassException(enumType.getName(), "Not an enum type");
+                    }
+                    Enum<?> constant = Enum.valueOf((Class) enumType, readString());
+                    handles.add(constant);
+                    return constant;
+                case DATE:
+                    String dateType = readName();
+                    long time = in.readLong();
+                    if (Timestamp.class.getName().equals(dateType)) {
+                        Timestamp timestamp = new Timestamp(time);
+                        timestamp.setNanos(readLength());
+                        return timestamp;
+                    }
+                    return new Date(time);
+                case COLLECTION:
+                    Collection<Object> collection = (Collection<Object>) newContainer(readName(), COLLECTION_TYPES);
+                    handles.add(collection);
+                    for (int i = readLength(); i > 0; i--) {
+                        collection.add(readValue());
+                    }
+                    return collection;
+                case MAP:
+                    Map<Object, Object> map = (Map<Object, Object>) newContainer(readName(), MAP_TYPES);
+                    handles.add(map);
+                    for (int i = readLength(); i > 0; i--) {
+                        Object key = readValue();
+                        map.put(key, readValue());
+                    }
+                    return map;
+                case ARRAY:
+                    Class<?> componentType = resolveClass(readName());
+                    Object array = Array.newInstance(componentType, readLength());
+                    handles.add(array);
+                    for (int i = 0; i < Array.getLength(array); i++) {
+                        Array.set(array, i, readValue());
+                    }
+                    return array;
+                case OBJECT:
+                    return readObject();
+                case SERIALIZED:
+                    byte[] serialized = new byte[readLength()];
+                    in.readFully(serialized);
+                    return serializationCodec.decode(serialized);
+                default:
+                    throw new StreamCorruptedException("Unknown payload value tag '" + tag + "'");
+            }
+        }
+
+        private Object newContainer(String name, Set<String> allowedTypes) throws IOException,
+                ClassNotFoundException {
+            if (!allowedTypes.contains(name)) {
+                throw new InvalidClassException(name, "Not a supported container type");
+            }
+            try {
+                return instantiate(resolveClass(name).getConstructor());
+            } catch (NoSuchMethodException e) {
+                throw new InvalidClassException(name, "No public no-arg constructor");
+            }
+        }
+
+        private Object readObject() throws IOException, ClassNotFoundException {
+            RemoteLayout layout = readLayout();
+            if (layout.local.constructor == null) {
+                throw new InvalidClassException(layout.local.type.getName(), "No no-arg constructor");
+            }
+            Object value = instantiate(layout.local.constructor);
+            handles.add(value);
+            try {
+                for (int i = 0; i < layout.typeCodes.length; i++) {
+                    Field field = layout.fields[i];
+                    switch (layout.typeCodes[i]) {
+                        case 'Z':
+                            boolean booleanValue = in.readBoolean();
+                            if (field != null) {
+                                field.setBoolean(value, booleanValue);
+                            }
+                            break;
+                        case 'B':
+                            byte byteValue = in.readByte();
+                            if (field != null) {
+                                field.setByte(value, byteValue);
+                            }
+                            break;
+                        case 'C':
+                            char charValue = in.readChar();
+                            if (field != null) {
+                                field.setChar(value, charValue);
+                            }
+                            break;
+                        case 'S':
+                            short shortValue = (short) readSignedVarLong();
+                            if (field != null) {
+                                field.setShort(value, shortValue);
+                            }
+                            break;
+                        case 'I':
+                            int intValue = (int) readSignedVarLong();
+                            if (field != null) {
+                                field.setInt(value, intValue);
+                            }
+                            break;
+                        case 'J':
+                            long longValue = readSignedVarLong();
+                            if (field != null) {
+                                field.setLong(value, longValue);
+                            }
+                            break;
+                        case 'F':
+                            float floatValue = in.readFloat();
+                            if (field != null) {
+                                field.setFloat(value, floatValue);
+                            }
+                            break;
+                        case 'D':
+                            double doubleValue = in.readDouble();
+                            if (field != null) {
+                                field.setDouble(value, doubleValue);
+                            }
+                            break;
+                        case REFERENCE_FIELD:
+                            Object fieldValue = readValue();
+                            if (field != null && (fieldValue == null || field.getType().isInstance(fieldValue))) {
+                                field.set(value, fieldValue);
+                            }
+                            break;
+                        default:
+                            throw new StreamCorruptedException("Unknown field type '" + layout.typeCodes[i] + "'");
+                    }
+                }
+            } catch (IllegalAccessException e) {
+                throw new IOException("Error occurred while populating the fields of '" +
+                        layout.local.type.getName() + "'", e);
+            }
+            return value;
+        }
+
+        private RemoteLayout readLayout() throws IOException, ClassNotFoundException {
+            int handle = readLength();
+            if (handle > 0) {
+                if (handle > layouts.size()) {
+                    throw new StreamCorruptedException("Invalid class layout reference '" + handle + "'");
+                }
+                return layouts.get(handle - 1);
+            }
+            Class<?> type = resolveClass(readName());
+            if (!Serializable.class.isAssignableFrom(type)) {
+                throw new NotSerializableException(type.getName());
+            }
+            ClassLayout local = getLayout(type);
+            int fieldCount = readLength();
+            Field[] fields = new Field[fieldCount];
+            char[] typeCodes = new char[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                String fieldName = readString();
+                typeCodes[i] = (char) in.readUnsignedByte();
+                Field field = local.fieldsByName.get(fieldName);
+                // Fields whose type changed since the payload was written are left with their default value.
+                if (field != null && getTypeCode(field.getType()) == typeCodes[i]) {
+                    fields[i] = field;
+                }
+            }
+            RemoteLayout layout = new RemoteLayout(local, fields, typeCodes);
+            layouts.add(layout);
+            return layout;
+        }
+
+        private String readName() throws IOException {
+            int handle = readLength();
+            if (handle > 0) {
+                if (handle > names.size()) {
+                    throw new StreamCorruptedException("Invalid class name reference '" + handle + "'");
+                }
+                return names.get(handle - 1);
+            }
+            String name = readString();
+            names.add(name);
+            return name;
+        }
+
+        private String readString() throws IOException {
+            byte[] bytes = new byte[readLength()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int readLength() throws IOException {
+            long value = readVarLong();
+            if (value < 0 || value > Integer.MAX_VALUE) {
+                throw new StreamCorruptedException("Invalid length '" + value + "'");
+            }
+            return (int) value;
+        }
+
+        private long readSignedVarLong() throws IOException {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed variable length number");
+        }
+
+    }
+
+    /**
+     * Field layout of a class as written in a payload, mapped onto the fields of the local class.
+     */
+    private static class RemoteLayout {
+
+        private final ClassLayout local;
+        private final Field[] fields;
+        private final char[] typeCodes;
+
+        RemoteLayout(ClassLayout local, Field[] fields, char[] typeCodes) {
+            this.local = local;
+            this.fields = fields;
+            this.typeCodes = typeCodes;
+        }
+
+    }
+
+}
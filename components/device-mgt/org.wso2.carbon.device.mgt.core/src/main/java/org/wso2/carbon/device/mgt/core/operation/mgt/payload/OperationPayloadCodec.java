@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.payload;
+
+import java.io.IOException;
+
+/**
+ * Encodes the objects persisted as operation and policy payload BLOBs. Every encoded payload starts with the format
+ * byte of the codec that produced it, so that rows written in different formats can be read side by side.
+ */
+public interface OperationPayloadCodec {
+
+    /**
+     * Method to retrieve the format byte that leads the payloads encoded by this codec.
+     *
+     * @return Format byte of the codec.
+     */
+    byte getFormat();
+
+    /**
+     * Method to encode a payload object.
+     *
+     * @param payload Object to be encoded.
+     * @return Encoded payload, starting with the format byte of the codec.
+     * @throws IOException If the payload or an object it refers to cannot be encoded.
+     */
+    byte[] encode(Object payload) throws IOException;
+
+    /**
+     * Method to decode a payload that was encoded by this codec.
+     *
+     * @param payload Encoded payload, starting with the format byte of the codec.
+     * @return Decoded object.
+     * @throws IOException            If the payload is corrupted or does not belong to this codec.
+     * @throws ClassNotFoundException If a class referred to by the payload is not available.
+     */
+    Object decode(byte[] payload) throws IOException, ClassNotFoundException;
+
+}
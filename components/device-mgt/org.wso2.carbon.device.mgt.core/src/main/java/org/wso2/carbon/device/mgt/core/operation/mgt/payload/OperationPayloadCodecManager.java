@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.payload;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
+import org.wso2.carbon.device.mgt.core.config.operation.OperationConfiguration;
+
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entry point to encode and decode the operation and policy payloads persisted as BLOBs. Payloads are written with
+ * the codec selected by the OperationConfiguration PayloadFormat, and read with the codec registered for their
+ * leading format byte, so legacy Java serialized rows keep being readable alongside the rows in the compact format.
+ */
+public class OperationPayloadCodecManager {
+
+    private static final Log log = LogFactory.getLog(OperationPayloadCodecManager.class);
+    private static volatile OperationPayloadCodecManager operationPayloadCodecManager;
+
+    private final Map<Byte, OperationPayloadCodec> codecs = new ConcurrentHashMap<>();
+    private volatile OperationPayloadCodec defaultCodec;
+
+    private OperationPayloadCodecManager() {
+        OperationPayloadCodec javaSerializationCodec = new JavaSerializationPayloadCodec();
+        OperationPayloadCodec compactCodec = new CompactPayloadCodec();
+        this.registerCodec(javaSerializationCodec);
+        this.registerCodec(compactCodec);
+
+        String payloadFormat = OperationConfiguration.DEFAULT_PAYLOAD_FORMAT;
+        DeviceManagementConfig config = DeviceConfigurationManager.getInstance().getDeviceManagementConfig();
+        if (config != null && config.getOperationConfiguration() != null) {
+            payloadFormat = config.getOperationConfiguration().getPayloadFormat();
+        }
+        if (OperationConfiguration.PAYLOAD_FORMAT_COMPACT.equalsIgnoreCase(payloadFormat)) {
+            defaultCodec = compactCodec;
+        } else {
+            if (!OperationConfiguration.PAYLOAD_FORMAT_JAVA.equalsIgnoreCase(payloadFormat)) {
+                log.warn("Unknown operation payload format '" + payloadFormat + "' is configured, hence the '" +
+                        OperationConfiguration.PAYLOAD_FORMAT_JAVA + "' format is used");
+            }
+            defaultCodec = javaSerializationCodec;
+        }
+    }
+
+    public static OperationPayloadCodecManager getInstance() {
+        if (operationPayloadCodecManager == null) {
+            synchronized (OperationPayloadCodecManager.class) {
+                if (operationPayloadCodecManager == null) {
+                    operationPayloadCodecManager = new OperationPayloadCodecManager();
+                }
+            }
+        }
+        return operationPayloadCodecManager;
+    }
+
+    /**
+     * Method to register a codec, so that the payloads leading with its format byte can be decoded.
+     *
+     * @param codec Codec to be registered.
+     */
+    public void registerCodec(OperationPayloadCodec codec) {
+        codecs.put(codec.getFormat(), codec);
+    }
+
+    /**
+     * Method to change the codec new payloads are written with. The codec is registered if it is not already.
+     *
+     * @param codec Codec to write new payloads with.
+     */
+    public void setDefaultCodec(OperationPayloadCodec codec) {
+        this.registerCodec(codec);
+        defaultCodec = codec;
+    }
+
+    public byte[] encode(Object payload) throws IOException {
+        return defaultCodec.encode(payload);
+    }
+
+    public Object decode(byte[] payload) throws IOException, ClassNotFoundException {
+        if (payload == null || payload.length == 0) {
+            return null;
+        }
+        OperationPayloadCodec codec = codecs.get(payload[0]);
+        if (codec == null) {
+            throw new StreamCorruptedException("Unknown operation payload format '" + payload[0] + "'");
+        }
+        return codec.decode(payload);
+    }
+
+    /**
+     * Method to check whether a payload is already written with the codec new payloads are written with.
+     *
+     * @param payload Encoded payload.
+     * @return true if the payload does not need to be rewritten.
+     */
+    public boolean isDefaultFormat(byte[] payload) {
+        return payload == null || payload.length == 0 || payload[0] == defaultCodec.getFormat();
+    }
+
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.payload;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.common.TransactionManagementException;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOException;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOUtil;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Rewrites the payloads of the operation and policy tables that are not in the configured payload format. Rows are
+ * walked in the order of their ids and each batch is rewritten in its own transaction, so an interrupted migration
+ * is resumed by simply running it again.
+ */
+public class OperationPayloadMigrator implements Runnable {
+
+    private static final Log log = LogFactory.getLog(OperationPayloadMigrator.class);
+
+    /**
+     * Table, id column and payload column of every table holding encoded payloads.
+     */
+    private static final String[][] PAYLOAD_COLUMNS = {
+            {"DM_CONFIG_OPERATION", "OPERATION_ID", "OPERATION_CONFIG"},
+            {"DM_PROFILE_OPERATION", "OPERATION_ID", "OPERATION_DETAILS"},
+            {"DM_POLICY_OPERATION", "OPERATION_ID", "OPERATION_DETAILS"},
+            {"DM_DEVICE_OPERATION_RESPONSE", "ID", "OPERATION_RESPONSE"},
+            {"DM_DEVICE_POLICY_APPLIED", "ID", "POLICY_CONTENT"}
+    };
+
+    private int batchSize;
+
+    public OperationPayloadMigrator(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run() {
+        for (String[] payloadColumn : PAYLOAD_COLUMNS) {
+            try {
+                int count = this.migrate(payloadColumn[0], payloadColumn[1], payloadColumn[2]);
+                log.info("Rewrote " + count + " legacy payloads of '" + payloadColumn[0] + "'");
+            } catch (OperationManagementDAOException e) {
+                log.error("Error occurred while migrating the payloads of '" + payloadColumn[0] + "'", e);
+            }
+        }
+    }
+
+    /**
+     * Method to rewrite the payloads of a table that are not in the configured payload format.
+     *
+     * @param tableName     Table holding the payloads.
+     * @param idColumn      Integer primary key column of the table.
+     * @param payloadColumn Column holding the encoded payloads.
+     * @return Number of rewritten payloads.
+     * @throws OperationManagementDAOException If reading or updating a batch of rows fails.
+     */
+    public int migrate(String tableName, String idColumn, String payloadColumn)
+            throws OperationManagementDAOException {
+        OperationPayloadCodecManager codecManager = OperationPayloadCodecManager.getInstance();
+        String selectSQL = "SELECT " + idColumn + ", " + payloadColumn + " FROM " + tableName + " WHERE " +
+                idColumn + " > ? ORDER BY " + idColumn;
+        String updateSQL = "UPDATE " + tableName + " SET " + payloadColumn + " = ? WHERE " + idColumn + " = ?";
+        int lastId = 0;
+        int migratedCount = 0;
+        int rowCount;
+        do {
+            PreparedStatement selectStmt = null;
+            PreparedStatement updateStmt = null;
+            ResultSet rs = null;
+            rowCount = 0;
+            try {
+                OperationManagementDAOFactory.beginTransaction();
+                Connection conn = OperationManagementDAOFactory.getConnection();
+                selectStmt = conn.prepareStatement(selectSQL);
+                selectStmt.setMaxRows(batchSize);
+                selectStmt.setInt(1, lastId);
+                rs = selectStmt.executeQuery();
+                updateStmt = conn.prepareStatement(updateSQL);
+                int batchCount = 0;
+                while (rs.next()) {
+                    rowCount++;
+                    lastId = rs.getInt(idColumn);
+                    byte[] payload = rs.getBytes(payloadColumn);
+                    if (codecManager.isDefaultFormat(payload)) {
+                        continue;
+                    }
+                    try {
+                        updateStmt.setBytes(1, codecManager.encode(codecManager.decode(payload)));
+                    } catch (IOException | ClassNotFoundException e) {
+                        log.warn("Payload of '" + tableName + "' row '" + lastId + "' cannot be decoded, hence it " +
+                                "is left as it is", e);
+                        continue;
+                    }
+                    updateStmt.setInt(2, lastId);
+                    updateStmt.addBatch();
+                    batchCount++;
+                }
+                if (batchCount > 0) {
+                    updateStmt.executeBatch();
+                }
+                OperationManagementDAOFactory.commitTransaction();
+                migratedCount += batchCount;
+            } catch (TransactionManagementException e) {
+                throw new OperationManagementDAOException("Error occurred while initiating the transaction to " +
+                        "migrate the payloads of '" + tableName + "'", e);
+            } catch (SQLException e) {
+                OperationManagementDAOFactory.rollbackTransaction();
+                throw new OperationManagementDAOException("Error occurred while migrating the payloads of '" +
+                        tableName + "' after the row '" + lastId + "'", e);
+            } finally {
+                OperationManagementDAOUtil.cleanupResources(updateStmt);
+                OperationManagementDAOUtil.cleanupResources(selectStmt, rs);
+                OperationManagementDAOFactory.closeConnection();
+            }
+        } while (rowCount == batchSize);
+        return migratedCount;
+    }
+
+}
@@ -25,8 +25,8 @@ import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementExcept
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManager;
 import org.wso2.carbon.device.mgt.common.push.notification.NotificationContext;
 import org.wso2.carbon.device.mgt.common.push.notification.NotificationStrategy;
-import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationExecutionFailedException;
 
+import java.util.ArrayList;
 import java.util.List;
 
 public class PushNotificationBasedOperationManager implements OperationManager {
@@ -44,13 +44,11 @@ public class PushNotificationBasedOperationManager implements OperationManager {
     public Activity addOperation(Operation operation,
                                  List<DeviceIdentifier> devices) throws OperationManagementException, InvalidDeviceException {
         Activity activity = this.operationManager.addOperation(operation, devices);
+        List<NotificationContext> notificationContexts = new ArrayList<>(devices.size());
         for (DeviceIdentifier deviceId : devices) {
-            try {
-                this.notificationProvider.execute(new NotificationContext(deviceId, operation));
-            } catch (PushNotificationExecutionFailedException e) {
-                throw new OperationManagementException("Error occurred while sending push notification to device", e);
-            }
+            notificationContexts.add(new NotificationContext(deviceId, operation));
         }
+        PushNotificationDispatcher.getInstance().dispatch(this.notificationProvider, notificationContexts);
         return activity;
     }
 
@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.push.notification.mgt;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.push.notification.BatchNotificationStrategy;
+import org.wso2.carbon.device.mgt.common.push.notification.NotificationContext;
+import org.wso2.carbon.device.mgt.common.push.notification.NotificationStrategy;
+import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationExecutionFailedException;
+import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
+import org.wso2.carbon.device.mgt.core.config.operation.OperationConfiguration;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends push notifications of newly added operations outside the operation persisting transaction. Notifications
+ * are queued in a bounded buffer which is drained by a fixed number of sender threads. Each sender hands the queued
+ * notifications of a notification strategy over in batches when the strategy is a {@link BatchNotificationStrategy},
+ * and one by one otherwise. Notifications which could not be sent are retried with an exponential backoff, and the
+ * caller sends the notifications itself once the buffer is full.
+ */
+public class PushNotificationDispatcher implements PushNotificationDispatcherStatisticsMBean {
+
+    private static final Log log = LogFactory.getLog(PushNotificationDispatcher.class);
+    private static final long POLL_TIMEOUT = 1000;
+    private static final long SHUTDOWN_TIMEOUT = 30;
+    private static volatile PushNotificationDispatcher dispatcher;
+
+    private int batchSize;
+    private int maxRetries;
+    private long retryDelay;
+    private volatile boolean shutdown;
+    private BlockingQueue<PendingNotification> queue;
+    private ExecutorService senderExecutor;
+    private ScheduledExecutorService retryExecutor;
+
+    private AtomicLong batchCount = new AtomicLong();
+    private AtomicLong batchedNotificationCount = new AtomicLong();
+    private AtomicLong maxBatchSize = new AtomicLong();
+    private AtomicLong sentNotificationCount = new AtomicLong();
+    private AtomicLong failedNotificationCount = new AtomicLong();
+    private AtomicLong retriedNotificationCount = new AtomicLong();
+    private AtomicLong callerSentNotificationCount = new AtomicLong();
+    private AtomicLong totalSendLatency = new AtomicLong();
+    private AtomicLong lastSendLatency = new AtomicLong();
+    private AtomicLong maxSendLatency = new AtomicLong();
+
+    private PushNotificationDispatcher() {
+        int poolSize = OperationConfiguration.DEFAULT_NOTIFIER_THREAD_POOL_SIZE;
+        int queueCapacity = OperationConfiguration.DEFAULT_NOTIFIER_QUEUE_CAPACITY;
+        int batchSize = OperationConfiguration.DEFAULT_NOTIFIER_BATCH_SIZE;
+        int maxRetries = OperationConfiguration.DEFAULT_NOTIFIER_MAX_RETRIES;
+        long retryDelay = OperationConfiguration.DEFAULT_NOTIFIER_RETRY_DELAY;
+        DeviceManagementConfig config = DeviceConfigurationManager.getInstance().getDeviceManagementConfig();
+        if (config != null && config.getOperationConfiguration() != null) {
+            OperationConfiguration operationConfiguration = config.getOperationConfiguration();
+            poolSize = operationConfiguration.getNotifierThreadPoolSize();
+            queueCapacity = operationConfiguration.getNotifierQueueCapacity();
+            batchSize = operationConfiguration.getNotifierBatchSize();
+            maxRetries = operationConfiguration.getNotifierMaxRetries();
+            retryDelay = operationConfiguration.getNotifierRetryDelay();
+        }
+        this.init(poolSize, queueCapacity, batchSize, maxRetries, retryDelay);
+    }
+
+    PushNotificationDispatcher(int poolSize, int queueCapacity, int batchSize, int maxRetries, long retryDelay) {
+        this.init(poolSize, queueCapacity, batchSize, maxRetries, retryDelay);
+    }
+
+    private void init(int poolSize, int queueCapacity, int batchSize, int maxRetries, long retryDelay) {
+        this.batchSize = batchSize;
+        this.maxRetries = maxRetries;
+        this.retryDelay = retryDelay;
+        queue = new LinkedBlockingQueue<>(queueCapacity);
+        senderExecutor = Executors.newFixedThreadPool(poolSize, new DispatcherThreadFactory("PushNotificationSender"));
+        for (int i = 0; i < poolSize; i++) {
+            senderExecutor.execute(new NotificationSender());
+        }
+        retryExecutor = Executors.newSingleThreadScheduledExecutor(
+                new DispatcherThreadFactory("PushNotificationRetry"));
+    }
+
+    public static PushNotificationDispatcher getInstance() {
+        if (dispatcher == null) {
+            synchronized (PushNotificationDispatcher.class) {
+                if (dispatcher == null) {
+                    dispatcher = new PushNotificationDispatcher();
+                }
+            }
+        }
+        return dispatcher;
+    }
+
+    public void dispatch(NotificationStrategy notificationStrategy, List<NotificationContext> notificationContexts) {
+        if (notificationStrategy == null || notificationContexts == null || notificationContexts.isEmpty()) {
+            return;
+        }
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        List<PendingNotification> rejectedNotifications = new ArrayList<>();
+        for (NotificationContext notificationContext : notificationContexts) {
+            PendingNotification notification = new PendingNotification(notificationStrategy, notificationContext,
+                    carbonContext.getTenantId(), carbonContext.getTenantDomain(), carbonContext.getUsername());
+            if (shutdown || !queue.offer(notification)) {
+                rejectedNotifications.add(notification);
+            }
+        }
+        if (!rejectedNotifications.isEmpty()) {
+            callerSentNotificationCount.addAndGet(rejectedNotifications.size());
+            this.send(rejectedNotifications);
+        }
+    }
+
+    /**
+     * Stops accepting notifications into the queue and waits for the senders to drain it. Pending retries are
+     * dropped.
+     */
+    public void shutdown() {
+        shutdown = true;
+        retryExecutor.shutdownNow();
+        senderExecutor.shutdown();
+        try {
+            if (!senderExecutor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+                log.warn("Timed out while waiting for the queued push notifications to be sent");
+                senderExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error(queue.size() + " queued push notifications could not be sent during shutdown");
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    @Override
+    public long getSentNotificationCount() {
+        return sentNotificationCount.get();
+    }
+
+    @Override
+    public long getFailedNotificationCount() {
+        return failedNotificationCount.get();
+    }
+
+    @Override
+    public long getRetriedNotificationCount() {
+        return retriedNotificationCount.get();
+    }
+
+    @Override
+    public long getCallerSentNotificationCount() {
+        return callerSentNotificationCount.get();
+    }
+
+    @Override
+    public double getAverageBatchSize() {
+        long count = batchCount.get();
+        return count > 0 ? (double) batchedNotificationCount.get() / count : 0;
+    }
+
+    @Override
+    public long getMaxBatchSize() {
+        return maxBatchSize.get();
+    }
+
+    @Override
+    public long getLastSendLatency() {
+        return lastSendLatency.get();
+    }
+
+    @Override
+    public long getMaxSendLatency() {
+        return maxSendLatency.get();
+    }
+
+    @Override
+    public double getAverageSendLatency() {
+        long count = batchCount.get();
+        return count > 0 ? (double) totalSendLatency.get() / count : 0;
+    }
+
+    @Override
+    public void resetStatistics() {
+        batchCount.set(0);
+        batchedNotificationCount.set(0);
+        maxBatchSize.set(0);
+        sentNotificationCount.set(0);
+        failedNotificationCount.set(0);
+        retriedNotificationCount.set(0);
+        callerSentNotificationCount.set(0);
+        totalSendLatency.set(0);
+        lastSendLatency.set(0);
+        maxSendLatency.set(0);
+    }
+
+    /**
+     * Sends the given notifications, grouped by notification strategy, tenant and user in the order they were queued,
+     * so that each batch is sent in the carbon context of the user who added its notifications.
+     */
+    private void send(List<PendingNotification> notifications) {
+        Map<BatchKey, List<PendingNotification>> batches = new LinkedHashMap<>();
+        for (PendingNotification notification : notifications) {
+            BatchKey key = new BatchKey(notification.notificationStrategy, notification.tenantId,
+                    notification.username);
+            List<PendingNotification> batch = batches.get(key);
+            if (batch == null) {
+                batch = new ArrayList<>();
+                batches.put(key, batch);
+            }
+            batch.add(notification);
+        }
+        for (List<PendingNotification> batch : batches.values()) {
+            for (List<PendingNotification> subBatch : DeviceManagerUtil.getBatches(batch, batchSize)) {
+                this.sendBatch(subBatch);
+            }
+        }
+    }
+
+    private void sendBatch(List<PendingNotification> batch) {
+        PendingNotification first = batch.get(0);
+        List<PendingNotification> failedNotifications = new ArrayList<>();
+        long startTime = System.currentTimeMillis();
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+            carbonContext.setTenantId(first.tenantId);
+            carbonContext.setTenantDomain(first.tenantDomain);
+            carbonContext.setUsername(first.username);
+            if (first.notificationStrategy instanceof BatchNotificationStrategy) {
+                List<NotificationContext> notificationContexts = new ArrayList<>(batch.size());
+                for (PendingNotification notification : batch) {
+                    notificationContexts.add(notification.notificationContext);
+                }
+                try {
+                    ((BatchNotificationStrategy) first.notificationStrategy).execute(notificationContexts);
+                } catch (PushNotificationExecutionFailedException | RuntimeException e) {
+                    log.error("Error occurred while sending a batch of " + batch.size() + " push notifications", e);
+                    failedNotifications.addAll(batch);
+                }
+            } else {
+                for (PendingNotification notification : batch) {
+                    try {
+                        notification.notificationStrategy.execute(notification.notificationContext);
+                    } catch (PushNotificationExecutionFailedException | RuntimeException e) {
+                        log.error("Error occurred while sending push notifications to " +
+                                notification.notificationContext.getDeviceId().getType() + " device carrying id '" +
+                                notification.notificationContext.getDeviceId() + "'", e);
+                        failedNotifications.add(notification);
+                    }
+                }
+            }
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+        this.recordBatch(batch.size(), batch.size() - failedNotifications.size(),
+                System.currentTimeMillis() - startTime);
+        if (!failedNotifications.isEmpty()) {
+            this.retry(failedNotifications);
+        }
+    }
+
+    private void retry(final List<PendingNotification> notifications) {
+        final List<PendingNotification> retriedNotifications = new ArrayList<>(notifications.size());
+        int attempt = 0;
+        for (PendingNotification notification : notifications) {
+            if (notification.attempts < maxRetries) {
+                notification.attempts++;
+                attempt = Math.max(attempt, notification.attempts);
+                retriedNotifications.add(notification);
+            } else {
+                failedNotificationCount.incrementAndGet();
+            }
+        }
+        if (retriedNotifications.isEmpty() || shutdown) {
+            failedNotificationCount.addAndGet(retriedNotifications.size());
+            return;
+        }
+        retriedNotificationCount.addAndGet(retriedNotifications.size());
+        try {
+            retryExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    List<PendingNotification> rejectedNotifications = new ArrayList<>();
+                    for (PendingNotification notification : retriedNotifications) {
+                        if (shutdown || !queue.offer(notification)) {
+                            rejectedNotifications.add(notification);
+                        }
+                    }
+                    if (!rejectedNotifications.isEmpty()) {
+                        send(rejectedNotifications);
+                    }
+                }
+            }, retryDelay << (attempt - 1), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            failedNotificationCount.addAndGet(retriedNotifications.size());
+        }
+    }
+
+    private void recordBatch(int size, int sent, long latency) {
+        batchCount.incrementAndGet();
+        batchedNotificationCount.addAndGet(size);
+        sentNotificationCount.addAndGet(sent);
+        totalSendLatency.addAndGet(latency);
+        lastSendLatency.set(latency);
+        updateMax(maxBatchSize, size);
+        updateMax(maxSendLatency, latency);
+        if (log.isDebugEnabled()) {
+            log.debug("Sent " + sent + " of a batch of " + size + " push notifications in " + latency + "ms");
+        }
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Drains the queue until the dispatcher is shut down and the queue is empty.
+     */
+    private class NotificationSender implements Runnable {
+
+        @Override
+        public void run() {
+            while (!shutdown || !queue.isEmpty()) {
+                try {
+                    PendingNotification notification = queue.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+                    if (notification == null) {
+                        continue;
+                    }
+                    List<PendingNotification> notifications = new ArrayList<>();
+                    notifications.add(notification);
+                    queue.drainTo(notifications, batchSize - 1);
+                    send(notifications);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Error occurred while sending queued push notifications", e);
+                }
+            }
+        }
+    }
+
+    private static class PendingNotification {
+
+        private NotificationStrategy notificationStrategy;
+        private NotificationContext notificationContext;
+        private int tenantId;
+        private String tenantDomain;
+        private String username;
+        private int attempts;
+
+        PendingNotification(NotificationStrategy notificationStrategy, NotificationContext notificationContext,
+                            int tenantId, String tenantDomain, String username) {
+            this.notificationStrategy = notificationStrategy;
+            this.notificationContext = notificationContext;
+            this.tenantId = tenantId;
+            this.tenantDomain = tenantDomain;
+            this.username = username;
+        }
+    }
+
+    private static class BatchKey {
+
+        private NotificationStrategy notificationStrategy;
+        private int tenantId;
+        private String username;
+
+        BatchKey(NotificationStrategy notificationStrategy, int tenantId, String username) {
+            this.notificationStrategy = notificationStrategy;
+            this.tenantId = tenantId;
+            this.username = username;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            BatchKey key = (BatchKey) o;
+            return notificationStrategy == key.notificationStrategy && tenantId == key.tenantId &&
+                    (username == null ? key.username == null : username.equals(key.username));
+        }
+
+        @Override
+        public int hashCode() {
+            int hashCode = 31 * System.identityHashCode(notificationStrategy) + tenantId;
+            return 31 * hashCode + (username == null ? 0 : username.hashCode());
+        }
+    }
+
+    private static class DispatcherThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        DispatcherThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
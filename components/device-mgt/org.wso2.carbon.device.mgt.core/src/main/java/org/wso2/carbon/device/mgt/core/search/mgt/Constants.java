@@ -25,4 +25,16 @@ public class Constants {
     public static final String PROP_AND = "PROP_AND";
     public static final String PROP_OR = "PROP_OR";
     public static final String LOCATION = "LOCATION";
+
+    public static final String DEVICE_DETAILS_FIELD_PREFIX = "DD.";
+    public static final String DEVICE_LOCATION_FIELD_PREFIX = "DL.";
+    public static final String DEVICE_PROPERTY_FIELD_PREFIX = "DI.";
+
+    /**
+     * Condition on the device D which leaves out disenrolled devices, that is the devices having enrolments which
+     * have all been removed.
+     */
+    public static final String ENROLLED_DEVICE_CONDITION = "(NOT EXISTS (SELECT 1 FROM DM_ENROLMENT E WHERE " +
+            "E.DEVICE_ID = D.ID AND E.STATUS = 'REMOVED') OR EXISTS (SELECT 1 FROM DM_ENROLMENT E WHERE " +
+            "E.DEVICE_ID = D.ID AND E.STATUS <> 'REMOVED'))";
 }
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.core.search.mgt;
+
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.common.search.Condition;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Optional in-memory inverted index of the searchable device details, locations and properties of each tenant, which
+ * answers search conditions with device id bitmaps instead of querying the database. The index is built from the
+ * database at startup and kept up to date as devices report their details and are disenrolled.
+ */
+public interface DeviceSearchIndexManager {
+
+    /**
+     * Method to check whether searches are answered from the index.
+     *
+     * @return true if the index is enabled.
+     */
+    boolean isEnabled();
+
+    /**
+     * Method to check whether the index has been built and can answer searches.
+     *
+     * @return true if the index is enabled and has been loaded from the database.
+     */
+    boolean isLoaded();
+
+    /**
+     * Method to (re)build the index of all the tenants from the database.
+     *
+     * @throws SearchMgtException if the searchable values could not be read from the database.
+     */
+    void loadIndex() throws SearchMgtException;
+
+    /**
+     * Method to find the devices of a tenant which match a set of search conditions, using the same semantics as
+     * the database search.
+     *
+     * @param tenantId   Id of the tenant.
+     * @param conditions Search conditions.
+     * @return Bitmap of the ids of the matching devices, or null if the index cannot answer the search.
+     * @throws InvalidOperatorException if a condition carries an unsupported operator, state or value.
+     */
+    BitSet search(int tenantId, List<Condition> conditions) throws InvalidOperatorException;
+
+    /**
+     * Method to replace the indexed device details and properties of a device.
+     *
+     * @param tenantId   Id of the tenant.
+     * @param deviceId   Id of the device.
+     * @param deviceInfo Device details which have been persisted.
+     */
+    void updateDeviceInfo(int tenantId, int deviceId, DeviceInfo deviceInfo);
+
+    /**
+     * Method to replace the indexed location of a device.
+     *
+     * @param tenantId       Id of the tenant.
+     * @param deviceLocation Device location which has been persisted.
+     */
+    void updateDeviceLocation(int tenantId, DeviceLocation deviceLocation);
+
+    /**
+     * Method to drop all the indexed values of a device which has been disenrolled, so that it is no longer found
+     * by searches.
+     *
+     * @param tenantId Id of the tenant.
+     * @param deviceId Id of the device.
+     */
+    void removeDevice(int tenantId, int deviceId);
+
+    /**
+     * Method to drop the index of all the tenants. Searches are answered by the database until the index is loaded
+     * again.
+     */
+    void clearIndex();
+
+}
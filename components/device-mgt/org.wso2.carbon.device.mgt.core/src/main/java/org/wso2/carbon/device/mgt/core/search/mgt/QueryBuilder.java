@@ -22,22 +22,29 @@ package org.wso2.carbon.device.mgt.core.search.mgt;
 import org.wso2.carbon.device.mgt.common.search.Condition;
 
 import java.util.List;
-import java.util.Map;
 
 public interface QueryBuilder {
 
-    Map<String, List<String>> buildQueries(List<Condition> conditions) throws InvalidOperatorException;
-
-    String processAND(List<Condition> conditions) throws InvalidOperatorException;
-
-    String processOR(List<Condition> conditions) throws InvalidOperatorException;
-
-    List<String>  processLocation(Condition condition) throws InvalidOperatorException;
-
-    List<String> processANDProperties(List<Condition> conditions) throws InvalidOperatorException;
-
-    List<String> processORProperties(List<Condition> conditions) throws InvalidOperatorException;
-
-    String processUpdatedDevices(long epochTime) throws InvalidOperatorException;
+    /**
+     * Compiles the search conditions into a single parameterized query. A device matches when it satisfies all the
+     * conditions carrying the AND state, or any of the conditions carrying the OR state. The devices are ordered by
+     * their ids so that the results can be paged through.
+     *
+     * @param conditions   search conditions.
+     * @param lastDeviceId id of the last device of the previous page, or 0 to start from the first device.
+     * @return the compiled query and its parameters.
+     * @throws InvalidOperatorException if a condition carries an unsupported operator, state or value.
+     */
+    QueryHolder buildQuery(List<Condition> conditions, int lastDeviceId) throws InvalidOperatorException;
+
+    /**
+     * Builds a query fetching the devices of the given ids, ordered by their ids.
+     *
+     * @param deviceIds ids of the devices.
+     * @return the query and its parameters.
+     */
+    QueryHolder buildQuery(List<Integer> deviceIds);
+
+    QueryHolder processUpdatedDevices(long epochTime);
 
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.core.search.mgt;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A parameterized search query along with the values of its parameters, in the order of the placeholders.
+ * Queries are built only out of known column names and placeholders, so searches with the same shape of
+ * conditions produce the same SQL statement regardless of the values searched for.
+ */
+public class QueryHolder {
+
+    private StringBuilder query = new StringBuilder();
+    private List<Object> parameters = new ArrayList<>();
+
+    public String getQuery() {
+        return query.toString();
+    }
+
+    public List<Object> getParameters() {
+        return parameters;
+    }
+
+    public QueryHolder append(String queryPart) {
+        query.append(queryPart);
+        return this;
+    }
+
+    public QueryHolder addParameter(Object parameter) {
+        parameters.add(parameter);
+        return this;
+    }
+
+}
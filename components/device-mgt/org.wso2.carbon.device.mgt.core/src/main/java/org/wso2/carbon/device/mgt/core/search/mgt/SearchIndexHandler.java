@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.core.search.mgt;
+
+/**
+ * Receives the searchable values of the devices while the device search index is being built.
+ */
+public interface SearchIndexHandler {
+
+    /**
+     * @param tenantId id of the tenant the device belongs to.
+     * @param deviceId id of the device.
+     * @param field    field name, which is the name of the column or the property prefixed by the
+     *                 {@link Constants} prefix of its table.
+     * @param value    value of the field, which is a string for text fields and a double otherwise. May be null.
+     */
+    void handle(int tenantId, int deviceId, String field, Object value);
+
+}
@@ -20,13 +20,30 @@
 package org.wso2.carbon.device.mgt.core.search.mgt.dao;
 
 import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.core.search.mgt.QueryHolder;
+import org.wso2.carbon.device.mgt.core.search.mgt.SearchIndexHandler;
 
 import java.util.List;
 
 public interface SearchDAO {
 
-    List<Device> searchDeviceDetailsTable(String query) throws SearchDAOException;
-
-    List<Device> searchDevicePropertyTable(String query) throws SearchDAOException;
+    /**
+     * Runs a search query built by the query builder.
+     *
+     * @param query  search query along with its parameters.
+     * @param offset number of matching devices to skip.
+     * @param limit  maximum number of devices to return, or 0 to return all the remaining matching devices.
+     * @return matching devices, carrying their device details and location.
+     * @throws SearchDAOException if the query could not be run.
+     */
+    List<Device> searchDevices(QueryHolder query, int offset, int limit) throws SearchDAOException;
+
+    /**
+     * Streams the searchable device details, locations and properties of the devices of all the tenants.
+     *
+     * @param handler handler receiving each value.
+     * @throws SearchDAOException if the values could not be read.
+     */
+    void loadSearchIndex(SearchIndexHandler handler) throws SearchDAOException;
 
 }
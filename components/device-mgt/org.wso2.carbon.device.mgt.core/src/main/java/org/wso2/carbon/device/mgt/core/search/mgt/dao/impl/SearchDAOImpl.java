@@ -22,96 +22,77 @@ package org.wso2.carbon.device.mgt.core.search.mgt.dao.impl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.Device;
-import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.DeviceManagementConstants;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
 import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
+import org.wso2.carbon.device.mgt.core.search.mgt.Constants;
+import org.wso2.carbon.device.mgt.core.search.mgt.QueryHolder;
+import org.wso2.carbon.device.mgt.core.search.mgt.SearchIndexHandler;
 import org.wso2.carbon.device.mgt.core.search.mgt.dao.SearchDAO;
 import org.wso2.carbon.device.mgt.core.search.mgt.dao.SearchDAOException;
 import org.wso2.carbon.device.mgt.core.search.mgt.impl.Utils;
 
-import java.sql.*;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 public class SearchDAOImpl implements SearchDAO {
 
     private static final Log log = LogFactory.getLog(SearchDAOImpl.class);
+    private static final int INDEX_FETCH_SIZE = 1000;
 
     @Override
-    public List<Device> searchDeviceDetailsTable(String query) throws SearchDAOException {
-        if (log.isDebugEnabled()) {
-            log.debug("Query : " + query);
-        }
+    public List<Device> searchDevices(QueryHolder query, int offset, int limit) throws SearchDAOException {
         Connection conn;
         PreparedStatement stmt = null;
-        ResultSet rs;
+        ResultSet rs = null;
         List<Device> devices = new ArrayList<>();
-        Map<Integer, Integer> devs = new HashMap<>();
+        Set<Integer> deviceIds = new HashSet<>();
         try {
             conn = this.getConnection();
-            stmt = conn.prepareStatement(query);
+            List<Object> parameters = new ArrayList<>(query.getParameters());
+            String sql = query.getQuery();
+            if (limit > 0) {
+                String databaseEngine = conn.getMetaData().getDatabaseProductName();
+                if (databaseEngine.contains(DeviceManagementConstants.DataBaseTypes.DB_TYPE_ORACLE) ||
+                        databaseEngine.contains(DeviceManagementConstants.DataBaseTypes.DB_TYPE_MSSQL)) {
+                    sql = sql + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+                    parameters.add(offset);
+                    parameters.add(limit);
+                } else {
+                    sql = sql + " LIMIT ? OFFSET ?";
+                    parameters.add(limit);
+                    parameters.add(offset);
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Query : " + sql);
+            }
+            stmt = conn.prepareStatement(sql);
+            int index = 1;
+            for (Object parameter : parameters) {
+                stmt.setObject(index++, parameter);
+            }
             rs = stmt.executeQuery();
             while (rs.next()) {
-                if (!devs.containsKey(rs.getInt("ID"))) {
-                    Device device = new Device();
-                    device.setId(rs.getInt("ID"));
-                    device.setDescription(rs.getString("DESCRIPTION"));
-                    device.setName("NAME");
-                    device.setType(rs.getString("DEVICE_TYPE_NAME"));
-                    device.setDeviceIdentifier(rs.getString("DEVICE_IDENTIFICATION"));
-
-                    DeviceIdentifier identifier = new DeviceIdentifier();
-                    identifier.setType(rs.getString("DEVICE_TYPE_NAME"));
-                    identifier.setId(rs.getString("DEVICE_IDENTIFICATION"));
-
-                    DeviceInfo deviceInfo = new DeviceInfo();
-                    deviceInfo.setAvailableRAMMemory(rs.getDouble("AVAILABLE_RAM_MEMORY"));
-                    deviceInfo.setBatteryLevel(rs.getDouble("BATTERY_LEVEL"));
-                    deviceInfo.setConnectionType(rs.getString("CONNECTION_TYPE"));
-                    deviceInfo.setCpuUsage(rs.getDouble("CPU_USAGE"));
-                    deviceInfo.setDeviceModel(rs.getString("DEVICE_MODEL"));
-                    deviceInfo.setExternalAvailableMemory(rs.getDouble("EXTERNAL_AVAILABLE_MEMORY"));
-                    deviceInfo.setExternalTotalMemory(rs.getDouble("EXTERNAL_TOTAL_MEMORY"));
-                    deviceInfo.setInternalAvailableMemory(rs.getDouble("INTERNAL_AVAILABLE_MEMORY"));
-                    deviceInfo.setInternalTotalMemory(rs.getDouble("EXTERNAL_TOTAL_MEMORY"));
-                    deviceInfo.setOsVersion(rs.getString("OS_VERSION"));
-                    deviceInfo.setOsBuildDate(rs.getString("OS_BUILD_DATE"));
-                    deviceInfo.setPluggedIn(rs.getBoolean("PLUGGED_IN"));
-                    deviceInfo.setSsid(rs.getString("SSID"));
-                    deviceInfo.setTotalRAMMemory(rs.getDouble("TOTAL_RAM_MEMORY"));
-                    deviceInfo.setVendor(rs.getString("VENDOR"));
-                    deviceInfo.setUpdatedTime(new java.util.Date(rs.getLong("UPDATE_TIMESTAMP")));
-
-                    DeviceLocation deviceLocation = new DeviceLocation();
-                    deviceLocation.setLatitude(rs.getDouble("LATITUDE"));
-                    deviceLocation.setLongitude(rs.getDouble("LONGITUDE"));
-                    deviceLocation.setStreet1(rs.getString("STREET1"));
-                    deviceLocation.setStreet2(rs.getString("STREET2"));
-                    deviceLocation.setCity(rs.getString("CITY"));
-                    deviceLocation.setState(rs.getString("STATE"));
-                    deviceLocation.setZip(rs.getString("ZIP"));
-                    deviceLocation.setCountry(rs.getString("COUNTRY"));
-                    deviceLocation.setDeviceId(rs.getInt("ID"));
-                    deviceLocation.setUpdatedTime(new java.util.Date(rs.getLong("DL_UPDATED_TIMESTAMP")));
-
-                    deviceInfo.setLocation(deviceLocation);
-                    device.setDeviceInfo(deviceInfo);
-                    devices.add(device);
-                    devs.put(device.getId(), device.getId());
+                if (deviceIds.add(rs.getInt("ID"))) {
+                    devices.add(this.loadDevice(rs));
                 }
             }
         } catch (SQLException e) {
             throw new SearchDAOException("Error occurred while acquiring the device details.", e);
         } finally {
-            DeviceManagementDAOUtil.cleanupResources(stmt, null);
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
         }
 
-        this.fillPropertiesOfDevices(devices);
-
         if (log.isDebugEnabled()) {
             log.debug("Number of the device returned from the query : " + devices.size());
         }
@@ -119,135 +100,119 @@ public class SearchDAOImpl implements SearchDAO {
     }
 
     @Override
-    public List<Device> searchDevicePropertyTable(String query) throws SearchDAOException {
-        if (log.isDebugEnabled()) {
-            log.debug("Query : " + query);
-        }
+    public void loadSearchIndex(SearchIndexHandler handler) throws SearchDAOException {
+        this.loadIndexedColumns("DM_DEVICE_DETAIL", Constants.DEVICE_DETAILS_FIELD_PREFIX,
+                Utils.getDeviceDetailsColumnNames().values(), handler);
+        this.loadIndexedColumns("DM_DEVICE_LOCATION", Constants.DEVICE_LOCATION_FIELD_PREFIX,
+                Utils.getDeviceLocationColumnNames().values(), handler);
 
         Connection conn;
         PreparedStatement stmt = null;
-        ResultSet rs;
-        List<Device> devices = new ArrayList<>();
-        Map<Integer, Integer> devs = new HashMap<>();
+        ResultSet rs = null;
         try {
             conn = this.getConnection();
-            stmt = conn.prepareStatement(query);
+            stmt = conn.prepareStatement("SELECT D.TENANT_ID, DI.DEVICE_ID, DI.KEY_FIELD, DI.VALUE_FIELD " +
+                    "FROM DM_DEVICE_INFO DI INNER JOIN DM_DEVICE D ON D.ID = DI.DEVICE_ID WHERE " +
+                    Constants.ENROLLED_DEVICE_CONDITION);
+            stmt.setFetchSize(INDEX_FETCH_SIZE);
             rs = stmt.executeQuery();
             while (rs.next()) {
-                if (!devs.containsKey(rs.getInt("ID"))) {
-                    Device device = new Device();
-                    device.setId(rs.getInt("ID"));
-                    device.setDescription(rs.getString("DESCRIPTION"));
-                    device.setName(rs.getString("NAME"));
-                    device.setType(rs.getString("DEVICE_TYPE_NAME"));
-                    device.setDeviceIdentifier(rs.getString("DEVICE_IDENTIFICATION"));
-
-                    DeviceIdentifier identifier = new DeviceIdentifier();
-                    identifier.setType(rs.getString("DEVICE_TYPE_NAME"));
-                    identifier.setId(rs.getString("DEVICE_IDENTIFICATION"));
-
-                    DeviceInfo deviceInfo = new DeviceInfo();
-                    deviceInfo.setAvailableRAMMemory(rs.getDouble("AVAILABLE_RAM_MEMORY"));
-                    deviceInfo.setBatteryLevel(rs.getDouble("BATTERY_LEVEL"));
-                    deviceInfo.setConnectionType(rs.getString("CONNECTION_TYPE"));
-                    deviceInfo.setCpuUsage(rs.getDouble("CPU_USAGE"));
-                    deviceInfo.setDeviceModel(rs.getString("DEVICE_MODEL"));
-                    deviceInfo.setExternalAvailableMemory(rs.getDouble("EXTERNAL_AVAILABLE_MEMORY"));
-                    deviceInfo.setExternalTotalMemory(rs.getDouble("EXTERNAL_TOTAL_MEMORY"));
-                    deviceInfo.setInternalAvailableMemory(rs.getDouble("INTERNAL_AVAILABLE_MEMORY"));
-                    deviceInfo.setInternalTotalMemory(rs.getDouble("EXTERNAL_TOTAL_MEMORY"));
-                    deviceInfo.setOsVersion(rs.getString("OS_VERSION"));
-                    deviceInfo.setOsBuildDate(rs.getString("OS_BUILD_DATE"));
-                    deviceInfo.setPluggedIn(rs.getBoolean("PLUGGED_IN"));
-                    deviceInfo.setSsid(rs.getString("SSID"));
-                    deviceInfo.setTotalRAMMemory(rs.getDouble("TOTAL_RAM_MEMORY"));
-                    deviceInfo.setVendor(rs.getString("VENDOR"));
-                    deviceInfo.setUpdatedTime(new java.util.Date(rs.getLong("UPDATE_TIMESTAMP")));
-
-                    DeviceLocation deviceLocation = new DeviceLocation();
-                    deviceLocation.setLatitude(rs.getDouble("LATITUDE"));
-                    deviceLocation.setLongitude(rs.getDouble("LONGITUDE"));
-                    deviceLocation.setStreet1(rs.getString("STREET1"));
-                    deviceLocation.setStreet2(rs.getString("STREET2"));
-                    deviceLocation.setCity(rs.getString("CITY"));
-                    deviceLocation.setState(rs.getString("STATE"));
-                    deviceLocation.setZip(rs.getString("ZIP"));
-                    deviceLocation.setCountry(rs.getString("COUNTRY"));
-                    deviceLocation.setDeviceId(rs.getInt("ID"));
-                    deviceLocation.setUpdatedTime(new java.util.Date(rs.getLong("DL_UPDATED_TIMESTAMP")));
-
-                    deviceInfo.setLocation(deviceLocation);
-                    device.setDeviceInfo(deviceInfo);
-                    devices.add(device);
-                    devs.put(device.getId(), device.getId());
-                }
-
+                handler.handle(rs.getInt("TENANT_ID"), rs.getInt("DEVICE_ID"),
+                        Constants.DEVICE_PROPERTY_FIELD_PREFIX + rs.getString("KEY_FIELD"),
+                        rs.getString("VALUE_FIELD"));
             }
         } catch (SQLException e) {
-            throw new SearchDAOException("Error occurred while aquiring the device details.", e);
+            throw new SearchDAOException("Error occurred while retrieving the device properties to be indexed.", e);
         } finally {
-            DeviceManagementDAOUtil.cleanupResources(stmt, null);
-        }
-
-        this.fillPropertiesOfDevices(devices);
-
-        if (log.isDebugEnabled()) {
-            log.debug("Number of the device returned from the query : " + devices.size());
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
         }
-
-        return devices;
-    }
-
-
-    private Connection getConnection() throws SQLException {
-        return DeviceManagementDAOFactory.getConnection();
     }
 
-    private List<Device> fillPropertiesOfDevices(List<Device> devices) throws SearchDAOException {
-        if (devices.isEmpty()) {
-            return null;
-        }
-
+    private void loadIndexedColumns(String table, String prefix, Collection<String> columns,
+                                    SearchIndexHandler handler) throws SearchDAOException {
         Connection conn;
-        PreparedStatement stmt;
-        ResultSet rs;
-
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
         try {
             conn = this.getConnection();
-            String query = "SELECT * FROM DM_DEVICE_INFO WHERE DEVICE_ID IN (?) ORDER BY DEVICE_ID ;";
-            stmt = conn.prepareStatement(query);
-            if (conn.getMetaData().getDatabaseProductName().contains("H2") ||
-                    conn.getMetaData().getDatabaseProductName().contains("MySQL")) {
-                String inData = Utils.getDeviceIdsAsString(devices);
-                stmt.setString(1, inData);
-            } else {
-                Array array = conn.createArrayOf("INT", Utils.getArrayOfDeviceIds(devices));
-                stmt.setArray(1, array);
+            StringBuilder sql = new StringBuilder("SELECT D.TENANT_ID, T.DEVICE_ID");
+            for (String column : columns) {
+                sql.append(", T.").append(column);
             }
+            sql.append(" FROM ").append(table).append(" T INNER JOIN DM_DEVICE D ON D.ID = T.DEVICE_ID WHERE ")
+                    .append(Constants.ENROLLED_DEVICE_CONDITION);
+            stmt = conn.prepareStatement(sql.toString());
+            stmt.setFetchSize(INDEX_FETCH_SIZE);
             rs = stmt.executeQuery();
-
-            DeviceInfo dInfo;
             while (rs.next()) {
-                dInfo = this.getDeviceInfo(devices, rs.getInt("DEVICE_ID"));
-                dInfo.getDeviceDetailsMap().put(rs.getString("KEY_FIELD"), rs.getString("VALUE_FIELD"));
+                int tenantId = rs.getInt("TENANT_ID");
+                int deviceId = rs.getInt("DEVICE_ID");
+                for (String column : columns) {
+                    Object value;
+                    if (Utils.isStringColumn(column)) {
+                        value = rs.getString(column);
+                    } else {
+                        value = rs.getDouble(column);
+                        if (rs.wasNull()) {
+                            value = null;
+                        }
+                    }
+                    handler.handle(tenantId, deviceId, prefix + column, value);
+                }
             }
         } catch (SQLException e) {
-            throw new SearchDAOException("Error occurred while retrieving the device properties.", e);
+            throw new SearchDAOException("Error occurred while retrieving the rows of " + table +
+                    " to be indexed.", e);
+        } finally {
+            DeviceManagementDAOUtil.cleanupResources(stmt, rs);
         }
-        return devices;
     }
 
-    private DeviceInfo getDeviceInfo(List<Device> devices, int deviceId) {
-        for (Device device : devices) {
-            if (device.getId() == deviceId) {
-                if (device.getDeviceInfo() == null) {
-                    device.setDeviceInfo(new DeviceInfo());
-                }
-                return device.getDeviceInfo();
-            }
-        }
-        return null;
+    private Device loadDevice(ResultSet rs) throws SQLException {
+        Device device = new Device();
+        device.setId(rs.getInt("ID"));
+        device.setDescription(rs.getString("DESCRIPTION"));
+        device.setName(rs.getString("NAME"));
+        device.setType(rs.getString("DEVICE_TYPE_NAME"));
+        device.setDeviceIdentifier(rs.getString("DEVICE_IDENTIFICATION"));
+
+        DeviceInfo deviceInfo = new DeviceInfo();
+        deviceInfo.setAvailableRAMMemory(rs.getDouble("AVAILABLE_RAM_MEMORY"));
+        deviceInfo.setBatteryLevel(rs.getDouble("BATTERY_LEVEL"));
+        deviceInfo.setConnectionType(rs.getString("CONNECTION_TYPE"));
+        deviceInfo.setCpuUsage(rs.getDouble("CPU_USAGE"));
+        deviceInfo.setDeviceModel(rs.getString("DEVICE_MODEL"));
+        deviceInfo.setExternalAvailableMemory(rs.getDouble("EXTERNAL_AVAILABLE_MEMORY"));
+        deviceInfo.setExternalTotalMemory(rs.getDouble("EXTERNAL_TOTAL_MEMORY"));
+        deviceInfo.setInternalAvailableMemory(rs.getDouble("INTERNAL_AVAILABLE_MEMORY"));
+        deviceInfo.setInternalTotalMemory(rs.getDouble("INTERNAL_TOTAL_MEMORY"));
+        deviceInfo.setOsVersion(rs.getString("OS_VERSION"));
+        deviceInfo.setOsBuildDate(rs.getString("OS_BUILD_DATE"));
+        deviceInfo.setPluggedIn(rs.getBoolean("PLUGGED_IN"));
+        deviceInfo.setSsid(rs.getString("SSID"));
+        deviceInfo.setTotalRAMMemory(rs.getDouble("TOTAL_RAM_MEMORY"));
+        deviceInfo.setVendor(rs.getString("VENDOR"));
+        deviceInfo.setUpdatedTime(new java.util.Date(rs.getLong("UPDATE_TIMESTAMP")));
+
+        DeviceLocation deviceLocation = new DeviceLocation();
+        deviceLocation.setLatitude(rs.getDouble("LATITUDE"));
+        deviceLocation.setLongitude(rs.getDouble("LONGITUDE"));
+        deviceLocation.setStreet1(rs.getString("STREET1"));
+        deviceLocation.setStreet2(rs.getString("STREET2"));
+        deviceLocation.setCity(rs.getString("CITY"));
+        deviceLocation.setState(rs.getString("STATE"));
+        deviceLocation.setZip(rs.getString("ZIP"));
+        deviceLocation.setCountry(rs.getString("COUNTRY"));
+        deviceLocation.setDeviceId(rs.getInt("ID"));
+        deviceLocation.setUpdatedTime(new java.util.Date(rs.getLong("DL_UPDATED_TIMESTAMP")));
+
+        deviceInfo.setLocation(deviceLocation);
+        device.setDeviceInfo(deviceInfo);
+        return device;
     }
 
-}
+    private Connection getConnection() throws SQLException {
+        return DeviceManagementDAOFactory.getConnection();
+    }
 
+}
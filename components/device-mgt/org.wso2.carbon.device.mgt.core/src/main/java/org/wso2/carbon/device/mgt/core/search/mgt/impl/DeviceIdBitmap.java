@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.core.search.mgt.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compressed set of device ids. The ids are kept in a sorted array while the set is sparse and in a bitmap once the
+ * bitmap takes less memory than the array, so that both rare and common values of a field are cheap to keep.
+ */
+public class DeviceIdBitmap {
+
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int MIN_DENSE_SIZE = 64;
+
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private BitSet bits;
+    private int size;
+
+    public boolean add(int deviceId) {
+        if (bits != null) {
+            if (bits.get(deviceId)) {
+                return false;
+            }
+            bits.set(deviceId);
+            size++;
+            return true;
+        }
+        int index = Arrays.binarySearch(ids, 0, size, deviceId);
+        if (index >= 0) {
+            return false;
+        }
+        index = -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, index, ids, index + 1, size - index);
+        ids[index] = deviceId;
+        size++;
+        if (size >= MIN_DENSE_SIZE && (long) size * Integer.SIZE >= ids[size - 1]) {
+            this.toDense();
+        }
+        return true;
+    }
+
+    public boolean remove(int deviceId) {
+        if (bits != null) {
+            if (!bits.get(deviceId)) {
+                return false;
+            }
+            bits.clear(deviceId);
+            size--;
+            // Switching back only when the array takes half the memory of the bitmap, so that a set hovering
+            // around the threshold is not converted back and forth.
+            if ((long) size * Integer.SIZE * 2 < bits.length()) {
+                this.toSparse();
+            }
+            return true;
+        }
+        int index = Arrays.binarySearch(ids, 0, size, deviceId);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        return true;
+    }
+
+    public boolean contains(int deviceId) {
+        if (bits != null) {
+            return bits.get(deviceId);
+        }
+        return Arrays.binarySearch(ids, 0, size, deviceId) >= 0;
+    }
+
+    /**
+     * Adds all the device ids of this set to a bitmap.
+     *
+     * @param target bitmap to be updated.
+     */
+    public void orInto(BitSet target) {
+        if (bits != null) {
+            target.or(bits);
+        } else {
+            for (int i = 0; i < size; i++) {
+                target.set(ids[i]);
+            }
+        }
+    }
+
+    public BitSet toBitSet() {
+        BitSet bitSet = new BitSet();
+        this.orInto(bitSet);
+        return bitSet;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean isDense() {
+        return bits != null;
+    }
+
+    private void toDense() {
+        bits = new BitSet(ids[size - 1] + 1);
+        for (int i = 0; i < size; i++) {
+            bits.set(ids[i]);
+        }
+        ids = null;
+    }
+
+    private void toSparse() {
+        ids = new int[Math.max(INITIAL_CAPACITY, size)];
+        int index = 0;
+        for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+            ids[index++] = id;
+        }
+        bits = null;
+    }
+
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.core.search.mgt.impl;
+
+import org.wso2.carbon.device.mgt.common.search.Condition;
+import org.wso2.carbon.device.mgt.core.search.mgt.Constants;
+import org.wso2.carbon.device.mgt.core.search.mgt.InvalidOperatorException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index of the searchable values of the devices of a tenant. Each field maps its values, in order, to the
+ * bitmap of the devices carrying that value, so that equality and range conditions are answered by combining
+ * bitmaps. Text values are compared as they are, which means that the matching is case sensitive regardless of the
+ * collation of the database.
+ */
+public class DeviceSearchIndex {
+
+    private static final String[] LOCATION_FIELDS = {"STREET1", "STREET2", "CITY", "STATE", "COUNTRY", "ZIP"};
+
+    private static final Comparator<Object> VALUE_COMPARATOR = new Comparator<Object>() {
+        @Override
+        public int compare(Object value1, Object value2) {
+            if (value1 instanceof Double && value2 instanceof Double) {
+                return ((Double) value1).compareTo((Double) value2);
+            } else if (value1 instanceof String && value2 instanceof String) {
+                return ((String) value1).compareTo((String) value2);
+            }
+            return value1.getClass().getName().compareTo(value2.getClass().getName());
+        }
+    };
+
+    private final Map<String, FieldIndex> fields = new HashMap<>();
+    private final DeviceIdBitmap devicesWithDetails = new DeviceIdBitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Devices updated or removed while the index is being loaded, per field prefix, whose loaded values are stale
+    private Map<String, DeviceIdBitmap> updatedDevices;
+    private DeviceIdBitmap removedDevices;
+
+    public DeviceSearchIndex() {
+        this(false);
+    }
+
+    /**
+     * @param loading true if the index is being loaded from the database, in which case loaded values of the devices
+     *                which are updated or removed before {@link #finishLoading()} are ignored.
+     */
+    public DeviceSearchIndex(boolean loading) {
+        if (loading) {
+            updatedDevices = new HashMap<>();
+            removedDevices = new DeviceIdBitmap();
+        }
+    }
+
+    /**
+     * Sets the value of a field of a device, replacing the value it had before.
+     *
+     * @param deviceId id of the device.
+     * @param field    field name, prefixed by the {@link Constants} prefix of its table.
+     * @param value    value of the field, or null if the device does not have a value for it.
+     */
+    public void putValue(int deviceId, String field, Object value) {
+        lock.writeLock().lock();
+        try {
+            this.setValue(deviceId, field, value);
+            if (field.startsWith(Constants.DEVICE_DETAILS_FIELD_PREFIX)) {
+                devicesWithDetails.add(deviceId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets a value read from the database while loading the index. The value is ignored if the device has been
+     * removed, or its values carrying the same prefix have been replaced, since the loading started, as the value
+     * may have been read before that change.
+     *
+     * @param deviceId id of the device.
+     * @param field    field name, prefixed by the {@link Constants} prefix of its table.
+     * @param value    value of the field, or null if the device does not have a value for it.
+     */
+    public void loadValue(int deviceId, String field, Object value) {
+        lock.writeLock().lock();
+        try {
+            if (removedDevices != null) {
+                if (removedDevices.contains(deviceId)) {
+                    return;
+                }
+                for (Map.Entry<String, DeviceIdBitmap> updated : updatedDevices.entrySet()) {
+                    if (field.startsWith(updated.getKey()) && updated.getValue().contains(deviceId)) {
+                        return;
+                    }
+                }
+            }
+            this.setValue(deviceId, field, value);
+            if (field.startsWith(Constants.DEVICE_DETAILS_FIELD_PREFIX)) {
+                devicesWithDetails.add(deviceId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Stops ignoring loaded values of updated and removed devices, once the index has been loaded.
+     */
+    public void finishLoading() {
+        lock.writeLock().lock();
+        try {
+            updatedDevices = null;
+            removedDevices = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces all the values of a device carrying the given prefix, such as all the properties of the device.
+     *
+     * @param deviceId id of the device.
+     * @param prefix   {@link Constants} prefix of the fields.
+     * @param values   new values mapped against the field names without the prefix.
+     */
+    public void replaceValues(int deviceId, String prefix, Map<String, ?> values) {
+        lock.writeLock().lock();
+        try {
+            for (Map.Entry<String, FieldIndex> field : fields.entrySet()) {
+                if (field.getKey().startsWith(prefix) &&
+                        !values.containsKey(field.getKey().substring(prefix.length()))) {
+                    field.getValue().setValue(deviceId, null);
+                }
+            }
+            for (Map.Entry<String, ?> value : values.entrySet()) {
+                this.setValue(deviceId, prefix + value.getKey(), value.getValue());
+            }
+            if (Constants.DEVICE_DETAILS_FIELD_PREFIX.equals(prefix)) {
+                devicesWithDetails.add(deviceId);
+            }
+            if (updatedDevices != null) {
+                DeviceIdBitmap devices = updatedDevices.get(prefix);
+                if (devices == null) {
+                    devices = new DeviceIdBitmap();
+                    updatedDevices.put(prefix, devices);
+                }
+                devices.add(deviceId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes all the values of a device, so that it is no longer found by searches.
+     *
+     * @param deviceId id of the device.
+     */
+    public void removeDevice(int deviceId) {
+        lock.writeLock().lock();
+        try {
+            for (FieldIndex fieldIndex : fields.values()) {
+                fieldIndex.setValue(deviceId, null);
+            }
+            devicesWithDetails.remove(deviceId);
+            if (removedDevices != null) {
+                removedDevices.add(deviceId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the devices matching a set of search conditions. A device matches when it has device details and it
+     * satisfies all the conditions carrying the AND state, or any of the conditions carrying the OR state.
+     *
+     * @param conditions search conditions.
+     * @return bitmap of the ids of the matching devices.
+     * @throws InvalidOperatorException if a condition carries an unsupported operator, state or value.
+     */
+    public BitSet search(List<Condition> conditions) throws InvalidOperatorException {
+        List<Condition> andConditions = new ArrayList<>();
+        List<Condition> orConditions = new ArrayList<>();
+        if (conditions != null) {
+            if (conditions.size() == 1) {
+                andConditions.add(conditions.get(0));
+            } else {
+                for (Condition con : conditions) {
+                    if (Condition.State.AND.equals(con.getState())) {
+                        andConditions.add(con);
+                    } else if (Condition.State.OR.equals(con.getState())) {
+                        orConditions.add(con);
+                    } else {
+                        throw new InvalidOperatorException(con.getState() + " is not a valid operator.");
+                    }
+                }
+            }
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet result = null;
+            for (Condition con : andConditions) {
+                BitSet matches = this.match(con);
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.and(matches);
+                }
+            }
+            for (Condition con : orConditions) {
+                if (result == null) {
+                    result = new BitSet();
+                }
+                result.or(this.match(con));
+            }
+            if (result == null) {
+                return devicesWithDetails.toBitSet();
+            }
+            result.and(devicesWithDetails.toBitSet());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of the devices having device details, which are the devices that can be found by a search.
+     */
+    public int getDeviceCount() {
+        lock.readLock().lock();
+        try {
+            return devicesWithDetails.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet match(Condition con) throws InvalidOperatorException {
+        String key = con.getKey();
+        if (Constants.LOCATION.equalsIgnoreCase(key)) {
+            return this.matchLocation(String.valueOf(con.getValue()));
+        }
+        String operator = Utils.getOperator(con.getOperator());
+        String field;
+        Object value;
+        if (Utils.checkDeviceDetailsColumns(key)) {
+            String column = Utils.getDeviceDetailsColumnName(key);
+            field = Constants.DEVICE_DETAILS_FIELD_PREFIX + column;
+            value = Utils.getParameterValue(column, con.getValue());
+        } else if (Utils.checkDeviceLocationColumns(key)) {
+            String column = Utils.getDeviceLocationColumnName(key);
+            field = Constants.DEVICE_LOCATION_FIELD_PREFIX + column;
+            value = Utils.getParameterValue(column, con.getValue());
+        } else {
+            field = Constants.DEVICE_PROPERTY_FIELD_PREFIX + key;
+            value = con.getValue();
+        }
+        BitSet matches = new BitSet();
+        FieldIndex fieldIndex = fields.get(field);
+        value = normalize(value);
+        if (fieldIndex == null || value == null) {
+            return matches;
+        }
+        NavigableMap<Object, DeviceIdBitmap> postings = fieldIndex.postings;
+        switch (operator) {
+            case "=":
+                DeviceIdBitmap devices = postings.get(value);
+                if (devices != null) {
+                    devices.orInto(matches);
+                }
+                return matches;
+            case "<>":
+                this.orInto(postings.headMap(value, false), matches);
+                this.orInto(postings.tailMap(value, false), matches);
+                return matches;
+            case "<":
+                this.orInto(postings.headMap(value, false), matches);
+                return matches;
+            case "<=":
+                this.orInto(postings.headMap(value, true), matches);
+                return matches;
+            case ">":
+                this.orInto(postings.tailMap(value, false), matches);
+                return matches;
+            case ">=":
+                this.orInto(postings.tailMap(value, true), matches);
+                return matches;
+            default:
+                throw new InvalidOperatorException(con.getOperator() + " is not a valid operator.");
+        }
+    }
+
+    private BitSet matchLocation(String location) {
+        BitSet matches = new BitSet();
+        for (String column : LOCATION_FIELDS) {
+            FieldIndex fieldIndex = fields.get(Constants.DEVICE_LOCATION_FIELD_PREFIX + column);
+            if (fieldIndex == null) {
+                continue;
+            }
+            for (Map.Entry<Object, DeviceIdBitmap> posting : fieldIndex.postings.entrySet()) {
+                if (posting.getKey().toString().contains(location)) {
+                    posting.getValue().orInto(matches);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private void orInto(Map<Object, DeviceIdBitmap> postings, BitSet target) {
+        for (DeviceIdBitmap devices : postings.values()) {
+            devices.orInto(target);
+        }
+    }
+
+    private void setValue(int deviceId, String field, Object value) {
+        FieldIndex fieldIndex = fields.get(field);
+        if (fieldIndex == null) {
+            if (value == null) {
+                return;
+            }
+            fieldIndex = new FieldIndex();
+            fields.put(field, fieldIndex);
+        }
+        fieldIndex.setValue(deviceId, normalize(value));
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return value;
+    }
+
+    /**
+     * Values of a single field, kept both by value, for searching, and by device id, for updating.
+     */
+    private static class FieldIndex {
+
+        private final NavigableMap<Object, DeviceIdBitmap> postings = new TreeMap<>(VALUE_COMPARATOR);
+        private Object[] values = new Object[0];
+
+        void setValue(int deviceId, Object value) {
+            Object currentValue = deviceId < values.length ? values[deviceId] : null;
+            if (currentValue == null ? value == null : currentValue.equals(value)) {
+                return;
+            }
+            if (currentValue != null) {
+                DeviceIdBitmap devices = postings.get(currentValue);
+                devices.remove(deviceId);
+                if (devices.isEmpty()) {
+                    postings.remove(currentValue);
+                }
+            }
+            if (deviceId >= values.length) {
+                if (value == null) {
+                    return;
+                }
+                values = Arrays.copyOf(values, Math.max(deviceId + 1, values.length + (values.length >> 1)));
+            }
+            values[deviceId] = value;
+            if (value != null) {
+                DeviceIdBitmap devices = postings.get(value);
+                if (devices == null) {
+                    devices = new DeviceIdBitmap();
+                    postings.put(value, devices);
+                }
+                devices.add(deviceId);
+            }
+        }
+    }
+
+}
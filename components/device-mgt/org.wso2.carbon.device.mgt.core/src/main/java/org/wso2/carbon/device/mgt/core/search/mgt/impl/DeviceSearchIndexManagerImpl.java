@@ -0,0 +1,247 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.device.mgt.core.search.mgt.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.common.search.Condition;
+import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
+import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
+import org.wso2.carbon.device.mgt.core.config.search.DeviceSearchIndexConfiguration;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.search.mgt.Constants;
+import org.wso2.carbon.device.mgt.core.search.mgt.DeviceSearchIndexManager;
+import org.wso2.carbon.device.mgt.core.search.mgt.InvalidOperatorException;
+import org.wso2.carbon.device.mgt.core.search.mgt.SearchIndexHandler;
+import org.wso2.carbon.device.mgt.core.search.mgt.SearchMgtException;
+import org.wso2.carbon.device.mgt.core.search.mgt.dao.SearchDAOException;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Device search index which keeps a {@link DeviceSearchIndex} per tenant. Until the index has been loaded from the
+ * database, searches are left to the database. Devices updated or removed while the index is being loaded are applied
+ * to both the current and the loading index, so that no update is lost when the loaded index replaces the current
+ * one, and the loading index ignores the rows it reads afterwards for those devices, as they may predate the update.
+ */
+public class DeviceSearchIndexManagerImpl implements DeviceSearchIndexManager {
+
+    private static final Log log = LogFactory.getLog(DeviceSearchIndexManagerImpl.class);
+    private static volatile DeviceSearchIndexManagerImpl deviceSearchIndexManager;
+
+    private boolean enabled;
+    private volatile boolean loaded;
+    private volatile ConcurrentMap<Integer, DeviceSearchIndex> indexes = new ConcurrentHashMap<>();
+    private ConcurrentMap<Integer, DeviceSearchIndex> loadingIndexes;
+
+    private DeviceSearchIndexManagerImpl() {
+        DeviceManagementConfig config = DeviceConfigurationManager.getInstance().getDeviceManagementConfig();
+        DeviceSearchIndexConfiguration indexConfig =
+                (config != null) ? config.getDeviceSearchIndexConfiguration() : null;
+        this.enabled = indexConfig != null && indexConfig.isEnabled();
+        if (log.isDebugEnabled()) {
+            log.debug("Device search index is " + (enabled ? "enabled" : "disabled"));
+        }
+    }
+
+    DeviceSearchIndexManagerImpl(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static DeviceSearchIndexManagerImpl getInstance() {
+        if (deviceSearchIndexManager == null) {
+            synchronized (DeviceSearchIndexManagerImpl.class) {
+                if (deviceSearchIndexManager == null) {
+                    deviceSearchIndexManager = new DeviceSearchIndexManagerImpl();
+                }
+            }
+        }
+        return deviceSearchIndexManager;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isLoaded() {
+        return enabled && loaded;
+    }
+
+    @Override
+    public void loadIndex() throws SearchMgtException {
+        if (!enabled) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        final ConcurrentMap<Integer, DeviceSearchIndex> newIndexes = new ConcurrentHashMap<>();
+        synchronized (this) {
+            loadingIndexes = newIndexes;
+        }
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            DeviceManagementDAOFactory.getSearchDAO().loadSearchIndex(new SearchIndexHandler() {
+                @Override
+                public void handle(int tenantId, int deviceId, String field, Object value) {
+                    getIndex(newIndexes, tenantId, true).loadValue(deviceId, field, value);
+                }
+            });
+            synchronized (this) {
+                for (DeviceSearchIndex index : newIndexes.values()) {
+                    index.finishLoading();
+                }
+                indexes = newIndexes;
+                loadingIndexes = null;
+                loaded = true;
+            }
+        } catch (SQLException e) {
+            throw new SearchMgtException("Error occurred while opening a connection to the data source", e);
+        } catch (SearchDAOException e) {
+            throw new SearchMgtException("Error occurred while loading the device search index.", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+            synchronized (this) {
+                loadingIndexes = null;
+            }
+        }
+        if (log.isDebugEnabled()) {
+            int deviceCount = 0;
+            for (DeviceSearchIndex index : newIndexes.values()) {
+                deviceCount += index.getDeviceCount();
+            }
+            log.debug("Device search index of " + deviceCount + " devices in " + newIndexes.size() +
+                    " tenants has been loaded in " + (System.currentTimeMillis() - startTime) + "ms");
+        }
+    }
+
+    @Override
+    public BitSet search(int tenantId, List<Condition> conditions) throws InvalidOperatorException {
+        if (!this.isLoaded()) {
+            return null;
+        }
+        DeviceSearchIndex index = indexes.get(tenantId);
+        if (index == null) {
+            return new BitSet();
+        }
+        return index.search(conditions);
+    }
+
+    @Override
+    public void updateDeviceInfo(int tenantId, int deviceId, DeviceInfo deviceInfo) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Object> details = new HashMap<>();
+        details.put("DEVICE_MODEL", deviceInfo.getDeviceModel());
+        details.put("VENDOR", deviceInfo.getVendor());
+        details.put("OS_VERSION", deviceInfo.getOsVersion());
+        details.put("OS_BUILD_DATE", deviceInfo.getOsBuildDate());
+        details.put("BATTERY_LEVEL", deviceInfo.getBatteryLevel());
+        details.put("INTERNAL_TOTAL_MEMORY", deviceInfo.getInternalTotalMemory());
+        details.put("INTERNAL_AVAILABLE_MEMORY", deviceInfo.getInternalAvailableMemory());
+        details.put("EXTERNAL_TOTAL_MEMORY", deviceInfo.getExternalTotalMemory());
+        details.put("EXTERNAL_AVAILABLE_MEMORY", deviceInfo.getExternalAvailableMemory());
+        details.put("CONNECTION_TYPE", deviceInfo.getConnectionType());
+        details.put("SSID", deviceInfo.getSsid());
+        details.put("CPU_USAGE", deviceInfo.getCpuUsage());
+        details.put("TOTAL_RAM_MEMORY", deviceInfo.getTotalRAMMemory());
+        details.put("AVAILABLE_RAM_MEMORY", deviceInfo.getAvailableRAMMemory());
+        details.put("PLUGGED_IN", deviceInfo.isPluggedIn() ? 1 : 0);
+        Map<String, String> properties = deviceInfo.getDeviceDetailsMap() != null ?
+                deviceInfo.getDeviceDetailsMap() : Collections.<String, String>emptyMap();
+
+        for (DeviceSearchIndex index : this.getTargetIndexes(tenantId)) {
+            index.replaceValues(deviceId, Constants.DEVICE_DETAILS_FIELD_PREFIX, details);
+            index.replaceValues(deviceId, Constants.DEVICE_PROPERTY_FIELD_PREFIX, properties);
+        }
+    }
+
+    @Override
+    public void updateDeviceLocation(int tenantId, DeviceLocation deviceLocation) {
+        if (!enabled) {
+            return;
+        }
+        Map<String, Object> location = new HashMap<>();
+        location.put("LATITUDE", deviceLocation.getLatitude());
+        location.put("LONGITUDE", deviceLocation.getLongitude());
+        location.put("STREET1", deviceLocation.getStreet1());
+        location.put("STREET2", deviceLocation.getStreet2());
+        location.put("CITY", deviceLocation.getCity());
+        location.put("ZIP", deviceLocation.getZip());
+        location.put("STATE", deviceLocation.getState());
+        location.put("COUNTRY", deviceLocation.getCountry());
+
+        for (DeviceSearchIndex index : this.getTargetIndexes(tenantId)) {
+            index.replaceValues(deviceLocation.getDeviceId(), Constants.DEVICE_LOCATION_FIELD_PREFIX, location);
+        }
+    }
+
+    @Override
+    public void removeDevice(int tenantId, int deviceId) {
+        if (!enabled) {
+            return;
+        }
+        for (DeviceSearchIndex index : this.getTargetIndexes(tenantId)) {
+            index.removeDevice(deviceId);
+        }
+    }
+
+    @Override
+    public void clearIndex() {
+        synchronized (this) {
+            loaded = false;
+            indexes = new ConcurrentHashMap<>();
+        }
+    }
+
+    private synchronized List<DeviceSearchIndex> getTargetIndexes(int tenantId) {
+        List<DeviceSearchIndex> targets = new ArrayList<>(2);
+        targets.add(getIndex(indexes, tenantId, false));
+        if (loadingIndexes != null) {
+            targets.add(getIndex(loadingIndexes, tenantId, true));
+        }
+        return targets;
+    }
+
+    private static DeviceSearchIndex getIndex(ConcurrentMap<Integer, DeviceSearchIndex> indexes, int tenantId,
+                                              boolean loading) {
+        DeviceSearchIndex index = indexes.get(tenantId);
+        if (index == null) {
+            DeviceSearchIndex newIndex = new DeviceSearchIndex(loading);
+            index = indexes.putIfAbsent(tenantId, newIndex);
+            if (index == null) {
+                index = newIndex;
+            }
+        }
+        return index;
+    }
+
+}
@@ -19,17 +19,24 @@
 
 package org.wso2.carbon.device.mgt.core.search.mgt.impl;
 
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceManagementException;
+import org.wso2.carbon.device.mgt.common.app.mgt.Application;
 import org.wso2.carbon.device.mgt.common.search.SearchContext;
 import org.wso2.carbon.device.mgt.core.dao.ApplicationDAO;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
+import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsMgtDAOException;
 import org.wso2.carbon.device.mgt.core.search.mgt.*;
 import org.wso2.carbon.device.mgt.core.search.mgt.dao.SearchDAO;
 import org.wso2.carbon.device.mgt.core.search.mgt.dao.SearchDAOException;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,43 +45,53 @@ public class ProcessorImpl implements Processor {
 
     private SearchDAO searchDAO;
     private ApplicationDAO applicationDAO;
+    private DeviceDetailsDAO deviceDetailsDAO;
+    private DeviceSearchIndexManager indexManager;
 
     public ProcessorImpl() {
-        searchDAO = DeviceManagementDAOFactory.getSearchDAO();
-        applicationDAO = DeviceManagementDAOFactory.getApplicationDAO();
+        this(DeviceSearchIndexManagerImpl.getInstance());
+    }
+
+    ProcessorImpl(DeviceSearchIndexManager indexManager) {
+        this.searchDAO = DeviceManagementDAOFactory.getSearchDAO();
+        this.applicationDAO = DeviceManagementDAOFactory.getApplicationDAO();
+        this.deviceDetailsDAO = DeviceManagementDAOFactory.getDeviceDetailsDAO();
+        this.indexManager = indexManager;
     }
 
     @Override
     public List<Device> execute(SearchContext searchContext) throws SearchMgtException {
 
         QueryBuilder queryBuilder = new QueryBuilderImpl();
-        List<Device> generalDevices = new ArrayList<>();
-        List<List<Device>> allANDDevices = new ArrayList<>();
-        List<List<Device>> allORDevices = new ArrayList<>();
-        List<Device> locationDevices = new ArrayList<>();
-        try {
-            Map<String, List<String>> queries = queryBuilder.buildQueries(searchContext.getConditions());
-            DeviceManagementDAOFactory.openConnection();
-
-            if (queries.containsKey(Constants.GENERAL)) {
-                generalDevices = searchDAO.searchDeviceDetailsTable(queries.get(Constants.GENERAL).get(0));
-            }
-            if (queries.containsKey(Constants.PROP_AND)) {
-                for (String query : queries.get(Constants.PROP_AND)) {
-                    List<Device> andDevices = searchDAO.searchDevicePropertyTable(query);
-                    allANDDevices.add(andDevices);
+        int offset = Math.max(searchContext.getOffset(), 0);
+        int lastDeviceId = 0;
+        String continuationToken = searchContext.getContinuationToken();
+        if (continuationToken != null) {
+            offset = 0;
+            if (!continuationToken.isEmpty()) {
+                try {
+                    // Searches are paged by device, so the enrolment part of the token is not needed
+                    lastDeviceId = DeviceManagerUtil.parseContinuationToken(continuationToken)[0];
+                } catch (DeviceManagementException e) {
+                    throw new SearchMgtException("Invalid continuation token '" + continuationToken + "'", e);
                 }
             }
-            if (queries.containsKey(Constants.PROP_OR)) {
-                for (String query : queries.get(Constants.PROP_OR)) {
-                    List<Device> orDevices = searchDAO.searchDevicePropertyTable(query);
-                    allORDevices.add(orDevices);
-                }
-            }
-            if (queries.containsKey(Constants.LOCATION)) {
-                locationDevices = searchDAO.searchDevicePropertyTable(
-                        queries.get(Constants.LOCATION).get(0));
+        }
+        try {
+            BitSet matches = indexManager.search(
+                    PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId(), searchContext.getConditions());
+            DeviceManagementDAOFactory.openConnection();
+            List<Device> devices;
+            if (matches != null) {
+                devices = this.getDevices(queryBuilder, this.getPage(matches, lastDeviceId, offset,
+                        searchContext.getLimit()));
+            } else {
+                QueryHolder query = queryBuilder.buildQuery(searchContext.getConditions(), lastDeviceId);
+                devices = searchDAO.searchDevices(query, offset, searchContext.getLimit());
             }
+            this.setPropertiesOfDevices(devices);
+            this.setApplicationListOfDevices(devices);
+            return devices;
         } catch (InvalidOperatorException e) {
             throw new SearchMgtException("Invalid operator was provided, so cannot execute the search.", e);
         } catch (SQLException e) {
@@ -84,19 +101,6 @@ public class ProcessorImpl implements Processor {
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
-
-        ResultSetAggregator aggregator = new ResultSetAggregatorImpl();
-
-        Map<String, List<Device>> devices = new HashMap<>();
-
-        devices.put(Constants.GENERAL, generalDevices);
-        devices.put(Constants.PROP_AND, this.processANDSearch(allANDDevices));
-        devices.put(Constants.PROP_OR, this.processORSearch(allORDevices));
-        devices.put(Constants.LOCATION, locationDevices);
-
-        List<Device> finalDevices = aggregator.aggregate(devices);
-        this.setApplicationListOfDevices(finalDevices);
-        return finalDevices;
     }
 
     @Override
@@ -107,11 +111,11 @@ public class ProcessorImpl implements Processor {
         }
         QueryBuilder queryBuilder = new QueryBuilderImpl();
         try {
-           String query =  queryBuilder.processUpdatedDevices(epochTime);
+            QueryHolder query = queryBuilder.processUpdatedDevices(epochTime);
             DeviceManagementDAOFactory.openConnection();
-            return searchDAO.searchDeviceDetailsTable(query);
-        } catch (InvalidOperatorException e) {
-            throw new SearchMgtException("Invalid operator was provided, so cannot execute the search.", e);
+            List<Device> devices = searchDAO.searchDevices(query, 0, 0);
+            this.setPropertiesOfDevices(devices);
+            return devices;
         } catch (SQLException e) {
             throw new SearchMgtException("Error occurred while managing database transactions.", e);
         } catch (SearchDAOException e) {
@@ -121,86 +125,74 @@ public class ProcessorImpl implements Processor {
         }
     }
 
-
-    private List<Device> processANDSearch(List<List<Device>> deLists) {
-        List<Device> deviceList = new ArrayList<>();
-        List<Device> smallestDeviceList = this.findListWithLowestItems(deLists);
-        List<Map<Integer, Device>> maps = this.convertDeviceListToMap(deLists);
-        boolean valueExist = false;
-        for (Device device : smallestDeviceList) {
-            for (Map<Integer, Device> devices : maps) {
-                if (devices.containsKey(device.getId())) {
-                    valueExist = true;
-                } else {
-                    valueExist = false;
-                    break;
-                }
+    /**
+     * Picks the ids of the devices of the requested page out of the devices matched by the search index, in the same
+     * order as the database search.
+     */
+    private List<Integer> getPage(BitSet matches, int lastDeviceId, int offset, int limit) {
+        List<Integer> deviceIds = new ArrayList<>();
+        int skipped = 0;
+        for (int deviceId = matches.nextSetBit(lastDeviceId + 1); deviceId >= 0;
+             deviceId = matches.nextSetBit(deviceId + 1)) {
+            if (skipped < offset) {
+                skipped++;
+                continue;
             }
-            if (valueExist) {
-                deviceList.add(device);
+            deviceIds.add(deviceId);
+            if (limit > 0 && deviceIds.size() == limit) {
+                break;
             }
         }
-        return deviceList;
+        return deviceIds;
     }
 
-    private List<Device> processORSearch(List<List<Device>> deLists) {
+    private List<Device> getDevices(QueryBuilder queryBuilder, List<Integer> deviceIds) throws SearchDAOException {
         List<Device> devices = new ArrayList<>();
-        Map<Integer, Device> map = new HashMap<>();
-
-        for (List<Device> list : deLists) {
-            for (Device device : list) {
-                if (!map.containsKey(device.getId())) {
-                    map.put(device.getId(), device);
-                    devices.add(device);
-                }
-            }
+        for (List<Integer> batch : DeviceManagerUtil.getBatches(deviceIds, DeviceManagerUtil.getBatchSize())) {
+            devices.addAll(searchDAO.searchDevices(queryBuilder.buildQuery(batch), 0, 0));
         }
         return devices;
     }
 
-    private List<Device> findListWithLowestItems(List<List<Device>> deLists) {
-        int size = 0;
-        List<Device> devices = new ArrayList<>();
-        for (List<Device> list : deLists) {
-            if (size == 0) {
-                size = list.size();
-                devices = list;
-            } else {
-                if (list.size() < size) {
-                    devices = list;
+    private void setPropertiesOfDevices(List<Device> devices) throws SearchMgtException {
+        Map<Integer, Device> deviceMap = this.getDeviceMap(devices);
+        try {
+            List<Integer> deviceIds = new ArrayList<>(deviceMap.keySet());
+            for (List<Integer> batch : DeviceManagerUtil.getBatches(deviceIds, DeviceManagerUtil.getBatchSize())) {
+                for (Map.Entry<Integer, Map<String, String>> properties :
+                        deviceDetailsDAO.getDevicesProperties(batch).entrySet()) {
+                    deviceMap.get(properties.getKey()).getDeviceInfo().getDeviceDetailsMap()
+                            .putAll(properties.getValue());
                 }
             }
+        } catch (DeviceDetailsMgtDAOException e) {
+            throw new SearchMgtException("Error occurred while retrieving the device properties.", e);
         }
-        return devices;
-    }
-
-    private List<Map<Integer, Device>> convertDeviceListToMap(List<List<Device>> deLists) {
-        List<Map<Integer, Device>> maps = new ArrayList<>();
-        for (List<Device> devices : deLists) {
-            Map<Integer, Device> deviceMap = new HashMap<>();
-
-            for (Device device: devices) {
-                deviceMap.put(device.getId(), device);
-            }
-            maps.add(deviceMap);
-        }
-        return maps;
     }
 
     private void setApplicationListOfDevices(List<Device> devices) throws SearchMgtException {
+        Map<Integer, Device> deviceMap = this.getDeviceMap(devices);
         try {
-            DeviceManagementDAOFactory.openConnection();
-            for (Device device : devices) {
-                device.setApplications(applicationDAO.getInstalledApplications(device.getId()));
+            List<Integer> deviceIds = new ArrayList<>(deviceMap.keySet());
+            for (List<Integer> batch : DeviceManagerUtil.getBatches(deviceIds, DeviceManagerUtil.getBatchSize())) {
+                Map<Integer, List<Application>> applications = applicationDAO.getInstalledApplications(batch);
+                for (Integer deviceId : batch) {
+                    List<Application> deviceApplications = applications.get(deviceId);
+                    deviceMap.get(deviceId).setApplications(deviceApplications != null ? deviceApplications :
+                            new ArrayList<Application>());
+                }
             }
         } catch (DeviceManagementDAOException e) {
             throw new SearchMgtException("Error occurred while fetching the Application List of devices ", e);
-        } catch (SQLException e) {
-            throw new SearchMgtException("Error occurred while opening a connection to the data source", e);
-        } finally {
-            DeviceManagementDAOFactory.closeConnection();
         }
     }
 
-}
+    private Map<Integer, Device> getDeviceMap(List<Device> devices) {
+        Map<Integer, Device> deviceMap = new HashMap<>();
+        for (Device device : devices) {
+            deviceMap.put(device.getId(), device);
+        }
+        return deviceMap;
+    }
 
+}
@@ -23,56 +23,37 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.search.Condition;
+import org.wso2.carbon.device.mgt.core.dao.util.DeviceManagementDAOUtil;
 import org.wso2.carbon.device.mgt.core.search.mgt.Constants;
 import org.wso2.carbon.device.mgt.core.search.mgt.InvalidOperatorException;
 import org.wso2.carbon.device.mgt.core.search.mgt.QueryBuilder;
+import org.wso2.carbon.device.mgt.core.search.mgt.QueryHolder;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * Compiles search conditions into a single parameterized query. Only known column names and operators make it into
+ * the SQL, while all the searched values and the tenant are bound as parameters.
+ */
 public class QueryBuilderImpl implements QueryBuilder {
 
-
     private static final Log log = LogFactory.getLog(QueryBuilderImpl.class);
+    private static final String[] LOCATION_COLUMNS = {"STREET1", "STREET2", "CITY", "STATE", "COUNTRY", "ZIP"};
 
     @Override
-    public Map<String, List<String>> buildQueries(List<Condition> conditions) throws InvalidOperatorException {
-
-        List<Condition> andColumns = new ArrayList<>();
-        List<Condition> orColumns = new ArrayList<>();
-        List<Condition> otherANDColumns = new ArrayList<>();
-        List<Condition> otherORColumns = new ArrayList<>();
-        Condition locCondition = new Condition();
-
-        if (conditions.size() == 1) {
-            if (Constants.LOCATION.equalsIgnoreCase(conditions.get(0).getKey())) {
-                locCondition = conditions.get(0);
-            } else if (Utils.checkDeviceDetailsColumns(conditions.get(0).getKey()) ||
-                    Utils.checkDeviceLocationColumns(conditions.get(0).getKey())) {
-                andColumns.add(conditions.get(0));
+    public QueryHolder buildQuery(List<Condition> conditions, int lastDeviceId) throws InvalidOperatorException {
+        List<Condition> andConditions = new ArrayList<>();
+        List<Condition> orConditions = new ArrayList<>();
+        if (conditions != null) {
+            if (conditions.size() == 1) {
+                andConditions.add(conditions.get(0));
             } else {
-                otherANDColumns.add(conditions.get(0));
-            }
-        } else {
-            for (Condition con : conditions) {
-                if (Constants.LOCATION.equalsIgnoreCase(con.getKey())) {
-                    locCondition = con;
-                } else if (Utils.checkDeviceDetailsColumns(con.getKey()) ||
-                        Utils.checkDeviceLocationColumns(con.getKey())) {
-                    if (con.getState().equals(Condition.State.AND)) {
-                        andColumns.add(con);
-                    } else if (con.getState().equals(Condition.State.OR)) {
-                        orColumns.add(con);
-                    } else {
-                        throw new InvalidOperatorException(con.getState() + " is not a valid operator.");
-                    }
-                } else {
-                    if (con.getState().equals(Condition.State.AND)) {
-                        otherANDColumns.add(con);
-                    } else if (con.getState().equals(Condition.State.OR)) {
-                        otherORColumns.add(con);
+                for (Condition con : conditions) {
+                    if (Condition.State.AND.equals(con.getState())) {
+                        andConditions.add(con);
+                    } else if (Condition.State.OR.equals(con.getState())) {
+                        orConditions.add(con);
                     } else {
                         throw new InvalidOperatorException(con.getState() + " is not a valid operator.");
                     }
@@ -80,147 +61,103 @@ public class QueryBuilderImpl implements QueryBuilder {
             }
         }
 
-        Map<String, List<String>> queries = new HashMap<>();
-        if ((!andColumns.isEmpty()) || (!orColumns.isEmpty())) {
-            queries.put(Constants.GENERAL, Utils.convertStringToList(this.getGenericQueryPart() + this.processAND(andColumns) +
-                    this.processOR(orColumns)));
-        }
-        if (!otherANDColumns.isEmpty()) {
-            queries.put(Constants.PROP_AND, this.processANDProperties(otherANDColumns));
-        }
-        if (!otherORColumns.isEmpty()) {
-            queries.put(Constants.PROP_OR, this.processORProperties(otherORColumns));
+        QueryHolder query = this.getGenericQueryPart();
+        if (lastDeviceId > 0) {
+            query.append(" AND D.ID > ?").addParameter(lastDeviceId);
         }
-        if (locCondition != null && locCondition.getValue() != null) {
-            queries.put(Constants.LOCATION, this.processLocation(locCondition));
+        if (!andConditions.isEmpty() || !orConditions.isEmpty()) {
+            query.append(" AND (");
+            if (!andConditions.isEmpty()) {
+                query.append("(");
+                for (int i = 0; i < andConditions.size(); i++) {
+                    if (i > 0) {
+                        query.append(" AND ");
+                    }
+                    this.processCondition(query, andConditions.get(i));
+                }
+                query.append(")");
+            }
+            for (int i = 0; i < orConditions.size(); i++) {
+                if (i > 0 || !andConditions.isEmpty()) {
+                    query.append(" OR ");
+                }
+                this.processCondition(query, orConditions.get(i));
+            }
+            query.append(")");
         }
+        query.append(" ORDER BY D.ID");
 
         if (log.isDebugEnabled()) {
-            log.debug("General Query : " + queries.get(Constants.GENERAL));
-            log.debug("Property with AND Query : " + queries.get(Constants.PROP_AND));
-            log.debug("Property with OR Query : " + queries.get(Constants.PROP_OR));
-            log.debug("Location related Query : " + queries.get(Constants.LOCATION));
+            log.debug("Search Query : " + query.getQuery());
         }
-
-        return queries;
-    }
-
-    @Override
-    public String processAND(List<Condition> conditions) throws InvalidOperatorException {
-
-        String querySuffix = "";
-
-        for (Condition con : conditions) {
-            if (Utils.checkDeviceDetailsColumns(con.getKey().toLowerCase())) {
-                querySuffix = querySuffix + " AND DD." + Utils.getDeviceDetailsColumnNames().get(con.getKey().toLowerCase()) +
-                        con.getOperator() + Utils.getConvertedValue(con.getKey().toLowerCase(), con.getValue());
-            } else if (Utils.checkDeviceLocationColumns(con.getKey().toLowerCase())) {
-                querySuffix = querySuffix + " AND DL." + Utils.getDeviceLocationColumnNames().get(con.getKey().toLowerCase()) +
-                        con.getOperator() + con.getValue();
-            }
-        }
-
-        return querySuffix;
+        return query;
     }
 
     @Override
-    public String processOR(List<Condition> conditions) throws InvalidOperatorException {
-
-        String querySuffix = "";
-
-        for (Condition con : conditions) {
-            if (Utils.checkDeviceDetailsColumns(con.getKey().toLowerCase())) {
-                querySuffix = querySuffix + " OR DD." + Utils.getDeviceDetailsColumnNames().get(con.getKey().toLowerCase()) +
-                        con.getOperator() + Utils.getConvertedValue(con.getKey(), con.getValue());
-            } else if (Utils.checkDeviceLocationColumns(con.getKey().toLowerCase())) {
-                querySuffix = querySuffix + " OR DL." + Utils.getDeviceLocationColumnNames().get(con.getKey().toLowerCase()) +
-                        con.getOperator() + con.getValue();
-            }
+    public QueryHolder buildQuery(List<Integer> deviceIds) {
+        QueryHolder query = this.getGenericQueryPart()
+                .append(" AND D.ID IN (" + DeviceManagementDAOUtil.getPlaceholders(deviceIds.size()) + ")");
+        for (Integer deviceId : deviceIds) {
+            query.addParameter(deviceId);
         }
-        return querySuffix;
+        return query.append(" ORDER BY D.ID");
     }
 
     @Override
-    public List<String> processLocation(Condition condition) throws InvalidOperatorException {
-        List<String> queryList = new ArrayList<>();
-        queryList.add(this.buildLocationQuery(condition.getValue()));
-        return queryList;
+    public QueryHolder processUpdatedDevices(long epochTime) {
+        return this.getGenericQueryPart()
+                .append(" AND (DD.UPDATE_TIMESTAMP > ? OR DL.UPDATE_TIMESTAMP > ?) ORDER BY D.ID")
+                .addParameter(epochTime).addParameter(epochTime);
     }
 
-    @Override
-    public List<String> processANDProperties(List<Condition> conditions) throws InvalidOperatorException {
-        return this.getQueryList(conditions);
-    }
-
-    @Override
-    public List<String> processORProperties(List<Condition> conditions) throws InvalidOperatorException {
-        return this.getQueryList(conditions);
-    }
-
-    @Override
-    public String processUpdatedDevices(long epochTime) throws InvalidOperatorException {
-        return this.getGenericQueryPart() + " AND ( DD.UPDATE_TIMESTAMP > " + epochTime +
-                " OR DL.UPDATE_TIMESTAMP > " + epochTime + " )";
+    private void processCondition(QueryHolder query, Condition con) throws InvalidOperatorException {
+        String key = con.getKey();
+        if (Constants.LOCATION.equalsIgnoreCase(key)) {
+            this.processLocation(query, con.getValue());
+        } else if (Utils.checkDeviceDetailsColumns(key)) {
+            String column = Utils.getDeviceDetailsColumnName(key);
+            query.append("DD." + column + this.getOperator(con)).append("?")
+                    .addParameter(Utils.getParameterValue(column, con.getValue()));
+        } else if (Utils.checkDeviceLocationColumns(key)) {
+            String column = Utils.getDeviceLocationColumnName(key);
+            query.append("DL." + column + this.getOperator(con)).append("?")
+                    .addParameter(Utils.getParameterValue(column, con.getValue()));
+        } else {
+            query.append("EXISTS (SELECT 1 FROM DM_DEVICE_INFO DI WHERE DI.DEVICE_ID = D.ID AND DI.KEY_FIELD = ? " +
+                    "AND DI.VALUE_FIELD" + this.getOperator(con) + "?)").addParameter(key)
+                    .addParameter(con.getValue());
+        }
     }
 
-    private List<String> getQueryList(List<Condition> conditions) {
-        List<String> queryList = new ArrayList<>();
-        for (Condition con : conditions) {
-
-            String querySuffix = this.getPropertyQueryPart() + " AND DI.KEY_FIELD = " + "\'" + con.getKey() + "\'" +
-                    " AND DI.VALUE_FIELD " + con.getOperator() + "\'" + con.getValue() + "\'";
-            queryList.add(querySuffix);
+    private void processLocation(QueryHolder query, String location) {
+        query.append("(");
+        for (int i = 0; i < LOCATION_COLUMNS.length; i++) {
+            if (i > 0) {
+                query.append(" OR ");
+            }
+            query.append("DL." + LOCATION_COLUMNS[i] + " LIKE ?").addParameter("%" + location + "%");
         }
-        return queryList;
+        query.append(")");
     }
 
-    private String buildLocationQuery(String location) {
-
-        String query = this.getGenericQueryPart();
-        query = query + " AND DL.STREET1 LIKE \'%" + location + "%\'";
-        query = query + " OR DL.STREET2 LIKE \'%" + location + "%\'";
-        query = query + " OR DL.CITY LIKE \'%" + location + "%\'";
-        query = query + " OR DL.STATE LIKE \'%" + location + "%\'";
-        query = query + " OR DL.COUNTRY LIKE \'%" + location + "%\'";
-        query = query + " OR DL.ZIP LIKE \'%" + location + "%\'";
-        return query;
+    private String getOperator(Condition con) throws InvalidOperatorException {
+        return " " + Utils.getOperator(con.getOperator()) + " ";
     }
 
-    private String getGenericQueryPart() {
-
-        return "SELECT D.ID, D.DESCRIPTION, D.NAME,  \n" +
-                "D.DEVICE_TYPE_ID, D.DEVICE_IDENTIFICATION,  DT.ID AS DEVICE_TYPE_ID, \n" +
-                "DT.NAME AS DEVICE_TYPE_NAME, DD.DEVICE_ID, DD.DEVICE_MODEL, DD.VENDOR, \n" +
-                "DD.OS_VERSION, DD.OS_BUILD_DATE, DD.BATTERY_LEVEL, DD.INTERNAL_TOTAL_MEMORY, DD.INTERNAL_AVAILABLE_MEMORY,\n" +
-                "DD.EXTERNAL_TOTAL_MEMORY, DD.EXTERNAL_AVAILABLE_MEMORY, DD.CONNECTION_TYPE, \n" +
-                "DD.SSID, DD.CPU_USAGE, DD.TOTAL_RAM_MEMORY, DD.AVAILABLE_RAM_MEMORY, \n" +
-                "DD.PLUGGED_IN, DD.UPDATE_TIMESTAMP, DL.LATITUDE, DL.LONGITUDE, DL.STREET1, DL.STREET2, DL.CITY, DL.ZIP, \n" +
-                "DL.STATE, DL.COUNTRY, DL.UPDATE_TIMESTAMP AS DL_UPDATED_TIMESTAMP \n" +
-                "FROM DM_DEVICE_DETAIL AS DD INNER JOIN DM_DEVICE AS D ON  D.ID=DD.DEVICE_ID\n" +
-                "LEFT JOIN DM_DEVICE_LOCATION AS DL ON DL.DEVICE_ID=D.ID \n" +
-                "INNER JOIN  DM_DEVICE_TYPE AS DT ON DT.ID=D.DEVICE_TYPE_ID\n" +
-                "WHERE D.TENANT_ID = " +
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
-
-
+    private QueryHolder getGenericQueryPart() {
+        return new QueryHolder().append("SELECT D.ID, D.DESCRIPTION, D.NAME, " +
+                "D.DEVICE_TYPE_ID, D.DEVICE_IDENTIFICATION, DT.ID AS DEVICE_TYPE_ID, " +
+                "DT.NAME AS DEVICE_TYPE_NAME, DD.DEVICE_ID, DD.DEVICE_MODEL, DD.VENDOR, " +
+                "DD.OS_VERSION, DD.OS_BUILD_DATE, DD.BATTERY_LEVEL, DD.INTERNAL_TOTAL_MEMORY, " +
+                "DD.INTERNAL_AVAILABLE_MEMORY, DD.EXTERNAL_TOTAL_MEMORY, DD.EXTERNAL_AVAILABLE_MEMORY, " +
+                "DD.CONNECTION_TYPE, DD.SSID, DD.CPU_USAGE, DD.TOTAL_RAM_MEMORY, DD.AVAILABLE_RAM_MEMORY, " +
+                "DD.PLUGGED_IN, DD.UPDATE_TIMESTAMP, DL.LATITUDE, DL.LONGITUDE, DL.STREET1, DL.STREET2, DL.CITY, " +
+                "DL.ZIP, DL.STATE, DL.COUNTRY, DL.UPDATE_TIMESTAMP AS DL_UPDATED_TIMESTAMP " +
+                "FROM DM_DEVICE_DETAIL DD INNER JOIN DM_DEVICE D ON D.ID = DD.DEVICE_ID " +
+                "LEFT JOIN DM_DEVICE_LOCATION DL ON DL.DEVICE_ID = D.ID " +
+                "INNER JOIN DM_DEVICE_TYPE DT ON DT.ID = D.DEVICE_TYPE_ID " +
+                "WHERE D.TENANT_ID = ? AND " + Constants.ENROLLED_DEVICE_CONDITION)
+                .addParameter(PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId());
     }
 
-    private String getPropertyQueryPart() {
-
-        return "SELECT D.ID, D.DESCRIPTION, D.NAME,  \n" +
-                "D.DEVICE_TYPE_ID, D.DEVICE_IDENTIFICATION,  DT.ID AS DEVICE_TYPE_ID, \n" +
-                "DT.NAME AS DEVICE_TYPE_NAME, DD.DEVICE_ID, DD.DEVICE_MODEL, DD.VENDOR, \n" +
-                "DD.OS_VERSION, DD.OS_BUILD_DATE, DD.BATTERY_LEVEL, DD.INTERNAL_TOTAL_MEMORY, DD.INTERNAL_AVAILABLE_MEMORY,\n" +
-                "DD.EXTERNAL_TOTAL_MEMORY, DD.EXTERNAL_AVAILABLE_MEMORY, DD.CONNECTION_TYPE, \n" +
-                "DD.SSID, DD.CPU_USAGE, DD.TOTAL_RAM_MEMORY, DD.AVAILABLE_RAM_MEMORY, \n" +
-                "DD.PLUGGED_IN, DD.UPDATE_TIMESTAMP, DL.LATITUDE, DL.LONGITUDE, DL.STREET1, DL.STREET2, DL.CITY, DL.ZIP, \n" +
-                "DL.STATE, DL.COUNTRY, DL.UPDATE_TIMESTAMP AS DL_UPDATED_TIMESTAMP, DI.KEY_FIELD, DI.VALUE_FIELD \n" +
-                "FROM DM_DEVICE_DETAIL AS DD INNER JOIN DM_DEVICE AS D ON  D.ID=DD.DEVICE_ID\n" +
-                "LEFT JOIN DM_DEVICE_LOCATION AS DL ON DL.DEVICE_ID=D.ID  \n" +
-                "INNER JOIN  DM_DEVICE_TYPE AS DT ON DT.ID=D.DEVICE_TYPE_ID\n" +
-                "LEFT JOIN DM_DEVICE_INFO AS DI ON DI.DEVICE_ID=D.ID\n" +
-                "WHERE D.TENANT_ID = " +
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
-
-    }
 }
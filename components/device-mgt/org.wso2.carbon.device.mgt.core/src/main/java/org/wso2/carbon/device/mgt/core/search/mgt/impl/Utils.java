@@ -19,17 +19,21 @@
 
 package org.wso2.carbon.device.mgt.core.search.mgt.impl;
 
-import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.core.search.mgt.InvalidOperatorException;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 public class Utils {
 
     private static Map<String, String> genericColumnsMap = new HashMap<>();
     private static Map<String, String> locationColumnsMap = new HashMap<>();
+    private static Map<String, String> operators = new HashMap<>();
+    private static Set<String> stringColumns = new HashSet<>(Arrays.asList("DEVICE_MODEL", "VENDOR", "OS_VERSION",
+            "OS_BUILD_DATE", "CONNECTION_TYPE", "SSID", "STREET1", "STREET2", "CITY", "ZIP", "STATE", "COUNTRY"));
 
     static {
         genericColumnsMap.put("deviceModel", "DEVICE_MODEL");
@@ -54,46 +58,59 @@ public class Utils {
         locationColumnsMap.put("street1", "STREET1");
         locationColumnsMap.put("street2", "STREET2");
         locationColumnsMap.put("city", "CITY");
-        locationColumnsMap.put("state", "ZIP");
-        locationColumnsMap.put("zip", "STATE");
+        locationColumnsMap.put("state", "STATE");
+        locationColumnsMap.put("zip", "ZIP");
         locationColumnsMap.put("country", "COUNTRY");
 
+        operators.put("=", "=");
+        operators.put("!=", "<>");
+        operators.put("=!", "<>");
+        operators.put("<>", "<>");
+        operators.put("<", "<");
+        operators.put(">", ">");
+        operators.put("<=", "<=");
+        operators.put(">=", ">=");
     }
 
-    public static boolean checkColumnType(String column) {
-
-        boolean bool = false;
-
-        switch (column) {
-            case "deviceModel":
-                bool = true;
-                break;
-            case "vendor":
-                bool = true;
-                break;
-            case "osVersion":
-                bool = true;
-                break;
-            case "connectionType":
-                bool = true;
-                break;
-            case "ssid":
-                bool = true;
-                break;
-            default:
-                bool = false;
-                break;
+    /**
+     * @return the SQL comparison operator for an operator of a search condition.
+     * @throws InvalidOperatorException if the operator is not supported.
+     */
+    public static String getOperator(String operator) throws InvalidOperatorException {
+        String sqlOperator = operator == null ? null : operators.get(operator.trim());
+        if (sqlOperator == null) {
+            throw new InvalidOperatorException(operator + " is not a valid operator.");
         }
-
-        return bool;
+        return sqlOperator;
     }
 
-    public static String getConvertedValue(String column, String value) {
-
-        if (checkColumnType(column)) {
-            return "\'" + value + "\'";
-        } else return value;
+    public static boolean isStringColumn(String column) {
+        return stringColumns.contains(column);
+    }
 
+    /**
+     * Converts a searched value to the type of the column it is compared with, so that it can be bound to a
+     * statement parameter.
+     *
+     * @param column column the value is compared with.
+     * @param value  searched value.
+     * @return the value as a string for text columns, or as a number otherwise.
+     * @throws InvalidOperatorException if the value is not a number while the column is numeric.
+     */
+    public static Object getParameterValue(String column, String value) throws InvalidOperatorException {
+        if (isStringColumn(column)) {
+            return value;
+        }
+        if (Boolean.TRUE.toString().equalsIgnoreCase(value)) {
+            return 1;
+        } else if (Boolean.FALSE.toString().equalsIgnoreCase(value)) {
+            return 0;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException | NullPointerException e) {
+            throw new InvalidOperatorException("'" + value + "' is not a valid value for " + column + ".", e);
+        }
     }
 
     public static Map<String, String> getDeviceDetailsColumnNames() {
@@ -112,35 +129,20 @@ public class Utils {
         return locationColumnsMap.containsKey(str) || locationColumnsMap.containsValue(str);
     }
 
-    public static List<String> convertStringToList(String str) {
-
-        List<String> stList = new ArrayList<>();
-        stList.add(str);
-        return stList;
+    /**
+     * @return the device details column a search key refers to, which can either be the name of a device info
+     * field or the name of the column itself.
+     */
+    public static String getDeviceDetailsColumnName(String key) {
+        return genericColumnsMap.containsKey(key) ? genericColumnsMap.get(key) : key;
     }
 
-    public static Integer[] getArrayOfDeviceIds(List<Device> devices) {
-        Integer[] arr = new Integer[devices.size()];
-        int x = 0;
-        for (Device device : devices) {
-            arr[x] = device.getId();
-            x++;
-        }
-        return arr;
-    }
-
-
-    public static String getDeviceIdsAsString(List<Device> devices) {
-
-        String str = "";
-        for (Device device : devices) {
-            str += device.getId() + ",";
-        }
-        if (devices.isEmpty()) {
-            return null;
-        }
-        return str.substring(0, str.length() - 1);
+    /**
+     * @return the device location column a search key refers to, which can either be the name of a device location
+     * field or the name of the column itself.
+     */
+    public static String getDeviceLocationColumnName(String key) {
+        return locationColumnsMap.containsKey(key) ? locationColumnsMap.get(key) : key;
     }
 
 }
-
@@ -44,6 +44,53 @@ public interface DeviceManagementProviderService {
      */
     List<Device> getAllDevices(String deviceType) throws DeviceManagementException;
 
+    /**
+     * Method to retrieve all the devices of a given device type.
+     *
+     * @param deviceType        Device-type of the required devices
+     * @param requireDeviceInfo Whether the device information, location, installed applications and the plugin
+     *                          specific properties have to be populated. If false, only the device identity and
+     *                          the enrolment information are returned.
+     * @return List of devices of given device-type.
+     * @throws DeviceManagementException If some unusual behaviour is observed while fetching the
+     *                                   devices.
+     */
+    List<Device> getAllDevices(String deviceType, boolean requireDeviceInfo) throws DeviceManagementException;
+
+    /**
+     * Method to iterate over the devices of a given device type in chunks, so that the whole fleet does not need to
+     * be held in memory. Devices are ordered by their id and only the device identity and the enrolment information
+     * are populated. The next chunk is retrieved by passing the last device of the current chunk.
+     *
+     * @param deviceType Device-type of the required devices
+     * @param statuses   Enrolment statuses of the required devices. All the statuses are included if null or empty.
+     * @param lastDevice Last device of the previous chunk, or null to retrieve the first chunk.
+     * @param chunkSize  Maximum number of devices to be returned.
+     * @return Next chunk of devices, which is empty once all the devices have been retrieved.
+     * @throws DeviceManagementException If some unusual behaviour is observed while fetching the
+     *                                   devices.
+     */
+    List<Device> getDevices(String deviceType, List<EnrolmentInfo.Status> statuses, Device lastDevice,
+                            int chunkSize) throws DeviceManagementException;
+
+    /**
+     * Method to iterate over a shard of the devices of a given device type in chunks. Devices are split into shards
+     * by the remainder of their id divided by the number of shards, so that the shards can be processed
+     * independently. Chunks are retrieved the same way as {@link #getDevices(String, List, Device, int)}.
+     *
+     * @param deviceType Device-type of the required devices
+     * @param statuses   Enrolment statuses of the required devices. All the statuses are included if null or empty.
+     * @param shardCount Number of shards the devices are split into.
+     * @param shardIndex Index of the required shard, starting from 0.
+     * @param lastDevice Last device of the previous chunk, or null to retrieve the first chunk.
+     * @param chunkSize  Maximum number of devices to be returned.
+     * @return Next chunk of devices of the shard, which is empty once all of them have been retrieved.
+     * @throws DeviceManagementException If some unusual behaviour is observed while fetching the
+     *                                   devices.
+     */
+    List<Device> getDevices(String deviceType, List<EnrolmentInfo.Status> statuses, int shardCount, int shardIndex,
+                            Device lastDevice, int chunkSize) throws DeviceManagementException;
+
     /**
      * Method to retrieve all the devices registered in the system.
      *
@@ -53,6 +100,18 @@ public interface DeviceManagementProviderService {
      */
     List<Device> getAllDevices() throws DeviceManagementException;
 
+    /**
+     * Method to retrieve all the devices registered in the system.
+     *
+     * @param requireDeviceInfo Whether the device information, location, installed applications and the plugin
+     *                          specific properties have to be populated. If false, only the device identity and
+     *                          the enrolment information are returned.
+     * @return List of registered devices.
+     * @throws DeviceManagementException If some unusual behaviour is observed while fetching the
+     *                                   devices.
+     */
+    List<Device> getAllDevices(boolean requireDeviceInfo) throws DeviceManagementException;
+
     /**
      * Method to retrieve all the devices with pagination support.
      *
@@ -199,6 +258,19 @@ public interface DeviceManagementProviderService {
      */
     boolean isEnrolled(DeviceIdentifier deviceId, String user) throws DeviceManagementException;
 
+    /**
+     * This method is used to find the devices enrolled with the given user out of a list of devices. Ownership of
+     * all the devices is resolved with one query per device type and batch.
+     *
+     * @param deviceIds identifiers of the devices that need to be checked against the user.
+     * @param user username of the device owner.
+     *
+     * @return the given device identifiers of the devices owned by the user.
+     * @throws DeviceManagementException If some unusual behaviour is observed while fetching the enrolments.
+     */
+    List<DeviceIdentifier> getEnrolledDevices(List<DeviceIdentifier> deviceIds, String user)
+            throws DeviceManagementException;
+
     License getLicense(String deviceType, String languageCode) throws DeviceManagementException;
 
     void addLicense(String deviceType, License license) throws DeviceManagementException;
@@ -238,6 +310,19 @@ public interface DeviceManagementProviderService {
     boolean setStatus(DeviceIdentifier deviceId, String currentOwner,
                       EnrolmentInfo.Status status) throws DeviceManagementException;
 
+    /**
+     * Sets the status of the current enrolments of the given devices with a few batched updates. Enrolments whose
+     * status is not one of the given current statuses, such as devices removed in the meantime, are left unchanged.
+     *
+     * @param devices         devices whose enrolments are to be updated.
+     * @param currentStatuses statuses an enrolment must be in to be updated.
+     * @param status          new status of the enrolments.
+     * @return true if the statuses were updated.
+     * @throws DeviceManagementException if the statuses could not be updated.
+     */
+    boolean setStatus(List<Device> devices, List<EnrolmentInfo.Status> currentStatuses,
+                      EnrolmentInfo.Status status) throws DeviceManagementException;
+
     void notifyOperationToDevices(Operation operation,
                                   List<DeviceIdentifier> deviceIds) throws DeviceManagementException;
 
@@ -32,6 +32,10 @@ import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementException;
 import org.wso2.carbon.device.mgt.common.spi.DeviceManagementService;
 import org.wso2.carbon.device.mgt.core.DeviceManagementPluginRepository;
+import org.wso2.carbon.device.mgt.core.cache.DeviceCacheManager;
+import org.wso2.carbon.device.mgt.core.cache.DeviceCountCacheManager;
+import org.wso2.carbon.device.mgt.core.cache.impl.DeviceCacheManagerImpl;
+import org.wso2.carbon.device.mgt.core.cache.impl.DeviceCountCacheManagerImpl;
 import org.wso2.carbon.device.mgt.core.dao.*;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
 import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsMgtDAOException;
@@ -39,6 +43,8 @@ import org.wso2.carbon.device.mgt.core.dto.DeviceType;
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagementServiceComponent;
 import org.wso2.carbon.device.mgt.core.internal.PluginInitializationListener;
+import org.wso2.carbon.device.mgt.core.search.mgt.DeviceSearchIndexManager;
+import org.wso2.carbon.device.mgt.core.search.mgt.impl.DeviceSearchIndexManagerImpl;
 import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
 import org.wso2.carbon.email.sender.core.ContentProviderInfo;
 import org.wso2.carbon.email.sender.core.EmailContext;
@@ -57,11 +63,22 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
     private DeviceDetailsDAO deviceInfoDAO;
     private DeviceTypeDAO deviceTypeDAO;
     private EnrollmentDAO enrollmentDAO;
+    private PushTokenDAO pushTokenDAO;
     private ApplicationDAO applicationDAO;
     private DeviceManagementPluginRepository pluginRepository;
+    private DeviceCacheManager deviceCacheManager;
+    private DeviceCountCacheManager deviceCountCacheManager;
+    private DeviceSearchIndexManager deviceSearchIndexManager;
 
     public DeviceManagementProviderServiceImpl() {
-        this.pluginRepository = new DeviceManagementPluginRepository();
+        this(new DeviceManagementPluginRepository());
+    }
+
+    DeviceManagementProviderServiceImpl(DeviceManagementPluginRepository pluginRepository) {
+        this.pluginRepository = pluginRepository;
+        this.deviceCacheManager = DeviceCacheManagerImpl.getInstance();
+        this.deviceCountCacheManager = DeviceCountCacheManagerImpl.getInstance();
+        this.deviceSearchIndexManager = DeviceSearchIndexManagerImpl.getInstance();
         initDataAccessObjects();
         /* Registering a listener to retrieve events when some device management service plugin is installed after
         * the component is done getting initialized */
@@ -74,6 +91,7 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         this.applicationDAO = DeviceManagementDAOFactory.getApplicationDAO();
         this.deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
         this.enrollmentDAO = DeviceManagementDAOFactory.getEnrollmentDAO();
+        this.pushTokenDAO = DeviceManagementDAOFactory.getPushTokenDAO();
     }
 
     @Override
@@ -138,6 +156,7 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         }
         int tenantId = this.getTenantId();
 
+        deviceCacheManager.removeDeviceFromCache(deviceIdentifier, tenantId);
         Device existingDevice = this.getDevice(deviceIdentifier);
 
         if (existingDevice != null) {
@@ -171,6 +190,7 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
                                 equals(existingEnrolmentInfo.getStatus())) {
                             enrolmentId = enrollmentDAO.
                                     addEnrollment(existingDevice.getId(), newEnrolmentInfo, tenantId);
+                            this.updatePushToken(device, enrolmentId, tenantId);
                             DeviceManagementDAOFactory.commitTransaction();
                             if (log.isDebugEnabled()) {
                                 log.debug("An enrolment is successfully added with the id '" + enrolmentId +
@@ -191,6 +211,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
                         throw new DeviceManagementException("Error occurred while initiating transaction", e);
                     } finally {
                         DeviceManagementDAOFactory.closeConnection();
+                        deviceCacheManager.removeDeviceFromCache(deviceIdentifier, tenantId);
+                        deviceCountCacheManager.removeDeviceCounts(tenantId);
                     }
                 }
             }
@@ -201,6 +223,7 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
                 DeviceType type = deviceTypeDAO.getDeviceType(device.getType(), tenantId);
                 int deviceId = deviceDAO.addDevice(type.getId(), device, tenantId);
                 enrolmentId = enrollmentDAO.addEnrollment(deviceId, device.getEnrolmentInfo(), tenantId);
+                this.updatePushToken(device, enrolmentId, tenantId);
                 DeviceManagementDAOFactory.commitTransaction();
             } catch (DeviceManagementDAOException e) {
                 DeviceManagementDAOFactory.rollbackTransaction();
@@ -210,6 +233,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
                 throw new DeviceManagementException("Error occurred while initiating transaction", e);
             } finally {
                 DeviceManagementDAOFactory.closeConnection();
+                deviceCacheManager.removeDeviceFromCache(deviceIdentifier, tenantId);
+                deviceCountCacheManager.removeDeviceCounts(tenantId);
             }
 
             if (log.isDebugEnabled()) {
@@ -237,8 +262,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             return false;
         }
         boolean status = deviceManager.modifyEnrollment(device);
+        int tenantId = this.getTenantId();
         try {
-            int tenantId = this.getTenantId();
             DeviceManagementDAOFactory.beginTransaction();
             Device currentDevice = deviceDAO.getDevice(deviceIdentifier, tenantId);
             device.setId(currentDevice.getId());
@@ -246,7 +271,11 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
 
             deviceDAO.updateDevice(device, tenantId);
             enrollmentDAO.updateEnrollment(device.getEnrolmentInfo());
+            this.updatePushToken(device, device.getEnrolmentInfo().getId(), tenantId);
             DeviceManagementDAOFactory.commitTransaction();
+            if (EnrolmentInfo.Status.REMOVED.equals(device.getEnrolmentInfo().getStatus())) {
+                deviceSearchIndexManager.removeDevice(tenantId, device.getId());
+            }
         } catch (DeviceManagementDAOException e) {
             DeviceManagementDAOFactory.rollbackTransaction();
             throw new DeviceManagementException("Error occurred while modifying the device " +
@@ -255,6 +284,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             throw new DeviceManagementException("Error occurred while initiating transaction", e);
         } finally {
             DeviceManagementDAOFactory.closeConnection();
+            deviceCacheManager.removeDeviceFromCache(deviceIdentifier, tenantId);
+            deviceCountCacheManager.removeDeviceCounts(tenantId);
         }
         return status;
     }
@@ -286,8 +317,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             }
             return false;
         }
+        int tenantId = this.getTenantId();
         try {
-            int tenantId = this.getTenantId();
             DeviceManagementDAOFactory.beginTransaction();
 
             Device device = deviceDAO.getDevice(deviceId, tenantId);
@@ -312,6 +343,7 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             deviceDAO.updateDevice(device, tenantId);
 
             DeviceManagementDAOFactory.commitTransaction();
+            deviceSearchIndexManager.removeDevice(tenantId, device.getId());
         } catch (DeviceManagementDAOException e) {
             DeviceManagementDAOFactory.rollbackTransaction();
             throw new DeviceManagementException("Error occurred while dis-enrolling '" + deviceId.getType() +
@@ -320,6 +352,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             throw new DeviceManagementException("Error occurred while initiating transaction", e);
         } finally {
             DeviceManagementDAOFactory.closeConnection();
+            deviceCacheManager.removeDeviceFromCache(deviceId, tenantId);
+            deviceCountCacheManager.removeDeviceCounts(tenantId);
         }
         return deviceManager.disenrollDevice(deviceId);
     }
@@ -360,12 +394,21 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             }
             return false;
         }
-        return deviceManager.setActive(deviceId, status);
+        try {
+            return deviceManager.setActive(deviceId, status);
+        } finally {
+            deviceCacheManager.removeDeviceFromCache(deviceId, this.getTenantId());
+            deviceCountCacheManager.removeDeviceCounts(this.getTenantId());
+        }
     }
 
     @Override
     public List<Device> getAllDevices() throws DeviceManagementException {
-        List<Device> devices = new ArrayList<>();
+        return this.getAllDevices(true);
+    }
+
+    @Override
+    public List<Device> getAllDevices(boolean requireDeviceInfo) throws DeviceManagementException {
         List<Device> allDevices;
         try {
             DeviceManagementDAOFactory.openConnection();
@@ -378,61 +421,13 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
-
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            DeviceManager deviceManager = this.getDeviceManager(device.getType());
-            if (deviceManager == null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Device Manager associated with the device type '" + device.getType() + "' is null. " +
-                            "Therefore, not attempting method 'isEnrolled'");
-                }
-                devices.add(device);
-                continue;
-            }
-            Device dmsDevice =
-                    deviceManager.getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
+        if (requireDeviceInfo) {
+            this.populateAllDeviceInfo(allDevices);
         }
-        return devices;
+        return allDevices;
     }
 
     public List<Device> getDevices(Date since) throws DeviceManagementException {
-        List<Device> devices = new ArrayList<>();
         List<Device> allDevices;
         try {
             DeviceManagementDAOFactory.openConnection();
@@ -446,56 +441,8 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             DeviceManagementDAOFactory.closeConnection();
         }
 
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            DeviceManager deviceManager = this.getDeviceManager(device.getType());
-            if (deviceManager == null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Device Manager associated with the device type '" + device.getType() + "' is null. " +
-                            "Therefore, not attempting method 'isEnrolled'");
-                }
-                devices.add(device);
-                continue;
-            }
-            Device dmsDevice =
-                    deviceManager.getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
-        }
-        return devices;
+        this.populateAllDeviceInfo(allDevices);
+        return allDevices;
     }
 
     @Override
@@ -564,15 +511,27 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
     @Override
     public PaginationResult getAllDevices(PaginationRequest request) throws DeviceManagementException {
         PaginationResult paginationResult = new PaginationResult();
-        List<Device> devices = new ArrayList<>();
         List<Device> allDevices = new ArrayList<>();
         int count = 0;
         int tenantId = this.getTenantId();
         request = DeviceManagerUtil.validateDeviceListPageSize(request);
+        String continuationToken = request.getContinuationToken();
+        Integer cachedCount = deviceCountCacheManager.getDeviceCount(request, tenantId);
         try {
             DeviceManagementDAOFactory.openConnection();
-            allDevices = deviceDAO.getDevices(request, tenantId);
-            count = deviceDAO.getDeviceCount(request, tenantId);
+            if (continuationToken != null) {
+                int[] lastDevice = continuationToken.isEmpty() ? new int[]{0, 0} :
+                        DeviceManagerUtil.parseContinuationToken(continuationToken);
+                allDevices = deviceDAO.getDevices(request, lastDevice[0], lastDevice[1], tenantId);
+            } else {
+                allDevices = deviceDAO.getDevices(request, tenantId);
+            }
+            if (cachedCount != null) {
+                count = cachedCount;
+            } else {
+                count = deviceDAO.getDeviceCount(request, tenantId);
+                deviceCountCacheManager.addDeviceCount(request, tenantId, count);
+            }
         } catch (DeviceManagementDAOException e) {
             throw new DeviceManagementException("Error occurred while retrieving device list pertaining to " +
                     "the current tenant", e);
@@ -581,57 +540,12 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
-                }
-                device.setDeviceInfo(info);
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-            device.setDeviceInfo(info);
-
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
-            }
-
-            DeviceManager deviceManager = this.getDeviceManager(device.getType());
-            if (deviceManager == null) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Device Manager associated with the device type '" + device.getType() + "' is null. " +
-                            "Therefore, not attempting method 'isEnrolled'");
-                }
-                devices.add(device);
-                continue;
-            }
-            Device dmsDevice =
-                    deviceManager.getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
-            }
-            devices.add(device);
+        this.populateAllDeviceInfo(allDevices);
+        paginationResult.setData(allDevices);
+        if (continuationToken != null && allDevices.size() == request.getRowCount()) {
+            paginationResult.setContinuationToken(
+                    DeviceManagerUtil.getContinuationToken(allDevices.get(allDevices.size() - 1)));
         }
-        paginationResult.setData(devices);
         paginationResult.setRecordsFiltered(count);
         paginationResult.setRecordsTotal(count);
         return paginationResult;
@@ -639,7 +553,11 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
 
     @Override
     public List<Device> getAllDevices(String deviceType) throws DeviceManagementException {
-        List<Device> devices = new ArrayList<>();
+        return this.getAllDevices(deviceType, true);
+    }
+
+    @Override
+    public List<Device> getAllDevices(String deviceType, boolean requireDeviceInfo) throws DeviceManagementException {
         List<Device> allDevices;
         try {
             DeviceManagementDAOFactory.openConnection();
@@ -658,57 +576,155 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         } finally {
             DeviceManagementDAOFactory.closeConnection();
         }
+        if (requireDeviceInfo) {
+            this.populateAllDeviceInfo(allDevices);
+        }
+        return allDevices;
+    }
 
-        for (Device device : allDevices) {
-            DeviceInfo info = null;
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                info = deviceInfoDAO.getDeviceInformation(device.getId());
-                DeviceLocation location = deviceInfoDAO.getDeviceLocation(device.getId());
-                if (info != null) {
-                    info.setLocation(location);
+    @Override
+    public List<Device> getDevices(String deviceType, List<EnrolmentInfo.Status> statuses, Device lastDevice,
+                                   int chunkSize) throws DeviceManagementException {
+        return this.getDevices(deviceType, statuses, 1, 0, lastDevice, chunkSize);
+    }
+
+    @Override
+    public List<Device> getDevices(String deviceType, List<EnrolmentInfo.Status> statuses, int shardCount,
+                                   int shardIndex, Device lastDevice, int chunkSize) throws DeviceManagementException {
+        int lastDeviceId = 0;
+        int lastEnrolmentId = 0;
+        if (lastDevice != null) {
+            lastDeviceId = lastDevice.getId();
+            lastEnrolmentId = lastDevice.getEnrolmentInfo().getId();
+        }
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            return deviceDAO.getDevices(deviceType, statuses, shardCount, shardIndex, lastDeviceId, lastEnrolmentId,
+                    chunkSize, this.getTenantId());
+        } catch (DeviceManagementDAOException e) {
+            throw new DeviceManagementException("Error occurred while retrieving a chunk of devices of type '" +
+                    deviceType + "' that are being managed within the scope of current tenant", e);
+        } catch (SQLException e) {
+            throw new DeviceManagementException("Error occurred while opening a connection to the data source", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    /**
+     * Populates the device information, location and installed applications of the given devices using a fixed
+     * number of queries per batch over a single connection, followed by the plugin specific features and properties.
+     * A failure while loading the additional information of a batch is logged and only the devices of that batch are
+     * returned without it, as done for a single device when the devices were populated one by one. A failure to
+     * open the connection is propagated.
+     */
+    private void populateAllDeviceInfo(List<Device> devices) throws DeviceManagementException {
+        if (devices.isEmpty()) {
+            return;
+        }
+        Map<Integer, DeviceInfo> deviceInfos = new HashMap<>();
+        Map<Integer, DeviceLocation> deviceLocations = new HashMap<>();
+        Map<Integer, List<Application>> applications = new HashMap<>();
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            for (List<Device> batch : DeviceManagerUtil.getBatches(devices, DeviceManagerUtil.getBatchSize())) {
+                List<Integer> deviceIds = new ArrayList<>(batch.size());
+                for (Device device : batch) {
+                    deviceIds.add(device.getId());
+                }
+                try {
+                    deviceInfos.putAll(deviceInfoDAO.getDevicesInformation(deviceIds));
+                    deviceLocations.putAll(deviceInfoDAO.getDeviceLocations(deviceIds));
+                } catch (DeviceDetailsMgtDAOException e) {
+                    log.error("Error occurred while retrieving advance info of the devices " + deviceIds, e);
+                }
+                try {
+                    applications.putAll(applicationDAO.getInstalledApplications(deviceIds));
+                } catch (DeviceManagementDAOException e) {
+                    log.error("Error occurred while retrieving the application lists of the devices " + deviceIds, e);
                 }
-            } catch (DeviceDetailsMgtDAOException e) {
-                log.error("Error occurred while retrieving advance info of '" + device.getType() +
-                        "' that carries the id '" + device.getDeviceIdentifier() + "'");
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
+            }
+        } catch (SQLException e) {
+            throw new DeviceManagementException("Error occurred while opening a connection to the data source", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+
+        for (Device device : devices) {
+            DeviceInfo info = deviceInfos.get(device.getId());
+            if (info != null) {
+                DeviceLocation location = deviceLocations.get(device.getId());
+                if (location == null) {
+                    location = new DeviceLocation();
+                    location.setDeviceId(device.getId());
+                }
+                info.setLocation(location);
             }
             device.setDeviceInfo(info);
+            List<Application> installedApplications = applications.get(device.getId());
+            device.setApplications(installedApplications != null ? installedApplications :
+                    new ArrayList<Application>());
+        }
+        this.populatePluginDeviceInfo(devices);
+    }
 
-            try {
-                DeviceManagementDAOFactory.openConnection();
-                List<Application> applications = applicationDAO.getInstalledApplications(device.getId());
-                device.setApplications(applications);
-            } catch (DeviceManagementDAOException e) {
-                log.error("Error occurred while retrieving the application list of '" + device.getType() + "', " +
-                        "which carries the id '" + device.getId() + "'", e);
-            } catch (SQLException e) {
-                log.error("Error occurred while opening a connection to the data source", e);
-            } finally {
-                DeviceManagementDAOFactory.closeConnection();
+    /**
+     * Populates the plugin specific features and properties of the given devices. Devices of plugins providing a
+     * {@link BatchDeviceManager} are retrieved in batches, while the others are retrieved one by one.
+     */
+    private void populatePluginDeviceInfo(List<Device> devices) throws DeviceManagementException {
+        Map<String, List<Device>> devicesOfTypes = new LinkedHashMap<>();
+        for (Device device : devices) {
+            List<Device> devicesOfType = devicesOfTypes.get(device.getType());
+            if (devicesOfType == null) {
+                devicesOfType = new ArrayList<>();
+                devicesOfTypes.put(device.getType(), devicesOfType);
             }
+            devicesOfType.add(device);
+        }
 
-            DeviceManager deviceManager = this.getDeviceManager(deviceType);
+        for (Map.Entry<String, List<Device>> entry : devicesOfTypes.entrySet()) {
+            DeviceManager deviceManager = this.getDeviceManager(entry.getKey());
             if (deviceManager == null) {
                 if (log.isDebugEnabled()) {
-                    log.debug("Device Manager associated with the device type '" + deviceType + "' is null. " +
-                            "Therefore, not attempting method 'isEnrolled'");
+                    log.debug("Device Manager associated with the device type '" + entry.getKey() + "' is null. " +
+                            "Therefore, not attempting method 'getDevice'");
                 }
-                devices.add(device);
                 continue;
             }
-            Device dmsDevice =
-                    deviceManager.getDevice(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
-            if (dmsDevice != null) {
-                device.setFeatures(dmsDevice.getFeatures());
-                device.setProperties(dmsDevice.getProperties());
+            if (!(deviceManager instanceof BatchDeviceManager)) {
+                for (Device device : entry.getValue()) {
+                    Device dmsDevice = deviceManager.getDevice(
+                            new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
+                    if (dmsDevice != null) {
+                        device.setFeatures(dmsDevice.getFeatures());
+                        device.setProperties(dmsDevice.getProperties());
+                    }
+                }
+                continue;
+            }
+            for (List<Device> batch : DeviceManagerUtil.getBatches(entry.getValue(),
+                    DeviceManagerUtil.getBatchSize())) {
+                List<DeviceIdentifier> deviceIds = new ArrayList<>(batch.size());
+                for (Device device : batch) {
+                    deviceIds.add(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
+                }
+                List<Device> dmsDevices = ((BatchDeviceManager) deviceManager).getDevices(deviceIds);
+                Map<String, Device> dmsDeviceMap = new HashMap<>();
+                if (dmsDevices != null) {
+                    for (Device dmsDevice : dmsDevices) {
+                        dmsDeviceMap.put(dmsDevice.getDeviceIdentifier(), dmsDevice);
+                    }
+                }
+                for (Device device : batch) {
+                    Device dmsDevice = dmsDeviceMap.get(device.getDeviceIdentifier());
+                    if (dmsDevice != null) {
+                        device.setFeatures(dmsDevice.getFeatures());
+                        device.setProperties(dmsDevice.getProperties());
+                    }
+                }
             }
-            devices.add(device);
         }
-        return devices;
     }
 
     @Override
@@ -781,10 +797,15 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
 
     @Override
     public Device getDevice(DeviceIdentifier deviceId) throws DeviceManagementException {
-        Device device;
+        int tenantId = this.getTenantId();
+        Device device = deviceCacheManager.getDevice(deviceId, tenantId);
+        if (device != null) {
+            return device;
+        }
+        long cacheVersion = deviceCacheManager.getVersion(deviceId, tenantId);
         try {
             DeviceManagementDAOFactory.openConnection();
-            device = deviceDAO.getDevice(deviceId, this.getTenantId());
+            device = deviceDAO.getDevice(deviceId, tenantId);
             if (device == null) {
                 if (log.isDebugEnabled()) {
                     log.debug("No device is found upon the type '" + deviceId.getType() + "' and id '" +
@@ -826,6 +847,7 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             device.setFeatures(pluginSpecificInfo.getFeatures());
             device.setProperties(pluginSpecificInfo.getProperties());
         }
+        deviceCacheManager.addDeviceToCache(deviceId, device, tenantId, cacheVersion);
         return device;
     }
 
@@ -984,7 +1006,63 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             }
             return false;
         }
-        return deviceManager.updateDeviceInfo(deviceId, device);
+        try {
+            boolean status = deviceManager.updateDeviceInfo(deviceId, device);
+            String token = this.getPushToken(deviceId.getType(), device.getProperties(), this.getTenantId());
+            if (status && token != null) {
+                this.updatePushToken(deviceId, token);
+            }
+            return status;
+        } finally {
+            deviceCacheManager.removeDeviceFromCache(deviceId, this.getTenantId());
+            deviceCountCacheManager.removeDeviceCounts(this.getTenantId());
+        }
+    }
+
+    private void updatePushToken(DeviceIdentifier deviceId, String token) throws DeviceManagementException {
+        int tenantId = this.getTenantId();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            Device device = deviceDAO.getDevice(deviceId, tenantId);
+            if (device != null && device.getEnrolmentInfo() != null) {
+                pushTokenDAO.updatePushToken(device.getEnrolmentInfo().getId(), token, tenantId);
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } catch (DeviceManagementDAOException e) {
+            DeviceManagementDAOFactory.rollbackTransaction();
+            throw new DeviceManagementException("Error occurred while updating the push token of '" +
+                    deviceId.getType() + "' device with the identifier '" + deviceId.getId() + "'", e);
+        } catch (TransactionManagementException e) {
+            throw new DeviceManagementException("Error occurred while initiating transaction", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    /**
+     * Registers the push token carried in the properties of the device for the given enrolment, if the push
+     * notification strategy of the device type addresses devices by push tokens.
+     */
+    private void updatePushToken(Device device, int enrolmentId,
+                                 int tenantId) throws DeviceManagementDAOException {
+        String token = this.getPushToken(device.getType(), device.getProperties(), tenantId);
+        if (token != null) {
+            pushTokenDAO.updatePushToken(enrolmentId, token, tenantId);
+        }
+    }
+
+    private String getPushToken(String deviceType, List<Device.Property> properties, int tenantId) {
+        String tokenProperty = pluginRepository.getPushTokenProperty(deviceType, tenantId);
+        if (tokenProperty == null || properties == null) {
+            return null;
+        }
+        for (Device.Property property : properties) {
+            if (tokenProperty.equals(property.getName())) {
+                String token = property.getValue();
+                return (token != null && !token.isEmpty()) ? token : null;
+            }
+        }
+        return null;
     }
 
     @Override
@@ -997,7 +1075,12 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             }
             return false;
         }
-        return deviceManager.setOwnership(deviceId, ownershipType);
+        try {
+            return deviceManager.setOwnership(deviceId, ownershipType);
+        } finally {
+            deviceCacheManager.removeDeviceFromCache(deviceId, this.getTenantId());
+            deviceCountCacheManager.removeDeviceCounts(this.getTenantId());
+        }
     }
 
     @Override
@@ -1026,6 +1109,9 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
                 success = enrollmentDAO.setStatus(enrolmentInfo.getId(), currentOwner, status, tenantId);
             }
             DeviceManagementDAOFactory.commitTransaction();
+            if (success && EnrolmentInfo.Status.REMOVED.equals(status)) {
+                deviceSearchIndexManager.removeDevice(tenantId, device.getId());
+            }
             return success;
         } catch (DeviceManagementDAOException e) {
             DeviceManagementDAOFactory.rollbackTransaction();
@@ -1034,7 +1120,41 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             throw new DeviceManagementException("Error occurred while initiating transaction", e);
         } finally {
             DeviceManagementDAOFactory.closeConnection();
+            deviceCacheManager.removeDeviceFromCache(deviceId, this.getTenantId());
+            deviceCountCacheManager.removeDeviceCounts(this.getTenantId());
+        }
+    }
 
+    @Override
+    public boolean setStatus(List<Device> devices, List<EnrolmentInfo.Status> currentStatuses,
+                             EnrolmentInfo.Status status) throws DeviceManagementException {
+        if (devices == null || devices.isEmpty()) {
+            return false;
+        }
+        List<Integer> enrolmentIds = new ArrayList<>(devices.size());
+        for (Device device : devices) {
+            enrolmentIds.add(device.getEnrolmentInfo().getId());
+        }
+        int tenantId = this.getTenantId();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            for (List<Integer> batch : DeviceManagerUtil.getBatches(enrolmentIds, DeviceManagerUtil.getBatchSize())) {
+                enrollmentDAO.setStatus(batch, currentStatuses, status, tenantId);
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+            return true;
+        } catch (DeviceManagementDAOException e) {
+            DeviceManagementDAOFactory.rollbackTransaction();
+            throw new DeviceManagementException("Error occurred while setting the status of device enrolments", e);
+        } catch (TransactionManagementException e) {
+            throw new DeviceManagementException("Error occurred while initiating transaction", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+            for (Device device : devices) {
+                deviceCacheManager.removeDeviceFromCache(new DeviceIdentifier(device.getDeviceIdentifier(),
+                        device.getType()), tenantId);
+            }
+            deviceCountCacheManager.removeDeviceCounts(tenantId);
         }
     }
 
@@ -1631,6 +1751,9 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
             throw new DeviceManagementException("Error occurred while initiating transaction", e);
         } finally {
             DeviceManagementDAOFactory.closeConnection();
+            deviceCacheManager.removeDeviceFromCache(
+                    new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()), this.getTenantId());
+            deviceCountCacheManager.removeDeviceCounts(this.getTenantId());
         }
     }
 
@@ -1797,6 +1920,53 @@ public class DeviceManagementProviderServiceImpl implements DeviceManagementProv
         return false;
     }
 
+    @Override
+    public List<DeviceIdentifier> getEnrolledDevices(List<DeviceIdentifier> deviceIds, String user)
+            throws DeviceManagementException {
+        List<DeviceIdentifier> enrolledDevices = new ArrayList<>();
+        if (user == null) {
+            return enrolledDevices;
+        }
+        Map<String, List<DeviceIdentifier>> deviceIdsByType = new HashMap<>();
+        for (DeviceIdentifier deviceId : deviceIds) {
+            List<DeviceIdentifier> ids = deviceIdsByType.get(deviceId.getType());
+            if (ids == null) {
+                ids = new ArrayList<>();
+                deviceIdsByType.put(deviceId.getType(), ids);
+            }
+            ids.add(deviceId);
+        }
+        int tenantId = this.getTenantId();
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            int batchSize = DeviceManagerUtil.getBatchSize();
+            for (Map.Entry<String, List<DeviceIdentifier>> entry : deviceIdsByType.entrySet()) {
+                for (List<DeviceIdentifier> batch : DeviceManagerUtil.getBatches(entry.getValue(), batchSize)) {
+                    List<String> deviceIdentifications = new ArrayList<>(batch.size());
+                    for (DeviceIdentifier deviceId : batch) {
+                        deviceIdentifications.add(deviceId.getId());
+                    }
+                    Map<String, EnrolmentInfo> enrolments =
+                            deviceDAO.getMatchingEnrolments(entry.getKey(), deviceIdentifications, tenantId);
+                    for (DeviceIdentifier deviceId : batch) {
+                        EnrolmentInfo enrolmentInfo = enrolments.get(deviceId.getId());
+                        if (enrolmentInfo != null && user.equals(enrolmentInfo.getOwner())) {
+                            enrolledDevices.add(deviceId);
+                        }
+                    }
+                }
+            }
+        } catch (DeviceManagementDAOException e) {
+            throw new DeviceManagementException("Error occurred while obtaining the enrollment information of " +
+                                                        "devices for user : " + user, e);
+        } catch (SQLException e) {
+            throw new DeviceManagementException("Error occurred while opening a connection to the data source", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        return enrolledDevices;
+    }
+
     private int getTenantId() {
         return CarbonContext.getThreadLocalCarbonContext().getTenantId();
     }
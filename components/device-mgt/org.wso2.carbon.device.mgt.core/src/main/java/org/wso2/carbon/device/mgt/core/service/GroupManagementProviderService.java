@@ -28,6 +28,7 @@ import org.wso2.carbon.device.mgt.common.group.mgt.GroupUser;
 import org.wso2.carbon.user.core.multiplecredentials.UserDoesNotExistException;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for Group Management Services
@@ -310,4 +311,25 @@ public interface GroupManagementProviderService {
      */
     List<DeviceGroup> getGroups(DeviceIdentifier deviceIdentifier) throws GroupManagementException;
 
+    /**
+     * Get the ids of the device groups of user with permission, without loading the groups.
+     *
+     * @param username   of the user.
+     * @param permission to filter.
+     * @return ids of the groups with specified permissions.
+     * @throws GroupManagementException
+     */
+    List<Integer> getGroupIds(String username, String permission) throws GroupManagementException;
+
+    /**
+     * Get the ids of the groups of many devices at once.
+     *
+     * @param deviceIdentifiers of the devices.
+     * @return group ids keyed by the given device identifier instances. Devices which do not belong to any group are
+     * left out.
+     * @throws GroupManagementException
+     */
+    Map<DeviceIdentifier, List<Integer>> getGroupIds(List<DeviceIdentifier> deviceIdentifiers)
+            throws GroupManagementException;
+
 }
@@ -33,6 +33,7 @@ import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupDAO;
 import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupManagementDAOException;
 import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
 import org.wso2.carbon.user.api.Permission;
 import org.wso2.carbon.user.api.UserRealm;
 import org.wso2.carbon.user.api.UserStoreException;
@@ -810,6 +811,72 @@ public class GroupManagementProviderServiceImpl implements GroupManagementProvid
         return deviceGroups;
     }
 
+    @Override
+    public List<Integer> getGroupIds(String username, String permission) throws GroupManagementException {
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        Set<Integer> groupIds = new LinkedHashSet<>();
+        try {
+            UserRealm userRealm = DeviceManagementDataHolder.getInstance().getRealmService().getTenantUserRealm(tenantId);
+            String[] roles = userRealm.getUserStoreManager().getRoleListOfUser(username);
+            for (String role : roles) {
+                if (role != null && role.contains("Internal/group-") && userRealm.getAuthorizationManager()
+                        .isRoleAuthorized(role, permission, CarbonConstants.UI_PERMISSION_ACTION)) {
+                    try {
+                        groupIds.add(Integer.parseInt(role.split("-")[1]));
+                    } catch (NumberFormatException e) {
+                        log.error("Unable to extract groupId from role " + role, e);
+                    }
+                }
+            }
+            return new ArrayList<>(groupIds);
+        } catch (UserStoreException e) {
+            throw new GroupManagementException("Error occurred while getting user realm.", e);
+        }
+    }
+
+    @Override
+    public Map<DeviceIdentifier, List<Integer>> getGroupIds(List<DeviceIdentifier> deviceIdentifiers)
+            throws GroupManagementException {
+        int tenantId = CarbonContext.getThreadLocalCarbonContext().getTenantId();
+        Map<String, List<DeviceIdentifier>> deviceIdentifiersByType = new HashMap<>();
+        for (DeviceIdentifier deviceIdentifier : deviceIdentifiers) {
+            List<DeviceIdentifier> typeDeviceIdentifiers = deviceIdentifiersByType.get(deviceIdentifier.getType());
+            if (typeDeviceIdentifiers == null) {
+                typeDeviceIdentifiers = new ArrayList<>();
+                deviceIdentifiersByType.put(deviceIdentifier.getType(), typeDeviceIdentifiers);
+            }
+            typeDeviceIdentifiers.add(deviceIdentifier);
+        }
+        Map<DeviceIdentifier, List<Integer>> groupIds = new HashMap<>();
+        try {
+            GroupManagementDAOFactory.openConnection();
+            int batchSize = DeviceManagerUtil.getBatchSize();
+            for (Map.Entry<String, List<DeviceIdentifier>> entry : deviceIdentifiersByType.entrySet()) {
+                for (List<DeviceIdentifier> batch : DeviceManagerUtil.getBatches(entry.getValue(), batchSize)) {
+                    List<String> deviceIdentifications = new ArrayList<>(batch.size());
+                    for (DeviceIdentifier deviceIdentifier : batch) {
+                        deviceIdentifications.add(deviceIdentifier.getId());
+                    }
+                    Map<String, List<Integer>> batchGroupIds =
+                            groupDAO.getGroupIds(entry.getKey(), deviceIdentifications, tenantId);
+                    for (DeviceIdentifier deviceIdentifier : batch) {
+                        List<Integer> deviceGroupIds = batchGroupIds.get(deviceIdentifier.getId());
+                        if (deviceGroupIds != null) {
+                            groupIds.put(deviceIdentifier, deviceGroupIds);
+                        }
+                    }
+                }
+            }
+        } catch (GroupManagementDAOException e) {
+            throw new GroupManagementException("Error occurred while retrieving device groups.", e);
+        } catch (SQLException e) {
+            throw new GroupManagementException("Error occurred while opening database connection.", e);
+        } finally {
+            GroupManagementDAOFactory.closeConnection();
+        }
+        return groupIds;
+    }
+
     private DeviceGroupBuilder extractNewGroupFromRole(Map<Integer, DeviceGroup> groups, String role)
             throws GroupManagementException {
         try {
@@ -106,11 +106,20 @@ public class DeviceTaskManagerImpl implements DeviceTaskManager {
         try {
             List<Device> devices;
             List<String> operations = this.getValidOperationNames();
+            int chunkSize = DeviceManagerUtil.getBatchSize();
             for (String taskOperation : operations) {
                 deviceTypes = getPlatformsForOperations(taskOperation);
                  for (String deviceType : deviceTypes) {
-                     devices = deviceManagementProviderService.getAllDevices(deviceType);
-                     if (!devices.isEmpty()) {
+                     Device lastDevice = null;
+                     do {
+                         devices = deviceManagementProviderService.getDevices(deviceType, null, lastDevice,
+                                 chunkSize);
+                         if (devices.isEmpty()) {
+                             if (lastDevice == null && log.isDebugEnabled()) {
+                                 log.debug("No devices are available to perform the operations.");
+                             }
+                             break;
+                         }
                          for (String str : operations) {
                              CommandOperation operation = new CommandOperation();
                              operation.setEnabled(true);
@@ -119,12 +128,8 @@ public class DeviceTaskManagerImpl implements DeviceTaskManager {
                              deviceManagementProviderService.addOperation(deviceType, operation,
                                      DeviceManagerUtil.getValidDeviceIdentifiers(devices));
                          }
-                     } else {
-                         if (log.isDebugEnabled()) {
-                             log.debug("No devices are available to perform the operations.");
-                         }
-                     }
-
+                         lastDevice = devices.get(devices.size() - 1);
+                     } while (devices.size() == chunkSize);
                  }
             }
         } catch (InvalidDeviceException e) {
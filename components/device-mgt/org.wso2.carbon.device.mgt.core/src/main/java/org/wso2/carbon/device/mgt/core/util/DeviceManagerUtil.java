@@ -28,6 +28,7 @@ import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
 import org.wso2.carbon.device.mgt.core.config.DeviceManagementConfig;
 import org.wso2.carbon.device.mgt.core.config.datasource.DataSourceConfig;
 import org.wso2.carbon.device.mgt.core.config.datasource.JNDILookupDefinition;
+import org.wso2.carbon.device.mgt.core.config.operation.OperationConfiguration;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
 import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
 import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
@@ -53,6 +54,7 @@ import java.util.*;
 public final class DeviceManagerUtil {
 
     private static final Log log = LogFactory.getLog(DeviceManagerUtil.class);
+    private static final char CONTINUATION_TOKEN_SEPARATOR = '.';
 
     public static Document convertToDocument(File file) throws DeviceManagementException {
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
@@ -377,6 +379,105 @@ public final class DeviceManagerUtil {
         return deviceIDHolder;
     }
 
+    /**
+     * Validates the given device identifiers against their already resolved enrolments, instead of looking up each
+     * device separately.
+     *
+     * @param deviceIDs  device identifiers to be validated.
+     * @param enrolments matching enrolments of the given devices, keyed by the device identifier.
+     * @return holder carrying the valid identifiers and the ids of the invalid ones.
+     */
+    public static DeviceIDHolder validateDeviceIdentifiers(List<DeviceIdentifier> deviceIDs,
+                                                           Map<DeviceIdentifier, EnrolmentInfo> enrolments) {
+        List<String> errorDeviceIdList = new ArrayList<>();
+        List<DeviceIdentifier> validDeviceIDList = new ArrayList<>();
+
+        int deviceIDCounter = 0;
+        for (DeviceIdentifier deviceIdentifier : deviceIDs) {
+            deviceIDCounter++;
+            String deviceID = deviceIdentifier.getId();
+            if (deviceID == null || deviceID.isEmpty()) {
+                errorDeviceIdList.add(String.format(OperationMgtConstants.DeviceConstants.DEVICE_ID_NOT_FOUND,
+                        deviceIDCounter));
+                continue;
+            }
+            EnrolmentInfo enrolmentInfo = enrolments.get(deviceIdentifier);
+            if (enrolmentInfo == null || EnrolmentInfo.Status.REMOVED.equals(enrolmentInfo.getStatus())) {
+                errorDeviceIdList.add(deviceID);
+            } else {
+                validDeviceIDList.add(deviceIdentifier);
+            }
+        }
+
+        DeviceIDHolder deviceIDHolder = new DeviceIDHolder();
+        deviceIDHolder.setValidDeviceIDList(validDeviceIDList);
+        deviceIDHolder.setErrorDeviceIdList(errorDeviceIdList);
+        return deviceIDHolder;
+    }
+
+    /**
+     * Splits the given list into consecutive sub lists of at most the given size.
+     *
+     * @param items     list to be split.
+     * @param batchSize maximum size of a sub list.
+     * @return list of sub list views of the given list.
+     */
+    public static <T> List<List<T>> getBatches(List<T> items, int batchSize) {
+        List<List<T>> batches = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += batchSize) {
+            batches.add(items.subList(from, Math.min(from + batchSize, items.size())));
+        }
+        return batches;
+    }
+
+    /**
+     * Returns the batch size to be used for bulk database operations, as configured in cdm-config.xml.
+     *
+     * @return configured batch size or the default one if it is not configured.
+     */
+    public static int getBatchSize() {
+        DeviceManagementConfig deviceManagementConfig = DeviceConfigurationManager.getInstance().
+                getDeviceManagementConfig();
+        if (deviceManagementConfig != null && deviceManagementConfig.getOperationConfiguration() != null) {
+            return deviceManagementConfig.getOperationConfiguration().getBatchSize();
+        }
+        return OperationConfiguration.DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Builds the continuation token of a device list or device search page, from which the next page continues.
+     * Devices without enrolment information, such as device search results which are paged by device only, are
+     * given the enrolment id 0.
+     *
+     * @param lastDevice last device of the page.
+     * @return opaque continuation token.
+     */
+    public static String getContinuationToken(Device lastDevice) {
+        EnrolmentInfo enrolmentInfo = lastDevice.getEnrolmentInfo();
+        return Integer.toString(lastDevice.getId(), Character.MAX_RADIX) + CONTINUATION_TOKEN_SEPARATOR +
+                Integer.toString(enrolmentInfo != null ? enrolmentInfo.getId() : 0, Character.MAX_RADIX);
+    }
+
+    /**
+     * Parses a continuation token built by {@link #getContinuationToken(Device)}.
+     *
+     * @param continuationToken continuation token.
+     * @return the id of the last device and the id of its enrolment, in that order.
+     * @throws DeviceManagementException if the token is malformed.
+     */
+    public static int[] parseContinuationToken(String continuationToken) throws DeviceManagementException {
+        int separatorIndex = continuationToken.indexOf(CONTINUATION_TOKEN_SEPARATOR);
+        try {
+            if (separatorIndex > 0) {
+                return new int[]{Integer.parseInt(continuationToken.substring(0, separatorIndex), Character.MAX_RADIX),
+                        Integer.parseInt(continuationToken.substring(separatorIndex + 1), Character.MAX_RADIX)};
+            }
+        } catch (NumberFormatException e) {
+            throw new DeviceManagementException("Invalid continuation token '" + continuationToken + "'", e);
+        }
+        throw new DeviceManagementException("Invalid continuation token '" + continuationToken + "'");
+    }
+
     public static boolean isValidDeviceIdentifier(DeviceIdentifier deviceIdentifier) throws DeviceManagementException {
         Device device = DeviceManagementDataHolder.getInstance().getDeviceManagementProvider().getDevice(deviceIdentifier);
         if (device == null || device.getDeviceIdentifier() == null ||
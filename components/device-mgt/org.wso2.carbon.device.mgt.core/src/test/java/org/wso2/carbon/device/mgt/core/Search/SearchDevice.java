@@ -22,30 +22,57 @@ package org.wso2.carbon.device.mgt.core.search;
 import com.google.gson.Gson;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.search.Condition;
 import org.wso2.carbon.device.mgt.common.search.SearchContext;
+import org.wso2.carbon.device.mgt.core.TestUtils;
 import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
 import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
+import org.wso2.carbon.device.mgt.core.search.mgt.InvalidOperatorException;
+import org.wso2.carbon.device.mgt.core.search.mgt.QueryHolder;
 import org.wso2.carbon.device.mgt.core.search.mgt.SearchManagerService;
+import org.wso2.carbon.device.mgt.core.search.mgt.SearchMgtException;
+import org.wso2.carbon.device.mgt.core.search.mgt.impl.QueryBuilderImpl;
 import org.wso2.carbon.device.mgt.core.search.mgt.impl.SearchManagerServiceImpl;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderServiceImpl;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
 
 public class SearchDevice extends BaseDeviceManagementTest {
 
     private static final Log log = LogFactory.getLog(DeviceDetails.class);
+    private static final String PAGINATION_DEVICE_TYPE = "search-pagination";
+    private static final String PAGINATION_DEVICE_MODEL = "PAGINATION-MODEL";
+    private static final int PAGINATION_DEVICE_COUNT = 3;
 
     @BeforeClass
     @Override
     public void init() throws Exception {
         DeviceManagementProviderService deviceManagementProviderService = new DeviceManagementProviderServiceImpl();
         DeviceManagementDataHolder.getInstance().setDeviceManagementProvider(deviceManagementProviderService);
+
+        // Devices matched only by the paginated search
+        this.executeUpdate("INSERT INTO DM_DEVICE_TYPE (NAME, PROVIDER_TENANT_ID) VALUES ('" +
+                PAGINATION_DEVICE_TYPE + "', ?)", TestDataHolder.SUPER_TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE (DESCRIPTION, NAME, DEVICE_TYPE_ID, DEVICE_IDENTIFICATION, " +
+                "LAST_UPDATED_TIMESTAMP, TENANT_ID) SELECT 'Paginated search device', CONCAT('page-device-', X), " +
+                "(SELECT MAX(ID) FROM DM_DEVICE_TYPE WHERE NAME = '" + PAGINATION_DEVICE_TYPE + "'), " +
+                "CONCAT('page-', X), CURRENT_TIMESTAMP(), ? FROM SYSTEM_RANGE(1, ?)",
+                TestDataHolder.SUPER_TENANT_ID, PAGINATION_DEVICE_COUNT);
+        this.executeUpdate("INSERT INTO DM_DEVICE_DETAIL (DEVICE_ID, DEVICE_MODEL, UPDATE_TIMESTAMP) SELECT ID, '" +
+                PAGINATION_DEVICE_MODEL + "', 0 FROM DM_DEVICE WHERE DEVICE_TYPE_ID = (SELECT MAX(ID) FROM " +
+                "DM_DEVICE_TYPE WHERE NAME = '" + PAGINATION_DEVICE_TYPE + "')");
     }
 
     @Test
@@ -179,5 +206,143 @@ public class SearchDevice extends BaseDeviceManagementTest {
             log.debug(device.getDeviceIdentifier());
         }
     }
-}
 
+    @Test
+    public void doPaginatedSearch() throws Exception {
+
+        List<Integer> deviceIds = this.getPaginationDeviceIds();
+        Assert.assertEquals(deviceIds.size(), PAGINATION_DEVICE_COUNT);
+        SearchManagerService service = new SearchManagerServiceImpl();
+
+        List<Device> firstPage = service.search(this.getPaginationSearchContext(""));
+        Assert.assertEquals(this.getIds(firstPage), deviceIds.subList(0, 2),
+                "First page does not hold the first two matching devices.");
+
+        // The page continues from the last device of the previous page, as REST clients do with the token
+        String continuationToken = DeviceManagerUtil.getContinuationToken(firstPage.get(firstPage.size() - 1));
+        List<Device> secondPage = service.search(this.getPaginationSearchContext(continuationToken));
+        Assert.assertEquals(this.getIds(secondPage), deviceIds.subList(2, PAGINATION_DEVICE_COUNT),
+                "Second page does not continue from the last device of the first page.");
+        Assert.assertEquals(secondPage.get(0).getDeviceInfo().getDeviceModel(), PAGINATION_DEVICE_MODEL);
+
+        // A token of a device list page continues the search from the same device
+        Device lastDevice = new Device();
+        lastDevice.setId(deviceIds.get(0));
+        Assert.assertEquals(this.getIds(service.search(this.getPaginationSearchContext(
+                DeviceManagerUtil.getContinuationToken(lastDevice)))), deviceIds.subList(1, 3));
+    }
+
+    @Test
+    public void compileSearchQuery() throws Exception {
+
+        List<Condition> conditions = new ArrayList<>();
+        conditions.add(this.getCondition("deviceModel", "=", "SM-T520", Condition.State.AND));
+        conditions.add(this.getCondition("BATTERY_VOLTAGE", "=", "40", Condition.State.AND));
+        conditions.add(this.getCondition("cpuUsage", ">", "40", Condition.State.OR));
+        QueryHolder query = new QueryBuilderImpl().buildQuery(conditions, 10);
+
+        Assert.assertFalse(query.getQuery().contains("SM-T520"), "Searched value was embedded in the query.");
+        Assert.assertEquals(query.getParameters().size(), 6);
+        Assert.assertEquals(query.getParameters().get(1), 10);
+        Assert.assertEquals(query.getParameters().get(2), "SM-T520");
+        Assert.assertEquals(query.getParameters().get(5), 40.0);
+
+        conditions.get(0).setValue("SM-G900");
+        conditions.get(2).setValue("80");
+        Assert.assertEquals(new QueryBuilderImpl().buildQuery(conditions, 20).getQuery(), query.getQuery(),
+                "Searches of the same shape were compiled into different queries.");
+    }
+
+    @Test(expectedExceptions = InvalidOperatorException.class)
+    public void compileQueryWithInvalidOperator() throws Exception {
+
+        List<Condition> conditions = new ArrayList<>();
+        conditions.add(this.getCondition("deviceModel", "= '' OR 1 = 1 OR DD.VENDOR =", "SM-T520",
+                Condition.State.AND));
+        new QueryBuilderImpl().buildQuery(conditions, 0);
+    }
+
+    @Test(expectedExceptions = SearchMgtException.class)
+    public void doSearchWithInvalidContinuationToken() throws Exception {
+
+        SearchContext context = new SearchContext();
+        List<Condition> conditions = new ArrayList<>();
+        conditions.add(this.getCondition("deviceModel", "=", "SM-T520", Condition.State.AND));
+        context.setConditions(conditions);
+        context.setContinuationToken("#");
+
+        SearchManagerService service = new SearchManagerServiceImpl();
+        service.search(context);
+    }
+
+    @AfterClass
+    public void cleanup() throws Exception {
+        String devices = "SELECT d.ID FROM DM_DEVICE d, DM_DEVICE_TYPE t WHERE d.DEVICE_TYPE_ID = t.ID AND " +
+                "t.NAME = '" + PAGINATION_DEVICE_TYPE + "'";
+        this.executeUpdate("DELETE FROM DM_DEVICE_DETAIL WHERE DEVICE_ID IN (" + devices + ")");
+        this.executeUpdate("DELETE FROM DM_DEVICE WHERE ID IN (" + devices + ")");
+        this.executeUpdate("DELETE FROM DM_DEVICE_TYPE WHERE NAME = '" + PAGINATION_DEVICE_TYPE + "'");
+    }
+
+    private SearchContext getPaginationSearchContext(String continuationToken) {
+        SearchContext context = new SearchContext();
+        List<Condition> conditions = new ArrayList<>();
+        conditions.add(this.getCondition("deviceModel", "=", PAGINATION_DEVICE_MODEL, Condition.State.AND));
+        context.setConditions(conditions);
+        context.setLimit(2);
+        context.setContinuationToken(continuationToken);
+        return context;
+    }
+
+    private List<Integer> getPaginationDeviceIds() throws Exception {
+        List<Integer> deviceIds = new ArrayList<>();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("SELECT d.ID FROM DM_DEVICE d, DM_DEVICE_TYPE t WHERE " +
+                    "d.DEVICE_TYPE_ID = t.ID AND t.NAME = ? ORDER BY d.ID");
+            stmt.setString(1, PAGINATION_DEVICE_TYPE);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                deviceIds.add(rs.getInt(1));
+            }
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+        return deviceIds;
+    }
+
+    private List<Integer> getIds(List<Device> devices) {
+        List<Integer> ids = new ArrayList<>();
+        for (Device device : devices) {
+            ids.add(device.getId());
+        }
+        return ids;
+    }
+
+    private void executeUpdate(String sql, int... parameters) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setInt(i + 1, parameters[i]);
+            }
+            stmt.executeUpdate();
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, null);
+        }
+    }
+
+    private Condition getCondition(String key, String operator, String value, Condition.State state) {
+        Condition condition = new Condition();
+        condition.setKey(key);
+        condition.setOperator(operator);
+        condition.setValue(value);
+        condition.setState(state);
+        return condition;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.wso2.carbon.device.mgt.core;
+
+import org.wso2.carbon.device.mgt.common.BatchDeviceManager;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.DeviceManagementException;
+import org.wso2.carbon.device.mgt.common.Feature;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Test device manager which is able to retrieve many devices at once. Each device it returns carries a feature and a
+ * property derived from its identifier, and the calls made to it are recorded.
+ */
+public class TestBatchDeviceManager extends TestDeviceManager implements BatchDeviceManager {
+
+    public static final String PLUGIN_PROPERTY = "PLUGIN_IDENTIFIER";
+
+    private final List<DeviceIdentifier> getDeviceCalls =
+            Collections.synchronizedList(new ArrayList<DeviceIdentifier>());
+    private final List<List<DeviceIdentifier>> getDevicesCalls =
+            Collections.synchronizedList(new ArrayList<List<DeviceIdentifier>>());
+
+    @Override
+    public Device getDevice(DeviceIdentifier deviceId) throws DeviceManagementException {
+        getDeviceCalls.add(deviceId);
+        return getPluginDevice(deviceId);
+    }
+
+    @Override
+    public List<Device> getDevices(List<DeviceIdentifier> deviceIds) throws DeviceManagementException {
+        getDevicesCalls.add(new ArrayList<>(deviceIds));
+        List<Device> devices = new ArrayList<>(deviceIds.size());
+        for (DeviceIdentifier deviceId : deviceIds) {
+            devices.add(getPluginDevice(deviceId));
+        }
+        return devices;
+    }
+
+    /**
+     * @return the device identifiers passed to {@link #getDevice(DeviceIdentifier)}, in call order.
+     */
+    public List<DeviceIdentifier> getGetDeviceCalls() {
+        return getDeviceCalls;
+    }
+
+    /**
+     * @return the device identifier lists passed to {@link #getDevices(List)}, in call order.
+     */
+    public List<List<DeviceIdentifier>> getGetDevicesCalls() {
+        return getDevicesCalls;
+    }
+
+    public void reset() {
+        getDeviceCalls.clear();
+        getDevicesCalls.clear();
+    }
+
+    public static Device getPluginDevice(DeviceIdentifier deviceId) {
+        Device device = new Device();
+        device.setDeviceIdentifier(deviceId.getId());
+        device.setType(deviceId.getType());
+
+        Feature feature = new Feature();
+        feature.setCode("FEATURE_" + deviceId.getId());
+        feature.setName("Feature of " + deviceId.getId());
+        feature.setDeviceType(deviceId.getType());
+        List<Feature> features = new ArrayList<>();
+        features.add(feature);
+        device.setFeatures(features);
+
+        Device.Property property = new Device.Property();
+        property.setName(PLUGIN_PROPERTY);
+        property.setValue(deviceId.getId());
+        List<Device.Property> properties = new ArrayList<>();
+        properties.add(property);
+        device.setProperties(properties);
+        return device;
+    }
+
+}
@@ -32,11 +32,17 @@ public class TestDeviceManagementService implements DeviceManagementService {
 
     private String providerType;
     private String tenantDomain;
+    private DeviceManager deviceManager;
 
     public TestDeviceManagementService(String deviceType, String tenantDomain){
         providerType = deviceType;
         this.tenantDomain = tenantDomain;
     }
+
+    public TestDeviceManagementService(String deviceType, String tenantDomain, DeviceManager deviceManager) {
+        this(deviceType, tenantDomain);
+        this.deviceManager = deviceManager;
+    }
     @Override
     public String getType() {
         return providerType;
@@ -49,6 +55,9 @@ public class TestDeviceManagementService implements DeviceManagementService {
 
     @Override
     public DeviceManager getDeviceManager() {
+        if (deviceManager != null) {
+            return deviceManager;
+        }
         return new TestDeviceManager();
     }
 
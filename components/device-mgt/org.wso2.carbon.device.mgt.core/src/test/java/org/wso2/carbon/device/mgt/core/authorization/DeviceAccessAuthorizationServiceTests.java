@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.device.mgt.core.authorization;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.authorization.DeviceAccessAuthorizationException;
+import org.wso2.carbon.device.mgt.common.authorization.DeviceAuthorizationResult;
+import org.wso2.carbon.device.mgt.core.internal.DeviceManagementDataHolder;
+import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService;
+import org.wso2.carbon.registry.core.Registry;
+import org.wso2.carbon.registry.core.service.RegistryService;
+import org.wso2.carbon.user.core.AuthorizationManager;
+import org.wso2.carbon.user.core.UserRealm;
+import org.wso2.carbon.user.core.service.RealmService;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the authorization of device lists with the authorization of each device on its own, against users,
+ * device ownership and group permissions served by stubbed services.
+ */
+public class DeviceAccessAuthorizationServiceTests implements InvocationHandler {
+
+    private static final String ADMIN = "admin";
+    private static final String USER = "user";
+    private static final String AUTHORIZED_TYPE = "authorized-type";
+    private static final String OPEN_TYPE = "open-type";
+    private static final String VIEW_PERMISSION = "/device-mgt/groups/devices/view";
+    private static final String OPERATE_PERMISSION = "/device-mgt/groups/devices/operate";
+    private static final String UNKNOWN_PERMISSION = "/device-mgt/groups/devices/unknown";
+
+    private final Map<DeviceIdentifier, String> owners = new HashMap<>();
+    private final Map<DeviceIdentifier, List<Integer>> deviceGroupIds = new HashMap<>();
+    private final Map<String, List<Integer>> permittedGroupIds = new HashMap<>();
+    private final Map<String, Integer> counts = new HashMap<>();
+    private final List<DeviceIdentifier> devices = new ArrayList<>();
+
+    private RealmService realmService;
+    private RegistryService registryService;
+    private DeviceManagementProviderService deviceManagementProviderService;
+    private GroupManagementProviderService groupManagementProviderService;
+
+    @BeforeClass
+    public void init() throws Exception {
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(MultitenantConstants
+                .SUPER_TENANT_DOMAIN_NAME);
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+
+        addDevice("owned-device", AUTHORIZED_TYPE, USER);
+        addDevice("viewed-device", AUTHORIZED_TYPE, ADMIN, 1);
+        addDevice("operated-device", OPEN_TYPE, ADMIN, 2);
+        addDevice("shared-device", AUTHORIZED_TYPE, ADMIN, 1, 2);
+        addDevice("other-group-device", OPEN_TYPE, ADMIN, 3);
+        addDevice("ungrouped-device", AUTHORIZED_TYPE, ADMIN);
+        addDevice("owned-grouped-device", OPEN_TYPE, USER, 3);
+        permittedGroupIds.put(USER + VIEW_PERMISSION, Arrays.asList(1, 2));
+        permittedGroupIds.put(USER + OPERATE_PERMISSION, Collections.singletonList(2));
+
+        DeviceManagementDataHolder dataHolder = DeviceManagementDataHolder.getInstance();
+        realmService = dataHolder.getRealmService();
+        registryService = dataHolder.getRegistryService();
+        deviceManagementProviderService = dataHolder.getDeviceManagementProvider();
+        groupManagementProviderService = dataHolder.getGroupManagementProviderService();
+        dataHolder.setRealmService(stub(RealmService.class));
+        dataHolder.setRegistryService(stub(RegistryService.class));
+        dataHolder.setDeviceManagementProvider(stub(DeviceManagementProviderService.class));
+        dataHolder.setGroupManagementProviderService(stub(GroupManagementProviderService.class));
+        dataHolder.setRequireDeviceAuthorization(AUTHORIZED_TYPE, true);
+        dataHolder.setRequireDeviceAuthorization(OPEN_TYPE, false);
+    }
+
+    @AfterClass
+    public void cleanResources() {
+        DeviceManagementDataHolder dataHolder = DeviceManagementDataHolder.getInstance();
+        dataHolder.setRealmService(realmService);
+        dataHolder.setRegistryService(registryService);
+        dataHolder.setDeviceManagementProvider(deviceManagementProviderService);
+        dataHolder.setGroupManagementProviderService(groupManagementProviderService);
+    }
+
+    @Test
+    public void testAdminIsAuthorizedForAllDevices() throws DeviceAccessAuthorizationException {
+        DeviceAuthorizationResult result = assertSameAsPerDevice(ADMIN, null);
+        Assert.assertEquals(result.getAuthorizedDevices().size(), devices.size(), "Admin is not authorized");
+        Assert.assertEquals(result.getUnauthorizedDevices().size(), 0, "Admin is not authorized");
+        Assert.assertEquals(getCount("getEnrolledDevices"), 0, "Ownership of devices is checked for admin");
+    }
+
+    @Test
+    public void testOwnerIsAuthorizedWithoutGroupPermissions() throws DeviceAccessAuthorizationException {
+        DeviceAuthorizationResult result = assertSameAsPerDevice(USER, null);
+        assertDevices(result.getAuthorizedDevices(), "owned-device", "owned-grouped-device");
+    }
+
+    @Test
+    public void testGroupPermissionAuthorizesDevicesOfPermittedGroups() throws DeviceAccessAuthorizationException {
+        DeviceAuthorizationResult result = assertSameAsPerDevice(USER, new String[]{VIEW_PERMISSION});
+        assertDevices(result.getAuthorizedDevices(), "owned-device", "owned-grouped-device", "viewed-device",
+                      "operated-device", "shared-device");
+        Assert.assertEquals(getCount("getEnrolledDevices"), 1, "Ownership of devices is not checked in bulk");
+        Assert.assertEquals(getCount("getGroupIdsOfDevices"), 1, "Groups of devices are not loaded in bulk");
+    }
+
+    @Test
+    public void testAllGroupPermissionsAreRequired() throws DeviceAccessAuthorizationException {
+        DeviceAuthorizationResult result =
+                assertSameAsPerDevice(USER, new String[]{VIEW_PERMISSION, OPERATE_PERMISSION});
+        assertDevices(result.getAuthorizedDevices(), "owned-device", "owned-grouped-device", "operated-device",
+                      "shared-device");
+    }
+
+    @Test
+    public void testGroupPermissionWithoutGroups() throws DeviceAccessAuthorizationException {
+        DeviceAuthorizationResult result = assertSameAsPerDevice(USER, new String[]{UNKNOWN_PERMISSION});
+        assertDevices(result.getAuthorizedDevices(), "owned-device", "owned-grouped-device");
+    }
+
+    @Test
+    public void testAnonymousUserIsAuthorizedForOpenDeviceTypes() throws DeviceAccessAuthorizationException {
+        DeviceAuthorizationResult result = assertSameAsPerDevice(null, new String[]{VIEW_PERMISSION});
+        assertDevices(result.getAuthorizedDevices(), "operated-device", "other-group-device",
+                      "owned-grouped-device");
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+        if ("getGroupIds".equals(name) && args.length == 1) {
+            name = "getGroupIdsOfDevices";
+        }
+        Integer count = counts.get(name);
+        counts.put(name, count == null ? 1 : count + 1);
+        switch (name) {
+            case "getTenantUserRealm":
+                return stub(UserRealm.class);
+            case "getAuthorizationManager":
+                return stub(AuthorizationManager.class);
+            case "isUserAuthorized":
+                return ADMIN.equals(args[0]);
+            case "getGovernanceSystemRegistry":
+                return stub(Registry.class);
+            case "resourceExists":
+                return true;
+            case "isEnrolled":
+                return args[1].equals(owners.get(args[0]));
+            case "getEnrolledDevices":
+                List<DeviceIdentifier> enrolledDevices = new ArrayList<>();
+                for (Object deviceIdentifier : (List<?>) args[0]) {
+                    if (args[1].equals(owners.get(deviceIdentifier))) {
+                        enrolledDevices.add((DeviceIdentifier) deviceIdentifier);
+                    }
+                }
+                return enrolledDevices;
+            case "getGroupIdsOfDevices":
+                Map<DeviceIdentifier, List<Integer>> groupIds = new HashMap<>();
+                for (Object deviceIdentifier : (List<?>) args[0]) {
+                    if (deviceGroupIds.containsKey(deviceIdentifier)) {
+                        groupIds.put((DeviceIdentifier) deviceIdentifier, deviceGroupIds.get(deviceIdentifier));
+                    }
+                }
+                return groupIds;
+            case "getGroupIds":
+                List<Integer> permitted = permittedGroupIds.get(args[0] + (String) args[1]);
+                return permitted == null ? Collections.<Integer>emptyList() : permitted;
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            default:
+                throw new UnsupportedOperationException(name);
+        }
+    }
+
+    /**
+     * Authorizes the user for all the devices at once, and asserts that the result matches the authorization of
+     * each device on its own.
+     */
+    private DeviceAuthorizationResult assertSameAsPerDevice(String username, String[] groupPermissions)
+            throws DeviceAccessAuthorizationException {
+        DeviceAccessAuthorizationServiceImpl service = new DeviceAccessAuthorizationServiceImpl();
+        List<DeviceIdentifier> authorizedDevices = new ArrayList<>();
+        List<DeviceIdentifier> unauthorizedDevices = new ArrayList<>();
+        for (DeviceIdentifier deviceIdentifier : devices) {
+            if (service.isUserAuthorized(deviceIdentifier, username, groupPermissions)) {
+                authorizedDevices.add(deviceIdentifier);
+            } else {
+                unauthorizedDevices.add(deviceIdentifier);
+            }
+        }
+
+        counts.clear();
+        DeviceAuthorizationResult result = new DeviceAccessAuthorizationServiceImpl()
+                .isUserAuthorized(devices, username, groupPermissions);
+        Assert.assertEquals(new HashSet<>(result.getAuthorizedDevices()), new HashSet<>(authorizedDevices),
+                            "Authorized devices do not match the authorization of each device");
+        Assert.assertEquals(new HashSet<>(result.getUnauthorizedDevices()), new HashSet<>(unauthorizedDevices),
+                            "Unauthorized devices do not match the authorization of each device");
+        Assert.assertEquals(result.getAuthorizedDevices().size() + result.getUnauthorizedDevices().size(),
+                            devices.size(), "Devices are not reported once each");
+        return result;
+    }
+
+    private void assertDevices(List<DeviceIdentifier> deviceIdentifiers, String... ids) {
+        List<String> deviceIds = new ArrayList<>();
+        for (DeviceIdentifier deviceIdentifier : deviceIdentifiers) {
+            deviceIds.add(deviceIdentifier.getId());
+        }
+        Assert.assertEquals(new HashSet<>(deviceIds), new HashSet<>(Arrays.asList(ids)), "Authorized devices");
+    }
+
+    private void addDevice(String id, String type, String owner, Integer... groupIds) {
+        DeviceIdentifier deviceIdentifier = new DeviceIdentifier();
+        deviceIdentifier.setId(id);
+        deviceIdentifier.setType(type);
+        devices.add(deviceIdentifier);
+        owners.put(deviceIdentifier, owner);
+        if (groupIds.length > 0) {
+            deviceGroupIds.put(deviceIdentifier, Arrays.asList(groupIds));
+        }
+    }
+
+    private int getCount(String name) {
+        Integer count = counts.get(name);
+        return count == null ? 0 : count;
+    }
+
+    private <T> T stub(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, this));
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ExpiringLRUCacheTests {
+
+    private static final long EXPIRY_TIME = 60000;
+
+    @Test
+    public void testLeastRecentlyUsedValueIsEvicted() {
+        ExpiringLRUCache<String, Integer> cache = new ExpiringLRUCache<>(2, EXPIRY_TIME);
+        cache.put("first", 1);
+        cache.put("second", 2);
+        cache.get("first");
+        cache.put("third", 3);
+        Assert.assertEquals(cache.getSize(), 2, "Cache has grown beyond its capacity");
+        Assert.assertEquals(cache.getEvictionCount(), 1);
+        Assert.assertNull(cache.get("second"), "Least recently used value has not been evicted");
+        Assert.assertEquals(cache.get("first"), Integer.valueOf(1), "Recently used value has been evicted");
+        Assert.assertEquals(cache.get("third"), Integer.valueOf(3));
+        Assert.assertEquals(cache.getHitCount(), 3);
+        Assert.assertEquals(cache.getMissCount(), 1);
+    }
+
+    @Test
+    public void testExpiredValuesAreNotServed() {
+        ExpiringLRUCache<String, Integer> cache = new ExpiringLRUCache<>(10, EXPIRY_TIME);
+        cache.put("expired", 1, System.currentTimeMillis() - 1);
+        cache.put("valid", 2, Long.MAX_VALUE);
+        Assert.assertNull(cache.get("expired"), "Value is cached beyond its expiry time");
+        Assert.assertEquals(cache.get("valid"), Integer.valueOf(2));
+
+        cache.put("valid", 3, System.currentTimeMillis());
+        Assert.assertNull(cache.get("valid"), "Expired value has not replaced the cached value");
+
+        ExpiringLRUCache<String, Integer> expiringCache = new ExpiringLRUCache<>(10, 0);
+        expiringCache.put("value", 1);
+        Assert.assertNull(expiringCache.get("value"), "Value is cached beyond the expiry time of the cache");
+    }
+
+    @Test
+    public void testValuesAreRemoved() {
+        ExpiringLRUCache<String, Integer> cache = new ExpiringLRUCache<>(10, EXPIRY_TIME);
+        cache.put("1:first", 1);
+        cache.put("1:second", 2);
+        cache.put("2:first", 3);
+        cache.remove("1:first");
+        Assert.assertNull(cache.get("1:first"));
+        cache.removeAll(new ExpiringLRUCache.KeyFilter<String>() {
+            @Override
+            public boolean accept(String key) {
+                return key.startsWith("1:");
+            }
+        });
+        Assert.assertNull(cache.get("1:second"), "Value accepted by the filter has not been removed");
+        Assert.assertEquals(cache.get("2:first"), Integer.valueOf(3), "Value rejected by the filter is removed");
+        cache.clear();
+        Assert.assertEquals(cache.getSize(), 0);
+    }
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.cache.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class DeviceCacheManagerTests {
+
+    private static final int TENANT_ID = -1234;
+    private static final int EXPIRY_TIME = 60;
+    private static final int CAPACITY = 10;
+    private static final DeviceIdentifier DEVICE_IDENTIFIER = new DeviceIdentifier("1234", "android");
+    private static final DeviceIdentifier OTHER_DEVICE_IDENTIFIER = new DeviceIdentifier("5678", "android");
+
+    @Test
+    public void testCachedDevicesAreCopied() {
+        DeviceCacheManagerImpl cache = new DeviceCacheManagerImpl(true, EXPIRY_TIME, CAPACITY);
+        Device device = this.getDevice();
+        cache.addDeviceToCache(DEVICE_IDENTIFIER, device, TENANT_ID, cache.getVersion(DEVICE_IDENTIFIER, TENANT_ID));
+        device.getEnrolmentInfo().setStatus(EnrolmentInfo.Status.REMOVED);
+        device.getDeviceInfo().getDeviceDetailsMap().put("key", "value");
+
+        Device cachedDevice = cache.getDevice(DEVICE_IDENTIFIER, TENANT_ID);
+        Assert.assertNotNull(cachedDevice, "Device has not been cached");
+        Assert.assertEquals(cachedDevice.getEnrolmentInfo().getStatus(), EnrolmentInfo.Status.ACTIVE,
+                "Changes made to the added device are visible through the cache");
+        Assert.assertEquals(cachedDevice.getProperties().get(0).getValue(), "value");
+
+        cachedDevice.getEnrolmentInfo().setStatus(EnrolmentInfo.Status.BLOCKED);
+        cachedDevice.getProperties().clear();
+        cachedDevice.getDeviceInfo().getLocation().getUpdatedTime().setTime(0);
+        Device otherCachedDevice = cache.getDevice(DEVICE_IDENTIFIER, TENANT_ID);
+        Assert.assertNotSame(otherCachedDevice, cachedDevice, "Cached device instance is shared between readers");
+        Assert.assertEquals(otherCachedDevice.getEnrolmentInfo().getStatus(), EnrolmentInfo.Status.ACTIVE,
+                "Changes made to a device read from the cache are visible to other readers");
+        Assert.assertEquals(otherCachedDevice.getProperties().size(), 1);
+        Assert.assertTrue(otherCachedDevice.getDeviceInfo().getDeviceDetailsMap().isEmpty(),
+                "Changes made to the device information of the added device are visible through the cache");
+        Assert.assertEquals(otherCachedDevice.getDeviceInfo().getLocation().getUpdatedTime().getTime(), 1000L,
+                "Changes made to the location of a device read from the cache are visible to other readers");
+    }
+
+    @Test
+    public void testStaleDevicesAreNotCached() {
+        DeviceCacheManagerImpl cache = new DeviceCacheManagerImpl(true, EXPIRY_TIME, CAPACITY);
+        long version = cache.getVersion(DEVICE_IDENTIFIER, TENANT_ID);
+        cache.removeDeviceFromCache(DEVICE_IDENTIFIER, TENANT_ID);
+        cache.addDeviceToCache(DEVICE_IDENTIFIER, this.getDevice(), TENANT_ID, version);
+        Assert.assertNull(cache.getDevice(DEVICE_IDENTIFIER, TENANT_ID),
+                "Device loaded before an invalidation has been cached");
+
+        cache.addDeviceToCache(DEVICE_IDENTIFIER, this.getDevice(), TENANT_ID, cache.getVersion(DEVICE_IDENTIFIER, TENANT_ID));
+        cache.removeDeviceFromCache(DEVICE_IDENTIFIER, TENANT_ID);
+        Assert.assertNull(cache.getDevice(DEVICE_IDENTIFIER, TENANT_ID), "Removed device is still served");
+    }
+
+    @Test
+    public void testDevicesAreVersionedIndependently() {
+        DeviceCacheManagerImpl cache = new DeviceCacheManagerImpl(true, EXPIRY_TIME, CAPACITY);
+        long version = cache.getVersion(DEVICE_IDENTIFIER, TENANT_ID);
+        cache.removeDeviceFromCache(OTHER_DEVICE_IDENTIFIER, TENANT_ID);
+        cache.removeDeviceFromCache(DEVICE_IDENTIFIER, TENANT_ID + 1);
+        cache.addDeviceToCache(DEVICE_IDENTIFIER, this.getDevice(), TENANT_ID, version);
+        Assert.assertNotNull(cache.getDevice(DEVICE_IDENTIFIER, TENANT_ID),
+                "Removing another device prevented the device from being cached");
+
+        version = cache.getVersion(DEVICE_IDENTIFIER, TENANT_ID);
+        cache.removeDevicesFromCache(TENANT_ID);
+        cache.addDeviceToCache(DEVICE_IDENTIFIER, this.getDevice(), TENANT_ID, version);
+        Assert.assertNull(cache.getDevice(DEVICE_IDENTIFIER, TENANT_ID),
+                "Device loaded before the devices of the tenant were removed has been cached");
+    }
+
+    @Test
+    public void testDisabledCache() {
+        DeviceCacheManagerImpl cache = new DeviceCacheManagerImpl(false, EXPIRY_TIME, CAPACITY);
+        cache.addDeviceToCache(DEVICE_IDENTIFIER, this.getDevice(), TENANT_ID, cache.getVersion(DEVICE_IDENTIFIER, TENANT_ID));
+        Assert.assertNull(cache.getDevice(DEVICE_IDENTIFIER, TENANT_ID), "Device is served while the cache is disabled");
+    }
+
+    private Device getDevice() {
+        EnrolmentInfo enrolmentInfo = new EnrolmentInfo();
+        enrolmentInfo.setId(1);
+        enrolmentInfo.setOwner("admin");
+        enrolmentInfo.setOwnership(EnrolmentInfo.OwnerShip.BYOD);
+        enrolmentInfo.setStatus(EnrolmentInfo.Status.ACTIVE);
+        Device.Property property = new Device.Property();
+        property.setName("name");
+        property.setValue("value");
+        List<Device.Property> properties = new ArrayList<>();
+        properties.add(property);
+        Device device = new Device();
+        device.setId(1);
+        device.setType(DEVICE_IDENTIFIER.getType());
+        device.setDeviceIdentifier(DEVICE_IDENTIFIER.getId());
+        device.setEnrolmentInfo(enrolmentInfo);
+        device.setProperties(properties);
+        DeviceLocation location = new DeviceLocation();
+        location.setUpdatedTime(new Date(1000));
+        DeviceInfo deviceInfo = new DeviceInfo();
+        deviceInfo.setLocation(location);
+        device.setDeviceInfo(deviceInfo);
+        return device;
+    }
+
+}
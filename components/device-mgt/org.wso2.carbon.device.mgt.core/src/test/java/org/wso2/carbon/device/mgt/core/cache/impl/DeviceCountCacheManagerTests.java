@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.cache.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.PaginationRequest;
+
+public class DeviceCountCacheManagerTests {
+
+    private static final int TENANT_ID = -1234;
+    private static final int OTHER_TENANT_ID = 1;
+    private static final int EXPIRY_TIME = 60;
+    private static final int CAPACITY = 2;
+
+    @Test
+    public void testCountsAreKeyedByFilters() {
+        DeviceCountCacheManagerImpl cache = new DeviceCountCacheManagerImpl(true, EXPIRY_TIME, CAPACITY);
+        cache.addDeviceCount(this.getRequest(0, "android"), TENANT_ID, 10);
+        Assert.assertEquals(cache.getDeviceCount(this.getRequest(20, "android"), TENANT_ID), Integer.valueOf(10),
+                "Count is not served for another page of the same filters");
+        Assert.assertNull(cache.getDeviceCount(this.getRequest(0, "ios"), TENANT_ID),
+                "Count is served for different filters");
+        Assert.assertNull(cache.getDeviceCount(this.getRequest(0, "android"), OTHER_TENANT_ID),
+                "Count is served for another tenant");
+    }
+
+    @Test
+    public void testCountsOfTenantAreRemoved() {
+        DeviceCountCacheManagerImpl cache = new DeviceCountCacheManagerImpl(true, EXPIRY_TIME, CAPACITY);
+        cache.addDeviceCount(this.getRequest(0, "android"), TENANT_ID, 10);
+        cache.addDeviceCount(this.getRequest(0, "android"), OTHER_TENANT_ID, 5);
+        cache.removeDeviceCounts(TENANT_ID);
+        Assert.assertNull(cache.getDeviceCount(this.getRequest(0, "android"), TENANT_ID),
+                "Removed count is still served");
+        Assert.assertEquals(cache.getDeviceCount(this.getRequest(0, "android"), OTHER_TENANT_ID), Integer.valueOf(5),
+                "Count of another tenant is removed");
+    }
+
+    @Test
+    public void testCapacity() {
+        DeviceCountCacheManagerImpl cache = new DeviceCountCacheManagerImpl(true, EXPIRY_TIME, CAPACITY);
+        cache.addDeviceCount(this.getRequest(0, "android"), TENANT_ID, 1);
+        cache.addDeviceCount(this.getRequest(0, "ios"), TENANT_ID, 2);
+        cache.addDeviceCount(this.getRequest(0, "windows"), TENANT_ID, 3);
+        Assert.assertNull(cache.getDeviceCount(this.getRequest(0, "android"), TENANT_ID),
+                "Cache has grown beyond its capacity");
+        Assert.assertNotNull(cache.getDeviceCount(this.getRequest(0, "windows"), TENANT_ID));
+    }
+
+    @Test
+    public void testDisabledCache() {
+        DeviceCountCacheManagerImpl cache = new DeviceCountCacheManagerImpl(false, EXPIRY_TIME, CAPACITY);
+        cache.addDeviceCount(this.getRequest(0, "android"), TENANT_ID, 10);
+        Assert.assertNull(cache.getDeviceCount(this.getRequest(0, "android"), TENANT_ID),
+                "Count is served while the cache is disabled");
+    }
+
+    private PaginationRequest getRequest(int start, String deviceType) {
+        PaginationRequest request = new PaginationRequest(start, 20);
+        request.setDeviceType(deviceType);
+        return request;
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.cache.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.CommandOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class PendingOperationCacheManagerTests {
+
+    private static final int ENROLMENT_ID = 1;
+    private static final int EXPIRY_TIME = 60;
+    private static final int CAPACITY = 2;
+
+    @Test
+    public void testPendingOperationOrder() {
+        PendingOperationCacheManagerImpl cache = new PendingOperationCacheManagerImpl(true, EXPIRY_TIME, CAPACITY);
+        Assert.assertNull(cache.getPendingOperations(ENROLMENT_ID), "Enrolment is cached before being loaded");
+
+        cache.addPendingOperations(ENROLMENT_ID, this.getOperations(1, 2), cache.getVersion(ENROLMENT_ID));
+        cache.addPendingOperation(Collections.singletonList(ENROLMENT_ID), this.getOperation(3, "LOCK"));
+        this.assertOperationIds(cache.getPendingOperations(ENROLMENT_ID), 1, 2, 3);
+
+        cache.removePendingOperation(ENROLMENT_ID, 1);
+        this.assertOperationIds(cache.getPendingOperations(ENROLMENT_ID), 2, 3);
+
+        cache.removePendingOperations(Collections.singletonList(ENROLMENT_ID), "LOCK");
+        this.assertOperationIds(cache.getPendingOperations(ENROLMENT_ID), 2);
+
+        cache.removePendingOperation(2);
+        Assert.assertTrue(cache.getPendingOperations(ENROLMENT_ID).isEmpty(),
+                "Completed operations are still served from the cache");
+    }
+
+    @Test
+    public void testStaleLoadIsDiscarded() {
+        PendingOperationCacheManagerImpl cache = new PendingOperationCacheManagerImpl(true, EXPIRY_TIME, CAPACITY);
+        long version = cache.getVersion(ENROLMENT_ID);
+        cache.addPendingOperation(Collections.singletonList(ENROLMENT_ID), this.getOperation(3, "LOCK"));
+        cache.addPendingOperations(ENROLMENT_ID, this.getOperations(1, 2), version);
+        Assert.assertNull(cache.getPendingOperations(ENROLMENT_ID),
+                "Operations loaded before a concurrent modification are cached");
+    }
+
+    @Test
+    public void testOperationsOfUncachedEnrolmentsAreNotAdded() {
+        PendingOperationCacheManagerImpl cache = new PendingOperationCacheManagerImpl(true, EXPIRY_TIME, CAPACITY);
+        cache.addPendingOperation(Collections.singletonList(ENROLMENT_ID), this.getOperation(3, "LOCK"));
+        Assert.assertNull(cache.getPendingOperations(ENROLMENT_ID),
+                "Incomplete pending operation list is cached for an enrolment that has not been loaded");
+    }
+
+    @Test
+    public void testOperationIsCopiedPerEnrolment() {
+        PendingOperationCacheManagerImpl cache = new PendingOperationCacheManagerImpl(true, EXPIRY_TIME, CAPACITY);
+        int otherEnrolmentId = ENROLMENT_ID + 1;
+        cache.addPendingOperations(ENROLMENT_ID, this.getOperations(1), cache.getVersion(ENROLMENT_ID));
+        cache.addPendingOperations(otherEnrolmentId, this.getOperations(1), cache.getVersion(otherEnrolmentId));
+        Operation operation = this.getOperation(2, "LOCK");
+        cache.addPendingOperation(Arrays.asList(ENROLMENT_ID, otherEnrolmentId), operation);
+        operation.setStatus(Operation.Status.COMPLETED);
+
+        Operation cachedOperation = cache.getPendingOperations(ENROLMENT_ID).get(1);
+        Operation otherCachedOperation = cache.getPendingOperations(otherEnrolmentId).get(1);
+        Assert.assertNotSame(cachedOperation, otherCachedOperation, "Operation is shared between enrolments");
+        Assert.assertEquals(cachedOperation.getStatus(), Operation.Status.PENDING,
+                "Changes made to the added operation are visible through the cache");
+        cachedOperation.setStatus(Operation.Status.COMPLETED);
+        Assert.assertEquals(otherCachedOperation.getStatus(), Operation.Status.PENDING,
+                "Changes made to the operation of an enrolment are visible through other enrolments");
+    }
+
+    @Test
+    public void testCapacity() {
+        PendingOperationCacheManagerImpl cache = new PendingOperationCacheManagerImpl(true, EXPIRY_TIME, CAPACITY);
+        for (int enrolmentId = 1; enrolmentId <= CAPACITY + 1; enrolmentId++) {
+            cache.addPendingOperations(enrolmentId, this.getOperations(1), cache.getVersion(enrolmentId));
+        }
+        Assert.assertNotNull(cache.getPendingOperations(CAPACITY));
+        Assert.assertNull(cache.getPendingOperations(CAPACITY + 1), "Cache has grown beyond its capacity");
+    }
+
+    @Test
+    public void testDisabledCache() {
+        PendingOperationCacheManagerImpl cache = new PendingOperationCacheManagerImpl(false, EXPIRY_TIME, CAPACITY);
+        cache.addPendingOperations(ENROLMENT_ID, this.getOperations(1), cache.getVersion(ENROLMENT_ID));
+        Assert.assertNull(cache.getPendingOperations(ENROLMENT_ID), "Operations are cached while disabled");
+    }
+
+    private List<Operation> getOperations(int... operationIds) {
+        List<Operation> operations = new ArrayList<>();
+        for (int operationId : operationIds) {
+            operations.add(this.getOperation(operationId, "OPERATION_" + operationId));
+        }
+        return operations;
+    }
+
+    private Operation getOperation(int operationId, String code) {
+        Operation operation = new CommandOperation();
+        operation.setId(operationId);
+        operation.setCode(code);
+        operation.setType(Operation.Type.COMMAND);
+        operation.setStatus(Operation.Status.PENDING);
+        return operation;
+    }
+
+    private void assertOperationIds(List<Operation> operations, int... operationIds) {
+        Assert.assertNotNull(operations, "Pending operations are not cached");
+        Assert.assertEquals(operations.size(), operationIds.length);
+        for (int i = 0; i < operationIds.length; i++) {
+            Assert.assertEquals(operations.get(i).getId(), operationIds[i]);
+        }
+    }
+
+}
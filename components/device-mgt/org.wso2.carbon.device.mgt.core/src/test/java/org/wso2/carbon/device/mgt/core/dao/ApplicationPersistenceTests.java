@@ -28,6 +28,9 @@ import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
 import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
 
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 public class ApplicationPersistenceTests extends BaseDeviceManagementTest {
 
@@ -61,6 +64,24 @@ public class ApplicationPersistenceTests extends BaseDeviceManagementTest {
                 "retrieved");
     }
 
+    @Test
+    public void testGetInstalledApplicationsOfDevices() {
+        Map<Integer, List<Application>> applications = null;
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            applications = applicationDAO.getInstalledApplications(Arrays.asList(-1, -2));
+        } catch (DeviceManagementDAOException | SQLException e) {
+            String msg = "Error occurred while retrieving the applications installed in devices";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertNotNull(applications, "Installed applications are not retrieved");
+        Assert.assertTrue(applications.isEmpty(), "Applications are retrieved for devices without any installed " +
+                "applications");
+    }
+
     private Application getApplication(String appIdentifier, int tenantId) throws DeviceManagementDAOException {
         Application application = null;
         try {
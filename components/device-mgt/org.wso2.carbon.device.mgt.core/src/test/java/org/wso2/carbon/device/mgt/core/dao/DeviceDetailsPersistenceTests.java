@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.dao;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.app.mgt.Application;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.core.TestUtils;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tests the retrieval of the information, locations and installed applications of many devices at once against
+ * seeded devices. The first device has all of them, the second has its information and a single application, and
+ * the third has none.
+ */
+public class DeviceDetailsPersistenceTests extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "device-details";
+    private static final int DEVICE_COUNT = 3;
+
+    private DeviceDetailsDAO deviceDetailsDAO = DeviceManagementDAOFactory.getDeviceDetailsDAO();
+    private ApplicationDAO applicationDAO = DeviceManagementDAOFactory.getApplicationDAO();
+    private List<Integer> deviceIds;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+
+        this.executeUpdate("INSERT INTO DM_DEVICE_TYPE (NAME, PROVIDER_TENANT_ID) VALUES ('" + DEVICE_TYPE + "', ?)",
+                TestDataHolder.SUPER_TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE (DESCRIPTION, NAME, DEVICE_TYPE_ID, DEVICE_IDENTIFICATION, " +
+                "LAST_UPDATED_TIMESTAMP, TENANT_ID) SELECT 'Device details device', CONCAT('details-device-', X), " +
+                "(SELECT MAX(ID) FROM DM_DEVICE_TYPE WHERE NAME = '" + DEVICE_TYPE + "'), " +
+                "CONCAT('" + DEVICE_TYPE + "-', X), CURRENT_TIMESTAMP(), ? FROM SYSTEM_RANGE(1, ?)",
+                TestDataHolder.SUPER_TENANT_ID, DEVICE_COUNT);
+        deviceIds = this.getDeviceIds();
+        Assert.assertEquals(deviceIds.size(), DEVICE_COUNT);
+
+        for (int i = 0; i < 2; i++) {
+            this.executeUpdate("INSERT INTO DM_DEVICE_DETAIL (DEVICE_ID, DEVICE_MODEL, VENDOR, OS_VERSION, " +
+                    "BATTERY_LEVEL, CONNECTION_TYPE, SSID, PLUGGED_IN, UPDATE_TIMESTAMP) VALUES (?, " +
+                    "CONCAT('model-', ?), 'vendor', '7.0', ?, 'WIFI', 'ssid', 1, 0)",
+                    deviceIds.get(i), i, (i + 1) * 10);
+        }
+        this.executeUpdate("INSERT INTO DM_DEVICE_LOCATION (DEVICE_ID, LATITUDE, LONGITUDE, CITY, COUNTRY, " +
+                "UPDATE_TIMESTAMP) VALUES (?, 6.9, 79.8, 'Colombo', 'Sri Lanka', 0)", deviceIds.get(0));
+        this.executeUpdate("INSERT INTO DM_APPLICATION (NAME, APP_IDENTIFIER, PLATFORM, TYPE, IS_ACTIVE, " +
+                "TENANT_ID) SELECT CONCAT('Application ', X), CONCAT('" + DEVICE_TYPE + "-app-', X), 'android', " +
+                "'Enterprise', TRUE, ? FROM SYSTEM_RANGE(1, 2)", TestDataHolder.SUPER_TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE_APPLICATION_MAPPING (DEVICE_ID, APPLICATION_ID, TENANT_ID) " +
+                "SELECT ?, ID, TENANT_ID FROM DM_APPLICATION WHERE APP_IDENTIFIER LIKE '" + DEVICE_TYPE + "-app-%'",
+                deviceIds.get(0));
+        this.executeUpdate("INSERT INTO DM_DEVICE_APPLICATION_MAPPING (DEVICE_ID, APPLICATION_ID, TENANT_ID) " +
+                "SELECT ?, ID, TENANT_ID FROM DM_APPLICATION WHERE APP_IDENTIFIER = '" + DEVICE_TYPE + "-app-2'",
+                deviceIds.get(1));
+    }
+
+    @AfterClass
+    public void cleanup() throws Exception {
+        String devices = "SELECT ID FROM DM_DEVICE WHERE DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%'";
+        this.executeUpdate("DELETE FROM DM_DEVICE_APPLICATION_MAPPING WHERE DEVICE_ID IN (" + devices + ")");
+        this.executeUpdate("DELETE FROM DM_APPLICATION WHERE APP_IDENTIFIER LIKE '" + DEVICE_TYPE + "-app-%'");
+        this.executeUpdate("DELETE FROM DM_DEVICE_LOCATION WHERE DEVICE_ID IN (" + devices + ")");
+        this.executeUpdate("DELETE FROM DM_DEVICE_DETAIL WHERE DEVICE_ID IN (" + devices + ")");
+        this.executeUpdate("DELETE FROM DM_DEVICE WHERE DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%'");
+        this.executeUpdate("DELETE FROM DM_DEVICE_TYPE WHERE NAME = '" + DEVICE_TYPE + "'");
+    }
+
+    @Test
+    public void testGetDevicesInformation() throws Exception {
+        Map<Integer, DeviceInfo> deviceInfos;
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            deviceInfos = deviceDetailsDAO.getDevicesInformation(deviceIds);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(deviceInfos.keySet(), new HashSet<>(deviceIds.subList(0, 2)),
+                "Information is not retrieved for exactly the devices having it");
+        for (int i = 0; i < 2; i++) {
+            DeviceInfo deviceInfo = deviceInfos.get(deviceIds.get(i));
+            Assert.assertEquals(deviceInfo.getDeviceModel(), "model-" + i,
+                    "Information of another device is retrieved for device " + deviceIds.get(i));
+            Assert.assertEquals(deviceInfo.getBatteryLevel(), Double.valueOf((i + 1) * 10));
+        }
+    }
+
+    @Test
+    public void testGetDeviceLocations() throws Exception {
+        Map<Integer, DeviceLocation> locations;
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            locations = deviceDetailsDAO.getDeviceLocations(deviceIds);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(locations.keySet(), Collections.singleton(deviceIds.get(0)),
+                "Locations are not retrieved for exactly the devices having one");
+        DeviceLocation location = locations.get(deviceIds.get(0));
+        Assert.assertEquals(location.getDeviceId(), (int) deviceIds.get(0));
+        Assert.assertEquals(location.getCity(), "Colombo");
+        Assert.assertEquals(location.getCountry(), "Sri Lanka");
+    }
+
+    @Test
+    public void testGetInstalledApplications() throws Exception {
+        Map<Integer, List<Application>> applications;
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            applications = applicationDAO.getInstalledApplications(deviceIds);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(applications.keySet(), new HashSet<>(deviceIds.subList(0, 2)),
+                "Applications are not retrieved for exactly the devices having them installed");
+        Assert.assertEquals(this.getApplicationIdentifiers(applications.get(deviceIds.get(0))),
+                new HashSet<>(Arrays.asList(DEVICE_TYPE + "-app-1", DEVICE_TYPE + "-app-2")));
+        Assert.assertEquals(this.getApplicationIdentifiers(applications.get(deviceIds.get(1))),
+                Collections.singleton(DEVICE_TYPE + "-app-2"));
+    }
+
+    @Test
+    public void testOnlyRequestedDevicesAreRetrieved() throws Exception {
+        List<Integer> requestedIds = Collections.singletonList(deviceIds.get(1));
+        Map<Integer, DeviceInfo> deviceInfos;
+        Map<Integer, DeviceLocation> locations;
+        Map<Integer, List<Application>> applications;
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            deviceInfos = deviceDetailsDAO.getDevicesInformation(requestedIds);
+            locations = deviceDetailsDAO.getDeviceLocations(requestedIds);
+            applications = applicationDAO.getInstalledApplications(requestedIds);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(deviceInfos.keySet(), new HashSet<>(requestedIds));
+        Assert.assertTrue(locations.isEmpty(), "Locations of devices not requested are retrieved");
+        Assert.assertEquals(applications.keySet(), new HashSet<>(requestedIds));
+        Assert.assertEquals(applications.get(deviceIds.get(1)).size(), 1,
+                "Applications of devices not requested are retrieved");
+    }
+
+    private Set<String> getApplicationIdentifiers(List<Application> applications) {
+        Set<String> identifiers = new HashSet<>();
+        for (Application application : applications) {
+            identifiers.add(application.getApplicationIdentifier());
+        }
+        return identifiers;
+    }
+
+    private List<Integer> getDeviceIds() throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        List<Integer> ids = new ArrayList<>();
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("SELECT ID FROM DM_DEVICE WHERE DEVICE_IDENTIFICATION LIKE '" +
+                    DEVICE_TYPE + "-%' ORDER BY DEVICE_IDENTIFICATION");
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt("ID"));
+            }
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+        return ids;
+    }
+
+    private void executeUpdate(String sql, int... parameters) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setInt(i + 1, parameters[i]);
+            }
+            stmt.executeUpdate();
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, null);
+        }
+    }
+
+}
@@ -25,7 +25,9 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
 import org.wso2.carbon.device.mgt.common.EnrolmentInfo.Status;
+import org.wso2.carbon.device.mgt.common.PaginationRequest;
 import org.wso2.carbon.device.mgt.common.TransactionManagementException;
 import org.wso2.carbon.device.mgt.core.TestUtils;
 import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
@@ -33,6 +35,10 @@ import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
 import org.wso2.carbon.device.mgt.core.dto.DeviceType;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 public class DevicePersistTests extends BaseDeviceManagementTest {
 
@@ -208,6 +214,324 @@ public class DevicePersistTests extends BaseDeviceManagementTest {
         Assert.assertEquals(target, Status.ACTIVE, "Enrolment status retrieved is not as same as what's configured");
     }
 
+    @Test(dependsOnMethods = "testSetEnrolmentStatus")
+    public void testGetMatchingEnrolments() {
+        Device device = TestDataHolder.initialTestDevice;
+        Map<String, EnrolmentInfo> enrolments = null;
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            enrolments = deviceDAO.getMatchingEnrolments(device.getType(),
+                    Arrays.asList(device.getDeviceIdentifier(), "non-existing-device"), TestDataHolder.SUPER_TENANT_ID);
+        } catch (DeviceManagementDAOException | SQLException e) {
+            String msg = "Error occurred while retrieving the enrolments of the devices";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertNotNull(enrolments, "Enrolments retrieved for the given devices are null");
+        Assert.assertEquals(enrolments.size(), 1, "Enrolments are retrieved for non existing devices");
+        EnrolmentInfo enrolmentInfo = enrolments.get(device.getDeviceIdentifier());
+        Assert.assertNotNull(enrolmentInfo, "Enrolment retrieved for the device carrying its identifier as '" +
+                device.getDeviceIdentifier() + "' is null");
+    }
+
+    @Test(dependsOnMethods = "testAddDeviceTypeTest")
+    public void testGetMatchingEnrolmentsOfReEnrolledDevices() {
+        String type = "re-enrolled-test-type";
+        int tenantId = TestDataHolder.SUPER_TENANT_ID;
+        // Enrolment statuses of each device, from the oldest enrolment to the latest one
+        Status[][] enrolmentStatuses = {
+                {Status.ACTIVE, Status.REMOVED},
+                {Status.REMOVED, Status.REMOVED},
+                {Status.BLOCKED, Status.INACTIVE, Status.INACTIVE}};
+        int[][] enrolmentIds = new int[enrolmentStatuses.length][];
+        List<String> deviceIdentifications = new ArrayList<>();
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(TestDataHolder.generateDeviceTypeData(type), tenantId, true);
+            DeviceManagementDAOFactory.commitTransaction();
+        } catch (DeviceManagementDAOException | TransactionManagementException e) {
+            DeviceManagementDAOFactory.rollbackTransaction();
+            String msg = "Error occurred while adding device type '" + type + "'";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+
+        Map<String, EnrolmentInfo> enrolments = null;
+        try {
+            int typeId = this.getDeviceTypeId(type);
+            DeviceManagementDAOFactory.beginTransaction();
+            for (int i = 0; i < enrolmentStatuses.length; i++) {
+                Device device = TestDataHolder.generateDummyDeviceData(type);
+                device.setDeviceIdentifier("re-enrolled-device-" + i);
+                device.setId(deviceDAO.addDevice(typeId, device, tenantId));
+                deviceIdentifications.add(device.getDeviceIdentifier());
+                enrolmentIds[i] = new int[enrolmentStatuses[i].length];
+                for (int j = 0; j < enrolmentStatuses[i].length; j++) {
+                    device.getEnrolmentInfo().setStatus(enrolmentStatuses[i][j]);
+                    enrolmentIds[i][j] = deviceDAO.addEnrollment(device, tenantId);
+                }
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+            DeviceManagementDAOFactory.closeConnection();
+
+            DeviceManagementDAOFactory.openConnection();
+            enrolments = deviceDAO.getMatchingEnrolments(type, deviceIdentifications, tenantId);
+        } catch (DeviceManagementDAOException | TransactionManagementException | SQLException e) {
+            DeviceManagementDAOFactory.rollbackTransaction();
+            String msg = "Error occurred while retrieving the enrolments of re-enrolled devices";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(enrolments.size(), enrolmentStatuses.length, "A single enrolment is not retrieved " +
+                "for each device");
+        Assert.assertEquals(enrolments.get(deviceIdentifications.get(0)).getId(), enrolmentIds[0][0],
+                "Active enrolment is not preferred over a later removed one");
+        Assert.assertEquals(enrolments.get(deviceIdentifications.get(1)).getId(), enrolmentIds[1][1],
+                "Latest enrolment is not picked out of enrolments having the same status");
+        Assert.assertEquals(enrolments.get(deviceIdentifications.get(2)).getId(), enrolmentIds[2][2],
+                "Latest inactive enrolment is not picked");
+        Assert.assertEquals(enrolments.get(deviceIdentifications.get(2)).getStatus(), Status.INACTIVE);
+    }
+
+    @Test(dependsOnMethods = "testAddDeviceTest")
+    public void testGetDeviceIds() {
+        Device device = TestDataHolder.initialTestDevice;
+        Map<String, Map<String, Integer>> deviceIds = null;
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            deviceIds = deviceDAO.getDeviceIds(Arrays.asList(
+                    new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()),
+                    new DeviceIdentifier("non-existing-device", device.getType()),
+                    new DeviceIdentifier(device.getDeviceIdentifier(), "non-existing-type")),
+                    TestDataHolder.SUPER_TENANT_ID);
+        } catch (DeviceManagementDAOException | SQLException e) {
+            String msg = "Error occurred while retrieving the ids of the devices";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertNotNull(deviceIds, "Ids retrieved for the given devices are null");
+        Assert.assertEquals(deviceIds.size(), 1, "Ids are retrieved for non existing device types");
+        Map<String, Integer> idsOfType = deviceIds.get(device.getType());
+        Assert.assertNotNull(idsOfType, "No ids are retrieved for the devices of type '" + device.getType() + "'");
+        Assert.assertEquals(idsOfType.size(), 1, "Ids are retrieved for non existing devices");
+        Assert.assertEquals(idsOfType.get(device.getDeviceIdentifier()).intValue(), device.getId(),
+                "Retrieved id does not match the id of the device");
+    }
+
+    @Test(dependsOnMethods = "testGetMatchingEnrolments")
+    public void testActivateEnrolments() throws DeviceManagementDAOException {
+        Device device = TestDataHolder.initialTestDevice;
+        this.setEnrolmentStatus(device, Status.UNREACHABLE);
+        this.activateEnrolment(device);
+        Assert.assertEquals(this.getEnrolmentStatus(device.getDeviceIdentifier(), device.getType(),
+                TestDataHolder.SUPER_TENANT_ID), Status.ACTIVE, "Unreachable enrolment is not activated");
+
+        this.setEnrolmentStatus(device, Status.SUSPENDED);
+        this.activateEnrolment(device);
+        Assert.assertEquals(this.getEnrolmentStatus(device.getDeviceIdentifier(), device.getType(),
+                TestDataHolder.SUPER_TENANT_ID), Status.SUSPENDED, "Suspended enrolment is activated");
+        this.setEnrolmentStatus(device, Status.ACTIVE);
+    }
+
+    @Test(dependsOnMethods = "testAddDeviceTypeTest")
+    public void testGetDevicesInChunks() throws DeviceManagementDAOException {
+        String type = "chunked-test-type";
+        int tenantId = TestDataHolder.SUPER_TENANT_ID;
+        int[] deviceIds = new int[3];
+        int[] enrolmentIds = new int[3];
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(TestDataHolder.generateDeviceTypeData(type), tenantId, true);
+            DeviceManagementDAOFactory.commitTransaction();
+        } catch (DeviceManagementDAOException e) {
+            DeviceManagementDAOFactory.rollbackTransaction();
+            String msg = "Error occurred while adding device type '" + type + "'";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } catch (TransactionManagementException e) {
+            String msg = "Error occurred while initiating transaction";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+
+        int typeId = this.getDeviceTypeId(type);
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            for (int i = 0; i < deviceIds.length; i++) {
+                Device device = TestDataHolder.generateDummyDeviceData(type);
+                device.setDeviceIdentifier("chunked-device-" + i);
+                if (i == 1) {
+                    device.getEnrolmentInfo().setStatus(Status.BLOCKED);
+                }
+                deviceIds[i] = deviceDAO.addDevice(typeId, device, tenantId);
+                device.setId(deviceIds[i]);
+                enrolmentIds[i] = deviceDAO.addEnrollment(device, tenantId);
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } catch (DeviceManagementDAOException e) {
+            DeviceManagementDAOFactory.rollbackTransaction();
+            String msg = "Error occurred while adding '" + type + "' devices";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } catch (TransactionManagementException e) {
+            String msg = "Error occurred while initiating transaction";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+
+        List<Status> statuses = Arrays.asList(Status.CREATED, Status.ACTIVE);
+        List<Device> firstChunk = null;
+        List<Device> secondChunk = null;
+        List<Device> lastChunk = null;
+        List<Device> filteredChunk = null;
+        List<Device> lastFilteredChunk = null;
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            firstChunk = deviceDAO.getDevices(type, null, 0, 0, 2, tenantId);
+            secondChunk = deviceDAO.getDevices(type, null, deviceIds[1], enrolmentIds[1], 2, tenantId);
+            lastChunk = deviceDAO.getDevices(type, null, deviceIds[2], enrolmentIds[2], 2, tenantId);
+            filteredChunk = deviceDAO.getDevices(type, statuses, 0, 0, 2, tenantId);
+            lastFilteredChunk = deviceDAO.getDevices(type, statuses, deviceIds[2], enrolmentIds[2], 2, tenantId);
+        } catch (DeviceManagementDAOException | SQLException e) {
+            String msg = "Error occurred while retrieving the devices in chunks";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(this.getDeviceIds(firstChunk), Arrays.asList(deviceIds[0], deviceIds[1]),
+                "First chunk does not contain the first two devices");
+        Assert.assertEquals(this.getDeviceIds(secondChunk), Arrays.asList(deviceIds[2]),
+                "Second chunk does not resume after the last device of the first chunk");
+        Assert.assertEquals(secondChunk.get(0).getEnrolmentInfo().getId(), enrolmentIds[2],
+                "Enrolment of the device is not retrieved");
+        Assert.assertTrue(lastChunk.isEmpty(), "Devices are retrieved after the last device");
+        Assert.assertEquals(this.getDeviceIds(filteredChunk), Arrays.asList(deviceIds[0], deviceIds[2]),
+                "Devices are not filtered by the enrolment status");
+        Assert.assertTrue(lastFilteredChunk.isEmpty(), "Devices are retrieved after the last matching device");
+    }
+
+    private List<Integer> getDeviceIds(List<Device> devices) {
+        List<Integer> ids = new ArrayList<>();
+        for (Device device : devices) {
+            ids.add(device.getId());
+        }
+        return ids;
+    }
+
+    @Test(dependsOnMethods = "testAddDeviceTest")
+    public void testGetDevicesWithContinuation() {
+        Device device = TestDataHolder.initialTestDevice;
+        PaginationRequest request = new PaginationRequest(0, 1);
+        request.setDeviceType(device.getType());
+        List<Device> firstPage = null;
+        List<Device> nextPage = null;
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            firstPage = deviceDAO.getDevices(request, 0, 0, TestDataHolder.SUPER_TENANT_ID);
+            Device lastDevice = firstPage.get(firstPage.size() - 1);
+            nextPage = deviceDAO.getDevices(request, lastDevice.getId(), lastDevice.getEnrolmentInfo().getId(),
+                    TestDataHolder.SUPER_TENANT_ID);
+        } catch (DeviceManagementDAOException | SQLException e) {
+            String msg = "Error occurred while retrieving the devices page by page";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertEquals(firstPage.size(), 1, "Row count is not honoured while retrieving the devices");
+        Assert.assertEquals(firstPage.get(0).getType(), device.getType(), "Device type filter is not applied");
+        for (Device nextDevice : nextPage) {
+            Assert.assertTrue(nextDevice.getId() > firstPage.get(0).getId() ||
+                    nextDevice.getEnrolmentInfo().getId() > firstPage.get(0).getEnrolmentInfo().getId(),
+                    "Devices of the previous page are retrieved again");
+        }
+    }
+
+    @Test(dependsOnMethods = "testGetMatchingEnrolments")
+    public void testPushTokens() {
+        Device device = TestDataHolder.initialTestDevice;
+        PushTokenDAO pushTokenDAO = DeviceManagementDAOFactory.getPushTokenDAO();
+        int enrolmentId = -1;
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            enrolmentId = deviceDAO.getMatchingEnrolments(device.getType(),
+                    Arrays.asList(device.getDeviceIdentifier()), TestDataHolder.SUPER_TENANT_ID).
+                    get(device.getDeviceIdentifier()).getId();
+            pushTokenDAO.updatePushToken(enrolmentId, "initial-token", TestDataHolder.SUPER_TENANT_ID);
+            pushTokenDAO.updatePushToken(enrolmentId, "updated-token", TestDataHolder.SUPER_TENANT_ID);
+            DeviceManagementDAOFactory.commitTransaction();
+        } catch (DeviceManagementDAOException e) {
+            DeviceManagementDAOFactory.rollbackTransaction();
+            String msg = "Error occurred while registering the push token of the device";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } catch (TransactionManagementException e) {
+            String msg = "Error occurred while initiating transaction";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+
+        Map<Integer, String> tokens = null;
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            tokens = pushTokenDAO.getPushTokens(Arrays.asList(enrolmentId, enrolmentId + 1000),
+                    TestDataHolder.SUPER_TENANT_ID);
+        } catch (DeviceManagementDAOException | SQLException e) {
+            String msg = "Error occurred while retrieving the push tokens of the enrolments";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        Assert.assertNotNull(tokens, "Push tokens retrieved for the given enrolments are null");
+        Assert.assertEquals(tokens.size(), 1, "Push tokens are retrieved for enrolments without a push token");
+        Assert.assertEquals(tokens.get(enrolmentId), "updated-token", "Push token is not replaced on update");
+    }
+
+    private void setEnrolmentStatus(Device device, Status status) throws DeviceManagementDAOException {
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceDAO.setEnrolmentStatus(new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()),
+                    device.getEnrolmentInfo().getOwner(), status, TestDataHolder.SUPER_TENANT_ID);
+            DeviceManagementDAOFactory.commitTransaction();
+        } catch (TransactionManagementException e) {
+            throw new DeviceManagementDAOException("Error occurred while initiating transaction", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    private void activateEnrolment(Device device) throws DeviceManagementDAOException {
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            EnrolmentInfo enrolmentInfo = deviceDAO.getMatchingEnrolments(device.getType(),
+                    Arrays.asList(device.getDeviceIdentifier()), TestDataHolder.SUPER_TENANT_ID).
+                    get(device.getDeviceIdentifier());
+            DeviceManagementDAOFactory.getEnrollmentDAO().setStatus(Arrays.asList(enrolmentInfo.getId()),
+                    Arrays.asList(Status.INACTIVE, Status.UNREACHABLE), Status.ACTIVE, TestDataHolder.SUPER_TENANT_ID);
+            DeviceManagementDAOFactory.commitTransaction();
+        } catch (TransactionManagementException e) {
+            throw new DeviceManagementDAOException("Error occurred while initiating transaction", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
     private Status getEnrolmentStatus(String identifier, String deviceType, int tenantId)
             throws DeviceManagementDAOException {
 
@@ -24,18 +24,26 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.TransactionManagementException;
 import org.wso2.carbon.device.mgt.common.group.mgt.DeviceGroup;
+import org.wso2.carbon.device.mgt.common.group.mgt.GroupManagementException;
 import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
 import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
 import org.wso2.carbon.device.mgt.core.group.mgt.DeviceGroupBuilder;
 import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupDAO;
 import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupManagementDAOException;
 import org.wso2.carbon.device.mgt.core.group.mgt.dao.GroupManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService;
+import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderServiceImpl;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 public class GroupPersistTests extends BaseDeviceManagementTest {
 
@@ -162,6 +170,57 @@ public class GroupPersistTests extends BaseDeviceManagementTest {
     }
 
     @Test(dependsOnMethods = {"addDeviceToGroupTest"})
+    public void getGroupIdsOfDevicesTest() {
+        Device initialTestDevice = TestDataHolder.initialTestDevice;
+        try {
+            GroupManagementDAOFactory.openConnection();
+            Map<String, List<Integer>> groupIds = groupDAO.getGroupIds(
+                    initialTestDevice.getType(), Arrays.asList(initialTestDevice.getDeviceIdentifier(), "unknown"),
+                    TestDataHolder.SUPER_TENANT_ID);
+            Assert.assertEquals(groupIds.get(initialTestDevice.getDeviceIdentifier()),
+                                Collections.singletonList(groupId), "Group ids of the device not matched");
+            Assert.assertFalse(groupIds.containsKey("unknown"), "Group ids found for an unknown device");
+        } catch (GroupManagementDAOException e) {
+            String msg = "Error occurred while retrieving group ids of devices.";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } catch (SQLException e) {
+            String msg = "Error occurred while opening a connection to the data source.";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            GroupManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @Test(dependsOnMethods = {"addDeviceToGroupTest"})
+    public void getGroupIdsOfDevicesFromServiceTest() {
+        Device initialTestDevice = TestDataHolder.initialTestDevice;
+        DeviceIdentifier deviceIdentifier =
+                new DeviceIdentifier(initialTestDevice.getDeviceIdentifier(), initialTestDevice.getType());
+        DeviceIdentifier unknownDeviceIdentifier = new DeviceIdentifier("unknown", initialTestDevice.getType());
+        GroupManagementProviderService groupManagementProviderService = new GroupManagementProviderServiceImpl();
+        try {
+            List<DeviceIdentifier> deviceIdentifiers = Arrays.asList(deviceIdentifier, unknownDeviceIdentifier);
+            Map<DeviceIdentifier, List<Integer>> groupIds =
+                    groupManagementProviderService.getGroupIds(deviceIdentifiers);
+            Assert.assertEquals(groupIds.get(deviceIdentifier), getGroupIdsOfDevice(initialTestDevice.getId()),
+                                "Group ids of the device not matched with the groups of the device");
+            Assert.assertFalse(groupIds.containsKey(unknownDeviceIdentifier), "Group ids found for an unknown device");
+            for (DeviceIdentifier identifier : deviceIdentifiers) {
+                Map<DeviceIdentifier, List<Integer>> groupIdsOfDevice =
+                        groupManagementProviderService.getGroupIds(Collections.singletonList(identifier));
+                Assert.assertEquals(groupIds.get(identifier), groupIdsOfDevice.get(identifier),
+                                    "Group ids not matched with the group ids of device : " + identifier.getId());
+            }
+        } catch (GroupManagementException e) {
+            String msg = "Error occurred while retrieving group ids of devices.";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        }
+    }
+
+    @Test(dependsOnMethods = {"getGroupIdsOfDevicesTest", "getGroupIdsOfDevicesFromServiceTest"})
     public void removeDeviceFromGroupTest() {
         Device initialTestDevice = TestDataHolder.initialTestDevice;
         DeviceGroup deviceGroup = getGroupById(groupId);
@@ -245,6 +304,27 @@ public class GroupPersistTests extends BaseDeviceManagementTest {
         Assert.assertNull(group, "Group is not deleted");
     }
 
+    private List<Integer> getGroupIdsOfDevice(int deviceId) {
+        List<Integer> groupIds = new ArrayList<>();
+        try {
+            GroupManagementDAOFactory.openConnection();
+            for (DeviceGroupBuilder group : groupDAO.getGroups(deviceId, TestDataHolder.SUPER_TENANT_ID)) {
+                groupIds.add(group.getGroupId());
+            }
+        } catch (GroupManagementDAOException e) {
+            String msg = "Error occurred while retrieving groups of the device.";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } catch (SQLException e) {
+            String msg = "Error occurred while opening a connection to the data source.";
+            log.error(msg, e);
+            Assert.fail(msg, e);
+        } finally {
+            GroupManagementDAOFactory.closeConnection();
+        }
+        return groupIds;
+    }
+
     public DeviceGroup getGroupById(int groupId) {
         try {
             GroupManagementDAOFactory.openConnection();
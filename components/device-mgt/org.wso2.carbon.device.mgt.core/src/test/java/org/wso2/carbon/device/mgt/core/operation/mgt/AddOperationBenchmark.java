@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.core.TestUtils;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationDAO;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationMappingDAO;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the time taken by the database work of adding an operation to many devices in H2, done device by device
+ * as before and in batches as done now. Enrolments are resolved, the operation is mapped to them and a scheduled
+ * operation of the same code is then deduplicated against the pending mappings. This is not part of the default test
+ * suite, run it with {@code mvn test -Dtest=AddOperationBenchmark [-Doperation.benchmark.devices=1000,10000,100000]}.
+ */
+public class AddOperationBenchmark extends BaseDeviceManagementTest {
+
+    private static final Log log = LogFactory.getLog(AddOperationBenchmark.class);
+    private static final int TENANT_ID = 9998;
+    private static final String DEVICE_TYPE = "operation-benchmark";
+    private static final String DEVICE_COUNTS = System.getProperty("operation.benchmark.devices",
+            "1000,10000,100000");
+
+    private DeviceDAO deviceDAO;
+    private OperationDAO operationDAO;
+    private OperationMappingDAO operationMappingDAO;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        OperationManagementDAOFactory.init(this.getDataSource());
+        deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        operationDAO = OperationManagementDAOFactory.getOperationDAO();
+        operationMappingDAO = OperationManagementDAOFactory.getOperationMappingDAO();
+        // Device identifiers are indexed in production databases, which keeps the device by device lookups from
+        // scanning the whole table
+        this.executeUpdate("CREATE INDEX IF NOT EXISTS IDX_BENCHMARK_DEVICE_IDENTIFICATION ON " +
+                "DM_DEVICE (DEVICE_IDENTIFICATION)");
+        this.executeUpdate("INSERT INTO DM_DEVICE_TYPE (NAME, PROVIDER_TENANT_ID) VALUES ('" + DEVICE_TYPE + "', ?)",
+                TENANT_ID);
+    }
+
+    @Test
+    public void benchmarkAddOperation() throws Exception {
+        for (String deviceCount : DEVICE_COUNTS.split(",")) {
+            this.benchmarkAddOperation(Integer.parseInt(deviceCount.trim()));
+        }
+    }
+
+    @AfterClass
+    public void cleanup() throws Exception {
+        this.deleteDevices();
+        this.executeUpdate("DELETE FROM DM_DEVICE_TYPE WHERE NAME = '" + DEVICE_TYPE + "' AND " +
+                "PROVIDER_TENANT_ID = ?", TENANT_ID);
+        this.executeUpdate("DROP INDEX IF EXISTS IDX_BENCHMARK_DEVICE_IDENTIFICATION");
+    }
+
+    private void benchmarkAddOperation(int deviceCount) throws Exception {
+        this.addDevices(deviceCount);
+        List<String> deviceIdentifications = new ArrayList<>(deviceCount);
+        for (int i = 1; i <= deviceCount; i++) {
+            deviceIdentifications.add(DEVICE_TYPE + "-" + i);
+        }
+        int batchSize = DeviceManagerUtil.getBatchSize();
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            DeviceManagementDAOFactory.openConnection();
+
+            long startTime = System.currentTimeMillis();
+            List<Integer> enrolmentIds = new ArrayList<>(deviceCount);
+            for (String deviceIdentification : deviceIdentifications) {
+                Device device = deviceDAO.getDevice(new DeviceIdentifier(deviceIdentification, DEVICE_TYPE),
+                        TENANT_ID);
+                enrolmentIds.add(device.getEnrolmentInfo().getId());
+            }
+            long deviceLookupTime = System.currentTimeMillis() - startTime;
+            startTime = System.currentTimeMillis();
+            List<Integer> batchedEnrolmentIds = new ArrayList<>(deviceCount);
+            for (List<String> batch : DeviceManagerUtil.getBatches(deviceIdentifications, batchSize)) {
+                Map<String, EnrolmentInfo> enrolments = deviceDAO.getMatchingEnrolments(DEVICE_TYPE, batch,
+                        TENANT_ID);
+                for (String deviceIdentification : batch) {
+                    batchedEnrolmentIds.add(enrolments.get(deviceIdentification).getId());
+                }
+            }
+            long batchedLookupTime = System.currentTimeMillis() - startTime;
+            Assert.assertEquals(batchedEnrolmentIds, enrolmentIds, "Batched lookup resolved different enrolments");
+            log.info(String.format("%d devices, enrolment lookup : device by device %dms, batched %dms",
+                    deviceCount, deviceLookupTime, batchedLookupTime));
+
+            int operationId = this.addOperation("BENCHMARK_OPERATION");
+            int batchedOperationId = this.addOperation("BATCHED_BENCHMARK_OPERATION");
+            startTime = System.currentTimeMillis();
+            for (Integer enrolmentId : enrolmentIds) {
+                operationMappingDAO.addOperationMapping(operationId, enrolmentId);
+            }
+            long mappingTime = System.currentTimeMillis() - startTime;
+            startTime = System.currentTimeMillis();
+            for (List<Integer> batch : DeviceManagerUtil.getBatches(enrolmentIds, batchSize)) {
+                operationMappingDAO.addOperationMapping(batchedOperationId, batch);
+            }
+            long batchedMappingTime = System.currentTimeMillis() - startTime;
+            log.info(String.format("%d devices, operation mapping : device by device %dms, batched %dms",
+                    deviceCount, mappingTime, batchedMappingTime));
+
+            startTime = System.currentTimeMillis();
+            int pendingCount = 0;
+            for (Integer enrolmentId : enrolmentIds) {
+                if (operationDAO.updateTaskOperation(enrolmentId, "BENCHMARK_OPERATION")) {
+                    pendingCount++;
+                }
+            }
+            long taskTime = System.currentTimeMillis() - startTime;
+            startTime = System.currentTimeMillis();
+            int batchedPendingCount = 0;
+            for (List<Integer> batch : DeviceManagerUtil.getBatches(enrolmentIds, batchSize)) {
+                batchedPendingCount += operationDAO.updateTaskOperations(batch, "BATCHED_BENCHMARK_OPERATION").size();
+            }
+            long batchedTaskTime = System.currentTimeMillis() - startTime;
+            Assert.assertEquals(pendingCount, deviceCount);
+            Assert.assertEquals(batchedPendingCount, deviceCount);
+            log.info(String.format("%d devices, scheduled operation deduplication : device by device %dms, " +
+                    "batched %dms", deviceCount, taskTime, batchedTaskTime));
+            OperationManagementDAOFactory.commitTransaction();
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+            OperationManagementDAOFactory.closeConnection();
+            this.deleteDevices();
+        }
+    }
+
+    private void addDevices(int deviceCount) throws Exception {
+        long startTime = System.currentTimeMillis();
+        this.executeUpdate("INSERT INTO DM_DEVICE (DESCRIPTION, NAME, DEVICE_TYPE_ID, DEVICE_IDENTIFICATION, " +
+                "LAST_UPDATED_TIMESTAMP, TENANT_ID) SELECT 'Benchmark device', CONCAT('device-', X), " +
+                "(SELECT MAX(ID) FROM DM_DEVICE_TYPE WHERE NAME = '" + DEVICE_TYPE + "'), " +
+                "CONCAT('" + DEVICE_TYPE + "-', X), CURRENT_TIMESTAMP(), ? FROM SYSTEM_RANGE(1, ?)",
+                TENANT_ID, deviceCount);
+        this.executeUpdate("INSERT INTO DM_ENROLMENT (DEVICE_ID, OWNER, OWNERSHIP, STATUS, DATE_OF_ENROLMENT, " +
+                "DATE_OF_LAST_UPDATE, TENANT_ID) SELECT ID, 'admin', 'BYOD', 'ACTIVE', CURRENT_TIMESTAMP(), " +
+                "CURRENT_TIMESTAMP(), ? FROM DM_DEVICE WHERE TENANT_ID = ?", TENANT_ID, TENANT_ID);
+        log.info(deviceCount + " synthetic devices have been added in " +
+                (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    private void deleteDevices() throws Exception {
+        String enrolments = "SELECT ID FROM DM_ENROLMENT WHERE TENANT_ID = ?";
+        this.executeUpdate("DELETE FROM DM_ENROLMENT_OP_MAPPING WHERE ENROLMENT_ID IN (" + enrolments + ")",
+                TENANT_ID);
+        this.executeUpdate("DELETE FROM DM_OPERATION WHERE OPERATION_CODE IN ('BENCHMARK_OPERATION', " +
+                "'BATCHED_BENCHMARK_OPERATION')");
+        this.executeUpdate("DELETE FROM DM_ENROLMENT WHERE TENANT_ID = ?", TENANT_ID);
+        this.executeUpdate("DELETE FROM DM_DEVICE WHERE TENANT_ID = ?", TENANT_ID);
+    }
+
+    private int addOperation(String operationCode) throws Exception {
+        this.executeUpdate("INSERT INTO DM_OPERATION (TYPE, CREATED_TIMESTAMP, OPERATION_CODE) VALUES " +
+                "('COMMAND', CURRENT_TIMESTAMP(), '" + operationCode + "')");
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("SELECT MAX(ID) FROM DM_OPERATION WHERE OPERATION_CODE = ?");
+            stmt.setString(1, operationCode);
+            rs = stmt.executeQuery();
+            Assert.assertTrue(rs.next());
+            return rs.getInt(1);
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+    }
+
+    private void executeUpdate(String sql, int... parameters) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setInt(i + 1, parameters[i]);
+            }
+            stmt.executeUpdate();
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, null);
+        }
+    }
+
+}
@@ -0,0 +1,397 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.core.TestUtils;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
+import org.wso2.carbon.device.mgt.core.dao.impl.EnrollmentDAOImpl;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOException;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.impl.GenericOperationDAOImpl;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+public class CheckInUpdateBufferTests extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "check-in-buffer";
+    private static final int DEVICE_COUNT = 3;
+    private static final int INITIAL_ATTEMPTS = 5;
+    private static final int OTHER_TENANT_ID = 1;
+    private static final int NO_FLUSH_INTERVAL = 60 * 60 * 1000;
+    private static final int NO_FLUSH_THRESHOLD = 1000;
+    private static final long TIMEOUT = 10000;
+
+    private List<Integer> enrolmentIds;
+    private TestOperationDAO operationDAO;
+    private TestEnrollmentDAO enrollmentDAO;
+    private CheckInUpdateBuffer buffer;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        OperationManagementDAOFactory.init(this.getDataSource());
+
+        this.executeUpdate("INSERT INTO DM_DEVICE_TYPE (NAME, PROVIDER_TENANT_ID) VALUES ('" + DEVICE_TYPE + "', ?)",
+                TestDataHolder.SUPER_TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE (DESCRIPTION, NAME, DEVICE_TYPE_ID, DEVICE_IDENTIFICATION, " +
+                "LAST_UPDATED_TIMESTAMP, TENANT_ID) SELECT 'Check-in device', CONCAT('check-in-device-', X), " +
+                "(SELECT MAX(ID) FROM DM_DEVICE_TYPE WHERE NAME = '" + DEVICE_TYPE + "'), " +
+                "CONCAT('" + DEVICE_TYPE + "-', X), CURRENT_TIMESTAMP(), ? FROM SYSTEM_RANGE(1, ?)",
+                TestDataHolder.SUPER_TENANT_ID, DEVICE_COUNT);
+        this.executeUpdate("INSERT INTO DM_ENROLMENT (DEVICE_ID, OWNER, OWNERSHIP, STATUS, DATE_OF_ENROLMENT, " +
+                "DATE_OF_LAST_UPDATE, TENANT_ID) SELECT ID, 'admin', 'BYOD', 'INACTIVE', CURRENT_TIMESTAMP(), " +
+                "CURRENT_TIMESTAMP(), ? FROM DM_DEVICE WHERE DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%'",
+                TestDataHolder.SUPER_TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_POLICY_COMPLIANCE_STATUS (DEVICE_ID, ENROLMENT_ID, POLICY_ID, TENANT_ID, " +
+                "STATUS, ATTEMPTS) SELECT e.DEVICE_ID, e.ID, 1, e.TENANT_ID, 0, ? FROM DM_ENROLMENT e, DM_DEVICE d " +
+                "WHERE e.DEVICE_ID = d.ID AND d.DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%'",
+                INITIAL_ATTEMPTS);
+        enrolmentIds = this.getEnrolmentIds();
+        Assert.assertEquals(enrolmentIds.size(), DEVICE_COUNT);
+    }
+
+    @BeforeMethod
+    public void resetUpdates() throws Exception {
+        this.executeUpdate("UPDATE DM_ENROLMENT SET STATUS = 'INACTIVE' WHERE DEVICE_ID IN (SELECT ID FROM " +
+                "DM_DEVICE WHERE DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%')");
+        this.executeUpdate("UPDATE DM_POLICY_COMPLIANCE_STATUS SET ATTEMPTS = ? WHERE DEVICE_ID IN (SELECT ID FROM " +
+                "DM_DEVICE WHERE DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%')", INITIAL_ATTEMPTS);
+        operationDAO = new TestOperationDAO();
+        enrollmentDAO = new TestEnrollmentDAO();
+    }
+
+    @AfterMethod
+    public void shutdownBuffer() {
+        if (buffer != null) {
+            buffer.shutdown();
+            buffer = null;
+        }
+    }
+
+    @Test
+    public void testUpdatesAreCoalescedPerEnrolment() throws Exception {
+        buffer = new CheckInUpdateBuffer(operationDAO, enrollmentDAO, NO_FLUSH_INTERVAL, NO_FLUSH_THRESHOLD);
+
+        // The tenant of the last reset of the first enrolment wins
+        buffer.resetAttemptCount(enrolmentIds.get(0), OTHER_TENANT_ID);
+        buffer.resetAttemptCount(enrolmentIds.get(0), TestDataHolder.SUPER_TENANT_ID);
+        buffer.resetAttemptCount(enrolmentIds.get(1), TestDataHolder.SUPER_TENANT_ID);
+        buffer.resetAttemptCount(enrolmentIds.get(1), TestDataHolder.SUPER_TENANT_ID);
+        buffer.activateEnrolment(this.getDeviceIdentifier(0), enrolmentIds.get(0), OTHER_TENANT_ID);
+        buffer.activateEnrolment(this.getDeviceIdentifier(0), enrolmentIds.get(0), TestDataHolder.SUPER_TENANT_ID);
+        Assert.assertEquals(buffer.getBufferDepth(), 3, "Updates of the same enrolment are not coalesced");
+        Assert.assertEquals(buffer.getFlushCount(), 0, "Updates are written before the buffer is flushed");
+
+        buffer.flush();
+
+        Assert.assertEquals(operationDAO.tenantIds, Collections.singletonList(TestDataHolder.SUPER_TENANT_ID),
+                "Attempt count resets are not written with a single statement of the last buffered tenant");
+        Assert.assertEquals(new HashSet<>(operationDAO.batches.get(0)),
+                new HashSet<>(enrolmentIds.subList(0, 2)));
+        Assert.assertEquals(enrollmentDAO.tenantIds, Collections.singletonList(TestDataHolder.SUPER_TENANT_ID),
+                "Enrolment activation is not written for the last buffered tenant");
+        Assert.assertEquals(enrollmentDAO.batches.get(0), Collections.singletonList(enrolmentIds.get(0)));
+        this.assertAttempts(0, 0, INITIAL_ATTEMPTS);
+        this.assertStatuses(EnrolmentInfo.Status.ACTIVE, EnrolmentInfo.Status.INACTIVE,
+                EnrolmentInfo.Status.INACTIVE);
+        Assert.assertEquals(buffer.getBufferDepth(), 0);
+        Assert.assertEquals(buffer.getFlushedUpdateCount(), 3);
+    }
+
+    @Test
+    public void testBufferIsFlushedAtThreshold() throws Exception {
+        buffer = new CheckInUpdateBuffer(operationDAO, enrollmentDAO, NO_FLUSH_INTERVAL, DEVICE_COUNT);
+
+        buffer.resetAttemptCount(enrolmentIds.get(0), TestDataHolder.SUPER_TENANT_ID);
+        buffer.resetAttemptCount(enrolmentIds.get(1), TestDataHolder.SUPER_TENANT_ID);
+        // Buffering the same enrolment again does not count towards the threshold
+        buffer.resetAttemptCount(enrolmentIds.get(1), TestDataHolder.SUPER_TENANT_ID);
+        Assert.assertEquals(buffer.getFlushCount(), 0, "Buffer is flushed before reaching the threshold");
+        Assert.assertEquals(buffer.getBufferDepth(), 2);
+
+        buffer.resetAttemptCount(enrolmentIds.get(2), TestDataHolder.SUPER_TENANT_ID);
+        this.waitForFlushes(1);
+
+        Assert.assertEquals(buffer.getFlushCount(), 1, "Buffer is not flushed once it reaches the threshold");
+        Assert.assertEquals(buffer.getBufferDepth(), 0);
+        Assert.assertEquals(operationDAO.batches.size(), 1);
+        this.assertAttempts(0, 0, 0);
+    }
+
+    @Test
+    public void testFailedUpdatesAreBufferedAgain() throws Exception {
+        buffer = new CheckInUpdateBuffer(operationDAO, enrollmentDAO, NO_FLUSH_INTERVAL, NO_FLUSH_THRESHOLD);
+        operationDAO.failures = 1;
+        // An update of an enrolment being written is buffered while the write fails
+        operationDAO.onFailure = new Runnable() {
+            @Override
+            public void run() {
+                buffer.resetAttemptCount(enrolmentIds.get(0), TestDataHolder.SUPER_TENANT_ID);
+            }
+        };
+
+        buffer.resetAttemptCount(enrolmentIds.get(0), TestDataHolder.SUPER_TENANT_ID);
+        buffer.resetAttemptCount(enrolmentIds.get(1), TestDataHolder.SUPER_TENANT_ID);
+        buffer.activateEnrolment(this.getDeviceIdentifier(2), enrolmentIds.get(2), TestDataHolder.SUPER_TENANT_ID);
+        buffer.flush();
+
+        Assert.assertEquals(buffer.getBufferDepth(), 2,
+                "Failed attempt count resets are not buffered again exactly once");
+        Assert.assertEquals(buffer.getFailedFlushCount(), 1);
+        Assert.assertEquals(buffer.getFlushedUpdateCount(), 1, "Failed updates are counted as flushed");
+        this.assertAttempts(INITIAL_ATTEMPTS, INITIAL_ATTEMPTS, INITIAL_ATTEMPTS);
+        this.assertStatuses(EnrolmentInfo.Status.INACTIVE, EnrolmentInfo.Status.INACTIVE,
+                EnrolmentInfo.Status.ACTIVE);
+
+        buffer.flush();
+
+        Assert.assertEquals(buffer.getBufferDepth(), 0, "Failed updates are not retried with the next flush");
+        Assert.assertEquals(buffer.getFlushCount(), 2);
+        Assert.assertEquals(buffer.getFailedFlushCount(), 1);
+        Assert.assertEquals(buffer.getFlushedUpdateCount(), 3);
+        Assert.assertEquals(enrollmentDAO.batches.size(), 1, "Written enrolment activation is written again");
+        this.assertAttempts(0, 0, INITIAL_ATTEMPTS);
+    }
+
+    @Test
+    public void testBufferIsFlushedOnShutdown() throws Exception {
+        buffer = new CheckInUpdateBuffer(operationDAO, enrollmentDAO, NO_FLUSH_INTERVAL, NO_FLUSH_THRESHOLD);
+        // The first write fails, and is retried once during the shutdown
+        operationDAO.failures = 1;
+
+        buffer.resetAttemptCount(enrolmentIds.get(0), TestDataHolder.SUPER_TENANT_ID);
+        buffer.activateEnrolment(this.getDeviceIdentifier(1), enrolmentIds.get(1), TestDataHolder.SUPER_TENANT_ID);
+        buffer.shutdown();
+
+        Assert.assertEquals(buffer.getBufferDepth(), 0, "Buffered updates are not written during the shutdown");
+        Assert.assertEquals(buffer.getFailedFlushCount(), 1);
+        this.assertAttempts(0, INITIAL_ATTEMPTS, INITIAL_ATTEMPTS);
+        this.assertStatuses(EnrolmentInfo.Status.INACTIVE, EnrolmentInfo.Status.ACTIVE,
+                EnrolmentInfo.Status.INACTIVE);
+
+        long flushCount = buffer.getFlushCount();
+        buffer.resetAttemptCount(enrolmentIds.get(2), TestDataHolder.SUPER_TENANT_ID);
+
+        Assert.assertEquals(buffer.getFlushCount(), flushCount + 1,
+                "Update buffered after the shutdown is not written immediately");
+        Assert.assertEquals(buffer.getBufferDepth(), 0);
+        this.assertAttempts(0, INITIAL_ATTEMPTS, 0);
+    }
+
+    @Test
+    public void testStatisticsAreExposedThroughMBean() throws Exception {
+        buffer = new CheckInUpdateBuffer(operationDAO, enrollmentDAO, NO_FLUSH_INTERVAL, NO_FLUSH_THRESHOLD);
+        buffer.resetAttemptCount(enrolmentIds.get(0), TestDataHolder.SUPER_TENANT_ID);
+        buffer.resetAttemptCount(enrolmentIds.get(1), TestDataHolder.SUPER_TENANT_ID);
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("org.wso2.carbon.device.mgt:type=CheckInUpdateBufferTests");
+        mBeanServer.registerMBean(new StandardMBean(buffer, CheckInUpdateBufferStatisticsMBean.class, false),
+                objectName);
+        try {
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "BufferDepth"), 2);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "FlushCount"), 0L);
+
+            mBeanServer.invoke(objectName, "flush", null, null);
+            // Flushing an empty buffer is not counted
+            mBeanServer.invoke(objectName, "flush", null, null);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "BufferDepth"), 0);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "FlushCount"), 1L);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "FailedFlushCount"), 0L);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "FlushedUpdateCount"), 2L);
+            long lastFlushLatency = (Long) mBeanServer.getAttribute(objectName, "LastFlushLatency");
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "MaxFlushLatency"), lastFlushLatency);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "AverageFlushLatency"),
+                    (double) lastFlushLatency);
+
+            mBeanServer.invoke(objectName, "resetStatistics", null, null);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "FlushCount"), 0L);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "FlushedUpdateCount"), 0L);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "MaxFlushLatency"), 0L);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "AverageFlushLatency"), 0.0);
+        } finally {
+            mBeanServer.unregisterMBean(objectName);
+        }
+    }
+
+    @AfterClass
+    public void cleanResources() throws Exception {
+        this.executeUpdate("DELETE FROM DM_POLICY_COMPLIANCE_STATUS WHERE DEVICE_ID IN (SELECT ID FROM DM_DEVICE " +
+                "WHERE DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%')");
+        this.executeUpdate("DELETE FROM DM_ENROLMENT WHERE DEVICE_ID IN (SELECT ID FROM DM_DEVICE " +
+                "WHERE DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%')");
+        this.executeUpdate("DELETE FROM DM_DEVICE WHERE DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%'");
+        this.executeUpdate("DELETE FROM DM_DEVICE_TYPE WHERE NAME = '" + DEVICE_TYPE + "'");
+    }
+
+    private DeviceIdentifier getDeviceIdentifier(int index) {
+        return new DeviceIdentifier(DEVICE_TYPE + "-" + (index + 1), DEVICE_TYPE);
+    }
+
+    private void waitForFlushes(long flushCount) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (buffer.getFlushCount() < flushCount && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void assertAttempts(int... attempts) throws Exception {
+        for (int i = 0; i < attempts.length; i++) {
+            Assert.assertEquals(this.queryInt("SELECT ATTEMPTS FROM DM_POLICY_COMPLIANCE_STATUS WHERE " +
+                    "ENROLMENT_ID = ?", enrolmentIds.get(i)), attempts[i],
+                    "Unexpected attempt count of enrolment " + i);
+        }
+    }
+
+    private void assertStatuses(EnrolmentInfo.Status... statuses) throws Exception {
+        List<EnrolmentInfo.Status> actualStatuses = new ArrayList<>();
+        for (Integer enrolmentId : enrolmentIds) {
+            Connection conn = null;
+            PreparedStatement stmt = null;
+            ResultSet rs = null;
+            try {
+                conn = this.getDataSource().getConnection();
+                stmt = conn.prepareStatement("SELECT STATUS FROM DM_ENROLMENT WHERE ID = ?");
+                stmt.setInt(1, enrolmentId);
+                rs = stmt.executeQuery();
+                Assert.assertTrue(rs.next());
+                actualStatuses.add(EnrolmentInfo.Status.valueOf(rs.getString("STATUS")));
+            } finally {
+                TestUtils.cleanupResources(conn, stmt, rs);
+            }
+        }
+        Assert.assertEquals(actualStatuses, Arrays.asList(statuses), "Unexpected enrolment statuses");
+    }
+
+    private List<Integer> getEnrolmentIds() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("SELECT e.ID FROM DM_ENROLMENT e, DM_DEVICE d WHERE e.DEVICE_ID = d.ID " +
+                    "AND d.DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%' ORDER BY d.DEVICE_IDENTIFICATION");
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt("ID"));
+            }
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+        return ids;
+    }
+
+    private int queryInt(String sql, int parameter) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement(sql);
+            stmt.setInt(1, parameter);
+            rs = stmt.executeQuery();
+            Assert.assertTrue(rs.next());
+            return rs.getInt(1);
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+    }
+
+    private void executeUpdate(String sql, int... parameters) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setInt(i + 1, parameters[i]);
+            }
+            stmt.executeUpdate();
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, null);
+        }
+    }
+
+    /**
+     * Records the attempt count resets it writes. It fails the given number of times before succeeding, and runs the
+     * given task when failing.
+     */
+    private static class TestOperationDAO extends GenericOperationDAOImpl {
+
+        private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+        private final List<Integer> tenantIds = Collections.synchronizedList(new ArrayList<Integer>());
+        private volatile int failures;
+        private volatile Runnable onFailure;
+
+        @Override
+        public boolean resetAttemptCount(List<Integer> enrolmentIds, int tenantId)
+                throws OperationManagementDAOException {
+            if (failures > 0) {
+                failures--;
+                if (onFailure != null) {
+                    onFailure.run();
+                }
+                throw new OperationManagementDAOException("Failure of the test operation DAO");
+            }
+            batches.add(new ArrayList<>(enrolmentIds));
+            tenantIds.add(tenantId);
+            return super.resetAttemptCount(enrolmentIds, tenantId);
+        }
+    }
+
+    /**
+     * Records the enrolment activations it writes.
+     */
+    private static class TestEnrollmentDAO extends EnrollmentDAOImpl {
+
+        private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<List<Integer>>());
+        private final List<Integer> tenantIds = Collections.synchronizedList(new ArrayList<Integer>());
+
+        @Override
+        public boolean setStatus(List<Integer> enrolmentIds, List<EnrolmentInfo.Status> currentStatuses,
+                                 EnrolmentInfo.Status status, int tenantId) throws DeviceManagementDAOException {
+            batches.add(new ArrayList<>(enrolmentIds));
+            tenantIds.add(tenantId);
+            return super.setStatus(enrolmentIds, currentStatuses, status, tenantId);
+        }
+    }
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.dao;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.core.TestUtils;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OperationPersistenceTests extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "operation-persistence";
+    private static final int DEVICE_COUNT = 3;
+
+    private OperationDAO operationDAO;
+    private OperationMappingDAO operationMappingDAO;
+    private List<Integer> enrolmentIds;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        OperationManagementDAOFactory.init(this.getDataSource());
+        operationDAO = OperationManagementDAOFactory.getOperationDAO();
+        operationMappingDAO = OperationManagementDAOFactory.getOperationMappingDAO();
+
+        this.executeUpdate("INSERT INTO DM_DEVICE_TYPE (NAME, PROVIDER_TENANT_ID) VALUES ('" + DEVICE_TYPE + "', ?)",
+                TestDataHolder.SUPER_TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE (DESCRIPTION, NAME, DEVICE_TYPE_ID, DEVICE_IDENTIFICATION, " +
+                "LAST_UPDATED_TIMESTAMP, TENANT_ID) SELECT 'Operation device', CONCAT('operation-device-', X), " +
+                "(SELECT MAX(ID) FROM DM_DEVICE_TYPE WHERE NAME = '" + DEVICE_TYPE + "'), " +
+                "CONCAT('" + DEVICE_TYPE + "-', X), CURRENT_TIMESTAMP(), ? FROM SYSTEM_RANGE(1, ?)",
+                TestDataHolder.SUPER_TENANT_ID, DEVICE_COUNT);
+        this.executeUpdate("INSERT INTO DM_ENROLMENT (DEVICE_ID, OWNER, OWNERSHIP, STATUS, DATE_OF_ENROLMENT, " +
+                "DATE_OF_LAST_UPDATE, TENANT_ID) SELECT ID, 'admin', 'BYOD', 'ACTIVE', CURRENT_TIMESTAMP(), " +
+                "CURRENT_TIMESTAMP(), ? FROM DM_DEVICE WHERE DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%'",
+                TestDataHolder.SUPER_TENANT_ID);
+        enrolmentIds = this.getEnrolmentIds();
+        Assert.assertEquals(enrolmentIds.size(), DEVICE_COUNT);
+    }
+
+    @Test
+    public void testAddOperationMappings() throws Exception {
+        int operationId = this.addOperation("MAPPED_OPERATION");
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            operationMappingDAO.addOperationMapping(operationId, enrolmentIds);
+            OperationManagementDAOFactory.commitTransaction();
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+
+        Map<Integer, String> statuses = this.getMappingStatuses(operationId);
+        Assert.assertEquals(statuses.size(), DEVICE_COUNT, "A mapping is not added for each enrolment");
+        for (Integer enrolmentId : enrolmentIds) {
+            Assert.assertEquals(statuses.get(enrolmentId), Operation.Status.PENDING.toString(),
+                    "Operation is not pending for enrolment " + enrolmentId);
+        }
+        Assert.assertEquals(this.getUpdatedTimestamps(operationId).size(), DEVICE_COUNT);
+        for (Long updatedTimestamp : this.getUpdatedTimestamps(operationId).values()) {
+            Assert.assertTrue(updatedTimestamp > 0, "Mapping timestamps are not set");
+        }
+    }
+
+    @Test(dependsOnMethods = "testAddOperationMappings")
+    public void testUpdateEnrolmentOperationStatuses() throws Exception {
+        int operationId = this.addOperation("NOT_REPEATED_OPERATION");
+        int otherOperationId = this.addOperation("OTHER_OPERATION");
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            operationMappingDAO.addOperationMapping(operationId, enrolmentIds);
+            operationMappingDAO.addOperationMapping(otherOperationId, enrolmentIds);
+            operationDAO.updateEnrollmentOperationsStatus(enrolmentIds.subList(0, 2), "NOT_REPEATED_OPERATION",
+                    Operation.Status.PENDING, Operation.Status.REPEATED);
+            OperationManagementDAOFactory.commitTransaction();
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+
+        Map<Integer, String> statuses = this.getMappingStatuses(operationId);
+        Assert.assertEquals(statuses.get(enrolmentIds.get(0)), Operation.Status.REPEATED.toString());
+        Assert.assertEquals(statuses.get(enrolmentIds.get(1)), Operation.Status.REPEATED.toString());
+        Assert.assertEquals(statuses.get(enrolmentIds.get(2)), Operation.Status.PENDING.toString(),
+                "Status of an enrolment which was not given is updated");
+        for (String status : this.getMappingStatuses(otherOperationId).values()) {
+            Assert.assertEquals(status, Operation.Status.PENDING.toString(),
+                    "Status of an operation having a different code is updated");
+        }
+    }
+
+    @Test(dependsOnMethods = "testAddOperationMappings")
+    public void testUpdateTaskOperations() throws Exception {
+        int operationId = this.addOperation("TASK_OPERATION");
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            operationMappingDAO.addOperationMapping(operationId, enrolmentIds.subList(0, 2));
+            OperationManagementDAOFactory.commitTransaction();
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+        this.executeUpdate("UPDATE DM_ENROLMENT_OP_MAPPING SET UPDATED_TIMESTAMP = 0 WHERE OPERATION_ID = ?",
+                operationId);
+        this.executeUpdate("UPDATE DM_ENROLMENT_OP_MAPPING SET STATUS = 'COMPLETED' WHERE OPERATION_ID = ? AND " +
+                "ENROLMENT_ID = ?", operationId, enrolmentIds.get(1));
+
+        List<Integer> pendingEnrolmentIds;
+        List<Integer> noEnrolmentIds;
+        try {
+            OperationManagementDAOFactory.beginTransaction();
+            pendingEnrolmentIds = operationDAO.updateTaskOperations(enrolmentIds, "TASK_OPERATION");
+            noEnrolmentIds = operationDAO.updateTaskOperations(new ArrayList<Integer>(), "TASK_OPERATION");
+            OperationManagementDAOFactory.commitTransaction();
+        } finally {
+            OperationManagementDAOFactory.closeConnection();
+        }
+
+        Assert.assertEquals(pendingEnrolmentIds, Collections.singletonList(enrolmentIds.get(0)),
+                "Only the enrolment having the task operation pending is not returned");
+        Assert.assertTrue(noEnrolmentIds.isEmpty());
+        Map<Integer, Long> updatedTimestamps = this.getUpdatedTimestamps(operationId);
+        Assert.assertTrue(updatedTimestamps.get(enrolmentIds.get(0)) > 0,
+                "Pending task operation mapping is not touched");
+        Assert.assertEquals(updatedTimestamps.get(enrolmentIds.get(1)).longValue(), 0L,
+                "Completed task operation mapping is touched");
+    }
+
+    @AfterClass
+    public void cleanResources() throws Exception {
+        String enrolments = "SELECT e.ID FROM DM_ENROLMENT e, DM_DEVICE d WHERE e.DEVICE_ID = d.ID AND " +
+                "d.DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%'";
+        this.executeUpdate("DELETE FROM DM_ENROLMENT_OP_MAPPING WHERE ENROLMENT_ID IN (" + enrolments + ")");
+        this.executeUpdate("DELETE FROM DM_OPERATION WHERE OPERATION_CODE IN ('MAPPED_OPERATION', " +
+                "'NOT_REPEATED_OPERATION', 'OTHER_OPERATION', 'TASK_OPERATION')");
+        this.executeUpdate("DELETE FROM DM_ENROLMENT WHERE ID IN (" + enrolments + ")");
+        this.executeUpdate("DELETE FROM DM_DEVICE WHERE DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%'");
+        this.executeUpdate("DELETE FROM DM_DEVICE_TYPE WHERE NAME = '" + DEVICE_TYPE + "'");
+    }
+
+    private int addOperation(String operationCode) throws Exception {
+        this.executeUpdate("INSERT INTO DM_OPERATION (TYPE, CREATED_TIMESTAMP, OPERATION_CODE) VALUES " +
+                "('COMMAND', CURRENT_TIMESTAMP(), '" + operationCode + "')");
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("SELECT MAX(ID) FROM DM_OPERATION WHERE OPERATION_CODE = ?");
+            stmt.setString(1, operationCode);
+            rs = stmt.executeQuery();
+            Assert.assertTrue(rs.next());
+            return rs.getInt(1);
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+    }
+
+    private Map<Integer, String> getMappingStatuses(int operationId) throws Exception {
+        Map<Integer, String> statuses = new HashMap<>();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("SELECT ENROLMENT_ID, STATUS FROM DM_ENROLMENT_OP_MAPPING WHERE " +
+                    "OPERATION_ID = ?");
+            stmt.setInt(1, operationId);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                Assert.assertNull(statuses.put(rs.getInt("ENROLMENT_ID"), rs.getString("STATUS")),
+                        "Operation is mapped to enrolment " + rs.getInt("ENROLMENT_ID") + " more than once");
+            }
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+        return statuses;
+    }
+
+    private Map<Integer, Long> getUpdatedTimestamps(int operationId) throws Exception {
+        Map<Integer, Long> timestamps = new HashMap<>();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("SELECT ENROLMENT_ID, UPDATED_TIMESTAMP FROM DM_ENROLMENT_OP_MAPPING " +
+                    "WHERE OPERATION_ID = ?");
+            stmt.setInt(1, operationId);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                timestamps.put(rs.getInt("ENROLMENT_ID"), rs.getLong("UPDATED_TIMESTAMP"));
+            }
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+        return timestamps;
+    }
+
+    private List<Integer> getEnrolmentIds() throws Exception {
+        List<Integer> ids = new ArrayList<>();
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("SELECT e.ID FROM DM_ENROLMENT e, DM_DEVICE d WHERE e.DEVICE_ID = d.ID " +
+                    "AND d.DEVICE_IDENTIFICATION LIKE '" + DEVICE_TYPE + "-%' ORDER BY d.DEVICE_IDENTIFICATION");
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt("ID"));
+            }
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+        return ids;
+    }
+
+    private void executeUpdate(String sql, int... parameters) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setInt(i + 1, parameters[i]);
+            }
+            stmt.executeUpdate();
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, null);
+        }
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.payload;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.PolicyOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.ProfileOperation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the payload size and the time taken to encode and decode policy operations of a growing number of profile
+ * operations with the compact payload codec and with Java serialization. This is not part of the default test suite,
+ * run it with {@code mvn test -Dtest=OperationPayloadCodecBenchmark [-Dpayload.benchmark.iterations=10000]}.
+ */
+public class OperationPayloadCodecBenchmark {
+
+    private static final Log log = LogFactory.getLog(OperationPayloadCodecBenchmark.class);
+    private static final int ITERATIONS = Integer.getInteger("payload.benchmark.iterations", 10000);
+    private static final int WARM_UP_ITERATIONS = 1000;
+    private static final int[] PROFILE_OPERATION_COUNTS = {1, 10, 50};
+
+    @Test
+    public void benchmarkCodecs() throws Exception {
+        OperationPayloadCodec javaCodec = new JavaSerializationPayloadCodec();
+        OperationPayloadCodec compactCodec = new CompactPayloadCodec();
+        for (int profileOperationCount : PROFILE_OPERATION_COUNTS) {
+            PolicyOperation policyOperation = this.getPolicyOperation(profileOperationCount);
+            byte[] javaPayload = javaCodec.encode(policyOperation);
+            byte[] compactPayload = compactCodec.encode(policyOperation);
+            PolicyOperation decodedOperation = (PolicyOperation) compactCodec.decode(compactPayload);
+            Assert.assertEquals(decodedOperation.getProfileOperations().size(), profileOperationCount,
+                    "Compact payload does not decode to the encoded policy operation");
+
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                javaCodec.decode(javaCodec.encode(policyOperation));
+                compactCodec.decode(compactCodec.encode(policyOperation));
+            }
+            double javaEncodeTime = this.getAverageEncodeTime(javaCodec, policyOperation);
+            double compactEncodeTime = this.getAverageEncodeTime(compactCodec, policyOperation);
+            double javaDecodeTime = this.getAverageDecodeTime(javaCodec, javaPayload);
+            double compactDecodeTime = this.getAverageDecodeTime(compactCodec, compactPayload);
+
+            log.info(String.format("%d profile operations : Java serialization %d bytes, encode %.4fms, decode " +
+                            "%.4fms; compact %d bytes (%.0f%% smaller), encode %.4fms, decode %.4fms",
+                    profileOperationCount, javaPayload.length, javaEncodeTime, javaDecodeTime,
+                    compactPayload.length, 100.0 * (javaPayload.length - compactPayload.length) / javaPayload.length,
+                    compactEncodeTime, compactDecodeTime));
+        }
+    }
+
+    private double getAverageEncodeTime(OperationPayloadCodec codec, Object payload) throws Exception {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            codec.encode(payload);
+        }
+        return (System.nanoTime() - startTime) / 1000000.0 / ITERATIONS;
+    }
+
+    private double getAverageDecodeTime(OperationPayloadCodec codec, byte[] payload) throws Exception {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            codec.decode(payload);
+        }
+        return (System.nanoTime() - startTime) / 1000000.0 / ITERATIONS;
+    }
+
+    private PolicyOperation getPolicyOperation(int profileOperationCount) {
+        List<ProfileOperation> profileOperations = new ArrayList<>();
+        for (int i = 0; i < profileOperationCount; i++) {
+            ProfileOperation profileOperation = new ProfileOperation();
+            profileOperation.setCode("FEATURE_" + i);
+            profileOperation.setEnabled(true);
+            profileOperation.setStatus(Operation.Status.PENDING);
+            profileOperation.setType(Operation.Type.PROFILE);
+            profileOperation.setPayLoad("{\"enabled\":true,\"value\":" + i + "}");
+            profileOperations.add(profileOperation);
+        }
+        PolicyOperation policyOperation = new PolicyOperation();
+        policyOperation.setId(1);
+        policyOperation.setCode("POLICY_BUNDLE");
+        policyOperation.setEnabled(true);
+        policyOperation.setType(Operation.Type.POLICY);
+        policyOperation.setProfileOperations(profileOperations);
+        policyOperation.setPayLoad(profileOperations);
+        return policyOperation;
+    }
+
+}
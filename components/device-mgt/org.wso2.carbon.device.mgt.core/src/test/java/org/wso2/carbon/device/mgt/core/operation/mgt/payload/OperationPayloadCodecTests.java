@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.payload;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.PolicyOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.ProfileOperation;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OperationPayloadCodecTests {
+
+    private static final int PROFILE_OPERATION_COUNT = 10;
+
+    /**
+     * A {@link PayloadRecord} encoded with format 1 of the compact payload codec. Rows written in this format must
+     * keep decoding, so changing how values are encoded requires a new format rather than an update of this payload.
+     */
+    private static final String PAYLOAD_RECORD_FORMAT_1 =
+            "011200005e6f72672e77736f322e636172626f6e2e6465766963652e6d67742e636f72652e6f7065726174696f6e2e6d6774" +
+            "2e7061796c6f61642e4f7065726174696f6e5061796c6f6164436f6465635465737473245061796c6f61645265636f72640b" +
+            "056368696c644c05636f756e744907637265617465644c07656e61626c65645a066c696d6974734c046e616d654c05726174" +
+            "696f44067368617265644c067374617475734c04746167734c0474696d654a120101000000000002056368696c6400000000" +
+            "00000000000000000d0e000e6a6176612e7574696c2e4461746500000157d823b000011000176a6176612e7574696c2e4c69" +
+            "6e6b6564486173684d617002020363707503a00102066d656d6f727903800802067265636f72643fd00000000000000f0013" +
+            "6a6176612e7574696c2e41727261794c697374020205666972737402067365636f6e640d00426f72672e77736f322e636172" +
+            "626f6e2e6465766963652e6d67742e636f72652e64746f2e6f7065726174696f6e2e6d67742e4f7065726174696f6e245374" +
+            "617475730750454e44494e47010380c09d82fb55";
+
+    /**
+     * An {@link EvolvedRecord} encoded with format 1 of the compact payload codec, while the class still had the
+     * boolean field 'flag' and the list field 'aliases', and its field 'size' was an int.
+     */
+    private static final String EVOLVED_RECORD_FORMAT_1 =
+            "011200005e6f72672e77736f322e636172626f6e2e6465766963652e6d67742e636f72652e6f7065726174696f6e2e6d6774" +
+            "2e7061796c6f61642e4f7065726174696f6e5061796c6f6164436f64656354657374732445766f6c7665645265636f726406" +
+            "07616c69617365734c05636f756e744904666c61675a046e616d654c0473697a6549067374617475734c0f00136a6176612e" +
+            "7574696c2e41727261794c697374020201610201625401020765766f6c7665640e0d00426f72672e77736f322e636172626f" +
+            "6e2e6465766963652e6d67742e636f72652e64746f2e6f7065726174696f6e2e6d67742e4f7065726174696f6e2453746174" +
+            "757309434f4d504c45544544";
+
+    @Test
+    public void testCompactPayloadRoundTrip() throws Exception {
+        PolicyOperation policyOperation = this.getPolicyOperation();
+        byte[] payload = new CompactPayloadCodec().encode(policyOperation);
+        Assert.assertEquals(payload[0], CompactPayloadCodec.FORMAT, "Compact payload does not lead with its format");
+
+        PolicyOperation decodedOperation =
+                (PolicyOperation) OperationPayloadCodecManager.getInstance().decode(payload);
+        this.assertPolicyOperation(decodedOperation, policyOperation);
+        Assert.assertSame(decodedOperation.getPayLoad(), decodedOperation.getProfileOperations(),
+                "Shared references are not preserved by the compact payload codec");
+    }
+
+    @Test
+    public void testLegacyPayloadDecoding() throws Exception {
+        PolicyOperation policyOperation = this.getPolicyOperation();
+        byte[] payload = new JavaSerializationPayloadCodec().encode(policyOperation);
+        PolicyOperation decodedOperation =
+                (PolicyOperation) OperationPayloadCodecManager.getInstance().decode(payload);
+        this.assertPolicyOperation(decodedOperation, policyOperation);
+    }
+
+    @Test
+    public void testCompactPayloadSize() throws Exception {
+        PolicyOperation policyOperation = this.getPolicyOperation();
+        int compactSize = new CompactPayloadCodec().encode(policyOperation).length;
+        int legacySize = new JavaSerializationPayloadCodec().encode(policyOperation).length;
+        Assert.assertTrue(compactSize < legacySize, "Compact payload (" + compactSize + " bytes) is not smaller " +
+                "than the Java serialized payload (" + legacySize + " bytes)");
+    }
+
+    @Test
+    public void testCompactPayloadFormatIsStable() throws Exception {
+        byte[] payload = fromHex(PAYLOAD_RECORD_FORMAT_1);
+        Assert.assertEquals(new CompactPayloadCodec().encode(this.getPayloadRecord()), payload,
+                "Compact payload encoding has changed without a new payload format");
+
+        PayloadRecord decodedRecord = (PayloadRecord) OperationPayloadCodecManager.getInstance().decode(payload);
+        this.assertPayloadRecord(decodedRecord, this.getPayloadRecord());
+        Assert.assertSame(decodedRecord.shared, decodedRecord.tags, "Shared references are not preserved");
+        Assert.assertSame(decodedRecord.child.child, decodedRecord, "Cyclic references are not preserved");
+        Assert.assertNull(decodedRecord.cache, "Transient field is decoded");
+    }
+
+    @Test
+    public void testCompactPayloadSchemaEvolution() throws Exception {
+        EvolvedRecord decodedRecord =
+                (EvolvedRecord) OperationPayloadCodecManager.getInstance().decode(fromHex(EVOLVED_RECORD_FORMAT_1));
+        Assert.assertEquals(decodedRecord.name, "evolved", "Unchanged field is not decoded");
+        Assert.assertEquals(decodedRecord.count, 42, "Unchanged field following removed fields is not decoded");
+        Assert.assertEquals(decodedRecord.status, Operation.Status.COMPLETED, "Unchanged field is not decoded");
+        Assert.assertEquals(decodedRecord.size, 0L, "Field of a changed type is not left with its default value");
+        Assert.assertEquals(decodedRecord.description, EvolvedRecord.DEFAULT_DESCRIPTION,
+                "Added field is not left with its initial value");
+
+        EvolvedRecord evolvedRecord = new EvolvedRecord();
+        evolvedRecord.name = "evolved";
+        evolvedRecord.size = Long.MAX_VALUE;
+        evolvedRecord.description = "current";
+        CompactPayloadCodec codec = new CompactPayloadCodec();
+        decodedRecord = (EvolvedRecord) codec.decode(codec.encode(evolvedRecord));
+        Assert.assertEquals(decodedRecord.size, Long.MAX_VALUE, "Field of the current type is not decoded");
+        Assert.assertEquals(decodedRecord.description, "current", "Added field is not decoded");
+    }
+
+    private PayloadRecord getPayloadRecord() {
+        PayloadRecord payloadRecord = new PayloadRecord();
+        payloadRecord.name = "record";
+        payloadRecord.count = -7;
+        payloadRecord.time = 1476800000000L;
+        payloadRecord.enabled = true;
+        payloadRecord.ratio = 0.25;
+        payloadRecord.created = new Date(1476800000000L);
+        payloadRecord.status = Operation.Status.PENDING;
+        payloadRecord.tags = new ArrayList<>(Arrays.asList("first", "second"));
+        payloadRecord.limits = new LinkedHashMap<>();
+        payloadRecord.limits.put("cpu", 80);
+        payloadRecord.limits.put("memory", 512);
+        payloadRecord.shared = payloadRecord.tags;
+        payloadRecord.cache = "transient";
+        payloadRecord.child = new PayloadRecord();
+        payloadRecord.child.name = "child";
+        payloadRecord.child.child = payloadRecord;
+        return payloadRecord;
+    }
+
+    private void assertPayloadRecord(PayloadRecord actual, PayloadRecord expected) {
+        Assert.assertEquals(actual.name, expected.name);
+        Assert.assertEquals(actual.count, expected.count);
+        Assert.assertEquals(actual.time, expected.time);
+        Assert.assertEquals(actual.enabled, expected.enabled);
+        Assert.assertEquals(actual.ratio, expected.ratio);
+        Assert.assertEquals(actual.created, expected.created);
+        Assert.assertEquals(actual.status, expected.status);
+        Assert.assertEquals(actual.tags, expected.tags);
+        Assert.assertEquals(actual.limits, expected.limits);
+        Assert.assertEquals(actual.child.name, expected.child.name);
+    }
+
+    private static byte[] fromHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    private PolicyOperation getPolicyOperation() {
+        List<ProfileOperation> profileOperations = new ArrayList<>();
+        for (int i = 0; i < PROFILE_OPERATION_COUNT; i++) {
+            ProfileOperation profileOperation = new ProfileOperation();
+            profileOperation.setCode("FEATURE_" + i);
+            profileOperation.setEnabled(true);
+            profileOperation.setStatus(Operation.Status.PENDING);
+            profileOperation.setType(Operation.Type.PROFILE);
+            profileOperation.setPayLoad("{\"enabled\":true,\"value\":" + i + "}");
+            profileOperations.add(profileOperation);
+        }
+        PolicyOperation policyOperation = new PolicyOperation();
+        policyOperation.setId(1);
+        policyOperation.setCode("POLICY_BUNDLE");
+        policyOperation.setEnabled(true);
+        policyOperation.setType(Operation.Type.POLICY);
+        policyOperation.setProfileOperations(profileOperations);
+        policyOperation.setPayLoad(profileOperations);
+        return policyOperation;
+    }
+
+    private void assertPolicyOperation(PolicyOperation actual, PolicyOperation expected) {
+        Assert.assertEquals(actual.getId(), expected.getId());
+        Assert.assertEquals(actual.getCode(), expected.getCode());
+        Assert.assertEquals(actual.getType(), expected.getType());
+        Assert.assertEquals(actual.isEnabled(), expected.isEnabled());
+        Assert.assertEquals(actual.getProfileOperations().size(), expected.getProfileOperations().size());
+        for (int i = 0; i < expected.getProfileOperations().size(); i++) {
+            ProfileOperation actualProfileOperation = actual.getProfileOperations().get(i);
+            ProfileOperation expectedProfileOperation = expected.getProfileOperations().get(i);
+            Assert.assertEquals(actualProfileOperation.getCode(), expectedProfileOperation.getCode());
+            Assert.assertEquals(actualProfileOperation.getStatus(), expectedProfileOperation.getStatus());
+            Assert.assertEquals(actualProfileOperation.getPayLoad(), expectedProfileOperation.getPayLoad());
+        }
+    }
+
+    private static class PayloadRecord implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String name;
+        private int count;
+        private long time;
+        private boolean enabled;
+        private double ratio;
+        private Date created;
+        private Operation.Status status;
+        private List<String> tags;
+        private Map<String, Integer> limits;
+        private Object shared;
+        private PayloadRecord child;
+        private transient String cache;
+    }
+
+    private static class EvolvedRecord implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+        private static final String DEFAULT_DESCRIPTION = "none";
+
+        private String name;
+        private int count;
+        private Operation.Status status;
+        private long size;
+        private String description = DEFAULT_DESCRIPTION;
+    }
+
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.operation.mgt.payload;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.core.TestUtils;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.Operation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.PolicyOperation;
+import org.wso2.carbon.device.mgt.core.dto.operation.mgt.ProfileOperation;
+import org.wso2.carbon.device.mgt.core.operation.mgt.dao.OperationManagementDAOFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests the migration of Java serialized payloads to the compact format. Every payload table is seeded with more Java
+ * serialized rows than fit in a batch of the migrator, and the operation configuration table also with a row that
+ * is already in the compact format.
+ */
+public class OperationPayloadMigratorTests extends BaseDeviceManagementTest {
+
+    private static final String DEVICE_TYPE = "payload-migration";
+    private static final int ROW_COUNT = 3;
+    private static final int BATCH_SIZE = 2;
+
+    /**
+     * Table, id column and payload column of every table holding encoded payloads.
+     */
+    private static final String[][] PAYLOAD_COLUMNS = {
+            {"DM_CONFIG_OPERATION", "OPERATION_ID", "OPERATION_CONFIG"},
+            {"DM_PROFILE_OPERATION", "OPERATION_ID", "OPERATION_DETAILS"},
+            {"DM_POLICY_OPERATION", "OPERATION_ID", "OPERATION_DETAILS"},
+            {"DM_DEVICE_OPERATION_RESPONSE", "ID", "OPERATION_RESPONSE"},
+            {"DM_DEVICE_POLICY_APPLIED", "ID", "POLICY_CONTENT"}
+    };
+
+    private final OperationPayloadCodec javaCodec = new JavaSerializationPayloadCodec();
+    private final OperationPayloadCodec compactCodec = new CompactPayloadCodec();
+    private final Map<String, Map<Integer, Object>> seededPayloads = new LinkedHashMap<>();
+    private int deviceId;
+    private int enrolmentId;
+    private int compactOperationId;
+    private byte[] compactPayload;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        OperationManagementDAOFactory.init(this.getDataSource());
+
+        this.executeUpdate("INSERT INTO DM_DEVICE_TYPE (NAME, PROVIDER_TENANT_ID) VALUES ('" + DEVICE_TYPE + "', ?)",
+                null, TestDataHolder.SUPER_TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE (DESCRIPTION, NAME, DEVICE_TYPE_ID, DEVICE_IDENTIFICATION, " +
+                "LAST_UPDATED_TIMESTAMP, TENANT_ID) SELECT 'Payload migration device', 'payload-migration-device', " +
+                "MAX(ID), '" + DEVICE_TYPE + "-1', CURRENT_TIMESTAMP(), ? FROM DM_DEVICE_TYPE WHERE NAME = '" +
+                DEVICE_TYPE + "'", null, TestDataHolder.SUPER_TENANT_ID);
+        deviceId = this.getIds("SELECT ID FROM DM_DEVICE WHERE DEVICE_IDENTIFICATION = '" + DEVICE_TYPE + "-1'")
+                .get(0);
+        this.executeUpdate("INSERT INTO DM_ENROLMENT (DEVICE_ID, OWNER, OWNERSHIP, STATUS, DATE_OF_ENROLMENT, " +
+                "DATE_OF_LAST_UPDATE, TENANT_ID) VALUES (?, 'admin', 'BYOD', 'ACTIVE', CURRENT_TIMESTAMP(), " +
+                "CURRENT_TIMESTAMP(), ?)", null, deviceId, TestDataHolder.SUPER_TENANT_ID);
+        enrolmentId = this.getIds("SELECT ID FROM DM_ENROLMENT WHERE DEVICE_ID = " + deviceId).get(0);
+        this.executeUpdate("INSERT INTO DM_OPERATION (TYPE, CREATED_TIMESTAMP, OPERATION_CODE) SELECT 'PROFILE', " +
+                "CURRENT_TIMESTAMP(), CONCAT('" + DEVICE_TYPE + "-', X) FROM SYSTEM_RANGE(1, ?)", null,
+                ROW_COUNT + 1);
+        List<Integer> operationIds = this.getIds("SELECT ID FROM DM_OPERATION WHERE OPERATION_CODE LIKE '" +
+                DEVICE_TYPE + "-%' ORDER BY ID");
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            int operationId = operationIds.get(i);
+            ProfileOperation configOperation = this.getProfileOperation("CONFIG_" + i);
+            this.executeUpdate("INSERT INTO DM_CONFIG_OPERATION (OPERATION_ID, OPERATION_CONFIG) VALUES (?, ?)",
+                    javaCodec.encode(configOperation), operationId);
+            this.getSeededPayloads("DM_CONFIG_OPERATION").put(operationId, configOperation);
+
+            ProfileOperation profileOperation = this.getProfileOperation("PROFILE_" + i);
+            this.executeUpdate("INSERT INTO DM_PROFILE_OPERATION (OPERATION_ID, ENABLED, OPERATION_DETAILS) " +
+                    "VALUES (?, 1, ?)", javaCodec.encode(profileOperation), operationId);
+            this.getSeededPayloads("DM_PROFILE_OPERATION").put(operationId, profileOperation);
+
+            PolicyOperation policyOperation = this.getPolicyOperation("POLICY_" + i);
+            this.executeUpdate("INSERT INTO DM_POLICY_OPERATION (OPERATION_ID, ENABLED, OPERATION_DETAILS) " +
+                    "VALUES (?, 1, ?)", javaCodec.encode(policyOperation), operationId);
+            this.getSeededPayloads("DM_POLICY_OPERATION").put(operationId, policyOperation);
+
+            this.executeUpdate("INSERT INTO DM_DEVICE_OPERATION_RESPONSE (ENROLMENT_ID, OPERATION_ID, " +
+                    "OPERATION_RESPONSE) VALUES (?, ?, ?)", javaCodec.encode("response-" + i), enrolmentId,
+                    operationId);
+            this.executeUpdate("INSERT INTO DM_DEVICE_POLICY_APPLIED (DEVICE_ID, ENROLMENT_ID, POLICY_ID, " +
+                    "TENANT_ID, APPLIED, POLICY_CONTENT) VALUES (?, ?, ?, ?, 1, ?)",
+                    javaCodec.encode(this.getPolicyOperation("APPLIED_" + i)), deviceId, enrolmentId, i,
+                    TestDataHolder.SUPER_TENANT_ID);
+        }
+        List<Integer> responseIds = this.getIds("SELECT ID FROM DM_DEVICE_OPERATION_RESPONSE WHERE ENROLMENT_ID = " +
+                enrolmentId + " ORDER BY ID");
+        List<Integer> appliedPolicyIds = this.getIds("SELECT ID FROM DM_DEVICE_POLICY_APPLIED WHERE ENROLMENT_ID = " +
+                enrolmentId + " ORDER BY ID");
+        for (int i = 0; i < ROW_COUNT; i++) {
+            this.getSeededPayloads("DM_DEVICE_OPERATION_RESPONSE").put(responseIds.get(i), "response-" + i);
+            this.getSeededPayloads("DM_DEVICE_POLICY_APPLIED").put(appliedPolicyIds.get(i),
+                    this.getPolicyOperation("APPLIED_" + i));
+        }
+
+        compactOperationId = operationIds.get(ROW_COUNT);
+        compactPayload = compactCodec.encode(this.getProfileOperation("COMPACT"));
+        this.executeUpdate("INSERT INTO DM_CONFIG_OPERATION (OPERATION_ID, OPERATION_CONFIG) VALUES (?, ?)",
+                compactPayload, compactOperationId);
+
+        OperationPayloadCodecManager.getInstance().setDefaultCodec(compactCodec);
+    }
+
+    @AfterClass
+    public void cleanup() throws Exception {
+        OperationPayloadCodecManager.getInstance().setDefaultCodec(javaCodec);
+
+        String operations = "SELECT ID FROM DM_OPERATION WHERE OPERATION_CODE LIKE '" + DEVICE_TYPE + "-%'";
+        this.executeUpdate("DELETE FROM DM_DEVICE_POLICY_APPLIED WHERE ENROLMENT_ID = ?", null, enrolmentId);
+        this.executeUpdate("DELETE FROM DM_DEVICE_OPERATION_RESPONSE WHERE ENROLMENT_ID = ?", null, enrolmentId);
+        this.executeUpdate("DELETE FROM DM_POLICY_OPERATION WHERE OPERATION_ID IN (" + operations + ")", null);
+        this.executeUpdate("DELETE FROM DM_PROFILE_OPERATION WHERE OPERATION_ID IN (" + operations + ")", null);
+        this.executeUpdate("DELETE FROM DM_CONFIG_OPERATION WHERE OPERATION_ID IN (" + operations + ")", null);
+        this.executeUpdate("DELETE FROM DM_OPERATION WHERE OPERATION_CODE LIKE '" + DEVICE_TYPE + "-%'", null);
+        this.executeUpdate("DELETE FROM DM_ENROLMENT WHERE ID = ?", null, enrolmentId);
+        this.executeUpdate("DELETE FROM DM_DEVICE WHERE ID = ?", null, deviceId);
+        this.executeUpdate("DELETE FROM DM_DEVICE_TYPE WHERE NAME = '" + DEVICE_TYPE + "'", null);
+    }
+
+    @Test
+    public void testLegacyPayloadsAreRewrittenInCompactFormat() throws Exception {
+        new OperationPayloadMigrator(BATCH_SIZE).run();
+
+        OperationPayloadCodecManager codecManager = OperationPayloadCodecManager.getInstance();
+        for (String[] payloadColumn : PAYLOAD_COLUMNS) {
+            Map<Integer, byte[]> payloads = this.getPayloads(payloadColumn[0], payloadColumn[1], payloadColumn[2]);
+            for (Map.Entry<Integer, Object> seededPayload : this.getSeededPayloads(payloadColumn[0]).entrySet()) {
+                String row = "'" + payloadColumn[0] + "' row '" + seededPayload.getKey() + "'";
+                byte[] payload = payloads.get(seededPayload.getKey());
+                Assert.assertEquals(payload[0], CompactPayloadCodec.FORMAT, "Payload of " + row +
+                        " is not rewritten in the compact format");
+                this.assertPayload(codecManager.decode(payload), seededPayload.getValue(), row);
+            }
+        }
+        Assert.assertEquals(this.getPayloads("DM_CONFIG_OPERATION", "OPERATION_ID", "OPERATION_CONFIG")
+                .get(compactOperationId), compactPayload, "Payload already in the compact format is rewritten");
+    }
+
+    @Test(dependsOnMethods = "testLegacyPayloadsAreRewrittenInCompactFormat")
+    public void testMigrationIsResumable() throws Exception {
+        OperationPayloadMigrator migrator = new OperationPayloadMigrator(BATCH_SIZE);
+        for (String[] payloadColumn : PAYLOAD_COLUMNS) {
+            Assert.assertEquals(migrator.migrate(payloadColumn[0], payloadColumn[1], payloadColumn[2]), 0,
+                    "Payloads of '" + payloadColumn[0] + "' are rewritten again");
+        }
+    }
+
+    private void assertPayload(Object actual, Object expected, String row) {
+        if (expected instanceof Operation) {
+            Assert.assertNotNull(actual, "Payload of " + row + " is not decoded");
+            Assert.assertEquals(actual.getClass(), expected.getClass(), "Payload of " + row + " is not decoded");
+            this.assertOperation((Operation) actual, (Operation) expected, row);
+        } else {
+            Assert.assertEquals(actual, expected, "Payload of " + row + " is not decoded to the same value");
+        }
+    }
+
+    private void assertOperation(Operation actual, Operation expected, String row) {
+        Assert.assertEquals(actual.getCode(), expected.getCode(), "Operation of " + row + " is not decoded");
+        Assert.assertEquals(actual.getType(), expected.getType());
+        Assert.assertEquals(actual.getStatus(), expected.getStatus());
+        Assert.assertEquals(actual.isEnabled(), expected.isEnabled());
+        if (expected instanceof PolicyOperation) {
+            List<ProfileOperation> actualProfileOperations = ((PolicyOperation) actual).getProfileOperations();
+            List<ProfileOperation> expectedProfileOperations = ((PolicyOperation) expected).getProfileOperations();
+            Assert.assertEquals(actualProfileOperations.size(), expectedProfileOperations.size());
+            for (int i = 0; i < expectedProfileOperations.size(); i++) {
+                this.assertOperation(actualProfileOperations.get(i), expectedProfileOperations.get(i), row);
+            }
+            Assert.assertSame(actual.getPayLoad(), actualProfileOperations,
+                    "Shared references of " + row + " are not preserved");
+        } else {
+            Assert.assertEquals(actual.getPayLoad(), expected.getPayLoad(), "Operation of " + row +
+                    " is not decoded");
+        }
+    }
+
+    private ProfileOperation getProfileOperation(String code) {
+        ProfileOperation profileOperation = new ProfileOperation();
+        profileOperation.setCode(code);
+        profileOperation.setEnabled(true);
+        profileOperation.setStatus(Operation.Status.PENDING);
+        profileOperation.setType(Operation.Type.PROFILE);
+        profileOperation.setPayLoad("{\"code\":\"" + code + "\"}");
+        return profileOperation;
+    }
+
+    private PolicyOperation getPolicyOperation(String code) {
+        List<ProfileOperation> profileOperations = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            profileOperations.add(this.getProfileOperation(code + "_FEATURE_" + i));
+        }
+        PolicyOperation policyOperation = new PolicyOperation();
+        policyOperation.setCode(code);
+        policyOperation.setEnabled(true);
+        policyOperation.setType(Operation.Type.POLICY);
+        policyOperation.setProfileOperations(profileOperations);
+        policyOperation.setPayLoad(profileOperations);
+        return policyOperation;
+    }
+
+    private Map<Integer, Object> getSeededPayloads(String tableName) {
+        Map<Integer, Object> payloads = seededPayloads.get(tableName);
+        if (payloads == null) {
+            payloads = new LinkedHashMap<>();
+            seededPayloads.put(tableName, payloads);
+        }
+        return payloads;
+    }
+
+    private Map<Integer, byte[]> getPayloads(String tableName, String idColumn, String payloadColumn)
+            throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        Map<Integer, byte[]> payloads = new LinkedHashMap<>();
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("SELECT " + idColumn + ", " + payloadColumn + " FROM " + tableName);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                payloads.put(rs.getInt(idColumn), rs.getBytes(payloadColumn));
+            }
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+        return payloads;
+    }
+
+    private List<Integer> getIds(String sql) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        List<Integer> ids = new ArrayList<>();
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement(sql);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+        return ids;
+    }
+
+    /**
+     * Executes an update with the given integer parameters, followed by the given payload if there is one.
+     */
+    private void executeUpdate(String sql, byte[] payload, int... parameters) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setInt(i + 1, parameters[i]);
+            }
+            if (payload != null) {
+                stmt.setBytes(parameters.length + 1, payload);
+            }
+            stmt.executeUpdate();
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, null);
+        }
+    }
+
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.push.notification.mgt;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.push.notification.BatchNotificationStrategy;
+import org.wso2.carbon.device.mgt.common.push.notification.NotificationContext;
+import org.wso2.carbon.device.mgt.common.push.notification.PushNotificationExecutionFailedException;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class PushNotificationDispatcherTests {
+
+    private static final long TIMEOUT = 10000;
+
+    @Test
+    public void testNotificationsAreSplitIntoBatches() {
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(1, 10, 2, 0, 1);
+        // Once the dispatcher is shut down, notifications are sent by the caller, which makes the batches predictable
+        dispatcher.shutdown();
+        TestNotificationStrategy strategy = new TestNotificationStrategy();
+
+        this.dispatch(dispatcher, strategy, "alice", "device-1", "device-2", "device-3");
+
+        Assert.assertEquals(strategy.batches, Arrays.asList(Arrays.asList("device-1", "device-2"),
+                Collections.singletonList("device-3")),
+                "Notifications are not split into batches of the configured size");
+        Assert.assertEquals(strategy.usernames, Arrays.asList("alice", "alice"));
+        Assert.assertEquals(dispatcher.getCallerSentNotificationCount(), 3);
+        Assert.assertEquals(dispatcher.getBatchCount(), 2);
+        Assert.assertEquals(dispatcher.getSentNotificationCount(), 3);
+        Assert.assertEquals(dispatcher.getMaxBatchSize(), 2);
+        Assert.assertEquals(dispatcher.getAverageBatchSize(), 1.5, 0.001);
+    }
+
+    @Test
+    public void testQueuedNotificationsAreBatchedPerUser() throws InterruptedException {
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(1, 10, 10, 0, 1);
+        TestNotificationStrategy blockingStrategy = new TestNotificationStrategy();
+        blockingStrategy.started = new CountDownLatch(1);
+        blockingStrategy.release = new CountDownLatch(1);
+        TestNotificationStrategy strategy = new TestNotificationStrategy();
+
+        // The only sender is kept busy, so that the notifications of both users are queued and drained together
+        this.dispatch(dispatcher, blockingStrategy, "admin", "device-0");
+        Assert.assertTrue(blockingStrategy.started.await(TIMEOUT, TimeUnit.MILLISECONDS));
+        this.dispatch(dispatcher, strategy, "alice", "device-1");
+        this.dispatch(dispatcher, strategy, "bob", "device-2");
+        this.dispatch(dispatcher, strategy, "alice", "device-3");
+        blockingStrategy.release.countDown();
+        dispatcher.shutdown();
+
+        Assert.assertEquals(strategy.batches, Arrays.asList(Arrays.asList("device-1", "device-3"),
+                Collections.singletonList("device-2")), "Notifications of different users are sent together");
+        Assert.assertEquals(strategy.usernames, Arrays.asList("alice", "bob"),
+                "Batches are not sent in the carbon context of the user who added the notifications");
+        Assert.assertEquals(dispatcher.getCallerSentNotificationCount(), 0);
+        Assert.assertEquals(dispatcher.getBatchCount(), 3);
+    }
+
+    @Test
+    public void testQueuedNotificationsAreFlushedOnShutdown() {
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(1, 10, 10, 0, 1);
+        TestNotificationStrategy strategy = new TestNotificationStrategy();
+
+        this.dispatch(dispatcher, strategy, "alice", "device-1", "device-2", "device-3");
+        dispatcher.shutdown();
+
+        Set<String> sentDeviceIds = new HashSet<>();
+        for (List<String> batch : strategy.batches) {
+            sentDeviceIds.addAll(batch);
+        }
+        Assert.assertEquals(sentDeviceIds, new HashSet<>(Arrays.asList("device-1", "device-2", "device-3")),
+                "Queued notifications are not sent before the dispatcher is shut down");
+        Assert.assertEquals(dispatcher.getQueueDepth(), 0);
+        Assert.assertEquals(dispatcher.getSentNotificationCount(), 3);
+        Assert.assertEquals(dispatcher.getCallerSentNotificationCount(), 0,
+                "Notifications are sent by the caller while the queue has room");
+    }
+
+    @Test
+    public void testFailedNotificationsAreRetried() throws InterruptedException {
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(1, 10, 10, 2, 1);
+        TestNotificationStrategy strategy = new TestNotificationStrategy();
+        strategy.failures = 1;
+
+        this.dispatch(dispatcher, strategy, "alice", "device-1");
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (dispatcher.getSentNotificationCount() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        dispatcher.shutdown();
+
+        Assert.assertEquals(dispatcher.getSentNotificationCount(), 1, "Failed notification is not sent again");
+        Assert.assertEquals(dispatcher.getRetriedNotificationCount(), 1);
+        Assert.assertEquals(dispatcher.getFailedNotificationCount(), 0);
+        Assert.assertEquals(dispatcher.getBatchCount(), 2);
+    }
+
+    @Test
+    public void testNotificationsAreDroppedAfterMaxRetries() {
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(1, 10, 10, 0, 1);
+        dispatcher.shutdown();
+        TestNotificationStrategy strategy = new TestNotificationStrategy();
+        strategy.failures = 1;
+
+        this.dispatch(dispatcher, strategy, "alice", "device-1", "device-2");
+
+        Assert.assertEquals(dispatcher.getSentNotificationCount(), 0);
+        Assert.assertEquals(dispatcher.getFailedNotificationCount(), 2);
+        Assert.assertEquals(dispatcher.getRetriedNotificationCount(), 0);
+    }
+
+    @Test
+    public void testStatisticsAreExposedThroughMBean() throws Exception {
+        PushNotificationDispatcher dispatcher = new PushNotificationDispatcher(1, 10, 2, 0, 1);
+        dispatcher.shutdown();
+        this.dispatch(dispatcher, new TestNotificationStrategy(), "alice", "device-1", "device-2", "device-3");
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("org.wso2.carbon.device.mgt:type=PushNotificationDispatcherTests");
+        mBeanServer.registerMBean(new StandardMBean(dispatcher, PushNotificationDispatcherStatisticsMBean.class,
+                false), objectName);
+        try {
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "BatchCount"), 2L);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "SentNotificationCount"), 3L);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "MaxBatchSize"), 2L);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "AverageBatchSize"), 1.5);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "QueueDepth"), 0);
+
+            mBeanServer.invoke(objectName, "resetStatistics", null, null);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "BatchCount"), 0L);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "SentNotificationCount"), 0L);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "CallerSentNotificationCount"), 0L);
+            Assert.assertEquals(mBeanServer.getAttribute(objectName, "AverageBatchSize"), 0.0);
+        } finally {
+            mBeanServer.unregisterMBean(objectName);
+        }
+    }
+
+    private void dispatch(PushNotificationDispatcher dispatcher, TestNotificationStrategy strategy, String username,
+                          String... deviceIds) {
+        List<NotificationContext> notificationContexts = new ArrayList<>();
+        for (String deviceId : deviceIds) {
+            notificationContexts.add(new NotificationContext(new DeviceIdentifier(deviceId, "android")));
+        }
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setUsername(username);
+            dispatcher.dispatch(strategy, notificationContexts);
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+    }
+
+    /**
+     * Records the batches it is asked to send along with the user in whose context they are sent. It fails the given
+     * number of times before succeeding, and can be made to wait until it is released.
+     */
+    private static class TestNotificationStrategy implements BatchNotificationStrategy {
+
+        private final List<List<String>> batches = Collections.synchronizedList(new ArrayList<List<String>>());
+        private final List<String> usernames = Collections.synchronizedList(new ArrayList<String>());
+        private volatile int failures;
+        private CountDownLatch started;
+        private CountDownLatch release;
+
+        @Override
+        public void execute(List<NotificationContext> contexts) throws PushNotificationExecutionFailedException {
+            if (release != null) {
+                started.countDown();
+                try {
+                    release.await(TIMEOUT, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failures > 0) {
+                failures--;
+                throw new PushNotificationExecutionFailedException("Failure of the test notification strategy");
+            }
+            List<String> deviceIds = new ArrayList<>();
+            for (NotificationContext context : contexts) {
+                deviceIds.add(context.getDeviceId().getId());
+            }
+            batches.add(deviceIds);
+            usernames.add(PrivilegedCarbonContext.getThreadLocalCarbonContext().getUsername());
+        }
+
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public void execute(NotificationContext ctx) throws PushNotificationExecutionFailedException {
+            this.execute(Collections.singletonList(ctx));
+        }
+
+        @Override
+        public NotificationContext buildContext() {
+            return null;
+        }
+    }
+
+}
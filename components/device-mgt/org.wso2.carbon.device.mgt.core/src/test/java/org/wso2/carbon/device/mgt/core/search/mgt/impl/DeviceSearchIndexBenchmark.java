@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.search.mgt.impl;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.search.Condition;
+import org.wso2.carbon.device.mgt.common.search.SearchContext;
+import org.wso2.carbon.device.mgt.core.TestUtils;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.search.mgt.Processor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the time taken by database only and index backed device searches over a large number of synthetic devices
+ * in H2. This is not part of the default test suite, run it with
+ * {@code mvn test -Dtest=DeviceSearchIndexBenchmark [-Dsearch.benchmark.devices=100000]}.
+ */
+public class DeviceSearchIndexBenchmark extends BaseDeviceManagementTest {
+
+    private static final Log log = LogFactory.getLog(DeviceSearchIndexBenchmark.class);
+    private static final int TENANT_ID = 9999;
+    private static final int DEVICE_COUNT = Integer.getInteger("search.benchmark.devices", 100000);
+    private static final int ITERATIONS = Integer.getInteger("search.benchmark.iterations", 20);
+    private static final int PAGE_SIZE = 20;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        long startTime = System.currentTimeMillis();
+        this.executeUpdate("INSERT INTO DM_DEVICE_TYPE (NAME, PROVIDER_TENANT_ID) VALUES ('benchmark', ?)",
+                TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE (DESCRIPTION, NAME, DEVICE_TYPE_ID, DEVICE_IDENTIFICATION, " +
+                "LAST_UPDATED_TIMESTAMP, TENANT_ID) SELECT 'Benchmark device', CONCAT('device-', X), " +
+                "(SELECT MAX(ID) FROM DM_DEVICE_TYPE WHERE NAME = 'benchmark'), CONCAT('benchmark-', X), " +
+                "CURRENT_TIMESTAMP(), ? FROM SYSTEM_RANGE(1, ?)", TENANT_ID, DEVICE_COUNT);
+        this.executeUpdate("INSERT INTO DM_DEVICE_DETAIL (DEVICE_ID, DEVICE_MODEL, VENDOR, OS_VERSION, " +
+                "OS_BUILD_DATE, BATTERY_LEVEL, INTERNAL_TOTAL_MEMORY, INTERNAL_AVAILABLE_MEMORY, " +
+                "EXTERNAL_TOTAL_MEMORY, EXTERNAL_AVAILABLE_MEMORY, CONNECTION_TYPE, SSID, CPU_USAGE, " +
+                "TOTAL_RAM_MEMORY, AVAILABLE_RAM_MEMORY, PLUGGED_IN, UPDATE_TIMESTAMP) SELECT ID, " +
+                "CONCAT('model-', MOD(ID, 100)), CONCAT('vendor-', MOD(ID, 10)), CONCAT('7.', MOD(ID, 3)), " +
+                "'2016-01-01', MOD(ID * 7, 101), 16000, MOD(ID, 16000), 32000, MOD(ID, 32000), 'WIFI', " +
+                "CONCAT('ssid-', MOD(ID, 50)), MOD(ID * 13, 100), 4000, MOD(ID, 4000), MOD(ID, 2), 0 " +
+                "FROM DM_DEVICE WHERE TENANT_ID = ?", TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE_LOCATION (DEVICE_ID, LATITUDE, LONGITUDE, STREET1, CITY, ZIP, " +
+                "STATE, COUNTRY, UPDATE_TIMESTAMP) SELECT ID, MOD(ID, 90), MOD(ID, 180), " +
+                "CONCAT('street-', MOD(ID, 1000)), CONCAT('city-', MOD(ID, 200)), CONCAT('zip-', MOD(ID, 500)), " +
+                "CONCAT('state-', MOD(ID, 20)), 'Sri Lanka', 0 FROM DM_DEVICE WHERE TENANT_ID = ?", TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE_INFO (DEVICE_ID, KEY_FIELD, VALUE_FIELD) SELECT ID, " +
+                "'BATTERY_VOLTAGE', CONCAT('', MOD(ID, 50)) FROM DM_DEVICE WHERE TENANT_ID = ?", TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE_INFO (DEVICE_ID, KEY_FIELD, VALUE_FIELD) SELECT ID, " +
+                "'IMEI', CONCAT('imei-', ID) FROM DM_DEVICE WHERE TENANT_ID = ?", TENANT_ID);
+        log.info(DEVICE_COUNT + " synthetic devices have been added in " +
+                (System.currentTimeMillis() - startTime) + "ms");
+    }
+
+    @Test
+    public void benchmarkSearch() throws Exception {
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(TENANT_ID);
+        try {
+            DeviceSearchIndexManagerImpl indexManager = new DeviceSearchIndexManagerImpl(true);
+            long startTime = System.currentTimeMillis();
+            indexManager.loadIndex();
+            log.info("Device search index has been loaded in " + (System.currentTimeMillis() - startTime) + "ms");
+
+            Processor sqlProcessor = new ProcessorImpl(new DeviceSearchIndexManagerImpl(false));
+            Processor indexProcessor = new ProcessorImpl(indexManager);
+            for (Map.Entry<String, SearchContext> search : this.getSearches().entrySet()) {
+                Assert.assertEquals(this.getDeviceIds(indexProcessor.execute(search.getValue())),
+                        this.getDeviceIds(sqlProcessor.execute(search.getValue())),
+                        "Index backed search of '" + search.getKey() + "' returned different devices");
+                double sqlTime = this.getAverageTime(sqlProcessor, search.getValue());
+                double indexTime = this.getAverageTime(indexProcessor, search.getValue());
+                log.info(String.format("%s : SQL only %.2fms, index backed %.2fms per page of %d devices",
+                        search.getKey(), sqlTime, indexTime, PAGE_SIZE));
+            }
+        } finally {
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenantId);
+        }
+    }
+
+    @AfterClass
+    public void cleanup() throws Exception {
+        String devices = "SELECT ID FROM DM_DEVICE WHERE TENANT_ID = ?";
+        this.executeUpdate("DELETE FROM DM_DEVICE_INFO WHERE DEVICE_ID IN (" + devices + ")", TENANT_ID);
+        this.executeUpdate("DELETE FROM DM_DEVICE_LOCATION WHERE DEVICE_ID IN (" + devices + ")", TENANT_ID);
+        this.executeUpdate("DELETE FROM DM_DEVICE_DETAIL WHERE DEVICE_ID IN (" + devices + ")", TENANT_ID);
+        this.executeUpdate("DELETE FROM DM_DEVICE WHERE TENANT_ID = ?", TENANT_ID);
+        this.executeUpdate("DELETE FROM DM_DEVICE_TYPE WHERE NAME = 'benchmark' AND PROVIDER_TENANT_ID = ?",
+                TENANT_ID);
+    }
+
+    private Map<String, SearchContext> getSearches() {
+        Map<String, SearchContext> searches = new LinkedHashMap<>();
+        searches.put("Equality", this.getSearchContext(0,
+                this.getCondition("vendor", "=", "vendor-3", Condition.State.AND)));
+        searches.put("Deep page", this.getSearchContext(DEVICE_COUNT / 20,
+                this.getCondition("vendor", "=", "vendor-3", Condition.State.AND)));
+        searches.put("Range and property", this.getSearchContext(0,
+                this.getCondition("batteryLevel", ">", "90", Condition.State.AND),
+                this.getCondition("BATTERY_VOLTAGE", "=", "40", Condition.State.AND)));
+        searches.put("Rare property", this.getSearchContext(0,
+                this.getCondition("IMEI", "=", "imei-" + (DEVICE_COUNT / 2), Condition.State.AND)));
+        searches.put("AND with OR location", this.getSearchContext(0,
+                this.getCondition("vendor", "=", "vendor-3", Condition.State.AND),
+                this.getCondition("cpuUsage", "<", "10", Condition.State.AND),
+                this.getCondition("LOCATION", "=", "city-7", Condition.State.OR)));
+        return searches;
+    }
+
+    private SearchContext getSearchContext(int offset, Condition... conditions) {
+        SearchContext context = new SearchContext();
+        List<Condition> list = new ArrayList<>();
+        for (Condition condition : conditions) {
+            list.add(condition);
+        }
+        context.setConditions(list);
+        context.setOffset(offset);
+        context.setLimit(PAGE_SIZE);
+        return context;
+    }
+
+    private Condition getCondition(String key, String operator, String value, Condition.State state) {
+        Condition condition = new Condition();
+        condition.setKey(key);
+        condition.setOperator(operator);
+        condition.setValue(value);
+        condition.setState(state);
+        return condition;
+    }
+
+    private double getAverageTime(Processor processor, SearchContext context) throws Exception {
+        processor.execute(context);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            processor.execute(context);
+        }
+        return (System.nanoTime() - startTime) / 1000000.0 / ITERATIONS;
+    }
+
+    private List<Integer> getDeviceIds(List<Device> devices) {
+        List<Integer> deviceIds = new ArrayList<>();
+        for (Device device : devices) {
+            deviceIds.add(device.getId());
+        }
+        return deviceIds;
+    }
+
+    private void executeUpdate(String sql, int... parameters) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setInt(i + 1, parameters[i]);
+            }
+            stmt.executeUpdate();
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, null);
+        }
+    }
+
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.search.mgt.impl;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.common.search.Condition;
+import org.wso2.carbon.device.mgt.core.search.mgt.Constants;
+import org.wso2.carbon.device.mgt.core.search.mgt.InvalidOperatorException;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DeviceSearchIndexTests {
+
+    private static final int TENANT_ID = -1234;
+
+    @Test
+    public void testBitmapRepresentation() {
+        DeviceIdBitmap bitmap = new DeviceIdBitmap();
+        for (int deviceId = 1000; deviceId > 0; deviceId -= 100) {
+            bitmap.add(deviceId);
+        }
+        Assert.assertFalse(bitmap.isDense(), "Sparse set of ids is kept as a bitmap");
+        for (int deviceId = 1; deviceId <= 200; deviceId++) {
+            bitmap.add(deviceId);
+        }
+        Assert.assertTrue(bitmap.isDense(), "Dense set of ids is kept as an array");
+        Assert.assertEquals(bitmap.size(), 208);
+        for (int deviceId = 1; deviceId <= 200; deviceId++) {
+            bitmap.remove(deviceId);
+        }
+        Assert.assertFalse(bitmap.isDense(), "Set of ids is not compressed again once it becomes sparse");
+        Assert.assertEquals(bitmap.size(), 8);
+        Assert.assertTrue(bitmap.contains(1000));
+        Assert.assertFalse(bitmap.contains(100));
+        Assert.assertEquals(bitmap.toBitSet().cardinality(), 8);
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        DeviceSearchIndex index = new DeviceSearchIndex();
+        this.addDevice(index, 1, "Samsung", 20.0, "Colombo", "40");
+        this.addDevice(index, 2, "Samsung", 80.0, "Kandy", "50");
+        this.addDevice(index, 3, "LG", 60.0, "Colombo", null);
+        index.putValue(4, Constants.DEVICE_PROPERTY_FIELD_PREFIX + "BATTERY_VOLTAGE", "40");
+
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("vendor", "=", "Samsung", Condition.State.AND))), this.getDeviceIds(1, 2));
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("vendor", "!=", "Samsung", Condition.State.AND))), this.getDeviceIds(3));
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("batteryLevel", ">=", "60", Condition.State.AND),
+                this.getCondition("vendor", "=", "Samsung", Condition.State.AND))), this.getDeviceIds(2));
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("BATTERY_LEVEL", "<", "30", Condition.State.AND),
+                this.getCondition("LOCATION", "=", "andy", Condition.State.OR))), this.getDeviceIds(1, 2));
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("BATTERY_VOLTAGE", "=", "40", Condition.State.AND))), this.getDeviceIds(1),
+                "Device without device details is matched");
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("city", "=", "Colombo", Condition.State.AND),
+                this.getCondition("BATTERY_VOLTAGE", "<>", "40", Condition.State.AND))), new BitSet());
+        Assert.assertEquals(index.search(null), this.getDeviceIds(1, 2, 3));
+    }
+
+    @Test(expectedExceptions = InvalidOperatorException.class)
+    public void testSearchWithInvalidOperator() throws Exception {
+        new DeviceSearchIndex().search(this.getConditions(
+                this.getCondition("vendor", "LIKE", "Samsung", Condition.State.AND)));
+    }
+
+    @Test
+    public void testValuesAreReplaced() throws Exception {
+        DeviceSearchIndex index = new DeviceSearchIndex();
+        this.addDevice(index, 1, "Samsung", 20.0, "Colombo", "40");
+        Map<String, Object> details = new HashMap<>();
+        details.put("VENDOR", "LG");
+        index.replaceValues(1, Constants.DEVICE_DETAILS_FIELD_PREFIX, details);
+        index.replaceValues(1, Constants.DEVICE_PROPERTY_FIELD_PREFIX, Collections.<String, Object>emptyMap());
+
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("vendor", "=", "Samsung", Condition.State.AND))), new BitSet());
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("vendor", "=", "LG", Condition.State.AND))), this.getDeviceIds(1));
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("batteryLevel", ">", "0", Condition.State.AND))), new BitSet(),
+                "Removed device detail is still indexed");
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("BATTERY_VOLTAGE", "=", "40", Condition.State.AND))), new BitSet(),
+                "Removed device property is still indexed");
+        Assert.assertEquals(index.getDeviceCount(), 1);
+    }
+
+    @Test
+    public void testRemoveDevice() throws Exception {
+        DeviceSearchIndex index = new DeviceSearchIndex();
+        this.addDevice(index, 1, "Samsung", 20.0, "Colombo", "40");
+        this.addDevice(index, 2, "Samsung", 80.0, "Kandy", "50");
+        index.removeDevice(1);
+
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("vendor", "=", "Samsung", Condition.State.AND))), this.getDeviceIds(2));
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("LOCATION", "=", "Colombo", Condition.State.AND))), new BitSet(),
+                "Location of the removed device is still indexed");
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("BATTERY_VOLTAGE", "=", "40", Condition.State.AND))), new BitSet(),
+                "Property of the removed device is still indexed");
+        Assert.assertEquals(index.search(null), this.getDeviceIds(2));
+        Assert.assertEquals(index.getDeviceCount(), 1);
+    }
+
+    @Test
+    public void testLoadedValuesDoNotOverwriteUpdates() throws Exception {
+        DeviceSearchIndex index = new DeviceSearchIndex(true);
+        Map<String, Object> details = new HashMap<>();
+        details.put("VENDOR", "LG");
+        index.replaceValues(1, Constants.DEVICE_DETAILS_FIELD_PREFIX, details);
+        this.addDevice(index, 2, "Samsung", 80.0, "Kandy", "50");
+        index.removeDevice(2);
+
+        // Rows read by the loader before the update of device 1 and the removal of device 2
+        this.loadDevice(index, 1, "Samsung", 20.0, "Colombo", "40");
+        this.loadDevice(index, 2, "Samsung", 80.0, "Kandy", "50");
+        this.loadDevice(index, 3, "Samsung", 60.0, "Galle", null);
+
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("vendor", "=", "LG", Condition.State.AND))), this.getDeviceIds(1),
+                "Loaded device details overwrote the update");
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("vendor", "=", "Samsung", Condition.State.AND))), this.getDeviceIds(3));
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("city", "=", "Colombo", Condition.State.AND))), this.getDeviceIds(1),
+                "Loaded location of a device whose details were updated is ignored");
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("city", "=", "Kandy", Condition.State.AND))), new BitSet(),
+                "Loaded values of a removed device are indexed");
+
+        index.finishLoading();
+        this.loadDevice(index, 2, "Samsung", 80.0, "Kandy", "50");
+        Assert.assertEquals(index.search(this.getConditions(
+                this.getCondition("vendor", "=", "Samsung", Condition.State.AND))), this.getDeviceIds(2, 3),
+                "Values are still ignored once the index has been loaded");
+    }
+
+    @Test
+    public void testIndexManager() throws Exception {
+        DeviceSearchIndexManagerImpl indexManager = new DeviceSearchIndexManagerImpl(true);
+        DeviceInfo deviceInfo = new DeviceInfo();
+        deviceInfo.setVendor("Samsung");
+        indexManager.updateDeviceInfo(TENANT_ID, 1, deviceInfo);
+        DeviceLocation deviceLocation = new DeviceLocation();
+        deviceLocation.setDeviceId(1);
+        deviceLocation.setCity("Colombo");
+        indexManager.updateDeviceLocation(TENANT_ID, deviceLocation);
+        Assert.assertNull(indexManager.search(TENANT_ID, this.getConditions(
+                this.getCondition("vendor", "=", "Samsung", Condition.State.AND))),
+                "Search is answered before the index has been loaded");
+
+        DeviceSearchIndexManagerImpl disabledIndexManager = new DeviceSearchIndexManagerImpl(false);
+        disabledIndexManager.loadIndex();
+        Assert.assertFalse(disabledIndexManager.isLoaded());
+        Assert.assertNull(disabledIndexManager.search(TENANT_ID, this.getConditions(
+                this.getCondition("vendor", "=", "Samsung", Condition.State.AND))),
+                "Search is answered while the index is disabled");
+    }
+
+    private void addDevice(DeviceSearchIndex index, int deviceId, String vendor, double batteryLevel, String city,
+                           String batteryVoltage) {
+        index.putValue(deviceId, Constants.DEVICE_DETAILS_FIELD_PREFIX + "VENDOR", vendor);
+        index.putValue(deviceId, Constants.DEVICE_DETAILS_FIELD_PREFIX + "BATTERY_LEVEL", batteryLevel);
+        index.putValue(deviceId, Constants.DEVICE_LOCATION_FIELD_PREFIX + "CITY", city);
+        index.putValue(deviceId, Constants.DEVICE_PROPERTY_FIELD_PREFIX + "BATTERY_VOLTAGE", batteryVoltage);
+    }
+
+    private void loadDevice(DeviceSearchIndex index, int deviceId, String vendor, double batteryLevel, String city,
+                            String batteryVoltage) {
+        index.loadValue(deviceId, Constants.DEVICE_DETAILS_FIELD_PREFIX + "VENDOR", vendor);
+        index.loadValue(deviceId, Constants.DEVICE_DETAILS_FIELD_PREFIX + "BATTERY_LEVEL", batteryLevel);
+        index.loadValue(deviceId, Constants.DEVICE_LOCATION_FIELD_PREFIX + "CITY", city);
+        index.loadValue(deviceId, Constants.DEVICE_PROPERTY_FIELD_PREFIX + "BATTERY_VOLTAGE", batteryVoltage);
+    }
+
+    private List<Condition> getConditions(Condition... conditions) {
+        List<Condition> list = new ArrayList<>();
+        Collections.addAll(list, conditions);
+        return list;
+    }
+
+    private Condition getCondition(String key, String operator, String value, Condition.State state) {
+        Condition condition = new Condition();
+        condition.setKey(key);
+        condition.setOperator(operator);
+        condition.setValue(value);
+        condition.setState(state);
+        return condition;
+    }
+
+    private BitSet getDeviceIds(int... deviceIds) {
+        BitSet bitSet = new BitSet();
+        for (int deviceId : deviceIds) {
+            bitSet.set(deviceId);
+        }
+        return bitSet;
+    }
+
+}
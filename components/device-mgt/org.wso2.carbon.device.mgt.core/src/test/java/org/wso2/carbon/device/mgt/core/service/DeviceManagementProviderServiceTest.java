@@ -21,9 +21,28 @@ import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.common.FeatureManager;
+import org.wso2.carbon.device.mgt.common.PaginationRequest;
+import org.wso2.carbon.device.mgt.common.PaginationResult;
+import org.wso2.carbon.device.mgt.core.DeviceManagementPluginRepository;
+import org.wso2.carbon.device.mgt.core.TestBatchDeviceManager;
+import org.wso2.carbon.device.mgt.core.TestDeviceManagementService;
+import org.wso2.carbon.device.mgt.core.TestDeviceManager;
+import org.wso2.carbon.device.mgt.core.TestUtils;
 import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.common.TestDataHolder;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class DeviceManagementProviderServiceTest extends BaseDeviceManagementTest {
 
@@ -31,13 +50,51 @@ public class DeviceManagementProviderServiceTest extends BaseDeviceManagementTes
     private DeviceManagementProviderService providerService;
 
     private static final String NON_EXISTENT_DEVICE_TYPE = "Test";
+    private static final String BATCH_DEVICE_TYPE = "batch-plugin";
 
+    private TestBatchDeviceManager batchDeviceManager;
+    private DeviceManagementProviderServiceImpl batchProviderService;
+    private DeviceManagementProviderService plainProviderService;
+    private int batchSize;
+    private int deviceCount;
 
     @BeforeClass
     @Override
     public void init() throws Exception {
         this.initDataSource();
         this.providerService = new DeviceManagementProviderServiceImpl();
+
+        batchDeviceManager = new TestBatchDeviceManager();
+        DeviceManagementPluginRepository batchRepository = new DeviceManagementPluginRepository();
+        batchRepository.addDeviceManagementProvider(new TestDeviceManagementService(BATCH_DEVICE_TYPE,
+                TestDataHolder.SUPER_TENANT_DOMAIN, batchDeviceManager));
+        batchProviderService = new DeviceManagementProviderServiceImpl(batchRepository);
+
+        // Plugin of the same device type which is only able to retrieve its devices one by one
+        DeviceManagementPluginRepository plainRepository = new DeviceManagementPluginRepository();
+        plainRepository.addDeviceManagementProvider(new TestDeviceManagementService(BATCH_DEVICE_TYPE,
+                TestDataHolder.SUPER_TENANT_DOMAIN, new TestDeviceManager() {
+            @Override
+            public Device getDevice(DeviceIdentifier deviceId) throws DeviceManagementException {
+                return batchDeviceManager.getDevice(deviceId);
+            }
+        }));
+        plainProviderService = new DeviceManagementProviderServiceImpl(plainRepository);
+
+        // Enough devices for more than two batches, the last one being partial
+        batchSize = DeviceManagerUtil.getBatchSize();
+        deviceCount = batchSize * 2 + 1;
+        this.executeUpdate("INSERT INTO DM_DEVICE_TYPE (NAME, PROVIDER_TENANT_ID) VALUES ('" + BATCH_DEVICE_TYPE +
+                "', ?)", TestDataHolder.SUPER_TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE (DESCRIPTION, NAME, DEVICE_TYPE_ID, DEVICE_IDENTIFICATION, " +
+                "LAST_UPDATED_TIMESTAMP, TENANT_ID) SELECT 'Batch plugin device', CONCAT('batch-device-', X), " +
+                "(SELECT MAX(ID) FROM DM_DEVICE_TYPE WHERE NAME = '" + BATCH_DEVICE_TYPE + "'), " +
+                "CONCAT('batch-', X), DATEADD('DAY', -1, CURRENT_TIMESTAMP()), ? FROM SYSTEM_RANGE(1, ?)",
+                TestDataHolder.SUPER_TENANT_ID, deviceCount);
+        this.executeUpdate("INSERT INTO DM_ENROLMENT (DEVICE_ID, OWNER, OWNERSHIP, STATUS, DATE_OF_ENROLMENT, " +
+                "DATE_OF_LAST_UPDATE, TENANT_ID) SELECT ID, 'admin', 'BYOD', 'ACTIVE', CURRENT_TIMESTAMP(), " +
+                "CURRENT_TIMESTAMP(), ? FROM DM_DEVICE WHERE DEVICE_IDENTIFICATION LIKE 'batch-%' AND TENANT_ID = ?",
+                TestDataHolder.SUPER_TENANT_ID, TestDataHolder.SUPER_TENANT_ID);
     }
 
 //    @Test
@@ -82,8 +139,132 @@ public class DeviceManagementProviderServiceTest extends BaseDeviceManagementTes
         }
     }
 
+    @Test
+    public void testGetAllDevicesPopulatesPluginInfoInBatches() throws DeviceManagementException {
+        batchDeviceManager.reset();
+        PaginationRequest request = new PaginationRequest(0, deviceCount);
+        request.setDeviceType(BATCH_DEVICE_TYPE);
+        PaginationResult result = batchProviderService.getAllDevices(request);
+
+        List<Device> devices = this.getBatchPluginDevices(this.getDevices(result));
+        Assert.assertEquals(devices.size(), deviceCount, "Unexpected number of devices in the page");
+        this.assertPluginInfoPopulated(devices);
+        this.assertRetrievedInBatches(devices);
+    }
+
+    @Test
+    public void testGetDevicesSincePopulatesPluginInfoInBatches() throws DeviceManagementException {
+        batchDeviceManager.reset();
+        List<Device> devices = this.getBatchPluginDevices(batchProviderService.getDevices(new Date(0)));
+
+        Assert.assertEquals(devices.size(), deviceCount, "Unexpected number of devices of the batch plugin");
+        this.assertPluginInfoPopulated(devices);
+        this.assertRetrievedInBatches(devices);
+    }
+
+    @Test
+    public void testPlainDeviceManagerPopulatesPluginInfoPerDevice() throws DeviceManagementException {
+        batchDeviceManager.reset();
+        PaginationRequest request = new PaginationRequest(0, deviceCount);
+        request.setDeviceType(BATCH_DEVICE_TYPE);
+        List<Device> devices = this.getBatchPluginDevices(
+                this.getDevices(plainProviderService.getAllDevices(request)));
+
+        Assert.assertEquals(devices.size(), deviceCount, "Unexpected number of devices in the page");
+        this.assertPluginInfoPopulated(devices);
+        Assert.assertTrue(batchDeviceManager.getGetDevicesCalls().isEmpty(),
+                "Devices of a plain device manager were retrieved in batches");
+        Set<String> requestedIds = new HashSet<>();
+        for (DeviceIdentifier deviceId : batchDeviceManager.getGetDeviceCalls()) {
+            Assert.assertTrue(requestedIds.add(deviceId.getId()), "Device " + deviceId.getId() +
+                    " was retrieved from the plugin more than once");
+        }
+        Assert.assertEquals(requestedIds, this.getDeviceIdentifiers(devices),
+                "Plain device manager was not asked for each device");
+    }
+
     @AfterClass
-    public void cleanResources() {
+    public void cleanResources() throws Exception {
+        this.executeUpdate("DELETE FROM DM_ENROLMENT WHERE DEVICE_ID IN (SELECT d.ID FROM DM_DEVICE d, " +
+                "DM_DEVICE_TYPE t WHERE d.DEVICE_TYPE_ID = t.ID AND t.NAME = '" + BATCH_DEVICE_TYPE + "')");
+        this.executeUpdate("DELETE FROM DM_DEVICE WHERE DEVICE_TYPE_ID IN (SELECT ID FROM DM_DEVICE_TYPE " +
+                "WHERE NAME = '" + BATCH_DEVICE_TYPE + "')");
+        this.executeUpdate("DELETE FROM DM_DEVICE_TYPE WHERE NAME = '" + BATCH_DEVICE_TYPE + "'");
+    }
+
+    private void assertPluginInfoPopulated(List<Device> devices) {
+        for (Device device : devices) {
+            Device pluginDevice = TestBatchDeviceManager.getPluginDevice(
+                    new DeviceIdentifier(device.getDeviceIdentifier(), device.getType()));
+            Assert.assertNotNull(device.getFeatures(), "Features of " + device.getDeviceIdentifier() +
+                    " are not populated");
+            Assert.assertEquals(device.getFeatures().size(), 1);
+            Assert.assertEquals(device.getFeatures().get(0).getCode(), pluginDevice.getFeatures().get(0).getCode(),
+                    "Features of another device are populated in " + device.getDeviceIdentifier());
+            Assert.assertNotNull(device.getProperties(), "Properties of " + device.getDeviceIdentifier() +
+                    " are not populated");
+            Assert.assertEquals(device.getProperties().size(), 1);
+            Assert.assertEquals(device.getProperties().get(0).getValue(), device.getDeviceIdentifier(),
+                    "Properties of another device are populated in " + device.getDeviceIdentifier());
+        }
+    }
+
+    private void assertRetrievedInBatches(List<Device> devices) {
+        Assert.assertTrue(batchDeviceManager.getGetDeviceCalls().isEmpty(),
+                "Devices of a batch device manager were retrieved one by one");
+        List<List<DeviceIdentifier>> calls = batchDeviceManager.getGetDevicesCalls();
+        Assert.assertEquals(calls.size(), (devices.size() + batchSize - 1) / batchSize,
+                "Plugin devices were not retrieved with one call per batch");
+        Set<String> requestedIds = new HashSet<>();
+        for (List<DeviceIdentifier> call : calls) {
+            Assert.assertTrue(call.size() <= batchSize, "Batch of " + call.size() + " devices exceeds the " +
+                    "batch size of " + batchSize);
+            for (DeviceIdentifier deviceId : call) {
+                Assert.assertEquals(deviceId.getType(), BATCH_DEVICE_TYPE);
+                Assert.assertTrue(requestedIds.add(deviceId.getId()), "Device " + deviceId.getId() +
+                        " was retrieved from the plugin more than once");
+            }
+        }
+        Assert.assertEquals(requestedIds, this.getDeviceIdentifiers(devices),
+                "Plugin was not asked for exactly the listed devices");
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Device> getDevices(PaginationResult result) {
+        return (List<Device>) result.getData();
+    }
+
+    private List<Device> getBatchPluginDevices(List<Device> devices) {
+        List<Device> batchPluginDevices = new ArrayList<>();
+        for (Device device : devices) {
+            if (BATCH_DEVICE_TYPE.equals(device.getType())) {
+                batchPluginDevices.add(device);
+            }
+        }
+        return batchPluginDevices;
+    }
+
+    private Set<String> getDeviceIdentifiers(List<Device> devices) {
+        Set<String> deviceIdentifiers = new HashSet<>();
+        for (Device device : devices) {
+            deviceIdentifiers.add(device.getDeviceIdentifier());
+        }
+        return deviceIdentifiers;
+    }
+
+    private void executeUpdate(String sql, int... parameters) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setInt(i + 1, parameters[i]);
+            }
+            stmt.executeUpdate();
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, null);
+        }
     }
 
 }
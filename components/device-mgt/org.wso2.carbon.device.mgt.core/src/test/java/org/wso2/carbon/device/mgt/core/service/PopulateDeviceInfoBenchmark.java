@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.device.mgt.core.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.app.mgt.Application;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceInfo;
+import org.wso2.carbon.device.mgt.common.device.details.DeviceLocation;
+import org.wso2.carbon.device.mgt.core.TestUtils;
+import org.wso2.carbon.device.mgt.core.common.BaseDeviceManagementTest;
+import org.wso2.carbon.device.mgt.core.dao.ApplicationDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.device.details.mgt.dao.DeviceDetailsDAO;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares the number of connections and statements, and the time, taken to load the information, location and
+ * installed applications of a list of devices one device at a time, as done before device lists were populated in
+ * batches, with loading them in batches over a single connection. This is not part of the default test suite, run
+ * it with {@code mvn test -Dtest=PopulateDeviceInfoBenchmark [-Dpopulate.benchmark.devices=10000]}.
+ */
+public class PopulateDeviceInfoBenchmark extends BaseDeviceManagementTest {
+
+    private static final Log log = LogFactory.getLog(PopulateDeviceInfoBenchmark.class);
+    private static final int TENANT_ID = 9997;
+    private static final String DEVICE_TYPE = "populate-benchmark";
+    private static final int DEVICE_COUNT = Integer.getInteger("populate.benchmark.devices", 10000);
+
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger statementCount = new AtomicInteger();
+    private DeviceDetailsDAO deviceDetailsDAO;
+    private ApplicationDAO applicationDAO;
+    private List<Integer> deviceIds;
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        this.initDataSource();
+        long startTime = System.currentTimeMillis();
+        this.executeUpdate("INSERT INTO DM_DEVICE_TYPE (NAME, PROVIDER_TENANT_ID) VALUES ('" + DEVICE_TYPE + "', ?)",
+                TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE (DESCRIPTION, NAME, DEVICE_TYPE_ID, DEVICE_IDENTIFICATION, " +
+                "LAST_UPDATED_TIMESTAMP, TENANT_ID) SELECT 'Benchmark device', CONCAT('device-', X), " +
+                "(SELECT MAX(ID) FROM DM_DEVICE_TYPE WHERE NAME = '" + DEVICE_TYPE + "'), " +
+                "CONCAT('" + DEVICE_TYPE + "-', X), CURRENT_TIMESTAMP(), ? FROM SYSTEM_RANGE(1, ?)",
+                TENANT_ID, DEVICE_COUNT);
+        this.executeUpdate("INSERT INTO DM_DEVICE_DETAIL (DEVICE_ID, DEVICE_MODEL, VENDOR, OS_VERSION, " +
+                "BATTERY_LEVEL, CONNECTION_TYPE, SSID, CPU_USAGE, PLUGGED_IN, UPDATE_TIMESTAMP) SELECT ID, " +
+                "CONCAT('model-', MOD(ID, 100)), CONCAT('vendor-', MOD(ID, 10)), CONCAT('7.', MOD(ID, 3)), " +
+                "MOD(ID * 7, 101), 'WIFI', CONCAT('ssid-', MOD(ID, 50)), MOD(ID * 13, 100), MOD(ID, 2), 0 " +
+                "FROM DM_DEVICE WHERE TENANT_ID = ?", TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE_LOCATION (DEVICE_ID, LATITUDE, LONGITUDE, CITY, COUNTRY, " +
+                "UPDATE_TIMESTAMP) SELECT ID, MOD(ID, 90), MOD(ID, 180), CONCAT('city-', MOD(ID, 200)), " +
+                "'Sri Lanka', 0 FROM DM_DEVICE WHERE TENANT_ID = ?", TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_APPLICATION (NAME, APP_IDENTIFIER, PLATFORM, TYPE, IS_ACTIVE, " +
+                "TENANT_ID) SELECT CONCAT('Application ', X), CONCAT('" + DEVICE_TYPE + "-app-', X), 'android', " +
+                "'Enterprise', TRUE, ? FROM SYSTEM_RANGE(1, 5)", TENANT_ID);
+        this.executeUpdate("INSERT INTO DM_DEVICE_APPLICATION_MAPPING (DEVICE_ID, APPLICATION_ID, TENANT_ID) " +
+                "SELECT d.ID, a.ID, d.TENANT_ID FROM DM_DEVICE d, DM_APPLICATION a WHERE d.TENANT_ID = ? AND " +
+                "a.TENANT_ID = d.TENANT_ID AND MOD(d.ID + a.ID, 2) = 0", TENANT_ID);
+        deviceIds = this.getDeviceIds();
+        log.info(DEVICE_COUNT + " synthetic devices have been added in " +
+                (System.currentTimeMillis() - startTime) + "ms");
+
+        DeviceManagementDAOFactory.init(this.getCountingDataSource(this.getDataSource()));
+        deviceDetailsDAO = DeviceManagementDAOFactory.getDeviceDetailsDAO();
+        applicationDAO = DeviceManagementDAOFactory.getApplicationDAO();
+    }
+
+    @Test
+    public void benchmarkPopulateDeviceInfo() throws Exception {
+        // Warm up both paths before measuring them
+        this.populateOneByOne();
+        this.populateInBatches();
+
+        this.resetCounts();
+        long startTime = System.currentTimeMillis();
+        Map<Integer, DeviceInfo> oneByOne = this.populateOneByOne();
+        long oneByOneTime = System.currentTimeMillis() - startTime;
+        int oneByOneConnections = connectionCount.get();
+        int oneByOneStatements = statementCount.get();
+
+        this.resetCounts();
+        startTime = System.currentTimeMillis();
+        Map<Integer, DeviceInfo> batched = this.populateInBatches();
+        long batchedTime = System.currentTimeMillis() - startTime;
+        int batchedConnections = connectionCount.get();
+        int batchedStatements = statementCount.get();
+
+        Assert.assertEquals(batched.size(), oneByOne.size(), "Batches populated a different number of devices");
+        for (Map.Entry<Integer, DeviceInfo> entry : oneByOne.entrySet()) {
+            DeviceInfo deviceInfo = batched.get(entry.getKey());
+            Assert.assertEquals(deviceInfo.getDeviceModel(), entry.getValue().getDeviceModel());
+            Assert.assertEquals(deviceInfo.getLocation().getCity(), entry.getValue().getLocation().getCity());
+        }
+        log.info(String.format("%d devices : one by one %d connections, %d statements, %dms; " +
+                        "batches of %d %d connections, %d statements, %dms", DEVICE_COUNT, oneByOneConnections,
+                oneByOneStatements, oneByOneTime, DeviceManagerUtil.getBatchSize(), batchedConnections,
+                batchedStatements, batchedTime));
+    }
+
+    @AfterClass
+    public void cleanup() throws Exception {
+        DeviceManagementDAOFactory.init(this.getDataSource());
+        String devices = "SELECT ID FROM DM_DEVICE WHERE TENANT_ID = ?";
+        this.executeUpdate("DELETE FROM DM_DEVICE_APPLICATION_MAPPING WHERE DEVICE_ID IN (" + devices + ")",
+                TENANT_ID);
+        this.executeUpdate("DELETE FROM DM_APPLICATION WHERE TENANT_ID = ?", TENANT_ID);
+        this.executeUpdate("DELETE FROM DM_DEVICE_LOCATION WHERE DEVICE_ID IN (" + devices + ")", TENANT_ID);
+        this.executeUpdate("DELETE FROM DM_DEVICE_DETAIL WHERE DEVICE_ID IN (" + devices + ")", TENANT_ID);
+        this.executeUpdate("DELETE FROM DM_DEVICE WHERE TENANT_ID = ?", TENANT_ID);
+        this.executeUpdate("DELETE FROM DM_DEVICE_TYPE WHERE NAME = '" + DEVICE_TYPE + "' AND " +
+                "PROVIDER_TENANT_ID = ?", TENANT_ID);
+    }
+
+    /**
+     * Loads the device information the way device lists were populated before, with a connection per device.
+     */
+    private Map<Integer, DeviceInfo> populateOneByOne() throws Exception {
+        Map<Integer, DeviceInfo> deviceInfos = new HashMap<>();
+        for (Integer deviceId : deviceIds) {
+            try {
+                DeviceManagementDAOFactory.openConnection();
+                DeviceInfo deviceInfo = deviceDetailsDAO.getDeviceInformation(deviceId);
+                deviceInfo.setLocation(deviceDetailsDAO.getDeviceLocation(deviceId));
+                applicationDAO.getInstalledApplications(deviceId);
+                deviceInfos.put(deviceId, deviceInfo);
+            } finally {
+                DeviceManagementDAOFactory.closeConnection();
+            }
+        }
+        return deviceInfos;
+    }
+
+    /**
+     * Loads the device information the way {@code DeviceManagementProviderServiceImpl} populates device lists.
+     */
+    private Map<Integer, DeviceInfo> populateInBatches() throws Exception {
+        Map<Integer, DeviceInfo> deviceInfos = new HashMap<>();
+        Map<Integer, DeviceLocation> locations = new HashMap<>();
+        Map<Integer, List<Application>> applications = new HashMap<>();
+        try {
+            DeviceManagementDAOFactory.openConnection();
+            for (List<Integer> batch : DeviceManagerUtil.getBatches(deviceIds, DeviceManagerUtil.getBatchSize())) {
+                deviceInfos.putAll(deviceDetailsDAO.getDevicesInformation(batch));
+                locations.putAll(deviceDetailsDAO.getDeviceLocations(batch));
+                applications.putAll(applicationDAO.getInstalledApplications(batch));
+            }
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+        for (Map.Entry<Integer, DeviceInfo> entry : deviceInfos.entrySet()) {
+            entry.getValue().setLocation(locations.get(entry.getKey()));
+        }
+        return deviceInfos;
+    }
+
+    private void resetCounts() {
+        connectionCount.set(0);
+        statementCount.set(0);
+    }
+
+    /**
+     * Wraps the given data source to count the connections taken from it and the statements prepared on them.
+     */
+    private DataSource getCountingDataSource(final DataSource dataSource) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        Object result = invokeTarget(dataSource, method, args);
+                        if ("getConnection".equals(method.getName())) {
+                            connectionCount.incrementAndGet();
+                            return getCountingConnection((Connection) result);
+                        }
+                        return result;
+                    }
+                });
+    }
+
+    private Connection getCountingConnection(final Connection conn) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                        if (method.getName().startsWith("prepare") || "createStatement".equals(method.getName())) {
+                            statementCount.incrementAndGet();
+                        }
+                        return invokeTarget(conn, method, args);
+                    }
+                });
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private List<Integer> getDeviceIds() throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        List<Integer> ids = new ArrayList<>();
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement("SELECT ID FROM DM_DEVICE WHERE TENANT_ID = ? ORDER BY ID");
+            stmt.setInt(1, TENANT_ID);
+            rs = stmt.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt("ID"));
+            }
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, rs);
+        }
+        return ids;
+    }
+
+    private void executeUpdate(String sql, int... parameters) throws Exception {
+        Connection conn = null;
+        PreparedStatement stmt = null;
+        try {
+            conn = this.getDataSource().getConnection();
+            stmt = conn.prepareStatement(sql);
+            for (int i = 0; i < parameters.length; i++) {
+                stmt.setInt(i + 1, parameters[i]);
+            }
+            stmt.executeUpdate();
+        } finally {
+            TestUtils.cleanupResources(conn, stmt, null);
+        }
+    }
+
+}
@@ -107,11 +107,22 @@ CREATE TABLE IF NOT EXISTS DM_ENROLMENT (
     DM_DEVICE (ID) ON DELETE NO ACTION ON UPDATE NO ACTION
 );
 
+CREATE TABLE IF NOT EXISTS DM_DEVICE_PUSH_TOKEN (
+    ENROLMENT_ID INTEGER NOT NULL,
+    TOKEN VARCHAR(1000) NOT NULL,
+    TENANT_ID INTEGER NOT NULL,
+    PRIMARY KEY (ENROLMENT_ID),
+    CONSTRAINT fk_dm_device_push_token_enrolment FOREIGN KEY (ENROLMENT_ID) REFERENCES
+    DM_ENROLMENT (ID) ON DELETE CASCADE ON UPDATE NO ACTION
+);
+
 CREATE TABLE IF NOT EXISTS DM_ENROLMENT_OP_MAPPING (
     ID INTEGER AUTO_INCREMENT NOT NULL,
     ENROLMENT_ID INTEGER NOT NULL,
     OPERATION_ID INTEGER NOT NULL,
     STATUS VARCHAR(50) NULL,
+    CREATED_TIMESTAMP INT NOT NULL,
+    UPDATED_TIMESTAMP INT NOT NULL,
     PRIMARY KEY (ID),
     CONSTRAINT fk_dm_device_operation_mapping_device FOREIGN KEY (ENROLMENT_ID) REFERENCES
     DM_ENROLMENT (ID) ON DELETE NO ACTION ON UPDATE NO ACTION,
@@ -362,6 +373,18 @@ CREATE TABLE IF NOT EXISTS DM_POLICY_COMPLIANCE_FEATURES (
     ON UPDATE NO ACTION
 );
 
+CREATE TABLE IF NOT EXISTS DM_POLICY_MONITORING_SHARD (
+  TENANT_ID INT NOT NULL,
+  DEVICE_TYPE VARCHAR(300) NOT NULL,
+  SHARD_INDEX INT NOT NULL,
+  LEASE_OWNER VARCHAR(100) NULL,
+  LEASE_EXPIRY_TIME TIMESTAMP NULL,
+  LAST_DEVICE_ID INT NOT NULL DEFAULT 0,
+  LAST_ENROLMENT_ID INT NOT NULL DEFAULT 0,
+  LAST_ROUND_START_TIME TIMESTAMP NULL,
+  PRIMARY KEY (TENANT_ID, DEVICE_TYPE, SHARD_INDEX)
+);
+
 CREATE TABLE IF NOT EXISTS DM_ENROLMENT (
     ID INTEGER AUTO_INCREMENT NOT NULL,
     DEVICE_ID INTEGER NOT NULL,
@@ -0,0 +1,35 @@
+/*
+*  Copyright (c) 2016 WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+
+package org.wso2.carbon.policy.mgt.common;
+
+/**
+ * Optional extension of the PIP, implemented by PIPs which can find the policy with the highest priority related to
+ * a device without retrieving all the related policies. Policy decision points fall back to
+ * {@link PolicyInformationPoint#getRelatedPolicies(PIPDevice)} for the PIPs which do not implement it.
+ */
+public interface PrioritizedPolicyInformationPoint extends PolicyInformationPoint {
+
+    /**
+     * This method will retrieve the policy with the highest priority among the policies related given device Data.
+     * @param pipDevice
+     * @return the highest priority policy, or null if no policy is related to the device.
+     */
+    Policy getHighestPriorityPolicy(PIPDevice pipDevice) throws PolicyManagementException;
+}
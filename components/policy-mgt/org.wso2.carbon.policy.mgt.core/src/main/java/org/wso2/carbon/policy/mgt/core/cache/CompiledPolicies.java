@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.cache;
+
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.core.util.PolicyManagementConstants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Active policies of a device type compiled for evaluation. Policies are numbered by their position in priority
+ * order, and role, user and ownership names are interned to ids which map to bitsets of the policies targeting
+ * them. The policies matching a device are found by combining the bitsets of its ownership type, user and roles,
+ * which gives the same result as filtering the policies with {@link
+ * org.wso2.carbon.policy.mgt.core.impl.PolicyFilterImpl}. Instances are immutable and are built from a
+ * {@link PolicySnapshot}, so they are rebuilt whenever the policies change.
+ */
+public class CompiledPolicies {
+
+    private static final int WORD_SIZE = 64;
+    private static final long[][] NO_MASKS = new long[0][];
+
+    private final Policy[] policies;
+    private final long[] allPolicies;
+    private final Targets ownershipTypes;
+    private final Targets roles;
+    private final Targets users;
+
+    /**
+     * @param policies Policies of the device type, sorted by priority. Inactive policies are left out.
+     */
+    public CompiledPolicies(List<Policy> policies) {
+        List<Policy> activePolicies = new ArrayList<>(policies.size());
+        for (Policy policy : policies) {
+            if (policy.isActive()) {
+                activePolicies.add(policy);
+            }
+        }
+        this.policies = activePolicies.toArray(new Policy[activePolicies.size()]);
+        int words = (this.policies.length + WORD_SIZE - 1) / WORD_SIZE;
+        this.allPolicies = new long[words];
+        TargetsBuilder ownershipTypes = new TargetsBuilder(words);
+        TargetsBuilder roles = new TargetsBuilder(words);
+        TargetsBuilder users = new TargetsBuilder(words);
+        for (int i = 0; i < this.policies.length; i++) {
+            Policy policy = this.policies[i];
+            set(allPolicies, i);
+
+            String ownershipType = policy.getOwnershipType();
+            if (PolicyManagementConstants.ANY.equalsIgnoreCase(ownershipType)) {
+                ownershipTypes.addAny(i);
+            } else if (ownershipType != null) {
+                ownershipTypes.add(ownershipType, i);
+            }
+
+            List<String> policyRoles = policy.getRoles();
+            if (policyRoles == null || policyRoles.isEmpty() ||
+                    PolicyManagementConstants.ANY.equalsIgnoreCase(policyRoles.get(0))) {
+                roles.addAny(i);
+            } else {
+                for (String role : policyRoles) {
+                    roles.add(role, i);
+                }
+            }
+
+            List<String> policyUsers = policy.getUsers();
+            if (policyUsers == null || policyUsers.isEmpty() || policyUsers.contains(PolicyManagementConstants.ANY)) {
+                users.addAny(i);
+            } else {
+                for (String user : policyUsers) {
+                    users.add(user, i);
+                }
+            }
+        }
+        this.ownershipTypes = ownershipTypes.build();
+        this.roles = roles.build();
+        this.users = users.build();
+    }
+
+    /**
+     * @return Number of active policies compiled.
+     */
+    public int size() {
+        return policies.length;
+    }
+
+    /**
+     * Returns the highest priority policy matching a device. A null or empty ownership type or user, or null roles,
+     * do not restrict the policies.
+     *
+     * @param ownershipType Ownership type of the device.
+     * @param deviceRoles   Roles of the owner of the device.
+     * @param userId        Owner of the device.
+     * @return The matching policy with the highest priority, or null if no policy matches the device.
+     */
+    public Policy getHighestPriorityPolicy(String ownershipType, String[] deviceRoles, String userId) {
+        int index = nextMatch(0, ownershipType, deviceRoles, userId);
+        return index < 0 ? null : policies[index];
+    }
+
+    /**
+     * Returns all the policies matching a device.
+     *
+     * @param ownershipType Ownership type of the device.
+     * @param deviceRoles   Roles of the owner of the device.
+     * @param userId        Owner of the device.
+     * @return The matching policies, sorted by priority.
+     */
+    public List<Policy> getMatchingPolicies(String ownershipType, String[] deviceRoles, String userId) {
+        List<Policy> matchingPolicies = new ArrayList<>();
+        int index = nextMatch(0, ownershipType, deviceRoles, userId);
+        while (index >= 0) {
+            matchingPolicies.add(policies[index]);
+            index = nextMatch(index + 1, ownershipType, deviceRoles, userId);
+        }
+        return matchingPolicies;
+    }
+
+    private int nextMatch(int fromIndex, String ownershipType, String[] deviceRoles, String userId) {
+        boolean anyOwnershipType = ownershipType == null || ownershipType.isEmpty();
+        boolean anyUser = userId == null || userId.isEmpty();
+        long[] ownershipTypeMask = anyOwnershipType ? null : ownershipTypes.getMask(ownershipType);
+        long[] userMask = anyUser ? null : users.getMask(userId);
+        for (int word = fromIndex / WORD_SIZE; word < allPolicies.length; word++) {
+            long candidates = allPolicies[word];
+            if (word == fromIndex / WORD_SIZE) {
+                candidates &= -1L << (fromIndex % WORD_SIZE);
+            }
+            if (!anyOwnershipType) {
+                candidates &= ownershipTypes.anyMask[word] | (ownershipTypeMask != null ? ownershipTypeMask[word] : 0);
+            }
+            if (candidates != 0 && !anyUser) {
+                candidates &= users.anyMask[word] | (userMask != null ? userMask[word] : 0);
+            }
+            if (candidates != 0 && deviceRoles != null) {
+                long roleCandidates = roles.anyMask[word];
+                for (String role : deviceRoles) {
+                    if ((candidates & ~roleCandidates) == 0) {
+                        break;
+                    }
+                    long[] roleMask = role != null ? roles.getMask(role) : null;
+                    if (roleMask != null) {
+                        roleCandidates |= roleMask[word];
+                    }
+                }
+                candidates &= roleCandidates;
+            }
+            if (candidates != 0) {
+                return word * WORD_SIZE + Long.numberOfTrailingZeros(candidates);
+            }
+        }
+        return -1;
+    }
+
+    private static void set(long[] mask, int index) {
+        mask[index / WORD_SIZE] |= 1L << (index % WORD_SIZE);
+    }
+
+    /**
+     * Interned names of one kind of target with the bitsets of the policies targeting each name.
+     */
+    private static class Targets {
+
+        private final Map<String, Integer> ids;
+        private final long[][] masks;
+        private final long[] anyMask;
+
+        Targets(Map<String, Integer> ids, long[][] masks, long[] anyMask) {
+            this.ids = ids;
+            this.masks = masks;
+            this.anyMask = anyMask;
+        }
+
+        long[] getMask(String name) {
+            Integer id = ids.get(name);
+            return id == null ? null : masks[id];
+        }
+    }
+
+    private static class TargetsBuilder {
+
+        private final int words;
+        private final Map<String, Integer> ids = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final List<long[]> masks = new ArrayList<>();
+        private final long[] anyMask;
+
+        TargetsBuilder(int words) {
+            this.words = words;
+            this.anyMask = new long[words];
+        }
+
+        void addAny(int policyIndex) {
+            set(anyMask, policyIndex);
+        }
+
+        void add(String name, int policyIndex) {
+            if (name == null) {
+                return;
+            }
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = masks.size();
+                ids.put(name, id);
+                masks.add(new long[words]);
+            }
+            set(masks.get(id), policyIndex);
+        }
+
+        Targets build() {
+            return new Targets(Collections.unmodifiableMap(ids), masks.toArray(NO_MASKS), anyMask);
+        }
+    }
+
+}
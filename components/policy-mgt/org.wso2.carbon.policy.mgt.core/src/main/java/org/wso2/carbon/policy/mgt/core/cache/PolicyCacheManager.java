@@ -44,11 +44,26 @@ public interface PolicyCacheManager {
 
     /**
      * This method will return the all policies.
-     * @return - list of policies
+     * @return - unmodifiable list of policies, sorted by priority
      * @throws PolicyManagementException
      */
     List<Policy> getAllPolicies() throws PolicyManagementException;
 
+    /**
+     * This method will return the current snapshot of the policies, loading it if it is not available in the cache.
+     * @return - snapshot of the policies
+     * @throws PolicyManagementException
+     */
+    PolicySnapshot getPolicySnapshot() throws PolicyManagementException;
+
+    /**
+     * This method will return the policies of a device type.
+     * @param deviceType - name of the device type
+     * @return - unmodifiable list of policies, sorted by priority
+     * @throws PolicyManagementException
+     */
+    List<Policy> getPoliciesOfDeviceType(String deviceType) throws PolicyManagementException;
+
     /**
      * This method will repopulate the cache, this will be called when there is a change of the policies.
      * @throws PolicyManagementException
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.cache;
+
+import org.wso2.carbon.policy.mgt.common.Policy;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable view of the policies of a tenant. Policies are kept sorted by priority and are indexed by id and by
+ * device type, so lookups never scan the whole policy list. A snapshot is never modified once created; changes to
+ * the policies produce a new snapshot which replaces the previous one in the cache.
+ */
+public class PolicySnapshot implements Serializable {
+
+    private static final long serialVersionUID = -3315870455367617305L;
+    private static final AtomicLong versionGenerator = new AtomicLong();
+
+    private final long version;
+    private final List<Policy> policies;
+    private final Map<Integer, Policy> policiesById;
+    private final Map<String, List<Policy>> policiesByDeviceType;
+    private transient volatile ConcurrentMap<String, CompiledPolicies> compiledPolicies;
+
+    public PolicySnapshot(List<Policy> policies) {
+        List<Policy> sortedPolicies = new ArrayList<>(policies);
+        Collections.sort(sortedPolicies);
+        Map<Integer, Policy> policiesById = new HashMap<>();
+        Map<String, List<Policy>> policiesByDeviceType = new HashMap<>();
+        for (Policy policy : sortedPolicies) {
+            policiesById.put(policy.getId(), policy);
+            String deviceType = getDeviceType(policy);
+            if (deviceType != null) {
+                List<Policy> deviceTypePolicies = policiesByDeviceType.get(deviceType);
+                if (deviceTypePolicies == null) {
+                    deviceTypePolicies = new ArrayList<>();
+                    policiesByDeviceType.put(deviceType, deviceTypePolicies);
+                }
+                deviceTypePolicies.add(policy);
+            }
+        }
+        for (Map.Entry<String, List<Policy>> entry : policiesByDeviceType.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        this.version = versionGenerator.incrementAndGet();
+        this.policies = Collections.unmodifiableList(sortedPolicies);
+        this.policiesById = policiesById;
+        this.policiesByDeviceType = policiesByDeviceType;
+    }
+
+    /**
+     * @return Version of the snapshot. Each snapshot gets a version greater than that of any snapshot created
+     * before it, so a change of the version means that the policies have changed.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Unmodifiable list of all the policies, sorted by priority.
+     */
+    public List<Policy> getPolicies() {
+        return policies;
+    }
+
+    /**
+     * @param policyId Id of the policy.
+     * @return The policy, or null if there is no policy with the given id.
+     */
+    public Policy getPolicy(int policyId) {
+        return policiesById.get(policyId);
+    }
+
+    /**
+     * @param deviceType Name of the device type, compared case insensitively.
+     * @return Unmodifiable list of the policies of the given device type, sorted by priority.
+     */
+    public List<Policy> getPoliciesOfDeviceType(String deviceType) {
+        if (deviceType == null) {
+            return Collections.emptyList();
+        }
+        List<Policy> deviceTypePolicies = policiesByDeviceType.get(deviceType.toLowerCase());
+        if (deviceTypePolicies == null) {
+            return Collections.emptyList();
+        }
+        return deviceTypePolicies;
+    }
+
+    /**
+     * @param deviceType Name of the device type, compared case insensitively.
+     * @return Active policies of the given device type compiled for evaluation. The compiled policies are built
+     * the first time they are requested and are reused for the lifetime of the snapshot.
+     */
+    public CompiledPolicies getCompiledPolicies(String deviceType) {
+        ConcurrentMap<String, CompiledPolicies> compiledPolicies = this.compiledPolicies;
+        if (compiledPolicies == null) {
+            compiledPolicies = new ConcurrentHashMap<>();
+            this.compiledPolicies = compiledPolicies;
+        }
+        String key = deviceType != null ? deviceType.toLowerCase() : "";
+        CompiledPolicies compiled = compiledPolicies.get(key);
+        if (compiled == null) {
+            compiled = new CompiledPolicies(this.getPoliciesOfDeviceType(deviceType));
+            CompiledPolicies existing = compiledPolicies.putIfAbsent(key, compiled);
+            if (existing != null) {
+                compiled = existing;
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * @param policy Policy to be added, replacing the policy with the same id if there is one.
+     * @return A new snapshot containing the given policy.
+     */
+    public PolicySnapshot withPolicy(Policy policy) {
+        List<Policy> updatedPolicies = new ArrayList<>(policies.size() + 1);
+        for (Policy existingPolicy : policies) {
+            if (existingPolicy.getId() != policy.getId()) {
+                updatedPolicies.add(existingPolicy);
+            }
+        }
+        updatedPolicies.add(policy);
+        return new PolicySnapshot(updatedPolicies);
+    }
+
+    /**
+     * @param policyId Id of the policy to be removed.
+     * @return A new snapshot without the given policy, or this snapshot if it does not contain the policy.
+     */
+    public PolicySnapshot withoutPolicy(int policyId) {
+        if (!policiesById.containsKey(policyId)) {
+            return this;
+        }
+        List<Policy> updatedPolicies = new ArrayList<>(policies.size());
+        for (Policy existingPolicy : policies) {
+            if (existingPolicy.getId() != policyId) {
+                updatedPolicies.add(existingPolicy);
+            }
+        }
+        return new PolicySnapshot(updatedPolicies);
+    }
+
+    private static String getDeviceType(Policy policy) {
+        if (policy.getProfile() == null || policy.getProfile().getDeviceType() == null) {
+            return null;
+        }
+        return policy.getProfile().getDeviceType().toLowerCase();
+    }
+
+}
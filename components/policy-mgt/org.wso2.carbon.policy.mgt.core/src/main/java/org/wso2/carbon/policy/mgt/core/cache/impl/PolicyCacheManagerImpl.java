@@ -21,26 +21,37 @@ package org.wso2.carbon.policy.mgt.core.cache.impl;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.policy.mgt.common.Policy;
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.policy.mgt.core.cache.PolicyCacheManager;
+import org.wso2.carbon.policy.mgt.core.cache.PolicySnapshot;
 import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
 import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
 import org.wso2.carbon.policy.mgt.core.util.PolicyManagementConstants;
 import org.wso2.carbon.policy.mgt.core.util.PolicyManagerUtil;
 
 import javax.cache.Cache;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Keeps the policies of each tenant as an immutable {@link PolicySnapshot} in the tenant's policy cache. Readers
+ * always get a complete snapshot without locking, while changes build a new snapshot and swap it in. Changes of a
+ * tenant are serialized with a per tenant lock so that concurrent changes do not overwrite each other.
+ */
 public class PolicyCacheManagerImpl implements PolicyCacheManager {
 
     private static final Log log = LogFactory.getLog(PolicyCacheManagerImpl.class);
+    private static final int SNAPSHOT_KEY = 1;
+
+    private static volatile PolicyCacheManagerImpl policyCacheManager;
 
-    private static PolicyCacheManagerImpl policyCacheManager;
+    private final ConcurrentMap<Integer, Object> tenantLocks = new ConcurrentHashMap<>();
 
-    private static Cache<Integer, List<Policy>> getPolicyListCache() {
-        return PolicyManagerUtil.getPolicyListCache(PolicyManagementConstants.DM_CACHE_LIST);
+    private static Cache<Integer, PolicySnapshot> getPolicySnapshotCache() {
+        return PolicyManagerUtil.getPolicySnapshotCache(PolicyManagementConstants.DM_CACHE_POLICY_SNAPSHOT);
     }
 
     private PolicyCacheManagerImpl() {
@@ -60,29 +71,26 @@ public class PolicyCacheManagerImpl implements PolicyCacheManager {
     @Override
     public void addAllPolicies(List<Policy> policies) {
 
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        lCache.put(1, policies);
+        Cache<Integer, PolicySnapshot> lCache = getPolicySnapshotCache();
+        lCache.put(SNAPSHOT_KEY, new PolicySnapshot(policies));
     }
 
     @Override
     public void updateAllPolicies(List<Policy> policies) {
 
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        lCache.removeAll();
-        lCache.put(1, policies);
+        Cache<Integer, PolicySnapshot> lCache = getPolicySnapshotCache();
+        synchronized (getTenantLock()) {
+            lCache.removeAll();
+            lCache.put(SNAPSHOT_KEY, new PolicySnapshot(policies));
+        }
     }
 
     @Override
     public List<Policy> getAllPolicies() throws PolicyManagementException {
 
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        if (!lCache.containsKey(1)) {
-            PolicyManager policyManager = new PolicyManagerImpl();
-            this.addAllPolicies(policyManager.getPolicies());
-        }
+        List<Policy> cachedPolicies = this.getPolicySnapshot().getPolicies();
         if (log.isDebugEnabled()) {
-            List<Policy> cachedPolicy = lCache.get(1);
-            for (Policy policy : cachedPolicy) {
+            for (Policy policy : cachedPolicies) {
                 log.debug("Policy id in cache .. : " + policy.getId() + " policy name : " + policy.
                         getPolicyName() + " Activated : " + policy.isActive());
 
@@ -97,37 +105,58 @@ public class PolicyCacheManagerImpl implements PolicyCacheManager {
             }
 
         }
-        return lCache.get(1);
+        return cachedPolicies;
+
+    }
+
+    @Override
+    public PolicySnapshot getPolicySnapshot() throws PolicyManagementException {
+
+        Cache<Integer, PolicySnapshot> lCache = getPolicySnapshotCache();
+        PolicySnapshot snapshot = lCache.get(SNAPSHOT_KEY);
+        if (snapshot == null) {
+            synchronized (getTenantLock()) {
+                snapshot = lCache.get(SNAPSHOT_KEY);
+                if (snapshot == null) {
+                    PolicyManager policyManager = new PolicyManagerImpl();
+                    snapshot = new PolicySnapshot(policyManager.getPolicies());
+                    lCache.put(SNAPSHOT_KEY, snapshot);
+                }
+            }
+        }
+        return snapshot;
+    }
 
+    @Override
+    public List<Policy> getPoliciesOfDeviceType(String deviceType) throws PolicyManagementException {
+        return this.getPolicySnapshot().getPoliciesOfDeviceType(deviceType);
     }
 
     @Override
     public void rePopulateCache() throws PolicyManagementException {
 
-        this.removeAllPolicies();
-        this.getAllPolicies();
+        synchronized (getTenantLock()) {
+            this.removeAllPolicies();
+            this.getPolicySnapshot();
+        }
     }
 
     @Override
     public void removeAllPolicies() {
 
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
+        Cache<Integer, PolicySnapshot> lCache = getPolicySnapshotCache();
         lCache.removeAll();
     }
 
     @Override
     public void addPolicy(Policy policy) {
 
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        if (lCache.containsKey(1)) {
-            List<Policy> cachedPolicy = lCache.get(1);
-
-            for (Policy pol : cachedPolicy) {
-                if (pol.getId() == policy.getId()) {
-                    return;
-                }
+        Cache<Integer, PolicySnapshot> lCache = getPolicySnapshotCache();
+        synchronized (getTenantLock()) {
+            PolicySnapshot snapshot = lCache.get(SNAPSHOT_KEY);
+            if (snapshot != null && snapshot.getPolicy(policy.getId()) == null) {
+                lCache.put(SNAPSHOT_KEY, snapshot.withPolicy(policy));
             }
-            cachedPolicy.add(policy);
         }
 
     }
@@ -135,19 +164,12 @@ public class PolicyCacheManagerImpl implements PolicyCacheManager {
     @Override
     public void updatePolicy(Policy policy) {
 
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        if (lCache.containsKey(1)) {
-            List<Policy> cachedPolicy = lCache.get(1);
-            Iterator iterator = cachedPolicy.iterator();
-            while (iterator.hasNext()) {
-                Policy pol = (Policy) iterator.next();
-                if (pol.getId() == policy.getId()) {
-                    iterator.remove();
-                    break;
-                }
+        Cache<Integer, PolicySnapshot> lCache = getPolicySnapshotCache();
+        synchronized (getTenantLock()) {
+            PolicySnapshot snapshot = lCache.get(SNAPSHOT_KEY);
+            if (snapshot != null) {
+                lCache.put(SNAPSHOT_KEY, snapshot.withPolicy(policy));
             }
-            cachedPolicy.add(policy);
-            lCache.replace(1, cachedPolicy);
         }
 
     }
@@ -155,8 +177,8 @@ public class PolicyCacheManagerImpl implements PolicyCacheManager {
     @Override
     public void updatePolicy(int policyId) throws PolicyManagementException {
 
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        if (lCache.containsKey(1)) {
+        Cache<Integer, PolicySnapshot> lCache = getPolicySnapshotCache();
+        if (lCache.containsKey(SNAPSHOT_KEY)) {
             PolicyManager policyManager = new PolicyManagerImpl();
             Policy policy = policyManager.getPolicy(policyId);
             this.updatePolicy(policy);
@@ -167,40 +189,18 @@ public class PolicyCacheManagerImpl implements PolicyCacheManager {
     @Override
     public void removePolicy(int policyId) {
 
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        if (lCache.containsKey(1)) {
-            List<Policy> cachedPolicy = lCache.get(1);
-            Iterator iterator = cachedPolicy.iterator();
-            while (iterator.hasNext()) {
-                Policy pol = (Policy) iterator.next();
-                if (pol.getId() == policyId) {
-                    iterator.remove();
-                    break;
-                }
+        Cache<Integer, PolicySnapshot> lCache = getPolicySnapshotCache();
+        synchronized (getTenantLock()) {
+            PolicySnapshot snapshot = lCache.get(SNAPSHOT_KEY);
+            if (snapshot != null) {
+                lCache.put(SNAPSHOT_KEY, snapshot.withoutPolicy(policyId));
             }
-            lCache.replace(1, cachedPolicy);
         }
     }
 
     @Override
     public Policy getPolicy(int policyId) throws PolicyManagementException {
-
-        Cache<Integer, List<Policy>> lCache = getPolicyListCache();
-        if (!lCache.containsKey(1)) {
-            this.removeAllPolicies();
-            this.getAllPolicies();
-        }
-
-        Policy policy = null;
-        List<Policy> cachedPolicy = lCache.get(1);
-        Iterator iterator = cachedPolicy.iterator();
-        while (iterator.hasNext()) {
-            Policy pol = (Policy) iterator.next();
-            if (pol.getId() == policyId) {
-                policy = pol;
-            }
-        }
-        return policy;
+        return this.getPolicySnapshot().getPolicy(policyId);
     }
 
     @Override
@@ -218,4 +218,17 @@ public class PolicyCacheManagerImpl implements PolicyCacheManager {
         return 0;
     }
 
+    private Object getTenantLock() {
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        Object lock = tenantLocks.get(tenantId);
+        if (lock == null) {
+            Object newLock = new Object();
+            lock = tenantLocks.putIfAbsent(tenantId, newLock);
+            if (lock == null) {
+                lock = newLock;
+            }
+        }
+        return lock;
+    }
+
 }
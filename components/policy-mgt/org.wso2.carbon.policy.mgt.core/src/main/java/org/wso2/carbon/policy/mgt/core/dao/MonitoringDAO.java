@@ -22,7 +22,10 @@ package org.wso2.carbon.policy.mgt.core.dao;
 import org.wso2.carbon.policy.mgt.common.monitor.ComplianceData;
 import org.wso2.carbon.policy.mgt.common.monitor.ComplianceFeature;
 import org.wso2.carbon.policy.mgt.common.monitor.PolicyDeviceWrapper;
+import org.wso2.carbon.policy.mgt.core.dao.dto.DeviceComplianceStatusDTO;
+import org.wso2.carbon.policy.mgt.core.dao.dto.MonitoringShardDTO;
 
+import java.sql.Timestamp;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -56,12 +59,79 @@ public interface MonitoringDAO {
 
     List<ComplianceData> getCompliance() throws MonitoringDAOException;
 
+    /**
+     * Reads the compliance status and the applied policy of the given enrolments with a single query.
+     *
+     * @param enrolmentIds Ids of the enrolments, which are expected to be at most a batch.
+     * @return Monitoring state of each of the enrolments which exist in the current tenant.
+     * @throws MonitoringDAOException
+     */
+    List<DeviceComplianceStatusDTO> getComplianceStatuses(List<Integer> enrolmentIds) throws MonitoringDAOException;
+
     List<ComplianceFeature> getNoneComplianceFeatures(int policyComplianceStatusId) throws MonitoringDAOException;
 
     void deleteNoneComplianceData(int policyComplianceStatusId) throws MonitoringDAOException;
 
     boolean updateAttempts(int deviceId, boolean reset) throws MonitoringDAOException;
 
+    /**
+     * Resets or increments the attempts of the given devices with a single statement.
+     *
+     * @param deviceId Ids of the devices, which are expected to be at most a batch.
+     * @param reset    true to reset the attempts, false to increment them.
+     * @throws MonitoringDAOException
+     */
     void updateAttempts(List<Integer> deviceId, boolean reset) throws MonitoringDAOException;
 
-}
\ No newline at end of file
+    /**
+     * @param deviceType Device type of the shards.
+     * @return Monitoring shards of the device type in the current tenant.
+     * @throws MonitoringDAOException
+     */
+    List<MonitoringShardDTO> getMonitoringShards(String deviceType) throws MonitoringDAOException;
+
+    void addMonitoringShards(String deviceType, List<Integer> shardIndexes) throws MonitoringDAOException;
+
+    /**
+     * Takes the lease of a monitoring shard if the shard is not leased by another node, or its lease has expired,
+     * and the last completed round of the shard was not started after the given time. Lease expiry is judged against
+     * the clock of the node taking the lease, while the expiry time was computed by the node holding it, hence the
+     * clocks of the nodes have to be kept synchronized to well within the lease duration.
+     *
+     * @param deviceType      Device type of the shard.
+     * @param shardIndex      Index of the shard.
+     * @param leaseOwner      Node taking the lease.
+     * @param leaseExpiryTime Time at which the lease expires unless renewed.
+     * @param completedBefore Time before which the last completed round of the shard must have been started.
+     * @return true if the lease was taken.
+     * @throws MonitoringDAOException
+     */
+    boolean acquireMonitoringShard(String deviceType, int shardIndex, String leaseOwner, Timestamp leaseExpiryTime,
+                                   Timestamp completedBefore) throws MonitoringDAOException;
+
+    /**
+     * Records the progress of a monitoring shard and renews its lease, as long as the lease is still held.
+     *
+     * @param shard           Shard carrying the last device monitored.
+     * @param leaseOwner      Node holding the lease.
+     * @param leaseExpiryTime New expiry time of the lease.
+     * @return true if the lease is still held by the given node.
+     * @throws MonitoringDAOException
+     */
+    boolean updateMonitoringShard(MonitoringShardDTO shard, String leaseOwner, Timestamp leaseExpiryTime)
+            throws MonitoringDAOException;
+
+    /**
+     * Gives up the lease of a monitoring shard. A completed shard starts its next round from the first device and
+     * records the start time of the completed round, while an incomplete one is resumed from its last recorded
+     * progress.
+     *
+     * @param shard      Shard to be released.
+     * @param leaseOwner Node holding the lease.
+     * @param completed  true if all the devices of the shard have been monitored.
+     * @throws MonitoringDAOException
+     */
+    void releaseMonitoringShard(MonitoringShardDTO shard, String leaseOwner, boolean completed)
+            throws MonitoringDAOException;
+
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.dao.dto;
+
+/**
+ * Monitoring state of a device enrolment, holding its compliance status record, if there is one, and the policy
+ * applied to the device, if there is one.
+ */
+public class DeviceComplianceStatusDTO {
+
+    private int deviceId;
+    private int enrolmentId;
+    private int complianceStatusId;
+    private int attempts;
+    private int appliedPolicyId;
+
+    public int getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(int deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public int getEnrolmentId() {
+        return enrolmentId;
+    }
+
+    public void setEnrolmentId(int enrolmentId) {
+        this.enrolmentId = enrolmentId;
+    }
+
+    /**
+     * @return Id of the compliance status record of the enrolment, or 0 if the enrolment has none.
+     */
+    public int getComplianceStatusId() {
+        return complianceStatusId;
+    }
+
+    public void setComplianceStatusId(int complianceStatusId) {
+        this.complianceStatusId = complianceStatusId;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * @return Id of the policy applied to the device, or 0 if no policy has been applied.
+     */
+    public int getAppliedPolicyId() {
+        return appliedPolicyId;
+    }
+
+    public void setAppliedPolicyId(int appliedPolicyId) {
+        this.appliedPolicyId = appliedPolicyId;
+    }
+
+    public boolean hasComplianceStatus() {
+        return complianceStatusId > 0;
+    }
+
+    public boolean hasAppliedPolicy() {
+        return appliedPolicyId > 0;
+    }
+
+}
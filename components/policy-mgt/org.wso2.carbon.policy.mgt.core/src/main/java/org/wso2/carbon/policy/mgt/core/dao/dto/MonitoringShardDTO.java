@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.dao.dto;
+
+import java.sql.Timestamp;
+
+/**
+ * Shard of the devices of a device type monitored by the monitoring task, along with the lease of the node
+ * monitoring it and the progress made in the current monitoring round.
+ */
+public class MonitoringShardDTO {
+
+    private String deviceType;
+    private int shardIndex;
+    private String leaseOwner;
+    private Timestamp leaseExpiryTime;
+    private int lastDeviceId;
+    private int lastEnrolmentId;
+    private Timestamp lastRoundStartTime;
+    private Timestamp roundStartTime;
+
+    public String getDeviceType() {
+        return deviceType;
+    }
+
+    public void setDeviceType(String deviceType) {
+        this.deviceType = deviceType;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public void setShardIndex(int shardIndex) {
+        this.shardIndex = shardIndex;
+    }
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public Timestamp getLeaseExpiryTime() {
+        return leaseExpiryTime;
+    }
+
+    public void setLeaseExpiryTime(Timestamp leaseExpiryTime) {
+        this.leaseExpiryTime = leaseExpiryTime;
+    }
+
+    /**
+     * @return Id of the last device monitored in the current round, or 0 if the round has not started.
+     */
+    public int getLastDeviceId() {
+        return lastDeviceId;
+    }
+
+    public void setLastDeviceId(int lastDeviceId) {
+        this.lastDeviceId = lastDeviceId;
+    }
+
+    /**
+     * @return Id of the enrolment of the last device monitored in the current round, or 0 if the round has not
+     * started.
+     */
+    public int getLastEnrolmentId() {
+        return lastEnrolmentId;
+    }
+
+    public void setLastEnrolmentId(int lastEnrolmentId) {
+        this.lastEnrolmentId = lastEnrolmentId;
+    }
+
+    /**
+     * @return Time at which the last completed round of the shard was started, or resumed by the node which
+     * completed it, or null if no round has been completed.
+     */
+    public Timestamp getLastRoundStartTime() {
+        return lastRoundStartTime;
+    }
+
+    public void setLastRoundStartTime(Timestamp lastRoundStartTime) {
+        this.lastRoundStartTime = lastRoundStartTime;
+    }
+
+    /**
+     * @return Time at which the current round was started, or resumed, by the node holding the lease.
+     */
+    public Timestamp getRoundStartTime() {
+        return roundStartTime;
+    }
+
+    public void setRoundStartTime(Timestamp roundStartTime) {
+        this.roundStartTime = roundStartTime;
+    }
+
+}
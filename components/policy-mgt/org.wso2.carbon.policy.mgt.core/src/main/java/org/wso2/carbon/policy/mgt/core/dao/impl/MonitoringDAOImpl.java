@@ -29,6 +29,8 @@ import org.wso2.carbon.policy.mgt.core.dao.MonitoringDAO;
 import org.wso2.carbon.policy.mgt.core.dao.MonitoringDAOException;
 import org.wso2.carbon.policy.mgt.core.dao.PolicyManagementDAOFactory;
 import org.wso2.carbon.policy.mgt.core.dao.PolicyManagerDAOException;
+import org.wso2.carbon.policy.mgt.core.dao.dto.DeviceComplianceStatusDTO;
+import org.wso2.carbon.policy.mgt.core.dao.dto.MonitoringShardDTO;
 import org.wso2.carbon.policy.mgt.core.dao.util.PolicyManagementDAOUtil;
 import org.wso2.carbon.policy.mgt.core.util.PolicyManagerUtil;
 
@@ -347,6 +349,50 @@ public class MonitoringDAOImpl implements MonitoringDAO {
         }
     }
 
+    @Override
+    public List<DeviceComplianceStatusDTO> getComplianceStatuses(List<Integer> enrolmentIds)
+            throws MonitoringDAOException {
+        List<DeviceComplianceStatusDTO> complianceStatuses = new ArrayList<>();
+        if (enrolmentIds == null || enrolmentIds.isEmpty()) {
+            return complianceStatuses;
+        }
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "SELECT E.ID AS ENROLMENT_ID, E.DEVICE_ID, C.ID AS COMPLIANCE_STATUS_ID, C.ATTEMPTS, " +
+                    "A.POLICY_ID AS APPLIED_POLICY_ID FROM DM_ENROLMENT E " +
+                    "LEFT JOIN DM_POLICY_COMPLIANCE_STATUS C ON C.DEVICE_ID = E.DEVICE_ID AND " +
+                    "C.ENROLMENT_ID = E.ID AND C.TENANT_ID = E.TENANT_ID " +
+                    "LEFT JOIN DM_DEVICE_POLICY_APPLIED A ON A.DEVICE_ID = E.DEVICE_ID AND A.TENANT_ID = E.TENANT_ID " +
+                    "WHERE E.TENANT_ID = ? AND E.ID IN (" +
+                    PolicyManagementDAOUtil.getPlaceholders(enrolmentIds.size()) + ")";
+            stmt = conn.prepareStatement(query);
+            int index = 1;
+            stmt.setInt(index++, tenantId);
+            for (int enrolmentId : enrolmentIds) {
+                stmt.setInt(index++, enrolmentId);
+            }
+            resultSet = stmt.executeQuery();
+            while (resultSet.next()) {
+                DeviceComplianceStatusDTO complianceStatus = new DeviceComplianceStatusDTO();
+                complianceStatus.setEnrolmentId(resultSet.getInt("ENROLMENT_ID"));
+                complianceStatus.setDeviceId(resultSet.getInt("DEVICE_ID"));
+                complianceStatus.setComplianceStatusId(resultSet.getInt("COMPLIANCE_STATUS_ID"));
+                complianceStatus.setAttempts(resultSet.getInt("ATTEMPTS"));
+                complianceStatus.setAppliedPolicyId(resultSet.getInt("APPLIED_POLICY_ID"));
+                complianceStatuses.add(complianceStatus);
+            }
+            return complianceStatuses;
+        } catch (SQLException e) {
+            throw new MonitoringDAOException("Unable to retrieve compliance statuses from database.", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+    }
+
     @Override
     public List<ComplianceFeature> getNoneComplianceFeatures(int policyComplianceStatusId) throws
             MonitoringDAOException {
@@ -432,30 +478,192 @@ public class MonitoringDAOImpl implements MonitoringDAO {
 
     @Override
     public void updateAttempts(List<Integer> deviceIds, boolean reset) throws MonitoringDAOException {
+        if (deviceIds == null || deviceIds.isEmpty()) {
+            return;
+        }
         Connection conn;
         PreparedStatement stmt = null;
         Timestamp currentTimestamp = new Timestamp(Calendar.getInstance().getTime().getTime());
         int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
         try {
             conn = this.getConnection();
-            String query = "";
+            String query;
             if (reset) {
                 query = "UPDATE DM_POLICY_COMPLIANCE_STATUS SET ATTEMPTS = 0, LAST_REQUESTED_TIME = ? " +
-                        "WHERE DEVICE_ID = ? AND TENANT_ID = ?";
+                        "WHERE TENANT_ID = ? AND DEVICE_ID IN (" +
+                        PolicyManagementDAOUtil.getPlaceholders(deviceIds.size()) + ")";
             } else {
                 query = "UPDATE DM_POLICY_COMPLIANCE_STATUS SET ATTEMPTS = ATTEMPTS + 1, LAST_REQUESTED_TIME = ? " +
-                        "WHERE DEVICE_ID = ? AND TENANT_ID = ?";
+                        "WHERE TENANT_ID = ? AND DEVICE_ID IN (" +
+                        PolicyManagementDAOUtil.getPlaceholders(deviceIds.size()) + ")";
             }
             stmt = conn.prepareStatement(query);
+            int index = 1;
+            stmt.setTimestamp(index++, currentTimestamp);
+            stmt.setInt(index++, tenantId);
             for (int deviceId : deviceIds) {
-                stmt.setTimestamp(1, currentTimestamp);
-                stmt.setInt(2, deviceId);
-                stmt.setInt(3, tenantId);
+                stmt.setInt(index++, deviceId);
+            }
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new MonitoringDAOException("Unable to update the attempts  data in database.", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
+    @Override
+    public List<MonitoringShardDTO> getMonitoringShards(String deviceType) throws MonitoringDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        ResultSet resultSet = null;
+        List<MonitoringShardDTO> shards = new ArrayList<>();
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "SELECT DEVICE_TYPE, SHARD_INDEX, LEASE_OWNER, LEASE_EXPIRY_TIME, LAST_DEVICE_ID, " +
+                    "LAST_ENROLMENT_ID, LAST_ROUND_START_TIME FROM DM_POLICY_MONITORING_SHARD WHERE TENANT_ID = ? " +
+                    "AND DEVICE_TYPE = ? ORDER BY SHARD_INDEX";
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, tenantId);
+            stmt.setString(2, deviceType);
+            resultSet = stmt.executeQuery();
+            while (resultSet.next()) {
+                MonitoringShardDTO shard = new MonitoringShardDTO();
+                shard.setDeviceType(resultSet.getString("DEVICE_TYPE"));
+                shard.setShardIndex(resultSet.getInt("SHARD_INDEX"));
+                shard.setLeaseOwner(resultSet.getString("LEASE_OWNER"));
+                shard.setLeaseExpiryTime(resultSet.getTimestamp("LEASE_EXPIRY_TIME"));
+                shard.setLastDeviceId(resultSet.getInt("LAST_DEVICE_ID"));
+                shard.setLastEnrolmentId(resultSet.getInt("LAST_ENROLMENT_ID"));
+                shard.setLastRoundStartTime(resultSet.getTimestamp("LAST_ROUND_START_TIME"));
+                shards.add(shard);
+            }
+            return shards;
+        } catch (SQLException e) {
+            throw new MonitoringDAOException("Unable to retrieve the monitoring shards of device type '" +
+                    deviceType + "'", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, resultSet);
+        }
+    }
+
+    @Override
+    public void addMonitoringShards(String deviceType, List<Integer> shardIndexes) throws MonitoringDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "INSERT INTO DM_POLICY_MONITORING_SHARD (TENANT_ID, DEVICE_TYPE, SHARD_INDEX, " +
+                    "LAST_DEVICE_ID, LAST_ENROLMENT_ID) VALUES (?, ?, ?, 0, 0)";
+            stmt = conn.prepareStatement(query);
+            for (int shardIndex : shardIndexes) {
+                stmt.setInt(1, tenantId);
+                stmt.setString(2, deviceType);
+                stmt.setInt(3, shardIndex);
                 stmt.addBatch();
             }
             stmt.executeBatch();
         } catch (SQLException e) {
-            throw new MonitoringDAOException("Unable to update the attempts  data in database.", e);
+            throw new MonitoringDAOException("Unable to add the monitoring shards of device type '" +
+                    deviceType + "'", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
+    @Override
+    public boolean acquireMonitoringShard(String deviceType, int shardIndex, String leaseOwner,
+                                          Timestamp leaseExpiryTime, Timestamp completedBefore)
+            throws MonitoringDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        Timestamp currentTimestamp = new Timestamp(Calendar.getInstance().getTime().getTime());
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "UPDATE DM_POLICY_MONITORING_SHARD SET LEASE_OWNER = ?, LEASE_EXPIRY_TIME = ? " +
+                    "WHERE TENANT_ID = ? AND DEVICE_TYPE = ? AND SHARD_INDEX = ? AND " +
+                    "(LEASE_OWNER IS NULL OR LEASE_EXPIRY_TIME < ?) AND " +
+                    "(LAST_ROUND_START_TIME IS NULL OR LAST_ROUND_START_TIME < ?)";
+            stmt = conn.prepareStatement(query);
+            stmt.setString(1, leaseOwner);
+            stmt.setTimestamp(2, leaseExpiryTime);
+            stmt.setInt(3, tenantId);
+            stmt.setString(4, deviceType);
+            stmt.setInt(5, shardIndex);
+            stmt.setTimestamp(6, currentTimestamp);
+            stmt.setTimestamp(7, completedBefore);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new MonitoringDAOException("Unable to acquire the monitoring shard " + shardIndex +
+                    " of device type '" + deviceType + "'", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
+    @Override
+    public boolean updateMonitoringShard(MonitoringShardDTO shard, String leaseOwner, Timestamp leaseExpiryTime)
+            throws MonitoringDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query = "UPDATE DM_POLICY_MONITORING_SHARD SET LAST_DEVICE_ID = ?, LAST_ENROLMENT_ID = ?, " +
+                    "LEASE_EXPIRY_TIME = ? WHERE TENANT_ID = ? AND DEVICE_TYPE = ? AND SHARD_INDEX = ? AND " +
+                    "LEASE_OWNER = ?";
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, shard.getLastDeviceId());
+            stmt.setInt(2, shard.getLastEnrolmentId());
+            stmt.setTimestamp(3, leaseExpiryTime);
+            stmt.setInt(4, tenantId);
+            stmt.setString(5, shard.getDeviceType());
+            stmt.setInt(6, shard.getShardIndex());
+            stmt.setString(7, leaseOwner);
+            return stmt.executeUpdate() > 0;
+        } catch (SQLException e) {
+            throw new MonitoringDAOException("Unable to update the progress of monitoring shard " +
+                    shard.getShardIndex() + " of device type '" + shard.getDeviceType() + "'", e);
+        } finally {
+            PolicyManagementDAOUtil.cleanupResources(stmt, null);
+        }
+    }
+
+    @Override
+    public void releaseMonitoringShard(MonitoringShardDTO shard, String leaseOwner, boolean completed)
+            throws MonitoringDAOException {
+        Connection conn;
+        PreparedStatement stmt = null;
+        Timestamp roundStartTime = shard.getRoundStartTime() != null ? shard.getRoundStartTime() :
+                new Timestamp(Calendar.getInstance().getTime().getTime());
+        int tenantId = PrivilegedCarbonContext.getThreadLocalCarbonContext().getTenantId();
+        try {
+            conn = this.getConnection();
+            String query;
+            if (completed) {
+                query = "UPDATE DM_POLICY_MONITORING_SHARD SET LEASE_OWNER = NULL, LEASE_EXPIRY_TIME = NULL, " +
+                        "LAST_DEVICE_ID = 0, LAST_ENROLMENT_ID = 0, LAST_ROUND_START_TIME = ? WHERE TENANT_ID = ? " +
+                        "AND DEVICE_TYPE = ? AND SHARD_INDEX = ? AND LEASE_OWNER = ?";
+            } else {
+                query = "UPDATE DM_POLICY_MONITORING_SHARD SET LEASE_OWNER = NULL, LEASE_EXPIRY_TIME = NULL " +
+                        "WHERE TENANT_ID = ? AND DEVICE_TYPE = ? AND SHARD_INDEX = ? AND LEASE_OWNER = ?";
+            }
+            stmt = conn.prepareStatement(query);
+            int index = 1;
+            if (completed) {
+                stmt.setTimestamp(index++, roundStartTime);
+            }
+            stmt.setInt(index++, tenantId);
+            stmt.setString(index++, shard.getDeviceType());
+            stmt.setInt(index++, shard.getShardIndex());
+            stmt.setString(index, leaseOwner);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new MonitoringDAOException("Unable to release the monitoring shard " + shard.getShardIndex() +
+                    " of device type '" + shard.getDeviceType() + "'", e);
         } finally {
             PolicyManagementDAOUtil.cleanupResources(stmt, null);
         }
@@ -73,4 +73,12 @@ public class PolicyManagementDAOUtil {
         cleanupResources(null, stmt, rs);
     }
 
+    public static String getPlaceholders(int count) {
+        StringBuilder placeholders = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            placeholders.append(i == 0 ? "?" : ", ?");
+        }
+        return placeholders.toString();
+    }
+
 }
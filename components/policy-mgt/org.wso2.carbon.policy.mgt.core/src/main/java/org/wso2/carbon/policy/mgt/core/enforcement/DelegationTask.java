@@ -24,6 +24,7 @@ import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.core.dto.DeviceType;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
 import org.wso2.carbon.ntask.core.Task;
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.policy.mgt.core.cache.impl.PolicyCacheManagerImpl;
@@ -31,7 +32,6 @@ import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
 import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
 import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -64,23 +64,21 @@ public class DelegationTask implements Task {
             if (!deviceTypes.isEmpty()) {
                 DeviceManagementProviderService service = PolicyManagementDataHolder.getInstance()
                         .getDeviceManagementService();
-                List<Device> devices;
                 List<Device> toBeNotified;
+                int chunkSize = DeviceManagerUtil.getBatchSize();
                 for (String deviceType : deviceTypes) {
                     try {
-                        devices = new ArrayList<>();
-                        toBeNotified = new ArrayList<>();
-                        devices.addAll(service.getAllDevices(deviceType));
-                        //HashMap<Integer, Integer> deviceIdPolicy = policyManager.getAppliedPolicyIdsDeviceIds();
-                        for (Device device : devices) {
-                            // if (deviceIdPolicy.containsKey(device.getId())) {
-                            toBeNotified.add(device);
-                            // }
-                        }
-                        if (!toBeNotified.isEmpty()) {
-                            PolicyEnforcementDelegator enforcementDelegator = new PolicyEnforcementDelegatorImpl(toBeNotified);
+                        Device lastDevice = null;
+                        do {
+                            toBeNotified = service.getDevices(deviceType, null, lastDevice, chunkSize);
+                            if (toBeNotified.isEmpty()) {
+                                break;
+                            }
+                            PolicyEnforcementDelegator enforcementDelegator =
+                                    new PolicyEnforcementDelegatorImpl(toBeNotified);
                             enforcementDelegator.delegate();
-                        }
+                            lastDevice = toBeNotified.get(toBeNotified.size() - 1);
+                        } while (toBeNotified.size() == chunkSize);
                     } catch (DeviceManagementException e) {
                         throw new PolicyManagementException("Error occurred while fetching the devices", e);
                     } catch (PolicyDelegationException e) {
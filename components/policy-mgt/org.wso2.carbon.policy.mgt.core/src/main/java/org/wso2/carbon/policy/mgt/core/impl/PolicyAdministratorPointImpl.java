@@ -38,6 +38,7 @@ import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
 import org.wso2.carbon.policy.mgt.core.mgt.impl.ProfileManagerImpl;
 import org.wso2.carbon.policy.mgt.core.util.PolicyManagementConstants;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -231,7 +232,7 @@ public class PolicyAdministratorPointImpl implements PolicyAdministratorPoint {
 
     @Override
     public List<Policy> getPolicies() throws PolicyManagementException {
-        return PolicyCacheManagerImpl.getInstance().getAllPolicies();
+        return new ArrayList<>(PolicyCacheManagerImpl.getInstance().getAllPolicies());
     }
 
     @Override
@@ -246,7 +247,7 @@ public class PolicyAdministratorPointImpl implements PolicyAdministratorPoint {
 
     @Override
     public List<Policy> getPoliciesOfDeviceType(String deviceType) throws PolicyManagementException {
-        return policyManager.getPoliciesOfDeviceType(deviceType);
+        return new ArrayList<>(policyManager.getPoliciesOfDeviceType(deviceType));
     }
 
     @Override
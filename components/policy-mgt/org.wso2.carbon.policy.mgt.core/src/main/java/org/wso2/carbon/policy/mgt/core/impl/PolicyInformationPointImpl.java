@@ -33,6 +33,8 @@ import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderServiceIm
 import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService;
 import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderServiceImpl;
 import org.wso2.carbon.policy.mgt.common.*;
+import org.wso2.carbon.policy.mgt.core.cache.CompiledPolicies;
+import org.wso2.carbon.policy.mgt.core.cache.impl.PolicyCacheManagerImpl;
 import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
 import org.wso2.carbon.policy.mgt.core.mgt.FeatureManager;
 import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
@@ -47,7 +49,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-public class PolicyInformationPointImpl implements PolicyInformationPoint {
+public class PolicyInformationPointImpl implements PrioritizedPolicyInformationPoint {
 
     private static final Log log = LogFactory.getLog(PolicyInformationPointImpl.class);
 
@@ -101,44 +103,34 @@ public class PolicyInformationPointImpl implements PolicyInformationPoint {
     @Override
     public List<Policy> getRelatedPolicies(PIPDevice pipDevice) throws PolicyManagementException {
 
-        List<Policy> policies = policyManager.getPoliciesOfDeviceType(pipDevice.getDeviceType().getName());
-        PolicyFilter policyFilter = new PolicyFilterImpl();
+        CompiledPolicies compiledPolicies = this.getCompiledPolicies(pipDevice);
+        List<Policy> policies = compiledPolicies.getMatchingPolicies(pipDevice.getOwnershipType(),
+                pipDevice.getRoles(), pipDevice.getUserId());
 
         if (log.isDebugEnabled()) {
-            log.debug("No of policies for the device type : " + pipDevice.getDeviceType().getName() + " : " +
+            log.debug("No of policies selected for the device type : " + pipDevice.getDeviceType().getName() + " : " +
                     policies.size());
             for (Policy policy : policies) {
-                log.debug("Names of policy for above device type : " + policy.getPolicyName());
+                log.debug("Names of selected policy  for above device type : " + policy.getPolicyName());
             }
         }
 
-        policies = policyFilter.filterActivePolicies(policies);
+        return policies;
+    }
 
-        if (pipDevice.getDeviceType() != null) {
-            policies = policyFilter.filterDeviceTypeBasedPolicies(pipDevice.getDeviceType().getName(), policies);
-        }
-        if (pipDevice.getOwnershipType() != null && !pipDevice.getOwnershipType().isEmpty()) {
-            policies = policyFilter.filterOwnershipTypeBasedPolicies(pipDevice.getOwnershipType(), policies);
-        }
-        if (pipDevice.getRoles() != null) {
-            policies = policyFilter.filterRolesBasedPolicies(pipDevice.getRoles(), policies);
-        }
-        if (pipDevice.getUserId() != null && !pipDevice.getUserId().isEmpty()) {
-            policies = policyFilter.filterUserBasedPolicies(pipDevice.getUserId(), policies);
-        }
-        if (pipDevice.getDeviceGroups() != null && !pipDevice.getDeviceGroups().isEmpty()) {
+    @Override
+    public Policy getHighestPriorityPolicy(PIPDevice pipDevice) throws PolicyManagementException {
 
-        }
+        CompiledPolicies compiledPolicies = this.getCompiledPolicies(pipDevice);
+        Policy policy = compiledPolicies.getHighestPriorityPolicy(pipDevice.getOwnershipType(),
+                pipDevice.getRoles(), pipDevice.getUserId());
 
         if (log.isDebugEnabled()) {
-            log.debug("No of policies selected for the device type : " + pipDevice.getDeviceType().getName() + " : " +
-                    policies.size());
-            for (Policy policy : policies) {
-                log.debug("Names of selected policy  for above device type : " + policy.getPolicyName());
-            }
+            log.debug("Highest priority policy selected for the device type : " +
+                    pipDevice.getDeviceType().getName() + " : " + (policy != null ? policy.getPolicyName() : null));
         }
 
-        return policies;
+        return policy;
     }
 
     @Override
@@ -161,6 +153,16 @@ public class PolicyInformationPointImpl implements PolicyInformationPoint {
     }
 
 
+    private CompiledPolicies getCompiledPolicies(PIPDevice pipDevice) throws PolicyManagementException {
+        String deviceType = pipDevice.getDeviceType().getName();
+        CompiledPolicies compiledPolicies =
+                PolicyCacheManagerImpl.getInstance().getPolicySnapshot().getCompiledPolicies(deviceType);
+        if (log.isDebugEnabled()) {
+            log.debug("No of active policies for the device type : " + deviceType + " : " + compiledPolicies.size());
+        }
+        return compiledPolicies;
+    }
+
     private List<Policy> removeDuplicatePolicies(List<List<Policy>> policies) {
 
         Map<Integer, Policy> map = new HashMap<Integer, Policy>();
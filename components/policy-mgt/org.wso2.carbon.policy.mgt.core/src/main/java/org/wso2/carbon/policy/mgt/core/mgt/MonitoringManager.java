@@ -24,6 +24,7 @@ import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.policy.mgt.common.monitor.ComplianceData;
 import org.wso2.carbon.policy.mgt.common.monitor.ComplianceFeature;
 import org.wso2.carbon.policy.mgt.common.monitor.PolicyComplianceException;
+import org.wso2.carbon.policy.mgt.core.dao.dto.MonitoringShardDTO;
 
 import java.util.List;
 
@@ -41,4 +42,42 @@ public interface MonitoringManager {
 
     List<String> getDeviceTypes() throws PolicyComplianceException;
 
+    /**
+     * Creates the monitoring shards of a device type which do not exist yet.
+     *
+     * @param deviceType Device type of the shards.
+     * @param shardCount Number of shards the devices of the device type are split into.
+     * @throws PolicyComplianceException
+     */
+    void addMonitoringShards(String deviceType, int shardCount) throws PolicyComplianceException;
+
+    /**
+     * Takes the lease of a monitoring shard which is not being monitored by another node and whose last completed
+     * round was not started recently. Leases expire according to the clocks of the nodes, which therefore have to be
+     * kept synchronized.
+     *
+     * @param deviceType      Device type of the shard.
+     * @param shardIndex      Index of the shard.
+     * @param leaseOwner      Node taking the lease.
+     * @param runStartTime    Time at which the monitoring run taking the lease was started. It is recorded as the
+     *                        start of the round once the round is completed.
+     * @param completedWithin Time in milliseconds, from the start of its last completed round, within which a shard
+     *                        is not monitored again.
+     * @return The shard, carrying the progress to resume from, or null if the lease could not be taken.
+     * @throws PolicyComplianceException
+     */
+    MonitoringShardDTO acquireMonitoringShard(String deviceType, int shardIndex, String leaseOwner,
+                                              long runStartTime, long completedWithin) throws PolicyComplianceException;
+
+    /**
+     * Records the progress of a monitoring shard and renews its lease.
+     *
+     * @return false if the lease has been taken over by another node, in which case monitoring the shard must stop.
+     * @throws PolicyComplianceException
+     */
+    boolean updateMonitoringShard(MonitoringShardDTO shard, String leaseOwner) throws PolicyComplianceException;
+
+    void releaseMonitoringShard(MonitoringShardDTO shard, String leaseOwner, boolean completed)
+            throws PolicyComplianceException;
+
 }
@@ -23,6 +23,7 @@ import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.Device;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
 import org.wso2.carbon.device.mgt.common.DeviceManagementException;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
 import org.wso2.carbon.device.mgt.common.InvalidDeviceException;
 import org.wso2.carbon.device.mgt.common.operation.mgt.Operation;
 import org.wso2.carbon.device.mgt.common.operation.mgt.OperationManagementException;
@@ -30,22 +31,31 @@ import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
 import org.wso2.carbon.device.mgt.core.config.policy.PolicyConfiguration;
 import org.wso2.carbon.device.mgt.core.operation.mgt.CommandOperation;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
 import org.wso2.carbon.policy.mgt.common.Policy;
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.policy.mgt.common.ProfileFeature;
 import org.wso2.carbon.policy.mgt.common.monitor.*;
 import org.wso2.carbon.policy.mgt.common.spi.PolicyMonitoringService;
 import org.wso2.carbon.policy.mgt.core.dao.*;
+import org.wso2.carbon.policy.mgt.core.dao.dto.DeviceComplianceStatusDTO;
+import org.wso2.carbon.policy.mgt.core.dao.dto.MonitoringShardDTO;
 import org.wso2.carbon.policy.mgt.core.impl.ComplianceDecisionPointImpl;
 import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
 import org.wso2.carbon.policy.mgt.core.mgt.MonitoringManager;
 import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
 
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class MonitoringManagerImpl implements MonitoringManager {
 
@@ -58,6 +68,10 @@ public class MonitoringManagerImpl implements MonitoringManager {
     private static final String OPERATION_MONITOR = "MONITOR";
     private static final String OPERATION_INFO = "DEVICE_INFO";
     private static final String OPERATION_APP_LIST = "APPLICATION_LIST";
+    /* Unresponsive devices are only marked as unreachable or inactive while they are in one of these statuses */
+    private static final List<EnrolmentInfo.Status> MONITORED_STATUSES = Arrays.asList(
+            EnrolmentInfo.Status.CREATED, EnrolmentInfo.Status.ACTIVE, EnrolmentInfo.Status.INACTIVE,
+            EnrolmentInfo.Status.UNREACHABLE);
 
     public MonitoringManagerImpl() {
         this.policyDAO = PolicyManagementDAOFactory.getPolicyDAO();
@@ -228,129 +242,100 @@ public class MonitoringManagerImpl implements MonitoringManager {
 
     @Override
     public void addMonitoringOperation(List<Device> devices) throws PolicyComplianceException {
+        for (List<Device> batch : DeviceManagerUtil.getBatches(devices, DeviceManagerUtil.getBatchSize())) {
+            this.addMonitoringOperationToBatch(batch);
+        }
+    }
 
-        //int tenantId = PolicyManagerUtil.getTenantId();
-        Map<Integer, Device> deviceIds = new HashMap<>();
-        List<ComplianceData> complianceDatas = new ArrayList<>();
-        HashMap<Integer, Integer> devicePolicyIdMap = new HashMap<>();
-
+    /**
+     * Reads the monitoring state of a batch of devices with a single query, and updates the attempts, the monitoring
+     * operations and the enrolment statuses of the batch with a few bulk statements.
+     */
+    private void addMonitoringOperationToBatch(List<Device> devices) throws PolicyComplianceException {
+        Map<Integer, Device> devicesByEnrolmentId = new LinkedHashMap<>();
+        for (Device device : devices) {
+            devicesByEnrolmentId.put(device.getEnrolmentInfo().getId(), device);
+        }
+        Map<Integer, DeviceComplianceStatusDTO> complianceStatuses = new HashMap<>();
         try {
             PolicyManagementDAOFactory.openConnection();
-            //TODO: Return a map from getCompliance to reduce O(n^2) -> O(n)
-            List<ComplianceData> cd = monitoringDAO.getCompliance();
-
-            for (Device device : devices) {
-                deviceIds.put(device.getId(), device);
-
-                for (ComplianceData data : cd) {
-                    if (device.getId() == data.getDeviceId() && device.getEnrolmentInfo().getId() == data
-                            .getEnrolmentId()) {
-                        complianceDatas.add(data);
-                    }
-                }
-            }
-            List<Integer> deviceIDs = new ArrayList<>(deviceIds.keySet());
-
-            HashMap<Integer, Integer> temp = policyDAO.getAppliedPolicyIds();
-            for (Integer id : deviceIDs) {
-                if (temp != null && !temp.isEmpty() && temp.containsKey(id)) {
-                    devicePolicyIdMap.put(id, temp.get(id));
-                }
+            for (DeviceComplianceStatusDTO complianceStatus :
+                    monitoringDAO.getComplianceStatuses(new ArrayList<>(devicesByEnrolmentId.keySet()))) {
+                complianceStatuses.put(complianceStatus.getEnrolmentId(), complianceStatus);
             }
-
         } catch (SQLException e) {
             throw new PolicyComplianceException("SQL error occurred while getting monitoring details.", e);
         } catch (MonitoringDAOException e) {
             throw new PolicyComplianceException("SQL error occurred while getting monitoring details.", e);
-        } catch (PolicyManagerDAOException e) {
-            throw new PolicyComplianceException("SQL error occurred while getting policy details.", e);
         } finally {
             PolicyManagementDAOFactory.closeConnection();
         }
 
-        Map<Integer, Device> deviceIdsToAddOperation = new HashMap<>();
-        Map<Integer, Device> deviceIdsWithExistingOperation = new HashMap<>();
-        Map<Integer, Device> inactiveDeviceIds = new HashMap<>();
-        Map<Integer, Device> devicesToMarkUnreachable = new HashMap<>();
-        //Map<Integer, Integer> firstTimeDeviceIdsWithPolicyIds = new HashMap<>();
-
+        Set<Integer> deviceIdsToUpdate = new LinkedHashSet<>();
+        List<Device> devicesToAddOperation = new ArrayList<>();
+        List<Device> devicesToMarkUnreachable = new ArrayList<>();
+        List<Device> devicesToMarkInactive = new ArrayList<>();
         List<PolicyDeviceWrapper> firstTimeDevices = new ArrayList<>();
 
-        Map<Integer, ComplianceData> tempMap = new HashMap<>();
-
-        try {
-            if (complianceDatas != null || !complianceDatas.isEmpty()) {
-                for (ComplianceData complianceData : complianceDatas) {
-
-                    tempMap.put(complianceData.getDeviceId(), complianceData);
-
-                    if (complianceData.getAttempts() == 0) {
-                        deviceIdsToAddOperation.put(complianceData.getDeviceId(),
-                                                    deviceIds.get(complianceData.getDeviceId()));
-                    } else {
-                        deviceIdsWithExistingOperation.put(complianceData.getDeviceId(),
-                                                           deviceIds.get(complianceData.getDeviceId()));
-                        if (complianceData.getAttempts() >= policyConfiguration.getMinRetriesToMarkUnreachable()) {
-                            devicesToMarkUnreachable.put(complianceData.getDeviceId(),
-                                                        deviceIds.get(complianceData.getDeviceId()));
-                        }
-                    }
-                    if (complianceData.getAttempts() >= policyConfiguration.getMinRetriesToMarkInactive()) {
-                        inactiveDeviceIds.put(complianceData.getDeviceId(),
-                                              deviceIds.get(complianceData.getDeviceId()));
-                    }
-                }
+        for (Map.Entry<Integer, Device> entry : devicesByEnrolmentId.entrySet()) {
+            Device device = entry.getValue();
+            DeviceComplianceStatusDTO complianceStatus = complianceStatuses.get(entry.getKey());
+            if (complianceStatus == null) {
+                continue;
             }
-
-            for (Device device : devices) {
-                if ((!tempMap.containsKey(device.getId())) && (devicePolicyIdMap.containsKey(device.getId()))) {
-                    deviceIdsToAddOperation.put(device.getId(), device);
-
-                    PolicyDeviceWrapper policyDeviceWrapper = new PolicyDeviceWrapper();
-                    policyDeviceWrapper.setDeviceId(device.getId());
-                    policyDeviceWrapper.setEnrolmentId(device.getEnrolmentInfo().getId());
-                    policyDeviceWrapper.setPolicyId(devicePolicyIdMap.get(device.getId()));
-
-                    firstTimeDevices.add(policyDeviceWrapper);
-
-                    // firstTimeDeviceIdsWithPolicyIds.put(device.getId(), devicePolicyIdMap.get(device.getId()));
+            int attempts = complianceStatus.getAttempts();
+            if (complianceStatus.hasComplianceStatus()) {
+                deviceIdsToUpdate.add(device.getId());
+                if (attempts == 0) {
+                    devicesToAddOperation.add(device);
                 }
-            }
-
-            if (log.isDebugEnabled()) {
-                log.debug("These devices are in the system for the first time");
-                for (PolicyDeviceWrapper wrapper : firstTimeDevices) {
-                    log.debug("First time device primary key : " + wrapper.getDeviceId() + " & policy id " +
-                              wrapper.getPolicyId());
+                if (attempts >= policyConfiguration.getMinRetriesToMarkInactive()) {
+                    devicesToMarkInactive.add(device);
+                } else if (attempts != 0 && attempts >= policyConfiguration.getMinRetriesToMarkUnreachable()) {
+                    devicesToMarkUnreachable.add(device);
                 }
+            } else if (complianceStatus.hasAppliedPolicy()) {
+                deviceIdsToUpdate.add(device.getId());
+                devicesToAddOperation.add(device);
+
+                PolicyDeviceWrapper policyDeviceWrapper = new PolicyDeviceWrapper();
+                policyDeviceWrapper.setDeviceId(device.getId());
+                policyDeviceWrapper.setEnrolmentId(entry.getKey());
+                policyDeviceWrapper.setPolicyId(complianceStatus.getAppliedPolicyId());
+                firstTimeDevices.add(policyDeviceWrapper);
             }
+        }
 
-            PolicyManagementDAOFactory.beginTransaction();
-
-            if (!deviceIdsToAddOperation.isEmpty()) {
-                //                monitoringDAO.addComplianceDetails(firstTimeDeviceIdsWithPolicyIds);
-                monitoringDAO.addComplianceDetails(firstTimeDevices);
-                monitoringDAO.updateAttempts(new ArrayList<>(deviceIdsToAddOperation.keySet()), false);
+        if (log.isDebugEnabled()) {
+            log.debug("These devices are in the system for the first time");
+            for (PolicyDeviceWrapper wrapper : firstTimeDevices) {
+                log.debug("First time device primary key : " + wrapper.getDeviceId() + " & policy id " +
+                          wrapper.getPolicyId());
             }
+        }
 
-            if (!deviceIdsWithExistingOperation.isEmpty()) {
-                monitoringDAO.updateAttempts(new ArrayList<>(deviceIdsWithExistingOperation.keySet()), false);
+        if (!deviceIdsToUpdate.isEmpty()) {
+            try {
+                PolicyManagementDAOFactory.beginTransaction();
+                if (!firstTimeDevices.isEmpty()) {
+                    monitoringDAO.addComplianceDetails(firstTimeDevices);
+                }
+                monitoringDAO.updateAttempts(new ArrayList<>(deviceIdsToUpdate), false);
+                PolicyManagementDAOFactory.commitTransaction();
+            } catch (MonitoringDAOException e) {
+                PolicyManagementDAOFactory.rollbackTransaction();
+                throw new PolicyComplianceException("Error occurred from monitoring dao.", e);
+            } catch (PolicyManagerDAOException e) {
+                PolicyManagementDAOFactory.rollbackTransaction();
+                throw new PolicyComplianceException("Error occurred while updating the monitoring attempts.", e);
+            } finally {
+                PolicyManagementDAOFactory.closeConnection();
             }
-            PolicyManagementDAOFactory.commitTransaction();
-
-        } catch (MonitoringDAOException e) {
-            PolicyManagementDAOFactory.rollbackTransaction();
-            throw new PolicyComplianceException("Error occurred from monitoring dao.", e);
-        } catch (PolicyManagerDAOException e) {
-            PolicyManagementDAOFactory.rollbackTransaction();
-            throw new PolicyComplianceException("Error occurred reading the applied policies to devices.", e);
-        } finally {
-            PolicyManagementDAOFactory.closeConnection();
         }
 
-        if (!deviceIdsToAddOperation.isEmpty()) {
+        if (!devicesToAddOperation.isEmpty()) {
             try {
-                this.addMonitoringOperationsToDatabase(new ArrayList<>(deviceIdsToAddOperation.values()));
+                this.addMonitoringOperationsToDatabase(devicesToAddOperation);
             } catch (InvalidDeviceException e) {
                 throw new PolicyComplianceException("Invalid Device Identifiers found.", e);
             } catch (OperationManagementException e) {
@@ -358,21 +343,18 @@ public class MonitoringManagerImpl implements MonitoringManager {
             }
         }
 
-        // TODO : This should be uncommented, this is to mark the device as unreachable, But given the current
-        // implementation we are not able to do so.
-
-        if (!devicesToMarkUnreachable.isEmpty()) {
-            ComplianceDecisionPoint decisionPoint = new ComplianceDecisionPointImpl();
-            decisionPoint.setDevicesAsUnreachable(this.getDeviceIdentifiersFromDevices(
-                    new ArrayList<>(devicesToMarkUnreachable.values())));
-        }
-
-        if (!inactiveDeviceIds.isEmpty()) {
-            ComplianceDecisionPoint decisionPoint = new ComplianceDecisionPointImpl();
-            decisionPoint.setDevicesAsInactive(this.getDeviceIdentifiersFromDevices(
-                    new ArrayList<>(inactiveDeviceIds.values())));
+        try {
+            DeviceManagementProviderService service =
+                    PolicyManagementDataHolder.getInstance().getDeviceManagementService();
+            if (!devicesToMarkUnreachable.isEmpty()) {
+                service.setStatus(devicesToMarkUnreachable, MONITORED_STATUSES, EnrolmentInfo.Status.UNREACHABLE);
+            }
+            if (!devicesToMarkInactive.isEmpty()) {
+                service.setStatus(devicesToMarkInactive, MONITORED_STATUSES, EnrolmentInfo.Status.INACTIVE);
+            }
+        } catch (DeviceManagementException e) {
+            throw new PolicyComplianceException("Error occurred while updating the status of unresponsive devices", e);
         }
-
     }
 
     @Override
@@ -391,6 +373,119 @@ public class MonitoringManagerImpl implements MonitoringManager {
         return deviceTypes;
     }
 
+    @Override
+    public void addMonitoringShards(String deviceType, int shardCount) throws PolicyComplianceException {
+        List<Integer> missingShardIndexes = new ArrayList<>();
+        try {
+            PolicyManagementDAOFactory.openConnection();
+            Set<Integer> shardIndexes = new HashSet<>();
+            for (MonitoringShardDTO shard : monitoringDAO.getMonitoringShards(deviceType)) {
+                shardIndexes.add(shard.getShardIndex());
+            }
+            for (int i = 0; i < shardCount; i++) {
+                if (!shardIndexes.contains(i)) {
+                    missingShardIndexes.add(i);
+                }
+            }
+        } catch (SQLException e) {
+            throw new PolicyComplianceException("Error occurred while opening a connection to the data source", e);
+        } catch (MonitoringDAOException e) {
+            throw new PolicyComplianceException("Error occurred while reading the monitoring shards of device type '" +
+                    deviceType + "'", e);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+        if (missingShardIndexes.isEmpty()) {
+            return;
+        }
+        try {
+            PolicyManagementDAOFactory.beginTransaction();
+            monitoringDAO.addMonitoringShards(deviceType, missingShardIndexes);
+            PolicyManagementDAOFactory.commitTransaction();
+        } catch (MonitoringDAOException e) {
+            PolicyManagementDAOFactory.rollbackTransaction();
+            // Another node adding the same shards at the same time makes the insert fail, and the shards it added
+            // serve this node as well. Any other failure surfaces when the shards are acquired.
+            if (log.isDebugEnabled()) {
+                log.debug("Monitoring shards of device type '" + deviceType + "' could not be added", e);
+            }
+        } catch (PolicyManagerDAOException e) {
+            throw new PolicyComplianceException("Error occurred while initiating transaction", e);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @Override
+    public MonitoringShardDTO acquireMonitoringShard(String deviceType, int shardIndex, String leaseOwner,
+                                                     long runStartTime, long completedWithin) throws PolicyComplianceException {
+        long now = System.currentTimeMillis();
+        try {
+            PolicyManagementDAOFactory.beginTransaction();
+            MonitoringShardDTO acquiredShard = null;
+            if (monitoringDAO.acquireMonitoringShard(deviceType, shardIndex, leaseOwner,
+                    new Timestamp(now + policyConfiguration.getMonitoringLeaseDuration()),
+                    new Timestamp(runStartTime - completedWithin))) {
+                for (MonitoringShardDTO shard : monitoringDAO.getMonitoringShards(deviceType)) {
+                    if (shard.getShardIndex() == shardIndex) {
+                        acquiredShard = shard;
+                        // Rounds are stamped with the start of the run, so that a slow shard does not push the
+                        // next round of the shard past the start of the next run
+                        acquiredShard.setRoundStartTime(new Timestamp(runStartTime));
+                    }
+                }
+            }
+            PolicyManagementDAOFactory.commitTransaction();
+            return acquiredShard;
+        } catch (MonitoringDAOException e) {
+            PolicyManagementDAOFactory.rollbackTransaction();
+            throw new PolicyComplianceException("Error occurred while acquiring the monitoring shard " + shardIndex +
+                    " of device type '" + deviceType + "'", e);
+        } catch (PolicyManagerDAOException e) {
+            throw new PolicyComplianceException("Error occurred while initiating transaction", e);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @Override
+    public boolean updateMonitoringShard(MonitoringShardDTO shard, String leaseOwner)
+            throws PolicyComplianceException {
+        try {
+            PolicyManagementDAOFactory.beginTransaction();
+            boolean updated = monitoringDAO.updateMonitoringShard(shard, leaseOwner,
+                    new Timestamp(System.currentTimeMillis() + policyConfiguration.getMonitoringLeaseDuration()));
+            PolicyManagementDAOFactory.commitTransaction();
+            return updated;
+        } catch (MonitoringDAOException e) {
+            PolicyManagementDAOFactory.rollbackTransaction();
+            throw new PolicyComplianceException("Error occurred while updating the monitoring shard " +
+                    shard.getShardIndex() + " of device type '" + shard.getDeviceType() + "'", e);
+        } catch (PolicyManagerDAOException e) {
+            throw new PolicyComplianceException("Error occurred while initiating transaction", e);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @Override
+    public void releaseMonitoringShard(MonitoringShardDTO shard, String leaseOwner, boolean completed)
+            throws PolicyComplianceException {
+        try {
+            PolicyManagementDAOFactory.beginTransaction();
+            monitoringDAO.releaseMonitoringShard(shard, leaseOwner, completed);
+            PolicyManagementDAOFactory.commitTransaction();
+        } catch (MonitoringDAOException e) {
+            PolicyManagementDAOFactory.rollbackTransaction();
+            throw new PolicyComplianceException("Error occurred while releasing the monitoring shard " +
+                    shard.getShardIndex() + " of device type '" + shard.getDeviceType() + "'", e);
+        } catch (PolicyManagerDAOException e) {
+            throw new PolicyComplianceException("Error occurred while initiating transaction", e);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+    }
+
     private void addMonitoringOperationsToDatabase(List<Device> devices)
             throws PolicyComplianceException, OperationManagementException, InvalidDeviceException {
 
@@ -31,6 +31,7 @@ import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderServiceIm
 import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderService;
 import org.wso2.carbon.device.mgt.core.service.GroupManagementProviderServiceImpl;
 import org.wso2.carbon.policy.mgt.common.*;
+import org.wso2.carbon.policy.mgt.core.cache.PolicySnapshot;
 import org.wso2.carbon.policy.mgt.core.cache.impl.PolicyCacheManagerImpl;
 import org.wso2.carbon.policy.mgt.core.dao.*;
 import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
@@ -257,18 +258,16 @@ public class PolicyManagerImpl implements PolicyManager {
     public boolean updatePolicyPriorities(List<Policy> policies) throws PolicyManagementException {
         boolean bool;
         try {
-//            List<Policy> existingPolicies = this.getPolicies();
-            List<Policy> existingPolicies = PolicyCacheManagerImpl.getInstance().getAllPolicies();
+            PolicySnapshot existingPolicies = PolicyCacheManagerImpl.getInstance().getPolicySnapshot();
             PolicyManagementDAOFactory.beginTransaction();
             bool = policyDAO.updatePolicyPriorities(policies);
 
             // This logic is added because ui sends only policy id and priority to update priorities.
 
             for (Policy policy : policies) {
-                for (Policy exPolicy : existingPolicies) {
-                    if (policy.getId() == exPolicy.getId()) {
-                        policy.setProfile(exPolicy.getProfile());
-                    }
+                Policy exPolicy = existingPolicies.getPolicy(policy.getId());
+                if (exPolicy != null) {
+                    policy.setProfile(exPolicy.getProfile());
                 }
             }
             policyDAO.recordUpdatedPolicies(policies);
@@ -632,7 +631,6 @@ public class PolicyManagerImpl implements PolicyManager {
     public List<Policy> getPoliciesOfDevice(DeviceIdentifier deviceIdentifier) throws PolicyManagementException {
 
         List<Integer> policyIdList;
-        List<Policy> policies = new ArrayList<>();
         try {
 
             DeviceManagementProviderService service = new DeviceManagementProviderServiceImpl();
@@ -652,54 +650,17 @@ public class PolicyManagerImpl implements PolicyManager {
             PolicyManagementDAOFactory.closeConnection();
         }
 
-//        List<Policy> tempPolicyList = this.getPolicies();
-        List<Policy> tempPolicyList = PolicyCacheManagerImpl.getInstance().getAllPolicies();
-
-        for (Policy policy : tempPolicyList) {
-            for (Integer i : policyIdList) {
-                if (policy.getId() == i) {
-                    policies.add(policy);
-                }
-            }
-        }
-
-        Collections.sort(policies);
-        return policies;
+        return this.getCachedPolicies(policyIdList);
     }
 
     @Override
     public List<Policy> getPoliciesOfDeviceType(String deviceTypeName) throws PolicyManagementException {
-        List<Policy> policies = new ArrayList<>();
-//        try {
-        // List<Profile> profileList = profileManager.getProfilesOfDeviceType(deviceTypeName);
-//            List<Policy> allPolicies = this.getPolicies();
-        List<Policy> allPolicies = PolicyCacheManagerImpl.getInstance().getAllPolicies();
-
-        for (Policy policy : allPolicies) {
-            if (policy.getProfile().getDeviceType().equalsIgnoreCase(deviceTypeName)) {
-                policies.add(policy);
-            }
-        }
-
-//            for (Profile profile : profileList) {
-//                for (Policy policy : allPolicies) {
-//                    if (policy.getProfileId() == profile.getProfileId()) {
-//                        policy.setProfile(profile);
-//                        policies.add(policy);
-//                    }
-//                }
-//            }
-        Collections.sort(policies);
-//        } catch (ProfileManagementException e) {
-//            throw new PolicyManagementException("Error occurred while getting all the profile features.", e);
-//        }
-        return policies;
+        return PolicyCacheManagerImpl.getInstance().getPoliciesOfDeviceType(deviceTypeName);
     }
 
     @Override
     public List<Policy> getPoliciesOfRole(String roleName) throws PolicyManagementException {
 
-        List<Policy> policies = new ArrayList<>();
         List<Integer> policyIdList;
 
         try {
@@ -714,24 +675,12 @@ public class PolicyManagerImpl implements PolicyManager {
             PolicyManagementDAOFactory.closeConnection();
         }
 
-//        List<Policy> tempPolicyList = this.getPolicies();
-        List<Policy> tempPolicyList = PolicyCacheManagerImpl.getInstance().getAllPolicies();
-
-        for (Policy policy : tempPolicyList) {
-            for (Integer i : policyIdList) {
-                if (policy.getId() == i) {
-                    policies.add(policy);
-                }
-            }
-        }
-        Collections.sort(policies);
-        return policies;
+        return this.getCachedPolicies(policyIdList);
     }
 
     @Override
     public List<Policy> getPoliciesOfUser(String username) throws PolicyManagementException {
 
-        List<Policy> policies = new ArrayList<>();
         List<Integer> policyIdList;
 
         try {
@@ -744,18 +693,7 @@ public class PolicyManagerImpl implements PolicyManager {
         } finally {
             PolicyManagementDAOFactory.closeConnection();
         }
-//        List<Policy> tempPolicyList = this.getPolicies();
-        List<Policy> tempPolicyList = PolicyCacheManagerImpl.getInstance().getAllPolicies();
-
-        for (Policy policy : tempPolicyList) {
-            for (Integer i : policyIdList) {
-                if (policy.getId() == i) {
-                    policies.add(policy);
-                }
-            }
-        }
-        Collections.sort(policies);
-        return policies;
+        return this.getCachedPolicies(policyIdList);
     }
 
     @Override
@@ -1032,6 +970,19 @@ public class PolicyManagerImpl implements PolicyManager {
         }
     }
 
+    private List<Policy> getCachedPolicies(List<Integer> policyIds) throws PolicyManagementException {
+        PolicySnapshot snapshot = PolicyCacheManagerImpl.getInstance().getPolicySnapshot();
+        List<Policy> policies = new ArrayList<>(policyIds.size());
+        for (Integer policyId : policyIds) {
+            Policy policy = snapshot.getPolicy(policyId);
+            if (policy != null) {
+                policies.add(policy);
+            }
+        }
+        Collections.sort(policies);
+        return policies;
+    }
+
     private List<DeviceGroupWrapper> getDeviceGroupNames(List<DeviceGroupWrapper> groupWrappers) throws GroupManagementException {
         GroupManagementProviderService groupManagementProviderService = new GroupManagementProviderServiceImpl();
         for (DeviceGroupWrapper wrapper : groupWrappers) {
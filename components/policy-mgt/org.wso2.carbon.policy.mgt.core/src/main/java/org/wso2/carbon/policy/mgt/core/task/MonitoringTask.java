@@ -21,24 +21,44 @@ package org.wso2.carbon.policy.mgt.core.task;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceManagementException;
 import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
 import org.wso2.carbon.device.mgt.core.config.DeviceConfigurationManager;
 import org.wso2.carbon.device.mgt.core.config.policy.PolicyConfiguration;
 import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderService;
+import org.wso2.carbon.device.mgt.core.util.DeviceManagerUtil;
 import org.wso2.carbon.ntask.core.Task;
+import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.policy.mgt.common.monitor.PolicyComplianceException;
 import org.wso2.carbon.policy.mgt.common.spi.PolicyMonitoringService;
+import org.wso2.carbon.policy.mgt.core.dao.dto.MonitoringShardDTO;
 import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
 import org.wso2.carbon.policy.mgt.core.mgt.MonitoringManager;
+import org.wso2.carbon.policy.mgt.core.util.PolicyManagerUtil;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class MonitoringTask implements Task {
 
     private static Log log = LogFactory.getLog(MonitoringTask.class);
+    /* Devices which are blocked, removed, unclaimed, suspended or have requested dis-enrolment are not monitored */
+    private static final List<EnrolmentInfo.Status> NOTIFIABLE_STATUSES = Arrays.asList(
+            EnrolmentInfo.Status.CREATED, EnrolmentInfo.Status.ACTIVE, EnrolmentInfo.Status.INACTIVE,
+            EnrolmentInfo.Status.UNREACHABLE);
+
+    /* Identifies this node as the holder of the leases of the shards it monitors */
+    private static final String LEASE_OWNER = UUID.randomUUID().toString();
+    private static final long SHUTDOWN_POLL_INTERVAL = 10000;
 
     Map<String, String> properties;
 
@@ -65,7 +85,8 @@ public class MonitoringTask implements Task {
         try {
             deviceTypes = monitoringManager.getDeviceTypes();
             for (String deviceType : deviceTypes) {
-                if (isPlatformExist(deviceType)) {
+                if (isPlatformExist(deviceType) &&
+                        PolicyManagementDataHolder.getInstance().getPolicyMonitoringService(deviceType) != null) {
                     configDeviceTypes.add(deviceType);
                 }
             }
@@ -74,46 +95,19 @@ public class MonitoringTask implements Task {
         }
         if (!deviceTypes.isEmpty()) {
             try {
-                DeviceManagementProviderService deviceManagementProviderService =
-                        PolicyManagementDataHolder.getInstance().getDeviceManagementService();
+                PolicyConfiguration policyConfiguration =
+                        DeviceConfigurationManager.getInstance().getDeviceManagementConfig().getPolicyConfiguration();
+                int shardCount = policyConfiguration.getMonitoringShardCount();
+                List<ShardMonitor> shardMonitors = new ArrayList<>();
                 for (String deviceType : configDeviceTypes) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Running task for device type : " + deviceType);
-                    }
-                    PolicyMonitoringService monitoringService =
-                            PolicyManagementDataHolder.getInstance().getPolicyMonitoringService(deviceType);
-                    List<Device> devices = deviceManagementProviderService.getAllDevices(deviceType);
-                    if (monitoringService != null && !devices.isEmpty()) {
-                        List<Device> notifiableDevices = new ArrayList<>();
-                        if (log.isDebugEnabled()) {
-                            log.debug("Removing inactive and blocked devices from the list for the device type : " +
-                                    deviceType);
-                        }
-                        for (Device device : devices) {
-
-                            EnrolmentInfo.Status status = device.getEnrolmentInfo().getStatus();
-                            if (status.equals(EnrolmentInfo.Status.BLOCKED) ||
-                                    status.equals(EnrolmentInfo.Status.REMOVED) ||
-                                    status.equals(EnrolmentInfo.Status.UNCLAIMED) ||
-                                    status.equals(EnrolmentInfo.Status.DISENROLLMENT_REQUESTED) ||
-                                    status.equals(EnrolmentInfo.Status.SUSPENDED)) {
-                                continue;
-                            } else {
-                                notifiableDevices.add(device);
-                            }
-                        }
-                        if (log.isDebugEnabled()) {
-                            log.debug("Following devices selected to send the notification for " + deviceType);
-                            for (Device device : notifiableDevices) {
-                                log.debug(device.getDeviceIdentifier());
-                            }
-                        }
-                        if (!notifiableDevices.isEmpty()) {
-                            monitoringManager.addMonitoringOperation(notifiableDevices);
-                            monitoringService.notifyDevices(notifiableDevices);
-                        }
+                    monitoringManager.addMonitoringShards(deviceType, shardCount);
+                    for (int i = 0; i < shardCount; i++) {
+                        shardMonitors.add(new ShardMonitor(deviceType, shardCount, i));
                     }
                 }
+                // Nodes going through the shards in different orders contend less for the same shard
+                Collections.shuffle(shardMonitors);
+                this.monitorShards(shardMonitors, policyConfiguration.getMonitoringThreadPoolSize());
                 if (log.isDebugEnabled()) {
                     log.debug("Monitoring task running completed.");
                 }
@@ -126,6 +120,39 @@ public class MonitoringTask implements Task {
 
     }
 
+    /**
+     * Runs the given shard monitors on a bounded pool of threads carrying the tenant of the task, and waits until all
+     * of them have finished.
+     */
+    private void monitorShards(List<ShardMonitor> shardMonitors, int threadPoolSize) throws PolicyManagementException,
+            InterruptedException {
+        if (shardMonitors.isEmpty()) {
+            return;
+        }
+        // Shards whose last completed round was started within the last half of the monitoring period, by this or
+        // another node, are not monitored again
+        long runStartTime = System.currentTimeMillis();
+        long completedWithin = PolicyManagerUtil.getMonitoringFrequency() / 2;
+        PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(threadPoolSize,
+                shardMonitors.size()));
+        try {
+            for (ShardMonitor shardMonitor : shardMonitors) {
+                shardMonitor.setContext(carbonContext.getTenantId(), carbonContext.getTenantDomain(),
+                        runStartTime, completedWithin);
+                executorService.execute(shardMonitor);
+            }
+            executorService.shutdown();
+            while (!executorService.awaitTermination(SHUTDOWN_POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Waiting for the monitoring shards to be completed.");
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
     /**
      * Check whether Device platform (ex: android) is exist in the cdm-config.xml file before adding a
      * Monitoring operation to a specific device type.
@@ -139,4 +166,122 @@ public class MonitoringTask implements Task {
                 DeviceConfigurationManager.getInstance().getDeviceManagementConfig().getPolicyConfiguration();
         return (policyConfiguration.getPlatforms().contains(deviceType));
     }
+
+    /**
+     * Monitors the devices of one shard, provided that the lease of the shard can be taken. Progress is recorded after
+     * every chunk of devices, so that another node can resume the shard from there if this node stops before
+     * completing it.
+     */
+    private static class ShardMonitor implements Runnable {
+
+        private String deviceType;
+        private int shardCount;
+        private int shardIndex;
+        private int tenantId;
+        private String tenantDomain;
+        private long runStartTime;
+        private long completedWithin;
+
+        ShardMonitor(String deviceType, int shardCount, int shardIndex) {
+            this.deviceType = deviceType;
+            this.shardCount = shardCount;
+            this.shardIndex = shardIndex;
+        }
+
+        void setContext(int tenantId, String tenantDomain, long runStartTime, long completedWithin) {
+            this.tenantId = tenantId;
+            this.tenantDomain = tenantDomain;
+            this.runStartTime = runStartTime;
+            this.completedWithin = completedWithin;
+        }
+
+        @Override
+        public void run() {
+            PrivilegedCarbonContext.startTenantFlow();
+            try {
+                PrivilegedCarbonContext carbonContext = PrivilegedCarbonContext.getThreadLocalCarbonContext();
+                carbonContext.setTenantId(tenantId);
+                carbonContext.setTenantDomain(tenantDomain);
+                this.monitorShard();
+            } catch (PolicyComplianceException e) {
+                log.error("Error occurred while monitoring shard " + shardIndex + " of device type '" + deviceType +
+                        "'", e);
+            } finally {
+                PrivilegedCarbonContext.endTenantFlow();
+            }
+        }
+
+        private void monitorShard() throws PolicyComplianceException {
+            MonitoringManager monitoringManager = PolicyManagementDataHolder.getInstance().getMonitoringManager();
+            MonitoringShardDTO shard = monitoringManager.acquireMonitoringShard(deviceType, shardIndex, LEASE_OWNER,
+                    runStartTime, completedWithin);
+            if (shard == null) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Shard " + shardIndex + " of device type '" + deviceType + "' is being monitored by " +
+                            "another node or has been monitored recently.");
+                }
+                return;
+            }
+            boolean completed = false;
+            try {
+                completed = this.monitorDevices(shard);
+            } catch (DeviceManagementException | RuntimeException e) {
+                log.error("Error occurred while monitoring shard " + shardIndex + " of device type '" + deviceType +
+                        "'", e);
+            } finally {
+                monitoringManager.releaseMonitoringShard(shard, LEASE_OWNER, completed);
+            }
+        }
+
+        /**
+         * @return true if all the devices of the shard have been monitored, false if the lease has been lost.
+         */
+        private boolean monitorDevices(MonitoringShardDTO shard) throws DeviceManagementException,
+                PolicyComplianceException {
+            MonitoringManager monitoringManager = PolicyManagementDataHolder.getInstance().getMonitoringManager();
+            PolicyMonitoringService monitoringService =
+                    PolicyManagementDataHolder.getInstance().getPolicyMonitoringService(deviceType);
+            DeviceManagementProviderService deviceManagementProviderService =
+                    PolicyManagementDataHolder.getInstance().getDeviceManagementService();
+            int chunkSize = DeviceManagerUtil.getBatchSize();
+            Device lastDevice = null;
+            if (shard.getLastDeviceId() > 0) {
+                lastDevice = new Device();
+                lastDevice.setId(shard.getLastDeviceId());
+                EnrolmentInfo enrolmentInfo = new EnrolmentInfo();
+                enrolmentInfo.setId(shard.getLastEnrolmentId());
+                lastDevice.setEnrolmentInfo(enrolmentInfo);
+                if (log.isDebugEnabled()) {
+                    log.debug("Resuming shard " + shardIndex + " of device type '" + deviceType +
+                            "' after device " + shard.getLastDeviceId());
+                }
+            }
+            List<Device> notifiableDevices;
+            do {
+                notifiableDevices = deviceManagementProviderService.getDevices(deviceType, NOTIFIABLE_STATUSES,
+                        shardCount, shardIndex, lastDevice, chunkSize);
+                if (notifiableDevices.isEmpty()) {
+                    break;
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Following devices selected to send the notification for " + deviceType);
+                    for (Device device : notifiableDevices) {
+                        log.debug(device.getDeviceIdentifier());
+                    }
+                }
+                monitoringManager.addMonitoringOperation(notifiableDevices);
+                monitoringService.notifyDevices(notifiableDevices);
+                lastDevice = notifiableDevices.get(notifiableDevices.size() - 1);
+                shard.setLastDeviceId(lastDevice.getId());
+                shard.setLastEnrolmentId(lastDevice.getEnrolmentInfo().getId());
+                if (!monitoringManager.updateMonitoringShard(shard, LEASE_OWNER)) {
+                    log.warn("Lease of shard " + shardIndex + " of device type '" + deviceType + "' has been " +
+                            "taken over by another node.");
+                    return false;
+                }
+            } while (notifiableDevices.size() == chunkSize);
+            return true;
+        }
+    }
+
 }
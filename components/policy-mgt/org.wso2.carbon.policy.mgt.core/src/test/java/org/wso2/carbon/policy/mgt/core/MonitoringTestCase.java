@@ -19,9 +19,9 @@
 
 package org.wso2.carbon.policy.mgt.core;
 
-import junit.framework.Assert;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 import org.wso2.carbon.device.mgt.common.Device;
@@ -35,6 +35,11 @@ import org.wso2.carbon.device.mgt.core.service.DeviceManagementProviderServiceIm
 import org.wso2.carbon.policy.mgt.common.Policy;
 import org.wso2.carbon.policy.mgt.common.PolicyManagementException;
 import org.wso2.carbon.policy.mgt.common.monitor.PolicyComplianceException;
+import org.wso2.carbon.policy.mgt.core.dao.MonitoringDAO;
+import org.wso2.carbon.policy.mgt.core.dao.MonitoringDAOException;
+import org.wso2.carbon.policy.mgt.core.dao.PolicyManagementDAOFactory;
+import org.wso2.carbon.policy.mgt.core.dao.dto.DeviceComplianceStatusDTO;
+import org.wso2.carbon.policy.mgt.core.dao.dto.MonitoringShardDTO;
 import org.wso2.carbon.policy.mgt.core.internal.PolicyManagementDataHolder;
 import org.wso2.carbon.policy.mgt.core.mgt.MonitoringManager;
 import org.wso2.carbon.policy.mgt.core.mgt.PolicyManager;
@@ -42,7 +47,14 @@ import org.wso2.carbon.policy.mgt.core.mgt.impl.MonitoringManagerImpl;
 import org.wso2.carbon.policy.mgt.core.mgt.impl.PolicyManagerImpl;
 import org.wso2.carbon.policy.mgt.core.services.PolicyMonitoringServiceTest;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class MonitoringTestCase extends BasePolicyManagementDAOTest {
 
@@ -215,4 +227,124 @@ public class MonitoringTestCase extends BasePolicyManagementDAOTest {
 
     }
 
+    @Test(dependsOnMethods = ("checkCompliance"))
+    public void getComplianceStatuses() throws DeviceManagementException, MonitoringDAOException, SQLException {
+        DeviceManagementProviderService service = new DeviceManagementProviderServiceImpl();
+        List<Device> devices = service.getAllDevices(ANDROID);
+        Assert.assertFalse(devices.isEmpty(), "No devices are available to read the compliance statuses of");
+        List<Integer> enrolmentIds = new ArrayList<>();
+        for (Device device : devices) {
+            enrolmentIds.add(device.getEnrolmentInfo().getId());
+        }
+        Map<Integer, DeviceComplianceStatusDTO> expectedStatuses = this.readComplianceStatuses(enrolmentIds);
+        List<Integer> requestedEnrolmentIds = new ArrayList<>(enrolmentIds);
+        requestedEnrolmentIds.add(-1);
+
+        MonitoringDAO monitoringDAO = PolicyManagementDAOFactory.getMonitoringDAO();
+        List<DeviceComplianceStatusDTO> complianceStatuses;
+        try {
+            PolicyManagementDAOFactory.openConnection();
+            complianceStatuses = monitoringDAO.getComplianceStatuses(requestedEnrolmentIds);
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+
+        Assert.assertEquals(complianceStatuses.size(), enrolmentIds.size(),
+                "Compliance statuses are not returned once for each existing enrolment");
+        for (DeviceComplianceStatusDTO complianceStatus : complianceStatuses) {
+            DeviceComplianceStatusDTO expectedStatus = expectedStatuses.get(complianceStatus.getEnrolmentId());
+            Assert.assertNotNull(expectedStatus, "Compliance status is returned for enrolment " +
+                    complianceStatus.getEnrolmentId() + ", which was not requested");
+            Assert.assertEquals(complianceStatus.getDeviceId(), expectedStatus.getDeviceId());
+            Assert.assertEquals(complianceStatus.getComplianceStatusId(), expectedStatus.getComplianceStatusId());
+            Assert.assertEquals(complianceStatus.getAttempts(), expectedStatus.getAttempts());
+            Assert.assertEquals(complianceStatus.getAppliedPolicyId(), expectedStatus.getAppliedPolicyId());
+        }
+    }
+
+    /**
+     * Reads the compliance status and the applied policy of each enrolment one by one, independently of the joined
+     * query under test.
+     */
+    private Map<Integer, DeviceComplianceStatusDTO> readComplianceStatuses(List<Integer> enrolmentIds)
+            throws SQLException {
+        Map<Integer, DeviceComplianceStatusDTO> complianceStatuses = new HashMap<>();
+        Connection conn = this.getDataSource().getConnection();
+        try {
+            for (int enrolmentId : enrolmentIds) {
+                DeviceComplianceStatusDTO complianceStatus = new DeviceComplianceStatusDTO();
+                complianceStatus.setEnrolmentId(enrolmentId);
+                complianceStatus.setDeviceId(this.readInt(conn, "SELECT DEVICE_ID FROM DM_ENROLMENT WHERE ID = ?",
+                        enrolmentId));
+                PreparedStatement stmt = null;
+                ResultSet rs = null;
+                try {
+                    stmt = conn.prepareStatement("SELECT ID, ATTEMPTS FROM DM_POLICY_COMPLIANCE_STATUS WHERE " +
+                            "DEVICE_ID = ? AND ENROLMENT_ID = ?");
+                    stmt.setInt(1, complianceStatus.getDeviceId());
+                    stmt.setInt(2, enrolmentId);
+                    rs = stmt.executeQuery();
+                    if (rs.next()) {
+                        complianceStatus.setComplianceStatusId(rs.getInt("ID"));
+                        complianceStatus.setAttempts(rs.getInt("ATTEMPTS"));
+                    }
+                } finally {
+                    TestUtils.cleanupResources(null, stmt, rs);
+                }
+                complianceStatus.setAppliedPolicyId(this.readInt(conn,
+                        "SELECT POLICY_ID FROM DM_DEVICE_POLICY_APPLIED WHERE DEVICE_ID = ?",
+                        complianceStatus.getDeviceId()));
+                complianceStatuses.put(enrolmentId, complianceStatus);
+            }
+        } finally {
+            TestUtils.cleanupResources(conn, null, null);
+        }
+        return complianceStatuses;
+    }
+
+    private int readInt(Connection conn, String query, int parameter) throws SQLException {
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement(query);
+            stmt.setInt(1, parameter);
+            rs = stmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        } finally {
+            TestUtils.cleanupResources(null, stmt, rs);
+        }
+    }
+
+    @Test(dependsOnMethods = ("getComplianceStatuses"))
+    public void monitoringShardLeases() throws PolicyComplianceException {
+        MonitoringManager monitoringManager = new MonitoringManagerImpl();
+        monitoringManager.addMonitoringShards(ANDROID, 2);
+        monitoringManager.addMonitoringShards(ANDROID, 2);
+        long runStartTime = System.currentTimeMillis();
+
+        MonitoringShardDTO shard = monitoringManager.acquireMonitoringShard(ANDROID, 0, "node-1", runStartTime, 0);
+        Assert.assertNotNull(shard);
+        Assert.assertEquals(shard.getLastDeviceId(), 0);
+        Assert.assertNull(monitoringManager.acquireMonitoringShard(ANDROID, 0, "node-2", runStartTime, 0));
+        Assert.assertNotNull(monitoringManager.acquireMonitoringShard(ANDROID, 1, "node-2", runStartTime, 0));
+
+        shard.setLastDeviceId(10);
+        shard.setLastEnrolmentId(12);
+        Assert.assertTrue(monitoringManager.updateMonitoringShard(shard, "node-1"));
+        Assert.assertFalse(monitoringManager.updateMonitoringShard(shard, "node-2"));
+
+        monitoringManager.releaseMonitoringShard(shard, "node-1", false);
+        MonitoringShardDTO resumedShard = monitoringManager.acquireMonitoringShard(ANDROID, 0, "node-2",
+                runStartTime, 0);
+        Assert.assertNotNull(resumedShard);
+        Assert.assertEquals(resumedShard.getLastDeviceId(), 10);
+        Assert.assertEquals(resumedShard.getLastEnrolmentId(), 12);
+
+        monitoringManager.releaseMonitoringShard(resumedShard, "node-2", true);
+        Assert.assertNull(monitoringManager.acquireMonitoringShard(ANDROID, 0, "node-1", runStartTime, 60000));
+        // The completed round is recorded as started at the start of the run, not when it was completed
+        Assert.assertNotNull(monitoringManager.acquireMonitoringShard(ANDROID, 0, "node-1", runStartTime + 60001,
+                60000));
+    }
+
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.benchmark;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.PolicyFilter;
+import org.wso2.carbon.policy.mgt.common.Profile;
+import org.wso2.carbon.policy.mgt.core.cache.CompiledPolicies;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyFilterImpl;
+import org.wso2.carbon.policy.mgt.core.util.PolicyManagementConstants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the time taken to find the effective policy of devices with the policy filter chain and with compiled
+ * policies, for a growing number of policies. This is not a unit test and is not listed in testng.xml; it is run on
+ * demand with "mvn test -Dtest=CompiledPoliciesBenchmark" and reports the timings at info level.
+ */
+public class CompiledPoliciesBenchmark {
+
+    private static final Log log = LogFactory.getLog(CompiledPoliciesBenchmark.class);
+
+    private static final String ANDROID = "android";
+    private static final String[] OWNERSHIP_TYPES = {"BYOD", "COPE", PolicyManagementConstants.ANY};
+    private static final String[] ROLES = {"admin", "Internal/devicemgt-user", "engineering", "sales", "support"};
+    private static final String[] USERS = {"admin", "alex", "kim", "sam"};
+    private static final int DEVICES = 1000;
+    private static final int WARM_UP_ITERATIONS = 5;
+
+    @DataProvider(name = "policyCounts")
+    public Object[][] getPolicyCounts() {
+        return new Object[][]{{100}, {1000}, {10000}};
+    }
+
+    @Test(dataProvider = "policyCounts")
+    public void evaluatePolicies(int policyCount) {
+        Random random = new Random(policyCount);
+        List<Policy> policies = new ArrayList<>(policyCount);
+        for (int i = 0; i < policyCount; i++) {
+            Policy policy = createPolicy(i + 1, random.nextInt(policyCount) + 1,
+                    OWNERSHIP_TYPES[random.nextInt(OWNERSHIP_TYPES.length)], pick(random, ROLES),
+                    pick(random, USERS));
+            policy.setActive(random.nextInt(10) != 0);
+            policies.add(policy);
+        }
+        Collections.sort(policies);
+
+        String[] ownershipTypes = new String[DEVICES];
+        String[][] deviceRoles = new String[DEVICES][];
+        String[] users = new String[DEVICES];
+        for (int i = 0; i < DEVICES; i++) {
+            ownershipTypes[i] = OWNERSHIP_TYPES[random.nextInt(2)].toLowerCase();
+            List<String> roles = pick(random, ROLES);
+            deviceRoles[i] = roles.toArray(new String[roles.size()]);
+            users[i] = USERS[random.nextInt(USERS.length)];
+        }
+
+        PolicyFilter policyFilter = new PolicyFilterImpl();
+        Policy[] filteredPolicies = new Policy[DEVICES];
+        Policy[] effectivePolicies = new Policy[DEVICES];
+        CompiledPolicies compiledPolicies = null;
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            this.filterPolicies(policyFilter, policies, ownershipTypes, deviceRoles, users, filteredPolicies);
+            compiledPolicies = new CompiledPolicies(policies);
+            this.evaluatePolicies(compiledPolicies, ownershipTypes, deviceRoles, users, effectivePolicies);
+        }
+
+        long start = System.nanoTime();
+        this.filterPolicies(policyFilter, policies, ownershipTypes, deviceRoles, users, filteredPolicies);
+        long filterTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        compiledPolicies = new CompiledPolicies(policies);
+        long compileTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        this.evaluatePolicies(compiledPolicies, ownershipTypes, deviceRoles, users, effectivePolicies);
+        long evaluationTime = System.nanoTime() - start;
+
+        for (int i = 0; i < DEVICES; i++) {
+            Assert.assertSame(effectivePolicies[i], filteredPolicies[i],
+                    "Compiled policies returned a different effective policy");
+        }
+        log.info(String.format("%d devices against %d policies : filter chain %dus, compilation %dus, compiled " +
+                "evaluation %dus", DEVICES, policyCount, filterTime / 1000, compileTime / 1000,
+                evaluationTime / 1000));
+    }
+
+    private void filterPolicies(PolicyFilter policyFilter, List<Policy> policies, String[] ownershipTypes,
+                                String[][] deviceRoles, String[] users, Policy[] effectivePolicies) {
+        for (int i = 0; i < DEVICES; i++) {
+            List<Policy> filtered = policyFilter.filterActivePolicies(policies);
+            filtered = policyFilter.filterDeviceTypeBasedPolicies(ANDROID, filtered);
+            filtered = policyFilter.filterOwnershipTypeBasedPolicies(ownershipTypes[i], filtered);
+            filtered = policyFilter.filterRolesBasedPolicies(deviceRoles[i], filtered);
+            filtered = policyFilter.filterUserBasedPolicies(users[i], filtered);
+            effectivePolicies[i] = filtered.isEmpty() ? null : filtered.get(0);
+        }
+    }
+
+    private void evaluatePolicies(CompiledPolicies compiledPolicies, String[] ownershipTypes, String[][] deviceRoles,
+                                  String[] users, Policy[] effectivePolicies) {
+        for (int i = 0; i < DEVICES; i++) {
+            effectivePolicies[i] = compiledPolicies.getHighestPriorityPolicy(ownershipTypes[i], deviceRoles[i],
+                    users[i]);
+        }
+    }
+
+    private static Policy createPolicy(int id, int priority, String ownershipType, List<String> roles,
+                                       List<String> users) {
+        Profile profile = new Profile();
+        profile.setDeviceType(ANDROID);
+        Policy policy = new Policy();
+        policy.setId(id);
+        policy.setPriorityId(priority);
+        policy.setPolicyName("policy-" + id);
+        policy.setProfile(profile);
+        policy.setOwnershipType(ownershipType);
+        policy.setRoles(roles);
+        policy.setUsers(users);
+        policy.setActive(true);
+        return policy;
+    }
+
+    private static List<String> pick(Random random, String[] names) {
+        List<String> picked = new ArrayList<>();
+        for (String name : names) {
+            if (random.nextInt(names.length) == 0) {
+                picked.add(random.nextBoolean() ? name : name.toUpperCase());
+            }
+        }
+        return picked;
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.benchmark;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.device.mgt.common.TransactionManagementException;
+import org.wso2.carbon.device.mgt.core.dao.DeviceDAO;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOException;
+import org.wso2.carbon.device.mgt.core.dao.DeviceManagementDAOFactory;
+import org.wso2.carbon.device.mgt.core.dao.DeviceTypeDAO;
+import org.wso2.carbon.device.mgt.core.dao.EnrollmentDAO;
+import org.wso2.carbon.device.mgt.core.dto.DeviceType;
+import org.wso2.carbon.policy.mgt.core.BasePolicyManagementDAOTest;
+import org.wso2.carbon.policy.mgt.core.dao.MonitoringDAO;
+import org.wso2.carbon.policy.mgt.core.dao.MonitoringDAOException;
+import org.wso2.carbon.policy.mgt.core.dao.PolicyManagementDAOFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the time taken to read the compliance statuses of a batch of enrolments. This is not a unit test and is
+ * not listed in testng.xml; it is run on demand with "mvn test -Dtest=ComplianceStatusQueryBenchmark" and reports
+ * the timings at info level.
+ */
+public class ComplianceStatusQueryBenchmark extends BasePolicyManagementDAOTest {
+
+    private static final Log log = LogFactory.getLog(ComplianceStatusQueryBenchmark.class);
+    private static final String DEVICE_TYPE = "benchmark";
+    private static final int TENANT_ID = -1234;
+    private static final int DEVICE_COUNT = 1000;
+    private static final int WARM_UP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 100;
+
+    private final List<Integer> enrolmentIds = new ArrayList<>();
+
+    @BeforeClass
+    @Override
+    public void init() throws Exception {
+        DeviceTypeDAO deviceTypeDAO = DeviceManagementDAOFactory.getDeviceTypeDAO();
+        DeviceDAO deviceDAO = DeviceManagementDAOFactory.getDeviceDAO();
+        EnrollmentDAO enrollmentDAO = DeviceManagementDAOFactory.getEnrollmentDAO();
+        DeviceType deviceType = new DeviceType();
+        deviceType.setName(DEVICE_TYPE);
+        try {
+            DeviceManagementDAOFactory.beginTransaction();
+            deviceTypeDAO.addDeviceType(deviceType, TENANT_ID, true);
+            int typeId = deviceTypeDAO.getDeviceType(DEVICE_TYPE, TENANT_ID).getId();
+            for (int i = 0; i < DEVICE_COUNT; i++) {
+                Device device = new Device();
+                device.setType(DEVICE_TYPE);
+                device.setName("Benchmark device " + i);
+                device.setDeviceIdentifier("benchmark-" + i);
+                EnrolmentInfo enrolmentInfo = new EnrolmentInfo();
+                enrolmentInfo.setOwner("admin");
+                enrolmentInfo.setOwnership(EnrolmentInfo.OwnerShip.BYOD);
+                enrolmentInfo.setStatus(EnrolmentInfo.Status.ACTIVE);
+                int deviceId = deviceDAO.addDevice(typeId, device, TENANT_ID);
+                enrolmentIds.add(enrollmentDAO.addEnrollment(deviceId, enrolmentInfo, TENANT_ID));
+            }
+            DeviceManagementDAOFactory.commitTransaction();
+        } catch (DeviceManagementDAOException | TransactionManagementException e) {
+            throw new Exception("Error occurred while adding the devices of the benchmark", e);
+        } finally {
+            DeviceManagementDAOFactory.closeConnection();
+        }
+    }
+
+    @Test
+    public void getComplianceStatuses() throws MonitoringDAOException, SQLException {
+        MonitoringDAO monitoringDAO = PolicyManagementDAOFactory.getMonitoringDAO();
+        try {
+            PolicyManagementDAOFactory.openConnection();
+            for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+                monitoringDAO.getComplianceStatuses(enrolmentIds);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+                monitoringDAO.getComplianceStatuses(enrolmentIds);
+            }
+            log.info("Compliance statuses of " + enrolmentIds.size() + " enrolments read in " +
+                    (System.nanoTime() - start) / MEASURED_ITERATIONS / 1000 + " micro seconds on average.");
+        } finally {
+            PolicyManagementDAOFactory.closeConnection();
+        }
+    }
+
+}
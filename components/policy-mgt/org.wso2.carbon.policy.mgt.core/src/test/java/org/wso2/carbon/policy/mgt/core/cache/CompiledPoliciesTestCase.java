@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.PolicyFilter;
+import org.wso2.carbon.policy.mgt.common.Profile;
+import org.wso2.carbon.policy.mgt.core.impl.PolicyFilterImpl;
+import org.wso2.carbon.policy.mgt.core.util.PolicyManagementConstants;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+public class CompiledPoliciesTestCase {
+
+    private static final String ANDROID = "android";
+    private static final String[] OWNERSHIP_TYPES = {"BYOD", "COPE", PolicyManagementConstants.ANY};
+    private static final String[] ROLES = {"admin", "Internal/devicemgt-user", "engineering", "sales", "support"};
+    private static final String[] USERS = {"admin", "alex", "kim", "sam"};
+    private static final int DEVICES = 200;
+
+    @Test
+    public void testTargeting() {
+        Policy byodSales = createPolicy(1, 1, "BYOD", Collections.singletonList("SALES"),
+                Collections.<String>emptyList());
+        Policy anyAlex = createPolicy(2, 2, PolicyManagementConstants.ANY, Collections.<String>emptyList(),
+                Collections.singletonList("alex"));
+        Policy inactive = createPolicy(3, 3, PolicyManagementConstants.ANY, Collections.<String>emptyList(),
+                Collections.<String>emptyList());
+        inactive.setActive(false);
+        Policy fallback = createPolicy(4, 4, PolicyManagementConstants.ANY,
+                Collections.singletonList(PolicyManagementConstants.ANY),
+                Collections.singletonList(PolicyManagementConstants.ANY));
+        CompiledPolicies compiledPolicies = new CompiledPolicies(Arrays.asList(byodSales, anyAlex, inactive,
+                fallback));
+
+        Assert.assertEquals(compiledPolicies.size(), 3);
+        Assert.assertSame(compiledPolicies.getHighestPriorityPolicy("byod", new String[]{"sales"}, "kim"),
+                byodSales);
+        Assert.assertSame(compiledPolicies.getHighestPriorityPolicy("COPE", new String[]{"sales"}, "Alex"),
+                anyAlex);
+        Assert.assertSame(compiledPolicies.getHighestPriorityPolicy("COPE", new String[]{"sales"}, "kim"),
+                fallback);
+        Assert.assertSame(compiledPolicies.getHighestPriorityPolicy(null, null, null), byodSales);
+        assertSamePolicies(compiledPolicies.getMatchingPolicies("BYOD", new String[0], "alex"),
+                Arrays.asList(anyAlex, fallback));
+        Assert.assertNull(new CompiledPolicies(Collections.<Policy>emptyList())
+                .getHighestPriorityPolicy("BYOD", null, "alex"));
+    }
+
+    @DataProvider(name = "policyCounts")
+    public Object[][] getPolicyCounts() {
+        return new Object[][]{{10}, {100}, {1000}};
+    }
+
+    @Test(dataProvider = "policyCounts")
+    public void testMatchesFilterChain(int policyCount) {
+        Random random = new Random(policyCount);
+        List<Policy> policies = new ArrayList<>(policyCount);
+        for (int i = 0; i < policyCount; i++) {
+            Policy policy = createPolicy(i + 1, random.nextInt(policyCount) + 1,
+                    OWNERSHIP_TYPES[random.nextInt(OWNERSHIP_TYPES.length)], pick(random, ROLES),
+                    pick(random, USERS));
+            policy.setActive(random.nextInt(10) != 0);
+            policies.add(policy);
+        }
+        Collections.sort(policies);
+
+        String[] ownershipTypes = new String[DEVICES];
+        String[][] deviceRoles = new String[DEVICES][];
+        String[] users = new String[DEVICES];
+        for (int i = 0; i < DEVICES; i++) {
+            ownershipTypes[i] = OWNERSHIP_TYPES[random.nextInt(2)].toLowerCase();
+            List<String> roles = pick(random, ROLES);
+            deviceRoles[i] = roles.toArray(new String[roles.size()]);
+            users[i] = USERS[random.nextInt(USERS.length)];
+        }
+
+        List<List<Policy>> filteredPolicies = new ArrayList<>(DEVICES);
+        PolicyFilter policyFilter = new PolicyFilterImpl();
+        for (int i = 0; i < DEVICES; i++) {
+            List<Policy> filtered = policyFilter.filterActivePolicies(policies);
+            filtered = policyFilter.filterDeviceTypeBasedPolicies(ANDROID, filtered);
+            filtered = policyFilter.filterOwnershipTypeBasedPolicies(ownershipTypes[i], filtered);
+            filtered = policyFilter.filterRolesBasedPolicies(deviceRoles[i], filtered);
+            filtered = policyFilter.filterUserBasedPolicies(users[i], filtered);
+            filteredPolicies.add(filtered);
+        }
+
+        CompiledPolicies compiledPolicies = new CompiledPolicies(policies);
+        for (int i = 0; i < DEVICES; i++) {
+            List<Policy> expected = new ArrayList<>(new LinkedHashSet<>(filteredPolicies.get(i)));
+            assertSamePolicies(compiledPolicies.getMatchingPolicies(ownershipTypes[i], deviceRoles[i], users[i]),
+                    expected);
+            Assert.assertSame(compiledPolicies.getHighestPriorityPolicy(ownershipTypes[i], deviceRoles[i],
+                    users[i]), expected.isEmpty() ? null : expected.get(0));
+        }
+    }
+
+    private static Policy createPolicy(int id, int priority, String ownershipType, List<String> roles,
+                                       List<String> users) {
+        Profile profile = new Profile();
+        profile.setDeviceType(ANDROID);
+        Policy policy = new Policy();
+        policy.setId(id);
+        policy.setPriorityId(priority);
+        policy.setPolicyName("policy-" + id);
+        policy.setProfile(profile);
+        policy.setOwnershipType(ownershipType);
+        policy.setRoles(roles);
+        policy.setUsers(users);
+        policy.setActive(true);
+        return policy;
+    }
+
+    private static List<String> pick(Random random, String[] names) {
+        List<String> picked = new ArrayList<>();
+        for (String name : names) {
+            if (random.nextInt(names.length) == 0) {
+                picked.add(random.nextBoolean() ? name : name.toUpperCase());
+            }
+        }
+        return picked;
+    }
+
+    private static void assertSamePolicies(List<Policy> actual, List<Policy> expected) {
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertSame(actual.get(i), expected.get(i));
+        }
+    }
+
+}
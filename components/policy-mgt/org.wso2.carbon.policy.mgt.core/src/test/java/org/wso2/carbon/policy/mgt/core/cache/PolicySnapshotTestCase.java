@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.policy.mgt.core.cache;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.Profile;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class PolicySnapshotTestCase {
+
+    private static final String ANDROID = "android";
+    private static final String IOS = "ios";
+
+    @Test
+    public void testIndexesSortedByPriority() {
+        PolicySnapshot snapshot = new PolicySnapshot(Arrays.asList(createPolicy(1, 3, ANDROID),
+                createPolicy(2, 1, ANDROID), createPolicy(3, 2, IOS)));
+
+        assertPolicyIds(snapshot.getPolicies(), 2, 3, 1);
+        assertPolicyIds(snapshot.getPoliciesOfDeviceType("Android"), 2, 1);
+        assertPolicyIds(snapshot.getPoliciesOfDeviceType(IOS), 3);
+        Assert.assertTrue(snapshot.getPoliciesOfDeviceType("windows").isEmpty());
+        Assert.assertEquals(snapshot.getPolicy(3).getPolicyName(), "policy-3");
+        Assert.assertNull(snapshot.getPolicy(4));
+    }
+
+    @Test
+    public void testCopyOnWrite() {
+        PolicySnapshot snapshot = new PolicySnapshot(Arrays.asList(createPolicy(1, 1, ANDROID),
+                createPolicy(2, 2, ANDROID)));
+
+        PolicySnapshot updated = snapshot.withPolicy(createPolicy(1, 3, IOS));
+        assertPolicyIds(updated.getPolicies(), 2, 1);
+        assertPolicyIds(updated.getPoliciesOfDeviceType(ANDROID), 2);
+        assertPolicyIds(updated.getPoliciesOfDeviceType(IOS), 1);
+        Assert.assertTrue(updated.getVersion() > snapshot.getVersion());
+
+        PolicySnapshot removed = updated.withoutPolicy(2);
+        assertPolicyIds(removed.getPolicies(), 1);
+        Assert.assertTrue(removed.getPoliciesOfDeviceType(ANDROID).isEmpty());
+        Assert.assertSame(removed.withoutPolicy(2), removed);
+
+        assertPolicyIds(snapshot.getPolicies(), 1, 2);
+        assertPolicyIds(snapshot.getPoliciesOfDeviceType(ANDROID), 1, 2);
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void testPoliciesUnmodifiable() {
+        List<Policy> policies = new ArrayList<>();
+        policies.add(createPolicy(1, 1, ANDROID));
+        PolicySnapshot snapshot = new PolicySnapshot(policies);
+        policies.clear();
+
+        Assert.assertEquals(snapshot.getPolicies().size(), 1);
+        snapshot.getPoliciesOfDeviceType(ANDROID).clear();
+    }
+
+    private static Policy createPolicy(int id, int priority, String deviceType) {
+        Profile profile = new Profile();
+        profile.setDeviceType(deviceType);
+        Policy policy = new Policy();
+        policy.setId(id);
+        policy.setPriorityId(priority);
+        policy.setPolicyName("policy-" + id);
+        policy.setProfile(profile);
+        return policy;
+    }
+
+    private static void assertPolicyIds(List<Policy> policies, int... expectedIds) {
+        Assert.assertEquals(policies.size(), expectedIds.length);
+        for (int i = 0; i < expectedIds.length; i++) {
+            Assert.assertEquals(policies.get(i).getId(), expectedIds[i]);
+        }
+    }
+
+}
@@ -366,6 +366,18 @@ CREATE TABLE IF NOT EXISTS DM_POLICY_COMPLIANCE_FEATURES (
     ON UPDATE NO ACTION
 );
 
+CREATE TABLE IF NOT EXISTS DM_POLICY_MONITORING_SHARD (
+  TENANT_ID INT NOT NULL,
+  DEVICE_TYPE VARCHAR(300) NOT NULL,
+  SHARD_INDEX INT NOT NULL,
+  LEASE_OWNER VARCHAR(100) NULL,
+  LEASE_EXPIRY_TIME TIMESTAMP NULL,
+  LAST_DEVICE_ID INT NOT NULL DEFAULT 0,
+  LAST_ENROLMENT_ID INT NOT NULL DEFAULT 0,
+  LAST_ROUND_START_TIME TIMESTAMP NULL,
+  PRIMARY KEY (TENANT_ID, DEVICE_TYPE, SHARD_INDEX)
+);
+
 CREATE TABLE IF NOT EXISTS DM_ENROLMENT (
     ID INTEGER AUTO_INCREMENT NOT NULL,
     DEVICE_ID INTEGER NOT NULL,
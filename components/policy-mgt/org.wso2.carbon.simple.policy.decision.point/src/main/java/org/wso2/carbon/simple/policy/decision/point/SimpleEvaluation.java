@@ -25,6 +25,11 @@ import org.wso2.carbon.policy.mgt.common.PolicyEvaluationException;
 
 public interface SimpleEvaluation  {
 
+    /**
+     * @deprecated Policies are evaluated against a snapshot which is already sorted by priority, so there is nothing
+     * to be sorted. Implementations may do nothing.
+     */
+    @Deprecated
     void sortPolicies() throws PolicyEvaluationException;
 
     Policy getEffectivePolicy(DeviceIdentifier deviceIdentifier)  throws PolicyEvaluationException;
@@ -21,48 +21,80 @@ package org.wso2.carbon.simple.policy.decision.point;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.core.cache.ExpiringLRUCache;
 import org.wso2.carbon.policy.mgt.common.*;
 import org.wso2.carbon.policy.mgt.core.PolicyManagerService;
+import org.wso2.carbon.policy.mgt.core.cache.PolicySnapshot;
+import org.wso2.carbon.policy.mgt.core.cache.impl.PolicyCacheManagerImpl;
 import org.wso2.carbon.simple.policy.decision.point.internal.PolicyDecisionPointDataHolder;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
+/**
+ * Evaluates the effective policy of a device as the highest priority policy related to it. Evaluation keeps no
+ * state between the steps of a call, so a single instance can be used concurrently. The result of the last
+ * evaluation of each enrolment is remembered together with the version of the policy snapshot it was evaluated
+ * against, and evaluating an unchanged device against the same snapshot returns that result without looking up
+ * the related policies or recording the policy used by the device again.
+ * <p>
+ * Snapshot versions are local to the node, so remembered results also expire after a short time. This bounds how
+ * long a policy change made through another node, or a policy usage record changed outside this evaluator, goes
+ * unnoticed on this node.
+ */
 public class SimpleEvaluationImpl implements SimpleEvaluation {
 
     private static final Log log = LogFactory.getLog(SimpleEvaluationImpl.class);
-    //TODO : to revove the stale reference
-    private PolicyManagerService policyManagerService;
-    private List<Policy> policyList = new ArrayList<Policy>();
+    private static final int EFFECTIVE_POLICY_CACHE_CAPACITY = 100000;
+    private static final long EFFECTIVE_POLICY_CACHE_TTL = 60000;
+    private static final int NO_POLICY = -1;
 
-//    public SimpleEvaluationImpl() {
-//        policyManagerService = PolicyDecisionPointDataHolder.getInstance().getPolicyManagerService();
-//    }
+    private final ExpiringLRUCache<Integer, EffectivePolicy> effectivePolicies;
+
+    public SimpleEvaluationImpl() {
+        this(EFFECTIVE_POLICY_CACHE_CAPACITY, EFFECTIVE_POLICY_CACHE_TTL);
+    }
+
+    SimpleEvaluationImpl(int capacity, long expiryTime) {
+        effectivePolicies = new ExpiringLRUCache<>(capacity, expiryTime);
+    }
 
     @Override
     public Policy getEffectivePolicy(DeviceIdentifier deviceIdentifier) throws PolicyEvaluationException {
         Policy policy = new Policy();
-        PolicyAdministratorPoint policyAdministratorPoint;
-        PolicyInformationPoint policyInformationPoint;
-        policyManagerService = getPolicyManagerService();
+        PolicyManagerService policyManagerService = getPolicyManagerService();
 
         try {
             if (policyManagerService != null) {
 
-                policyInformationPoint = policyManagerService.getPIP();
+                PolicyInformationPoint policyInformationPoint = policyManagerService.getPIP();
                 PIPDevice pipDevice = policyInformationPoint.getDeviceData(deviceIdentifier);
-                policyList = policyInformationPoint.getRelatedPolicies(pipDevice);
-                policyAdministratorPoint = policyManagerService.getPAP();
-                sortPolicies();
-                if(!policyList.isEmpty()) {
-                    policy = policyList.get(0);
-                } else {
+                // The snapshot is read before evaluating, so that a result is never remembered against a newer
+                // snapshot than the one it was evaluated with.
+                PolicySnapshot snapshot = this.getPolicySnapshot();
+                int enrolmentId = pipDevice.getDevice().getEnrolmentInfo().getId();
+                EffectivePolicy effectivePolicy = effectivePolicies.get(enrolmentId);
+                if (effectivePolicy != null && effectivePolicy.isValid(snapshot.getVersion(), pipDevice)) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Effective policy of device " + deviceIdentifier.getId() + " - " +
+                                deviceIdentifier.getType() + " has not changed since the last evaluation.");
+                    }
+                    return effectivePolicy.policyId == NO_POLICY ? null : snapshot.getPolicy(effectivePolicy.policyId);
+                }
+
+                policy = this.getHighestPriorityPolicy(policyInformationPoint, pipDevice);
+                PolicyAdministratorPoint policyAdministratorPoint = policyManagerService.getPAP();
+                if (policy == null) {
                     policyAdministratorPoint.removePolicyUsed(deviceIdentifier);
+                    effectivePolicies.put(enrolmentId, new EffectivePolicy(snapshot.getVersion(), pipDevice,
+                            NO_POLICY));
                     return null;
                 }
                 //TODO : UNCOMMENT THE FOLLOWING CASE
                 policyAdministratorPoint.setPolicyUsed(deviceIdentifier, policy);
+                effectivePolicies.put(enrolmentId, new EffectivePolicy(snapshot.getVersion(), pipDevice,
+                        policy.getId()));
 
             }
 
@@ -74,13 +106,66 @@ public class SimpleEvaluationImpl implements SimpleEvaluation {
         return policy;
     }
 
-
+    /**
+     * @deprecated Evaluation keeps no list of policies to be sorted, as the policy snapshot is already sorted by
+     * priority. This method does nothing.
+     */
     @Override
+    @Deprecated
     public void sortPolicies() throws PolicyEvaluationException {
-        Collections.sort(policyList);
     }
 
-    private PolicyManagerService getPolicyManagerService() {
+    /**
+     * Returns the highest priority policy related to the device. PIPs which do not implement
+     * {@link PrioritizedPolicyInformationPoint} are asked for all the related policies instead.
+     */
+    private Policy getHighestPriorityPolicy(PolicyInformationPoint policyInformationPoint, PIPDevice pipDevice)
+            throws PolicyManagementException {
+        if (policyInformationPoint instanceof PrioritizedPolicyInformationPoint) {
+            return ((PrioritizedPolicyInformationPoint) policyInformationPoint).getHighestPriorityPolicy(pipDevice);
+        }
+        List<Policy> policies = policyInformationPoint.getRelatedPolicies(pipDevice);
+        if (policies == null || policies.isEmpty()) {
+            return null;
+        }
+        return Collections.min(policies);
+    }
+
+    PolicySnapshot getPolicySnapshot() throws PolicyManagementException {
+        return PolicyCacheManagerImpl.getInstance().getPolicySnapshot();
+    }
+
+    PolicyManagerService getPolicyManagerService() {
         return PolicyDecisionPointDataHolder.getInstance().getPolicyManagerService();
     }
+
+    /**
+     * Result of an evaluation along with the policy snapshot version and the device data it depends on.
+     */
+    private static class EffectivePolicy {
+
+        private final long snapshotVersion;
+        private final String ownershipType;
+        private final String userId;
+        private final String[] roles;
+        private final int policyId;
+
+        EffectivePolicy(long snapshotVersion, PIPDevice pipDevice, int policyId) {
+            this.snapshotVersion = snapshotVersion;
+            this.ownershipType = pipDevice.getOwnershipType();
+            this.userId = pipDevice.getUserId();
+            this.roles = pipDevice.getRoles() != null ? pipDevice.getRoles().clone() : null;
+            this.policyId = policyId;
+        }
+
+        boolean isValid(long snapshotVersion, PIPDevice pipDevice) {
+            return this.snapshotVersion == snapshotVersion && isEqual(ownershipType, pipDevice.getOwnershipType()) &&
+                    isEqual(userId, pipDevice.getUserId()) && Arrays.equals(roles, pipDevice.getRoles());
+        }
+
+        private static boolean isEqual(String value, String other) {
+            return value == null ? other == null : value.equals(other);
+        }
+    }
+
 }
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.simple.policy.decision.point;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.device.mgt.common.Device;
+import org.wso2.carbon.device.mgt.common.DeviceIdentifier;
+import org.wso2.carbon.device.mgt.common.EnrolmentInfo;
+import org.wso2.carbon.policy.mgt.common.PIPDevice;
+import org.wso2.carbon.policy.mgt.common.Policy;
+import org.wso2.carbon.policy.mgt.common.PolicyAdministratorPoint;
+import org.wso2.carbon.policy.mgt.common.PolicyInformationPoint;
+import org.wso2.carbon.policy.mgt.common.PrioritizedPolicyInformationPoint;
+import org.wso2.carbon.policy.mgt.core.PolicyManagerService;
+import org.wso2.carbon.policy.mgt.core.cache.PolicySnapshot;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SimpleEvaluationImplTests {
+
+    private static final long EXPIRY_TIME = 60000;
+
+    @Test
+    public void testUnchangedDeviceIsNotEvaluatedAgain() throws Exception {
+        TestEvaluation evaluation = new TestEvaluation(10, EXPIRY_TIME);
+        DeviceIdentifier identifier = evaluation.addDevice("device-1", 1);
+
+        Policy policy = evaluation.getEffectivePolicy(identifier);
+        Assert.assertNotNull(policy);
+        Assert.assertEquals(policy.getId(), evaluation.policy.getId());
+        Policy rememberedPolicy = evaluation.getEffectivePolicy(identifier);
+        Assert.assertNotNull(rememberedPolicy, "Remembered effective policy is not returned");
+        Assert.assertEquals(rememberedPolicy.getId(), evaluation.policy.getId());
+        Assert.assertEquals(evaluation.getCount("getHighestPriorityPolicy"), 1,
+                "Unchanged device is evaluated again against the same policies");
+        Assert.assertEquals(evaluation.getCount("setPolicyUsed"), 1, "Policy usage is recorded again");
+    }
+
+    @Test
+    public void testDeviceWithoutPolicyIsNotEvaluatedAgain() throws Exception {
+        TestEvaluation evaluation = new TestEvaluation(10, EXPIRY_TIME);
+        evaluation.policy = null;
+        DeviceIdentifier identifier = evaluation.addDevice("device-1", 1);
+
+        Assert.assertNull(evaluation.getEffectivePolicy(identifier));
+        Assert.assertNull(evaluation.getEffectivePolicy(identifier));
+        Assert.assertEquals(evaluation.getCount("getHighestPriorityPolicy"), 1);
+        Assert.assertEquals(evaluation.getCount("removePolicyUsed"), 1);
+    }
+
+    @Test
+    public void testChangedPoliciesAreEvaluatedAgain() throws Exception {
+        TestEvaluation evaluation = new TestEvaluation(10, EXPIRY_TIME);
+        DeviceIdentifier identifier = evaluation.addDevice("device-1", 1);
+
+        evaluation.getEffectivePolicy(identifier);
+        evaluation.snapshot = new PolicySnapshot(Collections.singletonList(evaluation.policy));
+        evaluation.getEffectivePolicy(identifier);
+        Assert.assertEquals(evaluation.getCount("getHighestPriorityPolicy"), 2,
+                "Device is not evaluated again once the policies have changed");
+    }
+
+    @Test
+    public void testChangedDeviceIsEvaluatedAgain() throws Exception {
+        TestEvaluation evaluation = new TestEvaluation(10, EXPIRY_TIME);
+        DeviceIdentifier identifier = evaluation.addDevice("device-1", 1);
+
+        evaluation.getEffectivePolicy(identifier);
+        evaluation.pipDevices.get(identifier.getId()).setRoles(new String[]{"admin"});
+        evaluation.getEffectivePolicy(identifier);
+        Assert.assertEquals(evaluation.getCount("getHighestPriorityPolicy"), 2,
+                "Device is not evaluated again once its roles have changed");
+    }
+
+    @Test
+    public void testExpiredEvaluationIsNotReused() throws Exception {
+        TestEvaluation evaluation = new TestEvaluation(10, 0);
+        DeviceIdentifier identifier = evaluation.addDevice("device-1", 1);
+
+        evaluation.getEffectivePolicy(identifier);
+        evaluation.getEffectivePolicy(identifier);
+        Assert.assertEquals(evaluation.getCount("getHighestPriorityPolicy"), 2,
+                "Evaluation is reused beyond its expiry time");
+        Assert.assertEquals(evaluation.getCount("setPolicyUsed"), 2);
+    }
+
+    @Test
+    public void testLeastRecentlyEvaluatedDeviceIsEvicted() throws Exception {
+        TestEvaluation evaluation = new TestEvaluation(2, EXPIRY_TIME);
+        DeviceIdentifier first = evaluation.addDevice("device-1", 1);
+        DeviceIdentifier second = evaluation.addDevice("device-2", 2);
+        DeviceIdentifier third = evaluation.addDevice("device-3", 3);
+
+        evaluation.getEffectivePolicy(first);
+        evaluation.getEffectivePolicy(second);
+        evaluation.getEffectivePolicy(first);
+        evaluation.getEffectivePolicy(third);
+        Assert.assertEquals(evaluation.getCount("getHighestPriorityPolicy"), 3);
+
+        evaluation.getEffectivePolicy(first);
+        Assert.assertEquals(evaluation.getCount("getHighestPriorityPolicy"), 3,
+                "Recently evaluated device has been evicted");
+        evaluation.getEffectivePolicy(second);
+        Assert.assertEquals(evaluation.getCount("getHighestPriorityPolicy"), 4,
+                "Least recently evaluated device has not been evicted");
+    }
+
+    @Test
+    public void testHighestPriorityRelatedPolicyIsSelected() throws Exception {
+        TestEvaluation evaluation = new TestEvaluation(10, EXPIRY_TIME);
+        evaluation.relatedPolicies = Arrays.asList(createPolicy(2, 3), evaluation.policy, createPolicy(3, 1));
+        DeviceIdentifier identifier = evaluation.addDevice("device-1", 1);
+
+        Policy policy = evaluation.getEffectivePolicy(identifier);
+        Assert.assertNotNull(policy);
+        Assert.assertEquals(policy.getId(), evaluation.policy.getId(),
+                "Policy with the highest priority is not selected from the related policies");
+        Assert.assertEquals(evaluation.getCount("getRelatedPolicies"), 1);
+        Assert.assertEquals(evaluation.getCount("getHighestPriorityPolicy"), 0);
+        Assert.assertEquals(evaluation.getCount("setPolicyUsed"), 1);
+    }
+
+    @Test
+    public void testDeviceWithoutRelatedPolicies() throws Exception {
+        TestEvaluation evaluation = new TestEvaluation(10, EXPIRY_TIME);
+        evaluation.relatedPolicies = Collections.emptyList();
+        DeviceIdentifier identifier = evaluation.addDevice("device-1", 1);
+
+        Assert.assertNull(evaluation.getEffectivePolicy(identifier));
+        Assert.assertEquals(evaluation.getCount("getRelatedPolicies"), 1);
+        Assert.assertEquals(evaluation.getCount("removePolicyUsed"), 1);
+    }
+
+    private static Policy createPolicy(int id, int priorityId) {
+        Policy policy = new Policy();
+        policy.setId(id);
+        policy.setPriorityId(priorityId);
+        policy.setPolicyName("Test policy " + id);
+        return policy;
+    }
+
+    /**
+     * Evaluation against a fixed set of devices and a single policy, which counts the calls made to the policy
+     * information and administrator points. The policy information point finds the highest priority policy
+     * itself, unless related policies are given.
+     */
+    private static class TestEvaluation extends SimpleEvaluationImpl implements InvocationHandler {
+
+        private final Map<String, PIPDevice> pipDevices = new HashMap<>();
+        private final Map<String, Integer> counts = new HashMap<>();
+        private final PolicyManagerService policyManagerService;
+        private Policy policy;
+        private PolicySnapshot snapshot;
+        private List<Policy> relatedPolicies;
+
+        TestEvaluation(int capacity, long expiryTime) {
+            super(capacity, expiryTime);
+            policy = new Policy();
+            policy.setId(1);
+            policy.setPriorityId(1);
+            policy.setPolicyName("Test policy");
+            snapshot = new PolicySnapshot(Collections.singletonList(policy));
+            policyManagerService = this.createProxy(PolicyManagerService.class);
+        }
+
+        DeviceIdentifier addDevice(String id, int enrolmentId) {
+            EnrolmentInfo enrolmentInfo = new EnrolmentInfo();
+            enrolmentInfo.setId(enrolmentId);
+            Device device = new Device();
+            device.setDeviceIdentifier(id);
+            device.setType("android");
+            device.setEnrolmentInfo(enrolmentInfo);
+            PIPDevice pipDevice = new PIPDevice();
+            pipDevice.setDevice(device);
+            pipDevice.setOwnershipType(EnrolmentInfo.OwnerShip.BYOD.toString());
+            pipDevice.setUserId("user");
+            pipDevice.setRoles(new String[]{"user"});
+            pipDevices.put(id, pipDevice);
+            return new DeviceIdentifier(id, "android");
+        }
+
+        int getCount(String methodName) {
+            Integer count = counts.get(methodName);
+            return count == null ? 0 : count;
+        }
+
+        @Override
+        PolicySnapshot getPolicySnapshot() {
+            return snapshot;
+        }
+
+        @Override
+        PolicyManagerService getPolicyManagerService() {
+            return policyManagerService;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            counts.put(method.getName(), this.getCount(method.getName()) + 1);
+            switch (method.getName()) {
+                case "getPIP":
+                    return relatedPolicies == null ? this.createProxy(PrioritizedPolicyInformationPoint.class) :
+                            this.createProxy(PolicyInformationPoint.class);
+                case "getPAP":
+                    return this.createProxy(PolicyAdministratorPoint.class);
+                case "getDeviceData":
+                    return pipDevices.get(((DeviceIdentifier) args[0]).getId());
+                case "getHighestPriorityPolicy":
+                    return policy;
+                case "getRelatedPolicies":
+                    return relatedPolicies;
+                case "setPolicyUsed":
+                case "removePolicyUsed":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException("Unexpected call to " + method.getName() + " with " +
+                            (args == null ? "no arguments" : Arrays.toString(args)));
+            }
+        }
+
+        private <T> T createProxy(Class<T> type) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, this));
+        }
+    }
+
+}
@@ -29,6 +29,7 @@ import org.wso2.carbon.webapp.authenticator.framework.AuthenticationFrameworkUti
 import org.wso2.carbon.webapp.authenticator.framework.AuthenticationInfo;
 import org.wso2.carbon.webapp.authenticator.framework.Utils.Utils;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuth2TokenValidator;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthConstants;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthTokenValidationException;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthValidationResponse;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthValidatorFactory;
@@ -76,6 +77,14 @@ public class OAuthAuthenticator implements WebappAuthenticator {
         Properties validatorProperties = new Properties();
         validatorProperties.setProperty("MaxTotalConnections", this.properties.getProperty("MaxTotalConnections"));
         validatorProperties.setProperty("MaxConnectionsPerHost", this.properties.getProperty("MaxConnectionsPerHost"));
+        for (String cacheProperty : OAuthConstants.TOKEN_CACHE_PROPERTIES) {
+            String value = this.properties.getProperty(cacheProperty);
+            if (value != null) {
+                validatorProperties.setProperty(cacheProperty, value);
+            }
+        }
+        validatorProperties.setProperty(OAuthConstants.TOKEN_CACHE_NAME, this.getName());
+        OAuthValidatorFactory.releaseValidator(this.tokenValidator);
         this.tokenValidator =
                 OAuthValidatorFactory.getValidator(url, adminUsername, adminPassword, isRemote, validatorProperties);
     }
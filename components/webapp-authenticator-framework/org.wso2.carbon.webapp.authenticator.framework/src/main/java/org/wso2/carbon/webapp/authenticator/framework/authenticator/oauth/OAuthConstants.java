@@ -29,5 +29,17 @@ public class OAuthConstants {
     public static final String BEARER_TOKEN_IDENTIFIER = "token";
     public static final String AUTHENTICATOR_NAME = "OAuthAuthenticator";
     public static final String RESOURCE_KEY = "resource";
+    public static final String TOKEN_CACHE_ENABLED = "TokenCacheEnabled";
+    public static final String TOKEN_CACHE_CAPACITY = "TokenCacheCapacity";
+    public static final String TOKEN_CACHE_EXPIRY_TIME = "TokenCacheExpiryTime";
+    public static final String TOKEN_CACHE_NEGATIVE_EXPIRY_TIME = "TokenCacheNegativeExpiryTime";
+    public static final String TOKEN_CACHE_NAME = "TokenCacheName";
+    public static final String[] TOKEN_CACHE_PROPERTIES = {TOKEN_CACHE_ENABLED, TOKEN_CACHE_CAPACITY,
+            TOKEN_CACHE_EXPIRY_TIME, TOKEN_CACHE_NEGATIVE_EXPIRY_TIME};
+    public static final int DEFAULT_TOKEN_CACHE_CAPACITY = 10000;
+    public static final int DEFAULT_TOKEN_CACHE_EXPIRY_TIME = 60;
+    public static final int DEFAULT_TOKEN_CACHE_NEGATIVE_EXPIRY_TIME = 10;
+    public static final String TOKEN_CACHE_STATISTICS_MBEAN_NAME =
+            "org.wso2.carbon.webapp.authenticator:type=OAuthTokenCacheStatistics,name=";
 
 }
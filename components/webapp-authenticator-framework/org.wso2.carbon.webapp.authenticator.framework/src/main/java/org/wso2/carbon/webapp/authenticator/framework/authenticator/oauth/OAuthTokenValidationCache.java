@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth;
+
+import org.wso2.carbon.device.mgt.core.cache.ExpiringLRUCache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, least recently used ordered cache of OAuth token validation results, keyed by a hash of the token and
+ * the requested resource so that tokens are never kept in memory in plain text. Valid results are kept until the
+ * token expires or the configured expiry time elapses, whichever comes first, while invalid results are kept only
+ * for the shorter negative expiry time. The cache is per node and token revocations are only observed once they are
+ * reported through {@link #invalidateToken(String)}, hence it is only used when enabled through the authenticator
+ * configuration.
+ */
+public class OAuthTokenValidationCache implements OAuthTokenValidationCacheStatisticsMBean {
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final Set<OAuthTokenValidationCache> caches = new CopyOnWriteArraySet<>();
+
+    private final long negativeExpiryTime;
+    private final ExpiringLRUCache<String, OAuthValidationResponse> entries;
+
+    private final AtomicLong validationCount = new AtomicLong();
+    private final AtomicLong validationTime = new AtomicLong();
+    private final AtomicLong maxValidationTime = new AtomicLong();
+
+    /**
+     * @param capacity           Maximum number of validation results kept.
+     * @param expiryTime         Maximum time in milliseconds for which a valid result is kept.
+     * @param negativeExpiryTime Time in milliseconds for which an invalid result is kept.
+     */
+    public OAuthTokenValidationCache(int capacity, long expiryTime, long negativeExpiryTime) {
+        this.negativeExpiryTime = negativeExpiryTime;
+        this.entries = new ExpiringLRUCache<>(capacity, expiryTime);
+        caches.add(this);
+    }
+
+    /**
+     * Drops the cached validation results of a token from all the caches of this node. Revocation listeners can call
+     * this, so that a revoked token is not accepted until its cached results expire.
+     *
+     * @param accessToken Token which has been revoked.
+     */
+    public static void invalidateToken(String accessToken) {
+        for (OAuthTokenValidationCache cache : caches) {
+            cache.invalidate(accessToken);
+        }
+    }
+
+    /**
+     * @return The cached validation result of the token for the resource, or null if there is none.
+     */
+    public OAuthValidationResponse get(String accessToken, String resource) {
+        return entries.get(getKey(accessToken, resource));
+    }
+
+    /**
+     * Caches the validation result of the token for the resource.
+     */
+    public void put(String accessToken, String resource, OAuthValidationResponse response) {
+        long expiresAt;
+        if (response.isValid()) {
+            expiresAt = response.getExpiryTime() > 0 ? response.getExpiryTime() : Long.MAX_VALUE;
+        } else {
+            expiresAt = System.currentTimeMillis() + negativeExpiryTime;
+        }
+        entries.put(getKey(accessToken, resource), response, expiresAt);
+    }
+
+    /**
+     * Drops the cached validation results of the token for all the resources.
+     */
+    public void invalidate(String accessToken) {
+        final String prefix = hash(accessToken) + ":";
+        entries.removeAll(new ExpiringLRUCache.KeyFilter<String>() {
+            @Override
+            public boolean accept(String key) {
+                return key.startsWith(prefix);
+            }
+        });
+    }
+
+    /**
+     * Records the time taken by a validation which was not served from the cache.
+     *
+     * @param time Time taken in milliseconds.
+     */
+    public void recordValidation(long time) {
+        validationCount.incrementAndGet();
+        validationTime.addAndGet(time);
+        long max = maxValidationTime.get();
+        while (time > max && !maxValidationTime.compareAndSet(max, time)) {
+            max = maxValidationTime.get();
+        }
+    }
+
+    /**
+     * Removes the cache from the set of caches reached by {@link #invalidateToken(String)}.
+     */
+    public void destroy() {
+        caches.remove(this);
+        this.clearCache();
+    }
+
+    @Override
+    public long getHitCount() {
+        return entries.getHitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return entries.getMissCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        long hits = entries.getHitCount();
+        long requests = hits + entries.getMissCount();
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return entries.getEvictionCount();
+    }
+
+    @Override
+    public long getValidationCount() {
+        return validationCount.get();
+    }
+
+    @Override
+    public double getAverageValidationTime() {
+        long count = validationCount.get();
+        return count == 0 ? 0 : (double) validationTime.get() / count;
+    }
+
+    @Override
+    public long getMaxValidationTime() {
+        return maxValidationTime.get();
+    }
+
+    @Override
+    public int getSize() {
+        return entries.getSize();
+    }
+
+    @Override
+    public void clearCache() {
+        entries.clear();
+    }
+
+    @Override
+    public void resetStatistics() {
+        entries.resetStatistics();
+        validationCount.set(0);
+        validationTime.set(0);
+        maxValidationTime.set(0);
+    }
+
+    private static String getKey(String accessToken, String resource) {
+        return hash(accessToken) + ":" + hash(resource);
+    }
+
+    private static String hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance(HASH_ALGORITHM).digest(
+                    String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            char[] hex = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+                hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+            }
+            return new String(hex);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(HASH_ALGORITHM + " is not supported by the platform", e);
+        }
+    }
+
+}
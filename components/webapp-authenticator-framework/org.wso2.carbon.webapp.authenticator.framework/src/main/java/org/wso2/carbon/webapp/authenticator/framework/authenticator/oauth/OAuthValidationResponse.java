@@ -27,6 +27,7 @@ public class OAuthValidationResponse {
     private String tenantDomain;
     private boolean isValid;
     private String errorMsg;
+    private long expiryTime;
 
     public OAuthValidationResponse() {}
 
@@ -67,4 +68,15 @@ public class OAuthValidationResponse {
     public void setErrorMsg(String errorMsg) {
         this.errorMsg = errorMsg;
     }
+
+    /**
+     * @return Time in milliseconds since the epoch at which the validated token expires, or 0 if it is not known.
+     */
+    public long getExpiryTime() {
+        return expiryTime;
+    }
+
+    public void setExpiryTime(long expiryTime) {
+        this.expiryTime = expiryTime;
+    }
 }
\ No newline at end of file
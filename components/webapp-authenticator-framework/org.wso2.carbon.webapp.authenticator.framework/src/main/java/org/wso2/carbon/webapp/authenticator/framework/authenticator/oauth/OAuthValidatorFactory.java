@@ -17,11 +17,20 @@
  */
 package org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.carbon.core.security.AuthenticatorsConfiguration;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.impl.CachingOAuthValidator;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.impl.RemoteOAuthValidator;
 import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.impl.LocalOAuthValidator;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The class validate the configurations and provide the most suitable implementation according to the configuration.
@@ -29,19 +38,82 @@ import java.util.Properties;
  */
 public class OAuthValidatorFactory {
 
+    private static final Log log = LogFactory.getLog(OAuthValidatorFactory.class);
+
     public static OAuth2TokenValidator getValidator(String url, String adminUsername, String adminPassword,
                                                     boolean isRemote, Properties properties)
             throws IllegalArgumentException
     {
+        OAuth2TokenValidator validator;
         if (isRemote) {
             if ((url != null) && (!url.trim().isEmpty())) {
                 url = url + "/services/OAuth2TokenValidationService.OAuth2TokenValidationServiceHttpsSoap12Endpoint/";
-                return new RemoteOAuthValidator(url, adminUsername, adminPassword, properties);
+                validator = new RemoteOAuthValidator(url, adminUsername, adminPassword, properties);
+            } else {
+                throw new IllegalArgumentException("Remote server host can't be empty in OAuthAuthenticator " +
+                                                   "configuration.");
             }
-            throw new IllegalArgumentException("Remote server host can't be empty in OAuthAuthenticator configuration.");
+        } else {
+            validator = new LocalOAuthValidator();
+        }
+        String cacheEnabled = (properties != null) ? properties.getProperty(OAuthConstants.TOKEN_CACHE_ENABLED) : null;
+        if (Boolean.parseBoolean(cacheEnabled)) {
+            return new CachingOAuthValidator(validator, createTokenValidationCache(properties));
+        }
+        return validator;
+    }
+
+    /**
+     * Releases the resources held by a validator which is being replaced, such as its token validation cache.
+     *
+     * @param validator Validator previously returned by this factory, or null.
+     */
+    public static void releaseValidator(OAuth2TokenValidator validator) {
+        if (validator instanceof CachingOAuthValidator) {
+            ((CachingOAuthValidator) validator).getCache().destroy();
         }
+    }
 
-        return new LocalOAuthValidator();
+    private static OAuthTokenValidationCache createTokenValidationCache(Properties properties) {
+        int capacity = getIntProperty(properties, OAuthConstants.TOKEN_CACHE_CAPACITY,
+                                      OAuthConstants.DEFAULT_TOKEN_CACHE_CAPACITY);
+        int expiryTime = getIntProperty(properties, OAuthConstants.TOKEN_CACHE_EXPIRY_TIME,
+                                        OAuthConstants.DEFAULT_TOKEN_CACHE_EXPIRY_TIME);
+        int negativeExpiryTime = getIntProperty(properties, OAuthConstants.TOKEN_CACHE_NEGATIVE_EXPIRY_TIME,
+                                                OAuthConstants.DEFAULT_TOKEN_CACHE_NEGATIVE_EXPIRY_TIME);
+        OAuthTokenValidationCache cache = new OAuthTokenValidationCache(
+                capacity, TimeUnit.SECONDS.toMillis(expiryTime), TimeUnit.SECONDS.toMillis(negativeExpiryTime));
+        String name = (properties != null) ? properties.getProperty(OAuthConstants.TOKEN_CACHE_NAME) : null;
+        if (name != null) {
+            registerStatisticsMBean(cache, OAuthConstants.TOKEN_CACHE_STATISTICS_MBEAN_NAME + ObjectName.quote(name));
+        }
+        return cache;
+    }
+
+    private static int getIntProperty(Properties properties, String name, int defaultValue) {
+        String value = (properties != null) ? properties.getProperty(name) : null;
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value '" + value + "' provided for '" + name + "'", e);
+        }
+    }
+
+    private static void registerStatisticsMBean(OAuthTokenValidationCache cache, String name) {
+        try {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(name);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(new StandardMBean(cache, OAuthTokenValidationCacheStatisticsMBean.class, false),
+                                      objectName);
+        } catch (JMException e) {
+            log.error("Error occurred while registering the statistics MBean '" + name + "'", e);
+        }
     }
 
 }
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.impl;
+
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuth2TokenValidator;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthTokenValidationCache;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthTokenValidationException;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthValidationResponse;
+
+/**
+ * Serves OAuth2 token validations from an {@link OAuthTokenValidationCache} and falls back to another validator
+ * for tokens which have not been validated recently.
+ */
+public class CachingOAuthValidator implements OAuth2TokenValidator {
+
+    private final OAuth2TokenValidator validator;
+    private final OAuthTokenValidationCache cache;
+
+    public CachingOAuthValidator(OAuth2TokenValidator validator, OAuthTokenValidationCache cache) {
+        this.validator = validator;
+        this.cache = cache;
+    }
+
+    @Override
+    public OAuthValidationResponse validateToken(String accessToken, String resource)
+            throws OAuthTokenValidationException {
+        OAuthValidationResponse response = cache.get(accessToken, resource);
+        if (response != null) {
+            return response;
+        }
+        long startTime = System.currentTimeMillis();
+        response = validator.validateToken(accessToken, resource);
+        cache.recordValidation(System.currentTimeMillis() - startTime);
+        if (response != null) {
+            cache.put(accessToken, resource, response);
+        }
+        return response;
+    }
+
+    public OAuthTokenValidationCache getCache() {
+        return cache;
+    }
+
+}
@@ -69,6 +69,11 @@ public class LocalOAuthValidator implements OAuth2TokenValidator {
             oAuthValidationResponse.setErrorMsg(tokenValidationResponse.getErrorMsg());
             return oAuthValidationResponse;
         }
-        return new OAuthValidationResponse(userName,tenantDomain,isValid);
+        OAuthValidationResponse oAuthValidationResponse = new OAuthValidationResponse(userName, tenantDomain, isValid);
+        if (tokenValidationResponse.getExpiryTime() > 0) {
+            oAuthValidationResponse.setExpiryTime(
+                    System.currentTimeMillis() + tokenValidationResponse.getExpiryTime() * 1000);
+        }
+        return oAuthValidationResponse;
     }
 }
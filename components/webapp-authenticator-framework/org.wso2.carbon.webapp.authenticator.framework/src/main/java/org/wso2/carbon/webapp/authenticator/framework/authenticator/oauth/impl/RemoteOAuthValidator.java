@@ -90,7 +90,12 @@ public class RemoteOAuthValidator implements OAuth2TokenValidator {
             oAuthValidationResponse.setErrorMsg(validationResponse.getErrorMsg());
             return oAuthValidationResponse;
         }
-        return new OAuthValidationResponse(username, tenantDomain, isValid);
+        OAuthValidationResponse oAuthValidationResponse = new OAuthValidationResponse(username, tenantDomain, isValid);
+        if (validationResponse.getExpiryTime() > 0) {
+            oAuthValidationResponse.setExpiryTime(
+                    System.currentTimeMillis() + validationResponse.getExpiryTime() * 1000);
+        }
+        return oAuthValidationResponse;
     }
 
     private OAuth2TokenValidationRequestDTO createValidationRequest(String accessToken, String resource) {
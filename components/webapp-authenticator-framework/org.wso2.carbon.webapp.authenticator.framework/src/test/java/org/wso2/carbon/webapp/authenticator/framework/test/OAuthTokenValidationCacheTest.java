@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2016, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * you may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.webapp.authenticator.framework.test;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuth2TokenValidator;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthTokenValidationCache;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.OAuthValidationResponse;
+import org.wso2.carbon.webapp.authenticator.framework.authenticator.oauth.impl.CachingOAuthValidator;
+
+public class OAuthTokenValidationCacheTest {
+
+    private static final String VALID_TOKEN = "valid-token";
+    private static final String INVALID_TOKEN = "invalid-token";
+    private static final String RESOURCE = "/api/device-mgt/v1.0/devices:GET";
+
+    @Test
+    public void testValidationResultsAreCached() throws Exception {
+        CountingValidator validator = new CountingValidator();
+        OAuthTokenValidationCache cache = new OAuthTokenValidationCache(100, 60000, 60000);
+        CachingOAuthValidator cachingValidator = new CachingOAuthValidator(validator, cache);
+        try {
+            Assert.assertTrue(cachingValidator.validateToken(VALID_TOKEN, RESOURCE).isValid());
+            Assert.assertTrue(cachingValidator.validateToken(VALID_TOKEN, RESOURCE).isValid());
+            Assert.assertFalse(cachingValidator.validateToken(INVALID_TOKEN, RESOURCE).isValid());
+            Assert.assertFalse(cachingValidator.validateToken(INVALID_TOKEN, RESOURCE).isValid());
+            Assert.assertEquals(validator.count, 2, "Cached validation results have been validated again");
+            Assert.assertEquals(cache.getHitCount(), 2);
+            Assert.assertEquals(cache.getMissCount(), 2);
+            Assert.assertEquals(cache.getValidationCount(), 2);
+            Assert.assertEquals(cache.getHitRate(), 0.5);
+
+            cachingValidator.validateToken(VALID_TOKEN, RESOURCE + "/other");
+            Assert.assertEquals(validator.count, 3, "Validation result has been reused for another resource");
+        } finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testValidationResultsExpire() throws Exception {
+        CountingValidator validator = new CountingValidator();
+        OAuthTokenValidationCache cache = new OAuthTokenValidationCache(100, 60000, 0);
+        CachingOAuthValidator cachingValidator = new CachingOAuthValidator(validator, cache);
+        try {
+            cachingValidator.validateToken(INVALID_TOKEN, RESOURCE);
+            cachingValidator.validateToken(INVALID_TOKEN, RESOURCE);
+            Assert.assertEquals(validator.count, 2, "Invalid token has been cached beyond its expiry time");
+
+            validator.expiryTime = System.currentTimeMillis() - 1;
+            cachingValidator.validateToken(VALID_TOKEN, RESOURCE);
+            cachingValidator.validateToken(VALID_TOKEN, RESOURCE);
+            Assert.assertEquals(validator.count, 4, "Expired token has been cached");
+        } finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testCacheIsBounded() throws Exception {
+        OAuthTokenValidationCache cache = new OAuthTokenValidationCache(2, 60000, 60000);
+        try {
+            for (int i = 0; i < 5; i++) {
+                cache.put(VALID_TOKEN + i, RESOURCE, new OAuthValidationResponse("admin", "carbon.super", true));
+            }
+            Assert.assertEquals(cache.getSize(), 2);
+            Assert.assertEquals(cache.getEvictionCount(), 3);
+            Assert.assertNull(cache.get(VALID_TOKEN + 0, RESOURCE));
+            Assert.assertNotNull(cache.get(VALID_TOKEN + 4, RESOURCE));
+        } finally {
+            cache.destroy();
+        }
+    }
+
+    @Test
+    public void testRevokedTokensAreInvalidated() throws Exception {
+        CountingValidator validator = new CountingValidator();
+        OAuthTokenValidationCache cache = new OAuthTokenValidationCache(100, 60000, 60000);
+        CachingOAuthValidator cachingValidator = new CachingOAuthValidator(validator, cache);
+        try {
+            cachingValidator.validateToken(VALID_TOKEN, RESOURCE);
+            cachingValidator.validateToken(VALID_TOKEN, RESOURCE + "/other");
+            cachingValidator.validateToken(INVALID_TOKEN, RESOURCE);
+            OAuthTokenValidationCache.invalidateToken(VALID_TOKEN);
+            Assert.assertEquals(cache.getSize(), 1);
+            Assert.assertNull(cache.get(VALID_TOKEN, RESOURCE));
+            Assert.assertNotNull(cache.get(INVALID_TOKEN, RESOURCE));
+        } finally {
+            cache.destroy();
+        }
+    }
+
+    private static class CountingValidator implements OAuth2TokenValidator {
+
+        private int count;
+        private long expiryTime;
+
+        @Override
+        public OAuthValidationResponse validateToken(String accessToken, String resource) {
+            count++;
+            OAuthValidationResponse response;
+            if (VALID_TOKEN.equals(accessToken)) {
+                response = new OAuthValidationResponse("admin", "carbon.super", true);
+                response.setExpiryTime(expiryTime);
+            } else {
+                response = new OAuthValidationResponse();
+                response.setErrorMsg("Invalid token");
+            }
+            return response;
+        }
+    }
+
+}
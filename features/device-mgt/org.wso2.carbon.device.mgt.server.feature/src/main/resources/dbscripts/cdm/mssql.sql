@@ -96,6 +96,16 @@ CREATE INDEX IDX_ENROLMENT_FK_DEVICE_ID ON DM_ENROLMENT(DEVICE_ID);
 IF NOT  EXISTS (SELECT * FROM SYS.INDEXES WHERE NAME = 'IDX_ENROLMENT_DEVICE_ID_TENANT_ID' AND  OBJECT_ID = OBJECT_ID('DM_ENROLMENT'))
 CREATE INDEX IDX_ENROLMENT_DEVICE_ID_TENANT_ID ON DM_ENROLMENT(DEVICE_ID, TENANT_ID);
 
+IF NOT  EXISTS (SELECT * FROM SYS.OBJECTS WHERE OBJECT_ID = OBJECT_ID(N'[DBO].[DM_DEVICE_PUSH_TOKEN]') AND TYPE IN (N'U'))
+CREATE TABLE DM_DEVICE_PUSH_TOKEN (
+    ENROLMENT_ID INTEGER NOT NULL,
+    TOKEN VARCHAR(1000) NOT NULL,
+    TENANT_ID INTEGER NOT NULL,
+    PRIMARY KEY (ENROLMENT_ID),
+    CONSTRAINT FK_DM_DEVICE_PUSH_TOKEN_ENROLMENT FOREIGN KEY (ENROLMENT_ID) REFERENCES
+    DM_ENROLMENT (ID) ON DELETE CASCADE ON UPDATE NO ACTION
+);
+
 IF NOT  EXISTS (SELECT * FROM SYS.OBJECTS WHERE OBJECT_ID = OBJECT_ID(N'[DBO].[DM_ENROLMENT_OP_MAPPING]') AND TYPE IN (N'U'))
 CREATE TABLE DM_ENROLMENT_OP_MAPPING (
     ID INTEGER IDENTITY(1,1) NOT NULL,
@@ -311,6 +321,19 @@ CREATE TABLE DM_POLICY_COMPLIANCE_FEATURES (
   ON DELETE NO ACTION ON UPDATE NO ACTION
 );
 
+IF NOT  EXISTS (SELECT * FROM SYS.OBJECTS WHERE OBJECT_ID = OBJECT_ID(N'[DBO].[DM_POLICY_MONITORING_SHARD]') AND TYPE IN (N'U'))
+CREATE TABLE DM_POLICY_MONITORING_SHARD (
+  TENANT_ID INTEGER NOT NULL,
+  DEVICE_TYPE VARCHAR(300) NOT NULL,
+  SHARD_INDEX INTEGER NOT NULL,
+  LEASE_OWNER VARCHAR(100) NULL,
+  LEASE_EXPIRY_TIME DATETIME2 NULL,
+  LAST_DEVICE_ID INTEGER NOT NULL DEFAULT 0,
+  LAST_ENROLMENT_ID INTEGER NOT NULL DEFAULT 0,
+  LAST_ROUND_START_TIME DATETIME2 NULL,
+  PRIMARY KEY (TENANT_ID, DEVICE_TYPE, SHARD_INDEX)
+);
+
 IF NOT  EXISTS (SELECT * FROM SYS.OBJECTS WHERE OBJECT_ID = OBJECT_ID(N'[DBO].[DM_APPLICATION]') AND TYPE IN (N'U'))
 CREATE TABLE DM_APPLICATION (
     ID INTEGER IDENTITY(1,1) NOT NULL,
@@ -83,6 +83,15 @@ CREATE TABLE IF NOT EXISTS DM_ENROLMENT (
 CREATE INDEX IDX_ENROLMENT_FK_DEVICE_ID ON DM_ENROLMENT(DEVICE_ID);
 CREATE INDEX IDX_ENROLMENT_DEVICE_ID_TENANT_ID ON DM_ENROLMENT(DEVICE_ID, TENANT_ID);
 
+CREATE TABLE IF NOT EXISTS DM_DEVICE_PUSH_TOKEN (
+    ENROLMENT_ID INTEGER NOT NULL,
+    TOKEN VARCHAR(1000) NOT NULL,
+    TENANT_ID INTEGER NOT NULL,
+    PRIMARY KEY (ENROLMENT_ID),
+    CONSTRAINT FK_DM_DEVICE_PUSH_TOKEN_ENROLMENT FOREIGN KEY (ENROLMENT_ID) REFERENCES
+    DM_ENROLMENT (ID) ON DELETE CASCADE ON UPDATE NO ACTION
+)ENGINE = InnoDB;
+
 CREATE TABLE IF NOT EXISTS DM_ENROLMENT_OP_MAPPING (
     ID INTEGER AUTO_INCREMENT NOT NULL,
     ENROLMENT_ID INTEGER NOT NULL,
@@ -336,6 +345,18 @@ CREATE TABLE IF NOT EXISTS DM_POLICY_COMPLIANCE_FEATURES (
     ON UPDATE NO ACTION
 )ENGINE = InnoDB;
 
+CREATE TABLE IF NOT EXISTS DM_POLICY_MONITORING_SHARD (
+  TENANT_ID INT NOT NULL,
+  DEVICE_TYPE VARCHAR(300) NOT NULL,
+  SHARD_INDEX INT NOT NULL,
+  LEASE_OWNER VARCHAR(100) NULL,
+  LEASE_EXPIRY_TIME TIMESTAMP NULL,
+  LAST_DEVICE_ID INT NOT NULL DEFAULT 0,
+  LAST_ENROLMENT_ID INT NOT NULL DEFAULT 0,
+  LAST_ROUND_START_TIME TIMESTAMP NULL,
+  PRIMARY KEY (TENANT_ID, DEVICE_TYPE, SHARD_INDEX)
+)ENGINE = InnoDB;
+
 CREATE TABLE IF NOT EXISTS DM_APPLICATION (
     ID INTEGER AUTO_INCREMENT NOT NULL,
     NAME VARCHAR(150) NOT NULL,
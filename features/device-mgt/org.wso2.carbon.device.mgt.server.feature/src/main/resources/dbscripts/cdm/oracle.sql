@@ -181,6 +181,16 @@ WHEN (NEW.ID IS NULL)
   END;
 /
 
+CREATE TABLE DM_DEVICE_PUSH_TOKEN (
+  ENROLMENT_ID NUMBER(10) NOT NULL,
+  TOKEN VARCHAR2(1000) NOT NULL,
+  TENANT_ID NUMBER(10) NOT NULL,
+  CONSTRAINT PK_DM_DEVICE_PUSH_TOKEN PRIMARY KEY (ENROLMENT_ID),
+  CONSTRAINT FK_DM_PUSH_TOKEN_ENROLMENT FOREIGN KEY (ENROLMENT_ID) REFERENCES
+    DM_ENROLMENT (ID) ON DELETE CASCADE
+)
+/
+
 CREATE TABLE DM_ENROLMENT_OP_MAPPING (
   ID NUMBER(10) NOT NULL,
   ENROLMENT_ID NUMBER(10) NOT NULL,
@@ -602,6 +612,19 @@ WHEN (NEW.ID IS NULL)
   END;
 /
 
+CREATE TABLE DM_POLICY_MONITORING_SHARD (
+  TENANT_ID NUMBER(10) NOT NULL,
+  DEVICE_TYPE VARCHAR2(300) NOT NULL,
+  SHARD_INDEX NUMBER(10) NOT NULL,
+  LEASE_OWNER VARCHAR2(100) NULL,
+  LEASE_EXPIRY_TIME TIMESTAMP(0) NULL,
+  LAST_DEVICE_ID NUMBER(10) DEFAULT 0 NOT NULL,
+  LAST_ENROLMENT_ID NUMBER(10) DEFAULT 0 NOT NULL,
+  LAST_ROUND_START_TIME TIMESTAMP(0) NULL,
+  CONSTRAINT PK_DM_POLICY_MONITORING_SHARD PRIMARY KEY (TENANT_ID, DEVICE_TYPE, SHARD_INDEX)
+)
+/
+
 
 CREATE TABLE DM_DEVICE_GROUP_POLICY (
   ID NUMBER(10) NOT NULL,
@@ -80,6 +80,14 @@ CREATE TABLE IF NOT EXISTS  DM_ENROLMENT (
 CREATE INDEX IDX_ENROLMENT_FK_DEVICE_ID ON DM_ENROLMENT(DEVICE_ID);
 CREATE INDEX IDX_ENROLMENT_DEVICE_ID_TENANT_ID ON DM_ENROLMENT(DEVICE_ID, TENANT_ID);
 
+CREATE TABLE IF NOT EXISTS DM_DEVICE_PUSH_TOKEN (
+  ENROLMENT_ID INTEGER NOT NULL PRIMARY KEY,
+  TOKEN VARCHAR(1000) NOT NULL,
+  TENANT_ID INTEGER NOT NULL,
+  CONSTRAINT fk_dm_device_push_token_enrolment FOREIGN KEY (ENROLMENT_ID) REFERENCES
+    DM_ENROLMENT (ID) ON DELETE CASCADE ON UPDATE NO ACTION
+);
+
 CREATE TABLE IF NOT EXISTS  DM_ENROLMENT_OP_MAPPING (
   ID BIGSERIAL NOT NULL PRIMARY KEY,
   ENROLMENT_ID INTEGER NOT NULL,
@@ -302,6 +310,18 @@ CREATE TABLE IF NOT EXISTS  DM_POLICY_COMPLIANCE_FEATURES (
   ON UPDATE NO ACTION
 );
 
+CREATE TABLE IF NOT EXISTS DM_POLICY_MONITORING_SHARD (
+  TENANT_ID INTEGER NOT NULL,
+  DEVICE_TYPE VARCHAR(300) NOT NULL,
+  SHARD_INDEX INTEGER NOT NULL,
+  LEASE_OWNER VARCHAR(100) NULL,
+  LEASE_EXPIRY_TIME TIMESTAMP NULL,
+  LAST_DEVICE_ID INTEGER NOT NULL DEFAULT 0,
+  LAST_ENROLMENT_ID INTEGER NOT NULL DEFAULT 0,
+  LAST_ROUND_START_TIME TIMESTAMP NULL,
+  PRIMARY KEY (TENANT_ID, DEVICE_TYPE, SHARD_INDEX)
+);
+
 CREATE TABLE IF NOT EXISTS DM_DEVICE_GROUP_POLICY (
   ID BIGSERIAL NOT NULL PRIMARY KEY,
   DEVICE_GROUP_ID INT NOT NULL,